@@ -1052,6 +1052,11 @@ public class CatalogDiffEngine {
             if (field.equals("defaulttype")) {
                 return null;
             }
+            // Dictionary encoding only changes how the EE stores the column,
+            // which it handles by rebuilding the table with the new schema.
+            if (field.equals("dictionaryencoded")) {
+                return null;
+            }
             if (field.equals("nullable")) {
                 Boolean nullable = (Boolean) suspect.getField(field);
                 assert(nullable != null);
@@ -41,6 +41,7 @@
 #include "common/MiscUtil.h"
 #include "common/Pool.hpp"
 #include "common/SQLException.h"
+#include "common/StringDictionary.h"
 #include "common/StringRef.h"
 #include "common/debuglog.h"
 #include "common/serializeio.h"
@@ -318,6 +319,15 @@ class NValue {
                                 static_cast<Pool*>(NULL));
     }
 
+    /** Serialize this VARCHAR or VARBINARY value into the storage of a
+        dictionary encoded column of a persistent tuple.  Instead of a
+        copy of the value, the tuple stores a new reference to the
+        value's shared entry in the column's dictionary. */
+    void serializeToDictionaryEncodedStorage(void *storage,
+                                             int32_t maxLength,
+                                             bool isInBytes,
+                                             StringDictionary* dictionary) const;
+
     /* Deserialize a scalar value of the specified type from the
        SerializeInput directly into the tuple storage area
        provided. This function will perform memory allocations for
@@ -2051,6 +2061,26 @@ private:
         return compareDoubleValue(lhsValue, rhsValue);
     }
 
+    /* Tell caller if both values are codes of the same dictionary
+       encoded column, which are equal exactly when the values are. */
+    bool sharesDictionaryWith(const NValue& rhs) const {
+        if ((m_valueType != VALUE_TYPE_VARCHAR && m_valueType != VALUE_TYPE_VARBINARY) ||
+                rhs.m_valueType != m_valueType ||
+                getSourceInlined() || rhs.getSourceInlined() ||
+                isNull() || rhs.isNull()) {
+            return false;
+        }
+        const StringDictionary* dictionary = getObjectPointer()->getDictionary();
+        return dictionary != NULL && dictionary == rhs.getObjectPointer()->getDictionary();
+    }
+
+    /* Tell caller if both values refer to the same out-of-line object,
+       which is always the case for equal codes of a dictionary. */
+    bool sharesObjectWith(const NValue& rhs) const {
+        return ! getSourceInlined() && ! rhs.getSourceInlined() &&
+                getObjectPointer() == rhs.getObjectPointer();
+    }
+
     int compareStringValue (const NValue& rhs) const {
         assert(m_valueType == VALUE_TYPE_VARCHAR);
 
@@ -2068,6 +2098,10 @@ private:
 
         assert(m_valueType == VALUE_TYPE_VARCHAR);
 
+        if (sharesObjectWith(rhs)) {
+            return VALUE_COMPARE_EQUAL;
+        }
+
         int32_t leftLength;
         const char* left = getObject_withoutNull(&leftLength);
         int32_t rightLength;
@@ -2099,6 +2133,9 @@ private:
                                data_exception_most_specific_type_mismatch,
                                message);
         }
+        if (sharesObjectWith(rhs)) {
+            return VALUE_COMPARE_EQUAL;
+        }
         int32_t leftLength;
         const char* left = getObject_withoutNull(&leftLength);
         int32_t rightLength;
@@ -2970,6 +3007,20 @@ inline void NValue::serializeToTupleStorage(void *storage, bool isInlined,
                        message);
 }
 
+inline void NValue::serializeToDictionaryEncodedStorage(void *storage, int32_t maxLength,
+                                                       bool isInBytes, StringDictionary* dictionary) const
+{
+    assert(m_valueType == VALUE_TYPE_VARCHAR || m_valueType == VALUE_TYPE_VARBINARY);
+    if (isNull()) {
+        *reinterpret_cast<void**>(storage) = NULL;
+        return;
+    }
+    int32_t length;
+    const char* buf = getObject_withoutNull(&length);
+    checkTooWideForVariableLengthType(m_valueType, buf, length, maxLength, isInBytes);
+    *reinterpret_cast<const StringRef**>(storage) = dictionary->intern(length, buf);
+}
+
 
 /**
  * Deserialize a scalar value of the specified type from the
@@ -3386,10 +3437,16 @@ inline bool NValue::isNaN() const {
 
 // general full comparison
 inline NValue NValue::op_equals(const NValue& rhs) const {
+    if (sharesDictionaryWith(rhs)) {
+        return sharesObjectWith(rhs) ? getTrue() : getFalse();
+    }
     return compare(rhs) == 0 ? getTrue() : getFalse();
 }
 
 inline NValue NValue::op_notEquals(const NValue& rhs) const {
+    if (sharesDictionaryWith(rhs)) {
+        return sharesObjectWith(rhs) ? getFalse() : getTrue();
+    }
     return compare(rhs) != 0 ? getTrue() : getFalse();
 }
 
@@ -3411,10 +3468,16 @@ inline NValue NValue::op_greaterThanOrEqual(const NValue& rhs) const {
 
 // without null comparison
 inline NValue NValue::op_equals_withoutNull(const NValue& rhs) const {
+    if (sharesDictionaryWith(rhs)) {
+        return sharesObjectWith(rhs) ? getTrue() : getFalse();
+    }
     return compare_withoutNull(rhs) == 0 ? getTrue() : getFalse();
 }
 
 inline NValue NValue::op_notEquals_withoutNull(const NValue& rhs) const {
+    if (sharesDictionaryWith(rhs)) {
+        return sharesObjectWith(rhs) ? getFalse() : getTrue();
+    }
     return compare_withoutNull(rhs) != 0 ? getTrue() : getFalse();
 }
 
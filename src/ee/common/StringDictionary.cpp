@@ -0,0 +1,94 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+#include "StringDictionary.h"
+
+#include "ThreadLocalPool.h"
+
+#include <cassert>
+#include <new>
+
+using namespace voltdb;
+
+std::size_t StringDictionary::entryAllocationSize(int32_t sz)
+{
+    return sizeof(StringRef) + sizeof(StringRef::DictionaryEntry) +
+            sizeof(ThreadLocalPool::Sized) + sz;
+}
+
+void StringDictionary::decrementRefcount()
+{
+    assert(m_refcount > 0);
+    if (--m_refcount == 0 && m_entries.empty()) {
+        delete this;
+    }
+}
+
+StringRef* StringDictionary::intern(int32_t sz, const char* bytes)
+{
+    Key key = { bytes, sz };
+    EntryMap::iterator iter = m_entries.find(key);
+    if (iter != m_entries.end()) {
+        StringRef* sref = iter->second;
+        ++sref->getDictionaryEntry()->m_refcount;
+        return sref;
+    }
+
+    // Entries are not relocatable: the map key aliases their data.
+    std::size_t allocSize = entryAllocationSize(sz);
+    StringRef* sref = new (new char[allocSize]) StringRef(this, sz);
+    ::memcpy(sref->getObjectValue(), bytes, sz);
+    key.m_data = sref->getObjectValue();
+    m_entries.insert(std::make_pair(key, sref));
+    m_memorySize += allocSize;
+    return sref;
+}
+
+StringRef* StringDictionary::adopt(StringRef* sref)
+{
+    if (sref->getDictionary() == this) {
+        return sref;
+    }
+    int32_t sz;
+    const char* bytes = sref->getObject(&sz);
+    StringRef* entry = intern(sz, bytes);
+    StringRef::destroy(sref);
+    return entry;
+}
+
+void StringDictionary::release(StringRef* sref)
+{
+    StringRef::DictionaryEntry* entry = sref->getDictionaryEntry();
+    assert(entry != NULL && entry->m_dictionary == this);
+    assert(entry->m_refcount > 0);
+    if (--entry->m_refcount > 0) {
+        return;
+    }
+
+    int32_t sz;
+    const char* bytes = sref->getObject(&sz);
+    Key key = { bytes, sz };
+    m_entries.erase(key);
+    m_memorySize -= entryAllocationSize(sz);
+    // The StringRef destructor is only for persistent strings,
+    // so release the raw storage of the entry directly.
+    delete [] reinterpret_cast<char*>(sref);
+
+    if (m_refcount == 0 && m_entries.empty()) {
+        delete this;
+    }
+}
@@ -0,0 +1,128 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+#ifndef STRINGDICTIONARY_H
+#define STRINGDICTIONARY_H
+
+#include <cstring>
+#include <stdint.h>
+
+#include <boost/functional/hash.hpp>
+#include <boost/unordered_map.hpp>
+
+#include "common/StringRef.h"
+
+namespace voltdb {
+
+/**
+ * A per-column dictionary for the values of a dictionary encoded
+ * VARCHAR or VARBINARY column.
+ *
+ * Every distinct value stored in the column is interned exactly once
+ * as a shared, reference counted StringRef (a dictionary entry), and
+ * the tuple stores the pointer to that entry as the value's code.
+ * Two values of the same dictionary are therefore equal exactly when
+ * their codes are equal, which lets equality be decided without
+ * looking at the bytes.
+ *
+ * Entries are released through StringRef::destroy like any other
+ * non-inlined value, so the usual tuple and undo bookkeeping keeps
+ * the reference counts balanced.  The dictionary itself is
+ * referenced by the TupleSchema of the owning table and by each of
+ * its live entries, and deletes itself when the last one goes away.
+ */
+class StringDictionary {
+public:
+    StringDictionary()
+        : m_entries()
+        , m_refcount(1)
+        , m_memorySize(0)
+    {
+    }
+
+    /** Add a reference on behalf of a new owner of this dictionary. */
+    void incrementRefcount() {
+        ++m_refcount;
+    }
+
+    /** Drop a reference taken by incrementRefcount or at construction. */
+    void decrementRefcount();
+
+    /**
+     * Return a reference to the entry for the given bytes, creating it
+     * if the value has not been seen before.  The caller owns the
+     * returned reference and releases it with StringRef::destroy.
+     */
+    StringRef* intern(int32_t size, const char* bytes);
+
+    /**
+     * Like intern, but takes a reference to the entry for the value of
+     * an existing string, which is destroyed.  A string that is already
+     * an entry of this dictionary is returned as is.
+     */
+    StringRef* adopt(StringRef* sref);
+
+    /** Number of distinct values currently held. */
+    size_t entryCount() const {
+        return m_entries.size();
+    }
+
+    /** Memory held by the entries, including the StringRef headers. */
+    int64_t memorySize() const {
+        return m_memorySize;
+    }
+
+private:
+    friend class StringRef;
+
+    ~StringDictionary() {}
+
+    /** Drop one reference to the entry, called by StringRef::destroy. */
+    void release(StringRef* sref);
+
+    static std::size_t entryAllocationSize(int32_t sz);
+
+    // The key aliases the bytes of the entry it maps to, which are
+    // allocated together with the entry and never move.
+    struct Key {
+        const char* m_data;
+        int32_t m_size;
+    };
+
+    struct KeyHash {
+        std::size_t operator()(const Key& key) const {
+            return boost::hash_range(key.m_data, key.m_data + key.m_size);
+        }
+    };
+
+    struct KeyEqual {
+        bool operator()(const Key& lhs, const Key& rhs) const {
+            return lhs.m_size == rhs.m_size &&
+                    ::memcmp(lhs.m_data, rhs.m_data, lhs.m_size) == 0;
+        }
+    };
+
+    typedef boost::unordered_map<Key, StringRef*, KeyHash, KeyEqual> EntryMap;
+
+    EntryMap m_entries;
+    int32_t m_refcount;
+    int64_t m_memorySize;
+};
+
+} // namespace voltdb
+
+#endif // STRINGDICTIONARY_H
@@ -18,6 +18,7 @@
 #include "StringRef.h"
 
 #include "Pool.hpp"
+#include "StringDictionary.h"
 #include "ThreadLocalPool.h"
 
 #include "storage/LargeTempTableBlock.h"
@@ -28,13 +29,13 @@ inline ThreadLocalPool::Sized* asSizedObject(char* stringPtr)
 { return reinterpret_cast<ThreadLocalPool::Sized*>(stringPtr); }
 
 char* StringRef::getObjectValue()
-{ return asSizedObject(m_stringPtr)->m_data; }
+{ return asSizedObject(stringPtr())->m_data; }
 
 const char* StringRef::getObjectValue() const
-{ return asSizedObject(m_stringPtr)->m_data; }
+{ return asSizedObject(stringPtr())->m_data; }
 
 int32_t StringRef::getObjectLength() const
-{ return asSizedObject(m_stringPtr)->m_size; }
+{ return asSizedObject(stringPtr())->m_size; }
 
 const char* StringRef::getObject(int32_t* lengthOut) const
 {
@@ -44,12 +45,18 @@ const char* StringRef::getObject(int32_t* lengthOut) const
                              asSizedObject(m_stringPtr)->m_size)
               << std::endl;
     // */
-    *lengthOut = asSizedObject(m_stringPtr)->m_size;
-    return asSizedObject(m_stringPtr)->m_data;
+    ThreadLocalPool::Sized* sized = asSizedObject(stringPtr());
+    *lengthOut = sized->m_size;
+    return sized->m_data;
 }
 
 int32_t StringRef::getAllocatedSizeInPersistentStorage() const
 {
+    // Dictionary entries are shared by all the tuples that use them,
+    // so their memory is accounted for by the dictionary instead.
+    if (getDictionaryEntry()) {
+        return 0;
+    }
     // The CompactingPool allocated a chunk of this size for storage.
     int32_t alloc_size = ThreadLocalPool::getAllocationSizeForRelocatable(asSizedObject(m_stringPtr));
     //cout << "Pool allocation size: " << alloc_size << endl;
@@ -61,7 +68,7 @@ int32_t StringRef::getAllocatedSizeInPersistentStorage() const
 }
 
 int32_t StringRef::getAllocatedSizeInTempStorage() const {
-    int32_t size = asSizedObject(m_stringPtr)->m_size;
+    int32_t size = asSizedObject(stringPtr())->m_size;
     size += sizeof(StringRef) + sizeof(ThreadLocalPool::Sized);
 
     return size;
@@ -94,6 +101,20 @@ inline StringRef::StringRef(Pool* unused, int32_t sz)
   : m_stringPtr(reinterpret_cast<char*>(this+1))
 { asSizedObject(m_stringPtr)->m_size = sz; }
 
+// Dictionary entries are allocated by the dictionary in one piece with
+// their StringRef and start out with the single reference of their creator.
+// Their data follows the entry header, and m_stringPtr carries the tag
+// that identifies them as entries.
+StringRef::StringRef(StringDictionary* dictionary, int32_t sz)
+  : m_stringPtr(reinterpret_cast<char*>(
+          reinterpret_cast<uintptr_t>(reinterpret_cast<DictionaryEntry*>(this+1)+1) | DICTIONARY_ENTRY_TAG))
+{
+    DictionaryEntry* entry = reinterpret_cast<DictionaryEntry*>(this+1);
+    entry->m_dictionary = dictionary;
+    entry->m_refcount = 1;
+    asSizedObject(stringPtr())->m_size = sz;
+}
+
 // The destroy method keeps this from getting run on temporary strings.
 inline StringRef::~StringRef()
 {
@@ -131,7 +152,7 @@ StringRef* StringRef::create(int32_t sz, const char* source, LargeTempTableBlock
 {
     assert (lttBlock != NULL);
     StringRef* result;
-    result = new (lttBlock->allocate(sizeof(StringRef)+sizeof(ThreadLocalPool::Sized) + sz)) StringRef(NULL, sz);
+    result = new (lttBlock->allocate(sizeof(StringRef)+sizeof(ThreadLocalPool::Sized) + sz)) StringRef(static_cast<Pool*>(NULL), sz);
 
     if (source) {
         ::memcpy(result->getObjectValue(), source, sz);
@@ -168,9 +189,16 @@ StringRef::destroy(StringRef* sref)
     // allocation that is separate from the StringRef. Even in the
     // unlikely event that the two allocations were very close to each other,
     // they would still be separated by that offset and would fail this
-    // test.
+    // test. So would dictionary entries, whose m_stringPtr is tagged.
     if (sref->m_stringPtr == reinterpret_cast<char*>(sref+1)) {
         return;
     }
+    // Dictionary entries are shared, so only drop this reference.
+    // The dictionary frees the entry along with its last reference.
+    DictionaryEntry* entry = sref->getDictionaryEntry();
+    if (entry) {
+        entry->m_dictionary->release(sref);
+        return;
+    }
     delete sref;
 }
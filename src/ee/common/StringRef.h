@@ -18,6 +18,8 @@
 #ifndef STRINGREF_H
 #define STRINGREF_H
 
+#include <boost/static_assert.hpp>
+
 #include <cstddef>
 #include <stdint.h>
 
@@ -25,6 +27,7 @@ namespace voltdb
 {
 class Pool;
 class LargeTempTableBlock;
+class StringDictionary;
 
 /// An object to use in lieu of raw char* pointers for strings
 /// which are not inlined into tuple storage.  This provides a
@@ -84,11 +87,38 @@ public:
     /// When a string is relocated, we need to update the data pointer.
     void relocate(std::ptrdiff_t offset);
 
+    /// Return the dictionary that interned this string, or NULL if
+    /// it is not a dictionary entry.  Entries of the same dictionary
+    /// hold equal values exactly when they are the same StringRef.
+    const StringDictionary* getDictionary() const;
+
 private:
+    friend class StringDictionary;
+
+    // Dictionary entries are allocated in one piece: the StringRef,
+    // this header, and then the sized string data.
+    struct DictionaryEntry {
+        StringDictionary* m_dictionary;
+        int32_t m_refcount;
+    };
+
+    // Returns the header of a dictionary entry, or NULL for any other string.
+    DictionaryEntry* getDictionaryEntry() const;
+
+    // Dictionary entries tag m_stringPtr with its top bit, which is never
+    // set in a user space address.  The low bits are no use for this:
+    // strings allocated in LargeTempTableBlocks are not aligned.
+    static const uintptr_t DICTIONARY_ENTRY_TAG = uintptr_t(1) << 63;
+
+    // Returns m_stringPtr with any tag removed.
+    char* stringPtr() const;
+
     // Signature used internally for persistent strings
     StringRef(int32_t size);
     // Signature used internally for temporary strings
     StringRef(Pool* tempPool, int32_t size);
+    // Signature used internally for dictionary entries
+    StringRef(StringDictionary* dictionary, int32_t size);
     // Only called from destroy and only for persistent strings.
     ~StringRef();
 
@@ -98,6 +128,30 @@ private:
     char* m_stringPtr;
 };
 
+BOOST_STATIC_ASSERT_MSG(sizeof(char*) == sizeof(uint64_t),
+                        "StringRef tags dictionary entries with bit 63 of a pointer");
+
+inline char* StringRef::stringPtr() const
+{
+    return reinterpret_cast<char*>(reinterpret_cast<uintptr_t>(m_stringPtr) & ~DICTIONARY_ENTRY_TAG);
+}
+
+// Dictionary entries are allocated in one piece with their StringRef,
+// and the entry header follows it directly.
+inline StringRef::DictionaryEntry* StringRef::getDictionaryEntry() const
+{
+    if ((reinterpret_cast<uintptr_t>(m_stringPtr) & DICTIONARY_ENTRY_TAG) == 0) {
+        return NULL;
+    }
+    return reinterpret_cast<DictionaryEntry*>(const_cast<StringRef*>(this+1));
+}
+
+inline const StringDictionary* StringRef::getDictionary() const
+{
+    const DictionaryEntry* entry = getDictionaryEntry();
+    return entry ? entry->m_dictionary : NULL;
+}
+
 } // namespace voltdb
 
 #endif // STRINGREF_H
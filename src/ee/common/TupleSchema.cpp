@@ -18,6 +18,7 @@
 #include <sstream>
 #include "common/TupleSchema.h"
 #include "common/NValue.hpp"
+#include "common/StringDictionary.h"
 #include "expressions/abstractexpression.h"
 #include "plannodes/abstractplannode.h"
 
@@ -107,9 +108,68 @@ TupleSchema* TupleSchema::createTupleSchema(const std::vector<ValueType>& column
                                             const std::vector<int32_t>&   hiddenColumnSizes,
                                             const std::vector<bool>&      hiddenAllowNull,
                                             const std::vector<bool>&      hiddenColumnInBytes)
+{
+    const std::vector<bool> columnUninlined(columnTypes.size(), false);
+    return TupleSchema::buildTupleSchema(columnTypes,
+                                         columnSizes,
+                                         allowNull,
+                                         columnInBytes,
+                                         columnUninlined,
+                                         hiddenColumnTypes,
+                                         hiddenColumnSizes,
+                                         hiddenAllowNull,
+                                         hiddenColumnInBytes);
+}
+
+TupleSchema* TupleSchema::createTupleSchema(const std::vector<ValueType>& columnTypes,
+                                            const std::vector<int32_t>&   columnSizes,
+                                            const std::vector<bool>&      allowNull,
+                                            const std::vector<bool>&      columnInBytes,
+                                            const std::vector<bool>&      columnDictionaryEncoded,
+                                            const std::vector<ValueType>& hiddenColumnTypes,
+                                            const std::vector<int32_t>&   hiddenColumnSizes,
+                                            const std::vector<bool>&      hiddenAllowNull,
+                                            const std::vector<bool>&      hiddenColumnInBytes)
+{
+    for (size_t ii = 0; ii < columnTypes.size(); ii++) {
+        if (columnDictionaryEncoded[ii] &&
+                columnTypes[ii] != VALUE_TYPE_VARCHAR && columnTypes[ii] != VALUE_TYPE_VARBINARY) {
+            throwFatalLogicErrorStreamed("Attempt to dictionary encode a column of type "
+                                         << valueToString(columnTypes[ii]));
+        }
+    }
+
+    // The codes stored in the tuple are pointers to dictionary entries,
+    // so encoded columns always take the out-of-line layout.
+    TupleSchema *retval = TupleSchema::buildTupleSchema(columnTypes,
+                                                        columnSizes,
+                                                        allowNull,
+                                                        columnInBytes,
+                                                        columnDictionaryEncoded,
+                                                        hiddenColumnTypes,
+                                                        hiddenColumnSizes,
+                                                        hiddenAllowNull,
+                                                        hiddenColumnInBytes);
+    for (uint16_t ii = 0; ii < retval->m_columnCount; ii++) {
+        if (columnDictionaryEncoded[ii]) {
+            retval->getColumnInfoPrivate(ii)->dictionary = new StringDictionary();
+        }
+    }
+    return retval;
+}
+
+TupleSchema* TupleSchema::buildTupleSchema(const std::vector<ValueType>& columnTypes,
+                                           const std::vector<int32_t>&   columnSizes,
+                                           const std::vector<bool>&      allowNull,
+                                           const std::vector<bool>&      columnInBytes,
+                                           const std::vector<bool>&      columnUninlined,
+                                           const std::vector<ValueType>& hiddenColumnTypes,
+                                           const std::vector<int32_t>&   hiddenColumnSizes,
+                                           const std::vector<bool>&      hiddenAllowNull,
+                                           const std::vector<bool>&      hiddenColumnInBytes)
 {
     const uint16_t uninlineableObjectColumnCount =
-      TupleSchema::countUninlineableObjectColumns(columnTypes, columnSizes, columnInBytes);
+      TupleSchema::countUninlineableObjectColumns(columnTypes, columnSizes, columnInBytes, columnUninlined);
     const uint16_t columnCount = static_cast<uint16_t>(columnTypes.size());
     const uint16_t hiddenColumnCount = static_cast<uint16_t>(hiddenColumnTypes.size());
     int memSize = memSizeForTupleSchema(columnCount,
@@ -132,7 +192,8 @@ TupleSchema* TupleSchema::createTupleSchema(const std::vector<ValueType>& column
         const uint32_t length = columnSizes[ii];
         const bool columnAllowNull = allowNull[ii];
         const bool inBytes = columnInBytes[ii];
-        retval->setColumnMetaData(ii, type, length, columnAllowNull, uninlinedObjectColumnIndex, inBytes);
+        retval->setColumnMetaData(ii, type, length, columnAllowNull, uninlinedObjectColumnIndex, inBytes,
+                                  columnUninlined[ii]);
     }
 
     for (uint16_t ii = 0; ii < hiddenColumnCount; ++ii) {
@@ -151,7 +212,8 @@ TupleSchema* TupleSchema::createTupleSchema(const std::vector<ValueType>& column
                                   length,
                                   columnAllowNull,
                                   uninlinedObjectColumnIndex,
-                                  inBytes);
+                                  inBytes,
+                                  false);
     }
 
     return retval;
@@ -167,6 +229,12 @@ TupleSchema* TupleSchema::createTupleSchema(const TupleSchema *schema) {
 
     memcpy(retval, schema, memSize);
 
+    // The copy keeps the layout of dictionary encoded columns, but not
+    // their dictionaries, which belong to the original schema.
+    for (uint16_t ii = 0; ii < retval->m_columnCount; ii++) {
+        retval->getColumnInfoPrivate(ii)->dictionary = NULL;
+    }
+
     return retval;
 }
 
@@ -207,6 +275,9 @@ TupleSchema::createTupleSchema(const TupleSchema *first,
     std::vector<int32_t> columnLengths;
     std::vector<bool> columnAllowNull(combinedColumnCount, true);
     std::vector<bool> columnInBytes(combinedColumnCount, false);
+    // Remember to keep the inlineability of each column, which may have
+    // been forced out-of-line by dictionary encoding.
+    std::vector<bool> columnUninlined;
     std::vector<uint16_t>::const_iterator iter;
     for (iter = firstSet.begin(); iter != firstSet.end(); iter++) {
         const TupleSchema::ColumnInfo *columnInfo = first->getColumnInfo(*iter);
@@ -214,6 +285,7 @@ TupleSchema::createTupleSchema(const TupleSchema *first,
         columnLengths.push_back(columnInfo->length);
         columnAllowNull[*iter] = columnInfo->allowNull;
         columnInBytes[*iter] = columnInfo->inBytes;
+        columnUninlined.push_back( ! columnInfo->inlined);
     }
     for (iter = secondSet.begin(); second && iter != secondSet.end(); iter++) {
         const TupleSchema::ColumnInfo *columnInfo = second->getColumnInfo(*iter);
@@ -221,24 +293,22 @@ TupleSchema::createTupleSchema(const TupleSchema *first,
         columnLengths.push_back(columnInfo->length);
         columnAllowNull[offset + *iter] = columnInfo->allowNull;
         columnInBytes[offset + *iter] = columnInfo->inBytes;
+        columnUninlined.push_back( ! columnInfo->inlined);
     }
 
-    TupleSchema *schema = TupleSchema::createTupleSchema(columnTypes,
-                                                         columnLengths,
-                                                         columnAllowNull,
-                                                         columnInBytes);
-
-    // Remember to set the inlineability of each column correctly.
-    for (iter = firstSet.begin(); iter != firstSet.end(); iter++) {
-        ColumnInfo *info = schema->getColumnInfo(*iter);
-        info->inlined = first->getColumnInfo(*iter)->inlined;
-    }
-    for (iter = secondSet.begin(); second && iter != secondSet.end(); iter++) {
-        ColumnInfo *info = schema->getColumnInfo((int)offset + *iter);
-        info->inlined = second->getColumnInfo(*iter)->inlined;
-    }
-
-    return schema;
+    const std::vector<ValueType> hiddenTypes(0);
+    const std::vector<int32_t> hiddenSizes(0);
+    const std::vector<bool> hiddenAllowNull(0);
+    const std::vector<bool> hiddenColumnInBytes(0);
+    return TupleSchema::buildTupleSchema(columnTypes,
+                                         columnLengths,
+                                         columnAllowNull,
+                                         columnInBytes,
+                                         columnUninlined,
+                                         hiddenTypes,
+                                         hiddenSizes,
+                                         hiddenAllowNull,
+                                         hiddenColumnInBytes);
 }
 
 TupleSchema* TupleSchema::createTupleSchema(
@@ -262,11 +332,23 @@ TupleSchema* TupleSchema::createTupleSchema(
 }
 
 void TupleSchema::freeTupleSchema(TupleSchema *schema) {
+    if (schema == NULL) {
+        return;
+    }
+    // Dictionaries outlive the schema for as long as any of their
+    // entries are still referenced, e.g. by a pending undo action.
+    for (uint16_t ii = 0; ii < schema->m_columnCount; ii++) {
+        StringDictionary *dictionary = schema->getColumnInfoPrivate(ii)->dictionary;
+        if (dictionary != NULL) {
+            dictionary->decrementRefcount();
+        }
+    }
     delete[] reinterpret_cast<char*>(schema);
 }
 
 void TupleSchema::setColumnMetaData(uint16_t index, ValueType type, const int32_t length, bool allowNull,
-                                    uint16_t &uninlinedObjectColumnIndex, bool inBytes)
+                                    uint16_t &uninlinedObjectColumnIndex, bool inBytes,
+                                    bool forceUninlined)
 {
     assert(length <= COLUMN_MAX_VALUE_LENGTH);
     uint32_t offset = 0;
@@ -277,13 +359,14 @@ void TupleSchema::setColumnMetaData(uint16_t index, ValueType type, const int32_
     columnInfo->allowNull = (char)(allowNull ? 1 : 0);
     columnInfo->length = length;
     columnInfo->inBytes = inBytes;
+    columnInfo->dictionary = NULL;
 
     if (isVariableLengthType(type)) {
         if (length == 0) {
             throwFatalLogicErrorStreamed("Zero length for object type " << valueToString((ValueType)type));
         }
 
-        if (isInlineable(type, length, inBytes)) {
+        if ( ! forceUninlined && isInlineable(type, length, inBytes)) {
             columnInfo->inlined = true;
 
             // If the length was specified in characters, convert to bytes.
@@ -322,9 +405,23 @@ std::string TupleSchema::ColumnInfo::debug() const {
            << "length = " << length << ", "
            << "nullable = " << (allowNull ? "true" : "false") << ", "
            << "isInlined = " << inlined;
+    if (dictionary != NULL) {
+        buffer << ", dictionary encoded";
+    }
     return buffer.str();
 }
 
+int64_t TupleSchema::getDictionaryMemorySize() const {
+    int64_t bytes = 0;
+    for (uint16_t ii = 0; ii < m_columnCount; ii++) {
+        const StringDictionary *dictionary = getColumnInfoPrivate(ii)->dictionary;
+        if (dictionary != NULL) {
+            bytes += dictionary->memorySize();
+        }
+    }
+    return bytes;
+}
+
 size_t TupleSchema::getMaxSerializedTupleSize(bool includeHiddenColumns) const {
     size_t bytes = sizeof(int32_t); // placeholder for tuple length
     int serializeColumnCount = m_columnCount;
@@ -425,13 +522,15 @@ bool TupleSchema::equals(const TupleSchema *other) const
 uint16_t TupleSchema::countUninlineableObjectColumns(
         const std::vector<ValueType> columnTypes,
         const std::vector<int32_t> columnSizes,
-        const std::vector<bool> columnInBytes)
+        const std::vector<bool> columnInBytes,
+        const std::vector<bool> columnUninlined)
 {
     const uint16_t numColumns = static_cast<uint16_t>(columnTypes.size());
     uint16_t numUninlineableObjects = 0;
     for (int ii = 0; ii < numColumns; ii++) {
         ValueType vt = columnTypes[ii];
-        if (! isInlineable(vt, columnSizes[ii], columnInBytes[ii])) {
+        if (! isInlineable(vt, columnSizes[ii], columnInBytes[ii]) ||
+                (isVariableLengthType(vt) && columnUninlined[ii])) {
             numUninlineableObjects++;
         }
     }
@@ -35,6 +35,7 @@
 namespace voltdb {
 
 class AbstractExpression;
+class StringDictionary;
 /**
  * Represents the schema of a tuple or table row. Used to define table rows, as
  * well as index keys. Note: due to arbitrary size embedded array data, this class
@@ -55,6 +56,11 @@ public:
 
         bool inBytes;
 
+        // The shared dictionary of a dictionary encoded column, or NULL.
+        // Only the schema a table is created with owns dictionaries;
+        // schemas copied from it do not encode their columns.
+        StringDictionary* dictionary;
+
         inline const ValueType getVoltType() const {
             return static_cast<ValueType>(type);
         }
@@ -82,6 +88,20 @@ public:
                                           const std::vector<bool>&      hiddenAllowNull,
                                           const std::vector<bool>&      hiddenColumnInBytes);
 
+    /** Static factory method to create a TupleSchema that contains hidden
+     *  columns, where each flagged VARCHAR or VARBINARY column stores
+     *  codes into its own StringDictionary.  Dictionary encoded columns
+     *  are always stored out-of-line. */
+    static TupleSchema* createTupleSchema(const std::vector<ValueType>& columnTypes,
+                                          const std::vector<int32_t>&   columnSizes,
+                                          const std::vector<bool>&      allowNull,
+                                          const std::vector<bool>&      columnInBytes,
+                                          const std::vector<bool>&      columnDictionaryEncoded,
+                                          const std::vector<ValueType>& hiddenColumnTypes,
+                                          const std::vector<int32_t>&   hiddenColumnSizes,
+                                          const std::vector<bool>&      hiddenAllowNull,
+                                          const std::vector<bool>&      hiddenColumnInBytes);
+
     /** Static factory method to create a TupleSchema for index keys */
     static TupleSchema* createKeySchema(const std::vector<ValueType>&   columnTypes,
                                         const std::vector<int32_t>&     columnSizes,
@@ -197,6 +217,15 @@ public:
         return columnInfo->inlined;
     }
 
+    /** Returns true if the idx-th (visible) column is dictionary encoded.  */
+    bool columnIsDictionaryEncoded(int idx) const {
+        const TupleSchema::ColumnInfo *columnInfo = getColumnInfo(idx);
+        return columnInfo->dictionary != NULL;
+    }
+
+    /** Returns the memory held by the dictionaries of the encoded columns. */
+    int64_t getDictionaryMemorySize() const;
+
     /** Returns column info object for columnIndex-th hidden column.  */
     const ColumnInfo* getHiddenColumnInfo(int columnIndex) const;
     ColumnInfo* getHiddenColumnInfo(int columnIndex);
@@ -214,6 +243,19 @@ private:
 
     uint16_t totalColumnCount() const;
 
+    /** Common factory for the public methods above.  Variable-length
+     *  columns flagged in columnUninlined are stored out-of-line even
+     *  if they would fit in the tuple. */
+    static TupleSchema* buildTupleSchema(const std::vector<ValueType>& columnTypes,
+                                         const std::vector<int32_t>&   columnSizes,
+                                         const std::vector<bool>&      allowNull,
+                                         const std::vector<bool>&      columnInBytes,
+                                         const std::vector<bool>&      columnUninlined,
+                                         const std::vector<ValueType>& hiddenColumnTypes,
+                                         const std::vector<int32_t>&   hiddenColumnSizes,
+                                         const std::vector<bool>&      hiddenAllowNull,
+                                         const std::vector<bool>&      hiddenColumnInBytes);
+
     /** These methods are like their public counterparts, but accepts
      *  indexes >= m_columnCount, in order to access hidden columns or
      *  the terminating ColumnInfo object. */
@@ -232,7 +274,7 @@ private:
         param may not be read in some places for some types (like integers), so make sure it
         is correct, or the code will act all wonky. */
     void setColumnMetaData(uint16_t index, ValueType type, int32_t length, bool allowNull,
-            uint16_t &uninlinedObjectColumnIndex, bool inBytes);
+            uint16_t &uninlinedObjectColumnIndex, bool inBytes, bool forceUninlined);
 
     /*
      * Returns the number of string columns that can't be inlined.
@@ -240,7 +282,8 @@ private:
     static uint16_t countUninlineableObjectColumns(
             std::vector<ValueType> columnTypes,
             std::vector<int32_t> columnSizes,
-            std::vector<bool> columnInBytes);
+            std::vector<bool> columnInBytes,
+            std::vector<bool> columnUninlined);
 
     // can't (shouldn't) call constructors or destructor
     // prevents TupleSchema from being created on the stack
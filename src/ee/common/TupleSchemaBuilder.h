@@ -45,6 +45,7 @@ public:
         , m_sizes(numCols)
         , m_allowNullFlags(numCols)
         , m_inBytesFlags(numCols)
+        , m_dictionaryEncodedFlags(numCols)
         , m_hiddenTypes(0)
         , m_hiddenSizes(0)
         , m_hiddenAllowNullFlags(0)
@@ -59,6 +60,7 @@ public:
         , m_sizes(numCols)
         , m_allowNullFlags(numCols)
         , m_inBytesFlags(numCols)
+        , m_dictionaryEncodedFlags(numCols)
         , m_hiddenTypes(numHiddenCols)
         , m_hiddenSizes(numHiddenCols)
         , m_hiddenAllowNullFlags(numHiddenCols)
@@ -81,6 +83,15 @@ public:
         m_inBytesFlags[index] = inBytes;
     }
 
+    /** Mark the index-th column of the schema to be built as
+     *  dictionary encoded.  Only VARCHAR and VARBINARY columns of
+     *  persistent tables should be encoded. */
+    void setColumnDictionaryEncoded(size_t index, bool dictionaryEncoded)
+    {
+        assert(index < m_dictionaryEncodedFlags.size());
+        m_dictionaryEncodedFlags[index] = dictionaryEncoded;
+    }
+
     /** Set the attributes of the index-th hidden column for the
      *  schema to be built. */
     void setHiddenColumnAtIndex(size_t index,
@@ -103,6 +114,7 @@ public:
                                               m_sizes,
                                               m_allowNullFlags,
                                               m_inBytesFlags,
+                                              m_dictionaryEncodedFlags,
                                               m_hiddenTypes,
                                               m_hiddenSizes,
                                               m_hiddenAllowNullFlags,
@@ -203,6 +215,7 @@ private:
     std::vector<int32_t> m_sizes;
     std::vector<bool> m_allowNullFlags;
     std::vector<bool> m_inBytesFlags;
+    std::vector<bool> m_dictionaryEncodedFlags;
 
     std::vector<ValueType> m_hiddenTypes;
     std::vector<int32_t> m_hiddenSizes;
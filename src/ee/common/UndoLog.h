@@ -153,6 +153,12 @@ namespace voltdb
             }
         }
 
+        // True when no transaction holds undo quanta that refer to tuples
+        bool isEmpty() const
+        {
+            return m_undoQuantums.empty();
+        }
+
         int64_t getSize() const
         {
             int64_t total = 0;
@@ -750,6 +750,14 @@ private:
             setNonInlinedDataIsVolatileTrue();
         }
 
+        // Persistent copies into a dictionary encoded column share the
+        // value's dictionary entry instead of allocating a new object.
+        if (allocateObjects && tempPool == NULL && columnInfo->dictionary != NULL) {
+            value.serializeToDictionaryEncodedStorage(dataPtr, columnLength, isInBytes,
+                                                      columnInfo->dictionary);
+            return;
+        }
+
         value.serializeToTupleStorage(dataPtr, isInlined, columnLength, isInBytes,
                                       allocateObjects, tempPool);
     }
@@ -1084,6 +1092,15 @@ inline void TableTuple::deserializeFrom(voltdb::SerializeInputBE &tupleIn, Pool
         char *dataPtr = getWritableDataPtr(columnInfo);
         NValue::deserializeFrom(tupleIn, dataPool, dataPtr, columnInfo->getVoltType(),
                 columnInfo->inlined, static_cast<int32_t>(columnInfo->length), columnInfo->inBytes);
+
+        // Values loaded into persistent storage of a dictionary encoded
+        // column are swapped for their dictionary entries.
+        if (dataPool == NULL && columnInfo->dictionary != NULL) {
+            StringRef* *srefPtr = reinterpret_cast<StringRef**>(dataPtr);
+            if (*srefPtr != NULL) {
+                *srefPtr = columnInfo->dictionary->adopt(*srefPtr);
+            }
+        }
     }
 
     for (int j = 0; j < hiddenColumnCount; ++j) {
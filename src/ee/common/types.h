@@ -186,6 +186,7 @@ enum PlanNodeType {
     //
     PLAN_NODE_TYPE_NESTLOOP         = 20,
     PLAN_NODE_TYPE_NESTLOOPINDEX    = 21,
+    PLAN_NODE_TYPE_HASHJOIN         = 22,
 
     //
     // Operator Nodes
@@ -361,7 +362,7 @@ enum QuantifierType {
 enum TableIndexType {
     BALANCED_TREE_INDEX     = 1,
     HASH_TABLE_INDEX        = 2,
-    BTREE_INDEX             = 3, // unused
+    BTREE_INDEX             = 3, // B+tree, not yet produced by the catalog
     COVERING_CELL_INDEX     = 4
 };
 
@@ -499,6 +500,7 @@ enum TaskType {
     TASK_TYPE_INIT_DRID_TRACKER = 8,             // not supported in EE
     TASK_TYPE_RESET_DR_APPLIED_TRACKER_SINGLE = 9, // not supported in EE
     TASK_TYPE_ELASTIC_CHANGE = 10,                 // not supported in EE
+    TASK_TYPE_COMPACT_TABLES = 11,
 };
 
 // ------------------------------------------------------------------
@@ -1040,6 +1040,12 @@ static bool haveDifferentSchema(catalog::Table* t1, voltdb::PersistentTable* t2)
                 assert(type == VALUE_TYPE_VARCHAR);
                 return true;
             }
+            // Toggling the encoding migrates the tuples into a new table,
+            // which interns or decodes the values of the column.
+            if (t2->schema()->columnIsDictionaryEncoded(index) !=
+                    outerIter->second->dictionaryencoded()) {
+                return true;
+            }
         }
     }
 
@@ -2612,6 +2618,39 @@ void VoltDBEngine::collectDRTupleStreamStateInfo() {
     }
 }
 
+/**
+ * Incrementally compact this site's persistent tables for at most the time
+ * budget in the task. Replicated tables are shared with the other sites and
+ * keep compacting inline when undo quanta are released. Reports back whether
+ * any table still needs compaction.
+ * Nothing is compacted while the undo log holds any quantum: the task can
+ * run between the fragments of a multi-partition transaction, and moving
+ * tuples under its undo actions would break a later rollback.
+ */
+void VoltDBEngine::dispatchCompactTablesTask(ReferenceSerializeInputBE& taskInfo) {
+    int64_t timeBudgetMicros = taskInfo.readLong();
+    if (m_currentUndoQuantum != NULL || !m_undoLog.isEmpty()) {
+        // Leave the work for a run between transactions.
+        m_resultOutput.writeInt(1);
+        m_resultOutput.writeByte(0);
+        return;
+    }
+    boost::posix_time::ptime deadline = boost::posix_time::microsec_clock::universal_time() +
+            boost::posix_time::microseconds(timeBudgetMicros);
+    bool moreWork = false;
+    BOOST_FOREACH (LabeledTCD cd, m_catalogDelegates) {
+        PersistentTable* table = cd.second->getPersistentTable();
+        if (table == NULL || table->isCatalogTableReplicated()) {
+            continue;
+        }
+        if (table->doIncrementalCompaction(deadline)) {
+            moreWork = true;
+        }
+    }
+    m_resultOutput.writeInt(1);
+    m_resultOutput.writeByte(static_cast<int8_t>(moreWork ? 1 : 0));
+}
+
 int64_t VoltDBEngine::applyBinaryLog(int64_t txnId,
         int64_t spHandle,
         int64_t lastCommittedSpHandle,
@@ -2697,6 +2736,9 @@ void VoltDBEngine::executeTask(TaskType taskType, ReferenceSerializeInputBE &tas
                         spHandle, uniqueId, payloads));
         break;
     }
+    case TASK_TYPE_COMPACT_TABLES:
+        dispatchCompactTablesTask(taskInfo);
+        break;
     default:
         throwFatalException("Unknown task type %d", taskType);
     }
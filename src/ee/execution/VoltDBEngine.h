@@ -551,6 +551,8 @@ class __attribute__((visibility("default"))) VoltDBEngine {
 
         void collectDRTupleStreamStateInfo();
 
+        void dispatchCompactTablesTask(ReferenceSerializeInputBE& taskInfo);
+
         void setCurrentUndoQuantum(voltdb::UndoQuantum* undoQuantum);
 
         // -------------------------------------------------
@@ -45,13 +45,27 @@
 
 #include "executors/aggregateexecutor.h"
 
+#include "common/executorcontext.hpp"
+#include "execution/ExecutorVector.h"
 #include "plannodes/aggregatenode.h"
 #include "plannodes/limitnode.h"
+#include "storage/LargeTempTable.h"
+#include "storage/tablefactory.h"
 #include "storage/temptable.h"
 
 #include "hyperloglog/hyperloglog.hpp" // for APPROX_COUNT_DISTINCT
 
 namespace voltdb {
+
+// Upper bound on the number of partitions a spilling hash aggregate writes at once.
+// Each partition being written pins a block of the large temp table cache.
+const static int MAX_SPILL_PARTITIONS = 16;
+// Partitioning seed, offset by the spill depth so that re-partitioning a
+// partition that is still too large actually splits its groups.
+const static size_t SPILL_PARTITION_HASH_SEED = 0x9e3779b9;
+// Rough cost of one hash map entry outside of the memory pool.
+const static int64_t HASH_ENTRY_OVERHEAD = sizeof(HashAggregateMapType::value_type) + 2 * sizeof(void*);
+
 /*
  * Type of the hash set used to check for column aggregate distinctness
  */
@@ -574,6 +588,7 @@ bool AggregateExecutorBase::p_init(AbstractPlanNode*, const ExecutorVector& exec
     // Because group by unique column may be able to select other columns
     m_prePredicate = node->getPrePredicate();
     m_postPredicate = node->getPostPredicate();
+    m_isLargeQuery = executorVector.isLargeQuery();
 
     m_groupByKeySchema = constructGroupBySchema(false);
     m_groupByKeyPartialHashSchema = NULL;
@@ -757,7 +772,9 @@ void AggregateExecutorBase::p_execute_finish()
     m_memoryPool.purge();
 }
 
-AggregateHashExecutor::~AggregateHashExecutor() {}
+AggregateHashExecutor::~AggregateHashExecutor() {
+    PartitionTablesGuard guard(m_spillPartitions);
+}
 
 TableTuple AggregateHashExecutor::p_execute_init(const NValueArray& params,
                                                  ProgressMonitorProxy* pmp,
@@ -767,6 +784,15 @@ TableTuple AggregateHashExecutor::p_execute_init(const NValueArray& params,
 {
     VOLT_TRACE("hash aggregate executor init..");
     m_hash.clear();
+    {
+        // Drop anything left behind by an interrupted execution.
+        PartitionTablesGuard guard(m_spillPartitions);
+    }
+    m_spillDepth = 0;
+    if (m_isLargeQuery) {
+        LargeTempTableBlockCache* lttBlockCache = ExecutorContext::getExecutorContext()->lttBlockCache();
+        m_memoryLimit = lttBlockCache->maxCacheSizeInBytes() / 2;
+    }
 
     return AggregateExecutorBase::p_execute_init(params, pmp, schema, newTempTable, parentPostfilter);
 }
@@ -805,6 +831,11 @@ void AggregateHashExecutor::p_execute_tuple(const TableTuple& nextTuple) {
 
     // Group not found. Make a new entry in the hash for this new group.
     if (keyIter == m_hash.end()) {
+        if (mustSpill()) {
+            spillTuple(nextTuple, nextGroupByKeyTuple);
+            return;
+        }
+
         VOLT_TRACE("hash aggregate: new group..");
         aggregateRow = new (m_memoryPool, m_aggTypes.size()) AggregateRow();
         m_hash.insert(HashAggregateMapType::value_type(nextGroupByKeyTuple, aggregateRow));
@@ -814,7 +845,22 @@ void AggregateHashExecutor::p_execute_tuple(const TableTuple& nextTuple) {
         char* storage = reinterpret_cast<char*>(m_memoryPool.allocateZeroes(m_inputSchema->tupleLength() + TUPLE_HEADER_SIZE));
         TableTuple passThroughTupleSource = TableTuple(storage, m_inputSchema);
 
-        aggregateRow->recordPassThroughTuple(passThroughTupleSource, nextTuple);
+        if (m_isLargeQuery) {
+            // The input lives in large temp table blocks that are released
+            // as they are scanned, so the group keeps its own copy of any
+            // non-inlined data.
+            for (int ii = 0; ii < m_groupByKeySchema->getUninlinedObjectColumnCount(); ii++) {
+                int column = m_groupByKeySchema->getUninlinedObjectColumnInfoIndex(ii);
+                nextGroupByKeyTuple.setNValueAllocateForObjectCopies(column,
+                                                                     nextGroupByKeyTuple.getNValue(column),
+                                                                     &m_memoryPool);
+            }
+            passThroughTupleSource.copyForPersistentInsert(nextTuple, &m_memoryPool);
+            aggregateRow->m_passThroughTuple = passThroughTupleSource;
+        }
+        else {
+            aggregateRow->recordPassThroughTuple(passThroughTupleSource, nextTuple);
+        }
         // The map is referencing the current key tuple for use by the new group,
         // so force a new tuple allocation to hold the next candidate key.
         nextGroupByKeyTuple.move(NULL);
@@ -833,7 +879,18 @@ void AggregateHashExecutor::p_execute_tuple(const TableTuple& nextTuple) {
 
 void AggregateHashExecutor::p_execute_finish() {
     VOLT_TRACE("finalizing..");
+    outputGroups();
+
+    if ( ! m_spillPartitions.empty()) {
+        std::vector<AbstractTempTable*> partitions;
+        partitions.swap(m_spillPartitions);
+        aggregateSpilledPartitions(partitions);
+    }
 
+    AggregateExecutorBase::p_execute_finish();
+}
+
+void AggregateHashExecutor::outputGroups() {
     // If there is no aggregation, results are already inserted already
     if (m_aggTypes.size() != 0) {
         for (HashAggregateMapType::const_iterator iter = m_hash.begin(); iter != m_hash.end(); iter++) {
@@ -847,7 +904,73 @@ void AggregateHashExecutor::p_execute_finish() {
 
     // Clean up
     m_hash.clear();
-    AggregateExecutorBase::p_execute_finish();
+}
+
+inline bool AggregateHashExecutor::mustSpill() {
+    if ( ! m_spillPartitions.empty()) {
+        return true;
+    }
+    if ( ! m_isLargeQuery
+         || m_memoryPool.getAllocatedMemory() + HASH_ENTRY_OVERHEAD * static_cast<int64_t>(m_hash.size()) <= m_memoryLimit) {
+        return false;
+    }
+
+    LargeTempTableBlockCache* lttBlockCache = ExecutorContext::getExecutorContext()->lttBlockCache();
+    // Leave room in the cache for the block being read while the partitions are written.
+    int partitionCount = std::max(2, std::min(MAX_SPILL_PARTITIONS,
+                                              lttBlockCache->maxCacheSizeInBlocks() / 2));
+    VOLT_DEBUG("hash aggregate: spilling new groups to %d partitions at depth %d",
+               partitionCount, m_spillDepth);
+    std::vector<std::string> columnNames;
+    for (int ii = 0; ii < m_inputSchema->columnCount(); ii++) {
+        std::ostringstream name;
+        name << "C" << ii;
+        columnNames.push_back(name.str());
+    }
+    for (int ii = 0; ii < partitionCount; ii++) {
+        m_spillPartitions.push_back(TableFactory::buildLargeTempTable("hashaggspill",
+                                                                      TupleSchema::createTupleSchema(m_inputSchema),
+                                                                      columnNames));
+    }
+    return true;
+}
+
+inline void AggregateHashExecutor::spillTuple(const TableTuple& tuple, const TableTuple& groupByKeyTuple) {
+    size_t partition = groupByKeyTuple.hashCode(SPILL_PARTITION_HASH_SEED + m_spillDepth) % m_spillPartitions.size();
+    TableTuple spilled(tuple);
+    m_spillPartitions[partition]->insertTempTuple(spilled);
+}
+
+void AggregateHashExecutor::aggregateSpilledPartitions(std::vector<AbstractTempTable*>& partitions) {
+    PartitionTablesGuard guard(partitions);
+    BOOST_FOREACH(AbstractTempTable* partitionTable, partitions) {
+        partitionTable->finishInserts();
+    }
+
+    ++m_spillDepth;
+    for (size_t ii = 0; ii < partitions.size() && m_postfilter.isUnderLimit(); ii++) {
+        // All the groups in the pool have been output, start the partition afresh.
+        m_memoryPool.purge();
+        m_nextGroupByKeyStorage.init(m_groupByKeySchema, &m_memoryPool);
+        TableTuple& nextGroupByKeyTuple = m_nextGroupByKeyStorage;
+        nextGroupByKeyTuple.move(NULL);
+
+        TableTuple tuple(partitions[ii]->schema());
+        TableIterator iterator = partitions[ii]->iteratorDeletingAsWeGo();
+        while (iterator.next(tuple)) {
+            p_execute_tuple(tuple);
+        }
+        delete partitions[ii];
+        partitions[ii] = NULL;
+
+        outputGroups();
+        if ( ! m_spillPartitions.empty()) {
+            std::vector<AbstractTempTable*> subPartitions;
+            subPartitions.swap(m_spillPartitions);
+            aggregateSpilledPartitions(subPartitions);
+        }
+    }
+    --m_spillDepth;
 }
 
 AggregateSerialExecutor::~AggregateSerialExecutor() {}
@@ -964,6 +1087,29 @@ void AggregateSerialExecutor::p_execute_finish()
     AggregateExecutorBase::p_execute_finish();
 }
 
+void AggregateSerialExecutor::p_execute_finish(const std::vector<NValue>& aggregateValues)
+{
+    assert(m_groupByKeySchema->columnCount() == 0);
+    assert(m_passThroughColumns.empty());
+    assert(aggregateValues.size() == m_aggregateOutputColumns.size());
+    if (m_postfilter.isUnderLimit()) {
+        TableTuple& tempTuple = m_tmpOutputTable->tempTuple();
+        for (int ii = 0; ii < m_aggregateOutputColumns.size(); ii++) {
+            const int columnIndex = m_aggregateOutputColumns[ii];
+            tempTuple.setNValue(columnIndex,
+                                aggregateValues[ii].castAs(tempTuple.getSchema()->columnType(columnIndex)));
+        }
+        if (m_postfilter.eval(&tempTuple, NULL)) {
+            m_tmpOutputTable->insertTempTuple(tempTuple);
+            m_pmp->countdownProgress();
+        }
+    }
+
+    // clean up the member variables
+    delete m_aggregateRow;
+    AggregateExecutorBase::p_execute_finish();
+}
+
 //
 // Partial aggregate
 //
@@ -160,6 +160,7 @@ public:
     AggregateExecutorBase(VoltDBEngine* engine, AbstractPlanNode* abstract_node) :
         AbstractExecutor(engine, abstract_node),
         m_groupByKeySchema(NULL),
+        m_isLargeQuery(false),
         m_prePredicate(NULL),
         m_postPredicate(NULL),
         m_pmp(NULL),
@@ -232,6 +233,7 @@ protected:
     std::vector<int> m_aggregateOutputColumns;
     Pool m_memoryPool;
     TupleSchema* m_groupByKeySchema;
+    bool m_isLargeQuery;
     std::vector<ExpressionType> m_aggTypes;
     std::vector<bool> m_distinctAggs;
     std::vector<AbstractExpression*> m_groupByExpressions;
@@ -267,12 +269,20 @@ typedef boost::unordered_map<TableTuple,
 /**
  * The concrete executor class for PLAN_NODE_TYPE_HASHAGGREGATE
  * in which the input does not need to be sorted and execution will hash the group by key to aggregate the tuples.
+ *
+ * In large queries the groups held in memory are bounded by the size of the
+ * LargeTempTableBlockCache. Once that is reached, input tuples of groups not
+ * already in memory are hash-partitioned into large temp tables, and each
+ * partition is aggregated on its own after the in-memory groups are output,
+ * partitioning again if one partition still has too many groups.
  */
 class AggregateHashExecutor : public AggregateExecutorBase
 {
 public:
     AggregateHashExecutor(VoltDBEngine* engine, AbstractPlanNode* abstract_node) :
-        AggregateExecutorBase(engine, abstract_node) { }
+        AggregateExecutorBase(engine, abstract_node),
+        m_memoryLimit(0),
+        m_spillDepth(0) { }
 
     // empty destructor defined in .cpp file because of it is called virtually (not inline)
     // same reason for serial and partial
@@ -286,7 +296,25 @@ public:
 
 private:
     virtual bool p_execute(const NValueArray& params);
+
+    /** Output the groups in memory and free them. */
+    void outputGroups();
+
+    /** Return true if the tuple of a new group has to be spilled rather than aggregated in memory. */
+    bool mustSpill();
+
+    void spillTuple(const TableTuple& tuple, const TableTuple& groupByKeyTuple);
+
+    /** Aggregate each spilled partition in turn, spilling again as needed. */
+    void aggregateSpilledPartitions(std::vector<AbstractTempTable*>& partitions);
+
     HashAggregateMapType m_hash;
+    // Memory the groups may use before a large query starts spilling.
+    int64_t m_memoryLimit;
+    // Partitions receiving the tuples spilled in the current pass.
+    std::vector<AbstractTempTable*> m_spillPartitions;
+    // Number of times the tuples of the current pass have been spilled already.
+    int m_spillDepth;
 };
 
 /**
@@ -309,6 +337,12 @@ public:
     void p_execute_tuple(const TableTuple& nextTuple);
     void p_execute_finish();
 
+    /**
+     * Finish an ungrouped aggregation whose aggregate values, one per aggregate
+     * in plan order, were computed by the caller instead of from input tuples.
+     */
+    void p_execute_finish(const std::vector<NValue>& aggregateValues);
+
 protected:
     AggregateRow * m_aggregateRow;
     // State variables for iteration on input table
@@ -52,9 +52,25 @@
 
 #include <cstddef> // for NULL !
 #include <cassert>
+#include <vector>
 
 namespace voltdb {
 
+/**
+ * Deletes the spill partition tables an executor still owns when it leaves
+ * scope, e.g. because execution was interrupted part way through.
+ */
+struct PartitionTablesGuard {
+    PartitionTablesGuard(std::vector<AbstractTempTable*>& tables) : m_tables(tables) { }
+    ~PartitionTablesGuard() {
+        for (size_t ii = 0; ii < m_tables.size(); ii++) {
+            delete m_tables[ii];
+        }
+        m_tables.clear();
+    }
+    std::vector<AbstractTempTable*>& m_tables;
+};
+
 // Helper struct to evaluate a postfilter and count the number of tuples that
 // successfully passed the evaluation
 struct CountingPostfilter {
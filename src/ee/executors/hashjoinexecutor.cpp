@@ -0,0 +1,445 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This file contains original code and/or modifications of original code.
+ * Any modifications made by VoltDB Inc. are licensed under the following
+ * terms and conditions:
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/* Copyright (C) 2008 by H-Store Project
+ * Brown University
+ * Massachusetts Institute of Technology
+ * Yale University
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+#include "hashjoinexecutor.h"
+
+#include "common/executorcontext.hpp"
+#include "executors/aggregateexecutor.h"
+#include "execution/ExecutorVector.h"
+#include "storage/LargeTempTable.h"
+#include "storage/tablefactory.h"
+#include "storage/tableiterator.h"
+#include "storage/tabletuplefilter.h"
+#include "storage/temptable.h"
+#include "plannodes/hashjoinnode.h"
+#include "plannodes/limitnode.h"
+
+#include <boost/foreach.hpp>
+#include <boost/scoped_ptr.hpp>
+
+using namespace std;
+using namespace voltdb;
+
+const static int8_t UNMATCHED_TUPLE(TableTupleFilter::ACTIVE_TUPLE);
+const static int8_t MATCHED_TUPLE(TableTupleFilter::ACTIVE_TUPLE + 1);
+
+// Upper bound on the number of partitions a spilling join splits its inputs into.
+// Every partition pins one block of the large temp table cache while it is being written.
+const static int MAX_SPILL_PARTITIONS = 16;
+// Seed for partitioning, so that partition selection does not correlate with
+// the bucket selection of the per-partition hash tables.
+const static size_t SPILL_PARTITION_HASH_SEED = 0x9e3779b9;
+
+HashJoinExecutor::~HashJoinExecutor() {
+    // NULL safe operation
+    TupleSchema::freeTupleSchema(m_keySchema);
+}
+
+bool HashJoinExecutor::p_init(AbstractPlanNode* abstractNode,
+                              const ExecutorVector& executorVector)
+{
+    VOLT_TRACE("init HashJoin Executor");
+
+    m_hashJoinNode = dynamic_cast<HashJoinPlanNode*>(m_abstractNode);
+    assert(m_hashJoinNode);
+
+    // Init parent first
+    if (!AbstractJoinExecutor::p_init(abstractNode, executorVector)) {
+        return false;
+    }
+
+    // NULL tuples for left and full joins
+    p_init_null_tuples(m_hashJoinNode->getInputTable(), m_hashJoinNode->getInputTable(1));
+
+    m_isLargeQuery = executorVector.isLargeQuery();
+
+    // The key columns must be wide enough for values from either side.
+    const std::vector<AbstractExpression*>& outerKeys = m_hashJoinNode->getOuterHashExpressions();
+    const std::vector<AbstractExpression*>& innerKeys = m_hashJoinNode->getInnerHashExpressions();
+    assert(outerKeys.size() == innerKeys.size());
+    assert(innerKeys.size() > 0);
+    std::vector<ValueType> keyColumnTypes;
+    std::vector<int32_t> keyColumnSizes;
+    std::vector<bool> keyColumnAllowNull;
+    std::vector<bool> keyColumnInBytes;
+    for (int ii = 0; ii < innerKeys.size(); ii++) {
+        assert(outerKeys[ii]->getValueType() == innerKeys[ii]->getValueType());
+        keyColumnTypes.push_back(innerKeys[ii]->getValueType());
+        keyColumnSizes.push_back(std::max(outerKeys[ii]->getValueSize(), innerKeys[ii]->getValueSize()));
+        keyColumnAllowNull.push_back(true);
+        keyColumnInBytes.push_back(innerKeys[ii]->getInBytes());
+    }
+    TupleSchema::freeTupleSchema(m_keySchema);
+    m_keySchema = TupleSchema::createTupleSchema(keyColumnTypes,
+                                                 keyColumnSizes,
+                                                 keyColumnAllowNull,
+                                                 keyColumnInBytes);
+    return true;
+}
+
+bool HashJoinExecutor::p_execute(const NValueArray &params) {
+    VOLT_DEBUG("executing HashJoin...");
+
+    assert(m_hashJoinNode->getInputTableCount() == 2);
+
+    // output table must be a temp table
+    assert(m_tmpOutputTable);
+
+    Table* outer_table = m_hashJoinNode->getInputTable();
+    assert(outer_table);
+
+    Table* inner_table = m_hashJoinNode->getInputTable(1);
+    assert(inner_table);
+
+    VOLT_TRACE ("input table left:\n %s", outer_table->debug().c_str());
+    VOLT_TRACE ("input table right:\n %s", inner_table->debug().c_str());
+
+    LimitPlanNode* limit_node = dynamic_cast<LimitPlanNode*>(m_hashJoinNode->getInlinePlanNode(PLAN_NODE_TYPE_LIMIT));
+    int limit = CountingPostfilter::NO_LIMIT;
+    int offset = CountingPostfilter::NO_OFFSET;
+    if (limit_node) {
+        limit_node->getLimitAndOffsetByReference(params, limit, offset);
+    }
+
+    ProgressMonitorProxy pmp(m_engine->getExecutorContext(), this);
+    // Init the postfilter
+    CountingPostfilter postfilter(m_tmpOutputTable, m_hashJoinNode->getWherePredicate(), limit, offset);
+
+    TableTuple join_tuple;
+    if (m_aggExec != NULL) {
+        VOLT_TRACE("Init inline aggregate...");
+        const TupleSchema * aggInputSchema = m_hashJoinNode->getTupleSchemaPreAgg();
+        join_tuple = m_aggExec->p_execute_init(params, &pmp, aggInputSchema, m_tmpOutputTable, &postfilter);
+    } else {
+        join_tuple = m_tmpOutputTable->tempTuple();
+    }
+
+    if (m_isLargeQuery) {
+        joinSpilledInputs(outer_table, inner_table, postfilter, join_tuple, pmp);
+    }
+    else {
+        joinInputs(outer_table, inner_table, postfilter, join_tuple, pmp);
+    }
+
+    if (m_aggExec != NULL) {
+        m_aggExec->p_execute_finish();
+    }
+
+    m_hashTable.clear();
+    m_memoryPool.purge();
+    return true;
+}
+
+bool HashJoinExecutor::setKeyTuple(TableTuple& keyTuple,
+                                   const std::vector<AbstractExpression*>& keyExpressions,
+                                   const TableTuple* outerTuple,
+                                   const TableTuple* innerTuple) {
+    for (int ii = 0; ii < keyExpressions.size(); ii++) {
+        NValue value = keyExpressions[ii]->eval(outerTuple, innerTuple);
+        if (value.isNull()) {
+            return false;
+        }
+        keyTuple.setNValue(ii, value);
+    }
+    return true;
+}
+
+void HashJoinExecutor::joinInputs(Table* outerTable,
+                                  Table* innerTable,
+                                  CountingPostfilter& postfilter,
+                                  TableTuple& joinTuple,
+                                  ProgressMonitorProxy& pmp) {
+    AbstractExpression* preJoinPredicate = m_hashJoinNode->getPreJoinPredicate();
+    AbstractExpression* joinPredicate = m_hashJoinNode->getJoinPredicate();
+    const std::vector<AbstractExpression*>& outerKeys = m_hashJoinNode->getOuterHashExpressions();
+    const std::vector<AbstractExpression*>& innerKeys = m_hashJoinNode->getInnerHashExpressions();
+
+    int outer_cols = outerTable->columnCount();
+    int inner_cols = innerTable->columnCount();
+    TableTuple outer_tuple(outerTable->schema());
+    TableTuple inner_tuple(innerTable->schema());
+    const TableTuple& null_inner_tuple = m_null_inner_tuple.tuple();
+
+    // The table filter to keep track of inner tuples that don't match any of outer tuples for FULL joins
+    TableTupleFilter innerTableFilter;
+    if (m_joinType == JOIN_TYPE_FULL) {
+        // Prepopulate the view with all inner tuples
+        innerTableFilter.init(innerTable);
+    }
+
+    //
+    // Build phase: hash every inner tuple with a non-NULL key
+    //
+    m_hashTable.clear();
+    m_memoryPool.purge();
+    m_nextKeyStorage.init(m_keySchema, &m_memoryPool);
+    TableTuple& nextKeyTuple = m_nextKeyStorage;
+    nextKeyTuple.move(NULL);
+
+    // By default, the delete as we go flag is false.
+    TableIterator innerIterator = innerTable->iterator();
+    while (innerIterator.next(inner_tuple)) {
+        pmp.countdownProgress();
+        if (nextKeyTuple.isNullTuple()) {
+            m_nextKeyStorage.allocateActiveTuple();
+        }
+        if ( ! setKeyTuple(nextKeyTuple, innerKeys, NULL, &inner_tuple)) {
+            continue;
+        }
+        m_hashTable.insert(HashJoinMapType::value_type(nextKeyTuple, inner_tuple));
+        // The map is referencing the current key tuple,
+        // so force a new tuple allocation to hold the next key.
+        nextKeyTuple.move(NULL);
+    }
+
+    //
+    // Probe phase
+    //
+    m_probeKeyStorage.init(m_keySchema, &m_memoryPool);
+    m_probeKeyStorage.allocateActiveTuple();
+    TableTuple& probeKeyTuple = m_probeKeyStorage;
+
+    TableIterator outerIterator = outerTable->iteratorDeletingAsWeGo();
+    while (postfilter.isUnderLimit() && outerIterator.next(outer_tuple)) {
+        pmp.countdownProgress();
+
+        // populate output table's temp tuple with outer table's values
+        joinTuple.setNValues(0, outer_tuple, 0, outer_cols);
+
+        // did this loop body find at least one match for this tuple?
+        bool outerMatch = false;
+        // For outer joins if outer tuple fails pre-join predicate
+        // (join expression based on the outer table only)
+        // it can't match any of inner tuples
+        if ((preJoinPredicate == NULL || preJoinPredicate->eval(&outer_tuple, NULL).isTrue()) &&
+                setKeyTuple(probeKeyTuple, outerKeys, &outer_tuple, NULL)) {
+            std::pair<HashJoinMapType::const_iterator, HashJoinMapType::const_iterator> matches =
+                m_hashTable.equal_range(probeKeyTuple);
+            for (HashJoinMapType::const_iterator iter = matches.first;
+                    postfilter.isUnderLimit() && iter != matches.second; ++iter) {
+                pmp.countdownProgress();
+                const TableTuple& match_tuple = iter->second;
+                // The hash keys only narrow the candidates, the join
+                // predicate still decides whether the pair qualifies.
+                if (joinPredicate == NULL || joinPredicate->eval(&outer_tuple, &match_tuple).isTrue()) {
+                    outerMatch = true;
+                    // The inner tuple passed the join predicate
+                    if (m_joinType == JOIN_TYPE_FULL) {
+                        // Mark it as matched
+                        innerTableFilter.updateTuple(match_tuple, MATCHED_TUPLE);
+                    }
+                    // Filter the joined tuple
+                    if (postfilter.eval(&outer_tuple, &match_tuple)) {
+                        // Matched! Complete the joined tuple with the inner column values.
+                        joinTuple.setNValues(outer_cols, match_tuple, 0, inner_cols);
+                        outputTuple(postfilter, joinTuple, pmp);
+                    }
+                }
+            }
+        }
+
+        //
+        // Left Outer Join
+        //
+        if (m_joinType != JOIN_TYPE_INNER && !outerMatch && postfilter.isUnderLimit()) {
+            // Still needs to pass the filter
+            if (postfilter.eval(&outer_tuple, &null_inner_tuple)) {
+                // Matched! Complete the joined tuple with the inner column values.
+                joinTuple.setNValues(outer_cols, null_inner_tuple, 0, inner_cols);
+                outputTuple(postfilter, joinTuple, pmp);
+            }
+        }
+    }
+
+    //
+    // FULL Outer Join. Iterate over the unmatched inner tuples
+    //
+    if (m_joinType == JOIN_TYPE_FULL && postfilter.isUnderLimit()) {
+        // Preset outer columns to null
+        const TableTuple& null_outer_tuple = m_null_outer_tuple.tuple();
+        joinTuple.setNValues(0, null_outer_tuple, 0, outer_cols);
+
+        TableTupleFilter_iter<UNMATCHED_TUPLE> endItr = innerTableFilter.end<UNMATCHED_TUPLE>();
+        for (TableTupleFilter_iter<UNMATCHED_TUPLE> itr = innerTableFilter.begin<UNMATCHED_TUPLE>();
+                itr != endItr && postfilter.isUnderLimit(); ++itr) {
+            // Restore the tuple value
+            uint64_t tupleAddr = innerTableFilter.getTupleAddress(*itr);
+            inner_tuple.move((char *)tupleAddr);
+            // Still needs to pass the filter
+            assert(inner_tuple.isActive());
+            if (postfilter.eval(&null_outer_tuple, &inner_tuple)) {
+                // Passed! Complete the joined tuple with the inner column values.
+                joinTuple.setNValues(outer_cols, inner_tuple, 0, inner_cols);
+                outputTuple(postfilter, joinTuple, pmp);
+            }
+        }
+    }
+
+    m_hashTable.clear();
+}
+
+void HashJoinExecutor::partitionInput(TableIterator& iterator,
+                                      const TupleSchema* schema,
+                                      const std::vector<AbstractExpression*>& keyExpressions,
+                                      bool isOuter,
+                                      std::vector<AbstractTempTable*>& partitions,
+                                      ProgressMonitorProxy& pmp) {
+    // Tuples with a NULL key never match, but an outer join still has to
+    // emit them null-padded from whichever partition they land in.
+    bool keepNullKeys = isOuter ? (m_joinType != JOIN_TYPE_INNER) : (m_joinType == JOIN_TYPE_FULL);
+
+    m_memoryPool.purge();
+    m_nextKeyStorage.init(m_keySchema, &m_memoryPool);
+    m_nextKeyStorage.allocateActiveTuple();
+    TableTuple& keyTuple = m_nextKeyStorage;
+
+    TableTuple tuple(schema);
+    while (iterator.next(tuple)) {
+        pmp.countdownProgress();
+        size_t partition = 0;
+        if (setKeyTuple(keyTuple,
+                        keyExpressions,
+                        isOuter ? &tuple : NULL,
+                        isOuter ? NULL : &tuple)) {
+            partition = keyTuple.hashCode(SPILL_PARTITION_HASH_SEED) % partitions.size();
+        }
+        else if ( ! keepNullKeys) {
+            continue;
+        }
+        partitions[partition]->insertTempTuple(tuple);
+    }
+    m_memoryPool.purge();
+}
+
+void HashJoinExecutor::joinSpilledInputs(Table* outerTable,
+                                         Table* innerTable,
+                                         CountingPostfilter& postfilter,
+                                         TableTuple& joinTuple,
+                                         ProgressMonitorProxy& pmp) {
+    LargeTempTableBlockCache* lttBlockCache = ExecutorContext::getExecutorContext()->lttBlockCache();
+    // Keep half of the cache for the blocks of the inputs and the output.
+    int64_t memoryLimit = lttBlockCache->maxCacheSizeInBytes() / 2;
+    // Rough cost of hashing one inner tuple: its key tuple and the map entry.
+    int64_t hashEntrySize = m_keySchema->tupleLength() + TUPLE_HEADER_SIZE +
+        sizeof(HashJoinMapType::value_type) + 2 * sizeof(void*);
+
+    // Start out as an in-memory join, and only partition the inputs
+    // once the inner input turns out not to fit.
+    boost::scoped_ptr<TempTable> innerInMemory(
+        TableFactory::buildCopiedTempTable(innerTable->name(), innerTable));
+    TableTuple tuple(innerTable->schema());
+    TableIterator innerIterator = innerTable->iteratorDeletingAsWeGo();
+    bool mustSpill = false;
+    while ( ! mustSpill && innerIterator.next(tuple)) {
+        pmp.countdownProgress();
+        // Non-inlined data lives in the large temp table block,
+        // which may be evicted, so make a deep copy.
+        innerInMemory->insertTempTupleDeepCopy(tuple, &m_spillPool);
+        mustSpill = innerInMemory->allocatedTupleMemory() + m_spillPool.getAllocatedMemory() +
+            hashEntrySize * innerInMemory->activeTupleCount() > memoryLimit;
+    }
+
+    if ( ! mustSpill) {
+        joinInputs(outerTable, innerInMemory.get(), postfilter, joinTuple, pmp);
+        innerInMemory.reset();
+        m_spillPool.purge();
+        return;
+    }
+
+    // Leave room in the cache for the block being read while the partitions are written.
+    int partitionCount = std::max(2, std::min(MAX_SPILL_PARTITIONS,
+                                              lttBlockCache->maxCacheSizeInBlocks() / 2));
+    VOLT_DEBUG("hash join: inner input exceeds %" PRId64 " bytes, spilling to %d partitions",
+               memoryLimit, partitionCount);
+
+    std::vector<AbstractTempTable*> innerPartitions;
+    std::vector<AbstractTempTable*> outerPartitions;
+    PartitionTablesGuard innerGuard(innerPartitions);
+    PartitionTablesGuard outerGuard(outerPartitions);
+    for (int ii = 0; ii < partitionCount; ii++) {
+        innerPartitions.push_back(TableFactory::buildCopiedLargeTempTable(innerTable->name(), innerTable));
+        outerPartitions.push_back(TableFactory::buildCopiedLargeTempTable(outerTable->name(), outerTable));
+    }
+
+    const std::vector<AbstractExpression*>& innerKeys = m_hashJoinNode->getInnerHashExpressions();
+    // The inner tuples copied so far go first, then the rest of the inner input.
+    {
+        TableIterator copiedIterator = innerInMemory->iteratorDeletingAsWeGo();
+        partitionInput(copiedIterator, innerTable->schema(), innerKeys, false, innerPartitions, pmp);
+    }
+    innerInMemory.reset();
+    m_spillPool.purge();
+    partitionInput(innerIterator, innerTable->schema(), innerKeys, false, innerPartitions, pmp);
+    // Unpin the last block of each inner partition before the outer input is written.
+    BOOST_FOREACH(AbstractTempTable* partitionTable, innerPartitions) {
+        partitionTable->finishInserts();
+    }
+
+    TableIterator outerIterator = outerTable->iteratorDeletingAsWeGo();
+    partitionInput(outerIterator, outerTable->schema(), m_hashJoinNode->getOuterHashExpressions(),
+                   true, outerPartitions, pmp);
+    BOOST_FOREACH(AbstractTempTable* partitionTable, outerPartitions) {
+        partitionTable->finishInserts();
+    }
+
+    for (int ii = 0; ii < partitionCount && postfilter.isUnderLimit(); ii++) {
+        // Only one inner partition is brought into memory at a time.
+        innerInMemory.reset(TableFactory::buildCopiedTempTable(innerTable->name(), innerTable));
+        TableIterator iterator = innerPartitions[ii]->iteratorDeletingAsWeGo();
+        while (iterator.next(tuple)) {
+            pmp.countdownProgress();
+            innerInMemory->insertTempTupleDeepCopy(tuple, &m_spillPool);
+        }
+        delete innerPartitions[ii];
+        innerPartitions[ii] = NULL;
+
+        joinInputs(outerPartitions[ii], innerInMemory.get(), postfilter, joinTuple, pmp);
+
+        delete outerPartitions[ii];
+        outerPartitions[ii] = NULL;
+        innerInMemory.reset();
+        m_spillPool.purge();
+    }
+    m_spillPool.purge();
+}
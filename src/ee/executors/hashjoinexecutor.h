@@ -0,0 +1,146 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This file contains original code and/or modifications of original code.
+ * Any modifications made by VoltDB Inc. are licensed under the following
+ * terms and conditions:
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/* Copyright (C) 2008 by H-Store Project
+ * Brown University
+ * Massachusetts Institute of Technology
+ * Yale University
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+#ifndef HSTOREHASHJOINEXECUTOR_H
+#define HSTOREHASHJOINEXECUTOR_H
+
+#include "common/common.h"
+#include "common/Pool.hpp"
+#include "common/tabletuple.h"
+#include "executors/abstractjoinexecutor.h"
+
+#include "boost/unordered_map.hpp"
+
+namespace voltdb {
+
+class AbstractExpression;
+class AbstractTempTable;
+class HashJoinPlanNode;
+class TableIterator;
+
+/**
+ * Executor for PLAN_NODE_TYPE_HASHJOIN.
+ *
+ * The inner input is hashed on the inner key expressions and every outer
+ * tuple probes the hash table with its outer key values, so an equi-join
+ * costs one pass over each input instead of one inner pass per outer tuple.
+ *
+ * Large queries (those that spill temp tables to the LargeTempTableBlockCache)
+ * also start with an in-memory hash table.  Only when the inner input outgrows
+ * half of the cache are both inputs hash-partitioned into large temp tables
+ * and joined pairwise, so that only one partition of the inner input needs
+ * to fit in memory at a time.
+ */
+class HashJoinExecutor : public AbstractJoinExecutor {
+    public:
+        HashJoinExecutor(VoltDBEngine *engine, AbstractPlanNode* abstract_node) :
+            AbstractJoinExecutor(engine, abstract_node),
+            m_keySchema(NULL),
+            m_isLargeQuery(false)
+        { }
+        ~HashJoinExecutor();
+    private:
+        typedef boost::unordered_multimap<TableTuple,
+                                          TableTuple,
+                                          TableTupleHasher,
+                                          TableTupleEqualityChecker> HashJoinMapType;
+
+        bool p_init(AbstractPlanNode*, const ExecutorVector& executorVector);
+        bool p_execute(const NValueArray &params);
+
+        /**
+         * Evaluate the given key expressions into the key tuple.
+         * Returns false if any key is NULL, since NULL never equals anything.
+         */
+        bool setKeyTuple(TableTuple& keyTuple,
+                         const std::vector<AbstractExpression*>& keyExpressions,
+                         const TableTuple* outerTuple,
+                         const TableTuple* innerTuple);
+
+        /** Join one outer input with one (in-memory) inner input. */
+        void joinInputs(Table* outerTable,
+                        Table* innerTable,
+                        CountingPostfilter& postfilter,
+                        TableTuple& joinTuple,
+                        ProgressMonitorProxy& pmp);
+
+        /**
+         * The large query path: join in memory while the inner input fits,
+         * otherwise partition both inputs and join them pairwise.
+         */
+        void joinSpilledInputs(Table* outerTable,
+                               Table* innerTable,
+                               CountingPostfilter& postfilter,
+                               TableTuple& joinTuple,
+                               ProgressMonitorProxy& pmp);
+
+        /**
+         * Distribute the remaining tuples of an input over partitions by key hash.
+         * The caller finishes the inserts once every tuple has been distributed.
+         */
+        void partitionInput(TableIterator& iterator,
+                            const TupleSchema* schema,
+                            const std::vector<AbstractExpression*>& keyExpressions,
+                            bool isOuter,
+                            std::vector<AbstractTempTable*>& partitions,
+                            ProgressMonitorProxy& pmp);
+
+        HashJoinPlanNode* m_hashJoinNode;
+
+        // Key tuples of the hash table (and their non-inlined data) live in m_memoryPool.
+        Pool m_memoryPool;
+        TupleSchema* m_keySchema;
+        PoolBackedTupleStorage m_nextKeyStorage;
+        PoolBackedTupleStorage m_probeKeyStorage;
+        HashJoinMapType m_hashTable;
+
+        // Holds deep copies of non-inlined data for spilled inner partitions.
+        Pool m_spillPool;
+        bool m_isLargeQuery;
+};
+
+}
+
+#endif
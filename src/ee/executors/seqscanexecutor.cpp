@@ -46,6 +46,7 @@
 #include "seqscanexecutor.h"
 #include "executors/aggregateexecutor.h"
 #include "executors/insertexecutor.h"
+#include "executors/vectorizedscan.h"
 #include "plannodes/aggregatenode.h"
 #include "plannodes/insertnode.h"
 #include "plannodes/seqscannode.h"
@@ -56,6 +57,16 @@
 
 using namespace voltdb;
 
+SeqScanExecutor::SeqScanExecutor(VoltDBEngine *engine, AbstractPlanNode* abstract_node)
+    : AbstractExecutor(engine, abstract_node)
+    , m_aggExec(NULL)
+    , m_insertExec(NULL)
+    , m_vectorizableAggNode(NULL)
+{
+}
+
+SeqScanExecutor::~SeqScanExecutor() { }
+
 bool SeqScanExecutor::p_init(AbstractPlanNode* abstract_node,
                              const ExecutorVector& executorVector)
 {
@@ -82,6 +93,18 @@ bool SeqScanExecutor::p_init(AbstractPlanNode* abstract_node,
     // confuses things.
     assert(m_aggExec == NULL || m_insertExec == NULL);
 
+    // An ungrouped aggregate over a filtered table scan may be evaluated
+    // a batch of column values at a time, see VectorizedScan::build.
+    m_vectorizedScan.reset();
+    m_vectorizableAggNode = NULL;
+    if (node->isPersistentTableScan() &&
+        dynamic_cast<AggregateSerialExecutor*>(m_aggExec) != NULL &&
+        node->getInlinePlanNode(PLAN_NODE_TYPE_PROJECTION) == NULL &&
+        node->getInlinePlanNode(PLAN_NODE_TYPE_LIMIT) == NULL) {
+        m_vectorizableAggNode =
+            dynamic_cast<AggregatePlanNode*>(node->getInlinePlanNode(PLAN_NODE_TYPE_AGGREGATE));
+    }
+
     //
     // OPTIMIZATION: If there is no predicate for this SeqScan,
     // then we want to just set our OutputTable pointer to be the
@@ -251,6 +274,22 @@ bool SeqScanExecutor::p_execute(const NValueArray &params) {
             temp_tuple = m_tmpOutputTable->tempTuple();
         }
 
+        if (m_vectorizableAggNode != NULL &&
+            ( ! m_vectorizedScan || m_vectorizedScan->getSchema() != input_table->schema())) {
+            // Column offsets are resolved against the table's schema
+            m_vectorizedScan.reset(VectorizedScan::build(input_table->schema(),
+                                                         predicate,
+                                                         m_vectorizableAggNode,
+                                                         static_cast<AggregateSerialExecutor*>(m_aggExec)));
+            if ( ! m_vectorizedScan) {
+                m_vectorizableAggNode = NULL;
+            }
+        }
+        if (m_vectorizedScan && m_vectorizedScan->execute(input_table, &pmp)) {
+            VOLT_DEBUG("Finished vectorized Seq scanning");
+            return true;
+        }
+
         while (postfilter.isUnderLimit() && iterator.next(tuple))
         {
 #if   defined(VOLT_TRACE_ENABLED)
@@ -51,19 +51,20 @@
 #include "executors/abstractexecutor.h"
 #include "execution/VoltDBEngine.h"
 
+#include "boost/scoped_ptr.hpp"
+
 namespace voltdb
 {
     class AggregateExecutorBase;
+    class AggregatePlanNode;
     struct CountingPostfilter;
     class InsertExecutor;
+    class VectorizedScan;
 
     class SeqScanExecutor : public AbstractExecutor {
     public:
-        SeqScanExecutor(VoltDBEngine *engine, AbstractPlanNode* abstract_node)
-            : AbstractExecutor(engine, abstract_node)
-            , m_aggExec(NULL)
-            , m_insertExec(NULL)
-        {}
+        SeqScanExecutor(VoltDBEngine *engine, AbstractPlanNode* abstract_node);
+        ~SeqScanExecutor();
     protected:
         bool p_init(AbstractPlanNode* abstract_node,
                     const ExecutorVector& executorVector);
@@ -85,6 +86,11 @@ namespace voltdb
         // freeing them.
         AggregateExecutorBase* m_aggExec;
         InsertExecutor* m_insertExec;
+
+        // Batch at a time evaluation of the predicate and inline
+        // aggregate, when the plan allows it.
+        AggregatePlanNode* m_vectorizableAggNode;
+        boost::scoped_ptr<VectorizedScan> m_vectorizedScan;
     };
 }
 
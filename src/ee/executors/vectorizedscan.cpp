@@ -0,0 +1,425 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+#include "executors/vectorizedscan.h"
+
+#include "common/NValue.hpp"
+#include "common/TupleSchema.h"
+#include "common/ValueFactory.hpp"
+#include "common/ValuePeeker.hpp"
+#include "common/tabletuple.h"
+#include "execution/ProgressMonitorProxy.h"
+#include "executors/aggregateexecutor.h"
+#include "expressions/abstractexpression.h"
+#include "expressions/tuplevalueexpression.h"
+#include "plannodes/aggregatenode.h"
+#include "storage/table.h"
+#include "storage/tableiterator.h"
+
+#include <memory>
+
+namespace voltdb {
+
+static bool isIntegerType(ValueType type)
+{
+    switch (type) {
+    case VALUE_TYPE_TINYINT:
+    case VALUE_TYPE_SMALLINT:
+    case VALUE_TYPE_INTEGER:
+    case VALUE_TYPE_BIGINT:
+        return true;
+    default:
+        return false;
+    }
+}
+
+static bool isOperand(const AbstractExpression* expr)
+{
+    return (expr->getExpressionType() == EXPRESSION_TYPE_VALUE_CONSTANT ||
+            expr->getExpressionType() == EXPRESSION_TYPE_VALUE_PARAMETER);
+}
+
+/** The comparison that gives the same result with its operands swapped */
+static ExpressionType reverseComparison(ExpressionType op)
+{
+    switch (op) {
+    case EXPRESSION_TYPE_COMPARE_LESSTHAN:
+        return EXPRESSION_TYPE_COMPARE_GREATERTHAN;
+    case EXPRESSION_TYPE_COMPARE_GREATERTHAN:
+        return EXPRESSION_TYPE_COMPARE_LESSTHAN;
+    case EXPRESSION_TYPE_COMPARE_LESSTHANOREQUALTO:
+        return EXPRESSION_TYPE_COMPARE_GREATERTHANOREQUALTO;
+    case EXPRESSION_TYPE_COMPARE_GREATERTHANOREQUALTO:
+        return EXPRESSION_TYPE_COMPARE_LESSTHANOREQUALTO;
+    default:
+        return op;
+    }
+}
+
+VectorizedScan* VectorizedScan::build(const TupleSchema* schema,
+                                      const AbstractExpression* predicate,
+                                      const AggregatePlanNode* aggNode,
+                                      AggregateSerialExecutor* aggExec)
+{
+    if (aggNode == NULL || aggExec == NULL ||
+        ! aggNode->getGroupByExpressions().empty() ||
+        aggNode->getPrePredicate() != NULL ||
+        aggNode->getAggregateOutputColumns().size() != aggNode->getOutputSchema().size()) {
+        return NULL;
+    }
+
+    std::unique_ptr<VectorizedScan> scan(new VectorizedScan(schema, aggExec));
+    if (predicate != NULL && ! scan->addFilters(schema, predicate)) {
+        return NULL;
+    }
+
+    const std::vector<ExpressionType> aggTypes = aggNode->getAggregates();
+    const std::vector<bool>& distinctAggs = aggNode->getDistinctAggregates();
+    const std::vector<AbstractExpression*>& inputExprs = aggNode->getAggregateInputExpressions();
+    for (int ii = 0; ii < aggTypes.size(); ii++) {
+        if (distinctAggs[ii]) {
+            return NULL;
+        }
+        Aggregate agg;
+        agg.m_type = aggTypes[ii];
+        agg.m_column = -1;
+        switch (agg.m_type) {
+        case EXPRESSION_TYPE_AGGREGATE_COUNT_STAR:
+            break;
+        case EXPRESSION_TYPE_AGGREGATE_COUNT:
+        case EXPRESSION_TYPE_AGGREGATE_SUM:
+        case EXPRESSION_TYPE_AGGREGATE_MIN:
+        case EXPRESSION_TYPE_AGGREGATE_MAX:
+            agg.m_column = scan->addColumn(schema, inputExprs[ii]);
+            if (agg.m_column < 0) {
+                return NULL;
+            }
+            break;
+        default:
+            return NULL;
+        }
+        scan->m_aggregates.push_back(agg);
+    }
+
+    scan->m_values.resize(scan->m_columns.size() * BATCH_SIZE);
+    scan->m_nulls.resize(scan->m_columns.size() * BATCH_SIZE);
+    scan->m_selection.resize(BATCH_SIZE);
+    return scan.release();
+}
+
+/**
+ * Find or add the decoded column for a reference to an integer column of
+ * the scanned table. Returns -1 for any other expression.
+ */
+int VectorizedScan::addColumn(const TupleSchema* schema, const AbstractExpression* expr)
+{
+    const TupleValueExpression* tve = dynamic_cast<const TupleValueExpression*>(expr);
+    if (tve == NULL || tve->getTupleId() != 0 || tve->getColumnId() >= schema->columnCount()) {
+        return -1;
+    }
+    const int index = tve->getColumnId();
+    const TupleSchema::ColumnInfo* info = schema->getColumnInfo(index);
+    if ( ! isIntegerType(info->getVoltType())) {
+        return -1;
+    }
+    for (int ii = 0; ii < m_columns.size(); ii++) {
+        if (m_columns[ii].m_index == index) {
+            return ii;
+        }
+    }
+    Column column;
+    column.m_index = index;
+    column.m_type = info->getVoltType();
+    column.m_offset = info->offset;
+    m_columns.push_back(column);
+    return static_cast<int>(m_columns.size() - 1);
+}
+
+bool VectorizedScan::addFilters(const TupleSchema* schema, const AbstractExpression* predicate)
+{
+    const ExpressionType op = predicate->getExpressionType();
+    if (op == EXPRESSION_TYPE_CONJUNCTION_AND) {
+        return addFilters(schema, predicate->getLeft()) && addFilters(schema, predicate->getRight());
+    }
+    switch (op) {
+    case EXPRESSION_TYPE_COMPARE_EQUAL:
+    case EXPRESSION_TYPE_COMPARE_NOTEQUAL:
+    case EXPRESSION_TYPE_COMPARE_LESSTHAN:
+    case EXPRESSION_TYPE_COMPARE_GREATERTHAN:
+    case EXPRESSION_TYPE_COMPARE_LESSTHANOREQUALTO:
+    case EXPRESSION_TYPE_COMPARE_GREATERTHANOREQUALTO:
+        break;
+    default:
+        return false;
+    }
+
+    Filter filter;
+    filter.m_op = op;
+    filter.m_value = 0;
+    if (isOperand(predicate->getRight())) {
+        filter.m_column = addColumn(schema, predicate->getLeft());
+        filter.m_operand = predicate->getRight();
+    }
+    else if (isOperand(predicate->getLeft())) {
+        filter.m_column = addColumn(schema, predicate->getRight());
+        filter.m_operand = predicate->getLeft();
+        filter.m_op = reverseComparison(op);
+    }
+    else {
+        return false;
+    }
+    if (filter.m_column < 0) {
+        return false;
+    }
+    m_filters.push_back(filter);
+    return true;
+}
+
+bool VectorizedScan::bindParameters()
+{
+    for (int ii = 0; ii < m_filters.size(); ii++) {
+        Filter& filter = m_filters[ii];
+        const NValue value = filter.m_operand->eval(NULL, NULL);
+        if (value.isNull() || ! isIntegerType(ValuePeeker::peekValueType(value))) {
+            return false;
+        }
+        filter.m_value = ValuePeeker::peekAsBigInt(value);
+    }
+    return true;
+}
+
+bool VectorizedScan::execute(Table* table, ProgressMonitorProxy* pmp)
+{
+    if ( ! bindParameters()) {
+        return false;
+    }
+    for (int ii = 0; ii < m_aggregates.size(); ii++) {
+        m_aggregates[ii].m_value = 0;
+        m_aggregates[ii].m_haveValue = false;
+    }
+
+    char* tuples[BATCH_SIZE];
+    TableTuple tuple(table->schema());
+    TableIterator iterator = table->iterator();
+    bool more = true;
+    while (more) {
+        int count = 0;
+        while (count < BATCH_SIZE && (more = iterator.next(tuple))) {
+            tuples[count++] = tuple.address();
+            pmp->countdownProgress();
+        }
+        if (count == 0) {
+            break;
+        }
+        decodeBatch(tuples, count);
+        advanceAggregates(applyFilters(count));
+    }
+
+    finish();
+    return true;
+}
+
+/**
+ * Copy the referenced columns of a batch of tuples into the column vectors,
+ * widening every integer type to int64_t.
+ */
+void VectorizedScan::decodeBatch(char* const* tuples, int count)
+{
+    for (int cc = 0; cc < m_columns.size(); cc++) {
+        const Column& column = m_columns[cc];
+        const uint32_t offset = TUPLE_HEADER_SIZE + column.m_offset;
+        int64_t* values = &m_values[cc * BATCH_SIZE];
+        char* nulls = &m_nulls[cc * BATCH_SIZE];
+        switch (column.m_type) {
+        case VALUE_TYPE_TINYINT:
+            for (int ii = 0; ii < count; ii++) {
+                const int8_t value = *reinterpret_cast<const int8_t*>(tuples[ii] + offset);
+                values[ii] = value;
+                nulls[ii] = (value == INT8_NULL);
+            }
+            break;
+        case VALUE_TYPE_SMALLINT:
+            for (int ii = 0; ii < count; ii++) {
+                const int16_t value = *reinterpret_cast<const int16_t*>(tuples[ii] + offset);
+                values[ii] = value;
+                nulls[ii] = (value == INT16_NULL);
+            }
+            break;
+        case VALUE_TYPE_INTEGER:
+            for (int ii = 0; ii < count; ii++) {
+                const int32_t value = *reinterpret_cast<const int32_t*>(tuples[ii] + offset);
+                values[ii] = value;
+                nulls[ii] = (value == INT32_NULL);
+            }
+            break;
+        default:
+            assert(column.m_type == VALUE_TYPE_BIGINT);
+            for (int ii = 0; ii < count; ii++) {
+                const int64_t value = *reinterpret_cast<const int64_t*>(tuples[ii] + offset);
+                values[ii] = value;
+                nulls[ii] = (value == INT64_NULL);
+            }
+            break;
+        }
+    }
+}
+
+template <typename Compare>
+static int filterSelection(uint16_t* selection, int selected,
+                           const int64_t* values, const char* nulls, int64_t operand, Compare compare)
+{
+    int kept = 0;
+    for (int ii = 0; ii < selected; ii++) {
+        const uint16_t pos = selection[ii];
+        // A comparison with NULL is never true
+        selection[kept] = pos;
+        kept += ( ! nulls[pos] && compare(values[pos], operand));
+    }
+    return kept;
+}
+
+struct CompareEqual { bool operator()(int64_t l, int64_t r) const { return l == r; } };
+struct CompareNotEqual { bool operator()(int64_t l, int64_t r) const { return l != r; } };
+struct CompareLessThan { bool operator()(int64_t l, int64_t r) const { return l < r; } };
+struct CompareGreaterThan { bool operator()(int64_t l, int64_t r) const { return l > r; } };
+struct CompareLessThanOrEqual { bool operator()(int64_t l, int64_t r) const { return l <= r; } };
+struct CompareGreaterThanOrEqual { bool operator()(int64_t l, int64_t r) const { return l >= r; } };
+
+/**
+ * Narrow the selection to the tuples in the batch that pass every filter,
+ * and return how many remain.
+ */
+int VectorizedScan::applyFilters(int count)
+{
+    uint16_t* selection = &m_selection[0];
+    for (int ii = 0; ii < count; ii++) {
+        selection[ii] = static_cast<uint16_t>(ii);
+    }
+    int selected = count;
+    for (int ff = 0; ff < m_filters.size() && selected > 0; ff++) {
+        const Filter& filter = m_filters[ff];
+        const int64_t* values = &m_values[filter.m_column * BATCH_SIZE];
+        const char* nulls = &m_nulls[filter.m_column * BATCH_SIZE];
+        switch (filter.m_op) {
+        case EXPRESSION_TYPE_COMPARE_EQUAL:
+            selected = filterSelection(selection, selected, values, nulls, filter.m_value, CompareEqual());
+            break;
+        case EXPRESSION_TYPE_COMPARE_NOTEQUAL:
+            selected = filterSelection(selection, selected, values, nulls, filter.m_value, CompareNotEqual());
+            break;
+        case EXPRESSION_TYPE_COMPARE_LESSTHAN:
+            selected = filterSelection(selection, selected, values, nulls, filter.m_value, CompareLessThan());
+            break;
+        case EXPRESSION_TYPE_COMPARE_GREATERTHAN:
+            selected = filterSelection(selection, selected, values, nulls, filter.m_value, CompareGreaterThan());
+            break;
+        case EXPRESSION_TYPE_COMPARE_LESSTHANOREQUALTO:
+            selected = filterSelection(selection, selected, values, nulls, filter.m_value, CompareLessThanOrEqual());
+            break;
+        default:
+            assert(filter.m_op == EXPRESSION_TYPE_COMPARE_GREATERTHANOREQUALTO);
+            selected = filterSelection(selection, selected, values, nulls, filter.m_value, CompareGreaterThanOrEqual());
+            break;
+        }
+    }
+    return selected;
+}
+
+void VectorizedScan::advanceAggregates(int selected)
+{
+    const uint16_t* selection = &m_selection[0];
+    for (int aa = 0; aa < m_aggregates.size(); aa++) {
+        Aggregate& agg = m_aggregates[aa];
+        if (agg.m_type == EXPRESSION_TYPE_AGGREGATE_COUNT_STAR) {
+            agg.m_value += selected;
+            continue;
+        }
+        const int64_t* values = &m_values[agg.m_column * BATCH_SIZE];
+        const char* nulls = &m_nulls[agg.m_column * BATCH_SIZE];
+        switch (agg.m_type) {
+        case EXPRESSION_TYPE_AGGREGATE_COUNT:
+            for (int ii = 0; ii < selected; ii++) {
+                agg.m_value += ! nulls[selection[ii]];
+            }
+            break;
+        case EXPRESSION_TYPE_AGGREGATE_SUM:
+            for (int ii = 0; ii < selected; ii++) {
+                const uint16_t pos = selection[ii];
+                if (nulls[pos]) {
+                    continue;
+                }
+                if ( ! agg.m_haveValue) {
+                    agg.m_value = values[pos];
+                    agg.m_haveValue = true;
+                }
+                else if (agg.m_value != INT64_NULL) {
+                    // A running sum that lands on the BIGINT null value stays
+                    // NULL, just as it does when adding NValues.
+                    const int64_t sum = static_cast<int64_t>(static_cast<uint64_t>(agg.m_value) +
+                                                             static_cast<uint64_t>(values[pos]));
+                    if (((agg.m_value ^ sum) & (values[pos] ^ sum)) < 0) {
+                        // Throws the same overflow error as SUM over NValues
+                        ValueFactory::getBigIntValue(agg.m_value).op_add(
+                                ValueFactory::getBigIntValue(values[pos]));
+                    }
+                    agg.m_value = sum;
+                }
+            }
+            break;
+        case EXPRESSION_TYPE_AGGREGATE_MIN:
+            for (int ii = 0; ii < selected; ii++) {
+                const uint16_t pos = selection[ii];
+                if ( ! nulls[pos] && ( ! agg.m_haveValue || values[pos] < agg.m_value)) {
+                    agg.m_value = values[pos];
+                    agg.m_haveValue = true;
+                }
+            }
+            break;
+        default:
+            assert(agg.m_type == EXPRESSION_TYPE_AGGREGATE_MAX);
+            for (int ii = 0; ii < selected; ii++) {
+                const uint16_t pos = selection[ii];
+                if ( ! nulls[pos] && ( ! agg.m_haveValue || values[pos] > agg.m_value)) {
+                    agg.m_value = values[pos];
+                    agg.m_haveValue = true;
+                }
+            }
+            break;
+        }
+    }
+}
+
+void VectorizedScan::finish()
+{
+    std::vector<NValue> results;
+    results.reserve(m_aggregates.size());
+    for (int aa = 0; aa < m_aggregates.size(); aa++) {
+        const Aggregate& agg = m_aggregates[aa];
+        if (agg.m_type == EXPRESSION_TYPE_AGGREGATE_COUNT ||
+            agg.m_type == EXPRESSION_TYPE_AGGREGATE_COUNT_STAR ||
+            agg.m_haveValue) {
+            results.push_back(ValueFactory::getBigIntValue(agg.m_value));
+        }
+        else {
+            // SUM, MIN and MAX of no values
+            results.push_back(NValue::getNullValue(VALUE_TYPE_BIGINT));
+        }
+    }
+    m_aggExec->p_execute_finish(results);
+}
+
+} // end namespace voltdb
@@ -0,0 +1,127 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+#ifndef EXECUTORS_VECTORIZEDSCAN_H
+#define EXECUTORS_VECTORIZEDSCAN_H
+
+#include <vector>
+
+#include "common/types.h"
+
+namespace voltdb {
+
+class AbstractExpression;
+class AggregatePlanNode;
+class AggregateSerialExecutor;
+class ProgressMonitorProxy;
+class Table;
+class TupleSchema;
+
+/**
+ * A batch-at-a-time evaluation of a sequential scan that feeds an inline,
+ * ungrouped serial aggregate, e.g.
+ *
+ *     SELECT COUNT(*), SUM(B), MAX(C) FROM T WHERE A > ? AND C <> 3;
+ *
+ * Rather than evaluating the predicate and the aggregate input expressions
+ * tuple by tuple through the expression tree, the referenced integer columns
+ * of up to BATCH_SIZE tuples are decoded into plain int64_t vectors. The
+ * predicate is then applied as a tight loop per conjunct, narrowing a
+ * selection vector, and SUM/COUNT/MIN/MAX are computed over the selected
+ * positions.
+ *
+ * Only plans the vectorized path can evaluate exactly are accepted: a
+ * predicate that is a conjunction of comparisons between an integer column
+ * and a constant or parameter, and non-distinct SUM, COUNT, COUNT(*), MIN
+ * and MAX of integer columns, with no GROUP BY, pre-predicate or pass
+ * through columns. Everything else keeps using the tuple at a time path.
+ */
+class VectorizedScan {
+public:
+    static const int BATCH_SIZE = 1024;
+
+    /**
+     * Returns a vectorized evaluation of the scan, or NULL if the predicate
+     * or aggregate can't be vectorized. The caller owns the result.
+     */
+    static VectorizedScan* build(const TupleSchema* schema,
+                                 const AbstractExpression* predicate,
+                                 const AggregatePlanNode* aggNode,
+                                 AggregateSerialExecutor* aggExec);
+
+    /**
+     * Scan the table and finish the inline aggregate. Returns false, having
+     * consumed nothing, if the parameter values rule out the vectorized path
+     * (for example a NULL or non-integer parameter) and the caller should
+     * fall back to the tuple at a time scan.
+     */
+    bool execute(Table* table, ProgressMonitorProxy* pmp);
+
+    /** The schema the decoded column offsets were taken from */
+    const TupleSchema* getSchema() const { return m_schema; }
+
+private:
+    // One input column decoded per batch
+    struct Column {
+        int m_index;
+        ValueType m_type;
+        uint32_t m_offset;
+    };
+
+    // A "column <op> value" conjunct of the predicate
+    struct Filter {
+        int m_column;
+        ExpressionType m_op;
+        const AbstractExpression* m_operand;
+        int64_t m_value;
+    };
+
+    // One aggregate, m_column is -1 for COUNT(*)
+    struct Aggregate {
+        ExpressionType m_type;
+        int m_column;
+        int64_t m_value;
+        bool m_haveValue;
+    };
+
+    VectorizedScan(const TupleSchema* schema, AggregateSerialExecutor* aggExec)
+        : m_schema(schema), m_aggExec(aggExec) { }
+
+    int addColumn(const TupleSchema* schema, const AbstractExpression* expr);
+    bool addFilters(const TupleSchema* schema, const AbstractExpression* predicate);
+    bool bindParameters();
+    void decodeBatch(char* const* tuples, int count);
+    int applyFilters(int count);
+    void advanceAggregates(int selected);
+    void finish();
+
+    const TupleSchema* m_schema;
+    AggregateSerialExecutor* m_aggExec;
+    std::vector<Column> m_columns;
+    std::vector<Filter> m_filters;
+    std::vector<Aggregate> m_aggregates;
+
+    // m_values[c * BATCH_SIZE + i] holds column c of the i-th tuple in the batch,
+    // with m_nulls marking the SQL NULLs.
+    std::vector<int64_t> m_values;
+    std::vector<char> m_nulls;
+    // Positions in the batch of the tuples that passed every filter so far
+    std::vector<uint16_t> m_selection;
+};
+
+} // end namespace voltdb
+
+#endif
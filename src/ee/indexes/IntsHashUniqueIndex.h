@@ -0,0 +1,172 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+#ifndef INTSHASHUNIQUEINDEX_H_
+#define INTSHASHUNIQUEINDEX_H_
+
+#include <iostream>
+#include <cassert>
+
+#include "indexes/tableindex.h"
+#include "indexes/indexkey.h"
+#include "indexes/CompactingTreeUniqueIndex.h"
+#include "structures/IntHashTable.h"
+
+namespace voltdb {
+
+/**
+ * Unique hash index for keys that pack into a single 64-bit IntsKey word,
+ * which covers every single-integer-column key. Entries are kept in an
+ * IntHashTable keyed on the raw packed word.
+ * @see CompactingHashUniqueIndex
+ */
+class IntsHashUniqueIndex : public TableIndex
+{
+    typedef IntsKey<1> KeyType;
+    typedef IntHashTable<const void*> MapType;
+    typedef MapType::iterator MapIterator;
+
+    ~IntsHashUniqueIndex() {};
+
+    static MapIterator& castToIter(IndexCursor& cursor) {
+        return *reinterpret_cast<MapIterator*> (cursor.m_keyIter);
+    }
+
+    void addEntryDo(const TableTuple *tuple, TableTuple *conflictTuple) {
+        ++m_inserts;
+        const void* const* conflictEntry = m_entries.insert(keyFromTuple(tuple), tuple->address());
+        if (conflictEntry != NULL && conflictTuple != NULL) {
+            conflictTuple->move(const_cast<void*>(*conflictEntry));
+        }
+    }
+
+    bool deleteEntryDo(const TableTuple *tuple) {
+        ++m_deletes;
+        return m_entries.erase(keyFromTuple(tuple));
+    }
+
+    /**
+     * Update in place an index entry with a new tuple address
+     */
+    bool replaceEntryNoKeyChangeDo(const TableTuple &destinationTuple, const TableTuple &originalTuple)
+    {
+        assert(originalTuple.address() != destinationTuple.address());
+
+        MapIterator mapiter = m_entries.find(keyFromTuple(&originalTuple));
+        if (mapiter.isEnd()) {
+            return false;
+        }
+        mapiter.setValue(destinationTuple.address());
+        m_updates++;
+        return true;
+    }
+
+    bool keyUsesNonInlinedMemory() const { return false; }
+
+    bool checkForIndexChangeDo(const TableTuple *lhs, const TableTuple *rhs) const {
+        return keyFromTuple(lhs) != keyFromTuple(rhs);
+    }
+
+    bool existsDo(const TableTuple *persistentTuple) const
+    {
+        return ! m_entries.find(keyFromTuple(persistentTuple)).isEnd();
+    }
+
+    bool moveToKey(const TableTuple *searchKey, IndexCursor& cursor) const {
+        MapIterator &mapIter = castToIter(cursor);
+        mapIter = m_entries.find(keyFromSearchKey(searchKey));
+
+        if (mapIter.isEnd()) {
+            cursor.m_match.move(NULL);
+            return false;
+        }
+        cursor.m_match.move(const_cast<void*>(mapIter.value()));
+
+        return true;
+    }
+
+    bool moveToKeyByTuple(const TableTuple *persistentTuple, IndexCursor &cursor) const
+    {
+        MapIterator &mapIter = castToIter(cursor);
+        mapIter = m_entries.find(keyFromTuple(persistentTuple));
+
+        if (mapIter.isEnd()) {
+            cursor.m_match.move(NULL);
+            return false;
+        }
+        cursor.m_match.move(const_cast<void*>(mapIter.value()));
+
+        return true;
+    }
+
+    TableTuple nextValueAtKey(IndexCursor& cursor) const {
+        TableTuple retval = cursor.m_match;
+        cursor.m_match.move(NULL);
+        return retval;
+    }
+
+    TableTuple uniqueMatchingTuple(const TableTuple &searchTuple) const
+    {
+        TableTuple retval(getTupleSchema());
+        const MapIterator keyIter = m_entries.find(keyFromTuple(&searchTuple));
+        if ( ! keyIter.isEnd()) {
+            retval.move(const_cast<void*>(keyIter.value()));
+        }
+        return retval;
+    }
+
+    bool hasKey(const TableTuple *searchKey) const {
+        return ! m_entries.find(keyFromSearchKey(searchKey)).isEnd();
+    }
+
+    size_t getSize() const { return m_entries.size(); }
+
+    int64_t getMemoryEstimate() const
+    {
+        return m_entries.bytesAllocated();
+    }
+
+    std::string getTypeName() const { return "IntsHashUniqueIndex"; };
+
+    TableIndex *cloneEmptyNonCountingTreeIndex() const
+    {
+        return new CompactingTreeUniqueIndex<NormalKeyValuePair<KeyType, void const *>, false >(TupleSchema::createTupleSchema(getKeySchema()), m_scheme);
+    }
+
+    // Non-virtual (so "really-private") helper methods.
+    uint64_t keyFromSearchKey(const TableTuple *searchKey) const
+    {
+        return KeyType(searchKey).data[0];
+    }
+
+    uint64_t keyFromTuple(const TableTuple *tuple) const
+    {
+        return KeyType(tuple, m_scheme.columnIndices, m_scheme.indexedExpressions, m_keySchema).data[0];
+    }
+
+    MapType m_entries;
+
+public:
+    IntsHashUniqueIndex(const TupleSchema *keySchema, const TableIndexScheme &scheme) :
+        TableIndex(keySchema, scheme),
+        m_entries()
+    {}
+};
+
+}
+
+#endif // INTSHASHUNIQUEINDEX_H_
@@ -52,26 +52,50 @@
 #include "indexes/CompactingTreeMultiMapIndex.h"
 #include "indexes/CompactingHashUniqueIndex.h"
 #include "indexes/CompactingHashMultiMapIndex.h"
+#include "indexes/IntsHashUniqueIndex.h"
 #include "indexes/CoveringCellIndex.h"
 
 namespace voltdb {
 
 class TableIndexPicker
 {
+    template <class TKeyType>
+    TableIndex *getUniqueHashInstance(const TKeyType *) const
+    {
+        return new CompactingHashUniqueIndex<TKeyType >(m_keySchema, m_scheme);
+    }
+
+    // Keys that pack into a single 64-bit word, such as any single integer column,
+    // use the open addressing table keyed on the raw word.
+    TableIndex *getUniqueHashInstance(const IntsKey<1> *) const
+    {
+        return new IntsHashUniqueIndex(m_keySchema, m_scheme);
+    }
+
     template <class TKeyType>
     TableIndex *getInstanceForKeyType() const
     {
         if (m_scheme.unique) {
-            if (m_type != BALANCED_TREE_INDEX) {
-                return new CompactingHashUniqueIndex<TKeyType >(m_keySchema, m_scheme);
+            if (m_type == HASH_TABLE_INDEX) {
+                return getUniqueHashInstance(static_cast<const TKeyType *>(NULL));
+            } else if (m_type == BTREE_INDEX) {
+                if (m_scheme.countable) {
+                    return new CompactingTreeUniqueIndex<NormalKeyValuePair<TKeyType>, true, BTreeMap>(m_keySchema, m_scheme);
+                }
+                return new CompactingTreeUniqueIndex<NormalKeyValuePair<TKeyType>, false, BTreeMap>(m_keySchema, m_scheme);
             } else if (m_scheme.countable) {
                 return new CompactingTreeUniqueIndex<NormalKeyValuePair<TKeyType>, true>(m_keySchema, m_scheme);
             } else {
                 return new CompactingTreeUniqueIndex<NormalKeyValuePair<TKeyType>, false>(m_keySchema, m_scheme);
             }
         } else {
-            if (m_type != BALANCED_TREE_INDEX) {
+            if (m_type == HASH_TABLE_INDEX) {
                 return new CompactingHashMultiMapIndex<TKeyType >(m_keySchema, m_scheme);
+            } else if (m_type == BTREE_INDEX) {
+                if (m_scheme.countable) {
+                    return new CompactingTreeMultiMapIndex<PointerKeyValuePair<TKeyType>, true, BTreeMap>(m_keySchema, m_scheme);
+                }
+                return new CompactingTreeMultiMapIndex<PointerKeyValuePair<TKeyType>, false, BTreeMap>(m_keySchema, m_scheme);
             } else if (m_scheme.countable) {
                 return new CompactingTreeMultiMapIndex<PointerKeyValuePair<TKeyType>, true>(m_keySchema, m_scheme);
             } else {
@@ -98,6 +122,15 @@ class TableIndexPicker
                       m_scheme.name.c_str());
             m_type = BALANCED_TREE_INDEX;
         }
+        // The B+tree keeps copies of keys as separators in its inner nodes, so it can only
+        // hold keys that do not reference non-inlined objects which may be freed under it.
+        if (m_type == BTREE_INDEX &&
+            ( ! m_inlinesOrColumnsOnly || m_keySchema->getUninlinedObjectColumnCount() != 0)) {
+            VOLT_INFO("Producing a red-black tree index for %s: "
+                      "B+tree index not currently supported for non-inlined index keys.\n",
+                      m_scheme.name.c_str());
+            m_type = BALANCED_TREE_INDEX;
+        }
         // If any indexed expression value can not either be stored "inline" within a (GenericKey) key tuple
         // or specifically in a non-inlined object shared with the base table (because it is a simple column value),
         // then the GenericKey will have to reference and maintain its own persistent non-inline storage.
@@ -114,6 +114,8 @@ TupleSchema* TableCatalogDelegate::createTupleSchema(catalog::Table const& catal
                                        static_cast<int32_t>(catalogColumn->size()),
                                        catalogColumn->nullable(),
                                        catalogColumn->inbytes());
+        schemaBuilder.setColumnDictionaryEncoded(catalogColumn->index(),
+                                                 catalogColumn->dictionaryencoded());
     }
 
     if (needsDRTimestamp) {
@@ -208,6 +210,9 @@ getIndexIdFromMap(TableIndexType type, bool countable, bool isUnique,
     case HASH_TABLE_INDEX:
         retval += "H";
         break;
+    case BTREE_INDEX:
+        retval += "T";
+        break;
     case COVERING_CELL_INDEX:
         retval += "G"; // C is taken
         break;
@@ -40,6 +40,10 @@ vector<string> TableStats::generateTableStatsColumnNames() {
     columnNames.push_back("STRING_DATA_MEMORY");
     columnNames.push_back("TUPLE_LIMIT");
     columnNames.push_back("PERCENT_FULL");
+    columnNames.push_back("TUPLE_EMPTY_MEMORY");
+    columnNames.push_back("PERCENT_FRAGMENTED");
+    columnNames.push_back("TUPLES_COMPACTED");
+    columnNames.push_back("BLOCKS_COMPACTED");
     return columnNames;
 }
 
@@ -59,6 +63,10 @@ void TableStats::populateTableStatsSchema(
     types.push_back(VALUE_TYPE_BIGINT); columnLengths.push_back(NValue::getTupleStorageSize(VALUE_TYPE_BIGINT)); allowNull.push_back(false);inBytes.push_back(false);
     types.push_back(VALUE_TYPE_INTEGER); columnLengths.push_back(NValue::getTupleStorageSize(VALUE_TYPE_INTEGER)); allowNull.push_back(false);inBytes.push_back(false);
     types.push_back(VALUE_TYPE_INTEGER); columnLengths.push_back(NValue::getTupleStorageSize(VALUE_TYPE_INTEGER)); allowNull.push_back(false);inBytes.push_back(false);
+    types.push_back(VALUE_TYPE_BIGINT); columnLengths.push_back(NValue::getTupleStorageSize(VALUE_TYPE_BIGINT)); allowNull.push_back(false);inBytes.push_back(false);
+    types.push_back(VALUE_TYPE_INTEGER); columnLengths.push_back(NValue::getTupleStorageSize(VALUE_TYPE_INTEGER)); allowNull.push_back(false);inBytes.push_back(false);
+    types.push_back(VALUE_TYPE_BIGINT); columnLengths.push_back(NValue::getTupleStorageSize(VALUE_TYPE_BIGINT)); allowNull.push_back(false);inBytes.push_back(false);
+    types.push_back(VALUE_TYPE_BIGINT); columnLengths.push_back(NValue::getTupleStorageSize(VALUE_TYPE_BIGINT)); allowNull.push_back(false);inBytes.push_back(false);
 }
 
 TempTable* TableStats::generateEmptyTableStatsTable() {
@@ -86,7 +94,8 @@ TempTable* TableStats::generateEmptyTableStatsTable() {
 TableStats::TableStats(Table* table)
     : StatsSource(), m_table(table), m_lastTupleCount(0),
       m_lastAllocatedTupleMemory(0), m_lastOccupiedTupleMemory(0),
-      m_lastStringDataMemory(0)
+      m_lastStringDataMemory(0), m_lastEmptyTupleMemory(0),
+      m_lastCompactedTupleCount(0), m_lastCompactedBlockCount(0)
 {
 }
 
@@ -126,9 +135,21 @@ void TableStats::updateStatsTuple(TableTuple *tuple) {
     // This overflow is unlikely (requires 2 terabytes of allocated string memory)
     int64_t allocated_tuple_mem_kb = m_table->allocatedTupleMemory() / 1024;
     int64_t occupied_tuple_mem_kb = 0;
+    int64_t empty_tuple_mem_kb = 0;
+    int32_t percentFragmented = 0;
+    int64_t compactedTupleCount = 0;
+    int64_t compactedBlockCount = 0;
     PersistentTable* persistentTable = dynamic_cast<PersistentTable*>(m_table);
     if (persistentTable) {
         occupied_tuple_mem_kb = persistentTable->occupiedTupleMemory() / 1024;
+        empty_tuple_mem_kb = persistentTable->emptyTupleMemory() / 1024;
+        int64_t allocatedTupleCount = persistentTable->allocatedTupleCount();
+        if (allocatedTupleCount > 0) {
+            percentFragmented = static_cast<int32_t>(
+                    (allocatedTupleCount - persistentTable->activeTupleCount()) * 100 / allocatedTupleCount);
+        }
+        compactedTupleCount = persistentTable->compactedTupleCount();
+        compactedBlockCount = persistentTable->compactedBlockCount();
     }
     int64_t string_data_mem_kb = m_table->nonInlinedMemorySize() / 1024;
 
@@ -140,8 +161,15 @@ void TableStats::updateStatsTuple(TableTuple *tuple) {
         m_lastAllocatedTupleMemory = m_table->allocatedTupleMemory();
         occupied_tuple_mem_kb =
             occupied_tuple_mem_kb - (m_lastOccupiedTupleMemory / 1024);
+        empty_tuple_mem_kb =
+            empty_tuple_mem_kb - (m_lastEmptyTupleMemory / 1024);
+        compactedTupleCount = compactedTupleCount - m_lastCompactedTupleCount;
+        compactedBlockCount = compactedBlockCount - m_lastCompactedBlockCount;
         if (persistentTable) {
             m_lastOccupiedTupleMemory = persistentTable->occupiedTupleMemory();
+            m_lastEmptyTupleMemory = persistentTable->emptyTupleMemory();
+            m_lastCompactedTupleCount = persistentTable->compactedTupleCount();
+            m_lastCompactedBlockCount = persistentTable->compactedBlockCount();
         }
         string_data_mem_kb =
             string_data_mem_kb - (m_lastStringDataMemory / 1024);
@@ -166,6 +194,14 @@ void TableStats::updateStatsTuple(TableTuple *tuple) {
         percentage = static_cast<int32_t> (ceil(static_cast<double>(tupleCount) * 100.0 / tupleLimit));
     }
     tuple->setNValue(StatsSource::m_columnName2Index["PERCENT_FULL"],ValueFactory::getIntegerValue(percentage));
+    tuple->setNValue(StatsSource::m_columnName2Index["TUPLE_EMPTY_MEMORY"],
+            ValueFactory::getBigIntValue(empty_tuple_mem_kb));
+    tuple->setNValue(StatsSource::m_columnName2Index["PERCENT_FRAGMENTED"],
+            ValueFactory::getIntegerValue(percentFragmented));
+    tuple->setNValue(StatsSource::m_columnName2Index["TUPLES_COMPACTED"],
+            ValueFactory::getBigIntValue(compactedTupleCount));
+    tuple->setNValue(StatsSource::m_columnName2Index["BLOCKS_COMPACTED"],
+            ValueFactory::getBigIntValue(compactedBlockCount));
 }
 
 /**
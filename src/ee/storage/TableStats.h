@@ -97,6 +97,9 @@ private:
     int64_t m_lastAllocatedTupleMemory;
     int64_t m_lastOccupiedTupleMemory;
     int64_t m_lastStringDataMemory;
+    int64_t m_lastEmptyTupleMemory;
+    int64_t m_lastCompactedTupleCount;
+    int64_t m_lastCompactedBlockCount;
 };
 
 }
@@ -118,6 +118,9 @@ PersistentTable::PersistentTable(int partitionColumn,
     , m_blocksWithSpace()
     , m_tableStreamer()
     , m_failedCompactionCount(0)
+    , m_compactedTupleCount(0)
+    , m_compactedBlockCount(0)
+    , m_compactsInBackground(false)
     , m_invisibleTuplesPendingDeleteCount(0)
     , m_surgeon(*this)
     , m_tableForStreamIndexing(NULL)
@@ -1898,13 +1901,16 @@ bool PersistentTable::doCompactionWithinSubset(TBBucketPtrVector* bucketVector)
             return false;
         }
 
+        uint32_t lightestActiveTuples = lightest->activeTuples();
         std::pair<int, int> bucketChanges = fullest->merge(this, lightest, this);
+        m_compactedTupleCount += lightestActiveTuples - lightest->activeTuples();
         int tempFullestBucketChange = bucketChanges.first;
         if (tempFullestBucketChange != NO_NEW_BUCKET_INDEX) {
             fullestBucketChange = tempFullestBucketChange;
         }
 
         if (lightest->isEmpty()) {
+            m_compactedBlockCount++;
             notifyBlockWasCompactedAway(lightest);
             m_data.erase(lightest->address());
             m_blocksWithSpace.erase(lightest);
@@ -1938,6 +1944,29 @@ void PersistentTable::doIdleCompaction() {
     }
 }
 
+bool PersistentTable::doIncrementalCompaction(const boost::posix_time::ptime& deadline) {
+    m_compactsInBackground = true;
+    if (m_tableStreamer.get() != NULL && m_tableStreamer->hasStreamType(TABLE_STREAM_RECOVERY)) {
+        return false;
+    }
+    bool hadWork = true;
+    while (hadWork && compactionPredicate()) {
+        if (boost::posix_time::microsec_clock::universal_time() >= deadline) {
+            return true;
+        }
+        hadWork = false;
+        if (!m_blocksNotPendingSnapshot.empty() && doCompactionWithinSubset(&m_blocksNotPendingSnapshotLoad)) {
+            hadWork = true;
+        }
+        if (!m_blocksPendingSnapshot.empty() && doCompactionWithinSubset(&m_blocksPendingSnapshotLoad)) {
+            hadWork = true;
+        }
+    }
+    // When the predicate trips but no blocks are eligible, leave the
+    // reporting to doForcedCompaction rather than spinning here.
+    return false;
+}
+
 bool PersistentTable::doForcedCompaction() {
     if (m_tableStreamer.get() != NULL && m_tableStreamer->hasStreamType(TABLE_STREAM_RECOVERY)) {
         LogManager::getThreadLogger(LOGGERID_SQL)->log(LOGLEVEL_INFO,
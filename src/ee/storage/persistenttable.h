@@ -52,6 +52,7 @@
 #include <iostream>
 #include <boost/scoped_ptr.hpp>
 #include <boost/shared_ptr.hpp>
+#include <boost/date_time/posix_time/posix_time_types.hpp>
 #include "common/types.h"
 #include "common/ids.h"
 #include "common/valuevector.h"
@@ -73,6 +74,7 @@
 
 class CompactionTest_BasicCompaction;
 class CompactionTest_CompactionWithCopyOnWrite;
+class CompactionTest_IncrementalCompaction;
 class CopyOnWriteTest;
 
 namespace catalog {
@@ -207,6 +209,7 @@ class PersistentTable : public Table, public UndoQuantumReleaseInterest,
     friend class ::CopyOnWriteTest;
     friend class ::CompactionTest_BasicCompaction;
     friend class ::CompactionTest_CompactionWithCopyOnWrite;
+    friend class ::CompactionTest_IncrementalCompaction;
     friend class CoveringCellIndexTest_TableCompaction;
     friend class MaterializedViewHandler;
     friend class ScopedDeltaTableContext;
@@ -229,6 +232,15 @@ public:
         return m_tupleCount * m_tempTuple.tupleLength();
     }
 
+    // Memory in allocated blocks taken up by empty tuple slots
+    int64_t emptyTupleMemory() const {
+        return (allocatedTupleCount() - activeTupleCount()) * m_tempTuple.tupleLength();
+    }
+
+    // Tuples moved and blocks freed by compaction over the life of the table
+    int64_t compactedTupleCount() const { return m_compactedTupleCount; }
+    int64_t compactedBlockCount() const { return m_compactedBlockCount; }
+
     void signature(char const* signature) {
         ::memcpy(&m_signature, signature, 20);
     }
@@ -238,7 +250,7 @@ public:
     }
 
     void notifyQuantumRelease() {
-        if (compactionPredicate()) {
+        if (inlineCompactionPredicate()) {
             doForcedCompaction();
         }
     }
@@ -428,6 +440,14 @@ public:
 
     void doIdleCompaction();
 
+    /**
+     * Compact a block at a time until the compaction predicate is satisfied
+     * or the deadline passes. Once a table has been compacted this way,
+     * releasing an undo quantum only compacts inline as a last resort.
+     * Returns true if the table still needs compaction.
+     */
+    bool doIncrementalCompaction(const boost::posix_time::ptime& deadline);
+
     void printBucketInfo();
 
     void increaseStringMemCount(size_t bytes) {
@@ -626,6 +646,16 @@ private:
 
     bool doForcedCompaction();  // Returns true if a compaction was performed
 
+    bool inlineCompactionPredicate() {
+        if (!m_compactsInBackground) {
+            return compactionPredicate();
+        }
+        // Background compaction normally keeps up. Only compact inline when
+        // more than half of the allocated tuple slots are empty.
+        return compactionPredicate() &&
+               (allocatedTupleCount() - activeTupleCount()) * 2 > allocatedTupleCount();
+    }
+
     void insertIntoAllIndexes(TableTuple* tuple);
 
     void deleteFromAllIndexes(TableTuple* tuple);
@@ -794,6 +824,13 @@ private:
 
     int m_failedCompactionCount;
 
+    int64_t m_compactedTupleCount;
+
+    int64_t m_compactedBlockCount;
+
+    // Set once the site starts compacting this table incrementally
+    bool m_compactsInBackground;
+
     // This is a testability feature not intended for use in product logic.
     int m_invisibleTuplesPendingDeleteCount;
 
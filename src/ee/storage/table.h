@@ -156,8 +156,11 @@ class Table {
         return allocatedBlockCount() * m_tableAllocationSize;
     }
 
-    // Only counts persistent table usage, currently
-    int64_t nonInlinedMemorySize() const { return m_nonInlinedMemorySize; }
+    // Only counts persistent table usage, currently.
+    // Shared dictionary entries of encoded columns are counted once.
+    int64_t nonInlinedMemorySize() const {
+        return m_nonInlinedMemorySize + m_schema->getDictionaryMemorySize();
+    }
 
     virtual int tupleLimit() const { return INT_MIN; }
 
@@ -0,0 +1,1063 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+#ifndef BTREEMAP_H_
+#define BTREEMAP_H_
+
+#include "ContiguousAllocator.h"
+#include "CompactingMap.h"
+
+#include <cstdio>
+#include <cstdlib>
+#include <new>
+#include <stdint.h>
+#include <cassert>
+
+namespace voltdb {
+
+/**
+ * Cache-conscious B+tree with the same interface as CompactingMap, so that
+ * the tree indexes can be built on either one.
+ *
+ * All entries live in leaf nodes that are chained in key order, and inner
+ * nodes only hold separator keys and child pointers. Nodes are sized to a
+ * few cache lines, so a lookup touches a handful of contiguous nodes
+ * instead of one scattered node per comparison, and a scan walks the
+ * packed leaf arrays.
+ *
+ * Like CompactingMap, leaf and inner nodes are tightly packed into two
+ * ContiguousAllocators. When a node is released (after a merge or a root
+ * collapse), the last allocated node of the same kind is moved into the
+ * hole so that memory can be returned to the operating system.
+ *
+ * When hasRank is set, every inner node also keeps the number of entries
+ * below each of its children, which gives logarithmic rank lookups.
+ *
+ * Issues to be aware of:
+ * 1. Entries move within and between nodes, and nodes move in memory.
+ *    This uses assignment operators.
+ * 2. Iterators are invalidated by any map mutation.
+ * 3. Separator keys in inner nodes are copies of keys that may since have
+ *    been erased. Key types must therefore be plain values: keys that own
+ *    or reference out-of-line storage (GenericPersistentKey, TupleKey, or
+ *    GenericKey over non-inlined columns) must use CompactingMap instead.
+ */
+template<typename KeyValuePair, typename Compare, bool hasRank=false>
+class BTreeMap {
+    typedef typename KeyValuePair::first_type Key;
+    typedef typename KeyValuePair::second_type Data;
+protected:
+    // Target node footprint: eight 64-byte cache lines.
+    static const size_t NODE_BYTES = 512;
+
+    struct InnerNode;
+
+    struct NodeBase {
+        InnerNode *parent;
+        int32_t count;
+        bool isLeaf;
+
+        NodeBase(bool leaf) : parent(NULL), count(0), isLeaf(leaf) {}
+    };
+
+    enum {
+        // Each node keeps one spare slot so that an insert can overflow it
+        // before it gets split.
+        LEAF_SLOTS = (NODE_BYTES - sizeof(NodeBase) - 2 * sizeof(void*)) / sizeof(KeyValuePair),
+        LEAF_MAX = LEAF_SLOTS < 5 ? 4 : LEAF_SLOTS - 1,
+        LEAF_MIN = LEAF_MAX / 2,
+        INNER_SLOTS = (NODE_BYTES - sizeof(NodeBase) - 2 * sizeof(void*) - (hasRank ? 2 * sizeof(int64_t) : 0)) /
+                      (sizeof(Key) + sizeof(void*) + (hasRank ? sizeof(int64_t) : 0)),
+        INNER_MAX = INNER_SLOTS < 5 ? 4 : INNER_SLOTS - 1,
+        INNER_MIN = INNER_MAX / 2
+    };
+
+    struct LeafNode : public NodeBase {
+        LeafNode *prev;
+        LeafNode *next;
+        KeyValuePair kv[LEAF_MAX + 1];
+
+        LeafNode() : NodeBase(true), prev(NULL), next(NULL) {}
+
+        const Key &key(int i) const { return kv[i].getKey(); }
+    };
+
+    struct InnerNode : public NodeBase {
+        Key keys[INNER_MAX + 1];
+        NodeBase *children[INNER_MAX + 2];
+        // Number of entries below each child, only maintained with hasRank.
+        int64_t subct[hasRank ? INNER_MAX + 2 : 1];
+
+        InnerNode() : NodeBase(false) {}
+    };
+
+    int64_t m_count;
+    NodeBase *m_root;
+    ContiguousAllocator m_leafAllocator;
+    ContiguousAllocator m_innerAllocator;
+    bool m_unique;
+
+    // templated comparison function object
+    // follows STL conventions
+    Compare m_comper;
+
+public:
+    class iterator {
+        friend class BTreeMap<KeyValuePair, Compare, hasRank>;
+    protected:
+        // Kept to two words so that it fits in an IndexCursor.
+        LeafNode *m_leaf;
+        int32_t m_pos;
+        iterator(LeafNode *leaf, int32_t pos) : m_leaf(leaf), m_pos(pos) {}
+    public:
+        iterator() : m_leaf(NULL), m_pos(0) {}
+        iterator(const iterator &iter) : m_leaf(iter.m_leaf), m_pos(iter.m_pos) {}
+        const Key &key() const { return m_leaf->kv[m_pos].getKey(); }
+        const Data &value() const { return m_leaf->kv[m_pos].getValue(); }
+        void setValue(const Data &value) { m_leaf->kv[m_pos].setValue(value); }
+        void moveNext()
+        {
+            if (m_leaf == NULL) {
+                return;
+            }
+            if (++m_pos >= m_leaf->count) {
+                m_leaf = m_leaf->next;
+                m_pos = 0;
+            }
+        }
+        void movePrev()
+        {
+            if (m_leaf == NULL) {
+                return;
+            }
+            if (--m_pos < 0) {
+                m_leaf = m_leaf->prev;
+                m_pos = m_leaf ? m_leaf->count - 1 : 0;
+            }
+        }
+        bool isEnd() const { return (m_leaf == NULL); }
+        bool equals(const iterator &iter) const {
+            if (isEnd()) {
+                return iter.isEnd();
+            }
+            return m_leaf == iter.m_leaf && m_pos == iter.m_pos;
+        }
+    };
+
+    BTreeMap(bool unique, Compare comper);
+    ~BTreeMap();
+
+    bool insert(std::pair<Key, Data> value) { return (insert(value.first, value.second) == NULL); };
+    // Returns NULL on success, or the colliding data when a unique map already holds the key.
+    const Data *insert(const Key &key, const Data &data);
+    bool erase(const Key &key);
+    bool erase(iterator &iter);
+
+    iterator find(const Key &key) const;
+    iterator findRank(int64_t ith) const;
+    int64_t size() const { return m_count; }
+    iterator begin() const;
+    iterator rbegin() const;
+
+    iterator lowerBound(const Key &key) const;
+    iterator upperBound(const Key &key) const;
+
+    std::pair<iterator, iterator> equalRange(const Key &key) const;
+
+    size_t bytesAllocated() const
+    {
+        return m_leafAllocator.bytesAllocated() + m_innerAllocator.bytesAllocated();
+    }
+
+    // Must pass a key that already in map, or else return -1
+    int64_t rankLower(const Key& key) const;
+    int64_t rankUpper(const Key& key) const;
+
+    /**
+     * For debugging: verify the B+tree constraints are met. SLOW.
+     */
+    bool verify() const;
+    bool verifyRank() const;
+
+    /** Prefix for the type name of indexes built on this map. */
+    static const char *treeTypeName() { return "BTree"; }
+
+private:
+    LeafNode *newLeaf();
+    InnerNode *newInner();
+    void freeLeaf(LeafNode *x);
+    InnerNode *freeInner(InnerNode *x, InnerNode *tracked);
+    void destroy(NodeBase *node);
+
+    LeafNode *findLeaf(const Key &key, bool upper) const;
+    int32_t leafPosition(const LeafNode *leaf, const Key &key, bool upper) const;
+    iterator makeIterator(LeafNode *leaf, int32_t pos) const;
+
+    static int32_t childIndex(const InnerNode *parent, const NodeBase *child);
+    static int64_t subtreeCount(const NodeBase *node);
+    void adjustCounts(NodeBase *node, int64_t delta);
+
+    void eraseAt(LeafNode *leaf, int32_t pos);
+    void splitLeaf(LeafNode *leaf);
+    void insertIntoParent(NodeBase *left, const Key &separator, NodeBase *right);
+    void rebalanceLeaf(LeafNode *leaf);
+    void rebalanceInner(InnerNode *node);
+    void removeFromParent(InnerNode *parent, int32_t keyIndex);
+
+    int64_t countBelow(const Key &key, bool inclusive) const;
+
+    int verify(const NodeBase *node, const Key *low, const Key *high, int64_t *entries) const;
+};
+
+template<typename KeyValuePair, typename Compare, bool hasRank>
+BTreeMap<KeyValuePair, Compare, hasRank>::BTreeMap(bool unique, Compare comper)
+    : m_count(0),
+      m_root(NULL),
+      m_leafAllocator(static_cast<int>(sizeof(LeafNode)), static_cast<int>(512)),
+      m_innerAllocator(static_cast<int>(sizeof(InnerNode)), static_cast<int>(64)),
+      m_unique(unique),
+      m_comper(comper)
+{ }
+
+template<typename KeyValuePair, typename Compare, bool hasRank>
+BTreeMap<KeyValuePair, Compare, hasRank>::~BTreeMap()
+{
+    if (m_root != NULL) {
+        destroy(m_root);
+    }
+}
+
+template<typename KeyValuePair, typename Compare, bool hasRank>
+void BTreeMap<KeyValuePair, Compare, hasRank>::destroy(NodeBase *node)
+{
+    // The allocators release the memory; only run the destructors here.
+    if (node->isLeaf) {
+        static_cast<LeafNode*>(node)->~LeafNode();
+        return;
+    }
+    InnerNode *inner = static_cast<InnerNode*>(node);
+    for (int32_t i = 0; i <= inner->count; i++) {
+        destroy(inner->children[i]);
+    }
+    inner->~InnerNode();
+}
+
+template<typename KeyValuePair, typename Compare, bool hasRank>
+typename BTreeMap<KeyValuePair, Compare, hasRank>::LeafNode *
+BTreeMap<KeyValuePair, Compare, hasRank>::newLeaf()
+{
+    void *memory = m_leafAllocator.alloc();
+    assert(memory);
+    return new (memory) LeafNode();
+}
+
+template<typename KeyValuePair, typename Compare, bool hasRank>
+typename BTreeMap<KeyValuePair, Compare, hasRank>::InnerNode *
+BTreeMap<KeyValuePair, Compare, hasRank>::newInner()
+{
+    void *memory = m_innerAllocator.alloc();
+    assert(memory);
+    return new (memory) InnerNode();
+}
+
+/**
+ * Release a leaf that is no longer linked into the tree, moving the last
+ * allocated leaf into its slot to keep the allocator contiguous.
+ */
+template<typename KeyValuePair, typename Compare, bool hasRank>
+void BTreeMap<KeyValuePair, Compare, hasRank>::freeLeaf(LeafNode *x)
+{
+    LeafNode *last = static_cast<LeafNode*>(m_leafAllocator.last());
+    if (last != x) {
+        if (last->parent == NULL) {
+            assert(last == m_root);
+            m_root = x;
+        }
+        else {
+            last->parent->children[childIndex(last->parent, last)] = x;
+        }
+        if (last->prev != NULL) {
+            last->prev->next = x;
+        }
+        if (last->next != NULL) {
+            last->next->prev = x;
+        }
+        *x = *last;
+    }
+    last->~LeafNode();
+    m_leafAllocator.trim();
+}
+
+/**
+ * Release an inner node that is no longer linked into the tree, moving the
+ * last allocated inner node into its slot. Returns the (possibly new)
+ * address of the tracked node.
+ */
+template<typename KeyValuePair, typename Compare, bool hasRank>
+typename BTreeMap<KeyValuePair, Compare, hasRank>::InnerNode *
+BTreeMap<KeyValuePair, Compare, hasRank>::freeInner(InnerNode *x, InnerNode *tracked)
+{
+    InnerNode *last = static_cast<InnerNode*>(m_innerAllocator.last());
+    if (last != x) {
+        if (last->parent == NULL) {
+            assert(last == m_root);
+            m_root = x;
+        }
+        else {
+            last->parent->children[childIndex(last->parent, last)] = x;
+        }
+        for (int32_t i = 0; i <= last->count; i++) {
+            last->children[i]->parent = x;
+        }
+        *x = *last;
+        if (tracked == last) {
+            tracked = x;
+        }
+    }
+    last->~InnerNode();
+    m_innerAllocator.trim();
+    return tracked;
+}
+
+template<typename KeyValuePair, typename Compare, bool hasRank>
+inline int32_t BTreeMap<KeyValuePair, Compare, hasRank>::childIndex(const InnerNode *parent, const NodeBase *child)
+{
+    int32_t i = 0;
+    while (parent->children[i] != child) {
+        ++i;
+        assert(i <= parent->count);
+    }
+    return i;
+}
+
+template<typename KeyValuePair, typename Compare, bool hasRank>
+inline int64_t BTreeMap<KeyValuePair, Compare, hasRank>::subtreeCount(const NodeBase *node)
+{
+    if (node->isLeaf) {
+        return node->count;
+    }
+    const InnerNode *inner = static_cast<const InnerNode*>(node);
+    int64_t sum = 0;
+    for (int32_t i = 0; i <= inner->count; i++) {
+        sum += inner->subct[i];
+    }
+    return sum;
+}
+
+template<typename KeyValuePair, typename Compare, bool hasRank>
+inline void BTreeMap<KeyValuePair, Compare, hasRank>::adjustCounts(NodeBase *node, int64_t delta)
+{
+    if (!hasRank) {
+        return;
+    }
+    while (node->parent != NULL) {
+        node->parent->subct[childIndex(node->parent, node)] += delta;
+        node = node->parent;
+    }
+}
+
+/**
+ * Descend to the leaf that holds the first entry not less than key (or,
+ * with upper, the first entry greater than key) or its predecessor.
+ * Separator keys[i] is never less than any entry below children[i], and
+ * never greater than any entry below children[i + 1].
+ */
+template<typename KeyValuePair, typename Compare, bool hasRank>
+typename BTreeMap<KeyValuePair, Compare, hasRank>::LeafNode *
+BTreeMap<KeyValuePair, Compare, hasRank>::findLeaf(const Key &key, bool upper) const
+{
+    NodeBase *node = m_root;
+    while (!node->isLeaf) {
+        const InnerNode *inner = static_cast<const InnerNode*>(node);
+        int32_t low = 0;
+        int32_t high = inner->count;
+        while (low < high) {
+            int32_t mid = (low + high) >> 1;
+            int cmp = m_comper(inner->keys[mid], key);
+            if (cmp < 0 || (upper && cmp == 0)) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        node = inner->children[low];
+    }
+    return static_cast<LeafNode*>(node);
+}
+
+template<typename KeyValuePair, typename Compare, bool hasRank>
+inline int32_t
+BTreeMap<KeyValuePair, Compare, hasRank>::leafPosition(const LeafNode *leaf, const Key &key, bool upper) const
+{
+    int32_t low = 0;
+    int32_t high = leaf->count;
+    while (low < high) {
+        int32_t mid = (low + high) >> 1;
+        int cmp = m_comper(leaf->key(mid), key);
+        if (cmp < 0 || (upper && cmp == 0)) {
+            low = mid + 1;
+        }
+        else {
+            high = mid;
+        }
+    }
+    return low;
+}
+
+template<typename KeyValuePair, typename Compare, bool hasRank>
+inline typename BTreeMap<KeyValuePair, Compare, hasRank>::iterator
+BTreeMap<KeyValuePair, Compare, hasRank>::makeIterator(LeafNode *leaf, int32_t pos) const
+{
+    if (pos >= leaf->count) {
+        leaf = leaf->next;
+        pos = 0;
+    }
+    return iterator(leaf, pos);
+}
+
+template<typename KeyValuePair, typename Compare, bool hasRank>
+typename BTreeMap<KeyValuePair, Compare, hasRank>::iterator
+BTreeMap<KeyValuePair, Compare, hasRank>::begin() const
+{
+    if (m_count == 0) {
+        return iterator();
+    }
+    NodeBase *node = m_root;
+    while (!node->isLeaf) {
+        node = static_cast<InnerNode*>(node)->children[0];
+    }
+    return iterator(static_cast<LeafNode*>(node), 0);
+}
+
+template<typename KeyValuePair, typename Compare, bool hasRank>
+typename BTreeMap<KeyValuePair, Compare, hasRank>::iterator
+BTreeMap<KeyValuePair, Compare, hasRank>::rbegin() const
+{
+    if (m_count == 0) {
+        return iterator();
+    }
+    NodeBase *node = m_root;
+    while (!node->isLeaf) {
+        node = static_cast<InnerNode*>(node)->children[node->count];
+    }
+    return iterator(static_cast<LeafNode*>(node), node->count - 1);
+}
+
+template<typename KeyValuePair, typename Compare, bool hasRank>
+typename BTreeMap<KeyValuePair, Compare, hasRank>::iterator
+BTreeMap<KeyValuePair, Compare, hasRank>::lowerBound(const Key &key) const
+{
+    if (m_count == 0) {
+        return iterator();
+    }
+    LeafNode *leaf = findLeaf(key, false);
+    return makeIterator(leaf, leafPosition(leaf, key, false));
+}
+
+template<typename KeyValuePair, typename Compare, bool hasRank>
+typename BTreeMap<KeyValuePair, Compare, hasRank>::iterator
+BTreeMap<KeyValuePair, Compare, hasRank>::upperBound(const Key &key) const
+{
+    if (m_count == 0) {
+        return iterator();
+    }
+    Key tmpKey(key);
+    setPointerValue(tmpKey, MAXPOINTER);
+    LeafNode *leaf = findLeaf(tmpKey, true);
+    return makeIterator(leaf, leafPosition(leaf, tmpKey, true));
+}
+
+template<typename KeyValuePair, typename Compare, bool hasRank>
+typename std::pair<typename BTreeMap<KeyValuePair, Compare, hasRank>::iterator,
+                   typename BTreeMap<KeyValuePair, Compare, hasRank>::iterator>
+BTreeMap<KeyValuePair, Compare, hasRank>::equalRange(const Key &key) const
+{
+    return std::pair<iterator, iterator>(lowerBound(key), upperBound(key));
+}
+
+template<typename KeyValuePair, typename Compare, bool hasRank>
+typename BTreeMap<KeyValuePair, Compare, hasRank>::iterator
+BTreeMap<KeyValuePair, Compare, hasRank>::find(const Key &key) const
+{
+    iterator iter = lowerBound(key);
+    if (iter.isEnd() || m_comper(iter.key(), key) != 0) {
+        return iterator();
+    }
+    return iter;
+}
+
+template<typename KeyValuePair, typename Compare, bool hasRank>
+const typename BTreeMap<KeyValuePair, Compare, hasRank>::Data *
+BTreeMap<KeyValuePair, Compare, hasRank>::insert(const Key &key, const Data &value)
+{
+    if (m_root == NULL) {
+        m_root = newLeaf();
+    }
+
+    // New duplicates of non-unique keys go after the existing ones.
+    LeafNode *leaf = findLeaf(key, true);
+    int32_t pos = leafPosition(leaf, key, true);
+
+    if (m_unique) {
+        LeafNode *prevLeaf = leaf;
+        int32_t prevPos = pos - 1;
+        if (prevPos < 0 && leaf->prev != NULL) {
+            prevLeaf = leaf->prev;
+            prevPos = prevLeaf->count - 1;
+        }
+        if (prevPos >= 0 && m_comper(prevLeaf->key(prevPos), key) == 0) {
+            return &prevLeaf->kv[prevPos].getValue();
+        }
+    }
+
+    for (int32_t i = leaf->count; i > pos; i--) {
+        leaf->kv[i] = leaf->kv[i - 1];
+    }
+    leaf->kv[pos].setKeyValuePair(key, value);
+    leaf->count++;
+    m_count++;
+
+    if (leaf->count > LEAF_MAX) {
+        splitLeaf(leaf);
+    }
+    else {
+        adjustCounts(leaf, 1);
+    }
+    return NULL;
+}
+
+template<typename KeyValuePair, typename Compare, bool hasRank>
+void BTreeMap<KeyValuePair, Compare, hasRank>::splitLeaf(LeafNode *leaf)
+{
+    LeafNode *right = newLeaf();
+    int32_t keep = (leaf->count + 1) / 2;
+    for (int32_t i = keep; i < leaf->count; i++) {
+        right->kv[i - keep] = leaf->kv[i];
+        // Leave an empty entry behind.
+        leaf->kv[i].~KeyValuePair();
+        new (&leaf->kv[i]) KeyValuePair();
+    }
+    right->count = leaf->count - keep;
+    leaf->count = keep;
+
+    right->next = leaf->next;
+    right->prev = leaf;
+    if (leaf->next != NULL) {
+        leaf->next->prev = right;
+    }
+    leaf->next = right;
+
+    insertIntoParent(leaf, right->key(0), right);
+}
+
+/**
+ * Link a node produced by a split in after its left sibling. Rank counts
+ * for the two halves are set exactly and the new entry is counted in all
+ * ancestors above them.
+ */
+template<typename KeyValuePair, typename Compare, bool hasRank>
+void BTreeMap<KeyValuePair, Compare, hasRank>::insertIntoParent(NodeBase *left, const Key &separator, NodeBase *right)
+{
+    InnerNode *parent = left->parent;
+    if (parent == NULL) {
+        InnerNode *root = newInner();
+        root->keys[0] = separator;
+        root->children[0] = left;
+        root->children[1] = right;
+        if (hasRank) {
+            root->subct[0] = subtreeCount(left);
+            root->subct[1] = subtreeCount(right);
+        }
+        root->count = 1;
+        left->parent = root;
+        right->parent = root;
+        m_root = root;
+        return;
+    }
+
+    int32_t idx = childIndex(parent, left);
+    for (int32_t i = parent->count; i > idx; i--) {
+        parent->keys[i] = parent->keys[i - 1];
+        parent->children[i + 1] = parent->children[i];
+        if (hasRank) {
+            parent->subct[i + 1] = parent->subct[i];
+        }
+    }
+    parent->keys[idx] = separator;
+    parent->children[idx + 1] = right;
+    right->parent = parent;
+    if (hasRank) {
+        parent->subct[idx] = subtreeCount(left);
+        parent->subct[idx + 1] = subtreeCount(right);
+    }
+    parent->count++;
+
+    if (parent->count <= INNER_MAX) {
+        adjustCounts(parent, 1);
+        return;
+    }
+
+    // Split the parent, pushing its middle key up.
+    InnerNode *sibling = newInner();
+    int32_t mid = parent->count / 2;
+    int32_t moved = parent->count - mid - 1;
+    for (int32_t i = 0; i < moved; i++) {
+        sibling->keys[i] = parent->keys[mid + 1 + i];
+    }
+    for (int32_t i = 0; i <= moved; i++) {
+        sibling->children[i] = parent->children[mid + 1 + i];
+        sibling->children[i]->parent = sibling;
+        if (hasRank) {
+            sibling->subct[i] = parent->subct[mid + 1 + i];
+        }
+    }
+    sibling->count = moved;
+    parent->count = mid;
+    insertIntoParent(parent, parent->keys[mid], sibling);
+}
+
+template<typename KeyValuePair, typename Compare, bool hasRank>
+bool BTreeMap<KeyValuePair, Compare, hasRank>::erase(const Key &key)
+{
+    iterator iter = find(key);
+    if (iter.isEnd()) {
+        return false;
+    }
+    eraseAt(iter.m_leaf, iter.m_pos);
+    return true;
+}
+
+template<typename KeyValuePair, typename Compare, bool hasRank>
+bool BTreeMap<KeyValuePair, Compare, hasRank>::erase(iterator &iter)
+{
+    assert(!iter.isEnd());
+    eraseAt(iter.m_leaf, iter.m_pos);
+    return true;
+}
+
+template<typename KeyValuePair, typename Compare, bool hasRank>
+void BTreeMap<KeyValuePair, Compare, hasRank>::eraseAt(LeafNode *leaf, int32_t pos)
+{
+    // Shift the erased entry to the end of the leaf before destroying it,
+    // so that key types that own their storage release it exactly once.
+    for (int32_t i = pos; i < leaf->count - 1; i++) {
+        leaf->kv[i] = leaf->kv[i + 1];
+    }
+    leaf->count--;
+    leaf->kv[leaf->count].~KeyValuePair();
+    new (&leaf->kv[leaf->count]) KeyValuePair();
+    m_count--;
+    adjustCounts(leaf, -1);
+
+    if (leaf->parent == NULL) {
+        if (leaf->count == 0) {
+            freeLeaf(leaf);
+            m_root = NULL;
+        }
+        return;
+    }
+    if (leaf->count < LEAF_MIN) {
+        rebalanceLeaf(leaf);
+    }
+}
+
+/**
+ * Refill an underflowing leaf from a sibling under the same parent, or
+ * merge the two when the sibling has nothing to spare.
+ */
+template<typename KeyValuePair, typename Compare, bool hasRank>
+void BTreeMap<KeyValuePair, Compare, hasRank>::rebalanceLeaf(LeafNode *leaf)
+{
+    InnerNode *parent = leaf->parent;
+    int32_t idx = childIndex(parent, leaf);
+
+    if (idx > 0) {
+        LeafNode *left = static_cast<LeafNode*>(parent->children[idx - 1]);
+        if (left->count > LEAF_MIN) {
+            for (int32_t i = leaf->count; i > 0; i--) {
+                leaf->kv[i] = leaf->kv[i - 1];
+            }
+            leaf->kv[0] = left->kv[left->count - 1];
+            left->count--;
+            left->kv[left->count].~KeyValuePair();
+            new (&left->kv[left->count]) KeyValuePair();
+            leaf->count++;
+            parent->keys[idx - 1] = leaf->key(0);
+            if (hasRank) {
+                parent->subct[idx - 1]--;
+                parent->subct[idx]++;
+            }
+            return;
+        }
+    }
+    if (idx < parent->count) {
+        LeafNode *right = static_cast<LeafNode*>(parent->children[idx + 1]);
+        if (right->count > LEAF_MIN) {
+            leaf->kv[leaf->count] = right->kv[0];
+            leaf->count++;
+            for (int32_t i = 0; i < right->count - 1; i++) {
+                right->kv[i] = right->kv[i + 1];
+            }
+            right->count--;
+            right->kv[right->count].~KeyValuePair();
+            new (&right->kv[right->count]) KeyValuePair();
+            parent->keys[idx] = right->key(0);
+            if (hasRank) {
+                parent->subct[idx]++;
+                parent->subct[idx + 1]--;
+            }
+            return;
+        }
+    }
+
+    // Merge the right one of the pair into the left one.
+    int32_t keyIndex = (idx > 0) ? idx - 1 : idx;
+    LeafNode *left = static_cast<LeafNode*>(parent->children[keyIndex]);
+    LeafNode *right = static_cast<LeafNode*>(parent->children[keyIndex + 1]);
+    for (int32_t i = 0; i < right->count; i++) {
+        left->kv[left->count + i] = right->kv[i];
+    }
+    left->count += right->count;
+    left->next = right->next;
+    if (right->next != NULL) {
+        right->next->prev = left;
+    }
+    if (hasRank) {
+        parent->subct[keyIndex] = left->count;
+    }
+    removeFromParent(parent, keyIndex);
+    freeLeaf(right);
+    rebalanceInner(parent);
+}
+
+/**
+ * Drop separator keyIndex and the child to its right from an inner node.
+ */
+template<typename KeyValuePair, typename Compare, bool hasRank>
+void BTreeMap<KeyValuePair, Compare, hasRank>::removeFromParent(InnerNode *parent, int32_t keyIndex)
+{
+    for (int32_t i = keyIndex; i < parent->count - 1; i++) {
+        parent->keys[i] = parent->keys[i + 1];
+        parent->children[i + 1] = parent->children[i + 2];
+        if (hasRank) {
+            parent->subct[i + 1] = parent->subct[i + 2];
+        }
+    }
+    parent->count--;
+}
+
+template<typename KeyValuePair, typename Compare, bool hasRank>
+void BTreeMap<KeyValuePair, Compare, hasRank>::rebalanceInner(InnerNode *node)
+{
+    if (node->parent == NULL) {
+        if (node->count == 0) {
+            // Collapse the root.
+            m_root = node->children[0];
+            m_root->parent = NULL;
+            freeInner(node, NULL);
+        }
+        return;
+    }
+    if (node->count >= INNER_MIN) {
+        return;
+    }
+
+    InnerNode *parent = node->parent;
+    int32_t idx = childIndex(parent, node);
+
+    if (idx > 0) {
+        InnerNode *left = static_cast<InnerNode*>(parent->children[idx - 1]);
+        if (left->count > INNER_MIN) {
+            // Rotate the last child of the left sibling through the parent.
+            for (int32_t i = node->count; i > 0; i--) {
+                node->keys[i] = node->keys[i - 1];
+            }
+            for (int32_t i = node->count + 1; i > 0; i--) {
+                node->children[i] = node->children[i - 1];
+                if (hasRank) {
+                    node->subct[i] = node->subct[i - 1];
+                }
+            }
+            node->keys[0] = parent->keys[idx - 1];
+            node->children[0] = left->children[left->count];
+            node->children[0]->parent = node;
+            if (hasRank) {
+                node->subct[0] = left->subct[left->count];
+                parent->subct[idx - 1] -= node->subct[0];
+                parent->subct[idx] += node->subct[0];
+            }
+            node->count++;
+            parent->keys[idx - 1] = left->keys[left->count - 1];
+            left->count--;
+            return;
+        }
+    }
+    if (idx < parent->count) {
+        InnerNode *right = static_cast<InnerNode*>(parent->children[idx + 1]);
+        if (right->count > INNER_MIN) {
+            // Rotate the first child of the right sibling through the parent.
+            node->keys[node->count] = parent->keys[idx];
+            node->children[node->count + 1] = right->children[0];
+            node->children[node->count + 1]->parent = node;
+            if (hasRank) {
+                node->subct[node->count + 1] = right->subct[0];
+                parent->subct[idx] += right->subct[0];
+                parent->subct[idx + 1] -= right->subct[0];
+            }
+            node->count++;
+            parent->keys[idx] = right->keys[0];
+            for (int32_t i = 0; i < right->count - 1; i++) {
+                right->keys[i] = right->keys[i + 1];
+            }
+            for (int32_t i = 0; i < right->count; i++) {
+                right->children[i] = right->children[i + 1];
+                if (hasRank) {
+                    right->subct[i] = right->subct[i + 1];
+                }
+            }
+            right->count--;
+            return;
+        }
+    }
+
+    // Merge the right one of the pair into the left one, pulling down the separator.
+    int32_t keyIndex = (idx > 0) ? idx - 1 : idx;
+    InnerNode *left = static_cast<InnerNode*>(parent->children[keyIndex]);
+    InnerNode *right = static_cast<InnerNode*>(parent->children[keyIndex + 1]);
+    left->keys[left->count] = parent->keys[keyIndex];
+    for (int32_t i = 0; i < right->count; i++) {
+        left->keys[left->count + 1 + i] = right->keys[i];
+    }
+    for (int32_t i = 0; i <= right->count; i++) {
+        left->children[left->count + 1 + i] = right->children[i];
+        left->children[left->count + 1 + i]->parent = left;
+        if (hasRank) {
+            left->subct[left->count + 1 + i] = right->subct[i];
+        }
+    }
+    left->count += right->count + 1;
+    if (hasRank) {
+        parent->subct[keyIndex] += parent->subct[keyIndex + 1];
+    }
+    removeFromParent(parent, keyIndex);
+    parent = freeInner(right, parent);
+    rebalanceInner(parent);
+}
+
+template<typename KeyValuePair, typename Compare, bool hasRank>
+typename BTreeMap<KeyValuePair, Compare, hasRank>::iterator
+BTreeMap<KeyValuePair, Compare, hasRank>::findRank(int64_t ith) const
+{
+    if ((!hasRank) || ith < 1 || ith > m_count) {
+        return iterator();
+    }
+    NodeBase *node = m_root;
+    while (!node->isLeaf) {
+        const InnerNode *inner = static_cast<const InnerNode*>(node);
+        int32_t i = 0;
+        while (i < inner->count && ith > inner->subct[i]) {
+            ith -= inner->subct[i];
+            ++i;
+        }
+        node = inner->children[i];
+    }
+    return iterator(static_cast<LeafNode*>(node), static_cast<int32_t>(ith - 1));
+}
+
+/**
+ * Count the entries whose key, compared regardless of any tuple pointer,
+ * sorts before key (or, when inclusive, not after it).
+ */
+template<typename KeyValuePair, typename Compare, bool hasRank>
+int64_t BTreeMap<KeyValuePair, Compare, hasRank>::countBelow(const Key &key, bool inclusive) const
+{
+    int64_t ct = 0;
+    const NodeBase *node = m_root;
+    while (!node->isLeaf) {
+        const InnerNode *inner = static_cast<const InnerNode*>(node);
+        int32_t i = 0;
+        while (i < inner->count) {
+            int cmp = m_comper.compareWithoutPointer(inner->keys[i], key);
+            if (cmp > 0 || (cmp == 0 && !inclusive)) {
+                break;
+            }
+            ct += inner->subct[i];
+            ++i;
+        }
+        node = inner->children[i];
+    }
+    const LeafNode *leaf = static_cast<const LeafNode*>(node);
+    for (int32_t i = 0; i < leaf->count; i++) {
+        int cmp = m_comper.compareWithoutPointer(leaf->key(i), key);
+        if (cmp > 0 || (cmp == 0 && !inclusive)) {
+            break;
+        }
+        ++ct;
+    }
+    return ct;
+}
+
+template<typename KeyValuePair, typename Compare, bool hasRank>
+int64_t BTreeMap<KeyValuePair, Compare, hasRank>::rankLower(const Key& key) const
+{
+    if (!hasRank) {
+        return -1;
+    }
+    // return -1 if the key passed in is not in the map
+    if (find(key).isEnd()) {
+        return -1;
+    }
+    return countBelow(key, false) + 1;
+}
+
+template<typename KeyValuePair, typename Compare, bool hasRank>
+int64_t BTreeMap<KeyValuePair, Compare, hasRank>::rankUpper(const Key& key) const
+{
+    if (!hasRank) {
+        return -1;
+    }
+    if (m_unique) {
+        return rankLower(key);
+    }
+    // return -1 if the key passed in is not in the map
+    if (find(key).isEnd()) {
+        return -1;
+    }
+    return countBelow(key, true);
+}
+
+template<typename KeyValuePair, typename Compare, bool hasRank>
+bool BTreeMap<KeyValuePair, Compare, hasRank>::verifyRank() const
+{
+    if (!hasRank) {
+        return true;
+    }
+
+    int64_t i = 0;
+    for (iterator it = begin(); !it.isEnd(); it.moveNext()) {
+        ++i;
+        iterator byRank = findRank(i);
+        if (!byRank.equals(it)) {
+            printf("false: findRank(%ld) does not match the iteration order\n", (long)i);
+            return false;
+        }
+        int64_t rkLower = rankLower(it.key());
+        int64_t rkUpper = rankUpper(it.key());
+        if (rkLower > i || rkUpper < i) {
+            printf("false: rank %ld is outside of [%ld, %ld]\n", (long)i, (long)rkLower, (long)rkUpper);
+            return false;
+        }
+        if (m_unique && rkLower != i) {
+            printf("false: unique_rankLower expected %ld, but got %ld\n", (long)i, (long)rkLower);
+            return false;
+        }
+    }
+    return i == m_count;
+}
+
+template<typename KeyValuePair, typename Compare, bool hasRank>
+bool BTreeMap<KeyValuePair, Compare, hasRank>::verify() const
+{
+    if (m_root == NULL) {
+        return m_count == 0 && m_leafAllocator.count() == 0 && m_innerAllocator.count() == 0;
+    }
+    if (m_root->parent != NULL) {
+        return false;
+    }
+    int64_t entries = 0;
+    if (verify(m_root, NULL, NULL, &entries) < 0) {
+        return false;
+    }
+    if (entries != m_count) {
+        return false;
+    }
+
+    // the leaf chain must visit every entry in order
+    int64_t chained = 0;
+    const Key *prev = NULL;
+    for (iterator it = begin(); !it.isEnd(); it.moveNext()) {
+        if (prev && m_comper(*prev, it.key()) > 0) {
+            return false;
+        }
+        if (prev && m_unique && m_comper(*prev, it.key()) == 0) {
+            return false;
+        }
+        prev = &it.key();
+        ++chained;
+    }
+    return chained == m_count;
+}
+
+/**
+ * Check one subtree against the separator bounds it was reached through.
+ * Returns the height of the subtree, or -1 when a constraint is broken.
+ */
+template<typename KeyValuePair, typename Compare, bool hasRank>
+int BTreeMap<KeyValuePair, Compare, hasRank>::verify(const NodeBase *node, const Key *low, const Key *high,
+                                                    int64_t *entries) const
+{
+    bool isRoot = (node == m_root);
+    if (node->isLeaf) {
+        const LeafNode *leaf = static_cast<const LeafNode*>(node);
+        if (leaf->count > LEAF_MAX || leaf->count < (isRoot ? 1 : LEAF_MIN)) {
+            return -1;
+        }
+        for (int32_t i = 0; i < leaf->count; i++) {
+            if (low && m_comper(*low, leaf->key(i)) > 0) {
+                return -1;
+            }
+            if (high && m_comper(leaf->key(i), *high) > 0) {
+                return -1;
+            }
+        }
+        *entries += leaf->count;
+        return 0;
+    }
+
+    const InnerNode *inner = static_cast<const InnerNode*>(node);
+    if (inner->count > INNER_MAX || inner->count < (isRoot ? 1 : INNER_MIN)) {
+        return -1;
+    }
+    int height = -1;
+    for (int32_t i = 0; i <= inner->count; i++) {
+        const NodeBase *child = inner->children[i];
+        if (child->parent != inner) {
+            return -1;
+        }
+        int64_t childEntries = 0;
+        int childHeight = verify(child,
+                                 (i == 0) ? low : &inner->keys[i - 1],
+                                 (i == inner->count) ? high : &inner->keys[i],
+                                 &childEntries);
+        if (childHeight < 0 || (height >= 0 && childHeight != height)) {
+            return -1;
+        }
+        height = childHeight;
+        if (hasRank && inner->subct[i] != childEntries) {
+            printf("node counter is not correct, expected %ld but get %ld\n",
+                   (long)childEntries, (long)inner->subct[i]);
+            return -1;
+        }
+        *entries += childEntries;
+    }
+    return height + 1;
+}
+
+} // namespace voltdb
+
+#endif // BTREEMAP_H_
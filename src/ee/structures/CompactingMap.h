@@ -238,6 +238,9 @@ public:
     /** Do we have a cached last buffer?  This is used in testing. */
     bool hasCachedLastBuffer() const { return (m_allocator.hasCachedLastBuffer()); }
 
+    /** Prefix for the type name of indexes built on this map. */
+    static const char *treeTypeName() { return "CompactingTree"; }
+
 protected:
     // main internal functions
     void erase(TreeNode *z);
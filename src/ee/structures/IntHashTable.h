@@ -0,0 +1,280 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+#ifndef INTHASHTABLE_H_
+#define INTHASHTABLE_H_
+
+#include <cassert>
+#include <cstdlib>
+#include <cstring>
+#include <new>
+#include <stdint.h>
+
+namespace voltdb {
+
+/**
+ * IntHashTable is a unique map from raw 64-bit integer keys to values, for
+ * index keys that pack into a single word. Compared with CompactingHashTable:
+ *
+ * 1. It uses open addressing with linear probing over one array of
+ *    key/value slots, so a lookup is one multiply to find the home slot and
+ *    then a scan over neighboring slots, usually within one cache line,
+ *    instead of a walk down a chain of separately allocated nodes.
+ * 2. Keys are compared as integers. There are no hasher or equality functors.
+ * 3. Deletes shift later entries of the probe run back instead of leaving
+ *    tombstones, and the slot array halves when it gets sparse, so memory
+ *    shrinks as entries are removed.
+ * 4. The zero-initialized value (NULL for pointers) marks an empty slot, so
+ *    it can not be stored as a value.
+ */
+template<typename Data>
+class IntHashTable {
+public:
+    // grow when the table is 70% full (new table will be 35% full)
+    static const uint64_t MAX_LOAD_FACTOR = 70; // %
+    // shrink when the table is 15% full (new table will be 30% full)
+    static const uint64_t MIN_LOAD_FACTOR = 15; // %
+    // never go below 1024 slots (16KB with pointer values)
+    static const int MIN_SIZE_BITS = 10;
+
+protected:
+    struct Slot {
+        uint64_t key;
+        Data value;
+    };
+
+    Slot *m_slots;      // power-of-two sized slot array, zeroed when empty
+    int m_sizeBits;     // log2 of the slot count
+    uint64_t m_mask;    // slot count - 1
+    uint64_t m_count;   // number of entries
+
+public:
+    /**
+     * Iterator over the (at most one) entry for a key.
+     */
+    class iterator {
+        friend class IntHashTable;
+    protected:
+        Slot *m_slot;
+        iterator(const Slot *slot) : m_slot(const_cast<Slot*>(slot)) {}
+    public:
+        iterator() : m_slot(NULL) {}
+        iterator(const iterator &iter) : m_slot(iter.m_slot) {}
+        uint64_t key() const { return m_slot->key; }
+        Data &value() const { return m_slot->value; }
+        void setValue(const Data &value) { assert(value != Data()); m_slot->value = value; }
+        // keys are unique, so there is never a next entry with the same key
+        void moveNext() { m_slot = NULL; }
+        bool isEnd() const { return (!m_slot); }
+        bool equals(iterator &iter) const { return m_slot == iter.m_slot; }
+    };
+
+    IntHashTable();
+    ~IntHashTable();
+
+    iterator find(uint64_t key) const;
+    /** Returns NULL on success, or the colliding value when the key is already present. */
+    const Data *insert(uint64_t key, const Data &value);
+    bool erase(uint64_t key);
+    bool erase(iterator &iter);
+
+    size_t size() const { return m_count; }
+    size_t bytesAllocated() const { return sizeof(Slot) * (m_mask + 1); }
+
+    /** verification for debugging and testing */
+    bool verify() const;
+
+protected:
+    /** Fibonacci hashing: the high bits of key * 2^64/phi pick the home slot. */
+    uint64_t homeSlot(uint64_t key) const { return (key * 0x9E3779B97F4A7C15ULL) >> (64 - m_sizeBits); }
+    bool isEmpty(const Slot &slot) const { return slot.value == Data(); }
+
+    static Slot *allocateSlots(int sizeBits);
+    static void freeSlots(Slot *slots);
+    void removeAt(uint64_t pos);
+    void resize(int sizeBits);
+};
+
+template<typename Data>
+IntHashTable<Data>::IntHashTable()
+    : m_slots(allocateSlots(MIN_SIZE_BITS)),
+      m_sizeBits(MIN_SIZE_BITS),
+      m_mask((1ULL << MIN_SIZE_BITS) - 1),
+      m_count(0)
+{ }
+
+template<typename Data>
+IntHashTable<Data>::~IntHashTable()
+{
+    freeSlots(m_slots);
+}
+
+template<typename Data>
+typename IntHashTable<Data>::Slot *IntHashTable<Data>::allocateSlots(int sizeBits)
+{
+    // zeroed memory marks every slot empty
+    void *memory = calloc(size_t(1) << sizeBits, sizeof(Slot));
+    if (memory == NULL) {
+        throw std::bad_alloc();
+    }
+    return static_cast<Slot*>(memory);
+}
+
+template<typename Data>
+void IntHashTable<Data>::freeSlots(Slot *slots)
+{
+    free(slots);
+}
+
+template<typename Data>
+typename IntHashTable<Data>::iterator IntHashTable<Data>::find(uint64_t key) const
+{
+    uint64_t pos = homeSlot(key);
+    while (true) {
+        const Slot &slot = m_slots[pos];
+        if (isEmpty(slot)) {
+            return iterator();
+        }
+        if (slot.key == key) {
+            return iterator(&slot);
+        }
+        pos = (pos + 1) & m_mask;
+    }
+}
+
+template<typename Data>
+const Data *IntHashTable<Data>::insert(uint64_t key, const Data &value)
+{
+    assert(value != Data());
+    uint64_t pos = homeSlot(key);
+    while (!isEmpty(m_slots[pos])) {
+        if (m_slots[pos].key == key) {
+            return &m_slots[pos].value;
+        }
+        pos = (pos + 1) & m_mask;
+    }
+
+    if ((m_count + 1) * 100 > (m_mask + 1) * MAX_LOAD_FACTOR) {
+        resize(m_sizeBits + 1);
+        pos = homeSlot(key);
+        while (!isEmpty(m_slots[pos])) {
+            pos = (pos + 1) & m_mask;
+        }
+    }
+    m_slots[pos].key = key;
+    m_slots[pos].value = value;
+    m_count++;
+    return NULL;
+}
+
+template<typename Data>
+bool IntHashTable<Data>::erase(uint64_t key)
+{
+    iterator iter = find(key);
+    if (iter.isEnd()) {
+        return false;
+    }
+    return erase(iter);
+}
+
+template<typename Data>
+bool IntHashTable<Data>::erase(iterator &iter)
+{
+    assert(!iter.isEnd());
+    removeAt(iter.m_slot - m_slots);
+    iter.m_slot = NULL;
+
+    if (m_sizeBits > MIN_SIZE_BITS && m_count * 100 < (m_mask + 1) * MIN_LOAD_FACTOR) {
+        resize(m_sizeBits - 1);
+    }
+    return true;
+}
+
+/**
+ * Empty a slot, then walk the rest of its probe run and move back every
+ * entry whose home slot is not between the hole and its current slot, so
+ * that all entries stay reachable without tombstones.
+ */
+template<typename Data>
+void IntHashTable<Data>::removeAt(uint64_t hole)
+{
+    uint64_t pos = hole;
+    while (true) {
+        pos = (pos + 1) & m_mask;
+        if (isEmpty(m_slots[pos])) {
+            break;
+        }
+        uint64_t home = homeSlot(m_slots[pos].key);
+        // distance from home to the hole vs from home to the current slot, modulo the table size
+        if (((hole - home) & m_mask) < ((pos - home) & m_mask)) {
+            m_slots[hole] = m_slots[pos];
+            hole = pos;
+        }
+    }
+    m_slots[hole].key = 0;
+    m_slots[hole].value = Data();
+    m_count--;
+}
+
+template<typename Data>
+void IntHashTable<Data>::resize(int sizeBits)
+{
+    Slot *oldSlots = m_slots;
+    uint64_t oldSize = m_mask + 1;
+
+    m_slots = allocateSlots(sizeBits);
+    m_sizeBits = sizeBits;
+    m_mask = (1ULL << sizeBits) - 1;
+
+    for (uint64_t i = 0; i < oldSize; i++) {
+        if (isEmpty(oldSlots[i])) {
+            continue;
+        }
+        uint64_t pos = homeSlot(oldSlots[i].key);
+        while (!isEmpty(m_slots[pos])) {
+            pos = (pos + 1) & m_mask;
+        }
+        m_slots[pos] = oldSlots[i];
+    }
+    freeSlots(oldSlots);
+}
+
+template<typename Data>
+bool IntHashTable<Data>::verify() const
+{
+    uint64_t count = 0;
+    for (uint64_t i = 0; i <= m_mask; i++) {
+        if (isEmpty(m_slots[i])) {
+            continue;
+        }
+        count++;
+        // every slot from the home slot up to this one must be occupied
+        for (uint64_t pos = homeSlot(m_slots[i].key); pos != i; pos = (pos + 1) & m_mask) {
+            if (isEmpty(m_slots[pos])) {
+                return false;
+            }
+        }
+        if (find(m_slots[i].key).m_slot != &m_slots[i]) {
+            return false;
+        }
+    }
+    return count == m_count;
+}
+
+} // namespace voltdb
+
+#endif // INTHASHTABLE_H_
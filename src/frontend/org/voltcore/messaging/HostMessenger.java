@@ -66,6 +66,7 @@ import org.voltcore.agreement.InterfaceToMessenger;
 import org.voltcore.common.Constants;
 import org.voltcore.logging.VoltLogger;
 import org.voltcore.network.CipherExecutor;
+import org.voltcore.network.NetworkTransport;
 import org.voltcore.network.PicoNetwork;
 import org.voltcore.network.TLSPicoNetwork;
 import org.voltcore.network.VoltNetworkPool;
@@ -132,6 +133,7 @@ public class HostMessenger implements SocketJoiner.JoinHandler, InterfaceToMesse
 
         private static final String ACCEPTOR = "acceptor";
         private static final String NETWORK_THREADS = "networkThreads";
+        private static final String NETWORK_TRANSPORT = "networkTransport";
         private static final String BACKWARDS_TIME_FORGIVENESS_WINDOW = "backwardstimeforgivenesswindow";
         private static final String DEAD_HOST_TIMEOUT = "deadhosttimeout";
         private static final String INTERNAL_PORT = "internalport";
@@ -150,6 +152,7 @@ public class HostMessenger implements SocketJoiner.JoinHandler, InterfaceToMesse
         public VoltMessageFactory factory = new VoltMessageFactory();
         public int networkThreads =  Math.max(2, CoreUtils.availableProcessors() / 4);
         public Queue<String> coreBindIds;
+        public NetworkTransport transport = NetworkTransport.NIO;
         public JoinAcceptor acceptor = null;
         public String group = AbstractTopology.PLACEMENT_GROUP_DEFAULT;
         public int localSitesCount;
@@ -241,6 +244,7 @@ public class HostMessenger implements SocketJoiner.JoinHandler, InterfaceToMesse
                 js.keySymbolValuePair(DEAD_HOST_TIMEOUT, deadHostTimeout);
                 js.keySymbolValuePair(BACKWARDS_TIME_FORGIVENESS_WINDOW, backwardsTimeForgivenessWindow);
                 js.keySymbolValuePair(NETWORK_THREADS, networkThreads);
+                js.keySymbolValuePair(NETWORK_TRANSPORT, transport.name());
                 js.key(ACCEPTOR).value(acceptor);
                 js.keySymbolValuePair(LOCAL_SITES_COUNT, localSitesCount);
                 js.endObject();
@@ -383,7 +387,8 @@ public class HostMessenger implements SocketJoiner.JoinHandler, InterfaceToMesse
         m_config = config;
         m_hostWatcher = hostWatcher;
         m_sslContext = sslContext;
-        m_network = new VoltNetworkPool(m_config.networkThreads, 0, m_config.coreBindIds, "Server");
+        m_network = new VoltNetworkPool(m_config.networkThreads, 0, m_config.coreBindIds, "Server",
+                m_config.transport);
         m_acceptor = config.acceptor;
         //This ref is updated after the mesh decision is made.
         m_paused.set(m_config.startPause);
@@ -0,0 +1,400 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltcore.network;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.voltcore.logging.VoltLogger;
+
+import com.sun.jna.Memory;
+import com.sun.jna.Native;
+import com.sun.jna.Platform;
+import com.sun.jna.Pointer;
+
+/**
+ * {@link NetworkSelector} calling Linux epoll directly through JNA.
+ *
+ * <p>Compared to the JDK selector there is no selector lock, no selected key set and no
+ * per-selection garbage: ready events land in a preallocated native array and are mapped
+ * straight to their keys through a table indexed by file descriptor. Interest changes are
+ * recorded on the key and only installed right before the next epoll_wait, so the
+ * clear-then-restore of interest ops around every port dispatch costs no system call.
+ * Wakeups go through an eventfd and are coalesced until the selector has consumed them.
+ *
+ * <p>Registrations are level triggered. {@link VoltPort} bounds every read by
+ * {@link InputHandler#getMaxRead()} and may leave data in the socket, which edge triggered
+ * notification would never report again.
+ */
+final class EpollNetworkSelector extends NetworkSelector {
+    private static final VoltLogger networkLog = new VoltLogger("NETWORK");
+
+    private static final int EPOLL_CLOEXEC = 02000000;
+    private static final int EFD_NONBLOCK = 04000;
+    private static final int EFD_CLOEXEC = 02000000;
+    private static final int EPOLL_CTL_ADD = 1;
+    private static final int EPOLL_CTL_DEL = 2;
+    private static final int EPOLL_CTL_MOD = 3;
+    private static final int EPOLLIN = 0x001;
+    private static final int EPOLLOUT = 0x004;
+    private static final int EPOLLERR = 0x008;
+    private static final int EPOLLHUP = 0x010;
+    private static final int EINTR = 4;
+
+    // struct epoll_event is packed on x86_64 only
+    private static final int EVENT_SIZE = Platform.isIntel() ? 12 : 16;
+    private static final int EVENT_DATA_OFFSET = Platform.isIntel() ? 4 : 8;
+    private static final int MAX_EVENTS = Integer.getInteger("EPOLL_MAX_EVENTS", 1024);
+    private static final long WAKEUP_DATA = -1L;
+
+    private static final Method s_getFDVal;
+    private static final Throwable s_unavailableCause;
+    static {
+        Method getFDVal = null;
+        Throwable cause = null;
+        try {
+            if (!Platform.isLinux() || !Platform.is64Bit()) {
+                throw new UnsupportedOperationException("epoll requires 64 bit Linux");
+            }
+            Native.register("c");
+            getFDVal = Class.forName("sun.nio.ch.SelChImpl").getMethod("getFDVal");
+            int epfd = epoll_create1(EPOLL_CLOEXEC);
+            if (epfd < 0) {
+                throw new IOException("epoll_create1 failed, errno " + Native.getLastError());
+            }
+            close(epfd);
+        } catch (Throwable t) {
+            cause = t;
+            getFDVal = null;
+        }
+        s_getFDVal = getFDVal;
+        s_unavailableCause = cause;
+    }
+
+    static native int epoll_create1(int flags);
+    static native int epoll_ctl(int epfd, int op, int fd, Pointer event);
+    static native int epoll_wait(int epfd, Pointer events, int maxevents, int timeout);
+    static native int eventfd(int initval, int flags);
+    static native long read(int fd, Pointer buf, long count);
+    static native long write(int fd, Pointer buf, long count);
+    static native int close(int fd);
+
+    /**
+     * @return null if epoll can be used, else the reason why it can't
+     */
+    static Throwable unavailabilityCause() {
+        return s_unavailableCause;
+    }
+
+    private final int m_epfd;
+    private final int m_wakeupfd;
+    private final AtomicBoolean m_wakeupPending = new AtomicBoolean(false);
+    private final Memory m_events = new Memory((long)MAX_EVENTS * EVENT_SIZE);
+    private final Memory m_ctlEvent = new Memory(EVENT_SIZE);
+    // eventfd counter drained by the network thread
+    private final Memory m_wakeupBuffer = new Memory(8);
+    // eventfd increment written by waking threads, never modified
+    private final Memory m_wakeupIncrement = new Memory(8);
+
+    // Registered keys indexed by file descriptor
+    private EpollKey[] m_keysByFd = new EpollKey[1024];
+    private final ArrayList<EpollKey> m_pendingUpdates = new ArrayList<>();
+    private final EpollKey[] m_selectedKeys = new EpollKey[MAX_EVENTS];
+    private int m_numSelectedKeys = 0;
+    private volatile boolean m_closed = false;
+
+    EpollNetworkSelector() throws IOException {
+        if (s_unavailableCause != null) {
+            throw new IOException("epoll is not available", s_unavailableCause);
+        }
+        m_epfd = epoll_create1(EPOLL_CLOEXEC);
+        if (m_epfd < 0) {
+            throw new IOException("epoll_create1 failed, errno " + Native.getLastError());
+        }
+        m_wakeupfd = eventfd(0, EFD_NONBLOCK | EFD_CLOEXEC);
+        if (m_wakeupfd < 0) {
+            int errno = Native.getLastError();
+            close(m_epfd);
+            throw new IOException("eventfd failed, errno " + errno);
+        }
+        m_wakeupIncrement.setLong(0, 1);
+        if (ctl(EPOLL_CTL_ADD, m_wakeupfd, EPOLLIN, WAKEUP_DATA) < 0) {
+            int errno = Native.getLastError();
+            close(m_wakeupfd);
+            close(m_epfd);
+            throw new IOException("epoll_ctl failed to add the wakeup eventfd, errno " + errno);
+        }
+    }
+
+    private int ctl(int op, int fd, int events, long data) {
+        m_ctlEvent.setInt(0, events);
+        m_ctlEvent.setLong(EVENT_DATA_OFFSET, data);
+        return epoll_ctl(m_epfd, op, fd, m_ctlEvent);
+    }
+
+    private static int toEvents(int ops) {
+        int events = 0;
+        if ((ops & (SelectionKey.OP_READ | SelectionKey.OP_ACCEPT)) != 0) {
+            events |= EPOLLIN;
+        }
+        if ((ops & (SelectionKey.OP_WRITE | SelectionKey.OP_CONNECT)) != 0) {
+            events |= EPOLLOUT;
+        }
+        return events;
+    }
+
+    @Override
+    SelectionKey register(SocketChannel channel, int interestOps) throws IOException {
+        final int fd;
+        try {
+            fd = (Integer)s_getFDVal.invoke(channel);
+        } catch (ReflectiveOperationException e) {
+            throw new IOException("Unable to get the file descriptor of " + channel, e);
+        }
+        if (fd >= m_keysByFd.length) {
+            m_keysByFd = Arrays.copyOf(m_keysByFd, Math.max(fd + 1, m_keysByFd.length * 2));
+        }
+        final EpollKey key = new EpollKey(channel, fd);
+        m_keysByFd[fd] = key;
+        key.interestOps(interestOps);
+        return key;
+    }
+
+    /*
+     * Bring the kernel registration of every key touched since the last selection in line with
+     * its interest ops. A key without interest is removed from the epoll set, so that a hang up
+     * on a connection which is not selected does not keep waking up the network.
+     */
+    private void installPendingUpdates() throws IOException {
+        for (int ii = 0; ii < m_pendingUpdates.size(); ii++) {
+            final EpollKey key = m_pendingUpdates.get(ii);
+            key.m_pendingUpdate = false;
+            if (!key.m_valid) {
+                continue;
+            }
+            final int events = toEvents(key.m_interestOps);
+            if (events == key.m_registeredEvents) {
+                continue;
+            }
+            final int rc;
+            if (events == 0) {
+                rc = ctl(EPOLL_CTL_DEL, key.m_fd, 0, 0);
+            } else if (key.m_registeredEvents == 0) {
+                rc = ctl(EPOLL_CTL_ADD, key.m_fd, events, key.m_fd);
+            } else {
+                rc = ctl(EPOLL_CTL_MOD, key.m_fd, events, key.m_fd);
+            }
+            if (rc < 0) {
+                final int errno = Native.getLastError();
+                if (!key.m_channel.isOpen()) {
+                    // closed channels are dropped from the epoll set by the kernel
+                    key.m_registeredEvents = 0;
+                    continue;
+                }
+                m_pendingUpdates.clear();
+                throw new IOException("epoll_ctl failed for " + key.m_channel + ", errno " + errno);
+            }
+            key.m_registeredEvents = events;
+        }
+        m_pendingUpdates.clear();
+    }
+
+    @Override
+    int select() throws IOException {
+        installPendingUpdates();
+        final int ready = epoll_wait(m_epfd, m_events, MAX_EVENTS, -1);
+        if (ready < 0) {
+            final int errno = Native.getLastError();
+            if (errno == EINTR) {
+                return 0;
+            }
+            throw new IOException("epoll_wait failed, errno " + errno);
+        }
+        int selected = 0;
+        for (int ii = 0; ii < ready; ii++) {
+            final long offset = (long)ii * EVENT_SIZE;
+            final int events = m_events.getInt(offset);
+            final long data = m_events.getLong(offset + EVENT_DATA_OFFSET);
+            if (data == WAKEUP_DATA) {
+                read(m_wakeupfd, m_wakeupBuffer, 8);
+                m_wakeupPending.set(false);
+                continue;
+            }
+            final EpollKey key = m_keysByFd[(int)data];
+            if (key == null || !key.m_valid) {
+                continue;
+            }
+            int readyOps = 0;
+            if ((events & (EPOLLERR | EPOLLHUP)) != 0) {
+                // let the port find out about the error on its next read or write
+                readyOps = key.m_interestOps;
+            } else {
+                if ((events & EPOLLIN) != 0) {
+                    readyOps |= SelectionKey.OP_READ;
+                }
+                if ((events & EPOLLOUT) != 0) {
+                    readyOps |= SelectionKey.OP_WRITE;
+                }
+            }
+            key.m_readyOps = readyOps & key.m_interestOps;
+            if (key.m_readyOps != 0) {
+                m_selectedKeys[selected++] = key;
+            }
+        }
+        m_numSelectedKeys = selected;
+        return selected;
+    }
+
+    @Override
+    void wakeup() {
+        if (!m_closed && m_wakeupPending.compareAndSet(false, true)) {
+            write(m_wakeupfd, m_wakeupIncrement, 8);
+        }
+    }
+
+    @Override
+    Set<SelectionKey> keys() {
+        final Set<SelectionKey> keys = new HashSet<>();
+        for (EpollKey key : m_keysByFd) {
+            if (key != null) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    @Override
+    int prepareSelectedKeys() {
+        return m_numSelectedKeys;
+    }
+
+    @Override
+    SelectionKey selectedKey(int index) {
+        return m_selectedKeys[index];
+    }
+
+    @Override
+    void clearSelectedKeys() {
+        //Don't packrat references to keys
+        for (int ii = 0; ii < m_numSelectedKeys; ii++) {
+            m_selectedKeys[ii] = null;
+        }
+        m_numSelectedKeys = 0;
+    }
+
+    @Override
+    void close() throws IOException {
+        m_closed = true;
+        for (EpollKey key : m_keysByFd) {
+            if (key != null) {
+                key.m_valid = false;
+            }
+        }
+        Arrays.fill(m_keysByFd, null);
+        close(m_wakeupfd);
+        close(m_epfd);
+    }
+
+    private final class EpollKey extends SelectionKey {
+        private final SocketChannel m_channel;
+        private final int m_fd;
+        private volatile boolean m_valid = true;
+        private int m_interestOps = 0;
+        private int m_readyOps = 0;
+        private int m_registeredEvents = 0;
+        private boolean m_pendingUpdate = false;
+
+        EpollKey(SocketChannel channel, int fd) {
+            m_channel = channel;
+            m_fd = fd;
+        }
+
+        @Override
+        public SelectableChannel channel() {
+            return m_channel;
+        }
+
+        /** Not backed by a {@link Selector}, always null */
+        @Override
+        public Selector selector() {
+            return null;
+        }
+
+        @Override
+        public boolean isValid() {
+            return m_valid;
+        }
+
+        @Override
+        public void cancel() {
+            if (!m_valid) {
+                return;
+            }
+            m_valid = false;
+            if (m_keysByFd[m_fd] == this) {
+                m_keysByFd[m_fd] = null;
+            }
+            // a closed descriptor may already belong to another connection, leave it alone
+            if (m_registeredEvents != 0 && m_channel.isOpen()) {
+                if (ctl(EPOLL_CTL_DEL, m_fd, 0, 0) < 0 && networkLog.isDebugEnabled()) {
+                    networkLog.debug("epoll_ctl failed to remove " + m_channel + ", errno " + Native.getLastError());
+                }
+            }
+            m_registeredEvents = 0;
+        }
+
+        @Override
+        public int interestOps() {
+            if (!m_valid) {
+                throw new CancelledKeyException();
+            }
+            return m_interestOps;
+        }
+
+        @Override
+        public SelectionKey interestOps(int ops) {
+            if (!m_valid) {
+                throw new CancelledKeyException();
+            }
+            m_interestOps = ops;
+            if (!m_pendingUpdate) {
+                m_pendingUpdate = true;
+                m_pendingUpdates.add(this);
+            }
+            return this;
+        }
+
+        @Override
+        public int readyOps() {
+            if (!m_valid) {
+                throw new CancelledKeyException();
+            }
+            return m_readyOps;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltcore.network;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Set;
+
+import io.netty_voltpatches.NinjaKeySet;
+
+/**
+ * {@link NetworkSelector} on top of a java.nio {@link Selector}. When the JDK selector can be
+ * instrumented, the selected keys are collected in a {@link NinjaKeySet} array instead of a hash set.
+ */
+class NIONetworkSelector extends NetworkSelector {
+    private final Selector m_selector;
+    private final NinjaKeySet m_ninjaSelectedKeys;
+    private final boolean m_instrumented;
+
+    // Snapshot of the selected key set when the selector could not be instrumented
+    private SelectionKey[] m_selectedKeys = new SelectionKey[0];
+    private int m_numSelectedKeys = 0;
+
+    NIONetworkSelector() throws IOException {
+        this(Selector.open());
+    }
+
+    NIONetworkSelector(Selector selector) {
+        m_selector = selector;
+        m_ninjaSelectedKeys = NinjaKeySet.instrumentSelector(m_selector);
+        m_instrumented = m_ninjaSelectedKeys != null && m_selector.selectedKeys() == m_ninjaSelectedKeys;
+    }
+
+    @Override
+    SelectionKey register(SocketChannel channel, int interestOps) throws IOException {
+        return channel.register(m_selector, interestOps, null);
+    }
+
+    @Override
+    int select() throws IOException {
+        return m_selector.select();
+    }
+
+    @Override
+    void wakeup() {
+        m_selector.wakeup();
+    }
+
+    @Override
+    Set<SelectionKey> keys() {
+        return m_selector.keys();
+    }
+
+    @Override
+    int prepareSelectedKeys() {
+        if (m_instrumented) {
+            return m_ninjaSelectedKeys.size();
+        }
+        final Set<SelectionKey> selectedKeys = m_selector.selectedKeys();
+        m_selectedKeys = selectedKeys.toArray(m_selectedKeys);
+        m_numSelectedKeys = selectedKeys.size();
+        selectedKeys.clear();
+        return m_numSelectedKeys;
+    }
+
+    @Override
+    SelectionKey selectedKey(int index) {
+        return m_instrumented ? m_ninjaSelectedKeys.keys()[index] : m_selectedKeys[index];
+    }
+
+    @Override
+    void clearSelectedKeys() {
+        if (m_instrumented) {
+            m_ninjaSelectedKeys.clear();
+        } else {
+            //Don't packrat references to keys
+            for (int ii = 0; ii < m_numSelectedKeys; ii++) {
+                m_selectedKeys[ii] = null;
+            }
+            m_numSelectedKeys = 0;
+        }
+    }
+
+    @Override
+    void close() throws IOException {
+        m_selector.close();
+    }
+}
@@ -28,6 +28,7 @@ import org.voltcore.logging.Level;
 import org.voltcore.logging.VoltLogger;
 import org.voltcore.utils.DBBPool.BBContainer;
 import org.voltcore.utils.DeferredSerialization;
+import org.voltcore.utils.GatheringDeferredSerialization;
 import org.voltcore.utils.RateLimitedLogger;
 
 /**
@@ -128,6 +129,15 @@ public abstract class NIOWriteStreamBase {
                 bytesQueued += slice.remaining();
                 outbuf.position(outbuf.limit());
                 outbuf.limit(oldLimit);
+            } else if (ds instanceof GatheringDeferredSerialization) {
+                // Gathering path, copy the pieces straight into direct buffers
+                int gathered = 0;
+                for (ByteBuffer buf : ((GatheringDeferredSerialization) ds).serializeToBuffers()) {
+                    gathered += buf.remaining();
+                    outbuf = copyToPooledBuffers(buf, outbuf, pool);
+                }
+                checkGatheredSerialization(gathered, serializedSize, ds);
+                bytesQueued += gathered;
             } else {
                 // Slow path serialize to heap, and then put in buffers
                 ByteBuffer buf = ByteBuffer.allocate(serializedSize);
@@ -136,28 +146,38 @@ public abstract class NIOWriteStreamBase {
                 buf.position(0);
                 bytesQueued += buf.remaining();
                 // Copy data allocated in heap buffer to direct buffer
-                while (buf.hasRemaining()) {
-                    if (!outbuf.hasRemaining()) {
-                        outCont = pool.acquire();
-                        outbuf = outCont.b();
-                        outbuf.clear();
-                        m_queuedBuffers.offer(outCont);
-                    }
-                    if (outbuf.remaining() >= buf.remaining()) {
-                        outbuf.put(buf);
-                    } else {
-                        final int oldLimit = buf.limit();
-                        buf.limit(buf.position() + outbuf.remaining());
-                        outbuf.put(buf);
-                        buf.limit(oldLimit);
-                    }
-                }
+                copyToPooledBuffers(buf, outbuf, pool);
             }
         }
         updateQueued(bytesQueued, true);
         return processedWrites;
     }
 
+    /**
+     * Copy the remaining bytes of buf into outbuf, continuing in freshly acquired pool buffers
+     * once it is full.
+     * @return the pool buffer holding the last copied byte
+     */
+    private ByteBuffer copyToPooledBuffers(ByteBuffer buf, ByteBuffer outbuf, final NetworkDBBPool pool) {
+        while (buf.hasRemaining()) {
+            if (!outbuf.hasRemaining()) {
+                BBContainer outCont = pool.acquire();
+                outbuf = outCont.b();
+                outbuf.clear();
+                m_queuedBuffers.offer(outCont);
+            }
+            if (outbuf.remaining() >= buf.remaining()) {
+                outbuf.put(buf);
+            } else {
+                final int oldLimit = buf.limit();
+                buf.limit(buf.position() + outbuf.remaining());
+                outbuf.put(buf);
+                buf.limit(oldLimit);
+            }
+        }
+        return outbuf;
+    }
+
     private static final boolean ASSERT_ON;
     static {
         boolean assertOn = false;
@@ -183,6 +203,23 @@ public abstract class NIOWriteStreamBase {
         }
     }
 
+    /*
+     * Same as checkSloppySerialization for messages that were provided as a list of buffers
+     */
+    protected static void checkGatheredSerialization(int gathered, int serializedSize, DeferredSerialization ds) {
+        if (gathered != serializedSize) {
+            if (ASSERT_ON) {
+                networkLog.fatal("Sloppy serialization size for message class " + ds);
+                System.exit(-1);
+            }
+            RateLimitedLogger.tryLogForMessage(
+                    System.currentTimeMillis(),
+                    1, TimeUnit.HOURS,
+                    networkLog,
+                    Level.WARN, "Sloppy serialization size for message class %s", ds);
+        }
+    }
+
     /**
      * Free the pool resources that are held by this WriteStream. The pool itself is thread local
      * and will be freed when the thread terminates.
@@ -0,0 +1,57 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltcore.network;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Set;
+
+/**
+ * Readiness selection used by a {@link VoltNetwork}. Keys handed out by a selector behave like
+ * NIO selection keys: the attachment is the registered {@link VoltPort}, interest ops are installed
+ * by the network thread and ready ops are valid until the next call to {@link #select()}.
+ * All methods but {@link #wakeup()} are only called from the thread of the owning network.
+ */
+abstract class NetworkSelector {
+
+    /** Register a non-blocking channel and return its key, the attachment is left empty */
+    abstract SelectionKey register(SocketChannel channel, int interestOps) throws IOException;
+
+    /** Block until at least one key is ready or the selector is woken up, return the number of ready keys */
+    abstract int select() throws IOException;
+
+    /** Make the current or the next call to {@link #select()} return immediately */
+    abstract void wakeup();
+
+    /** The keys currently registered */
+    abstract Set<SelectionKey> keys();
+
+    /**
+     * Prepare the keys selected by the last {@link #select()} for iteration with {@link #selectedKey(int)}
+     * @return the number of selected keys
+     */
+    abstract int prepareSelectedKeys();
+
+    abstract SelectionKey selectedKey(int index);
+
+    /** Forget the keys selected by the last {@link #select()} */
+    abstract void clearSelectedKeys();
+
+    abstract void close() throws IOException;
+}
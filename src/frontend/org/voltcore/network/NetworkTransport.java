@@ -0,0 +1,83 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltcore.network;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+
+import org.voltcore.logging.VoltLogger;
+
+/**
+ * The readiness selection mechanism used by the threads of a {@link VoltNetworkPool}.
+ * NIO is always available and is the fallback when a native transport can't be loaded.
+ */
+public enum NetworkTransport {
+    NIO,
+    /** Linux epoll called through JNA, see EpollNetworkSelector */
+    EPOLL;
+
+    private static final VoltLogger networkLog = new VoltLogger("NETWORK");
+
+    // the client library is built without JNA and without the epoll selector, so it is only loaded by name
+    private static final String EPOLL_SELECTOR_CLASS = "org.voltcore.network.EpollNetworkSelector";
+
+    /**
+     * @return the transport named by value, case insensitive, NIO if value is null or empty
+     */
+    public static NetworkTransport fromString(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return NIO;
+        }
+        return valueOf(value.trim().toUpperCase());
+    }
+
+    /**
+     * @return true if selectors of this transport can be opened on this platform
+     */
+    public boolean isAvailable() {
+        return this == NIO || epollUnavailabilityCause() == null;
+    }
+
+    NetworkSelector openSelector() throws IOException {
+        if (this == EPOLL) {
+            Throwable cause = epollUnavailabilityCause();
+            if (cause == null) {
+                try {
+                    return (NetworkSelector) Class.forName(EPOLL_SELECTOR_CLASS).getDeclaredConstructor().newInstance();
+                } catch (InvocationTargetException e) {
+                    if (e.getCause() instanceof IOException) {
+                        throw (IOException) e.getCause();
+                    }
+                    cause = e.getCause();
+                } catch (ReflectiveOperationException e) {
+                    cause = e;
+                }
+            }
+            networkLog.warn("The epoll network transport is not available, falling back to NIO: " + cause);
+        }
+        return new NIONetworkSelector();
+    }
+
+    private static Throwable epollUnavailabilityCause() {
+        try {
+            return (Throwable) Class.forName(EPOLL_SELECTOR_CLASS).getDeclaredMethod("unavailabilityCause").invoke(null);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return e;
+        }
+    }
+}
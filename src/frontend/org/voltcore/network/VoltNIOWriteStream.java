@@ -25,6 +25,7 @@ import java.util.ArrayDeque;
 import org.voltcore.logging.VoltLogger;
 import org.voltcore.utils.DeferredSerialization;
 import org.voltcore.utils.EstTime;
+import org.voltcore.utils.GatheringDeferredSerialization;
 
 /**
 *
@@ -241,7 +242,7 @@ public class VoltNIOWriteStream extends NIOWriteStreamBase implements WriteStrea
 
             updateLastPendingWriteTimeAndQueueBackpressure();
 
-            m_queuedWrites.offer(new DeferredSerialization() {
+            m_queuedWrites.offer(new GatheringDeferredSerialization() {
                 @Override
                 public void serialize(ByteBuffer outbuf) {
                     for (ByteBuffer buf : b) {
@@ -249,6 +250,11 @@ public class VoltNIOWriteStream extends NIOWriteStreamBase implements WriteStrea
                     }
                 }
 
+                @Override
+                public ByteBuffer[] serializeToBuffers() {
+                    return b;
+                }
+
                 @Override
                 public void cancel() {}
 
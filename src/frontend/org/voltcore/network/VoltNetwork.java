@@ -72,7 +72,6 @@ import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
@@ -90,13 +89,12 @@ import org.voltcore.utils.Pair;
 
 import com.google_voltpatches.common.util.concurrent.SettableFuture;
 
-import io.netty_voltpatches.NinjaKeySet;
 import jsr166y.ThreadLocalRandom;
 
 /** Produces work for registered ports that are selected for read, write */
 class VoltNetwork implements Runnable, IOStatsIntf
 {
-    private final Selector m_selector;
+    private final NetworkSelector m_selector;
     private static final VoltLogger m_logger = new VoltLogger(VoltNetwork.class.getName());
     private static final VoltLogger networkLog = new VoltLogger("NETWORK");
     private final ConcurrentLinkedQueue<Runnable> m_tasks = new ConcurrentLinkedQueue<Runnable>();
@@ -108,8 +106,6 @@ class VoltNetwork implements Runnable, IOStatsIntf
     private final String m_coreBindId;
     final String networkThreadName;
 
-    private final NinjaKeySet m_ninjaSelectedKeys;
-
     /**
      * Start this VoltNetwork's thread;
      */
@@ -123,25 +119,27 @@ class VoltNetwork implements Runnable, IOStatsIntf
      * and runOnce should be called periodically
      **/
     VoltNetwork(int networkId, String coreBindId, String networkName) {
+        this(networkId, coreBindId, networkName, NetworkTransport.NIO);
+    }
+
+    VoltNetwork(int networkId, String coreBindId, String networkName, NetworkTransport transport) {
         m_thread = new Thread(this, "Volt " + networkName + " Network - " + networkId);
         networkThreadName = new String("Volt " + networkName + " Network - " + networkId);
         m_thread.setDaemon(true);
         m_coreBindId = coreBindId;
         try {
-            m_selector = Selector.open();
+            m_selector = transport.openSelector();
         } catch (IOException ex) {
             m_logger.fatal(null, ex);
             throw new RuntimeException(ex);
         }
-        m_ninjaSelectedKeys = NinjaKeySet.instrumentSelector(m_selector);
     }
 
     VoltNetwork( Selector s) {
         m_thread = null;
-        m_selector = s;
+        m_selector = new NIONetworkSelector(s);
         m_coreBindId = null;
         networkThreadName = new String("Test Selector Thread");
-        m_ninjaSelectedKeys = NinjaKeySet.instrumentSelector(m_selector);
     }
 
     /** Instruct the network to stop after the current loop */
@@ -202,7 +200,7 @@ class VoltNetwork implements Runnable, IOStatsIntf
                 }
 
                 try {
-                    SelectionKey key = channel.register (m_selector, interestOps, null);
+                    SelectionKey key = m_selector.register(channel, interestOps);
 
                     port.setKey (key);
                     port.registered();
@@ -325,11 +323,7 @@ class VoltNetwork implements Runnable, IOStatsIntf
                         }
 
                         if (readyKeys > 0) {
-                            if (NinjaKeySet.supported) {
-                                optimizedInvokeCallbacks(r);
-                            } else {
-                                invokeCallbacks(r);
-                            }
+                            invokeCallbacks(r);
                         }
 
                         /*
@@ -442,44 +436,14 @@ class VoltNetwork implements Runnable, IOStatsIntf
 
     /** Set the selected interest set on the port and run it. */
     protected void invokeCallbacks(ThreadLocalRandom r) {
-        final Set<SelectionKey> selectedKeys = m_selector.selectedKeys();
-        final int keyCount = selectedKeys.size();
-        int startInx = r.nextInt(keyCount);
-        int itInx = 0;
-        Iterator<SelectionKey> it = selectedKeys.iterator();
-        while(itInx < startInx) {
-            it.next();
-            itInx++;
-        }
-        while(itInx < keyCount) {
-            final Object obj = it.next().attachment();
-            if (obj == null) {
-                continue;
-            }
-            final VoltPort port = (VoltPort)obj;
-            callPort(port);
-            itInx++;
+        final int numKeys = m_selector.prepareSelectedKeys();
+        if (numKeys == 0) {
+            return;
         }
-        itInx = 0;
-        it = selectedKeys.iterator();
-        while(itInx < startInx) {
-            final Object obj = it.next().attachment();
-            if (obj == null) {
-                continue;
-            }
-            final VoltPort port = (VoltPort)obj;
-            callPort(port);
-            itInx++;
-        }
-        selectedKeys.clear();
-    }
-
-    protected void optimizedInvokeCallbacks(ThreadLocalRandom r) {
-        final int numKeys = m_ninjaSelectedKeys.size();
+        // start at a random key so that no port is always served first
         final int startIndex = r.nextInt(numKeys);
-        final SelectionKey keys[] = m_ninjaSelectedKeys.keys();
         for (int ii = startIndex; ii < numKeys; ii++) {
-            final Object obj = keys[ii].attachment();
+            final Object obj = m_selector.selectedKey(ii).attachment();
             if (obj == null) {
                 continue;
             }
@@ -488,14 +452,14 @@ class VoltNetwork implements Runnable, IOStatsIntf
         }
 
         for (int ii = 0; ii < startIndex; ii++) {
-            final Object obj = keys[ii].attachment();
+            final Object obj = m_selector.selectedKey(ii).attachment();
             if (obj == null) {
                 continue;
             }
             final VoltPort port = (VoltPort)obj;
             callPort(port);
         }
-        m_ninjaSelectedKeys.clear();
+        m_selector.clearSelectedKeys();
     }
 
     private Map<Long, Pair<String, long[]>> getIOStatsImpl(boolean interval) {
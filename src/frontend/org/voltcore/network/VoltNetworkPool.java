@@ -56,6 +56,11 @@ public class VoltNetworkPool {
     }
 
     public VoltNetworkPool(int numThreads, int startThreadId, Queue<String> coreBindIds, String poolName) {
+        this(numThreads, startThreadId, coreBindIds, poolName, NetworkTransport.NIO);
+    }
+
+    public VoltNetworkPool(int numThreads, int startThreadId, Queue<String> coreBindIds, String poolName,
+            NetworkTransport transport) {
         m_poolName = poolName;
         if (numThreads < 1) {
             throw new IllegalArgumentException("Must specify a positive number of threads");
@@ -64,14 +69,14 @@ public class VoltNetworkPool {
             m_networks = new VoltNetwork[numThreads];
             for (int ii = 0; ii < numThreads; ii++) {
                 // Adding startThreadId avoids unnecessary polling for non-Server VoltNetworkPools
-                m_networks[ii] = new VoltNetwork(ii+startThreadId, null, poolName);
+                m_networks[ii] = new VoltNetwork(ii+startThreadId, null, poolName, transport);
             }
         } else {
             final int coreBindIdsSize = coreBindIds.size();
             m_networks = new VoltNetwork[coreBindIdsSize];
             for (int ii = 0; ii < coreBindIdsSize; ii++) {
                 // Adding startThreadId avoids unnecessary polling for non-Server VoltNetworkPools
-                m_networks[ii] = new VoltNetwork(ii+startThreadId, coreBindIds.poll(), poolName);
+                m_networks[ii] = new VoltNetwork(ii+startThreadId, coreBindIds.poll(), poolName, transport);
             }
         }
     }
@@ -0,0 +1,39 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltcore.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A DeferredSerialization that can also hand over its serialized form as an ordered list of
+ * buffers. Large messages do not fit in a single network pool buffer, and serializing them with
+ * {@link #serialize(ByteBuffer)} requires a temporary heap buffer of the full message size that is
+ * then copied into the pool. Providing the pieces instead lets the write stream copy them straight
+ * into pooled direct buffers.
+ */
+public interface GatheringDeferredSerialization extends DeferredSerialization {
+    /**
+     * Provide the serialized representation as a sequence of buffers. The remaining bytes of the
+     * returned buffers, concatenated in order, must be exactly {@link #getSerializedSize()} bytes.
+     * The buffers may be views of data owned by the message, the caller only reads from them.
+     * @return Buffers holding the serialized representation of the object stored
+     * @throws IOException Thrown here because FastSerialzier throws IOException
+     */
+    ByteBuffer[] serializeToBuffers() throws IOException;
+}
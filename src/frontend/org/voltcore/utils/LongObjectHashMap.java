@@ -0,0 +1,322 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.voltcore.utils;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from primitive long keys to objects that avoids boxing the keys
+ * and allocating an entry per mapping. Keys and values are held in parallel arrays
+ * using open addressing with linear probing, and removal shifts the following
+ * entries of the probe sequence back so no tombstones are left behind.
+ *
+ * Meant for the single threaded bookkeeping keyed by transaction ids, handles
+ * and HSIds, where java.util.HashMap allocates a Long and a node per put.
+ * Like HashMap it is not thread safe. Iteration order is unspecified.
+ */
+public class LongObjectHashMap<V> {
+
+    public interface EntryConsumer<V> {
+        void accept(long key, V value);
+    }
+
+    public interface EntryPredicate<V> {
+        boolean test(long key, V value);
+    }
+
+    private static final int MIN_CAPACITY = 8;
+    private static final int MAX_CAPACITY = 1 << 30;
+    // 2^64 / golden ratio, spreads sequential ids across the table
+    private static final long PHI = 0x9E3779B97F4A7C15L;
+
+    // 0 marks a free slot, so the mapping for key 0 is held on the side
+    private long[] m_keys;
+    private Object[] m_values;
+    private int m_mask;
+    private int m_shift;
+    private int m_resizeAt;
+    private int m_size;
+    private boolean m_hasZeroKey;
+    private V m_zeroValue;
+
+    public LongObjectHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public LongObjectHashMap(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size must be >= 0");
+        }
+        allocate(capacityFor(expectedSize));
+    }
+
+    public int size() {
+        return m_size + (m_hasZeroKey ? 1 : 0);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public boolean containsKey(long key) {
+        if (key == 0) {
+            return m_hasZeroKey;
+        }
+        return findSlot(key) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if (key == 0) {
+            return m_zeroValue;
+        }
+        final long[] keys = m_keys;
+        int slot = slotFor(key);
+        while (true) {
+            final long k = keys[slot];
+            if (k == key) {
+                return (V) m_values[slot];
+            }
+            if (k == 0) {
+                return null;
+            }
+            slot = (slot + 1) & m_mask;
+        }
+    }
+
+    /**
+     * @return the previous value mapped to key, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (key == 0) {
+            final V previous = m_zeroValue;
+            m_hasZeroKey = true;
+            m_zeroValue = value;
+            return previous;
+        }
+        final long[] keys = m_keys;
+        int slot = slotFor(key);
+        while (true) {
+            final long k = keys[slot];
+            if (k == key) {
+                final V previous = (V) m_values[slot];
+                m_values[slot] = value;
+                return previous;
+            }
+            if (k == 0) {
+                break;
+            }
+            slot = (slot + 1) & m_mask;
+        }
+        keys[slot] = key;
+        m_values[slot] = value;
+        if (++m_size > m_resizeAt) {
+            rehash(m_keys.length << 1);
+        }
+        return null;
+    }
+
+    /**
+     * @return the value that was mapped to key, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        if (key == 0) {
+            final V previous = m_zeroValue;
+            m_hasZeroKey = false;
+            m_zeroValue = null;
+            return previous;
+        }
+        final int slot = findSlot(key);
+        if (slot < 0) {
+            return null;
+        }
+        final V previous = (V) m_values[slot];
+        closeGap(slot);
+        m_size--;
+        return previous;
+    }
+
+    public void clear() {
+        Arrays.fill(m_keys, 0);
+        Arrays.fill(m_values, null);
+        m_size = 0;
+        m_hasZeroKey = false;
+        m_zeroValue = null;
+    }
+
+    /**
+     * Visit every mapping. The map must not be modified by the consumer.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryConsumer<? super V> consumer) {
+        if (m_hasZeroKey) {
+            consumer.accept(0, m_zeroValue);
+        }
+        final long[] keys = m_keys;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != 0) {
+                consumer.accept(keys[slot], (V) m_values[slot]);
+            }
+        }
+    }
+
+    /**
+     * Remove every mapping the predicate accepts. Removing an entry can move an
+     * entry that was already tested into an unvisited slot, so the predicate
+     * may be invoked more than once for a mapping it rejects. It must not modify the map.
+     *
+     * @return the number of mappings removed
+     */
+    @SuppressWarnings("unchecked")
+    public int removeIf(EntryPredicate<? super V> predicate) {
+        int removed = 0;
+        if (m_hasZeroKey && predicate.test(0, m_zeroValue)) {
+            m_hasZeroKey = false;
+            m_zeroValue = null;
+            removed++;
+        }
+        final long[] keys = m_keys;
+        int slot = 0;
+        while (slot < keys.length) {
+            final long k = keys[slot];
+            if (k != 0 && predicate.test(k, (V) m_values[slot])) {
+                // The gap is refilled from later in the probe sequence, test this slot again
+                closeGap(slot);
+                m_size--;
+                removed++;
+            } else {
+                slot++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * @return a copy of the keys in iteration order
+     */
+    public long[] keys() {
+        final long[] result = new long[size()];
+        int i = 0;
+        if (m_hasZeroKey) {
+            result[i++] = 0;
+        }
+        for (long k : m_keys) {
+            if (k != 0) {
+                result[i++] = k;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("{");
+        forEach(new EntryConsumer<V>() {
+            @Override
+            public void accept(long key, V value) {
+                if (sb.length() > 1) {
+                    sb.append(", ");
+                }
+                sb.append(key).append('=').append(value);
+            }
+        });
+        return sb.append('}').toString();
+    }
+
+    private int slotFor(long key) {
+        return (int) ((key * PHI) >>> m_shift);
+    }
+
+    private int findSlot(long key) {
+        final long[] keys = m_keys;
+        int slot = slotFor(key);
+        while (true) {
+            final long k = keys[slot];
+            if (k == key) {
+                return slot;
+            }
+            if (k == 0) {
+                return -1;
+            }
+            slot = (slot + 1) & m_mask;
+        }
+    }
+
+    /*
+     * Backward shift deletion. Walk the probe sequence after the freed slot and move back
+     * every entry whose home slot doesn't lie between the gap and its current position.
+     */
+    private void closeGap(int gap) {
+        final long[] keys = m_keys;
+        final Object[] values = m_values;
+        int slot = gap;
+        while (true) {
+            slot = (slot + 1) & m_mask;
+            final long k = keys[slot];
+            if (k == 0) {
+                break;
+            }
+            final int home = slotFor(k);
+            if (((slot - home) & m_mask) >= ((slot - gap) & m_mask)) {
+                keys[gap] = k;
+                values[gap] = values[slot];
+                gap = slot;
+            }
+        }
+        keys[gap] = 0;
+        values[gap] = null;
+    }
+
+    private void allocate(int capacity) {
+        m_keys = new long[capacity];
+        m_values = new Object[capacity];
+        m_mask = capacity - 1;
+        m_shift = 64 - Integer.numberOfTrailingZeros(capacity);
+        // 3/4 load factor, always leave a free slot to terminate probes
+        m_resizeAt = Math.min(capacity - 1, (capacity >>> 2) * 3);
+    }
+
+    private void rehash(int capacity) {
+        if (capacity > MAX_CAPACITY) {
+            throw new IllegalStateException("LongObjectHashMap can't grow past " + MAX_CAPACITY + " slots");
+        }
+        final long[] oldKeys = m_keys;
+        final Object[] oldValues = m_values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            final long k = oldKeys[i];
+            if (k != 0) {
+                int slot = slotFor(k);
+                while (m_keys[slot] != 0) {
+                    slot = (slot + 1) & m_mask;
+                }
+                m_keys[slot] = k;
+                m_values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int capacityFor(int expectedSize) {
+        final long needed = Math.max(MIN_CAPACITY, ((long) expectedSize * 4 + 2) / 3 + 1);
+        if (needed > MAX_CAPACITY) {
+            return MAX_CAPACITY;
+        }
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+}
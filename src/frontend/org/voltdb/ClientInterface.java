@@ -22,6 +22,8 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.net.SocketOption;
+import java.net.StandardSocketOptions;
 import java.nio.ByteBuffer;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
@@ -73,6 +75,7 @@ import org.voltcore.network.WriteStream;
 import org.voltcore.utils.CoreUtils;
 import org.voltcore.utils.DeferredSerialization;
 import org.voltcore.utils.EstTime;
+import org.voltcore.utils.GatheringDeferredSerialization;
 import org.voltcore.utils.Pair;
 import org.voltcore.utils.RateLimitedLogger;
 import org.voltcore.utils.ssl.MessagingChannel;
@@ -256,13 +259,33 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
 
     private final AtomicBoolean m_isAcceptingConnections = new AtomicBoolean(false);
 
+    /*
+     * Number of threads accepting connections on the client port. More than one requires SO_REUSEPORT,
+     * in which case every thread listens on its own socket and the kernel spreads connections among them.
+     */
+    private static final int CLIENT_ACCEPTOR_THREADS = Integer.getInteger("CLIENT_ACCEPTOR_THREADS",
+            Math.max(1, Math.min(4, CoreUtils.availableProcessors() / 4)));
+
+    // StandardSocketOptions.SO_REUSEPORT only exists from JDK 9 on, null when not available
+    private static final SocketOption<Boolean> SO_REUSEPORT = getReusePortOption();
+
+    @SuppressWarnings("unchecked")
+    private static SocketOption<Boolean> getReusePortOption() {
+        try {
+            return (SocketOption<Boolean>) StandardSocketOptions.class.getField("SO_REUSEPORT").get(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
     /** A port that accepts client connections */
-    public class ClientAcceptor implements Runnable {
+    public class ClientAcceptor {
         private final int m_port;
-        private final ServerSocketChannel m_serverSocket;
+        private final List<ServerSocketChannel> m_serverSockets = new ArrayList<>();
         private final VoltNetworkPool m_network;
         private volatile boolean m_running = true;
-        private Thread m_thread = null;
+        private Thread[] m_threads = null;
+        private final AtomicInteger m_liveAcceptors = new AtomicInteger();
         private final boolean m_isAdmin;
         private final InetAddress m_interface;
         private final SSLContext m_sslContext;
@@ -279,9 +302,13 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
             m_network = network;
             m_port = port;
             m_isAdmin = isAdmin;
-            ServerSocketChannel socket;
+            m_serverSockets.add(openServerSocket());
+            m_sslContext = sslContext;
+        }
+
+        private ServerSocketChannel openServerSocket() {
             try {
-                socket = ServerSocketChannel.open();
+                return ServerSocketChannel.open();
             } catch (IOException e) {
                 if (m_isAdmin) {
                     hostLog.fatal("Failed to open admin wire protocol listener on port "
@@ -293,20 +320,43 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
                 }
                 throw new RuntimeException(e);
             }
-            m_serverSocket = socket;
-            m_sslContext = sslContext;
+        }
+
+        /**
+         * The admin port always has a single acceptor. The client port gets
+         * {@link #CLIENT_ACCEPTOR_THREADS} of them when the platform supports SO_REUSEPORT.
+         */
+        private int acceptorCount() {
+            if (m_isAdmin || CLIENT_ACCEPTOR_THREADS <= 1) {
+                return 1;
+            }
+            if (SO_REUSEPORT == null || !m_serverSockets.get(0).supportedOptions().contains(SO_REUSEPORT)) {
+                hostLog.info("SO_REUSEPORT is not supported, client port " + m_port + " uses a single acceptor");
+                return 1;
+            }
+            return CLIENT_ACCEPTOR_THREADS;
         }
 
         public void start() throws IOException {
-            if (m_thread != null) {
+            if (m_threads != null) {
                 throw new IllegalStateException("A thread for this ClientAcceptor is already running");
             }
-            if (!m_serverSocket.socket().isBound()) {
+            final int acceptors = acceptorCount();
+            while (m_serverSockets.size() < acceptors) {
+                m_serverSockets.add(openServerSocket());
+            }
+            for (ServerSocketChannel serverSocket : m_serverSockets) {
+                if (serverSocket.socket().isBound()) {
+                    continue;
+                }
                 try {
+                    if (acceptors > 1) {
+                        serverSocket.setOption(SO_REUSEPORT, true);
+                    }
                     if (m_interface != null) {
-                        m_serverSocket.socket().bind(new InetSocketAddress(m_interface, m_port));
+                        serverSocket.socket().bind(new InetSocketAddress(m_interface, m_port));
                     } else {
-                        m_serverSocket.socket().bind(new InetSocketAddress(m_port));
+                        serverSocket.socket().bind(new InetSocketAddress(m_port));
                     }
                 }
                 catch (IOException e) {
@@ -317,20 +367,30 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
                 }
             }
             m_running = true;
+            m_liveAcceptors.set(acceptors);
             String threadName = m_isAdmin ? "AdminPort connection acceptor" : "ClientPort connection acceptor";
-            m_thread = new Thread( null, this, threadName, 262144);
-            m_thread.setDaemon(true);
-            m_thread.start();
+            m_threads = new Thread[acceptors];
+            for (int i = 0; i < acceptors; i++) {
+                final ServerSocketChannel serverSocket = m_serverSockets.get(i);
+                m_threads[i] = new Thread(null, () -> acceptLoop(serverSocket),
+                        acceptors > 1 ? threadName + " " + i : threadName, 262144);
+                m_threads[i].setDaemon(true);
+                m_threads[i].start();
+            }
         }
 
         public void shutdown() throws InterruptedException {
             //sync prevents interruption while shuttown down executor
-            if (m_thread != null) {
+            if (m_threads != null) {
                 synchronized (this) {
                     m_running = false;
-                    m_thread.interrupt();
+                    for (Thread thread : m_threads) {
+                        thread.interrupt();
+                    }
+                }
+                for (Thread thread : m_threads) {
+                    thread.join();
                 }
-                m_thread.join();
             }
         }
 
@@ -373,7 +433,7 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
                         try {
                             // m_socket.configureBlocking(false);
                             m_socket.socket().setTcpNoDelay(true);
-                            TLSHandshaker handshaker = new TLSHandshaker(m_socket, sslEngine);
+                            TLSHandshaker handshaker = new TLSHandshaker(m_socket, sslEngine, CipherExecutor.SERVER);
                             handshakeStatus = handshaker.handshake();
                             /*
                              * The JDK caches SSL sessions when the participants are the same (i.e.
@@ -489,14 +549,13 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
             }
         }
 
-        @Override
-        public void run() {
+        private void acceptLoop(ServerSocketChannel serverSocket) {
             try {
                 do {
                     final SocketChannel socket;
                     try
                     {
-                        socket = m_serverSocket.accept();
+                        socket = serverSocket.accept();
                     }
                     catch (IOException ioe)
                     {
@@ -528,20 +587,23 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
                 }
             } finally {
                 try {
-                    m_serverSocket.close();
+                    serverSocket.close();
                 } catch (IOException e) {
                     hostLog.fatal(null, e);
                 }
-                //Prevent interruption
-                synchronized (this) {
-                    Thread.interrupted();
-                    m_executor.shutdownNow();
-                    try {
-                        m_executor.awaitTermination(5, TimeUnit.MINUTES);
-                    } catch (InterruptedException e) {
-                        String msg = "Client Listener Interrupted while shutting down "
-                                + (m_isAdmin ? " Admin " : " ") + "port: " + m_port;
-                        VoltDB.crashLocalVoltDB(msg, false, e);
+                //The last acceptor out shuts down the authentication threads
+                if (m_liveAcceptors.decrementAndGet() == 0) {
+                    //Prevent interruption
+                    synchronized (this) {
+                        Thread.interrupted();
+                        m_executor.shutdownNow();
+                        try {
+                            m_executor.awaitTermination(5, TimeUnit.MINUTES);
+                        } catch (InterruptedException e) {
+                            String msg = "Client Listener Interrupted while shutting down "
+                                    + (m_isAdmin ? " Admin " : " ") + "port: " + m_port;
+                            VoltDB.crashLocalVoltDB(msg, false, e);
+                        }
                     }
                 }
             }
@@ -814,18 +876,41 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
         @Override
         public void handleMessage(ByteBuffer message, Connection c) {
             try {
-                final ClientResponseImpl error = handleRead(message, this, c);
-                if (error != null) {
-                    ByteBuffer buf = ByteBuffer.allocate(error.getSerializedSize() + 4);
-                    buf.putInt(buf.capacity() - 4);
-                    error.flattenToBuffer(buf).flip();
-                    c.writeStream().enqueue(buf);
+                if (message.hasRemaining() && message.get(message.position()) == Constants.INVOCATION_BATCH_VERSION) {
+                    handleInvocationBatch(message, c);
+                } else {
+                    respondWithError(handleRead(message, this, c), c);
                 }
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
         }
 
+        /*
+         * A batch written by the client library is a count followed by length prefixed
+         * invocations, each of which is dispatched as if it had arrived in its own message
+         */
+        private void handleInvocationBatch(ByteBuffer message, Connection c) {
+            message.get();
+            final int count = message.getInt();
+            for (int ii = 0; ii < count; ii++) {
+                final int length = message.getInt();
+                final ByteBuffer invocation = message.slice();
+                invocation.limit(length);
+                message.position(message.position() + length);
+                respondWithError(handleRead(invocation, this, c), c);
+            }
+        }
+
+        private void respondWithError(ClientResponseImpl error, Connection c) {
+            if (error != null) {
+                ByteBuffer buf = ByteBuffer.allocate(error.getSerializedSize() + 4);
+                buf.putInt(buf.capacity() - 4);
+                error.flattenToBuffer(buf).flip();
+                c.writeStream().enqueue(buf);
+            }
+        }
+
         @Override
         public void started(final Connection c) {
             m_connection = c;
@@ -917,9 +1002,10 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
 
     /**
      * Runs on the network thread to prepare client response. If a transaction needs to be
-     * restarted, it will get restarted here.
+     * restarted, it will get restarted here. Responses too large for the current network
+     * buffer are gathered straight from the result tables into pooled network buffers.
      */
-    public class ClientResponseWork implements DeferredSerialization {
+    public class ClientResponseWork implements GatheringDeferredSerialization {
         private final ClientInterfaceHandleManager cihm;
         private final InitiateResponseMessage response;
         private final Procedure catProc;
@@ -944,6 +1030,12 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
             clientResponse.flattenToBuffer(buf);
         }
 
+        @Override
+        public ByteBuffer[] serializeToBuffers() throws IOException
+        {
+            return clientResponse.flattenToBuffers(true);
+        }
+
         @Override
         public void cancel() {
         }
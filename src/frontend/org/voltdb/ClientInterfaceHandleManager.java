@@ -18,14 +18,11 @@
 package org.voltdb;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
 
 import org.voltcore.logging.VoltLogger;
 import org.voltcore.network.Connection;
+import org.voltcore.utils.LongObjectHashMap;
 
 import com.google_voltpatches.common.collect.ImmutableMap;
 import com.google_voltpatches.common.collect.ImmutableMap.Builder;
@@ -108,7 +105,7 @@ public class ClientInterfaceHandleManager
 
     static class PartitionInFlightTracker {
         private final HandleGenerator m_generator;
-        private final Map<Long, Iv2InFlight> m_inFlights = new HashMap<Long, Iv2InFlight>();
+        private final LongObjectHashMap<Iv2InFlight> m_inFlights = new LongObjectHashMap<Iv2InFlight>();
 
         private PartitionInFlightTracker(int partitionId) {
             m_generator = new HandleGenerator(partitionId);
@@ -287,29 +284,28 @@ public class ClientInterfaceHandleManager
     void freeOutstandingTxns() {
         assert(!shouldCheckThreadIdAssertion() || m_expectedThreadId == Thread.currentThread().getId());
         for (PartitionInFlightTracker tracker : m_trackerMap.values()) {
-            for (Iv2InFlight inflight : tracker.m_inFlights.values()) {
+            tracker.m_inFlights.forEach((ciHandle, inflight) -> {
                 m_outstandingTxns--;
                 m_acg.reduceBackpressure(inflight.m_messageSize);
-            }
+            });
         }
     }
 
     private void collectAndRemovePartitionInFlightRequests(Integer partitionId, Long initiatorHSId, List<Iv2InFlight> retval) {
         PartitionInFlightTracker partitionStuff = m_trackerMap.get(partitionId);
         if (partitionStuff != null) {
-            Iterator<Entry<Long, Iv2InFlight>> iter = partitionStuff.m_inFlights.entrySet().iterator();
-            while (iter.hasNext()) {
-                Entry<Long, Iv2InFlight> entry = iter.next();
-                if (entry.getValue().m_initiatorHSId != initiatorHSId) {
+            partitionStuff.m_inFlights.removeIf((ciHandle, inFlight) -> {
+                if (inFlight.m_initiatorHSId != initiatorHSId) {
                     if (tmLog.isTraceEnabled()) {
-                        tmLog.trace("cleared response for handle " + entry.getKey());
+                        tmLog.trace("cleared response for handle " + ciHandle);
                     }
-                    iter.remove();
-                    retval.add(entry.getValue());
+                    retval.add(inFlight);
                     m_outstandingTxns--;
-                    m_acg.reduceBackpressure(entry.getValue().m_messageSize);
+                    m_acg.reduceBackpressure(inFlight.m_messageSize);
+                    return true;
                 }
-            }
+                return false;
+            });
         }
     }
 
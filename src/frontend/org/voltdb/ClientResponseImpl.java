@@ -215,6 +215,18 @@ public class ClientResponseImpl implements ClientResponse, JSONString {
     }
 
     public int getSerializedSize() {
+        int msgsize = getHeaderSize();
+        for (VoltTable vt : results) {
+            msgsize += vt.getSerializedSize();
+        }
+
+        return msgsize;
+    }
+
+    /**
+     * @return size of everything in front of the result tables
+     */
+    private int getHeaderSize() {
         int msgsize = 1 // version
             + 8 // clientHandle
             + 1 // present fields
@@ -235,10 +247,6 @@ public class ClientResponseImpl implements ClientResponse, JSONString {
             msgsize += 2; // short array len
             msgsize += m_hashes.length * 4; // array of ints
         }
-        for (VoltTable vt : results) {
-            msgsize += vt.getSerializedSize();
-        }
-
         return msgsize;
     }
 
@@ -246,6 +254,53 @@ public class ClientResponseImpl implements ClientResponse, JSONString {
      * @return buf to allow call chaining.
      */
     public ByteBuffer flattenToBuffer(ByteBuffer buf) {
+        flattenHeaderToBuffer(buf);
+        for (VoltTable vt : results)
+        {
+            vt.flattenToBuffer(buf);
+        }
+        return buf;
+    }
+
+    /**
+     * Serialize this response as a list of buffers without copying the result tables. The
+     * first buffer holds the header and the length of the first table, the table data is
+     * provided as read-only views of the tables' own buffers.
+     *
+     * @param lengthPrefix whether to put the 4 byte length of the message in front of it,
+     *                     as expected by the wire protocol.
+     * @return buffers holding the serialized response, in order.
+     */
+    public ByteBuffer[] flattenToBuffers(boolean lengthPrefix) {
+        final int headerSize = getHeaderSize();
+        int msgsize = headerSize;
+        for (VoltTable vt : results) {
+            msgsize += vt.getSerializedSize();
+        }
+
+        final ByteBuffer[] bufs = new ByteBuffer[Math.max(1, results.length * 2)];
+        ByteBuffer header = ByteBuffer.allocate((lengthPrefix ? 4 : 0) + headerSize + (results.length > 0 ? 4 : 0));
+        if (lengthPrefix) {
+            header.putInt(msgsize);
+        }
+        flattenHeaderToBuffer(header);
+        bufs[0] = header;
+        for (int i = 0; i < results.length; i++) {
+            final ByteBuffer data = PrivateVoltTableFactory.getTableDataReference(results[i]).asReadOnlyBuffer();
+            // the length of each table goes at the end of the preceding buffer
+            ByteBuffer lengthBuf = (i == 0) ? header : ByteBuffer.allocate(4);
+            lengthBuf.putInt(data.remaining());
+            lengthBuf.flip();
+            bufs[i * 2] = lengthBuf;
+            bufs[i * 2 + 1] = data;
+        }
+        if (results.length == 0) {
+            header.flip();
+        }
+        return bufs;
+    }
+
+    private void flattenHeaderToBuffer(ByteBuffer buf) {
         assert setProperly;
         buf.put((byte)0); //version
         buf.putLong(clientHandle);
@@ -279,11 +334,6 @@ public class ClientResponseImpl implements ClientResponse, JSONString {
             }
         }
         buf.putShort((short) results.length);
-        for (VoltTable vt : results)
-        {
-            vt.flattenToBuffer(buf);
-        }
-        return buf;
     }
 
     @Override
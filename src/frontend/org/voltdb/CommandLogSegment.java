@@ -0,0 +1,431 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.hadoop_voltpatches.util.PureJavaCrc32C;
+import org.voltcore.utils.InstanceId;
+import org.voltdb.iv2.TxnEgo;
+import org.voltdb.messaging.Iv2InitiateTaskMessage;
+import org.voltdb.messaging.VoltDbMessageFactory;
+
+/**
+ * One preallocated file of the community command log written by {@link FileCommandLog}
+ * and read back by {@link DefaultCommandLogReinitiator}.
+ *
+ * A segment is a header followed by a run of entries. Segments are preallocated with
+ * zeroes, so a zero entry length marks the end of the written data. Each entry carries a
+ * CRC of its contents so that a torn write at the tail of the last segment is detected
+ * and ignored during replay.
+ *
+ * <pre>
+ * header: int length, int magic, int version, long segmentId, int partitionCount,
+ *         int instance coord, long instance timestamp, long initial txnId,
+ *         int count, (int partitionId, long txnId) * count
+ * entry:  int payload length, int crc, byte type, long spHandle, payload
+ * </pre>
+ */
+public class CommandLogSegment {
+
+    public static final String FILE_PREFIX = "commandlog_";
+    public static final String FILE_SUFFIX = ".log";
+
+    static final int MAGIC = 0x564C434C; // "VLCL"
+    static final int VERSION = 1;
+
+    public static final byte INITIATE_ENTRY = 1;
+    public static final byte FAULT_ENTRY = 2;
+
+    // payload length + crc + type + spHandle
+    public static final int ENTRY_HEADER_SIZE = 4 + 4 + 1 + 8;
+
+    /**
+     * The information that was current when a segment was created. The initial txnIds are
+     * those of the last truncation snapshot known to the writer, any snapshot at or past
+     * them overlaps the segment.
+     */
+    public static class Header {
+        public final long segmentId;
+        public final int partitionCount;
+        public final InstanceId instanceId;
+        public final long initialTxnId;
+        public final Map<Integer, Long> initialPartitionTxnIds;
+
+        public Header(long segmentId, int partitionCount, InstanceId instanceId,
+                      long initialTxnId, Map<Integer, Long> initialPartitionTxnIds) {
+            this.segmentId = segmentId;
+            this.partitionCount = partitionCount;
+            this.instanceId = instanceId;
+            this.initialTxnId = initialTxnId;
+            this.initialPartitionTxnIds = Collections.unmodifiableMap(new TreeMap<>(initialPartitionTxnIds));
+        }
+
+        int getSerializedSize() {
+            return 4 + 4 + 4 + 8 + 4 + 4 + 8 + 8 + 4 + initialPartitionTxnIds.size() * (4 + 8);
+        }
+
+        void flattenToBuffer(ByteBuffer buf) {
+            buf.putInt(getSerializedSize());
+            buf.putInt(MAGIC);
+            buf.putInt(VERSION);
+            buf.putLong(segmentId);
+            buf.putInt(partitionCount);
+            buf.putInt(instanceId.getCoord());
+            buf.putLong(instanceId.getTimestamp());
+            buf.putLong(initialTxnId);
+            buf.putInt(initialPartitionTxnIds.size());
+            for (Map.Entry<Integer, Long> e : initialPartitionTxnIds.entrySet()) {
+                buf.putInt(e.getKey());
+                buf.putLong(e.getValue());
+            }
+        }
+
+        static Header initFromBuffer(ByteBuffer buf) throws IOException {
+            buf.getInt(); // length
+            if (buf.getInt() != MAGIC) {
+                throw new IOException("Not a command log segment");
+            }
+            final int version = buf.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported command log segment version " + version);
+            }
+            final long segmentId = buf.getLong();
+            final int partitionCount = buf.getInt();
+            final InstanceId instanceId = new InstanceId(buf.getInt(), buf.getLong());
+            final long initialTxnId = buf.getLong();
+            final int count = buf.getInt();
+            final Map<Integer, Long> txnIds = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                txnIds.put(buf.getInt(), buf.getLong());
+            }
+            return new Header(segmentId, partitionCount, instanceId, initialTxnId, txnIds);
+        }
+    }
+
+    /**
+     * A logged entry read back from a segment.
+     */
+    public static class Entry {
+        public final byte type;
+        public final long spHandle;
+        // Set for INITIATE_ENTRY
+        public final Iv2InitiateTaskMessage message;
+        // Set for FAULT_ENTRY
+        public final long writerHSId;
+        public final int faultPartitionId;
+        public final long[] survivorHSIds;
+
+        private Entry(long spHandle, Iv2InitiateTaskMessage message) {
+            this.type = INITIATE_ENTRY;
+            this.spHandle = spHandle;
+            this.message = message;
+            this.writerHSId = -1;
+            this.faultPartitionId = -1;
+            this.survivorHSIds = null;
+        }
+
+        private Entry(long spHandle, long writerHSId, int partitionId, long[] survivorHSIds) {
+            this.type = FAULT_ENTRY;
+            this.spHandle = spHandle;
+            this.message = null;
+            this.writerHSId = writerHSId;
+            this.faultPartitionId = partitionId;
+            this.survivorHSIds = survivorHSIds;
+        }
+    }
+
+    /**
+     * Serialize an initiate task into a self contained, checksummed entry.
+     */
+    public static ByteBuffer serializeInitiate(Iv2InitiateTaskMessage message, long spHandle) throws IOException {
+        final int payloadSize = message.getSerializedSize();
+        final ByteBuffer entry = ByteBuffer.allocate(ENTRY_HEADER_SIZE + payloadSize);
+        entry.position(ENTRY_HEADER_SIZE);
+        // The message insists on filling its buffer exactly
+        message.flattenToBuffer(entry.slice());
+        return finishEntry(entry, INITIATE_ENTRY, spHandle, payloadSize);
+    }
+
+    /**
+     * Serialize the viable replay set written by a partition leader after a fault.
+     */
+    public static ByteBuffer serializeFault(long writerHSId, Set<Long> survivorHSIds,
+                                            int partitionId, long spHandle) {
+        final int payloadSize = 8 + 4 + 4 + survivorHSIds.size() * 8;
+        final ByteBuffer entry = ByteBuffer.allocate(ENTRY_HEADER_SIZE + payloadSize);
+        entry.position(ENTRY_HEADER_SIZE);
+        entry.putLong(writerHSId);
+        entry.putInt(partitionId);
+        entry.putInt(survivorHSIds.size());
+        for (long hsId : survivorHSIds) {
+            entry.putLong(hsId);
+        }
+        return finishEntry(entry, FAULT_ENTRY, spHandle, payloadSize);
+    }
+
+    private static ByteBuffer finishEntry(ByteBuffer entry, byte type, long spHandle, int payloadSize) {
+        entry.put(8, type);
+        entry.putLong(9, spHandle);
+        final PureJavaCrc32C crc = new PureJavaCrc32C();
+        crc.update(entry.array(), 8, entry.capacity() - 8);
+        entry.putInt(0, payloadSize);
+        entry.putInt(4, (int) crc.getValue());
+        entry.position(0);
+        entry.limit(entry.capacity());
+        return entry;
+    }
+
+    private final File m_file;
+    private final Header m_header;
+    private final FileChannel m_channel;
+    private final long m_capacity;
+    private long m_position;
+    private int m_entryCount = 0;
+    // The highest spHandle logged to this segment for each partition, used to decide
+    // whether a truncation snapshot covers every entry in it.
+    private final Map<Integer, Long> m_maxSpHandles = new HashMap<>();
+
+    private CommandLogSegment(File file, Header header, FileChannel channel, long capacity, long position) {
+        m_file = file;
+        m_header = header;
+        m_channel = channel;
+        m_capacity = capacity;
+        m_position = position;
+    }
+
+    public static File getFile(File dir, long segmentId) {
+        return new File(dir, String.format("%s%019d%s", FILE_PREFIX, segmentId, FILE_SUFFIX));
+    }
+
+    /**
+     * Create and preallocate a new segment. The header is synced before returning so that
+     * the segment is recognizable even if nothing else is ever written to it.
+     */
+    public static CommandLogSegment create(File dir, Header header, long capacity) throws IOException {
+        final File file = getFile(dir, header.segmentId);
+        if (file.exists()) {
+            throw new IOException("Command log segment " + file + " already exists");
+        }
+        final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            // Preallocate so that appends don't have to update the file size (and sync the
+            // file metadata) on every group commit.
+            raf.setLength(capacity);
+            final FileChannel channel = raf.getChannel();
+            final ByteBuffer buf = ByteBuffer.allocate(header.getSerializedSize());
+            header.flattenToBuffer(buf);
+            buf.flip();
+            while (buf.hasRemaining()) {
+                channel.write(buf, buf.position());
+            }
+            channel.force(true);
+            return new CommandLogSegment(file, header, channel, capacity, buf.limit());
+        } catch (IOException e) {
+            raf.close();
+            file.delete();
+            throw e;
+        }
+    }
+
+    public Header getHeader() {
+        return m_header;
+    }
+
+    public File getFile() {
+        return m_file;
+    }
+
+    public long getSegmentId() {
+        return m_header.segmentId;
+    }
+
+    public int getEntryCount() {
+        return m_entryCount;
+    }
+
+    public boolean hasRoomFor(long bytes) {
+        // Always leave room for a terminating zero length
+        return m_position + bytes + 4 <= m_capacity;
+    }
+
+    public boolean isEmpty() {
+        return m_entryCount == 0;
+    }
+
+    /**
+     * Append serialized entries at the current position. Does not sync.
+     */
+    public void append(ByteBuffer[] entries, long totalBytes) throws IOException {
+        assert(hasRoomFor(totalBytes));
+        m_channel.position(m_position);
+        long written = 0;
+        while (written < totalBytes) {
+            written += m_channel.write(entries);
+        }
+        m_position += totalBytes;
+        for (ByteBuffer entry : entries) {
+            final long spHandle = entry.getLong(9);
+            final int partitionId = TxnEgo.getPartitionId(spHandle);
+            final Long current = m_maxSpHandles.get(partitionId);
+            if (current == null || current < spHandle) {
+                m_maxSpHandles.put(partitionId, spHandle);
+            }
+            m_entryCount++;
+        }
+    }
+
+    /**
+     * Sync the written data. The segment was preallocated, so there is no metadata to sync.
+     */
+    public void force() throws IOException {
+        m_channel.force(false);
+    }
+
+    /**
+     * @return true if a snapshot with the given per-partition txnIds contains the effects of
+     * every entry written to this segment.
+     */
+    public boolean isCoveredBy(Map<Integer, Long> partitionTxnIds) {
+        for (Map.Entry<Integer, Long> e : m_maxSpHandles.entrySet()) {
+            final Long snapshotTxnId = partitionTxnIds.get(e.getKey());
+            if (snapshotTxnId == null || snapshotTxnId < e.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void close() throws IOException {
+        m_channel.close();
+    }
+
+    public void closeAndDelete() throws IOException {
+        close();
+        if (!m_file.delete() && m_file.exists()) {
+            throw new IOException("Unable to delete command log segment " + m_file);
+        }
+    }
+
+    /**
+     * @return the segment files in dir, ordered by segment id
+     */
+    public static List<File> listSegments(File dir) {
+        final File[] files = dir.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File f) {
+                return f.isFile() && f.getName().startsWith(FILE_PREFIX) && f.getName().endsWith(FILE_SUFFIX);
+            }
+        });
+        if (files == null) {
+            return new ArrayList<>();
+        }
+        Arrays.sort(files);
+        return new ArrayList<>(Arrays.asList(files));
+    }
+
+    public static Header readHeader(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            final FileChannel channel = raf.getChannel();
+            final ByteBuffer lengthBuf = ByteBuffer.allocate(4);
+            readFully(channel, lengthBuf, 0);
+            final int length = lengthBuf.getInt(0);
+            if (length < 4 || length > channel.size()) {
+                throw new IOException("Corrupt command log segment header in " + file);
+            }
+            final ByteBuffer buf = ByteBuffer.allocate(length);
+            readFully(channel, buf, 0);
+            buf.flip();
+            return Header.initFromBuffer(buf);
+        }
+    }
+
+    /**
+     * Read every intact entry in the segment. Reading stops at the end of the written data
+     * or at the first entry that fails its checksum.
+     */
+    public static List<Entry> readEntries(File file) throws IOException {
+        final List<Entry> entries = new ArrayList<>();
+        final VoltDbMessageFactory factory = new VoltDbMessageFactory();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            final FileChannel channel = raf.getChannel();
+            final long size = channel.size();
+            final ByteBuffer lengthBuf = ByteBuffer.allocate(4);
+            readFully(channel, lengthBuf, 0);
+            long position = lengthBuf.getInt(0);
+            final ByteBuffer entryHeader = ByteBuffer.allocate(ENTRY_HEADER_SIZE);
+            while (position + ENTRY_HEADER_SIZE <= size) {
+                entryHeader.clear();
+                readFully(channel, entryHeader, position);
+                final int payloadSize = entryHeader.getInt(0);
+                if (payloadSize <= 0 || position + ENTRY_HEADER_SIZE + payloadSize > size) {
+                    break;
+                }
+                final ByteBuffer entry = ByteBuffer.allocate(ENTRY_HEADER_SIZE + payloadSize);
+                readFully(channel, entry, position);
+                final PureJavaCrc32C crc = new PureJavaCrc32C();
+                crc.update(entry.array(), 8, entry.capacity() - 8);
+                if ((int) crc.getValue() != entry.getInt(4)) {
+                    break;
+                }
+                final byte type = entry.get(8);
+                final long spHandle = entry.getLong(9);
+                entry.position(ENTRY_HEADER_SIZE);
+                if (type == INITIATE_ENTRY) {
+                    entries.add(new Entry(spHandle,
+                            (Iv2InitiateTaskMessage) factory.createMessageFromBuffer(entry.slice(), -1)));
+                }
+                else if (type == FAULT_ENTRY) {
+                    final long writerHSId = entry.getLong();
+                    final int partitionId = entry.getInt();
+                    final long[] survivors = new long[entry.getInt()];
+                    for (int i = 0; i < survivors.length; i++) {
+                        survivors[i] = entry.getLong();
+                    }
+                    entries.add(new Entry(spHandle, writerHSId, partitionId, survivors));
+                }
+                else {
+                    throw new IOException("Unknown command log entry type " + type + " in " + file);
+                }
+                position += ENTRY_HEADER_SIZE + payloadSize;
+            }
+        }
+        return entries;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, position + buf.position()) < 0) {
+                throw new IOException("Unexpected end of command log segment");
+            }
+        }
+    }
+}
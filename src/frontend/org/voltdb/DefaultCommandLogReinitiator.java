@@ -17,17 +17,94 @@
 
 package org.voltdb;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+import org.voltcore.logging.VoltLogger;
 import org.voltcore.utils.InstanceId;
+import org.voltdb.client.ClientResponse;
 import org.voltdb.dtxn.TransactionCreator;
+import org.voltdb.iv2.MpInitiator;
+import org.voltdb.iv2.TxnEgo;
+import org.voltdb.messaging.Iv2InitiateTaskMessage;
 
 /**
  * The default command log reinitiator for community edition VoltDB.
+ *
+ * When constructed with a command log path it replays the segments written by
+ * {@link FileCommandLog}. Single partition invocations are reinitiated at their
+ * partition, each multi-partition invocation is reinitiated once at the MPI with a
+ * sentinel marking its position in the log of every local partition that logged it.
+ * Replay from the community log is limited to single node clusters, where one host
+ * holds the log of every partition.
  */
 public class DefaultCommandLogReinitiator implements CommandLogReinitiator
 {
+    private static final VoltLogger LOG = new VoltLogger("LOGGING");
+
     private Callback m_callback;
+    private TransactionCreator m_initiator;
+
+    private final File m_clPath;
+    private final int m_liveHostCount;
+    private final List<File> m_segmentFiles = new ArrayList<>();
+    private CommandLogSegment.Header m_firstHeader = null;
+    private List<CommandLogSegment.Entry> m_replayPlan = new ArrayList<>();
+    private RestoreAgent.SnapshotInfo m_snapshotInfo = null;
+    private volatile boolean m_hasReplayedTxns = false;
+
+    private final Map<Integer, SimpleClientResponseAdapter> m_adapters = new HashMap<>();
+    private int m_outstandingTxns = 0;
+    private final SimpleClientResponseAdapter.Callback m_responseCallback =
+        new SimpleClientResponseAdapter.Callback() {
+            @Override
+            public void handleResponse(ClientResponse response) {
+                if (response.getStatus() != ClientResponse.SUCCESS &&
+                    response.getStatus() != ClientResponse.USER_ABORT) {
+                    LOG.warn("Replayed transaction failed: " + response.getStatusString());
+                }
+                synchronized (DefaultCommandLogReinitiator.this) {
+                    m_outstandingTxns--;
+                    DefaultCommandLogReinitiator.this.notifyAll();
+                }
+            }
+        };
+
+    /**
+     * A reinitiator with no command log to replay.
+     */
+    public DefaultCommandLogReinitiator() {
+        m_clPath = null;
+        m_liveHostCount = 1;
+    }
+
+    /**
+     * A reinitiator for the segments left in clPath by {@link FileCommandLog}.
+     */
+    public DefaultCommandLogReinitiator(String clPath, Set<Integer> liveHosts) {
+        m_clPath = new File(clPath);
+        m_liveHostCount = liveHosts.size();
+        for (File segment : CommandLogSegment.listSegments(m_clPath)) {
+            try {
+                CommandLogSegment.Header header = CommandLogSegment.readHeader(segment);
+                if (m_firstHeader == null) {
+                    m_firstHeader = header;
+                }
+                m_segmentFiles.add(segment);
+            } catch (IOException e) {
+                LOG.warn("Ignoring unreadable command log segment " + segment, e);
+            }
+        }
+        if (!m_segmentFiles.isEmpty()) {
+            LOG.info("Found " + m_segmentFiles.size() + " command log segments in " + m_clPath);
+        }
+    }
 
     @Override
     public void setCallback(Callback callback) {
@@ -39,34 +116,124 @@ public class DefaultCommandLogReinitiator implements CommandLogReinitiator
         new Thread(new Runnable() {
             @Override
             public void run() {
+                try {
+                    replayEntries();
+                } catch (InterruptedException e) {
+                    VoltDB.crashLocalVoltDB("Interrupted during command log replay", true, e);
+                }
                 if (m_callback != null) {
                     m_callback.onReplayCompletion();
                 }
             }
-        }).start();
+        }, "Command log replay").start();
+    }
+
+    private void replayEntries() throws InterruptedException {
+        if (m_replayPlan.isEmpty()) {
+            return;
+        }
+
+        final Map<Integer, Long> snapshotPartitionTxnIds = new HashMap<>();
+        long snapshotMpTxnId = Long.MIN_VALUE;
+        if (m_snapshotInfo != null) {
+            snapshotPartitionTxnIds.putAll(m_snapshotInfo.partitionToTxnId);
+            snapshotMpTxnId = m_snapshotInfo.txnId;
+        }
+
+        int replayed = 0;
+        final Set<Long> initiatedMps = new HashSet<>();
+        for (CommandLogSegment.Entry entry : m_replayPlan) {
+            if (entry.type != CommandLogSegment.INITIATE_ENTRY) {
+                // The viable replay sets only matter with replicas on other hosts
+                continue;
+            }
+            final Iv2InitiateTaskMessage msg = entry.message;
+            final int partitionId = TxnEgo.getPartitionId(entry.spHandle);
+            if (msg.isSinglePartition()) {
+                final Long snapshotTxnId = snapshotPartitionTxnIds.get(partitionId);
+                if (snapshotTxnId != null && entry.spHandle <= snapshotTxnId) {
+                    continue;
+                }
+                reinitiate(partitionId, msg);
+                replayed++;
+            }
+            else {
+                if (msg.getTxnId() <= snapshotMpTxnId) {
+                    continue;
+                }
+                // Hold this partition's later work until the MP reaches it
+                m_initiator.sendSentinel(msg.getUniqueId(), partitionId);
+                if (initiatedMps.add(msg.getTxnId())) {
+                    reinitiate(MpInitiator.MP_INIT_PID, msg);
+                    replayed++;
+                }
+            }
+        }
+        // Release anything still sequenced behind a sentinel
+        m_initiator.sendEOLMessage(MpInitiator.MP_INIT_PID);
+
+        synchronized (this) {
+            while (m_outstandingTxns > 0) {
+                wait();
+            }
+        }
+        LOG.info("Replayed " + replayed + " transactions from the command log");
+    }
+
+    private void reinitiate(int partitionId, Iv2InitiateTaskMessage msg) {
+        SimpleClientResponseAdapter adapter = m_adapters.get(partitionId);
+        if (adapter == null) {
+            adapter = new SimpleClientResponseAdapter(ClientInterface.CL_REPLAY_BASE_CID + partitionId,
+                                                      "CommandLogReplayAdapter" + partitionId);
+            m_initiator.bindAdapter(adapter);
+            m_adapters.put(partitionId, adapter);
+        }
+
+        final StoredProcedureInvocation invocation = msg.getStoredProcedureInvocation();
+        invocation.setClientHandle(adapter.registerCallback(m_responseCallback));
+        synchronized (this) {
+            m_outstandingTxns++;
+        }
+        m_hasReplayedTxns = true;
+        if (!m_initiator.createTransaction(adapter.connectionId(),
+                                           msg.getTxnId(),
+                                           msg.getUniqueId(),
+                                           invocation,
+                                           msg.isReadOnly(),
+                                           msg.isSinglePartition(),
+                                           false,
+                                           partitionId,
+                                           invocation.getSerializedSize(),
+                                           System.nanoTime())) {
+            VoltDB.crashLocalVoltDB("Unable to reinitiate " + invocation.getProcName() +
+                                    " during command log replay", false, null);
+        }
     }
 
     @Override
     public boolean hasReplayedSegments() {
-        return false;
+        return !m_segmentFiles.isEmpty();
     }
 
     @Override
     public Long getMaxLastSeenTxn() {
-        return null;
+        return m_firstHeader == null ? null : m_firstHeader.initialTxnId;
     }
 
     @Override
     public Map<Integer, Long> getMaxLastSeenTxnByPartition() {
-        return null;
+        return m_firstHeader == null ? null : m_firstHeader.initialPartitionTxnIds;
     }
 
     @Override
     public void setSnapshotTxnId(RestoreAgent.SnapshotInfo info) {
+        m_snapshotInfo = info;
     }
 
     @Override
     public void returnAllSegments() {
+        // The segments themselves are deleted by the command log once a truncation snapshot covers them
+        m_replayPlan = new ArrayList<>();
     }
 
     @Override
@@ -77,23 +244,44 @@ public class DefaultCommandLogReinitiator implements CommandLogReinitiator
 
     @Override
     public boolean hasReplayedTxns() {
-        return false;
+        return m_hasReplayedTxns;
     }
 
     @Override
     public void generateReplayPlan(long snapshotTimeStamp, long snapshotTxnId,
             int newPartitionCount, boolean isMpiNode) {
+        if (m_segmentFiles.isEmpty()) {
+            return;
+        }
+        if (m_liveHostCount > 1) {
+            VoltDB.crashGlobalVoltDB("Replaying the command log of the community edition " +
+                                     "is only supported on single node clusters", false, null);
+        }
+        if (m_firstHeader.partitionCount != newPartitionCount) {
+            VoltDB.crashGlobalVoltDB("The command log was written with " + m_firstHeader.partitionCount +
+                                     " partitions but the cluster has " + newPartitionCount, false, null);
+        }
+        final List<CommandLogSegment.Entry> plan = new ArrayList<>();
+        for (File segment : m_segmentFiles) {
+            try {
+                plan.addAll(CommandLogSegment.readEntries(segment));
+            } catch (IOException e) {
+                VoltDB.crashGlobalVoltDB("Unable to read command log segment " + segment, true, e);
+            }
+        }
+        m_replayPlan = plan;
     }
 
     @Override
     public void setInitiator(TransactionCreator initiator) {
+        m_initiator = initiator;
     }
 
     @Override
     public InstanceId getInstanceId() {
         // When we don't have a command log, return null to cause the instance ID
         // check to get skipped entirely in RestoreAgent.generatePlans()
-        return null;
+        return m_firstHeader == null ? null : m_firstHeader.instanceId;
     }
 
     @Override
@@ -0,0 +1,513 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.zookeeper_voltpatches.CreateMode;
+import org.apache.zookeeper_voltpatches.ZooDefs.Ids;
+import org.voltcore.logging.VoltLogger;
+import org.voltcore.messaging.HostMessenger;
+import org.voltcore.utils.InstanceId;
+import org.voltcore.utils.Pair;
+import org.voltdb.iv2.TransactionTask;
+import org.voltdb.messaging.Iv2InitiateTaskMessage;
+
+import com.google_voltpatches.common.util.concurrent.Futures;
+import com.google_voltpatches.common.util.concurrent.ListenableFuture;
+import com.google_voltpatches.common.util.concurrent.SettableFuture;
+
+/**
+ * A file backed command log for the community edition.
+ *
+ * Invocations handed to {@link #log} by the SpSchedulers are serialized on the caller's
+ * thread and appended to the current batch. A single writer thread closes the batch when
+ * the fsync interval elapses (or the configured number of transactions is reached), writes
+ * it to the active segment with one gathering write, syncs, and then releases every
+ * transaction in the batch through its scheduler's DurabilityListener. This amortizes one
+ * fsync over every transaction that arrived during the interval.
+ *
+ * With synchronous logging the schedulers hold transactions until they are released. With
+ * asynchronous logging they run immediately, and {@link #log} only pushes back by returning
+ * an incomplete future when the writer falls too far behind.
+ *
+ * Segments are preallocated files of {@link #SEGMENT_SIZE} bytes by default. When the segments in use
+ * exceed the configured log size a truncation snapshot is requested, and segments whose
+ * entries are all covered by a completed truncation snapshot are deleted. Segments left
+ * behind by an earlier incarnation are kept until the first truncation snapshot taken after
+ * their replay completes, so that a crash before then can still replay them.
+ */
+public class FileCommandLog implements CommandLog, SnapshotCompletionInterest {
+    private static final VoltLogger LOG = new VoltLogger("LOGGING");
+
+    static final long SEGMENT_SIZE =
+            Long.getLong("org.voltdb.commandlog.segmentSize", 64L * 1024 * 1024);
+    // Asynchronous logging starts applying backpressure past this many unwritten bytes
+    static final long MAX_OUTSTANDING_BYTES =
+            Long.getLong("org.voltdb.commandlog.maxOutstandingBytes", 32L * 1024 * 1024);
+
+    private static final ListenableFuture<Object> COMPLETED_FUTURE = Futures.immediateFuture(null);
+
+    /**
+     * Everything logged during one group commit interval
+     */
+    private static class Batch {
+        final ArrayList<ByteBuffer> m_entries = new ArrayList<>();
+        final ArrayList<SettableFuture<Boolean>> m_faultFutures = new ArrayList<>();
+        final SettableFuture<Object> m_written = SettableFuture.create();
+        long m_bytes = 0;
+        int m_txnCount = 0;
+
+        void add(ByteBuffer entry) {
+            m_entries.add(entry);
+            m_bytes += entry.remaining();
+        }
+
+        boolean isEmpty() {
+            return m_txnCount == 0 && m_entries.isEmpty();
+        }
+    }
+
+    private final boolean m_synchronous;
+    private final int m_fsyncIntervalMs;
+    private final int m_maxTxnsBeforeFsync;
+    private final File m_logDir;
+    private final long m_segmentSize;
+
+    // Guards the current batch and the durability listeners, which are also
+    // touched by the scheduler threads calling log().
+    private final ReentrantLock m_lock = new ReentrantLock();
+    private final Condition m_batchReady = m_lock.newCondition();
+    private final List<DurabilityListener> m_listeners = new ArrayList<>();
+    private Batch m_currentBatch = new Batch();
+
+    // In use segments, oldest first. The last one is being appended to.
+    private final ArrayDeque<CommandLogSegment> m_segments = new ArrayDeque<>();
+    // Segments of the previous incarnation, replayed but not yet covered by a truncation snapshot
+    private final ArrayList<File> m_replayedSegments = new ArrayList<>();
+    private long m_nextSegmentId = 1;
+    private long m_logSizeBytes;
+    private int m_partitionCount;
+    private InstanceId m_instanceId;
+    private long m_truncationTxnId = Long.MIN_VALUE;
+    private Map<Integer, Long> m_truncationPartitionTxnIds = new HashMap<>();
+    private final AtomicBoolean m_truncationRequested = new AtomicBoolean(false);
+
+    private volatile boolean m_initialized = false;
+    private volatile boolean m_interestRegistered = false;
+    private volatile boolean m_shutdown = false;
+    private final Thread m_writerThread;
+
+    private final AtomicLong m_outstandingBytes = new AtomicLong();
+    private final AtomicLong m_outstandingTxns = new AtomicLong();
+
+    public FileCommandLog(boolean synchronous,
+                          int fsyncIntervalMs,
+                          int maxTxnsBeforeFsync,
+                          String logPath,
+                          String snapshotPath) {
+        this(synchronous, fsyncIntervalMs, maxTxnsBeforeFsync, logPath, SEGMENT_SIZE);
+    }
+
+    FileCommandLog(boolean synchronous,
+                   int fsyncIntervalMs,
+                   int maxTxnsBeforeFsync,
+                   String logPath,
+                   long segmentSize) {
+        m_synchronous = synchronous;
+        m_fsyncIntervalMs = Math.max(1, fsyncIntervalMs);
+        m_maxTxnsBeforeFsync = Math.max(1, maxTxnsBeforeFsync);
+        m_logDir = new File(logPath);
+        m_segmentSize = segmentSize;
+        if (!m_logDir.exists() && !m_logDir.mkdirs()) {
+            VoltDB.crashLocalVoltDB("Unable to create command log directory " + m_logDir, false, null);
+        }
+
+        // The writer runs from the start so that transactions replayed before init()
+        // are still released; they just aren't written anywhere.
+        m_writerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeLoop();
+            }
+        }, "Command log writer");
+        m_writerThread.setDaemon(true);
+        m_writerThread.start();
+    }
+
+    @Override
+    public void init(int logSize, long txnId, int partitionCount, String coreBinding,
+                     Map<Integer, Long> perPartitionTxnId) {
+        HostMessenger messenger = VoltDB.instance().getHostMessenger();
+        initSegments(logSize, txnId, partitionCount, perPartitionTxnId, messenger.getInstanceId());
+        VoltDB.instance().getSnapshotCompletionMonitor().addInterest(this);
+        m_interestRegistered = true;
+    }
+
+    @Override
+    public void initForRejoin(int logSize, long txnId, int partitionCount, boolean isRejoin,
+                              String coreBinding, Map<Integer, Long> perPartitionTxnId) {
+        init(logSize, txnId, partitionCount, coreBinding, perPartitionTxnId);
+    }
+
+    /**
+     * Open the first segment after whatever an earlier incarnation left behind. The old
+     * segments have been replayed by now, but their transactions are only safe once a
+     * truncation snapshot has been written, so they are kept until one completes.
+     */
+    void initSegments(int logSizeMB, long txnId, int partitionCount,
+                      Map<Integer, Long> perPartitionTxnId, InstanceId instanceId) {
+        synchronized (m_segments) {
+            m_logSizeBytes = Math.max(m_segmentSize, logSizeMB * 1024L * 1024L);
+            m_partitionCount = partitionCount;
+            m_instanceId = instanceId;
+            m_truncationTxnId = txnId;
+            if (perPartitionTxnId != null) {
+                m_truncationPartitionTxnIds = new HashMap<>(perPartitionTxnId);
+            }
+            try {
+                for (File replayed : CommandLogSegment.listSegments(m_logDir)) {
+                    try {
+                        m_nextSegmentId = Math.max(m_nextSegmentId,
+                                CommandLogSegment.readHeader(replayed).segmentId + 1);
+                    } catch (IOException e) {
+                        LOG.warn("Ignoring unreadable command log segment " + replayed, e);
+                    }
+                    m_replayedSegments.add(replayed);
+                }
+                m_segments.add(createSegment(0));
+            } catch (IOException e) {
+                VoltDB.crashLocalVoltDB("Unable to initialize the command log in " + m_logDir, true, e);
+            }
+        }
+        LOG.info("Command logging initialized with " + (m_synchronous ? "synchronous" : "asynchronous") +
+                 " group commit every " + m_fsyncIntervalMs + "ms in " + m_logDir);
+        m_initialized = true;
+    }
+
+    /**
+     * Create the next segment, large enough to hold at least one entry of the given size.
+     */
+    private CommandLogSegment createSegment(long minEntryBytes) throws IOException {
+        CommandLogSegment.Header header = new CommandLogSegment.Header(m_nextSegmentId++,
+                                                                       m_partitionCount,
+                                                                       m_instanceId,
+                                                                       m_truncationTxnId,
+                                                                       m_truncationPartitionTxnIds);
+        final long capacity = Math.max(m_segmentSize, header.getSerializedSize() + minEntryBytes + 4);
+        return CommandLogSegment.create(m_logDir, header, capacity);
+    }
+
+    @Override
+    public boolean needsInitialization() {
+        return !m_initialized;
+    }
+
+    @Override
+    public ListenableFuture<Object> log(Iv2InitiateTaskMessage message,
+                                        long spHandle,
+                                        int[] involvedPartitions,
+                                        DurabilityListener listener,
+                                        TransactionTask durabilityHandle) {
+        // Serialize outside the lock. Reads don't change state and aren't replayed, but
+        // they still pass through the batch so that they are released in order.
+        ByteBuffer entry = null;
+        if (m_initialized && message != null && !message.isReadOnly()) {
+            try {
+                entry = CommandLogSegment.serializeInitiate(message, spHandle);
+            } catch (IOException e) {
+                VoltDB.crashLocalVoltDB("Unable to serialize a command log entry", true, e);
+            }
+        }
+
+        m_lock.lock();
+        try {
+            final Batch batch = m_currentBatch;
+            if (entry != null) {
+                batch.add(entry);
+                m_outstandingBytes.addAndGet(entry.remaining());
+            }
+            batch.m_txnCount++;
+            m_outstandingTxns.incrementAndGet();
+            listener.addTransaction(durabilityHandle);
+            if (batch.m_txnCount >= m_maxTxnsBeforeFsync) {
+                m_batchReady.signal();
+            }
+
+            if (m_synchronous) {
+                return null;
+            }
+            return m_outstandingBytes.get() > MAX_OUTSTANDING_BYTES ? batch.m_written : COMPLETED_FUTURE;
+        } finally {
+            m_lock.unlock();
+        }
+    }
+
+    @Override
+    public SettableFuture<Boolean> logIv2Fault(long writerHSId, Set<Long> survivorHSId,
+                                               int partitionId, long spHandle) {
+        final SettableFuture<Boolean> written = SettableFuture.create();
+        if (!m_initialized) {
+            written.set(false);
+            return written;
+        }
+        final ByteBuffer entry = CommandLogSegment.serializeFault(writerHSId, survivorHSId, partitionId, spHandle);
+        m_lock.lock();
+        try {
+            m_currentBatch.add(entry);
+            m_currentBatch.m_faultFutures.add(written);
+            m_outstandingBytes.addAndGet(entry.remaining());
+            // Don't make a repairing partition wait out the interval
+            m_batchReady.signal();
+        } finally {
+            m_lock.unlock();
+        }
+        return written;
+    }
+
+    private void writeLoop() {
+        long nextSync = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(m_fsyncIntervalMs);
+        while (true) {
+            final Batch batch;
+            final List<Pair<DurabilityListener, CompletionChecks>> checks = new ArrayList<>();
+            m_lock.lock();
+            try {
+                long now = System.nanoTime();
+                while (!m_shutdown &&
+                       now < nextSync &&
+                       m_currentBatch.m_txnCount < m_maxTxnsBeforeFsync &&
+                       m_currentBatch.m_faultFutures.isEmpty()) {
+                    m_batchReady.awaitNanos(nextSync - now);
+                    now = System.nanoTime();
+                }
+                nextSync = now + TimeUnit.MILLISECONDS.toNanos(m_fsyncIntervalMs);
+                if (m_currentBatch.isEmpty()) {
+                    if (m_shutdown) {
+                        return;
+                    }
+                    continue;
+                }
+                batch = m_currentBatch;
+                m_currentBatch = new Batch();
+                // Everything added to the listeners so far belongs to this batch
+                for (DurabilityListener listener : m_listeners) {
+                    checks.add(Pair.of(listener, listener.startNewTaskList(listener.getNumberOfTasks())));
+                }
+            } catch (InterruptedException e) {
+                continue;
+            } finally {
+                m_lock.unlock();
+            }
+
+            try {
+                writeBatch(batch);
+            } catch (IOException e) {
+                VoltDB.crashLocalVoltDB("Unable to write to the command log in " + m_logDir, true, e);
+            }
+
+            m_outstandingBytes.addAndGet(-batch.m_bytes);
+            m_outstandingTxns.addAndGet(-batch.m_txnCount);
+            batch.m_written.set(null);
+            for (SettableFuture<Boolean> fault : batch.m_faultFutures) {
+                fault.set(true);
+            }
+            for (Pair<DurabilityListener, CompletionChecks> check : checks) {
+                check.getFirst().processDurabilityChecks(check.getSecond());
+            }
+        }
+    }
+
+    private void writeBatch(Batch batch) throws IOException {
+        if (batch.m_entries.isEmpty()) {
+            return;
+        }
+        boolean requestTruncation = false;
+        synchronized (m_segments) {
+            final Iterator<ByteBuffer> entries = batch.m_entries.iterator();
+            final ArrayList<ByteBuffer> chunk = new ArrayList<>();
+            long chunkBytes = 0;
+            while (entries.hasNext()) {
+                final ByteBuffer entry = entries.next();
+                final CommandLogSegment active = m_segments.getLast();
+                if (!active.hasRoomFor(chunkBytes + entry.remaining())) {
+                    // Fill the active segment as far as the entries go, then roll over
+                    if (!chunk.isEmpty()) {
+                        active.append(chunk.toArray(new ByteBuffer[chunk.size()]), chunkBytes);
+                        chunk.clear();
+                        chunkBytes = 0;
+                    }
+                    active.force();
+                    m_segments.add(createSegment(entry.remaining()));
+                    requestTruncation = m_segments.size() * m_segmentSize > m_logSizeBytes;
+                }
+                chunk.add(entry);
+                chunkBytes += entry.remaining();
+            }
+            final CommandLogSegment active = m_segments.getLast();
+            active.append(chunk.toArray(new ByteBuffer[chunk.size()]), chunkBytes);
+            active.force();
+        }
+        if (requestTruncation) {
+            requestTruncationSnapshot(false);
+        }
+    }
+
+    @Override
+    public CountDownLatch snapshotCompleted(SnapshotCompletionEvent event) {
+        if (event.truncationSnapshot && event.didSucceed) {
+            synchronized (m_segments) {
+                m_truncationTxnId = event.multipartTxnId;
+                m_truncationPartitionTxnIds = new HashMap<>(event.partitionTxnIds);
+                // Any truncation snapshot completed since init() was taken after replay finished,
+                // so it contains everything the previous incarnation logged.
+                for (File replayed : m_replayedSegments) {
+                    if (!replayed.delete() && replayed.exists()) {
+                        LOG.warn("Unable to delete replayed command log segment " + replayed);
+                    }
+                }
+                m_replayedSegments.clear();
+                // Keep the active segment even if it is covered, it is still being written.
+                while (m_segments.size() > 1 && m_segments.getFirst().isCoveredBy(event.partitionTxnIds)) {
+                    final CommandLogSegment truncated = m_segments.removeFirst();
+                    try {
+                        truncated.closeAndDelete();
+                    } catch (IOException e) {
+                        LOG.warn("Unable to delete truncated command log segment " + truncated.getFile(), e);
+                    }
+                }
+            }
+            m_truncationRequested.set(false);
+        }
+        return new CountDownLatch(0);
+    }
+
+    @Override
+    public void requestTruncationSnapshot(final boolean queueIfPending) {
+        if (!m_truncationRequested.compareAndSet(false, true) && !queueIfPending) {
+            return;
+        }
+        // Don't block the writer on ZooKeeper
+        VoltDB.instance().scheduleWork(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    VoltDB.instance().getHostMessenger().getZK().create(VoltZK.request_truncation_snapshot_node,
+                            null, Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT_SEQUENTIAL);
+                } catch (Exception e) {
+                    m_truncationRequested.set(false);
+                    LOG.warn("Unable to request a command log truncation snapshot", e);
+                }
+            }
+        }, 0, -1, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void shutdown() throws InterruptedException {
+        m_lock.lock();
+        try {
+            m_shutdown = true;
+            m_batchReady.signal();
+        } finally {
+            m_lock.unlock();
+        }
+        m_writerThread.join();
+        if (m_interestRegistered) {
+            VoltDB.instance().getSnapshotCompletionMonitor().removeInterest(this);
+        }
+        closeSegments();
+    }
+
+    void closeSegments() {
+        synchronized (m_segments) {
+            for (CommandLogSegment segment : m_segments) {
+                try {
+                    segment.force();
+                    segment.close();
+                } catch (IOException e) {
+                    LOG.warn("Unable to close command log segment " + segment.getFile(), e);
+                }
+            }
+            m_segments.clear();
+        }
+    }
+
+    @Override
+    public void initializeLastDurableUniqueId(DurabilityListener listener, long uniqueId) {
+        m_lock.lock();
+        try {
+            listener.initializeLastDurableUniqueId(uniqueId);
+        } finally {
+            m_lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void populateCommandLogStats(Map<String, Integer> columnNameToIndex, Object[] rowValues) {
+        int inUseSegments;
+        synchronized (m_segments) {
+            inUseSegments = m_segments.size();
+        }
+        rowValues[columnNameToIndex.get(CommandLogStats.StatName.OUTSTANDING_BYTES.name())] = m_outstandingBytes.get();
+        rowValues[columnNameToIndex.get(CommandLogStats.StatName.OUTSTANDING_TXNS.name())] = m_outstandingTxns.get();
+        rowValues[columnNameToIndex.get(CommandLogStats.StatName.IN_USE_SEGMENT_COUNT.name())] = inUseSegments;
+        rowValues[columnNameToIndex.get(CommandLogStats.StatName.SEGMENT_COUNT.name())] =
+                (int) Math.max(inUseSegments, m_logSizeBytes / m_segmentSize);
+        rowValues[columnNameToIndex.get(CommandLogStats.StatName.FSYNC_INTERVAL.name())] = m_fsyncIntervalMs;
+    }
+
+    @Override
+    public boolean isSynchronous() {
+        return m_synchronous;
+    }
+
+    @Override
+    public boolean canOfferTask() {
+        // Synchronously logged transactions are offered by their listener once durable
+        return !m_synchronous;
+    }
+
+    @Override
+    public void registerDurabilityListener(DurabilityListener durabilityListener) {
+        m_lock.lock();
+        try {
+            m_listeners.add(durabilityListener);
+        } finally {
+            m_lock.unlock();
+        }
+    }
+}
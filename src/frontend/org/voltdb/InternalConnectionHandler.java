@@ -17,19 +17,27 @@
 
 package org.voltdb;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 
 import org.voltcore.logging.Level;
 import org.voltcore.logging.VoltLogger;
 import org.voltdb.AuthSystem.AuthUser;
+import org.voltdb.catalog.Column;
 import org.voltdb.catalog.Procedure;
 import org.voltdb.catalog.Table;
 import org.voltdb.client.BatchTimeoutOverrideType;
 import org.voltdb.client.ClientResponse;
 import org.voltdb.client.ProcedureCallback;
 import org.voltdb.iv2.MpInitiator;
+import org.voltdb.sysprocs.LoadSinglepartitionTable;
+import org.voltdb.utils.CatalogUtil;
 import org.voltdb.utils.MiscUtils;
 
 import com.google_voltpatches.common.collect.ImmutableMap;
@@ -213,4 +221,260 @@ public class InternalConnectionHandler {
         m_submitSuccessCount.incrementAndGet();
         return true;
     }
+
+    /**
+     * Invoke a procedure once for every parameter set of a batch on behalf of an importer.
+     *
+     * When the procedure is the default insert of a table, the rows are grouped by partition
+     * and every group is loaded by a single @LoadSinglepartitionTable (or @LoadMultipartitionTable
+     * for replicated tables) transaction. Partitioned groups are loaded in bulk insert mode, which
+     * skips the rows it cannot insert, and only those rows are replayed one at a time. A group that
+     * fails as a whole is replayed row by row, so that one bad row does not fail the rest of its
+     * group. Other procedures are invoked once per row.
+     *
+     * @param procCallback invoked once, after every row of the batch completed, see {@link BatchCallback}
+     * @return false if the procedure does not exist, in which case the callback is never invoked
+     */
+    public boolean callProcedureBatch(InternalConnectionContext caller,
+                                      Function<Integer, Boolean> backPressurePredicate,
+                                      InternalConnectionStatsCollector statsCollector,
+                                      ProcedureCallback procCallback, String proc, List<Object[]> batch) {
+        Procedure catProc = InvocationDispatcher.getProcedureFromName(proc, getCatalogContext());
+        if (catProc == null) {
+            String fmt = "Cannot invoke procedure %s from streaming interface %s. Procedure not found.";
+            m_logger.rateLimitedLog(SUPPRESS_INTERVAL, Level.ERROR, null, fmt, proc, caller);
+            m_failedCount.addAndGet(batch.size());
+            return false;
+        }
+
+        final BatchCallback batchCallback = new BatchCallback(procCallback, batch.size());
+        final Table table = getBulkInsertTable(catProc);
+        if (table == null) {
+            for (Object[] row : batch) {
+                callProcedureForBatch(caller, backPressurePredicate, statsCollector, batchCallback, proc, row);
+            }
+            return true;
+        }
+
+        final Column partitionColumn = table.getIsreplicated() ? null : table.getPartitioncolumn();
+        final VoltTable schema = CatalogUtil.getVoltTable(table);
+        final Map<Integer, VoltTable> groups = new HashMap<>();
+        final Map<Integer, List<Object[]>> groupRows = new HashMap<>();
+        for (Object[] row : batch) {
+            VoltTable group = null;
+            try {
+                Object[] converted = convertRow(schema, row);
+                int partition = MpInitiator.MP_INIT_PID;
+                if (partitionColumn != null) {
+                    partition = TheHashinator.getPartitionForParameter(partitionColumn.getType(),
+                            converted[partitionColumn.getIndex()]);
+                }
+                group = groups.get(partition);
+                if (group == null) {
+                    group = CatalogUtil.getVoltTable(table);
+                    groups.put(partition, group);
+                    groupRows.put(partition, new ArrayList<>());
+                }
+                group.addRow(converted);
+                groupRows.get(partition).add(row);
+            } catch (Exception e) {
+                // let the default procedure report why the row is bad
+                callProcedureForBatch(caller, backPressurePredicate, statsCollector, batchCallback, proc, row);
+            }
+        }
+
+        for (Map.Entry<Integer, VoltTable> e : groups.entrySet()) {
+            loadGroup(caller, backPressurePredicate, statsCollector, batchCallback, proc, table, partitionColumn,
+                    e.getKey(), e.getValue(), groupRows.get(e.getKey()));
+        }
+        return true;
+    }
+
+    /**
+     * @return the table to bulk load if the procedure is the default insert of a persistent table, else null
+     */
+    private Table getBulkInsertTable(Procedure catProc) {
+        if (!catProc.getDefaultproc() || !catProc.getTypeName().toLowerCase().endsWith(".insert")) {
+            return null;
+        }
+        Table table = catProc.getPartitiontable();
+        if (table == null || table.getMaterializer() != null ||
+                CatalogUtil.isTableExportOnly(getCatalogContext().database, table)) {
+            return null;
+        }
+        if (!table.getIsreplicated() && table.getPartitioncolumn() == null) {
+            return null;
+        }
+        return table;
+    }
+
+    private static Object[] convertRow(VoltTable schema, Object[] row) {
+        if (row.length != schema.getColumnCount()) {
+            throw new VoltTypeException("Expected " + schema.getColumnCount() + " columns, got " + row.length);
+        }
+        Object[] converted = new Object[row.length];
+        for (int i = 0; i < row.length; i++) {
+            converted[i] = ParameterConverter.tryToMakeCompatible(schema.getColumnType(i).classFromType(), row[i]);
+        }
+        return converted;
+    }
+
+    private void loadGroup(final InternalConnectionContext caller,
+                           final Function<Integer, Boolean> backPressurePredicate,
+                           final InternalConnectionStatsCollector statsCollector,
+                           final BatchCallback batchCallback,
+                           final String proc,
+                           Table table,
+                           Column partitionColumn,
+                           int partition,
+                           VoltTable rows,
+                           final List<Object[]> rawRows) {
+        final String loadProc;
+        final StoredProcedureInvocation task = new StoredProcedureInvocation();
+        if (partitionColumn != null) {
+            loadProc = "@LoadSinglepartitionTable";
+            Object partitionValue = rows.fetchRow(0).get(partitionColumn.getIndex(),
+                    VoltType.get((byte) partitionColumn.getType()));
+            task.setProcName(loadProc);
+            task.setParams(VoltType.valueToBytes(partitionValue), table.getTypeName(),
+                    LoadSinglepartitionTable.MODE_BULK_INSERT, rows);
+        } else {
+            loadProc = "@LoadMultipartitionTable";
+            task.setProcName(loadProc);
+            task.setParams(table.getTypeName(), (byte) 0, rows);
+        }
+
+        final ProcedureCallback groupCallback = new ProcedureCallback() {
+            @Override
+            public void clientCallback(ClientResponse response) throws Exception {
+                switch (response.getStatus()) {
+                case ClientResponse.RESPONSE_UNKNOWN:
+                    // the adapter resubmits the transaction
+                    return;
+                case ClientResponse.USER_ABORT:
+                case ClientResponse.GRACEFUL_FAILURE:
+                    // a constraint violation fails the whole group, replay it one row at a time
+                    for (Object[] row : rawRows) {
+                        callProcedureForBatch(caller, null, statsCollector, batchCallback, proc, row);
+                    }
+                    return;
+                default:
+                    // a bulk insert succeeds without the rows it could not insert, replay them alone
+                    int rejected = 0;
+                    if (response.getStatus() == ClientResponse.SUCCESS && response.getResults().length > 1) {
+                        VoltTable rowIndexes = response.getResults()[1];
+                        while (rowIndexes.advanceRow()) {
+                            callProcedureForBatch(caller, null, statsCollector, batchCallback, proc,
+                                    rawRows.get((int) rowIndexes.getLong(0)));
+                            ++rejected;
+                        }
+                    }
+                    int completed = rawRows.size() - rejected;
+                    if (completed == 0) {
+                        return;
+                    }
+                    if (statsCollector != null) {
+                        for (int i = 0; i < completed; i++) {
+                            statsCollector.reportCompletion(caller.getName(), proc, response);
+                        }
+                    }
+                    batchCallback.complete(completed, response);
+                }
+            }
+        };
+
+        StoredProcedureInvocation roundTripped;
+        try {
+            roundTripped = MiscUtils.roundTripForCL(task);
+        } catch (Exception e) {
+            String fmt = "Cannot invoke procedure %s from streaming interface %s. failed to create task.";
+            m_logger.rateLimitedLog(SUPPRESS_INTERVAL, Level.ERROR, null, fmt, loadProc, caller);
+            failBatchRows(caller, statsCollector, batchCallback, proc, rawRows.size());
+            return;
+        }
+
+        final Procedure loadCatProc = InvocationDispatcher.getProcedureFromName(loadProc, getCatalogContext());
+        final InternalClientResponseAdapter adapter = m_adapters.get(partition);
+        if (adapter == null) {
+            String fmt = "Cannot invoke procedure %s from streaming interface %s. No adapter for partition %d.";
+            m_logger.rateLimitedLog(SUPPRESS_INTERVAL, Level.ERROR, null, fmt, loadProc, caller, partition);
+            failBatchRows(caller, statsCollector, batchCallback, proc, rawRows.size());
+            return;
+        }
+        InternalAdapterTaskAttributes kattrs = new InternalAdapterTaskAttributes(caller, adapter.connectionId());
+        final AuthUser user = getCatalogContext().authSystem.getImporterUser();
+        if (!adapter.createTransaction(kattrs, loadProc, loadCatProc, groupCallback, null, roundTripped, user,
+                new int[] { partition }, false, backPressurePredicate)) {
+            failBatchRows(caller, statsCollector, batchCallback, proc, rawRows.size());
+            return;
+        }
+        m_submitSuccessCount.addAndGet(rawRows.size());
+    }
+
+    private void callProcedureForBatch(InternalConnectionContext caller,
+                                       Function<Integer, Boolean> backPressurePredicate,
+                                       InternalConnectionStatsCollector statsCollector,
+                                       BatchCallback batchCallback, String proc, Object[] row) {
+        if (!callProcedure(caller, backPressurePredicate, statsCollector, batchCallback, proc, row)) {
+            failBatchRows(caller, statsCollector, batchCallback, proc, 1);
+        }
+    }
+
+    private static void failBatchRows(InternalConnectionContext caller,
+                                      InternalConnectionStatsCollector statsCollector,
+                                      BatchCallback batchCallback, String proc, int count) {
+        ClientResponseImpl response = new ClientResponseImpl(ClientResponse.GRACEFUL_FAILURE,
+                new VoltTable[0], "Failed to queue procedure " + proc);
+        if (statsCollector != null) {
+            for (int i = 0; i < count; i++) {
+                statsCollector.reportCompletion(caller.getName(), proc, response);
+            }
+        }
+        try {
+            batchCallback.complete(count, response);
+        } catch (Exception e) {
+            m_logger.error("Failed to complete import batch", e);
+        }
+    }
+
+    /**
+     * Counts down the rows of a batch and calls back the importer once they all completed.
+     * The importer gets SERVER_UNAVAILABLE if any row saw it, so that it stops advancing its
+     * offsets, else the first failure of the batch, else a success.
+     */
+    private static class BatchCallback implements ProcedureCallback {
+        private final ProcedureCallback m_cb;
+        private final AtomicInteger m_remaining;
+        private final AtomicReference<ClientResponse> m_response = new AtomicReference<>();
+
+        BatchCallback(ProcedureCallback cb, int rows) {
+            m_cb = cb;
+            m_remaining = new AtomicInteger(rows);
+        }
+
+        @Override
+        public void clientCallback(ClientResponse response) throws Exception {
+            if (response.getStatus() == ClientResponse.RESPONSE_UNKNOWN) {
+                // the adapter resubmits the transaction
+                return;
+            }
+            complete(1, response);
+        }
+
+        void complete(int rows, ClientResponse response) throws Exception {
+            ClientResponse previous;
+            do {
+                previous = m_response.get();
+                if (previous != null && (previous.getStatus() == ClientResponse.SERVER_UNAVAILABLE ||
+                        (previous.getStatus() != ClientResponse.SUCCESS &&
+                         response.getStatus() != ClientResponse.SERVER_UNAVAILABLE))) {
+                    break;
+                }
+            } while (!m_response.compareAndSet(previous, response));
+
+            if (m_remaining.addAndGet(-rows) == 0 && m_cb != null) {
+                m_cb.clientCallback(m_response.get());
+            }
+        }
+    }
 }
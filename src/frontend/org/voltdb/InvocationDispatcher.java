@@ -1216,11 +1216,20 @@ public final class InvocationDispatcher {
         Long initiatorHSId = null;
         boolean isShortCircuitRead = false;
         /*
-         * Send the read to the partition leader only
+         * Send the read to the partition leader unless the client allows any replica to serve it,
+         * then the local replica takes it and holds the response until its view is committed.
          * @MigratePartitionLeader always goes to partition leader
          */
         if (isSinglePartition && !isEveryPartition) {
-            initiatorHSId = m_cartographer.getHSIdForSinglePartitionMaster(partitions[0]);
+            if (isReadOnly && invocation.getReplicaRead()) {
+                initiatorHSId = m_localReplicas.get().get(partitions[0]);
+            }
+            if (initiatorHSId == null) {
+                initiatorHSId = m_cartographer.getHSIdForSinglePartitionMaster(partitions[0]);
+            } else {
+                // responses from a replica are not ordered with those from the leader
+                isShortCircuitRead = true;
+            }
         } else {
             // Multi-part transactions go to the multi-part coordinator
             initiatorHSId = m_cartographer.getHSIdForMultiPartitionInitiator();
@@ -33,6 +33,7 @@ public class MemoryStats extends StatsSource {
         long tupleAllocatedMem = 0;
         long indexMem = 0;
         long stringMem = 0;
+        long tupleEmptyMem = 0;
         long pooledMem = 0;
     }
     Map<Long, PartitionMemRow> m_memoryStats = new TreeMap<Long, PartitionMemRow>();
@@ -82,6 +83,7 @@ public class MemoryStats extends StatsSource {
         columns.add(new VoltTable.ColumnInfo("POOLEDMEMORY", VoltType.BIGINT));
         columns.add(new VoltTable.ColumnInfo("PHYSICALMEMORY", VoltType.BIGINT));
         columns.add(new VoltTable.ColumnInfo("JAVAMAXHEAP", VoltType.INTEGER));
+        columns.add(new VoltTable.ColumnInfo("TUPLEEMPTY", VoltType.BIGINT));
     }
 
     @Override
@@ -94,6 +96,7 @@ public class MemoryStats extends StatsSource {
             totals.tupleAllocatedMem += pmr.tupleAllocatedMem;
             totals.indexMem += pmr.indexMem;
             totals.stringMem += pmr.stringMem;
+            totals.tupleEmptyMem += pmr.tupleEmptyMem;
             totals.pooledMem += pmr.pooledMem;
         }
 
@@ -119,6 +122,7 @@ public class MemoryStats extends StatsSource {
         //in kb to make math simpler with other mem values.
         rowValues[columnNameToIndex.get("PHYSICALMEMORY")] = PlatformProperties.getPlatformProperties().ramInMegabytes * 1024;
         rowValues[columnNameToIndex.get("JAVAMAXHEAP")] = Runtime.getRuntime().maxMemory() / 1024;
+        rowValues[columnNameToIndex.get("TUPLEEMPTY")] = totals.tupleEmptyMem;
         super.updateStatsRow(rowKey, rowValues);
     }
 
@@ -128,6 +132,7 @@ public class MemoryStats extends StatsSource {
                                               long tupleAllocatedMem,
                                               long indexMem,
                                               long stringMem,
+                                              long tupleEmptyMem,
                                               long pooledMemory) {
         PartitionMemRow pmr = new PartitionMemRow();
         pmr.tupleCount = tupleCount;
@@ -135,6 +140,7 @@ public class MemoryStats extends StatsSource {
         pmr.tupleAllocatedMem = tupleAllocatedMem;
         pmr.indexMem = indexMem;
         pmr.stringMem = stringMem;
+        pmr.tupleEmptyMem = tupleEmptyMem;
         pmr.pooledMem = pooledMemory;
         m_memoryStats.put(siteId, pmr);
     }
@@ -88,6 +88,10 @@ public class ProcedureRunner {
     //
     // This must be less than or equal to MAX_BATCH_COUNT in src/ee/execution/VoltDBEngine.h
     final static int MAX_BATCH_SIZE = 200;
+    // Group consecutive reads (or writes) of a mixed multi-partition batch into
+    // a single round trip rather than sending every statement on its own
+    final static boolean PIPELINE_MP_BATCHES =
+            Boolean.valueOf(System.getProperty("MP_PIPELINE_BATCHES", "true"));
     static class QueuedSQL {
         SQLStmt stmt;
         ParameterSet params;
@@ -1353,12 +1357,23 @@ public class ProcedureRunner {
 
             microBatch.add(queuedSQL);
 
+            // Keep going while the next statement is of the same kind. A run of
+            // only reads or only writes is dispatched as one homogeneous batch,
+            // which costs one round trip to the participating sites instead of
+            // one per statement. Runs are still executed in order, so reads
+            // see the writes queued ahead of them.
+            if (PIPELINE_MP_BATCHES &&
+                    i + 1 < batch.size() &&
+                    batch.get(i + 1).stmt.isReadOnly == queuedSQL.stmt.isReadOnly) {
+                continue;
+            }
+
             boolean isThisLoopFinalTask = finalTask && (i == (batch.size() - 1));
-            assert (microBatch.size() == 1);
+            final int firstIndex = i + 1 - microBatch.size();
             VoltTable[] results = executeQueriesInABatch(microBatch, isThisLoopFinalTask);
             assert (results != null);
-            assert (results.length == 1);
-            retval[i] = results[0];
+            assert (results.length == i + 1 - firstIndex);
+            System.arraycopy(results, 0, retval, firstIndex, results.length);
 
             microBatch.clear();
         }
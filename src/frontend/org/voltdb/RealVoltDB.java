@@ -95,6 +95,7 @@ import org.voltcore.messaging.HostMessenger;
 import org.voltcore.messaging.HostMessenger.HostInfo;
 import org.voltcore.messaging.SiteMailbox;
 import org.voltcore.network.CipherExecutor;
+import org.voltcore.network.NetworkTransport;
 import org.voltcore.utils.CoreUtils;
 import org.voltcore.utils.OnDemandBinaryLogger;
 import org.voltcore.utils.Pair;
@@ -215,6 +216,9 @@ public class RealVoltDB implements VoltDBInterface, RestoreAgent.Callback, HostM
 
     private static final boolean DISABLE_JMX = Boolean.valueOf(System.getProperty("DISABLE_JMX", "true"));
 
+    // Save the hottest ad hoc statements and re-plan them on the next start.
+    private static final boolean PLAN_CACHE_WARMUP = Boolean.valueOf(System.getProperty("PLAN_CACHE_WARMUP", "true"));
+
     /** Default deployment file contents if path to deployment is null */
     private static final String[] defaultDeploymentXML = {
         "<?xml version=\"1.0\"?>",
@@ -468,6 +472,10 @@ public class RealVoltDB implements VoltDBInterface, RestoreAgent.Callback, HostM
         return getConfigLogDeployment(m_config);
     }
 
+    private File getPlanCacheWarmupFile() {
+        return new VoltFile(getConfigDirectory(), "adhoc_plans.txt");
+    }
+
     private File getConfigLogDeployment(Configuration config) {
         return new VoltFile(getConfigDirectory(config), "deployment.xml");
     }
@@ -1540,8 +1548,7 @@ public class RealVoltDB implements VoltDBInterface, RestoreAgent.Callback, HostM
             if (m_configuredReplicationFactor == 0) {
                 consoleLog.warn("This is not a highly available cluster. K-Safety is set to 0.");
             }
-            boolean usingCommandLog = m_config.m_isEnterprise
-                    && (m_catalogContext.cluster.getLogconfig() != null)
+            boolean usingCommandLog = (m_catalogContext.cluster.getLogconfig() != null)
                     && (m_catalogContext.cluster.getLogconfig().get("log") != null)
                     && m_catalogContext.cluster.getLogconfig().get("log").getEnabled();
             if (!usingCommandLog) {
@@ -2231,6 +2238,31 @@ public class RealVoltDB implements VoltDBInterface, RestoreAgent.Callback, HostM
             }
         }, 0, 6, TimeUnit.MINUTES));
 
+        // ad hoc plan cache warm-up: replay the statements saved by the last run,
+        // off the periodic work thread since planning can take a while,
+        // then keep the saved list current
+        if (PLAN_CACHE_WARMUP) {
+            m_computationService.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        int warmed = m_catalogContext.m_ptool.warmUp(getPlanCacheWarmupFile());
+                        if (warmed > 0) {
+                            hostLog.info("Warmed the ad hoc plan cache with " + warmed + " statements.");
+                        }
+                    } catch (Exception e) {
+                        hostLog.warn("Unable to warm the ad hoc plan cache: " + e.getMessage());
+                    }
+                }
+            });
+            m_periodicWorks.add(scheduleWork(new Runnable() {
+                @Override
+                public void run() {
+                    persistPlanCacheWarmupList();
+                }
+            }, 5, 5, TimeUnit.MINUTES));
+        }
+
         // other enterprise setup
         EnterpriseMaintenance em = EnterpriseMaintenance.get();
         if (em != null) { em.setupMaintenaceTasks(); }
@@ -2238,6 +2270,14 @@ public class RealVoltDB implements VoltDBInterface, RestoreAgent.Callback, HostM
         GCInspector.instance.start(m_periodicPriorityWorkThread, m_gcStats);
     }
 
+    private void persistPlanCacheWarmupList() {
+        try {
+            m_catalogContext.m_ptool.persistWarmupList(getPlanCacheWarmupFile());
+        } catch (Exception e) {
+            hostLog.warn("Unable to save the ad hoc plan cache warm-up list: " + e.getMessage());
+        }
+    }
+
     public boolean isClusterComplete() {
         return (m_config.m_hostCount == m_messenger.getLiveHostIds().size());
     }
@@ -2521,11 +2561,6 @@ public class RealVoltDB implements VoltDBInterface, RestoreAgent.Callback, HostM
                 boolean shutdownAction = false;
 
                 // check license features for community version
-                if ((deployment.getCommandlog() != null) && (deployment.getCommandlog().isEnabled())) {
-                    consoleLog.error("Command logging is not supported " +
-                            "in the community edition of VoltDB.");
-                    shutdownDeployment = true;
-                }
                 if (deployment.getDr() != null && deployment.getDr().getRole() != DrRoleType.NONE) {
                     consoleLog.warn("Database Replication is not supported " +
                             "in the community edition of VoltDB.");
@@ -2752,11 +2787,6 @@ public class RealVoltDB implements VoltDBInterface, RestoreAgent.Callback, HostM
                 boolean shutdownAction = false;
 
                 // check license features for community version
-                if ((deployment.getCommandlog() != null) && (deployment.getCommandlog().isEnabled())) {
-                    consoleLog.error("Command logging is not supported " +
-                            "in the community edition of VoltDB.");
-                    shutdownDeployment = true;
-                }
                 if (m_config.m_startAction == StartAction.JOIN) {
                     consoleLog.error("Start action \"" + m_config.m_startAction.getClass().getSimpleName() +
                             "\" is not supported in the community edition of VoltDB.");
@@ -3068,6 +3098,10 @@ public class RealVoltDB implements VoltDBInterface, RestoreAgent.Callback, HostM
         hmconfig.coreBindIds = m_config.m_networkCoreBindings;
         hmconfig.acceptor = criteria;
         hmconfig.localSitesCount = m_config.m_sitesperhost;
+        SystemSettingsType systemSettings = readDepl.deployment.getSystemsettings();
+        if (systemSettings != null && systemSettings.getNetwork() != null) {
+            hmconfig.transport = NetworkTransport.fromString(systemSettings.getNetwork().getTransport().value());
+        }
 
         //if SSL needs to be enabled for internal communication, SSL context has to be setup before starting HostMessenger
         setupSSL(readDepl);
@@ -3407,6 +3441,10 @@ public class RealVoltDB implements VoltDBInterface, RestoreAgent.Callback, HostM
                     }
                 } catch (Throwable t) { }
 
+                if (PLAN_CACHE_WARMUP && m_catalogContext != null) {
+                    persistPlanCacheWarmupList();
+                }
+
                 //Shutdown import processors.
                 ImportManager.instance().shutdown();
                 TTLManager.instance().shutDown();
@@ -4124,7 +4162,7 @@ public class RealVoltDB implements VoltDBInterface, RestoreAgent.Callback, HostM
         try {
             final ZooKeeper zk = m_messenger.getZK();
             boolean logRecoveryCompleted = false;
-            if (getCommandLog().getClass().getName().equals("org.voltdb.CommandLogImpl")) {
+            if (getCommandLog().isEnabled()) {
                 String requestNode = zk.create(VoltZK.request_truncation_snapshot_node, null,
                         Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT_SEQUENTIAL);
                 if (m_rejoinTruncationReqId == null) {
@@ -486,7 +486,7 @@ SnapshotCompletionInterest, Promotable
         m_action = action;
         m_hostMessenger = hostMessenger;
         m_zk = hostMessenger.getZK();
-        m_clEnabled = VoltDB.instance().getConfig().m_isEnterprise ? clEnabled : false;
+        m_clEnabled = clEnabled;
         m_clPath = clPath;
         m_clSnapshotPath = clSnapshotPath;
         m_snapshotPath = snapshotPath;
@@ -517,6 +517,9 @@ SnapshotCompletionInterest, Promotable
                                                                     m_clPath,
                                                                     m_liveHosts);
             }
+            else if (m_clEnabled) {
+                m_replayAgent = new DefaultCommandLogReinitiator(m_clPath, m_liveHosts);
+            }
         } catch (Exception e) {
             VoltDB.crashGlobalVoltDB("Unable to instantiate command log reinitiator",
                                      true, e);
@@ -1392,7 +1395,7 @@ SnapshotCompletionInterest, Promotable
          * they can be set individually
          */
         Map<String, SnapshotPathType> paths = new HashMap<String, SnapshotPathType>();
-        if (VoltDB.instance().getConfig().m_isEnterprise) {
+        if (VoltDB.instance().getConfig().m_isEnterprise || m_clEnabled) {
             if (m_clSnapshotPath != null) {
                 paths.put(m_clSnapshotPath, SnapshotPathType.SNAP_CL);
             }
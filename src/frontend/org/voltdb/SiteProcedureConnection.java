@@ -216,6 +216,12 @@ public interface SiteProcedureConnection {
 
     public void tick();
 
+    /**
+     * Compact persistent table blocks for up to the given time budget.
+     * @return true if some table still needs compaction
+     */
+    public boolean compactTables(long timeBudgetMicros);
+
     public void quiesce();
 
     public void exportAction(boolean syncAction,
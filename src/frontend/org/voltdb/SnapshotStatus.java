@@ -25,6 +25,8 @@ import java.util.List;
 
 import org.voltdb.VoltTable.ColumnInfo;
 import org.voltdb.sysprocs.SnapshotRegistry;
+import org.voltdb.sysprocs.SnapshotRestore;
+import org.voltdb.sysprocs.SnapshotRestore.RestoreProgress;
 import org.voltdb.sysprocs.SnapshotRegistry.Snapshot;
 import org.voltdb.sysprocs.SnapshotRegistry.Snapshot.Table;
 import org.voltcore.utils.Pair;
@@ -34,7 +36,8 @@ public class SnapshotStatus extends StatsSource {
     enum SNAPSHOT_TYPE {
         AUTO,
         MANUAL,
-        COMMANDLOG
+        COMMANDLOG,
+        RESTORE
     };
 
     private File m_truncationSnapshotPath = null;
@@ -59,14 +62,15 @@ public class SnapshotStatus extends StatsSource {
     /**
      * Since there are multiple tables inside a Snapshot object, and we cannot
      * get a copy of the tables directly, flattens the tables in a Snapshot
-     * object into a flat list.
+     * object into a flat list. The tables of a restore in progress on this
+     * host follow, one row per table and partition loaded.
      */
     private class StatusIterator implements Iterator<Object> {
-        private final List<Pair<Snapshot, Table>> m_snapshots;
-        private final Iterator<Pair<Snapshot, Table>> m_iter;
+        private final List<Object> m_snapshots;
+        private final Iterator<Object> m_iter;
 
-        private StatusIterator(Iterator<Snapshot> i) {
-            m_snapshots = new LinkedList<Pair<Snapshot, Table>>();
+        private StatusIterator(Iterator<Snapshot> i, List<RestoreProgress> restoreProgress) {
+            m_snapshots = new LinkedList<Object>();
 
             while (i.hasNext()) {
                 final Snapshot s = i.next();
@@ -77,6 +81,7 @@ public class SnapshotStatus extends StatsSource {
                     }
                 });
             }
+            m_snapshots.addAll(restoreProgress);
 
             m_iter = m_snapshots.iterator();
         }
@@ -121,6 +126,11 @@ public class SnapshotStatus extends StatsSource {
     @SuppressWarnings("unchecked")
     @Override
     protected void updateStatsRow(Object rowKey, Object[] rowValues) {
+        if (rowKey instanceof RestoreProgress) {
+            updateRestoreRow((RestoreProgress) rowKey, rowValues);
+            super.updateStatsRow(rowKey, rowValues);
+            return;
+        }
         Pair<Snapshot, Table> p = (Pair<Snapshot, Table>) rowKey;
         Snapshot s = p.getFirst();
         Table t = p.getSecond();
@@ -148,9 +158,33 @@ public class SnapshotStatus extends StatsSource {
         super.updateStatsRow(rowKey, rowValues);
     }
 
+    /**
+     * SIZE is the uncompressed bytes loaded so far and END_TIME is 0 until the restore finishes,
+     * FILENAME identifies the partition since a partition's rows can come from several files.
+     */
+    private void updateRestoreRow(RestoreProgress p, Object[] rowValues) {
+        final long bytes = p.getBytes();
+        final double duration = (p.getLastLoadTime() - p.startTime) / 1000.0;
+        final double throughput = duration > 0 ? (bytes / (1024.0 * 1024.0)) / duration : 0;
+
+        rowValues[columnNameToIndex.get("TABLE")] = p.tableName;
+        rowValues[columnNameToIndex.get("PATH")] = SnapshotRestore.getRestorePath();
+        rowValues[columnNameToIndex.get("FILENAME")] = "PARTITION " + p.partitionId;
+        rowValues[columnNameToIndex.get("NONCE")] = SnapshotRestore.getRestoreNonce();
+        rowValues[columnNameToIndex.get("TXNID")] = 0L;
+        rowValues[columnNameToIndex.get("START_TIME")] = p.startTime;
+        rowValues[columnNameToIndex.get("END_TIME")] = 0L;
+        rowValues[columnNameToIndex.get("SIZE")] = bytes;
+        rowValues[columnNameToIndex.get("DURATION")] = duration;
+        rowValues[columnNameToIndex.get("THROUGHPUT")] = throughput;
+        rowValues[columnNameToIndex.get("RESULT")] = "IN_PROGRESS";
+        rowValues[columnNameToIndex.get("TYPE")] = SNAPSHOT_TYPE.RESTORE.name();
+    }
+
     @Override
     protected Iterator<Object> getStatsRowKeyIterator(boolean interval) {
-        return new StatusIterator(SnapshotRegistry.getSnapshotHistory().iterator());
+        return new StatusIterator(SnapshotRegistry.getSnapshotHistory().iterator(),
+                                  SnapshotRestore.getRestoreProgress());
     }
 
 }
@@ -527,6 +527,9 @@ public class StatsAgent extends OpsAgent
         case PLANNER:
             stats = collectStats(StatsSelector.PLANNER, interval);
             break;
+        case PLANCACHE:
+            stats = collectStats(StatsSelector.PLANCACHE, interval);
+            break;
         case LIVECLIENTS:
             stats = collectStats(StatsSelector.LIVECLIENTS, interval);
             break;
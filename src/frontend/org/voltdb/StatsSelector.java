@@ -31,6 +31,7 @@ public enum StatsSelector {
     MEMORY,           // info about node's memory usage
     LIVECLIENTS,      // info about the currently connected clients
     PLANNER,          // info about planner and EE performance and cache usage
+    PLANCACHE,        // ad hoc plan cache occupancy, evictions and planning cost
     MANAGEMENT,       // Returns pretty much everything
     PROCEDUREPROFILE, // performs an aggregation of the procedure statistics
     SNAPSHOTSTATUS,
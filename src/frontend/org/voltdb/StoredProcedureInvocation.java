@@ -72,6 +72,7 @@ public class StoredProcedureInvocation implements JSONString {
 
     private int m_batchTimeout = BatchTimeoutOverrideType.NO_TIMEOUT;
     private boolean m_allPartition = false;
+    private boolean m_replicaRead = false;
 
     public StoredProcedureInvocation getShallowCopy()
     {
@@ -92,6 +93,7 @@ public class StoredProcedureInvocation implements JSONString {
 
         copy.m_batchTimeout = m_batchTimeout;
         copy.m_allPartition = m_allPartition;
+        copy.m_replicaRead = m_replicaRead;
 
         return copy;
     }
@@ -185,6 +187,17 @@ public class StoredProcedureInvocation implements JSONString {
         return m_allPartition;
     }
 
+    public void setReplicaRead(boolean replicaRead) {
+        m_replicaRead = replicaRead;
+    }
+
+    /**
+     * @return true if the client allows this read to be served by any replica of its partition
+     */
+    public boolean getReplicaRead() {
+        return m_replicaRead;
+    }
+
     /** Read into an serialized parameter buffer to extract a single parameter */
     Object getParameterAtIndex(int partitionIndex) {
         try {
@@ -215,6 +228,7 @@ public class StoredProcedureInvocation implements JSONString {
         int batchExtensionSize = m_batchTimeout != BatchTimeoutOverrideType.NO_TIMEOUT ? 6 : 0;
         // 2 is one byte for ext type, one for size
         int allPartitionExtensionSize = m_allPartition ? 2 : 0;
+        int replicaReadExtensionSize = m_replicaRead ? 2 : 0;
 
         // compute the size
         int size =
@@ -222,7 +236,7 @@ public class StoredProcedureInvocation implements JSONString {
                 4 + getProcNameBytes().length + // procname
                 8 + // client handle
                 1 + // extension count
-                batchExtensionSize + allPartitionExtensionSize;
+                batchExtensionSize + allPartitionExtensionSize + replicaReadExtensionSize;
         return size;
     }
 
@@ -322,10 +336,11 @@ public class StoredProcedureInvocation implements JSONString {
 
         buf.putLong(clientHandle);
 
-        // there are two possible extensions, count which apply
+        // there are three possible extensions, count which apply
         byte extensionCount = 0;
         if (m_batchTimeout != BatchTimeoutOverrideType.NO_TIMEOUT) ++extensionCount;
         if (m_allPartition) ++extensionCount;
+        if (m_replicaRead) ++extensionCount;
         // write the count as one byte
         buf.put(extensionCount);
         // write any extensions that apply
@@ -335,6 +350,9 @@ public class StoredProcedureInvocation implements JSONString {
         if (m_allPartition) {
             ProcedureInvocationExtensions.writeAllPartitionWithTypeByte(buf);
         }
+        if (m_replicaRead) {
+            ProcedureInvocationExtensions.writeReplicaReadWithTypeByte(buf);
+        }
 
         serializeParams(buf);
 
@@ -408,6 +426,7 @@ public class StoredProcedureInvocation implements JSONString {
         // set these to defaults so old versions don't worry about them
         m_batchTimeout = BatchTimeoutOverrideType.NO_TIMEOUT;
         m_allPartition = false;
+        m_replicaRead = false;
 
         switch (type) {
             case ORIGINAL:
@@ -490,6 +509,9 @@ public class StoredProcedureInvocation implements JSONString {
                 // note this always returns true as it's just a flag
                 m_allPartition = ProcedureInvocationExtensions.readAllPartition(buf);
                 break;
+            case ProcedureInvocationExtensions.REPLICA_READ:
+                m_replicaRead = ProcedureInvocationExtensions.readReplicaRead(buf);
+                break;
             default:
                 ProcedureInvocationExtensions.skipUnknownExtension(buf);
                 break;
@@ -54,6 +54,9 @@ public class TTLManager extends StatsSource{
     static final int INTERVAL = Integer.getInteger("TIME_TO_LIVE_INTERVAL", 1) * 1000;
     static final int CHUNK_SIZE = Integer.getInteger("TIME_TO_LIVE_CHUNK_SIZE", 1000);
     static final int TIMEOUT = Integer.getInteger("TIME_TO_LIVE_TIMEOUT", 2000);
+    //target time a single nibble delete may take on one partition, 0 disables chunk size adaption
+    static final long CPU_BUDGET_NANOS = TimeUnit.MICROSECONDS.toNanos(Integer.getInteger("TIME_TO_LIVE_CPU_BUDGET_US", 5000));
+    static final int MIN_CHUNK_SIZE = Integer.getInteger("TIME_TO_LIVE_MIN_CHUNK_SIZE", 100);
     static final int LOG_SUPPRESSION_INTERVAL_SECONDS = 60;
     public static class TTLStats {
         final String tableName;
@@ -65,6 +68,15 @@ public class TTLManager extends StatsSource{
         long rowsDeleted = 0L;
         long rowsLastDeleted = 0L;
         Timestamp ts;
+
+        //chunk size used by the last round and the time the slowest partition spent on one chunk
+        int chunkSize = 0;
+        long maxPartitionMicros = 0L;
+
+        //age of the oldest row in the table and how far it is past expiration, in milliseconds.
+        //Only tracked for TIMESTAMP columns, null otherwise.
+        Long oldestRowAge = null;
+        Long lag = null;
         public TTLStats(String tableName) {
             this.tableName = tableName;
         }
@@ -74,6 +86,12 @@ public class TTLManager extends StatsSource{
             this.rowsDeleted += rowDeleted;
             ts = new Timestamp(lastExecutionTimestamp);
         }
+        public void updateProgress(int chunkSize, long maxPartitionNanos, Long oldestRowAge, Long lag) {
+            this.chunkSize = chunkSize;
+            this.maxPartitionMicros = TimeUnit.NANOSECONDS.toMicros(maxPartitionNanos);
+            this.oldestRowAge = oldestRowAge;
+            this.lag = lag;
+        }
         @Override
         public String toString() {
             return String.format("TTL stats on table %s: tuples deleted %d, tuples remaining %d", tableName, rowsDeleted, rowsLeft);
@@ -86,10 +104,14 @@ public class TTLManager extends StatsSource{
         final TTLStats stats;
         AtomicReference<TimeToLive> ttlRef;
         AtomicBoolean canceled = new AtomicBoolean(false);
+
+        //chunk size for the next round, adapted towards CPU_BUDGET_NANOS and bounded by BATCH_SIZE
+        volatile int chunkSize;
         public TTLTask(String table, TimeToLive timeToLive, TTLStats ttlStats) {
             tableName = table;
             ttlRef = new AtomicReference<>(timeToLive);
             stats = ttlStats;
+            chunkSize = timeToLive.getBatchsize();
         }
 
         @Override
@@ -117,6 +139,31 @@ public class TTLManager extends StatsSource{
 
         public void updateTask(TimeToLive updatedTTL) {
             ttlRef.compareAndSet(ttlRef.get(), updatedTTL);
+            chunkSize = Math.min(chunkSize, updatedTTL.getBatchsize());
+        }
+
+        /**
+         * Scale the chunk size so that the slowest partition spends about CPU_BUDGET_NANOS
+         * on one chunk. Shrink right away when over budget, but grow at most twofold per
+         * round and only while there is a backlog, so a single cheap round on an almost
+         * empty table does not blow the chunk size up.
+         */
+        void adaptChunkSize(long maxPartitionNanos, long rowsLeft) {
+            final int batchSize = getBatchSize();
+            if (CPU_BUDGET_NANOS <= 0 || maxPartitionNanos <= 0) {
+                chunkSize = batchSize;
+                return;
+            }
+            final int current = chunkSize;
+            long target = (long) ((double) current * CPU_BUDGET_NANOS / maxPartitionNanos);
+            if (target > current) {
+                target = rowsLeft > 0 ? Math.min(target, current * 2L) : current;
+            }
+            chunkSize = (int) Math.max(Math.min(MIN_CHUNK_SIZE, batchSize), Math.min(target, batchSize));
+        }
+
+        boolean isTimestampColumn() {
+            return VoltType.get((byte)ttlRef.get().getTtlcolumn().getType()) == VoltType.TIMESTAMP;
         }
 
         long getValue() {
@@ -287,6 +334,10 @@ public class TTLManager extends StatsSource{
         columns.add(new ColumnInfo("ROWS_DELETED_LAST_ROUND", VoltType.BIGINT));
         columns.add(new ColumnInfo("ROWS_REMAINING", VoltType.BIGINT));
         columns.add(new ColumnInfo("LAST_DELETE_TIMESTAMP", VoltType.TIMESTAMP));
+        columns.add(new ColumnInfo("CHUNK_SIZE", VoltType.INTEGER));
+        columns.add(new ColumnInfo("MAX_PARTITION_DELETE_TIME", VoltType.BIGINT));
+        columns.add(new ColumnInfo("OLDEST_ROW_AGE", VoltType.BIGINT));
+        columns.add(new ColumnInfo("LAG", VoltType.BIGINT));
     }
 
     @Override
@@ -306,11 +357,17 @@ public class TTLManager extends StatsSource{
             rowValues[columnNameToIndex.get("ROWS_DELETED_LAST_ROUND")] = stats.rowsLastDeleted;
             rowValues[columnNameToIndex.get("ROWS_REMAINING")] = stats.rowsLeft;
             rowValues[columnNameToIndex.get("LAST_DELETE_TIMESTAMP")] = stats.ts;
+            rowValues[columnNameToIndex.get("CHUNK_SIZE")] = stats.chunkSize;
+            rowValues[columnNameToIndex.get("MAX_PARTITION_DELETE_TIME")] = stats.maxPartitionMicros;
+            rowValues[columnNameToIndex.get("OLDEST_ROW_AGE")] = stats.oldestRowAge;
+            rowValues[columnNameToIndex.get("LAG")] = stats.lag;
         }
     }
 
     protected void performDelete(ClientInterface cl, TTLTask task) {
         CountDownLatch latch = new CountDownLatch(1);
+        final long cutoff = task.getValue();
+        final int chunkSize = task.chunkSize;
         final ProcedureCallback cb = new ProcedureCallback() {
             @Override
             public void clientCallback(ClientResponse resp) throws Exception {
@@ -341,14 +398,25 @@ public class TTLManager extends StatsSource{
                         hostLog.rateLimitedLog(LOG_SUPPRESSION_INTERVAL_SECONDS, Level.WARN, null,
                                 "Errors occured on TTL table %s: %s %s", task.tableName, error, drLimitError);
                     } else {
-                        task.stats.update(t.getLong("ROWS_DELETED"), t.getLong("ROWS_LEFT"), t.getLong("LAST_DELETE_TIMESTAMP"));
+                        final long rowsLeft = t.getLong("ROWS_LEFT");
+                        task.stats.update(t.getLong("ROWS_DELETED"), rowsLeft, t.getLong("LAST_DELETE_TIMESTAMP"));
+                        final long maxPartitionNanos = t.getLong("MAX_PARTITION_NANOS");
+                        final long frontier = t.getLong("FRONTIER_VALUE");
+                        Long oldestRowAge = null;
+                        Long lag = null;
+                        if (!t.wasNull() && task.isTimestampColumn()) {
+                            oldestRowAge = Math.max(0L, System.currentTimeMillis() - frontier / 1000);
+                            lag = Math.max(0L, (cutoff - frontier) / 1000);
+                        }
+                        task.stats.updateProgress(chunkSize, maxPartitionNanos, oldestRowAge, lag);
+                        task.adaptChunkSize(maxPartitionNanos, rowsLeft);
                     }
                 }
                 latch.countDown();
             }
         };
         cl.getDispatcher().getInternelAdapterNT().callProcedure(cl.getInternalUser(), true, 1000 * 120, cb,
-                "@LowImpactDeleteNT", new Object[] {task.tableName, task.getColumnName(), task.getValue(), "<=", task.getBatchSize(),
+                "@LowImpactDeleteNT", new Object[] {task.tableName, task.getColumnName(), cutoff, "<=", chunkSize,
                         TIMEOUT, task.getMaxFrequency(), INTERVAL});
         try {
             latch.await(1, TimeUnit.MINUTES);
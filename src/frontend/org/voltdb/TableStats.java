@@ -48,5 +48,9 @@ public class TableStats extends SiteStatsSource {
         columns.add(new ColumnInfo("STRING_DATA_MEMORY", VoltType.BIGINT));
         columns.add(new ColumnInfo("TUPLE_LIMIT", VoltType.INTEGER));
         columns.add(new ColumnInfo("PERCENT_FULL", VoltType.INTEGER));
+        columns.add(new ColumnInfo("TUPLE_EMPTY_MEMORY", VoltType.BIGINT));
+        columns.add(new ColumnInfo("PERCENT_FRAGMENTED", VoltType.INTEGER));
+        columns.add(new ColumnInfo("TUPLES_COMPACTED", VoltType.BIGINT));
+        columns.add(new ColumnInfo("BLOCKS_COMPACTED", VoltType.BIGINT));
     }
 }
@@ -28,6 +28,8 @@ import org.voltdb.client.VoltBulkLoader.BulkLoaderFailureCallBack;
 import org.voltdb.client.VoltBulkLoader.BulkLoaderSuccessCallback;
 import org.voltdb.client.VoltBulkLoader.VoltBulkLoader;
 
+import com.google_voltpatches.common.util.concurrent.ListenableFuture;
+
 /**
  *  <p>
  *  A <code>Client</code> that connects to one or more nodes in a volt cluster
@@ -111,6 +113,57 @@ public interface Client {
     public boolean callProcedure(ProcedureCallback callback, String procName, Object... parameters)
     throws IOException, NoConnectionsException;
 
+    /**
+     * <p>Asynchronously invoke a procedure once for each of the given parameter sets. Invocations
+     * routed to the same server are written to the network together as one message, whether or not
+     * {@link ClientConfig#setInvocationBatching(boolean)} is enabled. The callback is invoked once
+     * for each invocation that was queued. Backpressure is handled as in
+     * {@link #callProcedure(ProcedureCallback, String, Object...)}.</p>
+     *
+     * @param callback {@link ProcedureCallback} that will be invoked with the result of each invocation.
+     * @param procName class name (not qualified by package) of the procedure to execute.
+     * @param parameterSets list of parameter value arrays, one per invocation.
+     * @return the number of invocations queued, in order, which is less than the number of parameter
+     *         sets only if queueing stopped due to backpressure.
+     * @throws NoConnectionsException if this {@link Client} instance is not connected to any servers.
+     * @throws IOException if there is a Java network or connection problem.
+     */
+    public int callProcedures(ProcedureCallback callback, String procName, List<Object[]> parameterSets)
+    throws IOException, NoConnectionsException;
+
+    /**
+     * <p>Asynchronously invoke a procedure and return a future for its response. The future completes
+     * with the {@link ClientResponse} on success. Otherwise it fails with the {@link ProcCallException}
+     * that {@link #callProcedure(String, Object...)} would have thrown, or with the exception that
+     * prevented the invocation from being queued. Backpressure is handled as in
+     * {@link #callProcedure(ProcedureCallback, String, Object...)}.</p>
+     *
+     * <p>Listeners added without an executor run on the thread backing the client instance, so the
+     * same caution about slow or blocking work applies as for callbacks. Waiting on the future parks the
+     * calling thread without holding any monitor, which makes it suitable for virtual threads.</p>
+     *
+     * @param procName class name (not qualified by package) of the procedure to execute.
+     * @param parameters vararg list of procedure's parameter values.
+     * @return future for the {@link ClientResponse} of the invocation.
+     */
+    public ListenableFuture<ClientResponse> callProcedureAsync(String procName, Object... parameters);
+
+    /**
+     * <p>Asynchronously invoke a procedure with timeout and return a future for its response, as in
+     * {@link #callProcedureAsync(String, Object...)}.</p>
+     *
+     * <p>WARNING: Use of a queryTimeout value that is greater than the global timeout value for your VoltDB configuration
+     * will temporarily override that safeguard. Currently, non-privileged users (requiring only SQLREAD permissions)
+     * can invoke this method, potentially degrading system performance with an uncontrolled long-running procedure.</p>
+     *
+     * @param queryTimeout query batch timeout setting in milliseconds of queries in a batch for read only procedures.
+     * @param procName class name (not qualified by package) of the procedure to execute.
+     * @param parameters vararg list of procedure's parameter values.
+     * @return future for the {@link ClientResponse} of the invocation.
+     */
+    public ListenableFuture<ClientResponse> callProcedureWithTimeoutAsync(int queryTimeout, String procName,
+            Object... parameters);
+
     /**
      * <p>Synchronously invoke a procedure with timeout. Blocks until a result is available. A {@link ProcCallException}
      * is thrown if the response is anything other then success.</p>
@@ -583,4 +636,19 @@ public interface Client {
      */
     public boolean callAllPartitionProcedure(AllPartitionProcedureCallback callback, String procedureName, Object... params)
             throws IOException, NoConnectionsException, ProcCallException;
+
+    /**
+     * <p>Asynchronously execute a stored procedure on every partition as in
+     * {@link #callAllPartitionProcedure(AllPartitionProcedureCallback, String, Object...)} and return a future
+     * that completes with the responses from all partitions. As with the synchronous variant, the future does not
+     * fail when the procedure fails on some partitions, so check the status of the response on every partition.
+     * To consume each partition's response as soon as it arrives, pass a
+     * {@link StreamingAllPartitionProcedureCallback} to the callback variant instead.</p>
+     *
+     * @param procedureName class name (not qualified by package) of the partitioned java procedure to execute.
+     * @param params  vararg list of procedure's parameter values.
+     * @return future for the {@link ClientResponseWithPartitionKey} instances of procedure call results.
+     */
+    public ListenableFuture<ClientResponseWithPartitionKey[]> callAllPartitionProcedureAsync(String procedureName,
+            Object... params);
 }
@@ -57,6 +57,7 @@ public class ClientConfig {
     int m_maxOutstandingTxns = 3000;
     int m_maxTransactionsPerSecond = Integer.MAX_VALUE;
     boolean m_autoTune = false;
+    boolean m_adaptiveFlowControl = false;
     int m_autoTuneTargetInternalLatency = 5;
     long m_procedureCallTimeoutNanos = DEFAULT_PROCEDURE_TIMOUT_NANOS;
     long m_connectionResponseTimeoutMS = DEFAULT_CONNECTION_TIMOUT_MS;
@@ -68,6 +69,7 @@ public class ClientConfig {
     boolean m_sendReadsToReplicasBytDefaultIfCAEnabled = false;
     SslConfig m_sslConfig;
     boolean m_topologyChangeAware = false;
+    boolean m_invocationBatching = false;
     boolean m_enableSSL = false;
     String m_sslPropsFile = null;
 
@@ -341,6 +343,22 @@ public class ClientConfig {
         m_autoTune = true;
     }
 
+    /**
+     * <p>Enable adaptive flow control, which replaces the fixed limit on outstanding
+     * transactions with one that is continuously adjusted. The limit grows while the
+     * round trip latency of transactions stays near its long term average, and shrinks
+     * when latency rises from queueing, when all connections report backpressure, or
+     * when transactions time out. This lets the client converge on peak throughput
+     * without tuning limits for each workload.</p>
+     *
+     * <p>The value set with {@link #setMaxOutstandingTxns(int)} remains the upper bound
+     * on the limit. {@link #setMaxTransactionsPerSecond(int)} and
+     * {@link #enableAutoTune()} have no effect when this is enabled.</p>
+     */
+    public void enableAdaptiveFlowControl() {
+        m_adaptiveFlowControl = true;
+    }
+
     /**
      * <p>Attempts to route transactions to the correct master partition improving latency
      * and throughput</p>
@@ -365,10 +383,25 @@ public class ClientConfig {
     }
 
     /**
-     * <p>By default, reads are sent to the leader replica for each partition. This
-     * is usually optimal for the default read consistency value, SAFE. If you are
-     * using FAST reads, enabling this setting will load balance reads amongst
-     * partition replicas, often increasing throughput and decreasing latency.</p>
+     * <p>Coalesces procedure invocations that are queued concurrently to the same server
+     * connection into a single network message, which the server splits back into individual
+     * invocations. This reduces per message overhead on both sides when many small transactions
+     * are in flight. Requires servers of this version or later.</p>
+     * <p>Defaults to false.</p>
+     * @param enabled Enable or disable invocation batching.
+     */
+    public void setInvocationBatching(boolean enabled) {
+        m_invocationBatching = enabled;
+    }
+
+    /**
+     * <p>By default, reads are sent to the leader replica for each partition. Enabling
+     * this setting sends read-only single partition procedures to the least loaded
+     * replica of their partition instead, spreading the read load over all copies of
+     * the data. A replica serves the read without involving the leader and holds the
+     * response until the writes the read could have observed are committed on all
+     * replicas, so reads stay consistent and lag the leader by at most the time it
+     * takes to commit a write.</p>
      *
      * <p>See section <a href="https://docs.voltdb.com/AdminGuide/HostConfigDBOpts.php">
      * A.3.4 of the Administrators Guide</a> for info on SAFE vs. FAST.</p>
@@ -34,6 +34,7 @@ import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
 
@@ -51,6 +52,8 @@ import org.voltdb.common.Constants;
 import org.voltdb.utils.Encoder;
 
 import com.google_voltpatches.common.collect.ImmutableSet;
+import com.google_voltpatches.common.util.concurrent.ListenableFuture;
+import com.google_voltpatches.common.util.concurrent.SettableFuture;
 
 /**
  *  A client that connects to one or more nodes in a VoltCluster
@@ -145,6 +148,7 @@ public final class ClientImpl implements Client {
         }
         m_username = username;
         m_distributer.setTopologyChangeAware(config.m_topologyChangeAware);
+        m_distributer.setInvocationBatching(config.m_invocationBatching);
         if (config.m_topologyChangeAware) {
             m_ex = Executors.newSingleThreadScheduledExecutor(CoreUtils.getThreadFactory("Topoaware thread"));
         }
@@ -170,7 +174,10 @@ public final class ClientImpl implements Client {
 
         assert(config.m_maxOutstandingTxns > 0);
         m_blessedThreadIds.addAll(m_distributer.getThreadIds());
-        if (config.m_autoTune) {
+        if (config.m_adaptiveFlowControl) {
+            m_distributer.m_rateLimiter.enableAdaptiveLimit(config.m_maxOutstandingTxns);
+        }
+        else if (config.m_autoTune) {
             m_distributer.m_rateLimiter.enableAutoTuning(
                     config.m_autoTuneTargetInternalLatency);
         }
@@ -338,6 +345,31 @@ public final class ClientImpl implements Client {
                 Distributer.USE_DEFAULT_CLIENT_TIMEOUT, TimeUnit.NANOSECONDS, parameters);
     }
 
+    @Override
+    public int callProcedures(
+            ProcedureCallback callback,
+            String procName,
+            List<Object[]> parameterSets)
+                    throws IOException, NoConnectionsException
+    {
+        if (callback == null) {
+            callback = NULL_CALLBACK;
+        }
+
+        int queued = 0;
+        for (Object[] parameters : parameterSets) {
+            if (m_isShutdown) {
+                break;
+            }
+            ProcedureInvocation invocation = new ProcedureInvocation(m_handle.getAndIncrement(), procName, parameters);
+            if (!internalAsyncCallProcedure(callback, Distributer.USE_DEFAULT_CLIENT_TIMEOUT, invocation, true)) {
+                break;
+            }
+            queued++;
+        }
+        return queued;
+    }
+
     /**
      * Asynchronously invoke a procedure call with timeout.
      * @param callback TransactionCallback that will be invoked with procedure results.
@@ -365,6 +397,35 @@ public final class ClientImpl implements Client {
                 parameters);
     }
 
+    @Override
+    public ListenableFuture<ClientResponse> callProcedureAsync(String procName, Object... parameters) {
+        return callProcedureWithTimeoutAsync(BatchTimeoutOverrideType.NO_TIMEOUT, procName, parameters);
+    }
+
+    @Override
+    public ListenableFuture<ClientResponse> callProcedureWithTimeoutAsync(
+            int batchTimeout,
+            String procName,
+            Object... parameters)
+    {
+        FutureProcedureCallback cb = new FutureProcedureCallback();
+        try {
+            if (!callProcedureWithClientTimeout(cb, batchTimeout, false, procName,
+                    Distributer.USE_DEFAULT_CLIENT_TIMEOUT, TimeUnit.NANOSECONDS, parameters)) {
+                final ClientResponseImpl r = new ClientResponseImpl(
+                        ClientResponse.GRACEFUL_FAILURE,
+                        ClientResponse.UNINITIALIZED_APP_STATUS_CODE,
+                        "",
+                        new VoltTable[0],
+                        "Unable to queue client request.");
+                cb.m_future.setException(new ProcCallException(r, "Unable to queue client request.", null));
+            }
+        } catch (IOException e) {
+            cb.m_future.setException(e);
+        }
+        return cb.m_future;
+    }
+
     /**
      * Same as the namesake without allPartition option.
      */
@@ -487,13 +548,22 @@ public final class ClientImpl implements Client {
             long clientTimeoutNanos,
             ProcedureInvocation invocation)
             throws IOException, NoConnectionsException {
+        return internalAsyncCallProcedure(callback, clientTimeoutNanos, invocation, false);
+    }
+
+    private final boolean internalAsyncCallProcedure(
+            ProcedureCallback callback,
+            long clientTimeoutNanos,
+            ProcedureInvocation invocation,
+            boolean batch)
+            throws IOException, NoConnectionsException {
         assert( ! m_isShutdown);
         assert(callback != null);
 
         final long nowNanos = System.nanoTime();
         //Blessed threads (the ones that invoke callbacks) are not subject to backpressure
         boolean isBlessed = m_blessedThreadIds.contains(Thread.currentThread().getId());
-        while (!m_distributer.queue(invocation, callback, isBlessed, nowNanos, clientTimeoutNanos)) {
+        while (!m_distributer.queue(invocation, callback, isBlessed, nowNanos, clientTimeoutNanos, batch)) {
             if ( ! m_blockingQueue) {
                 return false;
             }
@@ -621,8 +691,11 @@ public final class ClientImpl implements Client {
                     " without deadlocking the client library");
         }
         m_isShutdown = true;
-        synchronized (m_backpressureLock) {
-            m_backpressureLock.notifyAll();
+        m_backpressureLock.lock();
+        try {
+            m_backpressureRelieved.signalAll();
+        } finally {
+            m_backpressureLock.unlock();
         }
 
         if (m_reconnectStatusListener != null) {
@@ -661,35 +734,23 @@ public final class ClientImpl implements Client {
                     " without deadlocking the client library");
         }
         if (m_backpressure) {
-            synchronized (m_backpressureLock) {
-                if (m_backpressure) {
-                    while (m_backpressure && !m_isShutdown) {
-                       if (start != 0) {
-                           if (timeoutNanos <= 0) {
-                               // timeout nano value is negative or zero, indicating it timed out.
-                               return true;
-                           }
-
-                            //Wait on the condition for the specified timeout remaining
-                            m_backpressureLock.wait(timeoutNanos / TimeUnit.MILLISECONDS.toNanos(1), (int)(timeoutNanos % TimeUnit.MILLISECONDS.toNanos(1)));
-
-                            //Condition is true, break and return false
-                            if (!m_backpressure) break;
-
-                            //Calculate whether the timeout should be triggered
-                            final long nowNanos = System.nanoTime();
-                            final long deltaNanos = Math.max(1, nowNanos - start);
-                            if (deltaNanos >= timeoutNanos) {
-                                return true;
-                            }
-
-                            //Reassigning timeout nanos with remainder of timeout
-                            timeoutNanos -= deltaNanos;
-                       } else {
-                           m_backpressureLock.wait();
-                       }
+            m_backpressureLock.lock();
+            try {
+                while (m_backpressure && !m_isShutdown) {
+                    if (start != 0) {
+                        if (timeoutNanos <= 0) {
+                            // timeout nano value is negative or zero, indicating it timed out.
+                            return true;
+                        }
+
+                        //Wait on the condition for the remaining timeout, awaitNanos returns what is left of it
+                        timeoutNanos = m_backpressureRelieved.awaitNanos(timeoutNanos);
+                    } else {
+                        m_backpressureRelieved.await();
                     }
                 }
+            } finally {
+                m_backpressureLock.unlock();
             }
         }
         return false;
@@ -725,13 +786,16 @@ public final class ClientImpl implements Client {
         AtomicInteger connectionTaskCount = new AtomicInteger(0);
         @Override
         public void backpressure(boolean status) {
-            synchronized (m_backpressureLock) {
+            m_backpressureLock.lock();
+            try {
                 if (status) {
                     m_backpressure = true;
                 } else {
                     m_backpressure = false;
-                    m_backpressureLock.notifyAll();
+                    m_backpressureRelieved.signalAll();
                 }
+            } finally {
+                m_backpressureLock.unlock();
             }
         }
 
@@ -741,9 +805,12 @@ public final class ClientImpl implements Client {
             if (connectionsLeft == 0) {
                 //Wake up client and let it attempt to queue work
                 //and then fail with a NoConnectionsException
-                synchronized (m_backpressureLock) {
+                m_backpressureLock.lock();
+                try {
                     m_backpressure = false;
-                    m_backpressureLock.notifyAll();
+                    m_backpressureRelieved.signalAll();
+                } finally {
+                    m_backpressureLock.unlock();
                 }
             }
         }
@@ -872,7 +939,9 @@ public final class ClientImpl implements Client {
 
     static final Logger LOG = Logger.getLogger(ClientImpl.class.getName());  // Logger shared by client package.
     private final Distributer m_distributer;                             // de/multiplexes connections to a cluster
-    private final Object m_backpressureLock = new Object();
+    // an explicit lock so that threads waiting out backpressure park instead of pinning a carrier thread
+    private final ReentrantLock m_backpressureLock = new ReentrantLock();
+    private final Condition m_backpressureRelieved = m_backpressureLock.newCondition();
     private boolean m_backpressure = false;
 
     private boolean m_blockingQueue = true;
@@ -1091,6 +1160,23 @@ public final class ClientImpl implements Client {
         return true;
     }
 
+    @Override
+    public ListenableFuture<ClientResponseWithPartitionKey[]> callAllPartitionProcedureAsync(String procedureName,
+            Object... params) {
+        final SettableFuture<ClientResponseWithPartitionKey[]> future = SettableFuture.create();
+        try {
+            callAllPartitionProcedure(new AllPartitionProcedureCallback() {
+                @Override
+                public void clientCallback(ClientResponseWithPartitionKey[] responses) {
+                    future.set(responses);
+                }
+            }, procedureName, params);
+        } catch (IOException | ProcCallException e) {
+            future.setException(e);
+        }
+        return future;
+    }
+
     /**
      * Essentially the same code as SyncCallback, but without the overhead (memory, gc)
      * of storing the parameters of every outstanding request while waiting for a response.
@@ -1136,6 +1222,22 @@ public final class ClientImpl implements Client {
         }
     }
 
+    /**
+     * Completes a future with the response, failing it the way a synchronous invocation would throw
+     */
+    private static final class FutureProcedureCallback implements ProcedureCallback {
+        final SettableFuture<ClientResponse> m_future = SettableFuture.create();
+
+        @Override
+        public void clientCallback(ClientResponse clientResponse) {
+            if (clientResponse.getStatus() == ClientResponse.SUCCESS) {
+                m_future.set(clientResponse);
+            } else {
+                m_future.setException(new ProcCallException(clientResponse, clientResponse.getStatusString(), null));
+            }
+        }
+    }
+
     /**
      * Procedure call back for async callAllPartitionProcedure
      */
@@ -1164,27 +1266,34 @@ public final class ClientImpl implements Client {
 
         @Override
         public void clientCallback(ClientResponse response) throws Exception {
-            m_responses[m_index] = new ClientResponseWithPartitionKey(m_partitionKey, response);
-            if (m_partitionCounter.decrementAndGet() == 0) {
-                m_cb.clientCallback(m_responses);
-            }
+            partitionResponded(new ClientResponseWithPartitionKey(m_partitionKey, response));
         }
 
         public void exceptionCallback(Exception e) throws Exception {
 
             if ( e instanceof ProcCallException) {
                 ProcCallException pe = (ProcCallException)e;
-                m_responses[m_index] = new ClientResponseWithPartitionKey(m_partitionKey, pe.getClientResponse());
+                partitionResponded(new ClientResponseWithPartitionKey(m_partitionKey, pe.getClientResponse()));
             } else {
                 byte status = ClientResponse.GRACEFUL_FAILURE;
                 if(e instanceof NoConnectionsException){
                     status = ClientResponse.CONNECTION_LOST;
                 }
                 final ClientResponse r = new ClientResponseImpl(status, new VoltTable[0], e.getMessage());
-                m_responses[m_index] = new ClientResponseWithPartitionKey(m_partitionKey, r);
+                partitionResponded(new ClientResponseWithPartitionKey(m_partitionKey, r));
             }
-            if (m_partitionCounter.decrementAndGet() == 0) {
-                m_cb.clientCallback(m_responses);
+        }
+
+        private void partitionResponded(ClientResponseWithPartitionKey response) throws Exception {
+            m_responses[m_index] = response;
+            try {
+                if (m_cb instanceof StreamingAllPartitionProcedureCallback) {
+                    ((StreamingAllPartitionProcedureCallback) m_cb).partitionCallback(response);
+                }
+            } finally {
+                if (m_partitionCounter.decrementAndGet() == 0) {
+                    m_cb.clientCallback(m_responses);
+                }
             }
         }
     }
@@ -34,6 +34,7 @@ import java.util.Random;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
@@ -157,6 +158,14 @@ class Distributer {
     private AtomicBoolean m_createConnectionUponTopoChangeInProgress = new AtomicBoolean(false);
     private boolean m_topologyChangeAware;
 
+    /*
+     * When set, invocations queued to the same connection while its network thread is busy
+     * are written together as a single message, see NodeConnection.flushBatchedInvocations
+     */
+    private boolean m_invocationBatching;
+    static final int MAX_BATCHED_INVOCATIONS = 256;
+    static final int MAX_BATCHED_INVOCATION_BYTES = 256 * 1024;
+
     //private final Timer m_timer;
     private final ScheduledExecutorService m_ex =
         Executors.newSingleThreadScheduledExecutor(
@@ -398,6 +407,8 @@ class Distributer {
             this.ignoreBackpressure = ignoreBackpressure;
         }
         long timestampNanos;
+        //When the rate limiter let the invocation go out on the wire
+        long sentNanos;
         //Timeout in ms 0 means use conenction specified procedure timeoutMS.
         final long procedureTimeoutNanos;
         ProcedureCallback callback;
@@ -416,6 +427,16 @@ class Distributer {
         boolean m_outstandingPing = false;
         ClientStatusListenerExt.DisconnectCause m_closeCause = DisconnectCause.CONNECTION_CLOSED;
 
+        // serialized invocations waiting for the network thread to write them as one batch
+        private final ConcurrentLinkedQueue<ByteBuffer> m_batchedInvocations = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean m_batchFlushScheduled = new AtomicBoolean(false);
+        private final Runnable m_batchFlushTask = new Runnable() {
+            @Override
+            public void run() {
+                flushBatchedInvocations();
+            }
+        };
+
         public NodeConnection(long ids[]) {}
 
         /*
@@ -426,6 +447,16 @@ class Distributer {
          */
         public void createWork(final long nowNanos, long handle, String name, ByteBuffer c,
                 ProcedureCallback callback, boolean ignoreBackpressure, long timeoutNanos) {
+            createWork(nowNanos, handle, name, c, callback, ignoreBackpressure, timeoutNanos, false);
+        }
+
+        /*
+         * If batch is true the serialized invocation is held until the network thread
+         * of this connection runs, and is then written along with any other invocations
+         * queued to this connection in the meantime
+         */
+        public void createWork(final long nowNanos, long handle, String name, ByteBuffer c,
+                ProcedureCallback callback, boolean ignoreBackpressure, long timeoutNanos, boolean batch) {
             assert(callback != null);
 
             //How long from the starting point in time to wait to get this stuff done
@@ -463,7 +494,10 @@ class Distributer {
             assert(callbacksToInvoke >= 0);
 
             //Optimistically submit the task
-            m_callbacks.put(handle, new CallbackBookeeping(nowNanos, callback, name, timeoutNanos, ignoreBackpressure));
+            final CallbackBookeeping bookkeeping =
+                    new CallbackBookeeping(nowNanos, callback, name, timeoutNanos, ignoreBackpressure);
+            bookkeeping.sentNanos = afterRateLimitNanos;
+            m_callbacks.put(handle, bookkeeping);
 
             //Schedule the timeout to fire relative to the amount of time
             //spent getting to this point. Might fire immediately
@@ -499,11 +533,53 @@ class Distributer {
                 //for bookkeeping, but it feels dishonest to call this here
                 m_rateLimiter.transactionResponseReceived(nowNanos, -1, ignoreBackpressure);
                 return;
+            } else if (batch) {
+                m_batchedInvocations.offer(c);
+                if (m_batchFlushScheduled.compareAndSet(false, true)) {
+                    m_connection.queueTask(m_batchFlushTask);
+                }
             } else {
                 m_connection.writeStream().enqueue(c);
             }
         }
 
+        /*
+         * Runs on the network thread. A lone invocation is written as is, otherwise the
+         * invocations are framed as a count followed by the length prefixed invocations
+         * so that the server can split them, which costs one write stream entry and one
+         * network thread wakeup per batch instead of per invocation.
+         */
+        void flushBatchedInvocations() {
+            // clear the flag first so an invocation offered after the drain schedules another flush
+            m_batchFlushScheduled.set(false);
+            ByteBuffer invocation;
+            while ((invocation = m_batchedInvocations.poll()) != null) {
+                ByteBuffer next = m_batchedInvocations.poll();
+                if (next == null) {
+                    m_connection.writeStream().enqueue(invocation);
+                    return;
+                }
+                final ArrayList<ByteBuffer> batch = new ArrayList<>();
+                // placeholder for the header
+                batch.add(null);
+                batch.add(invocation);
+                int bytes = invocation.remaining();
+                do {
+                    batch.add(next);
+                    bytes += next.remaining();
+                } while (batch.size() <= MAX_BATCHED_INVOCATIONS && bytes < MAX_BATCHED_INVOCATION_BYTES &&
+                        (next = m_batchedInvocations.poll()) != null);
+
+                final ByteBuffer header = ByteBuffer.allocate(9);
+                header.putInt(5 + bytes);
+                header.put(Constants.INVOCATION_BATCH_VERSION);
+                header.putInt(batch.size() - 1);
+                header.flip();
+                batch.set(0, header);
+                m_connection.writeStream().enqueue(batch.toArray(new ByteBuffer[batch.size()]));
+            }
+        }
+
         /*
          * For high precision timeouts, submit a discrete task to a scheduled
          * executor service to time out the transaction. The timeout task
@@ -708,7 +784,8 @@ class Distributer {
                 }
 
                 int clusterRoundTrip = response.getClusterRoundtrip();
-                m_rateLimiter.transactionResponseReceived(nowNanos, clusterRoundTrip, stuff.ignoreBackpressure);
+                m_rateLimiter.transactionResponseReceived(nowNanos, clusterRoundTrip, stuff.ignoreBackpressure,
+                        nowNanos - stuff.sentNanos);
                 updateStats(stuff.name, deltaNanos, clusterRoundTrip, abort, error, false);
                 response.setClientRoundtrip(deltaNanos);
                 assert(response.getHashes() == null) : "A determinism hash snuck into the client wire protocol";
@@ -1138,6 +1215,20 @@ class Distributer {
             ProcedureCallback cb,
             final boolean ignoreBackpressure, final long nowNanos, final long timeoutNanos)
             throws NoConnectionsException {
+        return queue(invocation, cb, ignoreBackpressure, nowNanos, timeoutNanos, false);
+    }
+
+    /**
+     * Same as {@link #queue(ProcedureInvocation, ProcedureCallback, boolean, long, long)}
+     * @param batch If true the invocation may be written in the same message as other
+     * invocations queued to the same connection even if invocation batching is not enabled
+     */
+    boolean queue(
+            ProcedureInvocation invocation,
+            ProcedureCallback cb,
+            final boolean ignoreBackpressure, final long nowNanos, final long timeoutNanos,
+            final boolean batch)
+            throws NoConnectionsException {
         assert(invocation != null);
         assert(cb != null);
 
@@ -1179,22 +1270,14 @@ class Distributer {
                                 invocation.getPartitionParamValue(procedureInfo.partitionParameter));
                     }
                     /*
-                     * If the procedure is read only and single part and the user wants it, load balance across replicas
-                     * This is probably slower for SAFE consistency.
+                     * If the procedure is read only and single part and the user wants it, load balance across replicas.
+                     * The server holds a replica's response until the writes it may have seen are committed everywhere.
                      */
                     if (!procedureInfo.multiPart && procedureInfo.readOnly && m_sendReadsToReplicasBytDefaultIfCAEnabled) {
                         NodeConnection partitionReplicas[] = m_partitionReplicas.get(hashedPartition);
                         if (partitionReplicas != null && partitionReplicas.length > 0) {
-                            cxn = partitionReplicas[ThreadLocalRandom.current().nextInt(partitionReplicas.length)];
-                            if (cxn.hadBackPressure()) {
-                                //See if there is one without backpressure, make sure it's still connected
-                                for (NodeConnection nc : partitionReplicas) {
-                                    if (!nc.hadBackPressure() && nc.m_isConnected) {
-                                        cxn = nc;
-                                        break;
-                                    }
-                                }
-                            }
+                            cxn = leastLoadedReplica(partitionReplicas);
+                            invocation.setReplicaRead(true);
                             if (!cxn.hadBackPressure() || ignoreBackpressure) {
                                 backpressure = false;
                             }
@@ -1252,6 +1335,7 @@ class Distributer {
 
             if (backpressure) {
                 cxn = null;
+                m_rateLimiter.backpressureObserved();
                 for (ClientStatusListenerExt s : m_listeners) {
                     s.backpressure(true);
                 }
@@ -1269,7 +1353,8 @@ class Distributer {
             } catch (Exception e) {
                 Throwables.propagate(e);
             }
-            cxn.createWork(nowNanos, invocation.getHandle(), invocation.getProcName(), buf, cb, ignoreBackpressure, timeoutNanos);
+            cxn.createWork(nowNanos, invocation.getHandle(), invocation.getProcName(), buf, cb, ignoreBackpressure,
+                    timeoutNanos, batch || m_invocationBatching);
         }
         if (m_topologyChangeAware) {
             createConnectionsUponTopologyChange();
@@ -1277,6 +1362,28 @@ class Distributer {
         return !backpressure;
     }
 
+    /**
+     * Pick the connected replica without backpressure that has the fewest outstanding
+     * requests, starting from a random one so that ties are spread out.
+     */
+    private static NodeConnection leastLoadedReplica(NodeConnection[] partitionReplicas) {
+        final int start = ThreadLocalRandom.current().nextInt(partitionReplicas.length);
+        NodeConnection best = partitionReplicas[start];
+        int bestOutstanding = Integer.MAX_VALUE;
+        for (int i = 0; i < partitionReplicas.length; i++) {
+            final NodeConnection nc = partitionReplicas[(start + i) % partitionReplicas.length];
+            if (!nc.m_isConnected || nc.hadBackPressure()) {
+                continue;
+            }
+            final int outstanding = nc.m_callbacks.size();
+            if (outstanding < bestOutstanding) {
+                best = nc;
+                bestOutstanding = outstanding;
+            }
+        }
+        return best;
+    }
+
     /**
      * Shutdown the VoltNetwork allowing the Ports to close and free resources
      * like memory pools
@@ -1603,6 +1710,10 @@ class Distributer {
         m_topologyChangeAware = topoAware;
     }
 
+    void setInvocationBatching(boolean batching) {
+        m_invocationBatching = batching;
+    }
+
     void createConnectionsUponTopologyChange() {
 
         if(!m_topologyChangeAware || m_createConnectionUponTopoChangeInProgress.get()) {
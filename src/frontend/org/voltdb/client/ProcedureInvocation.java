@@ -38,6 +38,8 @@ public class ProcedureInvocation {
     private final int m_batchTimeout;
     private final ParameterSet m_parameters;
     private final boolean m_allPartition;
+    // set by the Distributer when it routes a read-only invocation to a replica
+    private boolean m_replicaRead = false;
 
     // pre-cache this for serialization
     // this duplicates some other code, but it's nice to keep the client code
@@ -96,6 +98,14 @@ public class ProcedureInvocation {
         return m_allPartition;
     }
 
+    void setReplicaRead(boolean replicaRead) {
+        m_replicaRead = replicaRead;
+    }
+
+    public boolean getReplicaRead() {
+        return m_replicaRead;
+    }
+
     public int getSerializedSize() {
         // convert proc name to bytes if needed
         if (m_procNameBytes == null) {
@@ -107,13 +117,14 @@ public class ProcedureInvocation {
         int batchExtensionSize = m_batchTimeout != BatchTimeoutOverrideType.NO_TIMEOUT ? 6 : 0;
         // 2 is one byte for ext type, one for size
         int allPartitionExtensionSize = m_allPartition ? 2 : 0;
+        int replicaReadExtensionSize = m_replicaRead ? 2 : 0;
 
         int size =
             1 + // type
             4 + m_procNameBytes.length + // procname
             8 + // client handle
             1 + // extension count
-            batchExtensionSize + allPartitionExtensionSize + // extensions
+            batchExtensionSize + allPartitionExtensionSize + replicaReadExtensionSize + // extensions
             m_parameters.getSerializedSize(); // parameters
         assert(size > 0); // sanity
         return size;
@@ -131,10 +142,11 @@ public class ProcedureInvocation {
 
         buf.putLong(m_clientHandle);
 
-        // there are two possible extensions, count which apply
+        // there are three possible extensions, count which apply
         byte extensionCount = 0;
         if (m_batchTimeout != BatchTimeoutOverrideType.NO_TIMEOUT) ++extensionCount;
         if (m_allPartition) ++extensionCount;
+        if (m_replicaRead) ++extensionCount;
         // write the count as one byte
         buf.put(extensionCount);
         // write any extensions that apply
@@ -144,6 +156,9 @@ public class ProcedureInvocation {
         if (m_allPartition) {
             ProcedureInvocationExtensions.writeAllPartitionWithTypeByte(buf);
         }
+        if (m_replicaRead) {
+            ProcedureInvocationExtensions.writeReplicaReadWithTypeByte(buf);
+        }
 
         m_parameters.flattenToBuffer(buf);
 
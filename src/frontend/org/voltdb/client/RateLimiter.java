@@ -21,6 +21,8 @@ import java.util.ArrayDeque;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 import com.google_voltpatches.common.base.Throwables;
 
@@ -29,8 +31,12 @@ import com.google_voltpatches.common.base.Throwables;
  * of several ways. First, it can cap outstanding transactions or
  * limit the rate of new transactions. Second, it can auto-tune the
  * send rate to get a good balance of througput and latency on the
- * server.
+ * server. Third, it can adapt the cap on outstanding transactions
+ * to the observed round trip latency and backpressure.
  *
+ * State is guarded by an explicit lock rather than the object monitor so that
+ * callers blocked on the limit, possibly virtual threads, park instead of
+ * pinning their carrier thread.
  */
 class RateLimiter {
 
@@ -46,6 +52,9 @@ class RateLimiter {
     //protected int m_targetTxnsPerBlock = Integer.MAX_VALUE;
     protected int m_latencyTarget = 5;
 
+    protected final ReentrantLock m_lock = new ReentrantLock();
+    protected final Condition m_limitRaised = m_lock.newCondition();
+
     protected int m_currentBlockSendCount = 0;
     protected int m_currentBlockRecvSuccessCount = 0;
     protected int m_outstandingTxns = 0;
@@ -59,6 +68,66 @@ class RateLimiter {
 
     protected ArrayDeque<Double> m_prevInternalLatencyAvgs = new ArrayDeque<Double>();
 
+    /*
+     * Adaptive concurrency limit. The limit is updated once per sample window, about
+     * one round trip's worth of responses, by the ratio of the baseline round trip,
+     * the lowest window average of the recent history, to the window's average.
+     * While the round trip stays near the baseline the limit grows by its square root
+     * per window, when queueing pushes the round trip up the limit shrinks in
+     * proportion. Backpressure, timeouts and lost connections cut the limit
+     * multiplicatively.
+     */
+    static final int ADAPTIVE_MIN_LIMIT = 4;
+    static final int ADAPTIVE_INITIAL_LIMIT = 20;
+    static final int ADAPTIVE_MIN_WINDOW_SAMPLES = 10;
+    static final double ADAPTIVE_RTT_TOLERANCE = 1.5;
+    static final int ADAPTIVE_RTT_HISTORY_SIZE = 100;
+    static final double ADAPTIVE_SMOOTHING = 0.2;
+    static final double ADAPTIVE_BACKOFF_RATIO = 0.9;
+
+    protected boolean m_adaptive = false;
+    protected int m_adaptiveMaxLimit = Integer.MAX_VALUE;
+    protected double m_adaptiveLimit = ADAPTIVE_INITIAL_LIMIT;
+    protected ArrayDeque<Double> m_prevRttAvgs = new ArrayDeque<Double>();
+    protected long m_windowRttTotalNanos = 0;
+    protected int m_windowSamples = 0;
+    protected int m_windowMaxOutstanding = 0;
+    protected boolean m_windowCongested = false;
+
+    protected void adaptLimitFromWindow() {
+        final double shortRttNanos = m_windowRttTotalNanos / (double) m_windowSamples;
+        m_prevRttAvgs.addFirst(shortRttNanos);
+        while (m_prevRttAvgs.size() > ADAPTIVE_RTT_HISTORY_SIZE) {
+            m_prevRttAvgs.pollLast();
+        }
+        // a bounded history lets the baseline follow a server that became slower for good
+        double baselineRttNanos = shortRttNanos;
+        for (double value : m_prevRttAvgs) {
+            baselineRttNanos = Math.min(baselineRttNanos, value);
+        }
+
+        final double limit = m_adaptiveLimit;
+        final double gradient = Math.max(0.5, Math.min(1.0, ADAPTIVE_RTT_TOLERANCE * baselineRttNanos / shortRttNanos));
+        double newLimit = limit * gradient;
+        // only probe upwards when the application actually used the current limit
+        if (m_windowMaxOutstanding >= limit / 2) {
+            newLimit += Math.sqrt(limit);
+        }
+        if (m_windowCongested) {
+            newLimit = Math.min(newLimit, limit * ADAPTIVE_BACKOFF_RATIO);
+        }
+        newLimit = limit * (1 - ADAPTIVE_SMOOTHING) + newLimit * ADAPTIVE_SMOOTHING;
+        m_adaptiveLimit = Math.max(ADAPTIVE_MIN_LIMIT, Math.min(m_adaptiveMaxLimit, newLimit));
+
+        m_windowRttTotalNanos = 0;
+        m_windowSamples = 0;
+        m_windowMaxOutstanding = m_outstandingTxns;
+        m_windowCongested = false;
+        if (m_adaptiveLimit > limit) {
+            m_limitRaised.signalAll();
+        }
+    }
+
     protected void autoTuneTargetFromHistory() {
         double recentLatency = 0, mediumTermLatency = 0;
         if (m_prevInternalLatencyAvgs.size() > 0) {
@@ -126,30 +195,74 @@ class RateLimiter {
     /**
      * May not be reflected until the next 100ms.
      */
-    synchronized void enableAutoTuning(int latencyTarget) {
-        m_autoTune = true;
-        m_doesAnyTuning = true;
-        m_targetTxnsPerSecond = Integer.MAX_VALUE;
-        m_maxOutstandingTxns = 20;
-        m_latencyTarget = latencyTarget;
+    void enableAutoTuning(int latencyTarget) {
+        m_lock.lock();
+        try {
+            m_autoTune = true;
+            m_doesAnyTuning = true;
+            m_targetTxnsPerSecond = Integer.MAX_VALUE;
+            m_maxOutstandingTxns = 20;
+            m_latencyTarget = latencyTarget;
+        } finally {
+            m_lock.unlock();
+        }
+    }
+
+    /**
+     * Adapt the max outstanding txns to round trip latency and backpressure,
+     * never going above maxOutstanding. There is no txns/sec limit in this mode.
+     */
+    void enableAdaptiveLimit(int maxOutstanding) {
+        m_lock.lock();
+        try {
+            m_adaptive = true;
+            m_autoTune = false;
+            m_doesAnyTuning = false;
+            m_targetTxnsPerSecond = Integer.MAX_VALUE;
+            m_adaptiveMaxLimit = maxOutstanding;
+            m_adaptiveLimit = Math.min(ADAPTIVE_INITIAL_LIMIT, maxOutstanding);
+        } finally {
+            m_lock.unlock();
+        }
+    }
+
+    /**
+     * Report that the connections are backed up, in adaptive mode this shrinks the
+     * limit at the end of the current sample window.
+     */
+    void backpressureObserved() {
+        if (m_adaptive) {
+            m_lock.lock();
+            try {
+                m_windowCongested = true;
+            } finally {
+                m_lock.unlock();
+            }
+        }
     }
 
     /**
      * May not be reflected until the next 100ms.
      */
-    synchronized void setLimits(int txnsPerSec, int maxOutstanding) {
-        m_autoTune = false;
-        /*
-         * If the rate limit is some reasonably low value then go through the effort
-         * of rate limiting
-         */
-        if (txnsPerSec < Integer.MAX_VALUE / 2) {
-            m_doesAnyTuning = true;
+    void setLimits(int txnsPerSec, int maxOutstanding) {
+        m_lock.lock();
+        try {
+            m_adaptive = false;
+            m_autoTune = false;
+            /*
+             * If the rate limit is some reasonably low value then go through the effort
+             * of rate limiting
+             */
+            if (txnsPerSec < Integer.MAX_VALUE / 2) {
+                m_doesAnyTuning = true;
+            }
+            m_targetTxnsPerSecond = txnsPerSec;
+            m_maxOutstandingTxns = maxOutstanding;
+            m_outstandingTxnsSemaphore.drainPermits();
+            m_outstandingTxnsSemaphore.release(maxOutstanding);
+        } finally {
+            m_lock.unlock();
         }
-        m_targetTxnsPerSecond = txnsPerSec;
-        m_maxOutstandingTxns = maxOutstanding;
-        m_outstandingTxnsSemaphore.drainPermits();
-        m_outstandingTxnsSemaphore.release(maxOutstanding);
     }
 
     /**
@@ -157,11 +270,16 @@ class RateLimiter {
      * @return A length-2 array of integers representing max throughput/sec and
      * max outstanding txns.
      */
-    synchronized int[] getLimits() {
-        int[] limits = new int[2];
-        limits[0] = m_targetTxnsPerSecond;
-        limits[1] = m_maxOutstandingTxns;
-        return limits;
+    int[] getLimits() {
+        m_lock.lock();
+        try {
+            int[] limits = new int[2];
+            limits[0] = m_targetTxnsPerSecond;
+            limits[1] = m_adaptive ? (int) m_adaptiveLimit : m_maxOutstandingTxns;
+            return limits;
+        } finally {
+            m_lock.unlock();
+        }
     }
 
     /**
@@ -171,8 +289,39 @@ class RateLimiter {
      * @param ignoreBackpressure Don't return a permit for backpressure purposes since none was ever taken
      */
     void transactionResponseReceived(long timestampNanos, int internalLatency, boolean ignoreBackpressure) {
-        if (m_doesAnyTuning) {
-            synchronized (this) {
+        transactionResponseReceived(timestampNanos, internalLatency, ignoreBackpressure, -1);
+    }
+
+    /**
+     * @param roundTripNanos Time from sending the transaction to receiving this response, -1 if unknown.
+     * Used as the latency signal in adaptive mode.
+     */
+    void transactionResponseReceived(long timestampNanos, int internalLatency, boolean ignoreBackpressure,
+            long roundTripNanos) {
+        if (m_adaptive) {
+            m_lock.lock();
+            try {
+                if (!ignoreBackpressure) {
+                    --m_outstandingTxns;
+                    assert(m_outstandingTxns >= 0);
+                    m_limitRaised.signal();
+                }
+                if (internalLatency == -1) {
+                    // timed out or lost, no latency sample but a sign of trouble
+                    m_windowCongested = true;
+                } else if (roundTripNanos > 0) {
+                    m_windowRttTotalNanos += roundTripNanos;
+                    ++m_windowSamples;
+                    if (m_windowSamples >= Math.max(ADAPTIVE_MIN_WINDOW_SAMPLES, m_adaptiveLimit)) {
+                        adaptLimitFromWindow();
+                    }
+                }
+            } finally {
+                m_lock.unlock();
+            }
+        } else if (m_doesAnyTuning) {
+            m_lock.lock();
+            try {
                 ensureCurrentBlockIsKosher(TimeUnit.NANOSECONDS.toMillis(timestampNanos));
                 --m_outstandingTxns;
                 assert(m_outstandingTxns >= 0);
@@ -180,6 +329,8 @@ class RateLimiter {
                     ++m_currentBlockRecvSuccessCount;
                     m_currentBlockTotalInternalLatency += internalLatency;
                 }
+            } finally {
+                m_lock.unlock();
             }
         } else {
             if (ignoreBackpressure) return;
@@ -195,10 +346,36 @@ class RateLimiter {
      * @return The time as measured when the call returns.
      */
     long sendTxnWithOptionalBlockAndReturnCurrentTime(long timestampNanos, long timeoutNanos, boolean ignoreBackpressure) throws TimeoutException {
-        if (m_doesAnyTuning) {
+        if (m_adaptive) {
+            if (ignoreBackpressure) return timestampNanos;
+            m_lock.lock();
+            try {
+                boolean waited = false;
+                while (m_outstandingTxns >= (int) m_adaptiveLimit) {
+                    final long remainingNanos = timeoutNanos - (System.nanoTime() - timestampNanos);
+                    if (remainingNanos <= 0) {
+                        throw new TimeoutException();
+                    }
+                    try {
+                        m_limitRaised.awaitNanos(remainingNanos);
+                    } catch (InterruptedException e) {
+                        Throwables.propagate(e);
+                    }
+                    waited = true;
+                }
+                ++m_outstandingTxns;
+                m_windowMaxOutstanding = Math.max(m_windowMaxOutstanding, m_outstandingTxns);
+                if (waited) {
+                    return System.nanoTime();
+                }
+            } finally {
+                m_lock.unlock();
+            }
+        } else if (m_doesAnyTuning) {
             long timestamp = TimeUnit.NANOSECONDS.toMillis(timestampNanos);
             while (true) {
-                synchronized(this) {
+                m_lock.lock();
+                try {
                     // switch to a new block if 100ms has passed
                     // possibly compute a new target rate
                     ensureCurrentBlockIsKosher(timestamp);
@@ -231,6 +408,8 @@ class RateLimiter {
                         // exit the while loop
                         break;
                     }
+                } finally {
+                    m_lock.unlock();
                 }
 
                 // if the rate is above target, pause for the smallest time possible
@@ -258,10 +437,15 @@ class RateLimiter {
         return timestampNanos;
     }
 
-    public synchronized void debug() {
-        System.out.printf("Target throughput/s is %d and max outstanding txns is %d\n",
-                m_targetTxnsPerSecond, m_maxOutstandingTxns);
-        System.out.printf("Current outstanding is %d and recent internal latency is %.2f\n",
-                m_outstandingTxns, m_prevInternalLatencyAvgs.peekFirst());
+    public void debug() {
+        m_lock.lock();
+        try {
+            System.out.printf("Target throughput/s is %d and max outstanding txns is %d\n",
+                    m_targetTxnsPerSecond, m_adaptive ? (int) m_adaptiveLimit : m_maxOutstandingTxns);
+            System.out.printf("Current outstanding is %d and recent internal latency is %.2f\n",
+                    m_outstandingTxns, m_prevInternalLatencyAvgs.peekFirst());
+        } finally {
+            m_lock.unlock();
+        }
     }
 }
@@ -0,0 +1,34 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.client;
+
+/**
+ * An {@link AllPartitionProcedureCallback} that is also handed the response of each partition as soon as it
+ * arrives, so that results of a procedure invoked on all partitions can be processed as a stream instead of
+ * waiting for the slowest partition. {@link #clientCallback} is still invoked once with all responses after the
+ * last partition responded, which marks the end of the stream.
+ */
+public interface StreamingAllPartitionProcedureCallback extends AllPartitionProcedureCallback {
+    /**
+     * Implementation of callback to be provided by client applications.
+     *
+     * @param response Response of one partition to the stored procedure invocation this callback is associated with
+     * @throws Exception on any Exception.
+     */
+    public void partitionCallback(ClientResponseWithPartitionKey response) throws Exception;
+}
@@ -23,6 +23,7 @@ import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
 import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
 
 import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLEngineResult;
@@ -37,10 +38,22 @@ public class TLSHandshaker {
     private final SSLEngine m_eng;
     private final SocketChannel m_sc;
     private final int m_appsz;
+    private final CipherExecutor m_taskExecutor;
 
     public TLSHandshaker(SocketChannel socketChan, SSLEngine engine) {
+        this(socketChan, engine, null);
+    }
+
+    /**
+     * @param taskExecutor runs the CPU heavy delegated tasks of the handshake (key exchange,
+     *        certificate validation), so that a burst of concurrent handshakes is bounded by the
+     *        cipher threads instead of the threads waiting on the network. When null the tasks
+     *        run on the calling thread.
+     */
+    public TLSHandshaker(SocketChannel socketChan, SSLEngine engine, CipherExecutor taskExecutor) {
         m_sc = socketChan;
         m_eng = engine;
+        m_taskExecutor = taskExecutor;
         SSLSession dummySession = engine.getSession();
 
         final int appsz = engine.getSession().getApplicationBufferSize() + 2048;
@@ -169,10 +182,7 @@ public class TLSHandshaker {
                     }
                     break;
                 case NEED_TASK:
-                    Runnable task;
-                    while ((task=m_eng.getDelegatedTask()) != null) {
-                        task.run();
-                    }
+                    runDelegatedTasks();
                     status = m_eng.getHandshakeStatus();
                     break;
                 case FINISHED:
@@ -194,6 +204,24 @@ public class TLSHandshaker {
         return true;
     }
 
+    private void runDelegatedTasks() throws IOException {
+        Runnable task;
+        while ((task=m_eng.getDelegatedTask()) != null) {
+            if (m_taskExecutor == null) {
+                task.run();
+                continue;
+            }
+            try {
+                m_taskExecutor.submit(task).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SSLException("Interrupted while running SSL handshake task", e);
+            } catch (ExecutionException e) {
+                throw new SSLException("SSL handshake task failed", e.getCause());
+            }
+        }
+    }
+
     /**
      * The JDK caches SSL sessions when the participants are the same (i.e.
      * multiple connection requests from the same peer). Once a session is cached
@@ -49,6 +49,11 @@ import org.voltdb.client.ProcedureCallback;
 public class PerPartitionTable {
     private static final VoltLogger loaderLog = new VoltLogger("LOADER");
 
+    // Load mode of @LoadSinglepartitionTable (LoadSinglepartitionTable.MODE_BULK_INSERT)
+    // that loads a batch without undo logging and returns the positions of the rows
+    // it did not insert instead of failing the whole batch.
+    private static final byte BULK_INSERT_MODE = 2;
+
     // Client we are tied to
     final ClientImpl m_clientImpl;
     //The index in loader tables and the PartitionProcessor number
@@ -77,6 +82,8 @@ public class PerPartitionTable {
     final String m_tableName;
     // Upsert Mode Flag
     final byte m_upsert;
+    // Mode for batches, single row retries always use m_upsert
+    final byte m_batchLoadMode;
     // Callback for per-row success notification
     final BulkLoaderSuccessCallback m_successCallback;
     //Whether to retry insertion when the connection is lost
@@ -110,6 +117,29 @@ public class PerPartitionTable {
                 });
             }
             else {
+                final List<VoltBulkLoaderRow> insertedRows;
+                final List<VoltBulkLoaderRow> rejectedRows = getRejectedRows(response);
+                if (rejectedRows.isEmpty()) {
+                    insertedRows = m_batchRowList;
+                }
+                else {
+                    // Rejected rows are counted by the row by row retry, like a failed batch.
+                    insertedRows = new ArrayList<VoltBulkLoaderRow>(m_batchRowList);
+                    insertedRows.removeAll(rejectedRows);
+                    for (VoltBulkLoaderRow r : rejectedRows) {
+                        m_batchSizes.put(r.m_loader, m_batchSizes.get(r.m_loader) - 1);
+                    }
+                    m_es.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                reinsertFailed(rejectedRows);
+                            } catch (Exception e) {
+                                loaderLog.error("Failed to re-insert rejected rows", e);
+                            }
+                        }
+                    });
+                }
                 // For each row in the batch, notify the caller of success, so it can do any
                 // necessary bookkeeping (like managing offsets, for example). Do this in the executor
                 // so as not to hold up the callback.
@@ -117,7 +147,7 @@ public class PerPartitionTable {
                     m_es.execute(new Runnable() {
                         @Override
                         public void run() {
-                            for (VoltBulkLoaderRow r : m_batchRowList) {
+                            for (VoltBulkLoaderRow r : insertedRows) {
                                 m_successCallback.success(r.m_rowHandle, response);
                             }
                         }
@@ -129,6 +159,22 @@ public class PerPartitionTable {
                 }
             }
         }
+
+        /**
+         * A bulk insert batch succeeds even if some of its rows could not be inserted,
+         * the second result table lists their positions in the batch.
+         */
+        private List<VoltBulkLoaderRow> getRejectedRows(ClientResponse response) {
+            List<VoltBulkLoaderRow> rejected = new ArrayList<VoltBulkLoaderRow>();
+            if (m_batchLoadMode != BULK_INSERT_MODE || response.getResults().length < 2) {
+                return rejected;
+            }
+            VoltTable rowIndexes = response.getResults()[1];
+            while (rowIndexes.advanceRow()) {
+                rejected.add(m_batchRowList.get((int) rowIndexes.getLong(0)));
+            }
+            return rejected;
+        }
     }
 
     PerPartitionTable(ClientImpl clientImpl, String tableName, int partitionId, boolean isMP,
@@ -138,6 +184,8 @@ public class PerPartitionTable {
         m_isMP = isMP;
         m_procName = firstLoader.m_procName;
         m_upsert = (byte) (firstLoader.m_upsert ? 1:0);
+        // @LoadMultipartitionTable treats any non-zero mode as upsert
+        m_batchLoadMode = (isMP || firstLoader.m_upsert) ? m_upsert : BULK_INSERT_MODE;
         m_partitionRowQueue = new LinkedBlockingQueue<VoltBulkLoaderRow>(minBatchTriggerSize*5);
         m_minBatchTriggerSize = minBatchTriggerSize;
         m_columnInfo = firstLoader.m_colInfo;
@@ -175,7 +223,7 @@ public class PerPartitionTable {
                 public void run() {
                     try {
                         while (m_partitionRowQueue.size() >= m_minBatchTriggerSize) {
-                            loadTable(buildTable(), m_table);
+                            loadTable(buildTable(), m_table, m_batchLoadMode);
                         }
                     } catch (Exception e) {
                         loaderLog.error("Failed to load batch", e);
@@ -194,7 +242,7 @@ public class PerPartitionTable {
         return m_es.submit(new Callable<Boolean>() {
             @Override
             public Boolean call() throws Exception {
-                loadTable(buildTable(), m_table);
+                loadTable(buildTable(), m_table, m_batchLoadMode);
                 return true;
             }
         });
@@ -256,7 +304,7 @@ public class PerPartitionTable {
                     row.m_loader.m_outstandingRowCount.decrementAndGet();
                 }
             };
-            loadTable(callback, tmpTable);
+            loadTable(callback, tmpTable, m_upsert);
         }
     }
 
@@ -294,7 +342,7 @@ public class PerPartitionTable {
         return new PartitionProcedureCallback(buf, batchSizes);
     }
 
-    private void loadTable(ProcedureCallback callback, VoltTable toSend) throws Exception {
+    private void loadTable(ProcedureCallback callback, VoltTable toSend, byte loadMode) throws Exception {
         if (toSend.getRowCount() <= 0) {
             return;
         }
@@ -302,7 +350,7 @@ public class PerPartitionTable {
         if (m_autoReconnect) {
             while (true) {
                 try {
-                    load(callback, toSend);
+                    load(callback, toSend, loadMode);
                     // Table loaded successfully. So move on
                     break;
                 } catch (IOException e) {
@@ -314,7 +362,7 @@ public class PerPartitionTable {
             }
         } else {
             try {
-                load(callback, toSend);
+                load(callback, toSend, loadMode);
             } catch (IOException e) {
                 final ClientResponse r = new ClientResponseImpl(
                         ClientResponse.CONNECTION_LOST, new VoltTable[0],
@@ -325,13 +373,13 @@ public class PerPartitionTable {
         toSend.clearRowData();
     }
 
-    private void load(ProcedureCallback callback, VoltTable toSend) throws Exception {
+    private void load(ProcedureCallback callback, VoltTable toSend, byte loadMode) throws Exception {
         if (m_isMP) {
-            m_clientImpl.callProcedure(callback, m_procName, m_tableName, m_upsert, toSend);
+            m_clientImpl.callProcedure(callback, m_procName, m_tableName, loadMode, toSend);
         } else {
             Object rpartitionParam = VoltType.valueToBytes(toSend.fetchRow(0).get(
                     m_partitionedColumnIndex, m_partitionColumnType));
-            m_clientImpl.callProcedure(callback, m_procName, rpartitionParam, m_tableName, m_upsert, toSend);
+            m_clientImpl.callProcedure(callback, m_procName, rpartitionParam, m_tableName, loadMode, toSend);
         }
     }
 }
@@ -37,6 +37,10 @@ public class Constants
     public static final byte AUTH_SERVICE_NAME = 4;
     public static final byte AUTH_HANDSHAKE = 5;
 
+    // leading byte of a client message that carries several length prefixed procedure
+    // invocations, it is distinct from every ProcedureInvocationType version byte
+    public static final byte INVOCATION_BATCH_VERSION = 0x7f;
+
     public static final String KERBEROS = "kerberos";
 
     public static final String DEFAULT_KEYSTORE_RESOURCE = "keystore";
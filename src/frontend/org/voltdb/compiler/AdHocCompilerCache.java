@@ -17,13 +17,17 @@
 
 package org.voltdb.compiler;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
 import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Timer;
-import java.util.TimerTask;
 
 import org.voltdb.common.Constants;
 import org.voltdb.planner.BoundPlan;
@@ -43,6 +47,9 @@ import com.google_voltpatches.common.cache.CacheBuilder;
  * statement mapped to core parameterized plans. These parameterized
  * plans need parameter values and sql literals in order to be
  * actually used.
+ *
+ * Both levels evict with W-TinyLFU (see {@link WindowTinyLfuCache}), so a
+ * burst of one-off statements cannot push out the frequently used plans.
  */
 public class AdHocCompilerCache implements Serializable {
     private static final long serialVersionUID = 1L;
@@ -73,6 +80,20 @@ public class AdHocCompilerCache implements Serializable {
         return cache;
     }
 
+    /**
+     * The cache that planned most recently, which is the one
+     * {@link PlanCacheStats} reports on.
+     */
+    private static volatile AdHocCompilerCache m_activeCache = null;
+
+    static AdHocCompilerCache getActiveCache() {
+        return m_activeCache;
+    }
+
+    static void setActiveCache(AdHocCompilerCache cache) {
+        m_activeCache = cache;
+    }
+
     //////////////////////////////////////////////////////////////////////////
     // PER-INSTANCE AWESOMEC CACHING CODE
     //////////////////////////////////////////////////////////////////////////
@@ -83,25 +104,43 @@ public class AdHocCompilerCache implements Serializable {
     final long MAX_LITERAL_MEM  = Long.getLong("ADHOC_COMPILER_CACHE_MAX_LITERAL_MEM_BYTES", 32*1024*1024);
     final int MAX_CORE_ENTRIES;
 
+    /**
+     * A parameterized plan description maps to one or more core parameterized
+     * plans, each plan optionally has its own requirements for which parameters
+     * need to be bound to what values to enable its specialized (expression-indexed)
+     * plan. The first SQL text that produced the entry is kept so the plan can
+     * be rebuilt when warming up a new cache.
+     */
+    static class CoreCacheEntry {
+        final List<BoundPlan> m_variants = new ArrayList<BoundPlan>();
+        final String m_sql;
+        final int m_userParamCount;
+
+        CoreCacheEntry(String sql, int userParamCount) {
+            m_sql = sql;
+            m_userParamCount = userParamCount;
+        }
+    }
+
     /** cache of literals to full plans */
-    final Map<String, AdHocPlannedStatement> m_literalCache;
-    /** cache of parameterized plan descriptions to one or more core parameterized plans,
-     *  each plan optionally has its own requirements for which parameters need to be bound
-     *  to what values to enable its specialized (expression-indexed) plan. */
-    final Map<String, List<BoundPlan> > m_coreCache;
+    final WindowTinyLfuCache<AdHocPlannedStatement> m_literalCache;
+    /** cache of parameterized plan descriptions to core parameterized plans */
+    final WindowTinyLfuCache<CoreCacheEntry> m_coreCache;
 
-    // placeholder stats used during development that may/may not survive
     long m_literalHits = 0;
     long m_literalQueries = 0;
     long m_literalInsertions = 0;
-    long m_literalEvictions = 0;
     long m_planHits = 0;
     long m_planQueries = 0;
     long m_planInsertions = 0;
-    long m_planEvictions = 0;
 
-    /** {@see this#startPeriodicStatsPrinting() } */
-    Timer m_statsTimer = null;
+    // Time spent in full planning, i.e. after missing both levels.
+    long m_plansCompiled = 0;
+    long m_totalPlanningNanos = 0;
+    long m_maxPlanningNanos = 0;
+
+    // Statements replayed from a warm-up list into this cache.
+    long m_warmedStatements = 0;
 
     /**
      * Constructor with default cache sizes.
@@ -114,116 +153,29 @@ public class AdHocCompilerCache implements Serializable {
      * Constructor with specific cache sizes is only called directly for testing.
      *
      * @param maxLiteralEntries cache size for literals
-     * @param maxLiteralMem cache memory for literals
+     * @param maxCoreEntries cache size for parameterized plans
      */
     AdHocCompilerCache(int maxLiteralEntries, int maxCoreEntries) {
         MAX_LITERAL_ENTRIES = maxLiteralEntries;
         MAX_CORE_ENTRIES = maxCoreEntries;
 
-        // an LRU cache map
-        m_literalCache = new AdHocStatementCache(MAX_LITERAL_ENTRIES, MAX_LITERAL_MEM);
-
-        // an LRU cache map
-        m_coreCache = new LinkedHashMap<String, List<BoundPlan> >(MAX_CORE_ENTRIES * 2, .75f, true) {
-            private static final long serialVersionUID = 1L;
-
-            // This method is called just after a new entry has been added
-            @Override
-            public boolean removeEldestEntry(Map.Entry<String, List<BoundPlan> > eldest) {
-                if (size() > MAX_CORE_ENTRIES) {
-                    ++m_planEvictions;
-                    return true;
-                }
-                return false;
-            }
-
-        };
-    }
-
-    // define a LinkedHashMap based LRU cache bounds by both entry number and entry value on-heap size
-    // without changing Map.Entry, only works for value of type AdHocPlannedStatement
-    // only extend put, remove,clear and removeEldestEntry methods to account weight
-    public class AdHocStatementCache extends LinkedHashMap<String, AdHocPlannedStatement>{
-       private static final long serialVersionUID = 2988383448026641836L;
-        private final int maxEntries;
-        private final long maxMemory; // in bytes
-        private long currentMemory;   // in bytes
-
-        public AdHocStatementCache() {
-            // default max entry of 1000
-            // default max value size of 32MB
-            this(1000, 32 * 1024 * 1024);
-        }
-
-        public AdHocStatementCache(final int maxEntries) {
-            this(maxEntries, 32 * 1024 * 1024);
-        }
-
-        public AdHocStatementCache(final int maxEntries, final long maxMemory) {
-            // set accessOrder to true for LRU
-            super(maxEntries * 2, .75f, true);
-            this.maxEntries = maxEntries;
-            this.maxMemory = maxMemory;
-            this.currentMemory = 0;
-        }
-
-        // This method is called just after a new entry has been added
-        @Override
-        public boolean removeEldestEntry(final Map.Entry<String, AdHocPlannedStatement> eldest) {
-            if ((size() > maxEntries) || (this.currentMemory > this.maxMemory))  {
-                ++m_literalEvictions;
-                this.currentMemory -= eldest.getValue().getSerializedSize();
-                return true;
-            }
-            return false;
-        }
-
-        @Override
-        public AdHocPlannedStatement put(String key, AdHocPlannedStatement value) {
-            this.currentMemory += value.getSerializedSize();
-            return super.put(key,value);
-        }
-
-        @Override
-        public AdHocPlannedStatement remove(Object key) {
-            AdHocPlannedStatement value = super.remove(key);
-            if (value != null) {
-                this.currentMemory -= value.getSerializedSize();
-            }
-            return value;
-        }
-
-        @Override
-        public void clear() {
-            super.clear();
-            this.currentMemory = 0;
-        }
-    }
-
-    /**
-     * Stats printing method used during development.
-     * Probably shouldn't live past real stats integration.
-     */
-    synchronized void printStats() {
-        String line1 = String.format("CACHE STATS - Literals: Hits %d/%d (%.1f%%), Inserts %d Evictions %d\n",
-                m_literalHits, m_literalQueries, (m_literalHits * 100.0) / m_literalQueries,
-                m_literalInsertions, m_literalEvictions);
-        String line2 = String.format("CACHE STATS - Plans:    Hits %d/%d (%.1f%%), Inserts %d Evictions %d\n",
-                m_planHits, m_planQueries, (m_planHits * 100.0) /m_planQueries,
-                m_planInsertions, m_planEvictions);
-
-        System.out.print(line1 + line2);
-        System.out.flush();
-
-        // reset these
-        m_literalHits = 0;
-        m_literalQueries = 0;
-        m_literalInsertions = 0;
-        m_literalEvictions = 0;
-        m_planHits = 0;
-        m_planQueries = 0;
-        m_planInsertions = 0;
-        m_planEvictions = 0;
+        // bounded by both entry count and on-heap size of the plans
+        m_literalCache = new WindowTinyLfuCache<AdHocPlannedStatement>(MAX_LITERAL_ENTRIES, MAX_LITERAL_MEM,
+                new WindowTinyLfuCache.Weigher<AdHocPlannedStatement>() {
+                    @Override
+                    public long weigh(AdHocPlannedStatement value) {
+                        return value.getSerializedSize();
+                    }
+                });
+
+        // bounded by entry count only
+        m_coreCache = new WindowTinyLfuCache<CoreCacheEntry>(MAX_CORE_ENTRIES, Long.MAX_VALUE,
+                new WindowTinyLfuCache.Weigher<CoreCacheEntry>() {
+                    @Override
+                    public long weigh(CoreCacheEntry value) {
+                        return 0;
+                    }
+                });
     }
 
     /**
@@ -246,11 +198,12 @@ public class AdHocCompilerCache implements Serializable {
      */
     public synchronized List<BoundPlan> getWithParsedToken(String parsedToken) {
         ++m_planQueries;
-        List<BoundPlan> retval = m_coreCache.get(parsedToken);
-        if (retval != null) {
-            ++m_planHits;
+        CoreCacheEntry entry = m_coreCache.get(parsedToken);
+        if (entry == null) {
+            return null;
         }
-        return retval;
+        ++m_planHits;
+        return entry.m_variants;
     }
 
     /**
@@ -288,18 +241,16 @@ public class AdHocCompilerCache implements Serializable {
         // it means that a query can not be both user parameterized query and auto parameterized query.
         assert(!hasUserQuestionMarkParameters || !hasAutoParameterizedException);
 
-        // uncomment this to get some raw stdout cache performance stats every 5s
-        //startPeriodicStatsPrinting();
-
         // deal with L2 cache
         if (! hasAutoParameterizedException) {
             BoundPlan matched = null;
             BoundPlan unmatched = new BoundPlan(planIn.core, planIn.parameterBindings(extractedLiterals));
             // deal with the parameterized plan cache first
-            List<BoundPlan> boundVariants = m_coreCache.get(parsedToken);
-            if (boundVariants == null) {
-                boundVariants = new ArrayList<BoundPlan>();
-                m_coreCache.put(parsedToken, boundVariants);
+            CoreCacheEntry entry = m_coreCache.peek(parsedToken);
+            if (entry == null) {
+                int userParamCount = hasUserQuestionMarkParameters ? planIn.core.parameterTypes.length : 0;
+                entry = new CoreCacheEntry(sql, userParamCount);
+                m_coreCache.put(parsedToken, entry);
                 // Note that there is an edge case in which more than one plan is getting counted as one
                 // "plan insertion". This only happens when two different plans arose from the same parameterized
                 // query (token) because one invocation used the correct constants to trigger an expression index and
@@ -308,7 +259,7 @@ public class AdHocCompilerCache implements Serializable {
                 // It seems saner to use consistent units when counting insertions vs. evictions.
                 ++m_planInsertions;
             } else {
-                for (BoundPlan boundPlan : boundVariants) {
+                for (BoundPlan boundPlan : entry.m_variants) {
                     if (boundPlan.equals(unmatched)) {
                         matched = boundPlan;
                         break;
@@ -326,13 +277,13 @@ public class AdHocCompilerCache implements Serializable {
             if (matched == null) {
                 // Don't count insertions (of possibly repeated tokens) here
                 //  -- see the comment above where only UNIQUE token insertions are being counted, instead.
-                boundVariants.add(unmatched);
+                entry.m_variants.add(unmatched);
             }
         }
 
         // then deal with the L1 cache
         if (! hasUserQuestionMarkParameters) {
-            AdHocPlannedStatement cachedPlan = m_literalCache.get(sql);
+            AdHocPlannedStatement cachedPlan = m_literalCache.peek(sql);
             if (cachedPlan == null) {
                 //* enable to debug */ System.out.println("DEBUG: Caching literal '" + sql + "'");
                 m_literalCache.put(sql, plan);
@@ -344,27 +295,11 @@ public class AdHocCompilerCache implements Serializable {
         }
     }
 
-    /**
-     * Start a timer that prints cache stats to the console every 5s.
-     * Used for development until we get better stats integration.
-     */
-    public void startPeriodicStatsPrinting() {
-        if (m_statsTimer == null) {
-            m_statsTimer = new Timer();
-            m_statsTimer.scheduleAtFixedRate(new TimerTask() {
-                @Override
-                public void run() {
-                    printStats();
-                }
-            }, 5000, 5000);
-        }
-    }
-
     /**
      * Return the number of items in the literal cache.
      * @return  literal cache size as a count
      */
-    public int getLiteralCacheSize() {
+    public synchronized int getLiteralCacheSize() {
         return m_literalCache.size();
     }
 
@@ -372,7 +307,129 @@ public class AdHocCompilerCache implements Serializable {
      * Return the number of items in the core (parameterized) cache.
      * @return  core cache size as a count
      */
-    public int getCoreCacheSize() {
+    public synchronized int getCoreCacheSize() {
         return m_coreCache.size();
     }
+
+    /**
+     * Called from the PlannerTool after a statement missed both levels
+     * and went through full planning.
+     * @param nanos  time spent planning
+     */
+    public synchronized void recordPlanningTime(long nanos) {
+        ++m_plansCompiled;
+        m_totalPlanningNanos += nanos;
+        m_maxPlanningNanos = Math.max(m_maxPlanningNanos, nanos);
+    }
+
+    synchronized void recordWarmedStatement() {
+        ++m_warmedStatements;
+    }
+
+    //////////////////////////////////////////////////////////////////////////
+    // WARM-UP LIST
+    //////////////////////////////////////////////////////////////////////////
+
+    private static final String WARMUP_FILE_HEADER = "# VoltDB ad hoc plan cache warm-up list";
+
+    /**
+     * A statement worth re-planning when a new cache starts cold.
+     */
+    public static class WarmupStatement {
+        public final String sql;
+        public final int userParamCount;
+
+        public WarmupStatement(String sql, int userParamCount) {
+            this.sql = sql;
+            this.userParamCount = userParamCount;
+        }
+    }
+
+    /**
+     * Pick the most frequently used statements of both levels. A parameterized
+     * entry is represented by the first SQL text that produced it, and only
+     * appears once even if that text is also in the literal cache.
+     *
+     * @param limit maximum number of statements to return
+     * @return statements, most frequently used first
+     */
+    public synchronized List<WarmupStatement> getWarmupStatements(int limit) {
+        LinkedHashMap<String, WarmupStatement> statements = new LinkedHashMap<>();
+        List<String> coreKeys = m_coreCache.hottestKeys(limit);
+        List<String> literalKeys = m_literalCache.hottestKeys(limit);
+        int coreIdx = 0;
+        int literalIdx = 0;
+        // merge the two lists by frequency
+        while (statements.size() < limit && (coreIdx < coreKeys.size() || literalIdx < literalKeys.size())) {
+            boolean takeCore = literalIdx >= literalKeys.size() ||
+                    (coreIdx < coreKeys.size() &&
+                     m_coreCache.frequency(coreKeys.get(coreIdx)) >=
+                     m_literalCache.frequency(literalKeys.get(literalIdx)));
+            if (takeCore) {
+                CoreCacheEntry entry = m_coreCache.peek(coreKeys.get(coreIdx++));
+                if (! statements.containsKey(entry.m_sql)) {
+                    statements.put(entry.m_sql, new WarmupStatement(entry.m_sql, entry.m_userParamCount));
+                }
+            }
+            else {
+                String sql = literalKeys.get(literalIdx++);
+                if (! statements.containsKey(sql)) {
+                    statements.put(sql, new WarmupStatement(sql, 0));
+                }
+            }
+        }
+        return new ArrayList<>(statements.values());
+    }
+
+    /**
+     * Write the statements to a file, replacing it atomically.
+     * Each line is the user parameter count and the hex-encoded SQL text.
+     */
+    public static void writeWarmupList(File file, List<WarmupStatement> statements) throws IOException {
+        File tmpFile = new File(file.getPath() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tmpFile.toPath(), Constants.UTF8ENCODING)) {
+            writer.write(WARMUP_FILE_HEADER);
+            writer.newLine();
+            for (WarmupStatement stmt : statements) {
+                writer.write(Integer.toString(stmt.userParamCount));
+                writer.write(' ');
+                writer.write(Encoder.hexEncode(stmt.sql));
+                writer.newLine();
+            }
+        }
+        Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Read a file written by {@link #writeWarmupList(File, List)}. A missing
+     * file yields an empty list; malformed lines are skipped.
+     */
+    public static List<WarmupStatement> readWarmupList(File file) throws IOException {
+        if (! file.exists()) {
+            return Collections.emptyList();
+        }
+        List<WarmupStatement> statements = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), Constants.UTF8ENCODING)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                int sep = line.indexOf(' ');
+                if (sep <= 0 || ! Encoder.isHexEncodedString(line.substring(sep + 1))) {
+                    continue;
+                }
+                try {
+                    int userParamCount = Integer.parseInt(line.substring(0, sep));
+                    statements.add(new WarmupStatement(Encoder.hexDecodeToString(line.substring(sep + 1)),
+                                                       userParamCount));
+                }
+                catch (NumberFormatException e) {
+                    continue;
+                }
+            }
+        }
+        return statements;
+    }
 }
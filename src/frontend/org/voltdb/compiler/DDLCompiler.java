@@ -68,6 +68,7 @@ import org.voltdb.compiler.statements.CreateProcedureAsScript;
 import org.voltdb.compiler.statements.CreateProcedureFromClass;
 import org.voltdb.compiler.statements.CreateRole;
 import org.voltdb.compiler.statements.DRTable;
+import org.voltdb.compiler.statements.DictionaryTable;
 import org.voltdb.compiler.statements.DropFunction;
 import org.voltdb.compiler.statements.DropProcedure;
 import org.voltdb.compiler.statements.DropRole;
@@ -206,6 +207,7 @@ public class DDLCompiler {
                                 .addNextProcessor(new DropRole(this))
                                 .addNextProcessor(new DropStream(this))
                                 .addNextProcessor(new DRTable(this))
+                                .addNextProcessor(new DictionaryTable(this))
                                 .addNextProcessor(new SetGlobalParam(this))
                                 // CatchAllVoltDBStatement need to be the last processor in the chain.
                                 .addNextProcessor(new CatchAllVoltDBStatement(this, m_voltStatementProcessor));
@@ -299,6 +301,7 @@ public class DDLCompiler {
         protected static final String REPLICATE = "REPLICATE";
         protected static final String ROLE = "ROLE";
         protected static final String DR = "DR";
+        protected static final String DICTIONARY = "DICTIONARY";
     }
 
     public void loadSchemaWithFiltering(Reader reader, final Database db, final DdlProceduresToLoad whichProcs, SQLParser.FileInfo fileInfo)
@@ -512,6 +515,7 @@ public class DDLCompiler {
         // For now, this is:
         // - ensuring that the partition columns on tables are correct.  The hard
         // case is when the partition column is dropped from the table
+        // - dropping dictionary encoding from columns altered to a type that can't be encoded
 
         // Each statement can change at most one table. Check to see if the table is listed in
         // the changed nodes
@@ -529,6 +533,23 @@ public class DDLCompiler {
         }
         VoltXMLDiff columnsDiff = tableDiff.getChangedNodes().get("columnscolumns");
         assert(columnsDiff != null);
+        // go back and get our table name.  Use the uniquename ("table" + name) to get the element
+        // from the schema
+        VoltXMLElement tableElement = m_schema.findChild(tableEntry.getKey());
+        assert(tableElement != null);
+        for (String columnKey : columnsDiff.getChangedNodes().keySet()) {
+            VoltXMLElement columnElement = tableElement.findChild("columns", "columns").findChild(columnKey);
+            if (columnElement != null && columnElement.attributes.containsKey("dictionaryencoded")) {
+                VoltType type = VoltType.typeFromString(columnElement.attributes.get("valuetype"));
+                if (type != VoltType.STRING && type != VoltType.VARBINARY) {
+                    m_compiler.addWarn(String.format("Column %s of table %s was altered to type %s.  " +
+                            "Dictionary encoding was removed from the column.",
+                            columnElement.attributes.get("name"), tableElement.attributes.get("name"),
+                            type.toSQLString()));
+                    columnElement.attributes.remove("dictionaryencoded");
+                }
+            }
+        }
         // Need to have deleted columns
         if (columnsDiff.getRemovedNodes().isEmpty()) {
             return;
@@ -539,10 +560,6 @@ public class DDLCompiler {
             assert(e.attributes.get("name") != null);
             removedColumns.add(e.attributes.get("name"));
         }
-        // go back and get our table name.  Use the uniquename ("table" + name) to get the element
-        // from the schema
-        VoltXMLElement tableElement = m_schema.findChild(tableEntry.getKey());
-        assert(tableElement != null);
         String partitionCol = tableElement.attributes.get("partitioncolumn");
         // if we removed the partition column, then remove the attribute from the schema
         if (partitionCol != null && removedColumns.contains(partitionCol)) {
@@ -1551,6 +1568,9 @@ public class DDLCompiler {
 
         column.setInbytes(inBytes);
         column.setSize(size);
+        // only out-of-line types can be encoded, the attribute is dropped when a column is altered
+        column.setDictionaryencoded((type == VoltType.STRING || type == VoltType.VARBINARY) &&
+                Boolean.valueOf(node.attributes.get("dictionaryencoded")));
 
         column.setDefaultvalue(defaultvalue);
         if (defaulttype != null)
@@ -0,0 +1,118 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.voltdb.compiler;
+
+/**
+ * A count-min sketch of 4-bit counters that estimates how often a key has
+ * been seen recently. It is the frequency half of the W-TinyLFU admission
+ * policy used by the ad hoc plan caches.
+ *
+ * Each key maps to one counter in each of four rows. The estimate is the
+ * smallest of the four, so collisions can only over-count. Once the number
+ * of increments reaches ten times the table width every counter is halved,
+ * which ages out keys that were popular a long time ago.
+ *
+ * Not thread safe; the owning cache serializes access.
+ */
+final class FrequencySketch {
+    private static final long[] SEEDS = new long[] {
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_COUNT = 15;
+
+    // Every long holds sixteen 4-bit counters, four for each row.
+    private final long[] m_table;
+    private final int m_tableMask;
+    private final int m_sampleSize;
+    private int m_additions = 0;
+
+    FrequencySketch(int expectedEntries) {
+        int width = Integer.highestOneBit(Math.max(expectedEntries, 16) - 1) << 1;
+        m_table = new long[width];
+        m_tableMask = width - 1;
+        m_sampleSize = 10 * width;
+    }
+
+    /**
+     * @return the estimated number of times the key was seen, at most 15
+     */
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_COUNT;
+        for (int row = 0; row < 4; ++row) {
+            frequency = Math.min(frequency, counterAt(hash, row));
+        }
+        return frequency;
+    }
+
+    /**
+     * Record one occurrence of the key, aging the whole sketch if the
+     * sample period is over.
+     */
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int row = 0; row < 4; ++row) {
+            added |= incrementAt(hash, row);
+        }
+        if (added && ++m_additions >= m_sampleSize) {
+            reset();
+        }
+    }
+
+    private int indexOf(int hash, int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        h += h >>> 32;
+        return ((int) h) & m_tableMask;
+    }
+
+    // Offset in bits of this row's counter within its long.
+    private static int offsetOf(int hash, int row) {
+        return ((row << 2) + ((hash >>> (row << 3)) & 3)) << 2;
+    }
+
+    private int counterAt(int hash, int row) {
+        return (int) ((m_table[indexOf(hash, row)] >>> offsetOf(hash, row)) & 0xfL);
+    }
+
+    private boolean incrementAt(int hash, int row) {
+        int index = indexOf(hash, row);
+        int offset = offsetOf(hash, row);
+        if (((m_table[index] >>> offset) & 0xfL) < MAX_COUNT) {
+            m_table[index] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    private void reset() {
+        for (int i = 0; i < m_table.length; ++i) {
+            m_table[i] = (m_table[i] >>> 1) & RESET_MASK;
+        }
+        m_additions /= 2;
+    }
+
+    // Mix the bits of a String hash code, which are poor in the low bits
+    // for short SQL texts that only differ in a trailing literal.
+    private static int spread(int hash) {
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        return (hash >>> 16) ^ hash;
+    }
+}
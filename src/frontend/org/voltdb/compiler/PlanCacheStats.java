@@ -0,0 +1,175 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.voltdb.compiler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.voltdb.StatsSource;
+import org.voltdb.VoltTable.ColumnInfo;
+import org.voltdb.VoltType;
+
+/**
+ * One row per host describing the ad hoc plan cache: how full each level
+ * is, how often it hits, what W-TinyLFU evicts or refuses to admit, and
+ * what a full planning pass costs on a miss. Reported by
+ * {@code @Statistics PLANCACHE}.
+ */
+public class PlanCacheStats extends StatsSource {
+
+    public enum StatName {
+        LITERAL_ENTRIES,
+        LITERAL_MEMORY,
+        LITERAL_HITS,
+        LITERAL_MISSES,
+        LITERAL_EVICTIONS,
+        LITERAL_REJECTIONS,
+        CORE_ENTRIES,
+        CORE_HITS,
+        CORE_MISSES,
+        CORE_EVICTIONS,
+        CORE_REJECTIONS,
+        PLANS_COMPILED,
+        PLAN_TIME_AVG,
+        PLAN_TIME_MAX,
+        WARMED_STATEMENTS
+    };
+
+    // Counters that are reported as deltas when polled with interval=1.
+    private static final StatName[] COUNTERS = new StatName[] {
+        StatName.LITERAL_HITS, StatName.LITERAL_MISSES, StatName.LITERAL_EVICTIONS,
+        StatName.LITERAL_REJECTIONS, StatName.CORE_HITS, StatName.CORE_MISSES,
+        StatName.CORE_EVICTIONS, StatName.CORE_REJECTIONS, StatName.PLANS_COMPILED,
+        StatName.WARMED_STATEMENTS };
+
+    private boolean m_interval = false;
+    private AdHocCompilerCache m_lastCache = null;
+    private final long[] m_lastValues = new long[StatName.values().length];
+    private long m_lastTotalPlanningNanos = 0;
+
+    public PlanCacheStats() {
+        super(false);
+    }
+
+    @Override
+    protected void populateColumnSchema(ArrayList<ColumnInfo> columns) {
+        super.populateColumnSchema(columns);
+        columns.add(new ColumnInfo(StatName.LITERAL_ENTRIES.name(), VoltType.INTEGER));
+        columns.add(new ColumnInfo(StatName.LITERAL_MEMORY.name(), VoltType.BIGINT));
+        columns.add(new ColumnInfo(StatName.LITERAL_HITS.name(), VoltType.BIGINT));
+        columns.add(new ColumnInfo(StatName.LITERAL_MISSES.name(), VoltType.BIGINT));
+        columns.add(new ColumnInfo(StatName.LITERAL_EVICTIONS.name(), VoltType.BIGINT));
+        columns.add(new ColumnInfo(StatName.LITERAL_REJECTIONS.name(), VoltType.BIGINT));
+        columns.add(new ColumnInfo(StatName.CORE_ENTRIES.name(), VoltType.INTEGER));
+        columns.add(new ColumnInfo(StatName.CORE_HITS.name(), VoltType.BIGINT));
+        columns.add(new ColumnInfo(StatName.CORE_MISSES.name(), VoltType.BIGINT));
+        columns.add(new ColumnInfo(StatName.CORE_EVICTIONS.name(), VoltType.BIGINT));
+        columns.add(new ColumnInfo(StatName.CORE_REJECTIONS.name(), VoltType.BIGINT));
+        columns.add(new ColumnInfo(StatName.PLANS_COMPILED.name(), VoltType.BIGINT));
+        columns.add(new ColumnInfo(StatName.PLAN_TIME_AVG.name(), VoltType.BIGINT));
+        columns.add(new ColumnInfo(StatName.PLAN_TIME_MAX.name(), VoltType.BIGINT));
+        columns.add(new ColumnInfo(StatName.WARMED_STATEMENTS.name(), VoltType.BIGINT));
+    }
+
+    @Override
+    protected void updateStatsRow(Object rowKey, Object[] rowValues) {
+        super.updateStatsRow(rowKey, rowValues);
+
+        AdHocCompilerCache cache = AdHocCompilerCache.getActiveCache();
+        long[] values = new long[StatName.values().length];
+        long totalPlanningNanos = 0;
+        if (cache != null) {
+            synchronized (cache) {
+                values[StatName.LITERAL_ENTRIES.ordinal()] = cache.m_literalCache.size();
+                values[StatName.LITERAL_MEMORY.ordinal()] = cache.m_literalCache.weight();
+                values[StatName.LITERAL_HITS.ordinal()] = cache.m_literalHits;
+                values[StatName.LITERAL_MISSES.ordinal()] = cache.m_literalQueries - cache.m_literalHits;
+                values[StatName.LITERAL_EVICTIONS.ordinal()] = cache.m_literalCache.m_evictions;
+                values[StatName.LITERAL_REJECTIONS.ordinal()] = cache.m_literalCache.m_rejections;
+                values[StatName.CORE_ENTRIES.ordinal()] = cache.m_coreCache.size();
+                values[StatName.CORE_HITS.ordinal()] = cache.m_planHits;
+                values[StatName.CORE_MISSES.ordinal()] = cache.m_planQueries - cache.m_planHits;
+                values[StatName.CORE_EVICTIONS.ordinal()] = cache.m_coreCache.m_evictions;
+                values[StatName.CORE_REJECTIONS.ordinal()] = cache.m_coreCache.m_rejections;
+                values[StatName.PLANS_COMPILED.ordinal()] = cache.m_plansCompiled;
+                values[StatName.PLAN_TIME_MAX.ordinal()] = cache.m_maxPlanningNanos;
+                values[StatName.WARMED_STATEMENTS.ordinal()] = cache.m_warmedStatements;
+                totalPlanningNanos = cache.m_totalPlanningNanos;
+            }
+        }
+
+        long plansCompiled = values[StatName.PLANS_COMPILED.ordinal()];
+        if (m_interval) {
+            // A catalog change starts a new cache with fresh counters.
+            if (cache != m_lastCache) {
+                Arrays.fill(m_lastValues, 0);
+                m_lastTotalPlanningNanos = 0;
+                m_lastCache = cache;
+            }
+            long[] current = values.clone();
+            for (StatName counter : COUNTERS) {
+                values[counter.ordinal()] -= m_lastValues[counter.ordinal()];
+            }
+            System.arraycopy(current, 0, m_lastValues, 0, current.length);
+            plansCompiled = values[StatName.PLANS_COMPILED.ordinal()];
+            long intervalNanos = totalPlanningNanos - m_lastTotalPlanningNanos;
+            m_lastTotalPlanningNanos = totalPlanningNanos;
+            totalPlanningNanos = intervalNanos;
+        }
+        values[StatName.PLAN_TIME_AVG.ordinal()] = plansCompiled == 0 ? 0 : totalPlanningNanos / plansCompiled;
+
+        for (StatName stat : StatName.values()) {
+            if (stat == StatName.LITERAL_ENTRIES || stat == StatName.CORE_ENTRIES) {
+                rowValues[columnNameToIndex.get(stat.name())] = (int) values[stat.ordinal()];
+            }
+            else {
+                rowValues[columnNameToIndex.get(stat.name())] = values[stat.ordinal()];
+            }
+        }
+    }
+
+    @Override
+    protected Iterator<Object> getStatsRowKeyIterator(boolean interval) {
+        m_interval = interval;
+        return new Iterator<Object>() {
+            boolean returnRow = true;
+
+            @Override
+            public boolean hasNext() {
+                return returnRow;
+            }
+
+            @Override
+            public Object next() {
+                if (returnRow) {
+                    returnRow = false;
+                    return new Object();
+                } else {
+                    return null;
+                }
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
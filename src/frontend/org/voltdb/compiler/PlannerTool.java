@@ -17,6 +17,8 @@
 
 package org.voltdb.compiler;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
 
@@ -61,6 +63,10 @@ public class PlannerTool {
     private final HSQLInterface m_hsql;
 
     private static PlannerStatsCollector m_plannerStats;
+    private static PlanCacheStats m_planCacheStats;
+
+    // Upper bound on the statements persisted for, and replayed by, cache warm-up.
+    static final int WARMUP_MAX_STATEMENTS = Integer.getInteger("PLAN_CACHE_WARMUP_MAX_STATEMENTS", 500);
 
     // If -Dlarge_mode_ratio=xx is specified via ant, the value will show up in the environment variables and
     // take higher priority. Otherwise, the value specified via VOLTDB_OPTS will take effect.
@@ -76,6 +82,7 @@ public class PlannerTool {
         m_database = database;
         m_catalogHash = catalogHash;
         m_cache = AdHocCompilerCache.getCacheForCatalogHash(catalogHash);
+        AdHocCompilerCache.setActiveCache(m_cache);
 
         // LOAD HSQL
         m_hsql = HSQLInterface.loadHsqldb(ParameterizationInfo.getParamStateManager());
@@ -106,6 +113,8 @@ public class PlannerTool {
                     if (statsAgent != null) {
                         m_plannerStats = new PlannerStatsCollector(-1);
                         statsAgent.registerStatsSource(StatsSelector.PLANNER, -1, m_plannerStats);
+                        m_planCacheStats = new PlanCacheStats();
+                        statsAgent.registerStatsSource(StatsSelector.PLANCACHE, -1, m_planCacheStats);
                     }
                 }
             }
@@ -116,10 +125,51 @@ public class PlannerTool {
         m_database = database;
         m_catalogHash = catalogHash;
         m_cache = AdHocCompilerCache.getCacheForCatalogHash(catalogHash);
+        AdHocCompilerCache.setActiveCache(m_cache);
 
         return this;
     }
 
+    /**
+     * Save the most frequently used ad hoc statements so that the next
+     * start can re-plan them before clients notice a cold cache.
+     */
+    public void persistWarmupList(File file) throws IOException {
+        List<AdHocCompilerCache.WarmupStatement> statements = m_cache.getWarmupStatements(WARMUP_MAX_STATEMENTS);
+        if (statements.isEmpty()) {
+            return;
+        }
+        AdHocCompilerCache.writeWarmupList(file, statements);
+    }
+
+    /**
+     * Plan each statement from a list saved by {@link #persistWarmupList(File)}
+     * to populate the cache. Statements that no longer plan, e.g. because the
+     * schema changed, are skipped.
+     *
+     * @return the number of statements that were planned
+     */
+    public int warmUp(File file) throws IOException {
+        List<AdHocCompilerCache.WarmupStatement> statements = AdHocCompilerCache.readWarmupList(file);
+        int warmed = 0;
+        for (AdHocCompilerCache.WarmupStatement stmt : statements) {
+            if (warmed >= WARMUP_MAX_STATEMENTS) {
+                break;
+            }
+            // Only the number of user parameters matters to the planner.
+            Object[] userParams = stmt.userParamCount == 0 ? null : new Object[stmt.userParamCount];
+            try {
+                planSql(stmt.sql, StatementPartitioning.inferPartitioning(), false, userParams, false, false);
+                m_cache.recordWarmedStatement();
+                ++warmed;
+            }
+            catch (RuntimeException e) {
+                compileLog.debug("Skipped plan cache warm-up statement: " + e.getMessage());
+            }
+        }
+        return warmed;
+    }
+
     public HSQLInterface getHSQLInterface() {
         return m_hsql;
     }
@@ -239,6 +289,7 @@ public class PlannerTool {
 
             TrivialCostModel costModel = new TrivialCostModel();
             DatabaseEstimates estimates = new DatabaseEstimates();
+            final long planningStart = System.nanoTime();
             // This try-with-resources block acquires a global lock on all planning
             // This is required until we figure out how to do parallel planning.
             try (QueryPlanner planner = new QueryPlanner(
@@ -325,6 +376,7 @@ public class PlannerTool {
 
                 // If not caching or there was no cache hit, do the expensive full planning.
                 plan = planner.plan();
+                m_cache.recordPlanningTime(System.nanoTime() - planningStart);
                 if (plan.getStatementPartitioning() != null) {
                     partitioning = plan.getStatementPartitioning();
                 }
@@ -661,11 +661,12 @@ public abstract class StatementCompiler {
         return sb.toString();
     }
 
-    private static String genValueAtOffsetSqlForNibbleDelete(Table table, Column column,
+    static String genValueAtOffsetSqlForNibbleDelete(Table table, Column column,
             ComparisonOperation comparison) {
         StringBuilder sb = new StringBuilder();
         sb.append("SELECT " + column.getName() + " FROM " + table.getTypeName());
-//        sb.append(" WHERE " + column.getName() + " " + comparison.toString() + " ?");
+        // NULLs never meet the delete criteria and sort first, keep them out of the frontier
+        sb.append(" WHERE " + column.getName() + " IS NOT NULL");
         sb.append(" ORDER BY " + column.getName());
         if (comparison == ComparisonOperation.LTE || comparison == ComparisonOperation.LT) {
             sb.append(" ASC OFFSET ? LIMIT 1;");
@@ -0,0 +1,190 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.voltdb.compiler;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bounded map from SQL text (or parameterized token) to a cached value,
+ * evicted with the W-TinyLFU policy rather than plain LRU.
+ *
+ * New entries land in a small LRU admission window. When the window
+ * overflows, its eldest entry becomes a candidate for the main LRU region
+ * and has to beat that region's eldest entry on estimated access frequency
+ * to get in; otherwise the candidate is dropped. A burst of one-off ad hoc
+ * statements therefore churns only the window and cannot flush plans that
+ * are used over and over.
+ *
+ * The cache is bounded both by entry count and by the total weight of its
+ * values, as reported by the {@link Weigher}.
+ *
+ * Not thread safe; AdHocCompilerCache serializes access.
+ */
+class WindowTinyLfuCache<V> {
+
+    interface Weigher<V> {
+        long weigh(V value);
+    }
+
+    // The window holds this fraction of the entries, but at least one.
+    static final double WINDOW_FRACTION = 0.01;
+
+    private final int m_maxEntries;
+    private final long m_maxWeight;
+    private final int m_maxWindowEntries;
+    private final Weigher<V> m_weigher;
+    private final FrequencySketch m_sketch;
+
+    // Both are in access order, so the first entry is the least recently used.
+    private final LinkedHashMap<String, V> m_window;
+    private final LinkedHashMap<String, V> m_main;
+    private long m_weight = 0;
+
+    // Entries dropped because the cache was full, and, of those, the
+    // candidates that lost the frequency comparison on the way out of the window.
+    long m_evictions = 0;
+    long m_rejections = 0;
+
+    WindowTinyLfuCache(int maxEntries, long maxWeight, Weigher<V> weigher) {
+        assert(maxEntries > 0);
+        m_maxEntries = maxEntries;
+        m_maxWeight = maxWeight;
+        m_maxWindowEntries = Math.max(1, (int) (maxEntries * WINDOW_FRACTION));
+        m_weigher = weigher;
+        m_sketch = new FrequencySketch(maxEntries);
+        m_window = new LinkedHashMap<>(m_maxWindowEntries * 2, .75f, true);
+        m_main = new LinkedHashMap<>(maxEntries * 2, .75f, true);
+    }
+
+    /**
+     * Look up a key, counting the access towards its frequency whether or
+     * not it is cached, so that a statement which keeps missing builds up
+     * enough history to be admitted.
+     */
+    V get(String key) {
+        m_sketch.increment(key);
+        V value = m_window.get(key);
+        if (value == null) {
+            value = m_main.get(key);
+        }
+        return value;
+    }
+
+    /**
+     * Look up a key without touching its recency or frequency.
+     */
+    V peek(String key) {
+        V value = m_window.get(key);
+        if (value == null) {
+            value = m_main.get(key);
+        }
+        return value;
+    }
+
+    /**
+     * Insert or replace an entry. It is always admitted to the window; it
+     * may be the one evicted later when it competes for the main region.
+     */
+    void put(String key, V value) {
+        remove(key);
+        m_window.put(key, value);
+        m_weight += m_weigher.weigh(value);
+        evict();
+    }
+
+    V remove(String key) {
+        V value = m_window.remove(key);
+        if (value == null) {
+            value = m_main.remove(key);
+        }
+        if (value != null) {
+            m_weight -= m_weigher.weigh(value);
+        }
+        return value;
+    }
+
+    void clear() {
+        m_window.clear();
+        m_main.clear();
+        m_weight = 0;
+    }
+
+    int size() {
+        return m_window.size() + m_main.size();
+    }
+
+    long weight() {
+        return m_weight;
+    }
+
+    int frequency(String key) {
+        return m_sketch.frequency(key);
+    }
+
+    /**
+     * @return up to {@code limit} cached keys, most frequently used first
+     */
+    List<String> hottestKeys(int limit) {
+        List<String> keys = new ArrayList<>(size());
+        keys.addAll(m_main.keySet());
+        keys.addAll(m_window.keySet());
+        keys.sort((a, b) -> Integer.compare(m_sketch.frequency(b), m_sketch.frequency(a)));
+        return keys.size() > limit ? new ArrayList<>(keys.subList(0, limit)) : keys;
+    }
+
+    private void evict() {
+        int mainCapacity = m_maxEntries - m_maxWindowEntries;
+        while (m_window.size() > m_maxWindowEntries) {
+            Map.Entry<String, V> candidate = m_window.entrySet().iterator().next();
+            m_window.remove(candidate.getKey());
+            if (m_main.size() < mainCapacity) {
+                m_main.put(candidate.getKey(), candidate.getValue());
+                continue;
+            }
+            Iterator<Map.Entry<String, V>> mainIter = m_main.entrySet().iterator();
+            Map.Entry<String, V> victim = mainIter.hasNext() ? mainIter.next() : null;
+            if (victim != null &&
+                    m_sketch.frequency(candidate.getKey()) > m_sketch.frequency(victim.getKey())) {
+                mainIter.remove();
+                m_weight -= m_weigher.weigh(victim.getValue());
+                m_main.put(candidate.getKey(), candidate.getValue());
+            }
+            else {
+                m_weight -= m_weigher.weigh(candidate.getValue());
+                ++m_rejections;
+            }
+            ++m_evictions;
+        }
+
+        // Weight overflow takes the least recently used main entries first,
+        // then falls back to the window.
+        while (m_weight > m_maxWeight && size() > 0) {
+            LinkedHashMap<String, V> from = m_main.isEmpty() ? m_window : m_main;
+            Iterator<Map.Entry<String, V>> iter = from.entrySet().iterator();
+            Map.Entry<String, V> eldest = iter.next();
+            iter.remove();
+            m_weight -= m_weigher.weigh(eldest.getValue());
+            ++m_evictions;
+        }
+    }
+}
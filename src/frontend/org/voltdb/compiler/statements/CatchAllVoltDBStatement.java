@@ -90,6 +90,13 @@ public class CatchAllVoltDBStatement extends StatementProcessor {
                     ddlStatement.statement.substring(0, ddlStatement.statement.length() - 1))); // remove trailing semicolon
         }
 
+        if (DICTIONARY.equals(m_firstProcessor.getCommandPrefix())) {
+            throw m_compiler.new VoltCompilerException(String.format(
+                    "Invalid DICTIONARY TABLE statement: \"%s\", " +
+                    "expected syntax: DICTIONARY TABLE <table> COLUMN <column> [DISABLE]",
+                    ddlStatement.statement.substring(0, ddlStatement.statement.length() - 1))); // remove trailing semicolon
+        }
+
         // Not a VoltDB-specific DDL statement.
         return false;
     }
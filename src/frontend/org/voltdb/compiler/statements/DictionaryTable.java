@@ -0,0 +1,95 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.compiler.statements;
+
+import java.util.regex.Matcher;
+
+import org.hsqldb_voltpatches.VoltXMLElement;
+import org.voltdb.VoltType;
+import org.voltdb.catalog.Database;
+import org.voltdb.compiler.DDLCompiler;
+import org.voltdb.compiler.DDLCompiler.DDLStatement;
+import org.voltdb.compiler.DDLCompiler.StatementProcessor;
+import org.voltdb.compiler.VoltCompiler.DdlProceduresToLoad;
+import org.voltdb.compiler.VoltCompiler.VoltCompilerException;
+import org.voltdb.parser.SQLParser;
+
+/**
+ * Process DICTIONARY TABLE table-name COLUMN column-name [DISABLE]
+ */
+public class DictionaryTable extends StatementProcessor {
+
+    public DictionaryTable(DDLCompiler ddlCompiler) {
+        super(ddlCompiler);
+    }
+
+    @Override
+    protected boolean processStatement(DDLStatement ddlStatement, Database db, DdlProceduresToLoad whichProcs)
+            throws VoltCompilerException {
+        // matches if it is DICTIONARY TABLE <table-name> COLUMN <column-name> [DISABLE]
+        // group 1 -- table name
+        // group 2 -- column name
+        // group 3 -- NULL: enable dictionary encoding
+        //            NOT NULL: disable dictionary encoding
+        Matcher statementMatcher = SQLParser.matchDictionaryTable(ddlStatement.statement);
+        if (! statementMatcher.matches()) {
+            return false;
+        }
+
+        String tableName = checkIdentifierStart(statementMatcher.group(1), ddlStatement.statement);
+        String columnName = checkIdentifierStart(statementMatcher.group(2), ddlStatement.statement);
+
+        VoltXMLElement tableXML = m_schema.findChild("table", tableName.toUpperCase());
+        if (tableXML == null) {
+            throw m_compiler.new VoltCompilerException(String.format(
+                    "While configuring dictionary encoding, table %s was not present in the catalog.", tableName));
+        }
+        if (tableXML.attributes.containsKey("stream") || tableXML.attributes.containsKey("export")) {
+            throw m_compiler.new VoltCompilerException(String.format(
+                    "Invalid DICTIONARY statement: table %s is a stream", tableName));
+        }
+
+        VoltXMLElement columnsXML = tableXML.findChild("columns", "columns");
+        VoltXMLElement columnXML = (columnsXML == null) ? null :
+                columnsXML.findChild("column", columnName.toUpperCase());
+        if (columnXML == null) {
+            throw m_compiler.new VoltCompilerException(String.format(
+                    "While configuring dictionary encoding, column %s was not present in table %s.",
+                    columnName, tableName));
+        }
+
+        // The codes of a dictionary encoded column stand in for its
+        // out-of-line strings, so only those types can be encoded.
+        VoltType type = VoltType.typeFromString(columnXML.attributes.get("valuetype"));
+        if (type != VoltType.STRING && type != VoltType.VARBINARY) {
+            throw m_compiler.new VoltCompilerException(String.format(
+                    "Invalid DICTIONARY statement: column %s of table %s is of type %s, " +
+                    "only VARCHAR and VARBINARY columns can be dictionary encoded",
+                    columnName, tableName, type.toSQLString()));
+        }
+
+        if (statementMatcher.group(3) != null) {
+            columnXML.attributes.remove("dictionaryencoded");
+        }
+        else {
+            columnXML.attributes.put("dictionaryencoded", "true");
+        }
+        return true;
+    }
+
+}
@@ -59,7 +59,7 @@ public class VoltDBStatementProcessor extends StatementProcessor {
             m_returnAfterThis = true;
             return false;
         }
-        // Either PROCEDURE, FUNCTION, REPLICATE, PARTITION, ROLE, EXPORT or DR
+        // Either PROCEDURE, FUNCTION, REPLICATE, PARTITION, ROLE, EXPORT, DR or DICTIONARY
         m_commandPrefix = statementMatcher.group(1).toUpperCase();
         return false;
     }
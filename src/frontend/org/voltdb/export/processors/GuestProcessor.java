@@ -40,6 +40,7 @@ import org.voltdb.export.AdvertisedDataSource;
 import org.voltdb.export.ExportDataProcessor;
 import org.voltdb.export.ExportDataSource;
 import org.voltdb.export.ExportGeneration;
+import org.voltdb.exportclient.ExportBlockView;
 import org.voltdb.exportclient.ExportClientBase;
 import org.voltdb.exportclient.ExportDecoderBase;
 import org.voltdb.exportclient.ExportDecoderBase.RestartBlockException;
@@ -300,6 +301,44 @@ public class GuestProcessor implements ExportDataProcessor {
     }
 
 
+    /**
+     * Walk a block with the decoder's {@link ExportBlockView}, with the same
+     * block start/completion callbacks as the {@link ExportRow} path.
+     *
+     * @return false if a row could not be decoded and the block must be dropped
+     */
+    private boolean processBlockView(ExportDecoderBase edb, ByteBuffer buf, int partitionId)
+            throws RestartBlockException {
+        final ExportBlockView view = edb.getBlockView();
+        view.reset(buf, partitionId);
+        long generation = -1L;
+        boolean decoded = true;
+        while (!m_shutdown) {
+            try {
+                if (!view.advance()) {
+                    break;
+                }
+            } catch (IOException ioe) {
+                m_logger.warn("Failed decoding row for partition" + partitionId + ". " + ioe.getMessage());
+                decoded = false;
+                break;
+            }
+            if (generation == -1L) {
+                edb.onBlockStart(view);
+            }
+            edb.processRow(view);
+            if (generation != -1L && view.getGeneration() != generation) {
+                edb.onBlockCompletion(view);
+                edb.onBlockStart(view);
+            }
+            generation = view.getGeneration();
+        }
+        if (generation != -1L) {
+            edb.onBlockCompletion(view);
+        }
+        return decoded;
+    }
+
     private void addBlockListener(
             final ExportDataSource source,
             final ListenableFuture<BBContainer> fut,
@@ -338,6 +377,18 @@ public class GuestProcessor implements ExportDataProcessor {
                                 final ByteBuffer buf = cont.b();
                                 buf.position(startPosition);
                                 buf.order(ByteOrder.LITTLE_ENDIAN);
+                                if (edb.usesBlockView() && !edb.isLegacy()) {
+                                    if (processBlockView(edb, buf, source.getPartitionId())) {
+                                        if (!m_shutdown) {
+                                            cont.discard();
+                                            cont = null;
+                                        }
+                                    } else {
+                                        cont.discard();
+                                        cont = null;
+                                    }
+                                    break;
+                                }
                                 long generation = -1L;
                                 ExportRow row = null;
                                 while (buf.hasRemaining() && !m_shutdown) {
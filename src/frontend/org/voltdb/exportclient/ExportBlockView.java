@@ -0,0 +1,395 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.exportclient;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.voltdb.VoltType;
+import org.voltdb.compiler.DDLCompiler;
+import org.voltdb.types.GeographyPointValue;
+import org.voltdb.types.GeographyValue;
+import org.voltdb.types.TimestampType;
+
+import com.google_voltpatches.common.base.Charsets;
+
+/**
+ * A reusable, read-only cursor over the rows of an export block. Unlike
+ * {@link ExportRow#decodeRow}, advancing the cursor does not copy the row or box
+ * its values: it only records where each column starts in the block, and the
+ * typed getters read straight from the block buffer.
+ *
+ * The schema carried by the first row of a block is kept across rows and blocks,
+ * so one view is meant to be reused for all the blocks of a data source. Values
+ * read from the view are only valid until the next call to {@link #advance()}.
+ */
+public class ExportBlockView {
+
+    private ByteBuffer m_block;
+    private int m_nextRowPosition;
+    private int m_rowPosition;
+    private int m_partitionId;
+
+    // current row header
+    private long m_generation;
+    private int m_partitionColIndex;
+    private int m_columnCount;
+    private boolean m_rowHasSchema;
+
+    // schema from the last row that carried one
+    private String m_tableName;
+    private List<String> m_names;
+    private List<VoltType> m_types;
+    private List<Integer> m_lengths;
+    private VoltType[] m_typeArray = new VoltType[0];
+
+    // offset of each column value in the block, -1 for NULL
+    private int[] m_offsets = new int[16];
+    private Object[] m_values = new Object[16];
+    private byte[] m_scratch = new byte[256];
+
+    /**
+     * Point the view at a new block. The rows are read from the block's position to its limit,
+     * each one prefixed by its length as written by the EE.
+     *
+     * @param block the block, its byte order is set to little endian
+     * @param partitionId partition the block came from
+     */
+    public void reset(ByteBuffer block, int partitionId) {
+        m_block = block;
+        m_block.order(ByteOrder.LITTLE_ENDIAN);
+        m_nextRowPosition = block.position();
+        m_rowPosition = -1;
+        m_partitionId = partitionId;
+    }
+
+    /**
+     * Move to the next row of the block.
+     *
+     * @return false if there are no more rows in the block
+     * @throws IOException if the row cannot be decoded
+     */
+    public boolean advance() throws IOException {
+        if (m_block == null || m_nextRowPosition >= m_block.limit()) {
+            return false;
+        }
+        m_rowPosition = m_nextRowPosition;
+        final int length = m_block.getInt(m_rowPosition);
+        m_nextRowPosition = m_rowPosition + 4 + length;
+        decodeRowAt(m_rowPosition + 4);
+        return true;
+    }
+
+    private void decodeRowAt(int position) throws IOException {
+        final ByteBuffer bb = m_block;
+        m_generation = bb.getLong(position);
+        m_partitionColIndex = bb.getInt(position + 8);
+        m_columnCount = bb.getInt(position + 12);
+        m_rowHasSchema = bb.get(position + 16) == 1;
+        if (m_columnCount < 0 || m_columnCount > DDLCompiler.MAX_COLUMNS) {
+            throw new IOException("Invalid column count in export row: " + m_columnCount);
+        }
+
+        final int nullPosition = position + 17;
+        int pos = nullPosition + (((m_columnCount + 7) & -8) >> 3);
+        if (m_rowHasSchema) {
+            pos = decodeSchema(pos);
+        } else if (m_types == null) {
+            throw new IOException("Export block with no schema found without prior block with schema.");
+        }
+        if (m_typeArray.length != m_columnCount) {
+            throw new IOException("Export row has " + m_columnCount + " columns but its schema has " + m_typeArray.length);
+        }
+
+        if (m_offsets.length < m_columnCount) {
+            m_offsets = new int[m_columnCount];
+            m_values = new Object[m_columnCount];
+        }
+        for (int i = 0; i < m_columnCount; i++) {
+            // flag for column i is bit 0x80 >> (i % 8) of byte i / 8
+            if ((bb.get(nullPosition + (i >> 3)) & (0x80 >>> (i & 7))) != 0) {
+                m_offsets[i] = -1;
+            } else {
+                m_offsets[i] = pos;
+                pos += valueLength(m_typeArray[i], pos);
+            }
+        }
+    }
+
+    private int decodeSchema(int pos) throws IOException {
+        m_tableName = readString(pos);
+        pos += 4 + m_block.getInt(pos);
+        List<String> names = new ArrayList<>(m_columnCount);
+        List<VoltType> types = new ArrayList<>(m_columnCount);
+        List<Integer> lengths = new ArrayList<>(m_columnCount);
+        for (int i = 0; i < m_columnCount; i++) {
+            names.add(readString(pos));
+            pos += 4 + m_block.getInt(pos);
+            types.add(VoltType.get(m_block.get(pos)));
+            lengths.add(m_block.getInt(pos + 1));
+            pos += 5;
+        }
+        m_names = names;
+        m_types = types;
+        m_lengths = lengths;
+        m_typeArray = types.toArray(new VoltType[m_columnCount]);
+        return pos;
+    }
+
+    private int valueLength(VoltType type, int pos) throws IOException {
+        switch (type) {
+        case TINYINT:
+            return 1;
+        case SMALLINT:
+            return 2;
+        case INTEGER:
+            return 4;
+        case BIGINT:
+        case FLOAT:
+        case TIMESTAMP:
+            return 8;
+        case STRING:
+        case VARBINARY:
+        case GEOGRAPHY:
+            return 4 + m_block.getInt(pos);
+        case DECIMAL:
+            return 2 + m_block.get(pos + 1);
+        case GEOGRAPHY_POINT:
+            return GeographyPointValue.getLengthInBytes();
+        default:
+            throw new IOException("Invalid column type: " + type);
+        }
+    }
+
+    private String readString(int pos) {
+        final int length = m_block.getInt(pos);
+        if (m_block.hasArray()) {
+            return new String(m_block.array(), m_block.arrayOffset() + pos + 4, length, Charsets.UTF_8);
+        }
+        if (m_scratch.length < length) {
+            m_scratch = new byte[Math.max(length, m_scratch.length * 2)];
+        }
+        ByteBuffer dup = m_block.duplicate();
+        dup.position(pos + 4);
+        dup.get(m_scratch, 0, length);
+        return new String(m_scratch, 0, length, Charsets.UTF_8);
+    }
+
+    private int offsetOf(int column, VoltType expected) {
+        final int offset = m_offsets[column];
+        if (offset < 0) {
+            throw new IllegalStateException("Column " + column + " is NULL");
+        }
+        if (expected != null && m_typeArray[column] != expected) {
+            throw new IllegalArgumentException("Column " + column + " is " + m_typeArray[column] + ", not " + expected);
+        }
+        return offset;
+    }
+
+    /** @return position of the current row in the block, including its length prefix */
+    public int getRowPosition() {
+        return m_rowPosition;
+    }
+
+    public long getGeneration() {
+        return m_generation;
+    }
+
+    public int getPartitionId() {
+        return m_partitionId;
+    }
+
+    public int getPartitionColumnIndex() {
+        return m_partitionColIndex;
+    }
+
+    /** @return whether the current row carried the schema (the first row of a block does) */
+    public boolean rowHasSchema() {
+        return m_rowHasSchema;
+    }
+
+    public String getTableName() {
+        return m_tableName;
+    }
+
+    public int getColumnCount() {
+        return m_columnCount;
+    }
+
+    public List<String> getColumnNames() {
+        return m_names;
+    }
+
+    public List<VoltType> getColumnTypes() {
+        return m_types;
+    }
+
+    public List<Integer> getColumnLengths() {
+        return m_lengths;
+    }
+
+    public VoltType getColumnType(int column) {
+        return m_typeArray[column];
+    }
+
+    public boolean isNull(int column) {
+        return m_offsets[column] < 0;
+    }
+
+    /**
+     * @return value of a TINYINT, SMALLINT, INTEGER or BIGINT column, or the microseconds of
+     *         a TIMESTAMP column
+     */
+    public long getLong(int column) {
+        final int offset = offsetOf(column, null);
+        switch (m_typeArray[column]) {
+        case TINYINT:
+            return m_block.get(offset);
+        case SMALLINT:
+            return m_block.getShort(offset);
+        case INTEGER:
+            return m_block.getInt(offset);
+        case BIGINT:
+        case TIMESTAMP:
+            return m_block.getLong(offset);
+        default:
+            throw new IllegalArgumentException("Column " + column + " is " + m_typeArray[column] + ", not an integer type");
+        }
+    }
+
+    public double getDouble(int column) {
+        return m_block.getDouble(offsetOf(column, VoltType.FLOAT));
+    }
+
+    public String getString(int column) {
+        return readString(offsetOf(column, VoltType.STRING));
+    }
+
+    public byte[] getVarbinary(int column) {
+        final int offset = offsetOf(column, VoltType.VARBINARY);
+        final byte[] data = new byte[m_block.getInt(offset)];
+        ByteBuffer dup = m_block.duplicate();
+        dup.position(offset + 4);
+        dup.get(data);
+        return data;
+    }
+
+    public TimestampType getTimestamp(int column) {
+        return new TimestampType(m_block.getLong(offsetOf(column, VoltType.TIMESTAMP)));
+    }
+
+    public BigDecimal getDecimal(int column) {
+        final int offset = offsetOf(column, VoltType.DECIMAL);
+        final int scale = m_block.get(offset);
+        final byte[] bytes = new byte[m_block.get(offset + 1)];
+        ByteBuffer dup = m_block.duplicate();
+        dup.position(offset + 2);
+        dup.get(bytes);
+        return new BigDecimal(new BigInteger(bytes), scale);
+    }
+
+    public GeographyPointValue getGeographyPoint(int column) {
+        return GeographyPointValue.unflattenFromBuffer(m_block, offsetOf(column, VoltType.GEOGRAPHY_POINT));
+    }
+
+    public GeographyValue getGeography(int column) {
+        return GeographyValue.unflattenFromBuffer(m_block, offsetOf(column, VoltType.GEOGRAPHY) + 4);
+    }
+
+    /**
+     * @return the value of a column as the same object {@link ExportRow#decodeRow} would produce,
+     *         null for NULL
+     */
+    public Object getObject(int column) {
+        if (isNull(column)) {
+            return null;
+        }
+        switch (m_typeArray[column]) {
+        case TINYINT:
+            return (byte) getLong(column);
+        case SMALLINT:
+            return (short) getLong(column);
+        case INTEGER:
+            return (int) getLong(column);
+        case BIGINT:
+            return getLong(column);
+        case FLOAT:
+            return getDouble(column);
+        case TIMESTAMP:
+            return getTimestamp(column);
+        case STRING:
+            return getString(column);
+        case VARBINARY:
+            return getVarbinary(column);
+        case DECIMAL:
+            return getDecimal(column);
+        case GEOGRAPHY_POINT:
+            return getGeographyPoint(column);
+        case GEOGRAPHY:
+            return getGeography(column);
+        default:
+            throw new IllegalArgumentException("Invalid column type: " + m_typeArray[column]);
+        }
+    }
+
+    /**
+     * @return value of the partition column, or the partition id if the row has no partition
+     *         column or its value is NULL
+     */
+    public Object getPartitionValue() {
+        if (m_partitionColIndex >= 0 && m_partitionColIndex < m_columnCount && !isNull(m_partitionColIndex)) {
+            return getObject(m_partitionColIndex);
+        }
+        return m_partitionId;
+    }
+
+    /**
+     * Box the values of the current row into an array that is reused for every row, for
+     * consumers that still need the {@link ExportRow#values} form.
+     */
+    public Object[] getValues() {
+        for (int i = 0; i < m_columnCount; i++) {
+            m_values[i] = getObject(i);
+        }
+        Arrays.fill(m_values, m_columnCount, m_values.length, null);
+        return m_values;
+    }
+
+    /**
+     * Decode a row of the current block as a standalone {@link ExportRow}. It does not move the
+     * view, so it can be used to report rows that were seen earlier, e.g. after a batch failure.
+     *
+     * @param rowPosition a value previously returned by {@link #getRowPosition()}
+     */
+    public ExportRow toExportRow(int rowPosition) throws IOException {
+        final int length = m_block.getInt(rowPosition);
+        final byte[] rowData = new byte[length];
+        ByteBuffer dup = m_block.duplicate();
+        dup.position(rowPosition + 4);
+        dup.get(rowData);
+        ExportRow schema = new ExportRow(m_tableName, m_names, m_types, m_lengths, null, null,
+                m_partitionColIndex, m_partitionId, m_generation);
+        return ExportRow.decodeRow(schema, m_partitionId, 0L, rowData);
+    }
+}
@@ -83,6 +83,8 @@ public abstract class ExportDecoderBase {
 
     //Used by new style connector to pickup schema information from previous record.
     ExportRow m_previousRow;
+    //Used by connectors that opt in to the block view, keeps the schema across blocks.
+    private ExportBlockView m_blockView;
     public ExportDecoderBase(AdvertisedDataSource ads) {
         m_source = ads;
         m_startTS = System.currentTimeMillis();
@@ -223,6 +225,37 @@ public abstract class ExportDecoderBase {
         throw new UnsupportedOperationException("processRow must be implemented.");
     }
 
+    /**
+     * Process the current row of an export block. Only called for decoders that return true
+     * from {@link #usesBlockView()}. The view, and anything read from it, is only valid until
+     * this method returns.
+     *
+     * @param row view positioned on the row to process
+     * @return whether or not the row processing was successful
+     * @throws org.voltdb.exportclient.ExportDecoderBase.RestartBlockException
+     */
+    public boolean processRow(ExportBlockView row) throws RestartBlockException {
+        throw new UnsupportedOperationException("processRow must be implemented.");
+    }
+
+    /**
+     * Decoders that return true are handed an {@link ExportBlockView} positioned on each row
+     * of a block, instead of a freshly decoded {@link ExportRow} per row.
+     */
+    public boolean usesBlockView() {
+        return false;
+    }
+
+    /**
+     * @return the view used to walk the blocks of this decoder's data source
+     */
+    public ExportBlockView getBlockView() {
+        if (m_blockView == null) {
+            m_blockView = new ExportBlockView();
+        }
+        return m_blockView;
+    }
+
     abstract public void sourceNoLongerAdvertised(AdvertisedDataSource source);
 
     /**
@@ -243,6 +276,22 @@ public abstract class ExportDecoderBase {
 
     }
 
+    /**
+     * Finalize operation upon block completion for decoders that use the block view
+     * @param row view positioned on the last row for the block
+     * @throws org.voltdb.exportclient.ExportDecoderBase.RestartBlockException
+     */
+    public void onBlockCompletion(ExportBlockView row) throws RestartBlockException {
+    }
+
+    /**
+     * Notify that a new block of data is going to be processed now, for decoders that use the block view
+     * @param row view positioned on the first row of the block.
+     * @throws org.voltdb.exportclient.ExportDecoderBase.RestartBlockException
+     */
+    public void onBlockStart(ExportBlockView row) throws RestartBlockException {
+    }
+
     /**
      * Finalize operation upon block completion - provides a means for a
      * specific decoder to flush data to disk - virtual method
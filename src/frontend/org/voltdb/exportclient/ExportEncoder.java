@@ -21,6 +21,8 @@ import java.io.IOException;
 import java.math.BigDecimal;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.voltdb.VoltTable;
 import org.voltdb.VoltType;
@@ -39,6 +41,34 @@ public class ExportEncoder {
 
     static byte[] encodeRow(VoltTable table, String tableName, int partitionColumnIndex, long generation)
     throws IOException {
+        return encodeRow(table, tableName, partitionColumnIndex, generation, true);
+    }
+
+    /**
+     * Encode all the rows of a table as one export block, each row prefixed
+     * by its length and only the first one carrying the schema.
+     */
+    static ByteBuffer encodeBlock(VoltTable table, String tableName, int partitionColumnIndex, long generation)
+    throws IOException {
+        List<byte[]> rows = new ArrayList<>();
+        int size = 0;
+        table.resetRowPosition();
+        while (table.advanceRow()) {
+            byte[] row = encodeRow(table, tableName, partitionColumnIndex, generation, rows.isEmpty());
+            rows.add(row);
+            size += 4 + row.length;
+        }
+        ByteBuffer block = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        for (byte[] row : rows) {
+            block.putInt(row.length);
+            block.put(row);
+        }
+        block.flip();
+        return block;
+    }
+
+    private static byte[] encodeRow(VoltTable table, String tableName, int partitionColumnIndex, long generation,
+            boolean hasSchema) throws IOException {
 
         FastSerializer fs = new FastSerializer(false, true);
         try {
@@ -47,7 +77,7 @@ public class ExportEncoder {
             int colCount = table.getColumnCount();
             // column count
             fs.writeInt(colCount);
-            fs.writeByte(1);                  // has schema
+            fs.writeByte(hasSchema ? 1 : 0);  // has schema
             // pack the null flags
             int nullArrayLen = ((colCount + 7) & -8) >> 3;
             boolean[] nullArray = new boolean[colCount];
@@ -63,25 +93,27 @@ public class ExportEncoder {
             }
             fs.write(nullBits);
 
-            fs.writeString(tableName);
-            VoltType type;
-            for (int i = 0; i < table.getColumnCount(); i++) {
-                fs.writeString(table.getColumnName(i));         // name
+            if (hasSchema) {
+                fs.writeString(tableName);
+                VoltType type;
+                for (int i = 0; i < table.getColumnCount(); i++) {
+                    fs.writeString(table.getColumnName(i));         // name
 
-                type = table.getColumnType(i);
-                fs.writeByte(type.getValue());                  // type
+                    type = table.getColumnType(i);
+                    fs.writeByte(type.getValue());                  // type
 
-                int columnLength = 0;
-                if (type.isVariableLength()) {
-                    if (type.equals(VoltType.STRING)) {
-                        columnLength = VoltType.MAX_VALUE_LENGTH_IN_CHARACTERS;
+                    int columnLength = 0;
+                    if (type.isVariableLength()) {
+                        if (type.equals(VoltType.STRING)) {
+                            columnLength = VoltType.MAX_VALUE_LENGTH_IN_CHARACTERS;
+                        } else {
+                            columnLength = VoltType.MAX_VALUE_LENGTH;
+                        }
                     } else {
-                        columnLength = VoltType.MAX_VALUE_LENGTH;
+                        columnLength = type.getLengthInBytesForFixedTypes();
                     }
-                } else {
-                    columnLength = type.getLengthInBytesForFixedTypes();
+                    fs.writeInt(columnLength);                      // length
                 }
-                fs.writeInt(columnLength);                      // length
             }
 
             // write the non-null columns
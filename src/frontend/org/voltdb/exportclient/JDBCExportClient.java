@@ -17,7 +17,7 @@
 
 package org.voltdb.exportclient;
 
-import java.math.BigDecimal;
+import java.io.IOException;
 import java.net.URI;
 import java.sql.BatchUpdateException;
 import java.sql.Connection;
@@ -26,7 +26,7 @@ import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Types;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -157,13 +157,9 @@ public class JDBCExportClient extends ExportClientBase {
 
         private final RefCountedDS m_ds;
 
-        private final List<BatchRow> m_dataRows =  new ArrayList<>();
-        private class BatchRow {
-            private final ExportRow m_row;
-            public BatchRow(ExportRow r) {
-                m_row = r;
-            }
-        }
+        // Block positions of the rows in the current batch, to report them if the batch fails
+        private int[] m_batchRowPositions = new int[256];
+        private int m_batchRowCount = 0;
 
         @Override
         public ListeningExecutorService getExecutor() {
@@ -487,8 +483,13 @@ public class JDBCExportClient extends ExportClientBase {
         }
 
         @Override
-        public void onBlockStart(ExportRow row) throws RestartBlockException {
-            m_dataRows.clear();
+        public boolean usesBlockView() {
+            return true;
+        }
+
+        @Override
+        public void onBlockStart(ExportBlockView row) throws RestartBlockException {
+            m_batchRowCount = 0;
             if (conn == null) {
                 if (pstmt != null) {
                     try {
@@ -510,31 +511,37 @@ public class JDBCExportClient extends ExportClientBase {
         }
 
         @Override
-        public void onBlockCompletion(ExportRow row) throws RestartBlockException {
+        public void onBlockCompletion(ExportBlockView row) throws RestartBlockException {
             try {
                 if (supportsBatchUpdates) {
                     pstmt.executeBatch();
                 }
                 conn.commit();
             } catch(BatchUpdateException e){
-                logBatchErrors(e);
+                logBatchErrors(e, row);
                 throw new RestartBlockException(true);
             } catch (SQLException e) {
                 rateLimitedLogError(m_logger, "commit() failed for row %s", Throwables.getStackTraceAsString(e));
                 throw new RestartBlockException(true);
             } finally{
-                m_dataRows.clear();
+                m_batchRowCount = 0;
                 closeConnection();
             }
         }
 
-        private void logBatchErrors(BatchUpdateException e){
+        private void logBatchErrors(BatchUpdateException e, ExportBlockView view){
 
            int [] results = e.getUpdateCounts();
            StringBuilder builder = new StringBuilder();
-           for(int i = 0; i < results.length; i++){
+           for(int i = 0; i < results.length && i < m_batchRowCount; i++){
                 if(results[i] == Statement.EXECUTE_FAILED){
-                    ExportRow rowi = m_dataRows.get(i).m_row;
+                    ExportRow rowi;
+                    try {
+                        rowi = view.toExportRow(m_batchRowPositions[i]);
+                    } catch (IOException ioe) {
+                        builder.append("<undecodable row: ").append(ioe.getMessage()).append(">\n");
+                        continue;
+                    }
                     Object row[] = rowi.values;
                     for (int j = firstField; j < rowi.types.size(); j++) {
                         builder.append((j == firstField) ? "":", ");
@@ -575,10 +582,11 @@ public class JDBCExportClient extends ExportClientBase {
         }
 
         @Override
-        public boolean processRow(ExportRow rowinst) throws RestartBlockException {
+        public boolean processRow(ExportBlockView rowinst) throws RestartBlockException {
             if (pstmtString == null) {
                 try {
-                    initialize(rowinst.generation, rowinst.tableName, rowinst.names, rowinst.types, rowinst.lengths);
+                    initialize(rowinst.getGeneration(), rowinst.getTableName(), rowinst.getColumnNames(),
+                            rowinst.getColumnTypes(), rowinst.getColumnLengths());
                 } catch (Exception e) {
                     m_logger.warn("JDBC export unable to initialize jdbc target database", e);
                     closeConnection();
@@ -601,56 +609,57 @@ public class JDBCExportClient extends ExportClientBase {
                 }
             }
 
-            Object[] row = rowinst.values;
-            List<VoltType> columnTypes = rowinst.types;
+            final int columnCount = rowinst.getColumnCount();
             boolean restartBlock = false;
             try {
-                for (int i = firstField; i < columnTypes.size(); i++) {
+                // Bind straight from the export block, only DECIMAL, TIMESTAMP and
+                // the geo types still need an intermediate object.
+                for (int i = firstField; i < columnCount; i++) {
                     final int pstmtIndex = i + 1 - firstField;
-                    if (row[i] == null) {
+                    final VoltType columnType = rowinst.getColumnType(i);
+                    if (rowinst.isNull(i)) {
                         pstmt.setNull(pstmtIndex, Types.NULL);
-                    } else if (columnTypes.get(i) == VoltType.DECIMAL) {
-                        pstmt.setBigDecimal(pstmtIndex, (BigDecimal)row[i]);
-                    } else if (columnTypes.get(i) == VoltType.TINYINT) {
-                        pstmt.setByte(pstmtIndex, (Byte)row[i]);
-                    } else if (columnTypes.get(i) == VoltType.SMALLINT) {
-                        pstmt.setShort(pstmtIndex, (Short)row[i]);
-                    } else if (columnTypes.get(i) == VoltType.INTEGER) {
-                        pstmt.setInt(pstmtIndex, (Integer)row[i]);
-                    } else if (columnTypes.get(i) == VoltType.BIGINT) {
-                        pstmt.setLong(pstmtIndex, (Long)row[i]);
-                    } else if (columnTypes.get(i) == VoltType.FLOAT) {
-                        pstmt.setDouble(pstmtIndex, (Double)row[i]);
-                    } else if (columnTypes.get(i) == VoltType.STRING) {
-                        pstmt.setString(pstmtIndex, (String)row[i]);
-                    } else if (columnTypes.get(i) == VoltType.TIMESTAMP) {
-                        TimestampType timestamp = (TimestampType)row[i];
-                        pstmt.setTimestamp(pstmtIndex, timestamp.asJavaTimestamp());
-                    } else if (columnTypes.get(i) == VoltType.GEOGRAPHY_POINT) {
-                        GeographyPointValue gpv = (GeographyPointValue)row[i];
-                        pstmt.setString(pstmtIndex, gpv.toWKT());
-                    } else if (columnTypes.get(i) == VoltType.GEOGRAPHY) {
-                        GeographyValue gv = (GeographyValue)row[i];
-                        pstmt.setString(pstmtIndex, gv.toWKT());
-                    } else if (columnTypes.get(i) == VoltType.VARBINARY) {
-                        byte[] bytes = (byte[])row[i];
-                        pstmt.setBytes(pstmtIndex, bytes);
+                    } else if (columnType == VoltType.DECIMAL) {
+                        pstmt.setBigDecimal(pstmtIndex, rowinst.getDecimal(i));
+                    } else if (columnType == VoltType.TINYINT) {
+                        pstmt.setByte(pstmtIndex, (byte) rowinst.getLong(i));
+                    } else if (columnType == VoltType.SMALLINT) {
+                        pstmt.setShort(pstmtIndex, (short) rowinst.getLong(i));
+                    } else if (columnType == VoltType.INTEGER) {
+                        pstmt.setInt(pstmtIndex, (int) rowinst.getLong(i));
+                    } else if (columnType == VoltType.BIGINT) {
+                        pstmt.setLong(pstmtIndex, rowinst.getLong(i));
+                    } else if (columnType == VoltType.FLOAT) {
+                        pstmt.setDouble(pstmtIndex, rowinst.getDouble(i));
+                    } else if (columnType == VoltType.STRING) {
+                        pstmt.setString(pstmtIndex, rowinst.getString(i));
+                    } else if (columnType == VoltType.TIMESTAMP) {
+                        pstmt.setTimestamp(pstmtIndex, rowinst.getTimestamp(i).asJavaTimestamp());
+                    } else if (columnType == VoltType.GEOGRAPHY_POINT) {
+                        pstmt.setString(pstmtIndex, rowinst.getGeographyPoint(i).toWKT());
+                    } else if (columnType == VoltType.GEOGRAPHY) {
+                        pstmt.setString(pstmtIndex, rowinst.getGeography(i).toWKT());
+                    } else if (columnType == VoltType.VARBINARY) {
+                        pstmt.setBytes(pstmtIndex, rowinst.getVarbinary(i));
                     }
                 }
 
                 try {
                     if (supportsBatchUpdates) {
                         pstmt.addBatch();
-                        m_dataRows.add(new BatchRow(rowinst));
+                        if (m_batchRowCount == m_batchRowPositions.length) {
+                            m_batchRowPositions = Arrays.copyOf(m_batchRowPositions, m_batchRowCount * 2);
+                        }
+                        m_batchRowPositions[m_batchRowCount++] = rowinst.getRowPosition();
                     } else {
                         pstmt.executeUpdate();
                     }
                 } catch (SQLException e) {
-                    rateLimitedLogError(m_logger, "executeUpdate() failed in processRow() for table %s %s", (rowinst == null ? "Unknown" : rowinst.tableName), Throwables.getStackTraceAsString(e));
+                    rateLimitedLogError(m_logger, "executeUpdate() failed in processRow() for table %s %s", (rowinst == null ? "Unknown" : rowinst.getTableName()), Throwables.getStackTraceAsString(e));
                     restartBlock = true;
                 }
             } catch (Exception e) {
-                rateLimitedLogError(m_logger, "processRow() failed in table %s, %s", (rowinst == null ? "Unknown" : rowinst.tableName), Throwables.getStackTraceAsString(e));
+                rateLimitedLogError(m_logger, "processRow() failed in table %s, %s", (rowinst == null ? "Unknown" : rowinst.getTableName()), Throwables.getStackTraceAsString(e));
                 restartBlock = true;
             }
 
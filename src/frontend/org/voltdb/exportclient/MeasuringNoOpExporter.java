@@ -35,6 +35,8 @@ public class MeasuringNoOpExporter extends ExportClientBase {
     long m_firstBlockTimeMS = -1;
     long m_pcurCount = 0;
     long m_curCount = 0;
+    //Walk blocks with ExportBlockView instead of decoding an ExportRow per row.
+    boolean m_useBlockView = false;
 
     @Override
     public void configure(Properties config) throws Exception {
@@ -42,6 +44,7 @@ public class MeasuringNoOpExporter extends ExportClientBase {
         m_primeTill = Integer.parseInt(config.getProperty("primecount", "40000"));
         m_perRowProcessingTimeNano = Integer.parseInt(config.getProperty("rowprocessingtimenanos", "0"));
         m_perRowProcessingTimeMs = Integer.parseInt(config.getProperty("rowprocessingtimems", "0"));
+        m_useBlockView = Boolean.parseBoolean(config.getProperty("blockview", "false"));
     }
 
     class NoOpExportDecoder extends ExportDecoderBase {
@@ -57,9 +60,27 @@ public class MeasuringNoOpExporter extends ExportClientBase {
         public void onBlockStart(ExportRow row) {
         }
 
-        boolean logOnce = true;
+        @Override
+        public boolean usesBlockView() {
+            return m_useBlockView;
+        }
+
+        @Override
+        public void onBlockStart(ExportBlockView row) {
+        }
+
         @Override
         public boolean processRow(ExportRow row) throws ExportDecoderBase.RestartBlockException {
+            return countRow();
+        }
+
+        @Override
+        public boolean processRow(ExportBlockView row) throws ExportDecoderBase.RestartBlockException {
+            return countRow();
+        }
+
+        boolean logOnce = true;
+        private boolean countRow() {
             if (m_pcurCount < m_primeTill) {
                 m_pcurCount++;
                 //Priming
@@ -95,6 +116,10 @@ public class MeasuringNoOpExporter extends ExportClientBase {
         @Override
         public void onBlockCompletion(ExportRow row) {
         }
+
+        @Override
+        public void onBlockCompletion(ExportBlockView row) {
+        }
     }
 
     @Override
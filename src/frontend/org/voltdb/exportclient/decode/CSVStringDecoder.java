@@ -23,6 +23,7 @@ import java.io.StringWriter;
 import au.com.bytecode.opencsv_voltpatches.CSVWriter;
 import java.util.List;
 import org.voltdb.VoltType;
+import org.voltdb.exportclient.ExportBlockView;
 
 public class CSVStringDecoder extends RowDecoder<String, RuntimeException> {
 
@@ -48,6 +49,14 @@ public class CSVStringDecoder extends RowDecoder<String, RuntimeException> {
         return csvLine;
     }
 
+    @Override
+    public String decode(ExportBlockView row, String ignoreIt) throws RuntimeException {
+        m_writer.writeNext(m_stringArrayDecoder.decode(row, null));
+        String csvLine = m_writerDestination.toString();
+        m_writerDestination.setLength(0);
+        return csvLine;
+    }
+
     public static Builder builder() {
         return new Builder();
     }
@@ -28,6 +28,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.voltdb.VoltType;
+import org.voltdb.exportclient.ExportBlockView;
 
 import com.google_voltpatches.common.base.Function;
 import com.google_voltpatches.common.collect.ImmutableMap;
@@ -137,6 +138,22 @@ public abstract class RowDecoder<T, E extends Exception> {
      */
     public abstract T decode(long generation, String tableName, List<VoltType> types, List<String> names, T to, Object[] fields) throws E;
 
+    /**
+     * It converts the row an {@link ExportBlockView} is positioned on into a target type.
+     * By default the row values are boxed into the view's reusable array and handed to
+     * {@link #decode(long, String, List, List, Object, Object[])}; decoders may override
+     * it to read the values with the view's typed getters instead.
+     *
+     * @param row view positioned on the exported row
+     * @param to may be used as an accumulator (byte buffers, lists, maps)
+     * @return the conversion target type
+     * @throws E the exception that this conversion may incur
+     */
+    public T decode(ExportBlockView row, T to) throws E {
+        return decode(row.getGeneration(), row.getTableName(), row.getColumnTypes(), row.getColumnNames(),
+                to, row.getValues());
+    }
+
     /**
      * Responsible to build and instantiate row decoders.
      */
@@ -18,6 +18,7 @@
 package org.voltdb.exportclient.decode;
 
 import java.text.SimpleDateFormat;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,6 +26,7 @@ import java.util.TimeZone;
 
 import org.voltdb.VoltType;
 import org.voltdb.common.Constants;
+import org.voltdb.exportclient.ExportBlockView;
 import org.voltdb.exportclient.ExportDecoderBase.BinaryEncoding;
 import org.voltdb.exportclient.decode.DecodeType.SimpleVisitor;
 import org.voltdb.types.GeographyPointValue;
@@ -72,10 +74,56 @@ public class StringArrayDecoder extends RowDecoder<String[], RuntimeException> {
                 fields != null && fields.length > m_firstFieldOffset,
                 "null or inapropriately sized export row array"
         );
-        /*
-         * Builds a list of string formatters that reflects the row
-         * column types.
-         */
+        StringFieldDecoder [] fieldDecoders = getFieldDecoders(generation, types, names);
+        if (to == null || to.length < fieldDecoders.length) {
+            to = new String[fieldDecoders.length];
+        }
+        for (
+                int i = m_firstFieldOffset, j = 0;
+                i < fields.length && j < fieldDecoders.length;
+                ++i, ++j
+        ) {
+            fieldDecoders[j].decode(to, fields[i]);
+        }
+
+        return to;
+    }
+
+    /**
+     * Converts the row the view is positioned on into an array of the string
+     * representations of its values, reading them straight from the export block
+     */
+    @Override
+    public String[] decode(ExportBlockView row, String[] to) throws RuntimeException {
+        final int columnCount = row.getColumnCount();
+        Preconditions.checkArgument(
+                columnCount > m_firstFieldOffset,
+                "inapropriately sized export row"
+        );
+        StringFieldDecoder [] fieldDecoders = getFieldDecoders(row.getGeneration(), row.getColumnTypes(), row.getColumnNames());
+        if (to == null || to.length < fieldDecoders.length) {
+            to = new String[fieldDecoders.length];
+        }
+        for (
+                int i = m_firstFieldOffset, j = 0;
+                i < columnCount && j < fieldDecoders.length;
+                ++i, ++j
+        ) {
+            if (row.isNull(i)) {
+                to[j] = m_nullRepresentation;
+            } else {
+                fieldDecoders[j].decode(to, row, i);
+            }
+        }
+
+        return to;
+    }
+
+    /*
+     * Builds a list of string formatters that reflects the row
+     * column types.
+     */
+    private StringFieldDecoder [] getFieldDecoders(long generation, List<VoltType> types, List<String> names) {
         StringFieldDecoder [] fieldDecoders;
         if (!m_fieldDecoders.containsKey(generation)) {
             int fieldCount = 0;
@@ -90,18 +138,7 @@ public class StringArrayDecoder extends RowDecoder<String[], RuntimeException> {
         } else {
             fieldDecoders = m_fieldDecoders.get(generation);
         }
-        if (to == null || to.length < fieldDecoders.length) {
-            to = new String[fieldDecoders.length];
-        }
-        for (
-                int i = m_firstFieldOffset, j = 0;
-                i < fields.length && j < fieldDecoders.length;
-                ++i, ++j
-        ) {
-            fieldDecoders[j].decode(to, fields[i]);
-        }
-
-        return to;
+        return fieldDecoders;
     }
 
     static abstract class StringFieldDecoder implements FieldDecoder<String[], RuntimeException> {
@@ -110,6 +147,13 @@ public class StringArrayDecoder extends RowDecoder<String[], RuntimeException> {
         StringFieldDecoder(int fieldIndex) {
             m_fieldIndex = fieldIndex;
         }
+
+        /**
+         * Formats a non null column of the row the view is positioned on
+         */
+        void decode(String[] to, ExportBlockView row, int column) throws RuntimeException {
+            decode(to, row.getObject(column));
+        }
     }
 
     final SimpleVisitor<StringFieldDecoder,Integer> decodingVisitor = new SimpleVisitor<StringFieldDecoder,Integer>() {
@@ -121,6 +165,11 @@ public class StringArrayDecoder extends RowDecoder<String[], RuntimeException> {
                 public final void decode(String[] to, Object field) throws RuntimeException {
                     to[m_fieldIndex] = field != null ? field.toString() : m_nullRepresentation;
                 }
+
+                @Override
+                final void decode(String[] to, ExportBlockView row, int column) throws RuntimeException {
+                    to[m_fieldIndex] = Long.toString(row.getLong(column));
+                }
             };
         }
 
@@ -131,6 +180,11 @@ public class StringArrayDecoder extends RowDecoder<String[], RuntimeException> {
                 public final void decode(String[] to, Object field) throws RuntimeException {
                     to[m_fieldIndex] = field != null ? field.toString() : m_nullRepresentation;
                 }
+
+                @Override
+                final void decode(String[] to, ExportBlockView row, int column) throws RuntimeException {
+                    to[m_fieldIndex] = Long.toString(row.getLong(column));
+                }
             };
         }
 
@@ -141,6 +195,11 @@ public class StringArrayDecoder extends RowDecoder<String[], RuntimeException> {
                 public final void decode(String[] to, Object field) throws RuntimeException {
                     to[m_fieldIndex] = field != null ? field.toString() : m_nullRepresentation;
                 }
+
+                @Override
+                final void decode(String[] to, ExportBlockView row, int column) throws RuntimeException {
+                    to[m_fieldIndex] = Long.toString(row.getLong(column));
+                }
             };
         }
 
@@ -151,6 +210,11 @@ public class StringArrayDecoder extends RowDecoder<String[], RuntimeException> {
                 public final void decode(String[] to, Object field) throws RuntimeException {
                     to[m_fieldIndex] = field != null ? field.toString() : m_nullRepresentation;
                 }
+
+                @Override
+                final void decode(String[] to, ExportBlockView row, int column) throws RuntimeException {
+                    to[m_fieldIndex] = Long.toString(row.getLong(column));
+                }
             };
         }
 
@@ -161,6 +225,11 @@ public class StringArrayDecoder extends RowDecoder<String[], RuntimeException> {
                 public final void decode(String[] to, Object field) throws RuntimeException {
                     to[m_fieldIndex] = field != null ? field.toString() : m_nullRepresentation;
                 }
+
+                @Override
+                final void decode(String[] to, ExportBlockView row, int column) throws RuntimeException {
+                    to[m_fieldIndex] = Double.toString(row.getDouble(column));
+                }
             };
         }
 
@@ -177,6 +246,11 @@ public class StringArrayDecoder extends RowDecoder<String[], RuntimeException> {
                     TimestampType ts = (TimestampType)field;
                     to[m_fieldIndex] = m_df.format(ts.asApproximateJavaDate());
                 }
+
+                @Override
+                final void decode(String[] to, ExportBlockView row, int column) throws RuntimeException {
+                    to[m_fieldIndex] = m_df.format(new Date(row.getLong(column) / 1000));
+                }
             };
         }
 
@@ -187,6 +261,11 @@ public class StringArrayDecoder extends RowDecoder<String[], RuntimeException> {
                 public final void decode(String[] to, Object field) throws RuntimeException {
                     to[m_fieldIndex] = field != null ? (String)field : m_nullRepresentation;
                 }
+
+                @Override
+                final void decode(String[] to, ExportBlockView row, int column) throws RuntimeException {
+                    to[m_fieldIndex] = row.getString(column);
+                }
             };
         }
 
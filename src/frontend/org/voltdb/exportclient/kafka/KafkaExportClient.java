@@ -41,11 +41,11 @@ import org.voltdb.VoltDB;
 import org.voltdb.common.Constants;
 import org.voltdb.export.AdvertisedDataSource;
 import org.voltdb.export.ExportDataProcessor;
+import org.voltdb.exportclient.ExportBlockView;
 import org.voltdb.exportclient.ExportClientBase;
 import org.voltdb.exportclient.ExportClientLogger;
 import org.voltdb.exportclient.ExportDecoderBase;
 import org.voltdb.exportclient.ExportDecoderBase.BinaryEncoding;
-import org.voltdb.exportclient.ExportRow;
 import org.voltdb.exportclient.decode.CSVStringDecoder;
 
 import com.google_voltpatches.common.base.Splitter;
@@ -334,7 +334,12 @@ public class KafkaExportClient extends ExportClientBase {
         }
 
         @Override
-        public void onBlockCompletion(ExportRow row) throws RestartBlockException {
+        public boolean usesBlockView() {
+            return true;
+        }
+
+        @Override
+        public void onBlockCompletion(ExportBlockView row) throws RestartBlockException {
             try {
                 if (m_pollFutures || m_failure.get()) {
                     ImmutableList<Future<RecordMetadata>> pollFutures = ImmutableList.copyOf(m_futures);
@@ -357,19 +362,19 @@ public class KafkaExportClient extends ExportClientBase {
         }
 
         @Override
-        public void onBlockStart(ExportRow row) throws RestartBlockException {
+        public void onBlockStart(ExportBlockView row) throws RestartBlockException {
             if (!m_primed) checkOnFirstRow();
-            if (m_topic == null) populateTopic(row.tableName);
+            if (m_topic == null) populateTopic(row.getTableName());
         }
 
         @Override
-        public boolean processRow(ExportRow rd) throws RestartBlockException {
+        public boolean processRow(ExportBlockView rd) throws RestartBlockException {
             if (!m_primed) checkOnFirstRow();
 
-            String decoded = m_decoder.decode(rd.generation, rd.tableName, rd.types, rd.names, null, rd.values);
+            String decoded = m_decoder.decode(rd, null);
             //Use partition value by default if its null use partition id.
             //partition value will be null only if partition column is overridden table.column and is nullable
-            String pval = (rd.partitionValue == null) ? String.valueOf(rd.partitionId) : rd.partitionValue.toString();
+            String pval = rd.getPartitionValue().toString();
             ProducerRecord<String, String> krec = new ProducerRecord<String, String>(m_topic, pval, decoded);
             try {
                 m_futures.add(m_producer.send(krec, new Callback() {
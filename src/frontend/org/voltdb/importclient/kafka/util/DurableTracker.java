@@ -135,6 +135,16 @@ final public class DurableTracker implements CommitTracker {
         return safeOffset;
     }
 
+    //Commit all the offsets of an invocation batch while holding the tracker lock once
+    @Override
+    public synchronized long commit(long[] offsets, int count) {
+        long safe = safeOffset;
+        for (int i = 0; i < count; i++) {
+            safe = commit(offsets[i]);
+        }
+        return safe;
+    }
+
     @Override
     public long getSafe() {
         //an edge case that the very first offset is not committed but is assumed to be safe
@@ -39,6 +39,15 @@ public class SimpleTracker implements CommitTracker {
         });
     }
 
+    @Override
+    public long commit(long[] offsets, int count) {
+        long max = -1;
+        for (int i = 0; i < count; i++) {
+            max = Math.max(max, offsets[i]);
+        }
+        return commit(max);
+    }
+
     @Override
     public void resetTo(long offset) {
         m_commitPoint.set(offset);
@@ -47,6 +47,7 @@ import org.voltcore.logging.Level;
 import org.voltcore.logging.VoltLogger;
 import org.voltcore.utils.EstTime;
 import org.voltdb.client.ProcedureCallback;
+import org.voltdb.importclient.kafka.util.BatchInvocationCallback;
 import org.voltdb.importclient.kafka.util.DurableTracker;
 import org.voltdb.importclient.kafka.util.KafkaConstants;
 import org.voltdb.importclient.kafka.util.KafkaCommitPolicy;
@@ -191,12 +192,21 @@ public abstract class KafkaConsumerRunner implements Runnable {
 
     public abstract boolean invoke(String rawMessage, long offset, String topic, Object[] params, ProcedureCallback procedureCallback) throws Exception;
 
+    //The maximum number of messages handed to invokeBatch at once, 1 if the runner invokes every message on its own
+    protected int getInvocationBatchSize() {
+        return 1;
+    }
+
+    //Invoke the topic procedure for a batch of messages at the given offsets, the callback is invoked once for the whole batch
+    public abstract boolean invokeBatch(String topic, List<Object[]> batch, long[] offsets, ProcedureCallback procedureCallback) throws Exception;
+
     @Override
     public void run() {
         LOGGER.info("Starting Kafka consumer for group:" + m_config.getGroupId() + " topics:" + m_config.getTopics());
         List<TopicPartition> seekList = new ArrayList<>();
         Map<TopicPartition, AtomicLong> submitCounts = new HashMap<>();
         CSVParser csvParser = new CSVParser();
+        final int batchSize = getInvocationBatchSize();
         try {
             subscribe();
             int sleepCounter = 1;
@@ -256,6 +266,7 @@ public abstract class KafkaConsumerRunner implements Runnable {
                         String topicIdentifer = "group " + m_config.getGroupId() + "-" + partition;
                         List<ConsumerRecord<ByteBuffer, ByteBuffer>> messages = records.records(partition);
                         int count = messages.size();
+                        InvocationBatch batch = null;
                         for (int i = 0; i < count; i++) {
                             if (!m_lifecycle.shouldRun()) {
                                 break;
@@ -289,6 +300,17 @@ public abstract class KafkaConsumerRunner implements Runnable {
                                 }
                                 commitTracker.submit(nextOffSet);
                                 submitCount.incrementAndGet();
+                                if (batchSize > 1) {
+                                    partitionSubmittedCount++;
+                                    if (batch == null) {
+                                        batch = new InvocationBatch(batchSize);
+                                    }
+                                    if (batch.add(params, offset, nextOffSet)) {
+                                        invokeBatch(partition, batch, commitTracker, topicIdentifer);
+                                        batch = null;
+                                    }
+                                    continue;
+                                }
                                 ProcedureCallback cb = new ProcedureInvocationCallback(offset, nextOffSet, m_workTrackers.get(partition),
                                         commitTracker, m_done, m_pauseOffsets.get(partition),
                                         topicIdentifer);
@@ -312,6 +334,10 @@ public abstract class KafkaConsumerRunner implements Runnable {
                                 break;
                             }
                         }
+                        //the offsets of a partial batch were submitted to the tracker, hand it to the server as well
+                        if (batch != null) {
+                            invokeBatch(partition, batch, commitTracker, topicIdentifer);
+                        }
                         if (partitionSubmittedCount > 0) {
                             topicPartitions.add(partition);
                         }
@@ -351,6 +377,43 @@ public abstract class KafkaConsumerRunner implements Runnable {
         LOGGER.info(builder.toString());
     }
 
+    private void invokeBatch(TopicPartition partition, InvocationBatch batch, CommitTracker commitTracker,
+            String topicIdentifer) throws Exception {
+        PendingWorkTracker workTracker = m_workTrackers.get(partition);
+        ProcedureCallback cb = new BatchInvocationCallback(batch.m_offsets[0], batch.m_nextOffsets, batch.m_rows.size(),
+                workTracker, commitTracker, m_done, m_pauseOffsets.get(partition), topicIdentifer);
+        if (invokeBatch(partition.topic(), batch.m_rows, batch.m_offsets, cb)) {
+            workTracker.produceWork();
+        } else {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Failed to process a batch of " + batch.m_rows.size() + " messages for " + topicIdentifer);
+            }
+            commitTracker.commit(batch.m_nextOffsets, batch.m_rows.size());
+        }
+    }
+
+    //Parsed messages of a topic partition waiting to be invoked as one batch
+    private static final class InvocationBatch {
+        final List<Object[]> m_rows;
+        final long[] m_offsets;
+        final long[] m_nextOffsets;
+
+        InvocationBatch(int capacity) {
+            m_rows = new ArrayList<>(capacity);
+            m_offsets = new long[capacity];
+            m_nextOffsets = new long[capacity];
+        }
+
+        //returns true when the batch is full
+        boolean add(Object[] params, long offset, long nextOffset) {
+            int idx = m_rows.size();
+            m_rows.add(params);
+            m_offsets[idx] = offset;
+            m_nextOffsets[idx] = nextOffset;
+            return idx + 1 == m_offsets.length;
+        }
+    }
+
     //Move offsets to correct positions for next poll
     private void seek(List<TopicPartition> seekList) {
         for (TopicPartition tp : seekList) {
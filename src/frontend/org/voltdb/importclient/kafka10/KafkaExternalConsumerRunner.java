@@ -22,7 +22,10 @@ import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
@@ -31,6 +34,7 @@ import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.errors.WakeupException;
 import org.voltcore.logging.VoltLogger;
+import org.voltdb.client.ClientResponse;
 import org.voltdb.client.ProcedureCallback;
 import org.voltdb.importer.ImporterLifecycle;
 import org.voltdb.importer.formatter.FormatException;
@@ -70,6 +74,29 @@ public class KafkaExternalConsumerRunner extends KafkaConsumerRunner {
         m_loader.insertRow(new RowWithMetaData(rawMessage, offset, procedureCallback), params);
         return true;
     }
+
+    @Override
+    public boolean invokeBatch(String topic, List<Object[]> batch, long[] offsets, ProcedureCallback procedureCallback) throws Exception {
+        //The loader batches rows on its own. Call back once every row completed, with the first failure if any.
+        final AtomicInteger remaining = new AtomicInteger(batch.size());
+        final AtomicReference<ClientResponse> failure = new AtomicReference<>();
+        ProcedureCallback rowCallback = new ProcedureCallback() {
+            @Override
+            public void clientCallback(ClientResponse response) throws Exception {
+                if (response.getStatus() != ClientResponse.SUCCESS) {
+                    failure.compareAndSet(null, response);
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    procedureCallback.clientCallback(failure.get() == null ? response : failure.get());
+                }
+            }
+        };
+        for (int i = 0; i < batch.size(); i++) {
+            Object[] params = batch.get(i);
+            m_loader.insertRow(new RowWithMetaData(Arrays.toString(params), offsets[i], rowCallback), params);
+        }
+        return true;
+    }
     protected void subscribe() {
         LOGGER.info("Kafka consumer subscribes topics:" + m_config.getTopics());
         m_consumer.subscribe(Arrays.asList(m_config.getTopics().split(",")), new ConsumerRebalanceListener() {
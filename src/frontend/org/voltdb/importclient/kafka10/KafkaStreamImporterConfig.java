@@ -112,6 +112,14 @@ public class KafkaStreamImporterConfig implements ImporterConfig {
     //The total number of consumers for the importer, which are distributed among the hosts.
     private int m_consumerCount;
 
+    /**
+     * <code>m_invocationBatchSize</code> The maximum number of messages from one topic partition handed to the
+     * server in a single procedure batch. Messages for the default insert procedure of a table are loaded with one
+     * transaction per partition per batch.
+     * Configured via property <code>procedure.batch.size</code> Default:1, every message is invoked on its own
+     */
+    private int m_invocationBatchSize;
+
     /**
      * Importer configuration constructor.
      * @param properties Properties read from the deployment XML.
@@ -173,6 +181,8 @@ public class KafkaStreamImporterConfig implements ImporterConfig {
 
         m_consumerCount = parseProperty(properties, ImportDataProcessor.KAFKA10_CONSUMER_COUNT, 0);
 
+        m_invocationBatchSize = parseProperty(properties, "procedure.batch.size", 1);
+
         //host count, will not be missing in the property because is is explicitly set.
         //set default to 1 anyway.
         m_dbHostCount = parseProperty(properties, ImportDataProcessor.VOLTDB_HOST_COUNT, 1);
@@ -228,6 +238,7 @@ public class KafkaStreamImporterConfig implements ImporterConfig {
         builder.append("\n\tMaxPollRecords: " + m_maxPollRecords);
         builder.append("\n\tAutoOffsetReset: " + m_autoOffsetReset);
         builder.append("\n\tSessionTimeOut: " + m_sessionTimeOut);
+        builder.append("\n\tInvocationBatchSize: " + m_invocationBatchSize);
         builder.append("\n\tURI: " + m_uri);
         builder.append("\n\tProcedures: " + m_procedureMap);
         builder.append("\n\tFormatterBuilder: " + m_formatterBuilderMap);
@@ -360,6 +371,10 @@ public class KafkaStreamImporterConfig implements ImporterConfig {
         return m_consumerCount;
     }
 
+    public int getInvocationBatchSize() {
+        return m_invocationBatchSize;
+    }
+
     public int getDBHostCount() {
         return m_dbHostCount;
     }
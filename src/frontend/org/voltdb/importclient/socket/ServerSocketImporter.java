@@ -117,6 +117,8 @@ public class ServerSocketImporter extends AbstractImporter {
                 BufferedReader in = new BufferedReader(
                         new InputStreamReader(m_clientSocket.getInputStream()));
                 Formatter formatter = m_config.getFormatterBuilder().create();
+                final int batchSize = m_config.getBatchSize();
+                List<Object[]> batch = new ArrayList<>(batchSize);
                 Object params[] = null;
                 while (shouldRun()) {
                     String line = in.readLine();
@@ -126,14 +128,27 @@ public class ServerSocketImporter extends AbstractImporter {
                     try{
                         params = formatter.transform(ByteBuffer.wrap(line.getBytes()));
                         //You should convert your data to params here.
-                        if (params == null) continue;
-                        Invocation invocation = new Invocation(m_procedure, params);
-                        if (!callProcedure(invocation)) {
-                            rateLimitedLog(Level.ERROR, null, "Socket importer insertion failed");
+                        if (params != null) {
+                            if (batchSize == 1) {
+                                Invocation invocation = new Invocation(m_procedure, params);
+                                if (!callProcedure(invocation)) {
+                                    rateLimitedLog(Level.ERROR, null, "Socket importer insertion failed");
+                                }
+                            } else {
+                                batch.add(params);
+                            }
                         }
                    } catch (FormatException e){
                        rateLimitedLog(Level.ERROR, e, "Failed to tranform data: %s" ,line);
                   }
+                    // Only wait for a full batch while more lines are already buffered
+                    if (!batch.isEmpty() && (batch.size() >= batchSize || !in.ready())) {
+                        invokeBatch(batch);
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    invokeBatch(batch);
                 }
             } catch (IOException ioe) {
                 error(ioe, "IO exception reading from client socket connection in socket importer");
@@ -147,6 +162,13 @@ public class ServerSocketImporter extends AbstractImporter {
             }
         }
 
+        private void invokeBatch(List<Object[]> batch)
+        {
+            if (!callProcedureBatch(m_procedure, batch, null)) {
+                rateLimitedLog(Level.ERROR, null, "Socket importer insertion failed");
+            }
+        }
+
         public void stopClient()
         {
             // nothing to do for now
@@ -38,6 +38,7 @@ public class ServerSocketImporterConfig implements ImporterConfig
     private final String m_procedure;
     private final int m_port;
     private final ServerSocket m_serverSocket;
+    private final int m_batchSize;
 
     public ServerSocketImporterConfig(Properties props, FormatterBuilder formatterBuilder)
     {
@@ -58,6 +59,16 @@ public class ServerSocketImporterConfig implements ImporterConfig
             throw new IllegalArgumentException("Invalid port specification: " + portStr);
         }
 
+        String batchSizeStr = propsCopy.getProperty("batch.size", "1");
+        try {
+            m_batchSize = Integer.parseInt(batchSizeStr.trim());
+            if (m_batchSize <= 0) {
+                throw new NumberFormatException();
+            }
+        } catch(NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid batch.size specification: " + batchSizeStr);
+        }
+
         try {
             m_serverSocket = new ServerSocket(m_port);
         } catch(IOException e) {
@@ -89,6 +100,13 @@ public class ServerSocketImporterConfig implements ImporterConfig
         return m_port;
     }
 
+    // The maximum number of lines already read from a connection that are invoked as one batch,
+    // 1 (the default) invokes every line on its own
+    public int getBatchSize()
+    {
+        return m_batchSize;
+    }
+
     public ServerSocket getServerSocket()
     {
         return m_serverSocket;
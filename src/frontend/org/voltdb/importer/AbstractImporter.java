@@ -18,6 +18,7 @@
 package org.voltdb.importer;
 
 import java.net.URI;
+import java.util.List;
 import java.util.function.Function;
 
 import org.voltcore.logging.Level;
@@ -120,6 +121,35 @@ public abstract class AbstractImporter
         }
     }
 
+    /**
+     * This should be used by importer implementations to execute a stored procedure for
+     * a batch of parameter sets. Batching the default insert procedure of a table lets the
+     * server load the rows of every partition in a single transaction.
+     *
+     * @param procedure the name of the procedure to invoke for every row
+     * @param batch the parameters of every invocation
+     * @param callback invoked once, after every row of the batch completed
+     * @return returns true if the batch was queued; false otherwise
+     */
+    public boolean callProcedureBatch(String procedure, List<Object[]> batch, ProcedureCallback callback)
+    {
+        try {
+            boolean result = m_importServerAdapter.callProcedureBatch(this,
+                                                                      m_backPressurePredicate,
+                                                                      callback, procedure, batch);
+            for (int i = 0; i < batch.size(); i++) {
+                reportStat(result, procedure);
+            }
+            return result;
+        } catch (Exception ex) {
+            rateLimitedLog(Level.ERROR, ex, "%s: Error trying to import", getName());
+            for (int i = 0; i < batch.size(); i++) {
+                reportFailureStat(procedure);
+            }
+            return false;
+        }
+    }
+
     /**
      * Called to stop the importer from processing more data.
      */
@@ -25,6 +25,15 @@ public interface CommitTracker {
     //Commit offset
     long commit(long commit);
 
+    //Commit the first count offsets of a batch
+    default long commit(long[] offsets, int count) {
+        long safe = getSafe();
+        for (int i = 0; i < count; i++) {
+            safe = commit(offsets[i]);
+        }
+        return safe;
+    }
+
     //Reset offset to
     void resetTo(long offset);
 
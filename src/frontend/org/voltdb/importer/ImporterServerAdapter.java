@@ -19,6 +19,7 @@ package org.voltdb.importer;
 
 import org.voltdb.client.ProcedureCallback;
 
+import java.util.List;
 import java.util.function.Function;
 
 
@@ -49,6 +50,21 @@ public interface ImporterServerAdapter {
      */
     public boolean callProcedure(AbstractImporter importer, Function<Integer, Boolean> backPressurePredicate, ProcedureCallback callback, String proc, Object... fieldList);
 
+    /**
+     * This is used by importers to execute a procedure for many parameter sets at once.
+     * When the procedure is the default insert procedure of a table, rows that hash to the same
+     * partition are loaded by a single transaction.
+     *
+     * @param importer the calling importer instance
+     * @param backPressurePredicate see {@link #callProcedure}
+     * @param callback invoked once, after all the rows of the batch completed. The response is
+     * the first failure of the batch, or a success if every row succeeded.
+     * @param proc the name of the procedure that is to be executed
+     * @param batch the parameters of every invocation
+     * @return returns true if the batch was queued; false otherwise.
+     */
+    public boolean callProcedureBatch(AbstractImporter importer, Function<Integer, Boolean> backPressurePredicate, ProcedureCallback callback, String proc, List<Object[]> batch);
+
     /**
      * This should be used by importers to report failure while trying to execute a procedure.
      *
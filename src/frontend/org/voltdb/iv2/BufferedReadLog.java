@@ -40,6 +40,12 @@ public class BufferedReadLog
             m_safeSpHandle = msg.getSpHandle();
         }
 
+        Item(InitiateResponseMessage msg, long safeSpHandle) {
+            m_initiateMsg = msg;
+            m_fragmentMsg = null;
+            m_safeSpHandle = safeSpHandle;
+        }
+
         Item(FragmentResponseMessage msg, long txnId) {
             m_initiateMsg = null;
             m_fragmentMsg = msg;
@@ -89,6 +95,12 @@ public class BufferedReadLog
         offerInternal(mailbox, new Item(msg), handle);
     }
 
+    // a read served by a replica is safe once the writes it has seen are truncated on the leader
+    public void offer(Mailbox mailbox, InitiateResponseMessage msg, long safeSpHandle, long handle)
+    {
+        offerInternal(mailbox, new Item(msg, safeSpHandle), handle);
+    }
+
     public void offer(Mailbox mailbox, FragmentResponseMessage msg, long txnId, long handle)
     {
         offerInternal(mailbox, new Item(msg, txnId), handle);
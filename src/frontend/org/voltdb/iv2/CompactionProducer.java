@@ -0,0 +1,86 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.voltdb.iv2;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.voltdb.SiteProcedureConnection;
+import org.voltdb.VoltDB;
+import org.voltdb.rejoin.TaskLog;
+
+/**
+ * Runs incremental compaction of persistent table blocks against the EE,
+ * so that a large delete does not leave the whole compaction to be done
+ * inline by the transaction that released the last undo quantum.
+ *
+ * The site task queue is strictly FIFO, so compaction gets background
+ * priority from how it is scheduled instead: at most one run is ever
+ * queued, a run compacts for at most TIME_BUDGET_MICROS, and a run only
+ * keeps going past its budget while nothing else is waiting on the site.
+ */
+public class CompactionProducer extends SiteTasker implements Runnable
+{
+    // Site time spent compacting each time the task comes up
+    static final long TIME_BUDGET_MICROS = Long.getLong("COMPACTION_TIME_BUDGET_MICROS", 2000);
+    static final long INTERVAL_MILLIS = Long.getLong("COMPACTION_INTERVAL_MILLIS", 100);
+
+    private final SiteTaskerQueue m_taskQueue;
+    private final AtomicBoolean m_queued = new AtomicBoolean(false);
+
+    public CompactionProducer(SiteTaskerQueue taskQueue)
+    {
+        m_taskQueue = taskQueue;
+    }
+
+    public void start()
+    {
+        VoltDB.instance().schedulePriorityWork(
+                this,
+                INTERVAL_MILLIS,
+                INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    // Runnable.run() schedules execution, unless a run is already waiting
+    @Override
+    public void run()
+    {
+        if (m_queued.compareAndSet(false, true)) {
+            m_taskQueue.offer(this);
+        }
+    }
+
+    @Override
+    public void run(SiteProcedureConnection siteConnection)
+    {
+        m_queued.set(false);
+        boolean moreWork = siteConnection.compactTables(TIME_BUDGET_MICROS);
+        while (moreWork && m_taskQueue.isEmpty()) {
+            moreWork = siteConnection.compactTables(TIME_BUDGET_MICROS);
+        }
+    }
+
+    @Override
+    public void runForRejoin(SiteProcedureConnection siteConnection, TaskLog taskLog)
+    throws IOException
+    {
+        // Tables are still being streamed in, leave them alone until the rejoin completes
+        m_queued.set(false);
+    }
+}
@@ -348,6 +348,10 @@ public class InitiatorMailbox implements Mailbox
         }
         else if (message instanceof RepairLogTruncationMessage) {
             m_repairLog.deliver(message);
+            if (m_scheduler instanceof SpScheduler) {
+                ((SpScheduler) m_scheduler).updateLeaderTruncationHandle(
+                        ((RepairLogTruncationMessage) message).getHandle());
+            }
             return;
         }
         else if (message instanceof MigratePartitionLeaderMessage) {
@@ -425,6 +429,11 @@ public class InitiatorMailbox implements Mailbox
             return false;
         }
 
+        // any replica can serve a read the client allowed to go to replicas
+        if (message.isReadOnly() && message.getStoredProcedureInvocation().getReplicaRead()) {
+            return false;
+        }
+
         if (m_scheduler.isLeader() && m_migratePartitionLeaderStatus != MigratePartitionLeaderStatus.TXN_RESTART) {
             //At this point, the message is sent to partition leader
             return false;
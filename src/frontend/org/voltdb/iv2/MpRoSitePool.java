@@ -21,13 +21,12 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Deque;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.ThreadFactory;
 import org.voltcore.logging.VoltLogger;
 import org.voltcore.utils.CoreUtils;
+import org.voltcore.utils.LongObjectHashMap;
 import org.voltdb.BackendTarget;
 import org.voltdb.CatalogContext;
 import org.voltdb.LoadedProcedureSet;
@@ -98,7 +97,7 @@ class MpRoSitePool {
     // Stack of idle MpRoSites
     private Deque<MpRoSiteContext> m_idleSites = new ArrayDeque<>();
     // Active sites, hashed by the txnID they're working on
-    private Map<Long, MpRoSiteContext> m_busySites = new HashMap<>();
+    private LongObjectHashMap<MpRoSiteContext> m_busySites = new LongObjectHashMap<>();
 
     //The reference for all sites, used for shutdown
     private List<MpRoSiteContext> m_allSites = Collections.synchronizedList(new ArrayList<>());
@@ -189,8 +188,8 @@ class MpRoSitePool {
      */
     void repair(long txnId, SiteTasker task)
     {
-        if (m_busySites.containsKey(txnId)) {
-            MpRoSiteContext site = m_busySites.get(txnId);
+        MpRoSiteContext site = m_busySites.get(txnId);
+        if (site != null) {
             site.offer(task);
         }
         else {
@@ -221,12 +220,9 @@ class MpRoSitePool {
         if (!retval) {
             return false;
         }
-        MpRoSiteContext site;
         // Repair case
-        if (m_busySites.containsKey(txnId)) {
-            site = m_busySites.get(txnId);
-        }
-        else {
+        MpRoSiteContext site = m_busySites.get(txnId);
+        if (site == null) {
             if (m_idleSites.isEmpty()) {
                 MpRoSiteContext newSite = new MpRoSiteContext(m_siteId,
                         m_backend,
@@ -1291,6 +1291,15 @@ public class Site implements Runnable, SiteProcedureConnection, SiteSnapshotConn
         statsTick(time);
     }
 
+    @Override
+    public boolean compactTables(long timeBudgetMicros)
+    {
+        ByteBuffer paramBuffer = m_ee.getParamBufferForExecuteTask(8);
+        paramBuffer.putLong(timeBudgetMicros);
+        ByteBuffer resultBuffer = ByteBuffer.wrap(m_ee.executeTask(TaskType.COMPACT_TABLES, paramBuffer));
+        return resultBuffer.get() != 0;
+    }
+
     /**
      * Cache the current statistics.
      *
@@ -1316,6 +1325,7 @@ public class Site implements Runnable, SiteProcedureConnection, SiteSnapshotConn
             long tupleAllocatedMem = 0;
             long indexMem = 0;
             long stringMem = 0;
+            long tupleEmptyMem = 0;
 
             // update table stats
             final VoltTable[] s1 =
@@ -1347,6 +1357,10 @@ public class Site implements Runnable, SiteProcedureConnection, SiteSnapshotConn
                     if (trackMemory) {
                         stringMem += stats.getLong(10);
                     }
+                    assert(stats.getColumnName(13).equals("TUPLE_EMPTY_MEMORY"));
+                    if (trackMemory) {
+                        tupleEmptyMem += stats.getLong(13);
+                    }
                 }
                 stats.resetRowPosition();
 
@@ -1394,6 +1408,7 @@ public class Site implements Runnable, SiteProcedureConnection, SiteSnapshotConn
                                             tupleAllocatedMem,
                                             indexMem,
                                             stringMem,
+                                            tupleEmptyMem,
                                             m_ee.getThreadLocalPoolAllocations());
             }
         }
@@ -59,6 +59,7 @@ public class SpInitiator extends BaseInitiator implements Promotable
 {
     final private LeaderCache m_leaderCache;
     private final TickProducer m_tickProducer;
+    private final CompactionProducer m_compactionProducer;
     private boolean m_promoted = false;
 
     private static final VoltLogger exportLog = new VoltLogger("EXPORT");
@@ -117,6 +118,7 @@ public class SpInitiator extends BaseInitiator implements Promotable
                 m_initiatorMailbox);
         m_leaderCache = new LeaderCache(messenger.getZK(), VoltZK.iv2appointees, m_leadersChangeHandler);
         m_tickProducer = new TickProducer(m_scheduler.m_tasks);
+        m_compactionProducer = new CompactionProducer(m_scheduler.m_tasks);
         ((SpScheduler)m_scheduler).m_repairLog = m_repairLog;
     }
 
@@ -144,6 +146,16 @@ public class SpInitiator extends BaseInitiator implements Promotable
                 coreBindIds, isLowestSiteId);
 
         m_tickProducer.start();
+        // The other backends run on a MockExecutionEngine, which has no table blocks to compact
+        switch (backend) {
+        case HSQLDB_BACKEND:
+        case POSTGRESQL_BACKEND:
+        case POSTGIS_BACKEND:
+        case NONE:
+            break;
+        default:
+            m_compactionProducer.start();
+        }
 
         // add ourselves to the ephemeral node list which BabySitters will watch for this
         // partition
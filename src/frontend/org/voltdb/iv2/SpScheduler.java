@@ -21,9 +21,7 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -41,6 +39,7 @@ import org.voltcore.messaging.Mailbox;
 import org.voltcore.messaging.TransactionInfoBaseMessage;
 import org.voltcore.messaging.VoltMessage;
 import org.voltcore.utils.CoreUtils;
+import org.voltcore.utils.LongObjectHashMap;
 import org.voltdb.ClientResponseImpl;
 import org.voltdb.CommandLog;
 import org.voltdb.CommandLog.DurabilityListener;
@@ -151,13 +150,13 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
     private List<Long> m_replicaHSIds = new ArrayList<>();
     long m_sendToHSIds[] = new long[0];
     private final TransactionTaskQueue m_pendingTasks;
-    private final Map<Long, TransactionState> m_outstandingTxns =
-        new HashMap<Long, TransactionState>();
+    private final LongObjectHashMap<TransactionState> m_outstandingTxns =
+        new LongObjectHashMap<TransactionState>();
     private final TreeMap<DuplicateCounterKey, DuplicateCounter> m_duplicateCounters =
         new TreeMap<DuplicateCounterKey, DuplicateCounter>();
     // MP fragment tasks or completion tasks pending durability
-    private final Map<Long, Queue<TransactionTask>> m_mpsPendingDurability =
-        new HashMap<Long, Queue<TransactionTask>>();
+    private final LongObjectHashMap<Queue<TransactionTask>> m_mpsPendingDurability =
+        new LongObjectHashMap<Queue<TransactionTask>>();
     private CommandLog m_cl;
     private final SnapshotCompletionMonitor m_snapMonitor;
     private BufferedReadLog m_bufferedReadLog = null;
@@ -174,6 +173,8 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
     long m_repairLogTruncationHandle = Long.MIN_VALUE;
     // the truncation handle last sent to the replicas
     long m_lastSentTruncationHandle = Long.MIN_VALUE;
+    // the leader's truncation handle as last heard on a replica, reads served here are released by it
+    long m_leaderTruncationHandle = Long.MIN_VALUE;
     // the max schedule transaction sphandle, multi-fragments mp txn counts one
     long m_maxScheduledTxnSpHandle = Long.MIN_VALUE;
 
@@ -196,6 +197,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
         m_uniqueIdGenerator = new UniqueIdGenerator(partitionId, 0);
         m_bufferedReadLog = new BufferedReadLog();
         m_repairLogTruncationHandle = getCurrentTxnId();
+        m_leaderTruncationHandle = m_repairLogTruncationHandle;
         // initialized as current txn id in order to release the initial reads into the system
         m_maxScheduledTxnSpHandle = getCurrentTxnId();
         IS_KSAFE_CLUSTER = VoltDB.instance().getKFactor() > 0;
@@ -535,7 +537,8 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
                         0,
                         m_uniqueIdGenerator.partitionId);
 
-                newSpHandle = getMaxScheduledTxnSpHandle();
+                // a replica only schedules what the leader sent it, the last seen txnid is its latest
+                newSpHandle = m_isLeader ? getMaxScheduledTxnSpHandle() : getCurrentTxnId();
             }
 
             // Need to set the SP handle on the received message
@@ -615,6 +618,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
         else {
             setMaxSeenTxnId(msg.getSpHandle());
             newSpHandle = msg.getSpHandle();
+            updateLeaderTruncationHandle(msg.getTruncationHandle());
             logRepair(msg);
             // Don't update the uniqueID if this is a run-everywhere txn, because it has an MPI unique ID.
             if (UniqueIdGenerator.getPartitionIdFromUniqueId(msg.getUniqueId()) == m_partitionId) {
@@ -801,9 +805,14 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
                 traceLog.add(() -> VoltTrace.endAsync("initsp", MiscUtils.hsIdPairTxnIdToString(m_mailbox.getHSId(), message.m_sourceHSId, message.getSpHandle(), message.getClientInterfaceHandle())));
             }
 
-            // InvocationDispatcher routes SAFE reads to SPI only
             assert(m_bufferedReadLog != null);
-            m_bufferedReadLog.offer(m_mailbox, message, m_repairLogTruncationHandle);
+            if (m_isLeader) {
+                m_bufferedReadLog.offer(m_mailbox, message, m_repairLogTruncationHandle);
+            } else {
+                // A replica read has seen every write completed here, which is up to the local truncation
+                // handle. Hold it until the leader reports those writes committed on all replicas.
+                m_bufferedReadLog.offer(m_mailbox, message, m_repairLogTruncationHandle, m_leaderTruncationHandle);
+            }
             return;
         }
 
@@ -1425,7 +1434,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
             }
         }
         builder.append("\n  most recent SP handle: ").append(TxnEgo.txnIdToString(getCurrentTxnId()));
-        builder.append("\n  outstanding txns: ").append(TxnEgo.txnIdCollectionToString(m_outstandingTxns.keySet()));
+        builder.append("\n  outstanding txns: ").append(TxnEgo.txnIdCollectionToString(Longs.asList(m_outstandingTxns.keys())));
         builder.append("\n  ");
         m_pendingTasks.toString(builder);
         if (m_duplicateCounters.size() > 0) {
@@ -1625,6 +1634,20 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
         return m_maxScheduledTxnSpHandle;
     }
 
+    /**
+     * Track the truncation handle of the leader, carried by replicated initiations and
+     * truncation messages, and release the replica reads it covers.
+     */
+    void updateLeaderTruncationHandle(long handle)
+    {
+        if (handle > m_leaderTruncationHandle) {
+            m_leaderTruncationHandle = handle;
+            if (!m_isLeader) {
+                m_bufferedReadLog.releaseBufferedReads(m_mailbox, handle);
+            }
+        }
+    }
+
     private long getRepairLogTruncationHandleForReplicas()
     {
         m_lastSentTruncationHandle = m_repairLogTruncationHandle;
@@ -1802,18 +1825,14 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
         if (m_isLeader && m_sendToHSIds.length > 0) {
             m_mailbox.send(m_sendToHSIds, new MPBacklogFlushMessage());
         }
-        Iterator<Entry<Long, TransactionState>> iter = m_outstandingTxns.entrySet().iterator();
-        while (iter.hasNext()) {
-            Entry<Long, TransactionState> entry = iter.next();
-            TransactionState txnState = entry.getValue();
-            if (TxnEgo.getPartitionId(entry.getKey()) == MpInitiator.MP_INIT_PID ) {
-                if (txnState.isReadOnly()) {
-                    txnState.setDone();
-                    m_duplicateCounters.entrySet().removeIf((e) -> e.getKey().m_txnId == entry.getKey());
-                    iter.remove();
-                }
+        m_outstandingTxns.removeIf((txnId, txnState) -> {
+            if (TxnEgo.getPartitionId(txnId) == MpInitiator.MP_INIT_PID && txnState.isReadOnly()) {
+                txnState.setDone();
+                m_duplicateCounters.entrySet().removeIf((e) -> e.getKey().m_txnId == txnId);
+                return true;
             }
-        }
+            return false;
+        });
 
         // flush all RO transactions out of backlog
         m_pendingTasks.removeMPReadTransactions();
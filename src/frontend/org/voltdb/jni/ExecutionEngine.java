@@ -78,7 +78,8 @@ public abstract class ExecutionEngine implements FastDeserializer.Deserializatio
         SET_MERGED_DRID_TRACKER(7),
         INIT_DRID_TRACKER(8),
         RESET_DR_APPLIED_TRACKER_SINGLE(9),
-        ELASTIC_CHANGE(10);
+        ELASTIC_CHANGE(10),
+        COMPACT_TABLES(11);
 
         private TaskType(int taskId) {
             this.taskId = taskId;
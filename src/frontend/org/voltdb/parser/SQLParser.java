@@ -398,6 +398,7 @@ public class SQLParser extends SQLPatternFactory
             "\\AREPLICATE|" +
             "\\AIMPORT|" +
             "\\ADR|" +
+            "\\ADICTIONARY|" +
             "\\ASET" +
             ")" +                                  // end (group 1)
             "\\s" +                                // one required whitespace to terminate keyword
@@ -412,6 +413,17 @@ public class SQLParser extends SQLPatternFactory
             "\\s*;\\z"                              // (end statement)
             );
 
+    private static final Pattern PAT_DICTIONARY_TABLE = Pattern.compile(
+            "(?i)" +                                // (ignore case)
+            "\\A"  +                                // start statement
+            "DICTIONARY\\s+TABLE\\s+" +             // DICTIONARY TABLE
+            "([\\w.$]+)" +                          // (1) <table name>
+            "\\s+COLUMN\\s+" +                      // COLUMN
+            "([\\w.$]+)" +                          // (2) <column name>
+            "(?:\\s+(DISABLE))?" +                  //     (3) optional DISABLE argument
+            "\\s*;\\z"                              // (end statement)
+            );
+
     //========== Patterns from SQLCommand ==========
 
     private static final String EndOfLineCommentPatternString =
@@ -719,6 +731,16 @@ public class SQLParser extends SQLPatternFactory
         return PAT_DR_TABLE.matcher(statement);
     }
 
+    /**
+     * Match statement against dictionary table pattern
+     * @param statement  statement to match against
+     * @return           pattern matcher object
+     */
+    public static Matcher matchDictionaryTable(String statement)
+    {
+        return PAT_DICTIONARY_TABLE.matcher(statement);
+    }
+
     /**
      * Match statement against pattern for start of any partition statement
      * @param statement  statement to match against
@@ -20,6 +20,7 @@ package org.voltdb.planner;
 import java.util.*;
 
 import org.hsqldb_voltpatches.HSQLInterface;
+import org.voltdb.VoltType;
 import org.voltdb.catalog.MaterializedViewInfo;
 import org.voltdb.catalog.Database;
 import org.voltdb.catalog.Table;
@@ -38,11 +39,13 @@ import org.voltdb.plannodes.IndexSortablePlanNode;
 import org.voltdb.plannodes.AbstractJoinPlanNode;
 import org.voltdb.plannodes.AbstractPlanNode;
 import org.voltdb.plannodes.AbstractReceivePlanNode;
+import org.voltdb.plannodes.HashJoinPlanNode;
 import org.voltdb.plannodes.IndexScanPlanNode;
 import org.voltdb.plannodes.IndexUseForOrderBy;
 import org.voltdb.plannodes.MaterializedScanPlanNode;
 import org.voltdb.plannodes.NestLoopIndexPlanNode;
 import org.voltdb.plannodes.NestLoopPlanNode;
+import org.voltdb.types.ExpressionType;
 import org.voltdb.types.JoinType;
 import org.voltdb.utils.PermutationGenerator;
 
@@ -63,16 +66,22 @@ public class SelectSubPlanAssembler extends SubPlanAssembler {
     /** The list of all possible join orders, assembled by queueAllJoinOrders */
     private ArrayDeque<JoinNode> m_joinOrders = new ArrayDeque<>();
 
+    /** Large queries may spill hash join inputs, which gives up the outer child's order */
+    private final boolean m_isLargeQuery;
+
     /**
      *
      * @param db The catalog's Database object.
      * @param selectStmt The parsed and dissected statement object describing the sql to execute.
      * @param partitioning in/out param first element is partition key value, forcing a single-partition statement if non-null,
      * second may be an inferred partition key if no explicit single-partitioning was specified
+     * @param isLargeQuery true if the plan will be executed using large temp tables
      */
-    SelectSubPlanAssembler(Database db, ParsedSelectStmt selectStmt, StatementPartitioning partitioning)
+    SelectSubPlanAssembler(Database db, ParsedSelectStmt selectStmt, StatementPartitioning partitioning,
+                           boolean isLargeQuery)
     {
         super(db, selectStmt, partitioning);
+        m_isLargeQuery = isLargeQuery;
         if (selectStmt.hasJoinOrder()) {
             // If a join order was provided or large number of tables join
             m_joinOrders.addAll(selectStmt.getJoinOrder());
@@ -722,7 +731,6 @@ public class SelectSubPlanAssembler extends SubPlanAssembler {
 
         AbstractJoinPlanNode ajNode = null;
         if (canHaveNLJ) {
-            NestLoopPlanNode nljNode = new NestLoopPlanNode();
             // get all the clauses that join the applicable two tables
             // Copy innerAccessPath.joinExprs to leave it unchanged,
             // avoiding accumulation of redundant expressions when
@@ -763,6 +771,20 @@ public class SelectSubPlanAssembler extends SubPlanAssembler {
                 // the inner node ONLY, that can not be pushed down.
                 joinClauses.addAll(innerAccessPath.otherExprs);
             }
+
+            // Without a usable inner index, an equi-join is better served by hashing
+            // the inner rows once than by rescanning them for every outer row.
+            // The special outer join case keeps the NLJ because the inner rows only
+            // become available on the coordinator.
+            AbstractJoinPlanNode nljNode = null;
+            if ( ! needInnerSendReceive &&
+                    ! (innerPlan instanceof IndexScanPlanNode) &&
+                    ! (innerPlan instanceof NestLoopIndexPlanNode)) {
+                nljNode = getHashJoinNode(innerJoinNode, joinClauses);
+            }
+            if (nljNode == null) {
+                nljNode = new NestLoopPlanNode();
+            }
             nljNode.setJoinPredicate(ExpressionUtil.combinePredicates(joinClauses));
 
             // combine the tails plan graph with the new head node
@@ -810,6 +832,77 @@ public class SelectSubPlanAssembler extends SubPlanAssembler {
         return ajNode;
     }
 
+    /**
+     * Build a hash join node if the join clauses contain at least one
+     * equality between an expression of the outer tables only and an
+     * expression of the inner tables only. The clauses themselves are
+     * left untouched and become the join predicate of the returned node.
+     *
+     * @param innerJoinNode The inner (build side) join tree node.
+     * @param joinClauses The join expressions that will be evaluated by the join.
+     * @return a HashJoinPlanNode with its hash keys set, or null if no
+     * suitable equality was found.
+     */
+    private HashJoinPlanNode getHashJoinNode(JoinNode innerJoinNode,
+                                             List<AbstractExpression> joinClauses) {
+        Collection<String> innerAliases = innerJoinNode.generateTableJoinOrder();
+        List<AbstractExpression> outerKeys = new ArrayList<>();
+        List<AbstractExpression> innerKeys = new ArrayList<>();
+        for (AbstractExpression clause : joinClauses) {
+            if (clause.getExpressionType() != ExpressionType.COMPARE_EQUAL ||
+                    clause.hasSubquerySubexpression()) {
+                continue;
+            }
+            AbstractExpression left = clause.getLeft();
+            AbstractExpression right = clause.getRight();
+            Boolean leftIsInner = isHashKeyOfInnerTables(left, innerAliases);
+            Boolean rightIsInner = isHashKeyOfInnerTables(right, innerAliases);
+            if (leftIsInner == null || rightIsInner == null || leftIsInner == rightIsInner) {
+                continue;
+            }
+            // Hashed values of different types never compare equal,
+            // so only pair up keys that need no implicit cast.
+            if (left.getValueType() != right.getValueType() ||
+                    left.getValueType() == VoltType.GEOGRAPHY ||
+                    left.getInBytes() != right.getInBytes()) {
+                continue;
+            }
+            outerKeys.add(leftIsInner ? right : left);
+            innerKeys.add(leftIsInner ? left : right);
+        }
+        if (innerKeys.isEmpty()) {
+            return null;
+        }
+        HashJoinPlanNode hjNode = new HashJoinPlanNode();
+        hjNode.setHashExpressions(outerKeys, innerKeys);
+        hjNode.setPreservesOuterOrder( ! m_isLargeQuery);
+        return hjNode;
+    }
+
+    /**
+     * @return TRUE if all the column references of the expression are to the
+     * inner tables, FALSE if they are all to other (outer) tables, or null
+     * if the expression has no column references or mixes both sides.
+     */
+    private static Boolean isHashKeyOfInnerTables(AbstractExpression expr,
+                                                  Collection<String> innerAliases) {
+        List<TupleValueExpression> tves = ExpressionUtil.getTupleValueExpressions(expr);
+        if (tves.isEmpty()) {
+            return null;
+        }
+        Boolean result = null;
+        for (TupleValueExpression tve : tves) {
+            boolean isInner = innerAliases.contains(tve.getTableAlias());
+            if (result == null) {
+                result = isInner;
+            }
+            else if (result != isInner) {
+                return null;
+            }
+        }
+        return result;
+    }
+
     /**
      * A method to filter out single-TVE expressions.
      *
@@ -0,0 +1,208 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.plannodes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.json_voltpatches.JSONException;
+import org.json_voltpatches.JSONObject;
+import org.json_voltpatches.JSONStringer;
+import org.voltdb.catalog.Database;
+import org.voltdb.compiler.DatabaseEstimates;
+import org.voltdb.compiler.ScalarValueHints;
+import org.voltdb.expressions.AbstractExpression;
+import org.voltdb.types.PlanNodeType;
+import org.voltdb.types.SortDirectionType;
+
+/**
+ * An equi-join that builds a hash table keyed on the inner (build) side
+ * and probes it once per outer tuple. It is planned in place of a
+ * NestLoopPlanNode when the inner child offers no usable index and the
+ * join has at least one outer-expression = inner-expression conjunct.
+ *
+ * The full join predicate is retained and re-applied to every candidate
+ * pair, so the hash keys only narrow the set of inner tuples considered.
+ */
+public class HashJoinPlanNode extends AbstractJoinPlanNode {
+
+    public enum Members {
+        OUTER_HASH_EXPRESSIONS,
+        INNER_HASH_EXPRESSIONS,
+        PRESERVES_OUTER_ORDER;
+    }
+
+    // Pairwise-matching key expressions. m_outerHashExpressions.get(i) is
+    // evaluated against the outer tuple, m_innerHashExpressions.get(i)
+    // against the inner tuple, and both have the same value type.
+    private List<AbstractExpression> m_outerHashExpressions = new ArrayList<>();
+    private List<AbstractExpression> m_innerHashExpressions = new ArrayList<>();
+
+    // A large (spilling) query partitions both inputs before probing,
+    // so the output no longer follows the order of the outer child.
+    private boolean m_preservesOuterOrder = true;
+
+    public HashJoinPlanNode() {
+        super();
+    }
+
+    @Override
+    public PlanNodeType getPlanNodeType() {
+        return PlanNodeType.HASHJOIN;
+    }
+
+    public void setHashExpressions(List<AbstractExpression> outerExprs,
+                                   List<AbstractExpression> innerExprs) {
+        assert(outerExprs.size() == innerExprs.size());
+        m_outerHashExpressions.clear();
+        m_innerHashExpressions.clear();
+        for (AbstractExpression expr : outerExprs) {
+            m_outerHashExpressions.add(expr.clone());
+        }
+        for (AbstractExpression expr : innerExprs) {
+            m_innerHashExpressions.add(expr.clone());
+        }
+    }
+
+    public List<AbstractExpression> getOuterHashExpressions() {
+        return m_outerHashExpressions;
+    }
+
+    public List<AbstractExpression> getInnerHashExpressions() {
+        return m_innerHashExpressions;
+    }
+
+    public void setPreservesOuterOrder(boolean preservesOuterOrder) {
+        m_preservesOuterOrder = preservesOuterOrder;
+    }
+
+    public boolean preservesOuterOrder() {
+        return m_preservesOuterOrder;
+    }
+
+    @Override
+    public void validate() throws Exception {
+        super.validate();
+
+        if (m_outerHashExpressions.isEmpty() ||
+                m_outerHashExpressions.size() != m_innerHashExpressions.size()) {
+            throw new Exception("ERROR: Mismatched hash key expressions for " + this);
+        }
+        for (AbstractExpression expr : m_outerHashExpressions) {
+            expr.validate();
+        }
+        for (AbstractExpression expr : m_innerHashExpressions) {
+            expr.validate();
+        }
+    }
+
+    @Override
+    public void resolveColumnIndexes() {
+        super.resolveColumnIndexes();
+
+        final NodeSchema outer_schema = m_children.get(0).getOutputSchema();
+        final NodeSchema inner_schema = m_children.get(1).getOutputSchema();
+        resolvePredicate(m_outerHashExpressions, outer_schema, inner_schema);
+        resolvePredicate(m_innerHashExpressions, outer_schema, inner_schema);
+    }
+
+    @Override
+    public boolean isOutputOrdered(List<AbstractExpression> sortExpressions, List<SortDirectionType> sortDirections) {
+        if ( ! m_preservesOuterOrder) {
+            return false;
+        }
+        return super.isOutputOrdered(sortExpressions, sortDirections);
+    }
+
+    @Override
+    public void resolveSortDirection() {
+        if ( ! m_preservesOuterOrder) {
+            m_sortDirection = SortDirectionType.INVALID;
+            return;
+        }
+        super.resolveSortDirection();
+    }
+
+    @Override
+    public void computeCostEstimates(long childOutputTupleCountEstimate,
+                                     DatabaseEstimates estimates,
+                                     ScalarValueHints[] paramHints)
+    {
+        m_estimatedOutputTupleCount = childOutputTupleCountEstimate;
+        // Charge exactly what the NLJ it replaces would be charged, so that
+        // hashing an equi-join never makes the plan selector prefer a join
+        // order with a cross product or a rescanned index over it.
+        assert(m_children.size() == 2);
+        m_estimatedProcessedTupleCount = discountEstimatedProcessedTupleCount(m_children.get(0)) +
+                m_children.get(1).m_estimatedProcessedTupleCount;
+    }
+
+    @Override
+    public void toJSONString(JSONStringer stringer) throws JSONException {
+        super.toJSONString(stringer);
+        AbstractExpression.toJSONArray(stringer, Members.OUTER_HASH_EXPRESSIONS.name(), m_outerHashExpressions);
+        AbstractExpression.toJSONArray(stringer, Members.INNER_HASH_EXPRESSIONS.name(), m_innerHashExpressions);
+        if ( ! m_preservesOuterOrder) {
+            stringer.keySymbolValuePair(Members.PRESERVES_OUTER_ORDER.name(), false);
+        }
+    }
+
+    @Override
+    public void loadFromJSONObject(JSONObject jobj, Database db) throws JSONException {
+        super.loadFromJSONObject(jobj, db);
+        m_outerHashExpressions.clear();
+        m_innerHashExpressions.clear();
+        AbstractExpression.loadFromJSONArrayChild(m_outerHashExpressions, jobj,
+                Members.OUTER_HASH_EXPRESSIONS.name(), null);
+        AbstractExpression.loadFromJSONArrayChild(m_innerHashExpressions, jobj,
+                Members.INNER_HASH_EXPRESSIONS.name(), null);
+        if (jobj.has(Members.PRESERVES_OUTER_ORDER.name())) {
+            m_preservesOuterOrder = jobj.getBoolean(Members.PRESERVES_OUTER_ORDER.name());
+        }
+    }
+
+    @Override
+    public void findAllExpressionsOfClass(Class< ? extends AbstractExpression> aeClass, Set<AbstractExpression> collected) {
+        super.findAllExpressionsOfClass(aeClass, collected);
+        for (AbstractExpression expr : m_outerHashExpressions) {
+            collected.addAll(expr.findAllSubexpressionsOfClass(aeClass));
+        }
+        for (AbstractExpression expr : m_innerHashExpressions) {
+            collected.addAll(expr.findAllSubexpressionsOfClass(aeClass));
+        }
+    }
+
+    @Override
+    protected String explainPlanForNode(String indent) {
+        StringBuilder keys = new StringBuilder();
+        String sep = "";
+        for (int ii = 0; ii < m_innerHashExpressions.size(); ++ii) {
+            keys.append(sep)
+                .append(m_outerHashExpressions.get(ii).explain("!?"))
+                .append(" = ")
+                .append(m_innerHashExpressions.get(ii).explain("!?"));
+            sep = ", ";
+        }
+        return "HASH " + this.m_joinType.toString() + " JOIN" +
+                (m_sortDirection == SortDirectionType.INVALID ? "" : " (" + m_sortDirection + ")") +
+                " on " + keys.toString() +
+                explainFilters(indent);
+    }
+
+}
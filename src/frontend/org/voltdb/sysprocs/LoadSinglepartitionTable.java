@@ -17,22 +17,35 @@
 
 package org.voltdb.sysprocs;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 import org.voltdb.DependencyPair;
 import org.voltdb.ParameterSet;
+import org.voltdb.PrivateVoltTableFactory;
 import org.voltdb.SQLStmt;
+import org.voltdb.DeprecatedProcedureAPIAccess;
 import org.voltdb.SystemProcedureExecutionContext;
+import org.voltdb.TheHashinator;
 import org.voltdb.VoltDB;
 import org.voltdb.VoltSystemProcedure;
 import org.voltdb.VoltTable;
+import org.voltdb.VoltTableRow;
+import org.voltdb.VoltType;
 import org.voltdb.catalog.Column;
 import org.voltdb.catalog.Constraint;
+import org.voltdb.catalog.Index;
+import org.voltdb.catalog.MaterializedViewHandlerInfo;
 import org.voltdb.catalog.Procedure;
 import org.voltdb.catalog.Statement;
 import org.voltdb.catalog.Table;
+import org.voltdb.catalog.TableRef;
+import org.voltdb.compiler.deploymentfile.DrRoleType;
 import org.voltdb.types.ConstraintType;
+import org.voltdb.utils.CatalogUtil;
 
 /**
  * Given as input a VoltTable with a schema corresponding to a persistent table,
@@ -40,9 +53,29 @@ import org.voltdb.types.ConstraintType;
  * the auto-generated CRUD procs for batch inserts because it can do many inserts
  * with only one network round trip and one transactional context.
  * Also a bit more generic.
+ *
+ * Plain inserts of multi-row batches whose schema exactly matches the target
+ * table skip the per-row insert plans entirely and hand the whole batch to the
+ * EE in a single table load, the same way LoadMultipartitionTable does.
+ *
+ * The {@link #MODE_BULK_INSERT} mode is meant for loading phases, where a
+ * batch is loaded without undo logging. Rows that cannot be inserted are
+ * skipped rather than failing the batch, and their positions are returned to
+ * the caller, which is expected to retry them one at a time.
  */
 public class LoadSinglepartitionTable extends VoltSystemProcedure
 {
+    /** Insert every row, failing the whole batch on any constraint violation. */
+    public static final byte MODE_INSERT = 0;
+    /** Upsert every row. Requires a primary key. */
+    public static final byte MODE_UPSERT = 1;
+    /**
+     * Insert every row that can be inserted, without undo logging where the
+     * table allows it. A second result table lists the zero-based positions of
+     * the rejected rows in the input table.
+     */
+    public static final byte MODE_BULK_INSERT = 2;
+
     /**
      * This is a `VoltSystemProcedure` subclass. This comes with some extra work to
      * register system procedure plan fragment, but since this is a very simple
@@ -73,14 +106,16 @@ public class LoadSinglepartitionTable extends VoltSystemProcedure
      * @param table A VoltTable with schema matching the target table containing data to load.
      *              It's assumed that each row in this table partitions to the same partition
      *              as the other rows, and to the same partition as the partition parameter.
-     * @param upsertMode True if using upsert instead of insert. If using insert, this proc
+     * @param upsertMode {@link #MODE_INSERT}, {@link #MODE_UPSERT} or {@link #MODE_BULK_INSERT}.
+     *              Any other non-zero value is treated as upsert. If using insert, this proc
      *              will fail if there are any uniqueness constraints violated.
      * @return The number of rows modified. This will be inserts in insert mode, but in upsert
-     *              mode, this will be the sum of inserts and updates.
+     *              mode, this will be the sum of inserts and updates. In bulk insert mode a second
+     *              table holds the positions of the rows that were not inserted.
      * @throws VoltAbortException on any failure, but the most common failures are non-matching
      *              partitioning or unique constraint violations.
      */
-    public long run(SystemProcedureExecutionContext ctx,
+    public VoltTable[] run(SystemProcedureExecutionContext ctx,
                     byte[] partitionParam,
                     String tableName,
                     byte upsertMode,
@@ -106,7 +141,8 @@ public class LoadSinglepartitionTable extends VoltSystemProcedure
         }
 
         // convert from 8bit signed integer (byte) to boolean
-        boolean isUpsert = (upsertMode != 0);
+        boolean isBulkInsert = (upsertMode == MODE_BULK_INSERT);
+        boolean isUpsert = (upsertMode != MODE_INSERT && !isBulkInsert);
 
         // upsert requires a primary key on the table to work
         if (isUpsert) {
@@ -131,6 +167,22 @@ public class LoadSinglepartitionTable extends VoltSystemProcedure
         // fix any case problems
         tableName = catTable.getTypeName();
 
+        // bulk path: load the whole batch into the EE in one call
+        if (!isUpsert && canBulkLoad(ctx, catTable, table)) {
+            checkPartitioning(ctx, catTable, table);
+            if (isBulkInsert && canLoadWithoutUndo(ctx, catTable)) {
+                return loadWithoutUndo(ctx, catTable, table);
+            }
+            // voltLoadTable is void. Assume success or exception.
+            DeprecatedProcedureAPIAccess.voltLoadTable(
+                                this,
+                                ctx.getCluster().getTypeName(),
+                                ctx.getDatabase().getTypeName(),
+                                tableName,
+                                table, false, true, true);
+            return buildResults(table.getRowCount(), isBulkInsert ? new ArrayList<>() : null);
+        }
+
         // check that the schema of the input matches
         int columnCount = table.getColumnCount();
 
@@ -198,7 +250,269 @@ public class LoadSinglepartitionTable extends VoltSystemProcedure
             executed += executeSQL();
         }
 
-        return executed;
+        return buildResults(executed, isBulkInsert ? new ArrayList<>() : null);
+    }
+
+    /**
+     * @param rejectedRows positions of the rows that were not inserted, or null
+     *                     for the single result table of the insert and upsert modes.
+     */
+    private static VoltTable[] buildResults(long modified, List<Integer> rejectedRows) {
+        VoltTable count = new VoltTable(new VoltTable.ColumnInfo("", VoltType.BIGINT));
+        count.addRow(modified);
+        if (rejectedRows == null) {
+            return new VoltTable[] { count };
+        }
+        VoltTable rejected = new VoltTable(new VoltTable.ColumnInfo("ROW_INDEX", VoltType.INTEGER));
+        for (int row : rejectedRows) {
+            rejected.addRow(row);
+        }
+        return new VoltTable[] { count, rejected };
+    }
+
+    /**
+     * Decide whether a batch can bypass the borrowed insert plan and be loaded
+     * directly. The EE load path does not coerce column types, run the
+     * LIMIT PARTITION ROWS delete statement or handle export-only streams, so
+     * anything out of the ordinary takes the row-by-row path instead.
+     * Single-row batches (the client's retry path) also take the slow path so
+     * their failures are reported exactly as before. The HSQL and PostgreSQL
+     * backends do not implement loadTable at all.
+     */
+    private static boolean canBulkLoad(SystemProcedureExecutionContext ctx, Table catTable, VoltTable table) {
+        if (table.getRowCount() < 2) {
+            return false;
+        }
+        switch (VoltDB.instance().getBackendTargetType()) {
+        case HSQLDB_BACKEND:
+        case POSTGRESQL_BACKEND:
+        case POSTGIS_BACKEND:
+        case NONE:
+            return false;
+        default:
+            break;
+        }
+        if (catTable.getTuplelimit() != Integer.MAX_VALUE) {
+            return false;
+        }
+        if (CatalogUtil.isTableExportOnly(ctx.getDatabase(), catTable)) {
+            return false;
+        }
+        // Views and XDCR tables carry a hidden column the input table does not
+        // have, which the EE would treat as a fatal schema mismatch.
+        if (catTable.getMaterializer() != null || !catTable.getMvhandlerinfo().isEmpty()) {
+            return false;
+        }
+        if (catTable.getIsdred() &&
+                DrRoleType.XDCR.value().equals(ctx.getCluster().getDrrole())) {
+            return false;
+        }
+        if (table.getColumnCount() != catTable.getColumns().size()) {
+            return false;
+        }
+        for (Column col : catTable.getColumns()) {
+            if (table.getColumnType(col.getIndex()) != VoltType.get((byte) col.getType())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decide whether a batch that can be bulk loaded can also skip undo logging.
+     * Without undo, an exception in the middle of the load cannot be rolled back,
+     * so only tables whose inserts can fail in no other way than a constraint
+     * violation qualify. The EE skips and returns the rows violating a constraint,
+     * the too-wide values it would throw on are filtered out beforehand by
+     * {@link #findOversizedRows}. Anything maintained alongside the table, like
+     * views, the DR stream or expression and partial indexes, could still throw
+     * or leave a record behind for a skipped row, so those tables keep undo.
+     */
+    private static boolean canLoadWithoutUndo(SystemProcedureExecutionContext ctx, Table catTable) {
+        if (catTable.getIsdred() || !catTable.getViews().isEmpty()) {
+            return false;
+        }
+        for (Column col : catTable.getColumns()) {
+            if (col.getType() == VoltType.GEOGRAPHY.getValue()) {
+                return false;
+            }
+        }
+        for (Index index : catTable.getIndexes()) {
+            if (!index.getExpressionsjson().isEmpty() || !index.getPredicatejson().isEmpty()) {
+                return false;
+            }
+        }
+        // the table must not feed a join view either
+        for (Table other : ctx.getDatabase().getTables()) {
+            for (MaterializedViewHandlerInfo mvInfo : other.getMvhandlerinfo()) {
+                for (TableRef source : mvInfo.getSourcetables()) {
+                    if (source.getTable() == catTable) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Load a batch with the EE's undo log turned off and report the rows that
+     * were not inserted instead of aborting. The caller has already checked
+     * the partitioning of every row.
+     */
+    private VoltTable[] loadWithoutUndo(SystemProcedureExecutionContext ctx, Table catTable, VoltTable table) {
+        List<Integer> rejectedRows = findOversizedRows(catTable, table);
+        VoltTable toLoad = table;
+        // input positions of the rows of toLoad
+        List<Integer> loadedRows = null;
+        if (!rejectedRows.isEmpty()) {
+            toLoad = table.clone(1024);
+            loadedRows = new ArrayList<>();
+            table.resetRowPosition();
+            for (int i = 0, next = 0; table.advanceRow(); ++i) {
+                if (next < rejectedRows.size() && rejectedRows.get(next) == i) {
+                    ++next;
+                    continue;
+                }
+                toLoad.add(table);
+                loadedRows.add(i);
+            }
+            table.resetRowPosition();
+        }
+
+        byte[] conflicts = DeprecatedProcedureAPIAccess.voltLoadTable(
+                this,
+                ctx.getCluster().getTypeName(),
+                ctx.getDatabase().getTypeName(),
+                catTable.getTypeName(),
+                toLoad, true, true, false);
+
+        if (conflicts != null) {
+            VoltTable conflictTable = PrivateVoltTableFactory.createVoltTableFromBuffer(ByteBuffer.wrap(conflicts), true);
+            for (int row : matchConflictRows(toLoad, conflictTable)) {
+                rejectedRows.add(loadedRows == null ? row : loadedRows.get(row));
+            }
+            rejectedRows.sort(null);
+        }
+        return buildResults(table.getRowCount() - rejectedRows.size(), rejectedRows);
+    }
+
+    /**
+     * The EE checks the width of VARCHAR and VARBINARY values while it
+     * deserializes a row and throws rather than skipping the row, so find the
+     * rows it would fail on up front.
+     *
+     * @return the positions of the rows holding a value too wide for its column, in order.
+     */
+    private static List<Integer> findOversizedRows(Table catTable, VoltTable table) {
+        List<Column> varColumns = new ArrayList<>();
+        for (Column col : catTable.getColumns()) {
+            if (col.getType() == VoltType.STRING.getValue() || col.getType() == VoltType.VARBINARY.getValue()) {
+                varColumns.add(col);
+            }
+        }
+        List<Integer> oversized = new ArrayList<>();
+        if (varColumns.isEmpty()) {
+            return oversized;
+        }
+        table.resetRowPosition();
+        for (int i = 0; table.advanceRow(); ++i) {
+            for (Column col : varColumns) {
+                if (isTooWide(col, table)) {
+                    oversized.add(i);
+                    break;
+                }
+            }
+        }
+        table.resetRowPosition();
+        return oversized;
+    }
+
+    /**
+     * Mirror the EE's check: a VARCHAR column is sized in characters unless it
+     * was declared in bytes, where a character is any byte that is not a UTF-8
+     * continuation byte.
+     */
+    private static boolean isTooWide(Column col, VoltTable table) {
+        int index = col.getIndex();
+        int maxLength = col.getSize();
+        if (col.getType() == VoltType.VARBINARY.getValue()) {
+            byte[] value = table.getVarbinary(index);
+            return !table.wasNull() && value.length > maxLength;
+        }
+        byte[] value = table.getStringAsBytes(index);
+        if (table.wasNull() || value.length <= maxLength) {
+            return false;
+        }
+        if (col.getInbytes()) {
+            return true;
+        }
+        int chars = 0;
+        for (byte b : value) {
+            if ((b & 0xc0) != 0x80) {
+                ++chars;
+            }
+        }
+        return chars > maxLength;
+    }
+
+    /**
+     * The EE returns the rows it skipped, in load order, but not their positions.
+     * Since they are a subsequence of the loaded rows, walk both backwards so a
+     * row repeated within the batch is blamed on its later copies, which are the
+     * ones that collided with the first.
+     *
+     * @return the positions of the conflict rows within loaded, in order.
+     */
+    private static List<Integer> matchConflictRows(VoltTable loaded, VoltTable conflicts) {
+        int columnCount = loaded.getColumnCount();
+        List<Integer> positions = new ArrayList<>();
+        int row = loaded.getRowCount() - 1;
+        for (int c = conflicts.getRowCount() - 1; c >= 0; --c) {
+            VoltTableRow conflict = conflicts.fetchRow(c);
+            for (; row >= 0; --row) {
+                VoltTableRow candidate = loaded.fetchRow(row);
+                boolean same = true;
+                for (int col = 0; same && col < columnCount; ++col) {
+                    VoltType type = loaded.getColumnType(col);
+                    same = Objects.deepEquals(candidate.get(col, type), conflict.get(col, type));
+                }
+                if (same) {
+                    break;
+                }
+            }
+            // the EE returns the loaded values unchanged, so every conflict has a match
+            assert(row >= 0);
+            if (row < 0) {
+                break;
+            }
+            positions.add(0, row--);
+        }
+        return positions;
+    }
+
+    /**
+     * The insert plan rejects mispartitioned tuples in the EE, but a direct
+     * table load does not, so check every row against this site's partition.
+     *
+     * @throws VoltAbortException if any row hashes to another partition.
+     */
+    private static void checkPartitioning(SystemProcedureExecutionContext ctx, Table catTable, VoltTable table)
+            throws VoltAbortException {
+        int pIndex = catTable.getPartitioncolumn().getIndex();
+        VoltType pType = table.getColumnType(pIndex);
+        int partitionId = ctx.getPartitionId();
+        // hash with this site's hashinator, which can differ from the global one during elastic join
+        TheHashinator hashinator = ctx.getCurrentHashinator();
+        table.resetRowPosition();
+        while (table.advanceRow()) {
+            if (hashinator.getHashedPartitionForParameter(pType, table.get(pIndex, pType)) != partitionId) {
+                throw new VoltAbortException(
+                        String.format("Mispartitioned tuple in single-partition load of table %s.",
+                                catTable.getTypeName()));
+            }
+        }
+        table.resetRowPosition();
     }
 
     /**
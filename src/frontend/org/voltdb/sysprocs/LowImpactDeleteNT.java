@@ -117,6 +117,10 @@ public class LowImpactDeleteNT extends VoltNTSystemProcedure {
         final AtomicLong rowsDeleted;
         long rowsLeft;
         long rowsJustDeleted;
+        // slowest partition of the most expensive nibble delete, in nanoseconds
+        long maxElapsedNanos;
+        // first remaining value in delete order across all partitions, null if unknown
+        Long frontier;
         String errorMessages;
 
         NibbleStatus(long rowsLeft, long rowsJustDeleted, String errorMessages) {
@@ -125,6 +129,30 @@ public class LowImpactDeleteNT extends VoltNTSystemProcedure {
             rowsDeleted = new AtomicLong(rowsJustDeleted);
             this.errorMessages = errorMessages;
         }
+
+        NibbleStatus(long rowsLeft, long rowsJustDeleted, long maxElapsedNanos, Long frontier) {
+            this(rowsLeft, rowsJustDeleted, "");
+            this.maxElapsedNanos = maxElapsedNanos;
+            this.frontier = frontier;
+        }
+    }
+
+    /**
+     * Keep the value that comes first in delete order: the smallest one when deleting
+     * rows below the cutoff, the largest one when deleting rows above it.
+     */
+    static Long mergeFrontier(ComparisonOperation op, Long current, VoltTable result) {
+        long value = result.getLong("FRONTIER_VALUE");
+        if (result.wasNull()) {
+            return current;
+        }
+        if (current == null) {
+            return value;
+        }
+        if (op == ComparisonOperation.GT || op == ComparisonOperation.GTE) {
+            return Math.max(current, value);
+        }
+        return Math.min(current, value);
     }
 
     NibbleStatus runNibbleDeleteOperation(
@@ -136,6 +164,9 @@ public class LowImpactDeleteNT extends VoltNTSystemProcedure {
             boolean isReplicated) {
         long rowsJustDeleted = 0;
         long rowsLeft = 0;
+        long maxElapsedNanos = 0;
+        Long frontier = null;
+        ComparisonOperation op = ComparisonOperation.fromString(comparisonOp);
         int ONE = 1;
         VoltTable parameter = new VoltTable(new ColumnInfo[] {
                 new ColumnInfo("col1", VoltType.typeFromObject(value)),
@@ -157,6 +188,8 @@ public class LowImpactDeleteNT extends VoltNTSystemProcedure {
                     result.advanceRow();
                     rowsJustDeleted = result.getLong("DELETED_ROWS");
                     rowsLeft = result.getLong("LEFT_ROWS");
+                    maxElapsedNanos = result.getLong("ELAPSED_NANOS");
+                    frontier = mergeFrontier(op, frontier, result);
                     break;
                 case ClientResponse.RESPONSE_UNKNOWN:
                     // Could because node failure, nothing to do here I guess
@@ -190,6 +223,8 @@ public class LowImpactDeleteNT extends VoltNTSystemProcedure {
                     result.advanceRow();
                     rowsJustDeleted += result.getLong("DELETED_ROWS");
                     rowsLeft += result.getLong("LEFT_ROWS");
+                    maxElapsedNanos = Math.max(maxElapsedNanos, result.getLong("ELAPSED_NANOS"));
+                    frontier = mergeFrontier(op, frontier, result);
                     break;
                 case ClientResponse.RESPONSE_UNKNOWN:
                     // Could because node failure, nothing to do here I guess
@@ -199,7 +234,7 @@ public class LowImpactDeleteNT extends VoltNTSystemProcedure {
                 }
             }
         }
-        return new NibbleStatus(rowsLeft, rowsJustDeleted, "");
+        return new NibbleStatus(rowsLeft, rowsJustDeleted, maxElapsedNanos, frontier);
     }
 
     public VoltTable run(String tableName, String columnName, String valueStr, String comparisonOp, long chunksize, long timeoutms, long maxFrequency, long interval) {
@@ -209,7 +244,9 @@ public class LowImpactDeleteNT extends VoltNTSystemProcedure {
                                 new ColumnInfo("DELETED_LAST_ROUND", VoltType.BIGINT),
                                 new ColumnInfo("LAST_DELETE_TIMESTAMP", VoltType.BIGINT),
                                 new ColumnInfo("STATUS", VoltType.BIGINT),
-                                new ColumnInfo("MESSAGE", VoltType.STRING));
+                                new ColumnInfo("MESSAGE", VoltType.STRING),
+                                new ColumnInfo("MAX_PARTITION_NANOS", VoltType.BIGINT),
+                                new ColumnInfo("FRONTIER_VALUE", VoltType.BIGINT));
 
         // collect all the validated info and metadata needed
         // these throw helpful errors if they run into problems
@@ -231,7 +268,7 @@ public class LowImpactDeleteNT extends VoltNTSystemProcedure {
         // If any partition receive failure, report the delete status plus the error message back.
         if (!status.errorMessages.isEmpty()) {
             returnTable.addRow(status.rowsJustDeleted, rowsLeft, status.rowsJustDeleted, System.currentTimeMillis(),
-                    ClientResponse.GRACEFUL_FAILURE, status.errorMessages);
+                    ClientResponse.GRACEFUL_FAILURE, status.errorMessages, status.maxElapsedNanos, status.frontier);
             return returnTable;
         }
         // handle the case where we're jammed from the start (no rows deleted)
@@ -245,7 +282,7 @@ public class LowImpactDeleteNT extends VoltNTSystemProcedure {
         int attemptsLeft = (int)Math.min((long)Math.ceil((double)rowsLeft/(double)chunksize), (maxFrequency-1));
         if (attemptsLeft == 0) {
             returnTable.addRow(status.rowsJustDeleted, rowsLeft, status.rowsJustDeleted, System.currentTimeMillis(),
-                    ClientResponse.SUCCESS, "");
+                    ClientResponse.SUCCESS, "", status.maxElapsedNanos, status.frontier);
             return returnTable;
         }
 
@@ -275,9 +312,13 @@ public class LowImpactDeleteNT extends VoltNTSystemProcedure {
                     success.set(false);
                 } else {
                     status.rowsDeleted.addAndGet(thisStatus.rowsJustDeleted);
+                    if (thisStatus.maxElapsedNanos > status.maxElapsedNanos) {
+                        status.maxElapsedNanos = thisStatus.maxElapsedNanos;
+                    }
                     if (attempt == (attemptsLeft-1)) {
                         status.rowsLeft = thisStatus.rowsLeft;
                         status.rowsJustDeleted = thisStatus.rowsJustDeleted;
+                        status.frontier = thisStatus.frontier;
                     }
                 }
                 latch.countDown();
@@ -308,7 +349,9 @@ public class LowImpactDeleteNT extends VoltNTSystemProcedure {
                 status.rowsJustDeleted,
                 System.currentTimeMillis(),
                 success.get() ? ClientResponse.SUCCESS : ClientResponse.GRACEFUL_FAILURE,
-                success.get() ? "" : Arrays.toString(errors));
+                success.get() ? "" : Arrays.toString(errors),
+                status.maxElapsedNanos,
+                status.frontier);
         return returnTable;
     }
 }
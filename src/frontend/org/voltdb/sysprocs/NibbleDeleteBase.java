@@ -35,6 +35,7 @@ import org.voltdb.VoltDB;
 import org.voltdb.VoltSystemProcedure;
 import org.voltdb.VoltTable;
 import org.voltdb.VoltTable.ColumnInfo;
+import org.voltdb.VoltTableRow;
 import org.voltdb.VoltType;
 import org.voltdb.catalog.Column;
 import org.voltdb.catalog.ColumnRef;
@@ -43,6 +44,7 @@ import org.voltdb.catalog.Procedure;
 import org.voltdb.catalog.Statement;
 import org.voltdb.catalog.Table;
 import org.voltdb.sysprocs.LowImpactDeleteNT.ComparisonOperation;
+import org.voltdb.types.TimestampType;
 
 public class NibbleDeleteBase extends VoltSystemProcedure {
 
@@ -50,7 +52,9 @@ public class NibbleDeleteBase extends VoltSystemProcedure {
 
     private static ColumnInfo[] schema = new ColumnInfo[] {
             new ColumnInfo("DELETED_ROWS", VoltType.BIGINT),  /* number of rows be deleted in this invocation */
-            new ColumnInfo("LEFT_ROWS", VoltType.BIGINT) /* number of rows to be deleted after this invocation */
+            new ColumnInfo("LEFT_ROWS", VoltType.BIGINT), /* number of rows to be deleted after this invocation */
+            new ColumnInfo("ELAPSED_NANOS", VoltType.BIGINT), /* time spent executing the statements in this invocation */
+            new ColumnInfo("FRONTIER_VALUE", VoltType.BIGINT) /* first remaining value in delete order, NULL if unknown */
     };
 
     public long[] getPlanFragmentIds() {
@@ -125,6 +129,61 @@ public class NibbleDeleteBase extends VoltSystemProcedure {
       return indexCount > 0;
   }
 
+    /**
+     * Convert a value of the delete column to a BIGINT so that it can be reported back
+     * as the delete frontier. TIMESTAMP values are reported in microseconds.
+     *
+     * @return the value as a long, or null if the column type has no integral representation.
+     */
+    static Long frontierAsLong(Object value) {
+        if (value instanceof TimestampType) {
+            return ((TimestampType) value).getTime();
+        }
+        if (value instanceof Byte || value instanceof Short ||
+                value instanceof Integer || value instanceof Long) {
+            return ((Number) value).longValue();
+        }
+        return null;
+    }
+
+    /**
+     * Whether the frontier (first remaining value in delete order) already lies beyond
+     * the cutoff, in which case no row can meet the delete criteria.
+     */
+    static boolean isPastCutoff(ComparisonOperation op, long frontier, long cutoff) {
+        switch (op) {
+        case LT:
+            return frontier >= cutoff;
+        case LTE:
+            return frontier > cutoff;
+        case GT:
+            return frontier <= cutoff;
+        case GTE:
+            return frontier < cutoff;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Fetch the first value in delete order with a single index probe.
+     *
+     * @return the frontier as a long, or null if the table is empty, the value is NULL or
+     *         the column type is not integral.
+     */
+    Long fetchFrontier(Statement valueAtStmt, VoltType type, boolean replicated) {
+        VoltTable result = executePrecompiledSQL(valueAtStmt, new Object[] { 0L }, replicated);
+        if (result.getRowCount() == 0) {
+            return null;
+        }
+        VoltTableRow row = result.fetchRow(0);
+        Object value = row.get(0, type);
+        if (row.wasNull()) {
+            return null;
+        }
+        return frontierAsLong(value);
+    }
+
     VoltTable nibbleDeleteCommon(SystemProcedureExecutionContext ctx,
                                  String tableName,
                                  String columnName,
@@ -201,6 +260,23 @@ public class NibbleDeleteBase extends VoltSystemProcedure {
                             tableName));
         }
 
+        final long startNanos = System.nanoTime();
+        final Long cutoff = frontierAsLong(params[0]);
+        VoltTable retTable = new VoltTable(schema);
+
+        // The countable index keeps the rows in delete order, so the first value in that order
+        // acts as a cursor on the expired range. When it already lies beyond the cutoff there is
+        // nothing to do, and an idle partition is left after one index probe instead of a
+        // count and an empty delete.
+        Long frontier = null;
+        if (op != ComparisonOperation.EQ && cutoff != null) {
+            frontier = fetchFrontier(valueAtStmt, actualType, replicated);
+            if (frontier != null && isPastCutoff(op, frontier, cutoff)) {
+                retTable.addRow(0L, 0L, System.nanoTime() - startNanos, frontier);
+                return retTable;
+            }
+        }
+
         Object cutoffValue = null;
         VoltTable result = null;
         result = executePrecompiledSQL(countStmt, params, replicated);
@@ -221,9 +297,13 @@ public class NibbleDeleteBase extends VoltSystemProcedure {
                                        replicated);
         long deletedRows = result.asScalarLong();
 
+        // Advance the cursor so the caller can tell how far behind the delete is
+        if (op != ComparisonOperation.EQ && cutoff != null) {
+            frontier = fetchFrontier(valueAtStmt, actualType, replicated);
+        }
+
         // Return rows be deleted in this run and rows left for next run
-        VoltTable retTable = new VoltTable(schema);
-        retTable.addRow(deletedRows, rowCount - deletedRows);
+        retTable.addRow(deletedRows, rowCount - deletedRows, System.nanoTime() - startNanos, frontier);
         return retTable;
     }
 }
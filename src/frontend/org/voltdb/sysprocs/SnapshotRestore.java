@@ -42,6 +42,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -205,6 +206,86 @@ public class SnapshotRestore extends VoltSystemProcedure {
     static long m_nextReportTime = 0;
     //Report every minute.
     static final long m_reportInterval = 60000;
+
+    /*
+     * Maximum number of chunk load fragments a partitioned table restore keeps outstanding
+     * at each target site. 1 waits for every chunk to be loaded before sending the next one.
+     */
+    private static final int m_restorePipelineDepth =
+            Math.max(1, Integer.getInteger("SNAPSHOT_RESTORE_PIPELINE_DEPTH", 4));
+
+    /*
+     * Threads shared by all the restore save files to CRC and decompress chunks,
+     * 0 leaves that work on each file's chunk reader thread.
+     */
+    private static final int m_restoreDecoderThreads =
+            Integer.getInteger("SNAPSHOT_RESTORE_DECODER_THREADS",
+                               Math.max(1, CoreUtils.availableProcessors() / 2));
+    private static ExecutorService m_restoreDecoder = null;
+
+    /**
+     * Rows and bytes loaded into one partition of a table by the restore in progress
+     * on this host. Reported by @SnapshotStatus until the restore completes.
+     */
+    public static class RestoreProgress {
+        public final String tableName;
+        public final int partitionId;
+        public final long startTime = System.currentTimeMillis();
+        private final AtomicLong m_rows = new AtomicLong(0);
+        private final AtomicLong m_bytes = new AtomicLong(0);
+        private volatile long m_lastLoadTime = startTime;
+
+        private RestoreProgress(String tableName, int partitionId) {
+            this.tableName = tableName;
+            this.partitionId = partitionId;
+        }
+
+        public long getRows() {
+            return m_rows.get();
+        }
+
+        public long getBytes() {
+            return m_bytes.get();
+        }
+
+        public long getLastLoadTime() {
+            return m_lastLoadTime;
+        }
+    }
+
+    private static final Map<Pair<String, Integer>, RestoreProgress> m_restoreProgress =
+            new ConcurrentHashMap<Pair<String, Integer>, RestoreProgress>();
+
+    public static List<RestoreProgress> getRestoreProgress() {
+        return new ArrayList<RestoreProgress>(m_restoreProgress.values());
+    }
+
+    public static String getRestorePath() {
+        return m_filePath;
+    }
+
+    public static String getRestoreNonce() {
+        return m_fileNonce;
+    }
+
+    static void clearRestoreProgress() {
+        m_restoreProgress.clear();
+    }
+
+    static void recordLoadProgress(String tableName, int partitionId, long rows, long bytes) {
+        Pair<String, Integer> key = Pair.of(tableName, partitionId);
+        RestoreProgress progress = m_restoreProgress.get(key);
+        if (progress == null) {
+            RestoreProgress newProgress = new RestoreProgress(tableName, partitionId);
+            progress = m_restoreProgress.putIfAbsent(key, newProgress);
+            if (progress == null) {
+                progress = newProgress;
+            }
+        }
+        progress.m_rows.addAndGet(rows);
+        progress.m_bytes.addAndGet(bytes);
+        progress.m_lastLoadTime = System.currentTimeMillis();
+    }
     static DateFormat m_reportDateFormat = new SimpleDateFormat("HH:mm:ss");
 
     private static synchronized void initializeTableSaveFiles(
@@ -660,6 +741,10 @@ public class SnapshotRestore extends VoltSystemProcedure {
             long coordinatorHSId = (Long)paramsArray[0];
             Mailbox m = VoltDB.instance().getHostMessenger().createMailbox();
             m_mbox = m;
+            if (context.isLowestSiteId()) {
+                // Forget the progress of a previous restore that didn't terminate cleanly
+                clearRestoreProgress();
+            }
             if(TRACE_LOG.isTraceEnabled()){
                 TRACE_LOG.trace(
                         "Entering async run loop at " + CoreUtils.hsIdToString(context.getSiteId()) +
@@ -729,6 +814,9 @@ public class SnapshotRestore extends VoltSystemProcedure {
                         m.send(ftm.getCoordinatorHSId(), frm);
                     }
                 } else if (vm instanceof BinaryPayloadMessage) {
+                    if (context.isLowestSiteId()) {
+                        clearRestoreProgress();
+                    }
                     if (context.isLowestSiteId() && m_duplicateRowHandler != null) {
                         try {
                             m_duplicateRowHandler.close();
@@ -780,8 +868,9 @@ public class SnapshotRestore extends VoltSystemProcedure {
             String error_msg = "";
             long cnt = 0;
             try {
+                final byte tableBytes[] = CompressionService.decompressBytes(compressedTable);
                 VoltTable table = PrivateVoltTableFactory.createVoltTableFromBuffer(
-                                ByteBuffer.wrap(CompressionService.decompressBytes(compressedTable)), true);
+                                ByteBuffer.wrap(tableBytes), true);
                 @SuppressWarnings("deprecation")
                 byte uniqueViolations[] =
                         DeprecatedProcedureAPIAccess.voltLoadTable(
@@ -799,6 +888,7 @@ public class SnapshotRestore extends VoltSystemProcedure {
                 }
                 handleUniqueViolations(table_name, uniqueViolations, checkUniqueViolations, context);
                 cnt = table.getRowCount();
+                recordLoadProgress(table_name, context.getPartitionId(), cnt, tableBytes.length);
             } catch (Exception e) {
                 result_str = "FAILURE";
                 error_msg = CoreUtils.throwableToString(e);
@@ -1435,7 +1525,7 @@ public class SnapshotRestore extends VoltSystemProcedure {
             startAction == StartAction.CREATE && mode != org.voltdb.OperationMode.INITIALIZING;
 
         final boolean isCLEnabled =
-            VoltDB.instance().getCommandLog().getClass().getSimpleName().equals("CommandLogImpl");
+            VoltDB.instance().getCommandLog().isEnabled();
 
         final boolean isStartedWithCreateAction = startAction == StartAction.CREATE;
 
@@ -1675,9 +1765,21 @@ public class SnapshotRestore extends VoltSystemProcedure {
                         savefile_input,
                         readAheadChunks,
                         relevantPartitionIds);
+        ExecutorService decoder = getRestoreDecoder();
+        if (decoder != null) {
+            savefile.setChunkDecoder(decoder);
+        }
         return savefile;
             }
 
+    private static synchronized ExecutorService getRestoreDecoder() {
+        if (m_restoreDecoder == null && m_restoreDecoderThreads > 0) {
+            m_restoreDecoder = CoreUtils.getListeningExecutorService(
+                    "Snapshot Restore Decoder", m_restoreDecoderThreads);
+        }
+        return m_restoreDecoder;
+    }
+
     /*
      * Block the execution site thread distributing the async mailbox fragment.
      * Has to be done from this thread because it uses the existing plumbing
@@ -2575,6 +2677,7 @@ public class SnapshotRestore extends VoltSystemProcedure {
             final boolean preserveDRHiddenColumn =
                 DrRoleType.XDCR.value().equals(m_cluster.getDrrole()) && new_catalog_table.getIsdred();
             final boolean preserveViewHiddenColumn = CatalogUtil.needsViewHiddenColumn(new_catalog_table);
+            final RestoreFragmentPipeline pipeline = new RestoreFragmentPipeline(m_mbox, m_restorePipelineDepth);
             while (hasMoreChunks()) {
                 VoltTable table = null;
 
@@ -2686,8 +2789,9 @@ public class SnapshotRestore extends VoltSystemProcedure {
                 }
                 assert(pfs.length == pfs_index+1);
                 pfs[pfs_index] = aggregatorFragment;
-                VoltTable[] results = executeSysProcPlanFragments(pfs, m_mbox);
-                VoltTable vt = results[0];
+                pipeline.submit(pfs);
+            }
+            for (VoltTable vt : pipeline.drain()) {
                 if (firstResult == null) {
                     firstResult = vt;
                 }
@@ -2897,34 +3001,7 @@ public class SnapshotRestore extends VoltSystemProcedure {
         for (int ii = 0; ii < pfs.length - 1; ii++) {
             SynthesizedPlanFragment pf = pfs[ii];
             dependencyIds.add(pf.outputDepId);
-
-            if(TRACE_LOG.isTraceEnabled()){
-                TRACE_LOG.trace(
-                        "Sending fragment " + pf.fragmentId + " dependency " + pf.outputDepId +
-                        " from " + CoreUtils.hsIdToString(m.getHSId()) + "-" +
-                        CoreUtils.hsIdToString(m_site.getCorrespondingSiteId()) + " to " +
-                        CoreUtils.hsIdToString(pf.siteId));
-            }
-            /*
-             * The only real data is the fragment id, output dep id,
-             * and parameters. Transactions ids, readonly-ness, and finality-ness
-             * are unused.
-             */
-            FragmentTaskMessage ftm =
-                    FragmentTaskMessage.createWithOneFragment(
-                            0,
-                            m.getHSId(),
-                            0,
-                            0,
-                            false,
-                            fragIdToHash(pf.fragmentId),
-                            pf.outputDepId,
-                            pf.parameters,
-                            false,
-                            m_runner.getTxnState().isForReplay(),
-                            false,
-                            m_runner.getTxnState().getTimetamp());
-            m.send(pf.siteId, ftm);
+            sendRestoreFragment(pf, m);
         }
 
         /*
@@ -2945,16 +3022,7 @@ public class SnapshotRestore extends VoltSystemProcedure {
             if (vm == null) continue;
 
             if (vm instanceof FragmentTaskMessage) {
-                FragmentTaskMessage ftm = (FragmentTaskMessage)vm;
-                DependencyPair dp =
-                        m_runner.executeSysProcPlanFragment(
-                                m_runner.getTxnState(),
-                                null,
-                                hashToFragId(ftm.getPlanHash(0)),
-                                ftm.getParameterSetForFragment(0));
-                FragmentResponseMessage frm = new FragmentResponseMessage(ftm, m.getHSId());
-                frm.addDependency(dp);
-                m.send(ftm.getCoordinatorHSId(), frm);
+                executeRestoreFragmentTask((FragmentTaskMessage)vm, m);
 
                 if (!m_unexpectedDependencies.isEmpty()) {
                     for (Integer dependencyId : dependencyIds) {
@@ -3017,6 +3085,193 @@ public class SnapshotRestore extends VoltSystemProcedure {
         return results;
     }
 
+    /*
+     * Send a single restore plan fragment to the site (restore mailbox) it targets.
+     */
+    private void sendRestoreFragment(SynthesizedPlanFragment pf, Mailbox m) {
+        if(TRACE_LOG.isTraceEnabled()){
+            TRACE_LOG.trace(
+                    "Sending fragment " + pf.fragmentId + " dependency " + pf.outputDepId +
+                    " from " + CoreUtils.hsIdToString(m.getHSId()) + "-" +
+                    CoreUtils.hsIdToString(m_site.getCorrespondingSiteId()) + " to " +
+                    CoreUtils.hsIdToString(pf.siteId));
+        }
+        /*
+         * The only real data is the fragment id, output dep id,
+         * and parameters. Transactions ids, readonly-ness, and finality-ness
+         * are unused.
+         */
+        FragmentTaskMessage ftm =
+                FragmentTaskMessage.createWithOneFragment(
+                        0,
+                        m.getHSId(),
+                        0,
+                        0,
+                        false,
+                        fragIdToHash(pf.fragmentId),
+                        pf.outputDepId,
+                        pf.parameters,
+                        false,
+                        m_runner.getTxnState().isForReplay(),
+                        false,
+                        m_runner.getTxnState().getTimetamp());
+        m.send(pf.siteId, ftm);
+    }
+
+    /*
+     * Execute a restore plan fragment sent to this site while it is waiting on its own
+     * dependencies and send the result back to the coordinator of the fragment
+     */
+    private void executeRestoreFragmentTask(FragmentTaskMessage ftm, Mailbox m) {
+        DependencyPair dp =
+                m_runner.executeSysProcPlanFragment(
+                        m_runner.getTxnState(),
+                        null,
+                        hashToFragId(ftm.getPlanHash(0)),
+                        ftm.getParameterSetForFragment(0));
+        FragmentResponseMessage frm = new FragmentResponseMessage(ftm, m.getHSId());
+        frm.addDependency(dp);
+        m.send(ftm.getCoordinatorHSId(), frm);
+    }
+
+    /*
+     * Pipelined counterpart of executeSysProcPlanFragments(pfs, m) used to stream the chunks of a
+     * partitioned table. Each submitted batch has the same shape (fragments 0 - (N - 1) are loads with
+     * a single output dependency, fragment N aggregates them), but instead of waiting for every batch
+     * to complete before sending the next one, up to m_restorePipelineDepth load fragments are
+     * kept outstanding at each target site. A batch only waits for room at the sites it targets,
+     * so the sites are fed concurrently and a slow site doesn't stall the file reader until its
+     * queue is full.
+     *
+     * Dependencies are matched the same way as executeSysProcPlanFragments: responses that don't
+     * belong to an in flight batch are stashed in m_unexpectedDependencies for whoever is waiting on them,
+     * and stashed responses that belong to a batch are claimed after executing a nested fragment.
+     */
+    private class RestoreFragmentPipeline {
+        private final Mailbox m_mb;
+        private final int m_maxOutstandingPerSite;
+        // Number of load fragments sent to each site that haven't responded yet
+        private final Map<Long, MutableInt> m_outstanding = new HashMap<>();
+        private final Map<Integer, Batch> m_batchesByDependency = new HashMap<>();
+        private final List<VoltTable> m_results = new ArrayList<>();
+        private int m_inFlightBatches = 0;
+
+        private class Batch {
+            final SynthesizedPlanFragment m_pfs[];
+            final Map<Integer, Long> m_dependencySites = new HashMap<>();
+            final Map<Integer, List<VoltTable>> m_received = new HashMap<>();
+
+            Batch(SynthesizedPlanFragment pfs[]) {
+                m_pfs = pfs;
+                for (int ii = 0; ii < pfs.length - 1; ii++) {
+                    m_dependencySites.put(pfs[ii].outputDepId, pfs[ii].siteId);
+                }
+            }
+        }
+
+        RestoreFragmentPipeline(Mailbox m, int maxOutstandingPerSite) {
+            m_mb = m;
+            m_maxOutstandingPerSite = maxOutstandingPerSite;
+        }
+
+        /*
+         * Send the load fragments of a batch once every site it targets has room for one more
+         */
+        void submit(SynthesizedPlanFragment pfs[]) {
+            while (!hasRoom(pfs)) {
+                pump();
+            }
+            Batch batch = new Batch(pfs);
+            m_inFlightBatches++;
+            if (pfs.length == 1) {
+                complete(batch);
+                return;
+            }
+            for (int ii = 0; ii < pfs.length - 1; ii++) {
+                SynthesizedPlanFragment pf = pfs[ii];
+                m_batchesByDependency.put(pf.outputDepId, batch);
+                MutableInt depth = m_outstanding.get(pf.siteId);
+                if (depth == null) {
+                    depth = new MutableInt(0);
+                    m_outstanding.put(pf.siteId, depth);
+                }
+                depth.increment();
+                sendRestoreFragment(pf, m_mb);
+            }
+        }
+
+        /*
+         * Wait for every submitted batch and return the result of each aggregator fragment
+         */
+        List<VoltTable> drain() {
+            while (m_inFlightBatches > 0) {
+                pump();
+            }
+            return m_results;
+        }
+
+        private boolean hasRoom(SynthesizedPlanFragment pfs[]) {
+            for (int ii = 0; ii < pfs.length - 1; ii++) {
+                MutableInt depth = m_outstanding.get(pfs[ii].siteId);
+                if (depth != null && depth.intValue() >= m_maxOutstandingPerSite) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void pump() {
+            //Lightly spinning makes debugging easier by allowing inspection
+            //of stuff on the stack
+            VoltMessage vm = m_mb.recvBlocking(1000);
+            if (vm == null) return;
+
+            if (vm instanceof FragmentTaskMessage) {
+                executeRestoreFragmentTask((FragmentTaskMessage)vm, m_mb);
+                if (!m_unexpectedDependencies.isEmpty()) {
+                    for (Integer dependencyId : new ArrayList<>(m_batchesByDependency.keySet())) {
+                        List<VoltTable> stashed = m_unexpectedDependencies.remove(dependencyId);
+                        if (stashed != null) {
+                            received(dependencyId, stashed);
+                        }
+                    }
+                }
+            } else if (vm instanceof FragmentResponseMessage) {
+                FragmentResponseMessage frm = (FragmentResponseMessage)vm;
+                final int dependencyId = frm.getTableDependencyIdAtIndex(0);
+                List<VoltTable> table = Arrays.asList(new VoltTable[] {frm.getTableAtIndex(0)});
+                if (m_batchesByDependency.containsKey(dependencyId)) {
+                    received(dependencyId, table);
+                } else if (m_unexpectedDependencies.put(dependencyId, table) != null) {
+                    /*
+                     * Stash the dependency intended for a different fragment
+                     */
+                    VoltDB.crashGlobalVoltDB("Received a duplicate dependency", true, null);
+                }
+            }
+        }
+
+        private void received(int dependencyId, List<VoltTable> table) {
+            Batch batch = m_batchesByDependency.remove(dependencyId);
+            batch.m_received.put(dependencyId, table);
+            m_outstanding.get(batch.m_dependencySites.get(dependencyId)).decrement();
+            if (batch.m_received.size() == batch.m_dependencySites.size()) {
+                complete(batch);
+            }
+        }
+
+        private void complete(Batch batch) {
+            SynthesizedPlanFragment aggregator = batch.m_pfs[batch.m_pfs.length - 1];
+            m_results.add(
+                    m_runner.executeSysProcPlanFragment(
+                            m_runner.getTxnState(),
+                            batch.m_received,
+                            aggregator.fragmentId,
+                            aggregator.parameters).getTableDependency());
+            m_inFlightBatches--;
+        }
+    }
+
     private List<String> tableOptParser(JSONArray raw) {
         List<String> ret = new ArrayList<>();
         if(raw == null || raw.length() == 0) {
@@ -26,9 +26,12 @@ import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.ArrayDeque;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.zip.Checksum;
@@ -384,6 +387,16 @@ public class TableSaveFile
         return m_timestamp;
     }
 
+    /**
+     * Move CRC validation and decompression of version 2 chunks off the chunk reader thread
+     * onto the provided pool, so the reader only does I/O. Chunks may then be returned
+     * by getNextChunk() out of file order. Must be called before the first call to getNextChunk().
+     */
+    public synchronized void setChunkDecoder(ExecutorService decoder) {
+        assert(m_chunkReader == null);
+        m_decoder = decoder;
+    }
+
     public void close() throws IOException {
         Thread chunkReader;
         synchronized (this) {
@@ -401,6 +414,14 @@ public class TableSaveFile
         }
 
         synchronized (this) {
+            // Chunks still on the decoder pool will be published, wait so they can be freed
+            while (m_pendingDecodes > 0) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
             while (!m_availableChunks.isEmpty()) {
                 m_availableChunks.poll().discard();
             }
@@ -414,6 +435,9 @@ public class TableSaveFile
         while ((cont = m_buffers.poll()) != null) {
             cont.discard();
         }
+        while ((cont = m_inputBuffers.poll()) != null) {
+            cont.discard();
+        }
     }
 
     public Set<Integer> getCorruptedPartitionIds() {
@@ -430,7 +454,7 @@ public class TableSaveFile
         if (m_chunkReaderException != null) {
             throw m_chunkReaderException;
         }
-        if (!m_hasMoreChunks.get()) {
+        if (!m_hasMoreChunks.get() && m_pendingDecodes == 0) {
             final Container c = m_availableChunks.poll();
             return c;
         }
@@ -442,7 +466,7 @@ public class TableSaveFile
         }
 
         Container c = null;
-        while (c == null && (m_hasMoreChunks.get() || !m_availableChunks.isEmpty())) {
+        while (c == null && (m_hasMoreChunks.get() || m_pendingDecodes > 0 || !m_availableChunks.isEmpty())) {
             c = m_availableChunks.poll();
             if (c == null) {
                 try {
@@ -467,7 +491,7 @@ public class TableSaveFile
         if (m_chunkReaderException != null) {
             throw m_chunkReaderException;
         }
-        return m_hasMoreChunks.get() || !m_availableChunks.isEmpty();
+        return m_hasMoreChunks.get() || m_pendingDecodes > 0 || !m_availableChunks.isEmpty();
     }
 
     // thread safe file channels
@@ -504,7 +528,7 @@ public class TableSaveFile
      * Maintain a list of corrupted partitions. It is possible for uncorrupted partitions
      * to be recovered from a save file in the future
      */
-    private final HashSet<Integer> m_corruptedPartitions = new HashSet<Integer>();
+    private final Set<Integer> m_corruptedPartitions = Collections.synchronizedSet(new HashSet<Integer>());
 
     /**
      * Ignore corrupted chunks and continue validation of the rest of the chunks.
@@ -518,7 +542,15 @@ public class TableSaveFile
 
     private ChunkReader m_chunkReader = null;
     private Thread m_chunkReaderThread = null;
-    private IOException m_chunkReaderException = null;
+    private volatile IOException m_chunkReaderException = null;
+
+    /**
+     * Optional pool that CRCs and decompresses version 2 chunks, along with the number of chunks
+     * handed to it that haven't been published or dropped yet, and the recycled input buffers
+     */
+    private ExecutorService m_decoder = null;
+    private int m_pendingDecodes = 0;
+    private final ConcurrentLinkedQueue<BBContainer> m_inputBuffers = new ConcurrentLinkedQueue<BBContainer>();
 
     /**
      * Thread to read chunks from the disk
@@ -530,10 +562,10 @@ public class TableSaveFile
          * that should be easier to understand and validate.
          */
         private void readChunksV2() {
-            //For reading the compressed input.
-            final BBContainer fileInputBufferC =
-                    DBBPool.allocateDirect(CompressionService.maxCompressedLength(DEFAULT_CHUNKSIZE));
-            final ByteBuffer fileInputBuffer = fileInputBufferC.b();
+            //For reading the compressed input. With a decoder pool each chunk
+            //in flight owns its own input buffer, they are recycled through m_inputBuffers
+            final ExecutorService decoder = m_decoder;
+            BBContainer fileInputBufferC = null;
             long sinceLastFAdvise = Long.MAX_VALUE;
             long positionAtLastFAdvise = 0;
 
@@ -580,9 +612,15 @@ public class TableSaveFile
                 try {
                     m_chunkReads.acquire();
                 } catch (InterruptedException e) {
-                    fileInputBufferC.discard();
+                    if (fileInputBufferC != null) {
+                        fileInputBufferC.discard();
+                    }
                     return;
                 }
+                if (fileInputBufferC == null) {
+                    fileInputBufferC = getInputBuffer();
+                }
+                final ByteBuffer fileInputBuffer = fileInputBufferC.b();
                 boolean expectedAnotherChunk = false;
                 Container c = null;
                 try {
@@ -643,10 +681,8 @@ public class TableSaveFile
                     }
 
                     /*
-                     * Go fetch the compressed data so that the uncompressed size is known
-                     * and use that to set nextChunkLength to be the uncompressed length,
-                     * the code ahead that constructs the volt table is expecting
-                     * the uncompressed size/data since it is producing an uncompressed table
+                     * Go fetch the compressed data, the CRC and decompression are done
+                     * by decodeChunkV2 either here or on the decoder pool
                      */
                     fileInputBuffer.clear();
                     fileInputBuffer.limit(nextChunkLength);
@@ -658,84 +694,26 @@ public class TableSaveFile
                         sinceLastFAdvise += read;
                     }
                     fileInputBuffer.flip();
-                    nextChunkLength = CompressionService.uncompressedLength(fileInputBuffer);
 
-                    /*
-                     * Validate the rest of the chunk. This can fail if the data is corrupted
-                     * or the length value was corrupted.
-                     */
-                    final int calculatedCRC =
-                            DBBPool.getBufferCRC32C(fileInputBuffer, 0, fileInputBuffer.remaining());
-                    if (calculatedCRC != nextChunkCRC) {
-                        m_corruptedPartitions.add(nextChunkPartitionId);
-                        if (m_continueOnCorruptedChunk) {
-                            m_chunkReads.release();
-                            continue;
-                        } else {
-                            throw new IOException("CRC mismatch in saved table chunk");
-                        }
-                    }
-
-                    /*
-                     * Now allocate space to store the chunk using the VoltTable serialization representation.
-                     * The chunk will contain an integer row count preceding it so it can
-                     * be sucked straight in. There is a little funny business to overwrite the
-                     * partition id that is not part of the serialization format
-                     */
-                    c = getOutputBuffer(nextChunkPartitionId);
-
-                    /*
-                     * If the length value is wrong or not all data made it to disk this read will
-                     * not complete correctly. There could be overflow, underflow etc.
-                     * so use a try finally block to indicate that all partitions are now corrupt.
-                     * The enclosing exception handlers will do the right thing WRT to
-                     * propagating the error and closing the file.
-                     */
-                    boolean completedRead = false;
-                    try {
-                        final ByteBuffer buf = c.b();
+                    if (decoder != null) {
                         /*
-                         * Assemble a VoltTable out of the chunk of tuples.
-                         * Put in the header that was cached in the constructor,
-                         * then copy the tuple data.
+                         * Hand the compressed chunk off, the pending count keeps
+                         * hasMoreChunks() true until the decoder has published or dropped it
                          */
-                        buf.clear();
-                        buf.limit(nextChunkLength  + m_tableHeader.capacity());
-                        m_tableHeader.position(0);
-                        buf.put(m_tableHeader);
-                        //Doesn't move buffer position, does change the limit
-                        CompressionService.decompressBuffer(fileInputBuffer, buf);
-                        completedRead = true;
-                    } finally {
-                        if (!completedRead) {
-                            for (int partitionId : m_partitionIds) {
-                                m_corruptedPartitions.add(partitionId);
-                            }
-                            if (m_continueOnCorruptedChunk) {
-                                m_chunkReads.release();
-                                continue;
-                            } else {
-                                throw new IOException("Failed decompression of saved table chunk");
-                            }
+                        final BBContainer inputC = fileInputBufferC;
+                        synchronized (TableSaveFile.this) {
+                            m_pendingDecodes++;
                         }
+                        decoder.execute(() -> decodeOnPool(inputC, nextChunkPartitionId, nextChunkCRC));
+                        fileInputBufferC = null;
+                        continue;
                     }
 
-                    /*
-                     * Skip irrelevant chunks after CRC is calculated. Always calulate the CRC
-                     * in case it is the length value that is corrupted
-                     */
-                    if (m_relevantPartitionIds != null) {
-                        if (!m_relevantPartitionIds.contains(nextChunkPartitionId)) {
-                            m_chunkReads.release();
-                            continue;
-                        }
+                    c = decodeChunkV2(fileInputBuffer, nextChunkPartitionId, nextChunkCRC);
+                    if (c == null) {
+                        continue;
                     }
 
-                    /*
-                     * VoltTable wants the buffer at the home position 0
-                     */
-                    c.b().position(0);
-
                     synchronized (TableSaveFile.this) {
                         m_availableChunks.offer(c);
                         c = null;
@@ -775,11 +753,159 @@ public class TableSaveFile
                         m_chunkReaderException = new IOException(e);
                         TableSaveFile.this.notifyAll();
                     }
+                } catch (RejectedExecutionException e) {
+                    synchronized (TableSaveFile.this) {
+                        m_pendingDecodes--;
+                        m_hasMoreChunks.set(false);
+                        m_chunkReaderException = new IOException(e);
+                        TableSaveFile.this.notifyAll();
+                    }
                 } finally {
                     if (c != null) c.discard();
                 }
             }
-            fileInputBufferC.discard();
+            if (fileInputBufferC != null) {
+                fileInputBufferC.discard();
+            }
+        }
+
+        /*
+         * Validate the CRC of a compressed version 2 chunk and decompress it into an output
+         * buffer behind the cached table header. Returns null if the chunk was skipped, either
+         * because it is for an irrelevant partition or because it is corrupt and
+         * m_continueOnCorruptedChunk is set. In both cases the read-ahead permit has been released.
+         */
+        private Container decodeChunkV2(
+                ByteBuffer fileInputBuffer,
+                int nextChunkPartitionId,
+                int nextChunkCRC) throws IOException {
+            /*
+             * Set nextChunkLength to be the uncompressed length,
+             * the code ahead that constructs the volt table is expecting
+             * the uncompressed size/data since it is producing an uncompressed table
+             */
+            final int nextChunkLength = CompressionService.uncompressedLength(fileInputBuffer);
+
+            /*
+             * Validate the rest of the chunk. This can fail if the data is corrupted
+             * or the length value was corrupted.
+             */
+            final int calculatedCRC =
+                    DBBPool.getBufferCRC32C(fileInputBuffer, 0, fileInputBuffer.remaining());
+            if (calculatedCRC != nextChunkCRC) {
+                m_corruptedPartitions.add(nextChunkPartitionId);
+                if (m_continueOnCorruptedChunk) {
+                    m_chunkReads.release();
+                    return null;
+                } else {
+                    throw new IOException("CRC mismatch in saved table chunk");
+                }
+            }
+
+            /*
+             * Now allocate space to store the chunk using the VoltTable serialization representation.
+             * The chunk will contain an integer row count preceding it so it can
+             * be sucked straight in. There is a little funny business to overwrite the
+             * partition id that is not part of the serialization format
+             */
+            final Container c = getOutputBuffer(nextChunkPartitionId);
+
+            /*
+             * If the length value is wrong or not all data made it to disk this read will
+             * not complete correctly. There could be overflow, underflow etc.
+             * so use a try finally block to indicate that all partitions are now corrupt.
+             * The enclosing exception handlers will do the right thing WRT to
+             * propagating the error and closing the file.
+             */
+            boolean completedRead = false;
+            try {
+                final ByteBuffer buf = c.b();
+                /*
+                 * Assemble a VoltTable out of the chunk of tuples.
+                 * Put in the header that was cached in the constructor,
+                 * then copy the tuple data. The header is shared by the decoders
+                 * so copy it through a duplicate.
+                 */
+                buf.clear();
+                buf.limit(nextChunkLength  + m_tableHeader.capacity());
+                final ByteBuffer header = m_tableHeader.duplicate();
+                header.position(0);
+                buf.put(header);
+                //Doesn't move buffer position, does change the limit
+                CompressionService.decompressBuffer(fileInputBuffer, buf);
+                completedRead = true;
+            } finally {
+                if (!completedRead) {
+                    c.discard();
+                    for (int partitionId : m_partitionIds) {
+                        m_corruptedPartitions.add(partitionId);
+                    }
+                    if (m_continueOnCorruptedChunk) {
+                        m_chunkReads.release();
+                        return null;
+                    } else {
+                        throw new IOException("Failed decompression of saved table chunk");
+                    }
+                }
+            }
+
+            /*
+             * Skip irrelevant chunks after CRC is calculated. Always calulate the CRC
+             * in case it is the length value that is corrupted
+             */
+            if (m_relevantPartitionIds != null) {
+                if (!m_relevantPartitionIds.contains(nextChunkPartitionId)) {
+                    c.discard();
+                    m_chunkReads.release();
+                    return null;
+                }
+            }
+
+            /*
+             * VoltTable wants the buffer at the home position 0
+             */
+            c.b().position(0);
+            return c;
+        }
+
+        /*
+         * Runs decodeChunkV2 on the decoder pool and publishes the result. Chunks can
+         * become available out of file order, which is fine since restore doesn't depend on it.
+         */
+        private void decodeOnPool(BBContainer inputC, int nextChunkPartitionId, int nextChunkCRC) {
+            Container c = null;
+            IOException failure = null;
+            try {
+                if (m_chunkReaderException == null) {
+                    c = decodeChunkV2(inputC.b(), nextChunkPartitionId, nextChunkCRC);
+                }
+            } catch (IOException e) {
+                failure = e;
+            } catch (RuntimeException e) {
+                failure = new IOException(e);
+            } finally {
+                m_inputBuffers.offer(inputC);
+            }
+            synchronized (TableSaveFile.this) {
+                m_pendingDecodes--;
+                if (failure != null) {
+                    m_hasMoreChunks.set(false);
+                    if (m_chunkReaderException == null) {
+                        m_chunkReaderException = failure;
+                    }
+                } else if (c != null) {
+                    m_availableChunks.offer(c);
+                }
+                TableSaveFile.this.notifyAll();
+            }
+        }
+
+        private BBContainer getInputBuffer() {
+            BBContainer c = m_inputBuffers.poll();
+            if (c == null) {
+                c = DBBPool.allocateDirect(CompressionService.maxCompressedLength(DEFAULT_CHUNKSIZE));
+            }
+            return c;
         }
 
         private void readChunks() {
@@ -61,11 +61,11 @@ class CSVFileReader implements Runnable {
     static ICsvListReader m_listReader = null;
     long m_parsingTime = 0;
     private static final Map<VoltType, String> m_blankStrings = new EnumMap<VoltType, String>(VoltType.class);
-    private static final VoltLogger m_log = new VoltLogger("CSVLOADER");
-    private final CSVDataLoader m_loader;
-    private final BulkLoaderErrorHandler m_errHandler;
-    private final VoltType[] m_columnTypes;
-    private final int m_columnCount;
+    static final VoltLogger m_log = new VoltLogger("CSVLOADER");
+    final CSVDataLoader m_loader;
+    final BulkLoaderErrorHandler m_errHandler;
+    final VoltType[] m_columnTypes;
+    final int m_columnCount;
     private int headerlen;
     private Integer[] order;
 
@@ -97,14 +97,7 @@ class CSVFileReader implements Runnable {
     @Override
     public void run() {
         List<String> lineList;
-        //if header option is true, check whether csv first line is valid
-        if (m_config.header) {
-            if (!checkHeader()) {
-                m_log.error("In the CSV file " + m_config.file + ", the header "+ m_listReader.getUntokenizedRow() +" does not match "
-                        + "an existing column in the table " + m_config.table + ".");
-                System.exit(-1);
-            }
-        }
+        validateHeader();
 
         while ((m_config.limitrows-- > 0)) {
             if (m_errHandler.hasReachedErrorLimit()) {
@@ -169,7 +162,13 @@ class CSVFileReader implements Runnable {
             }
         }
 
-        //Now wait for processors to see endOfData and count down. After that drain to finish all callbacks
+        closeLoader();
+    }
+
+    /**
+     * Wait for processors to see endOfData and count down. After that drain to finish all callbacks.
+     */
+    void closeLoader() {
         try {
             m_log.debug("Waiting for CSVDataLoader to finish.");
             m_loader.close();
@@ -180,6 +179,19 @@ class CSVFileReader implements Runnable {
         }
     }
 
+    /**
+     * If header option is true, check whether csv first line is valid and exit if not.
+     */
+    void validateHeader() {
+        if (m_config.header) {
+            if (!checkHeader()) {
+                m_log.error("In the CSV file " + m_config.file + ", the header "+ m_listReader.getUntokenizedRow() +" does not match "
+                        + "an existing column in the table " + m_config.table + ".");
+                System.exit(-1);
+            }
+        }
+    }
+
     private boolean checkHeader() {
         try {
             String[] firstline = m_listReader.getHeader(false);
@@ -222,7 +234,7 @@ class CSVFileReader implements Runnable {
         return true;
     }
 
-    private String checkparams_trimspace_reorder(String[] lineValues, String[] reorderValues) {
+    String checkparams_trimspace_reorder(String[] lineValues, String[] reorderValues) {
         if (lineValues.length != m_columnCount && !m_config.header) {
             return String.format(COLUMN_COUNT_ERROR, lineValues.length, m_columnCount);
         }
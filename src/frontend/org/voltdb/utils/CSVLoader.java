@@ -41,6 +41,7 @@ import org.voltdb.client.ClientConfig;
 import org.voltdb.client.ClientFactory;
 import org.voltdb.client.ClientImpl;
 import org.voltdb.client.ClientResponse;
+import org.voltdb.client.ClientStatsContext;
 
 /**
  * CSVLoader is a simple utility to load data from a CSV formatted file to a table.
@@ -315,6 +316,9 @@ public class CSVLoader implements BulkLoaderErrorHandler {
         @Option(desc = "Batch Size for processing.")
         public int batch = 200;
 
+        @Option(desc = "number of threads parsing the input file; more than 1 splits the memory-mapped file into chunks parsed in parallel (default: 1)")
+        int parsers = 1;
+
         @Option(desc = "First line of csv file is column name.", hasArg = false)
         boolean header = DEFAULT_HEADER;
 
@@ -357,6 +361,9 @@ public class CSVLoader implements BulkLoaderErrorHandler {
             if (batch < 0) {
                 exitWithMessageAndUsage("batch size number must be >= 0");
             }
+            if (parsers < 1) {
+                exitWithMessageAndUsage("number of parsers must be >= 1");
+            }
             if(!customNullString.isEmpty() && !blank.equals("error")){
                 blank = "empty";
             }
@@ -495,6 +502,8 @@ public class CSVLoader implements BulkLoaderErrorHandler {
             long insertCount;
             long ackCount;
             long rowsQueued;
+            long bytesSent;
+            final ClientStatsContext statsContext = csvClient.createStatsContext();
             final CSVLoader errHandler = new CSVLoader();
             final CSVDataLoader dataLoader;
 
@@ -511,7 +520,17 @@ public class CSVLoader implements BulkLoaderErrorHandler {
 
             CSVFileReader.initializeReader(cfg, csvClient, listReader);
 
-            CSVFileReader csvReader = new CSVFileReader(dataLoader, errHandler);
+            CSVFileReader csvReader;
+            if (config.parsers > 1 && !CSVLoader.standin
+                    && ParallelCSVFileReader.canParseInParallel(config, csvPreference)) {
+                csvReader = new ParallelCSVFileReader(dataLoader, errHandler, csvPreference, config.parsers);
+            } else {
+                if (config.parsers > 1) {
+                    System.out.println("Parallel parsing needs an input file in an ASCII compatible character set, "
+                            + "using a single parser.");
+                }
+                csvReader = new CSVFileReader(dataLoader, errHandler);
+            }
 
             Thread readerThread = new Thread(csvReader);
             readerThread.setName("CSVFileReader");
@@ -523,6 +542,7 @@ public class CSVLoader implements BulkLoaderErrorHandler {
 
             insertTimeEnd = System.currentTimeMillis();
 
+            bytesSent = statsContext.fetch().getStats().getBytesWritten();
             csvClient.close();
 
             errHandler.waitForErrorFlushComplete();
@@ -545,7 +565,7 @@ public class CSVLoader implements BulkLoaderErrorHandler {
             }
             System.out.println("Read " + insertCount + " rows from file and successfully inserted "
                                + ackCount + " rows (final)");
-            errHandler.produceFiles(ackCount, insertCount);
+            errHandler.produceFiles(ackCount, insertCount, bytesSent);
             close_cleanup();
             //In test junit mode we let it continue for reuse
             if (!CSVLoader.testMode) {
@@ -629,7 +649,7 @@ public class CSVLoader implements BulkLoaderErrorHandler {
         return client;
     }
 
-    private void produceFiles(long ackCount, long insertCount) {
+    private void produceFiles(long ackCount, long insertCount, long bytesSent) {
         long latency = System.currentTimeMillis() - start;
         System.out.println("Elapsed time: " + latency / 1000F
                            + " seconds");
@@ -672,6 +692,8 @@ public class CSVLoader implements BulkLoaderErrorHandler {
                     + m_errorCount + "\n");
             out_reportfile.write("CSVLoader rate: " + insertCount
                     / elapsedTimeSec + " row/s\n");
+            out_reportfile.write("CSVLoader rate: " + bytesSent / (1024F * 1024F)
+                    / elapsedTimeSec + " MB/s\n");
 
             System.out.println("Invalid row file: " + pathInvalidrowfile);
             System.out.println("Log file: " + pathLogfile);
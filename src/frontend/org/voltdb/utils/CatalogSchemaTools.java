@@ -406,6 +406,13 @@ public abstract class CatalogSchemaTools {
             sb.append("DR TABLE ").append(catalog_tbl.getTypeName()).append(";\n");
         }
 
+        for (Column catalog_col : CatalogUtil.getSortedCatalogItems(catalog_tbl.getColumns(), "index")) {
+            if (catalog_col.getDictionaryencoded()) {
+                sb.append("DICTIONARY TABLE ").append(catalog_tbl.getTypeName())
+                  .append(" COLUMN ").append(catalog_col.getTypeName()).append(";\n");
+            }
+        }
+
         sb.append("\n");
         // Canonical DDL generation for this table is done, now just hand the CREATE TABLE
         // statement to whoever might be interested (DDLCompiler, I'm looking in your direction)
@@ -0,0 +1,378 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.voltdb.utils;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.supercsv.exception.SuperCsvException;
+import org.supercsv.io.CsvListReader;
+import org.supercsv.io.ICsvListReader;
+import org.supercsv.prefs.CsvPreference;
+import org.supercsv_voltpatches.tokenizer.Tokenizer;
+import org.voltcore.utils.CoreUtils;
+import org.voltdb.ParameterConverter;
+import org.voltdb.VoltType;
+
+import com.google_voltpatches.common.util.concurrent.Futures;
+
+/**
+ *
+ * A reader that memory-maps the CSV file, cuts it into chunks at record
+ * boundaries and tokenizes, validates and converts the chunks on a pool of
+ * parser threads. Parsed chunks are handed to the CSVDataLoader in file
+ * order, so upserts and error reporting behave exactly as with the single
+ * threaded CSVFileReader.
+ *
+ */
+class ParallelCSVFileReader extends CSVFileReader {
+    // Target size of the chunk handed to one parser thread.
+    private static final int CHUNK_SIZE = 1024 * 1024;
+    // Size of the window mapped at a time while looking for record boundaries.
+    private static final long SCAN_WINDOW_SIZE = 256L * 1024 * 1024;
+
+    private static final Chunk END_OF_INPUT = new Chunk(0, 0, 0);
+
+    private final int m_chunkSize;
+    private final CsvPreference m_preference;
+    private final BlockingQueue<Future<Chunk>> m_pending;
+    private final ExecutorService m_parsers;
+
+    /**
+     * A range of the input file that starts and ends on a record boundary,
+     * along with the rows parsed from it.
+     */
+    private static class Chunk {
+        final long m_offset;
+        final long m_length;
+        // Number of lines in the file before this chunk.
+        final long m_firstLine;
+        final List<ParsedRow> m_rows = new ArrayList<ParsedRow>();
+        long m_endLine;
+        long m_parsingTime;
+
+        Chunk(long offset, long length, long firstLine) {
+            m_offset = offset;
+            m_length = length;
+            m_firstLine = firstLine;
+        }
+    }
+
+    /**
+     * One row read from a chunk. Blank rows have neither values nor an error.
+     */
+    private static class ParsedRow {
+        // Line count before the row was read, as CSVFileReader tracks it.
+        final long m_lineBefore;
+        final RowWithMetaData m_metaData;
+        final Object[] m_values;
+        final String m_error;
+
+        ParsedRow(long lineBefore, RowWithMetaData metaData, Object[] values, String error) {
+            m_lineBefore = lineBefore;
+            m_metaData = metaData;
+            m_values = values;
+            m_error = error;
+        }
+    }
+
+    public ParallelCSVFileReader(CSVDataLoader loader, BulkLoaderErrorHandler errorHandler,
+            CsvPreference preference, int parserCount) {
+        this(loader, errorHandler, preference, parserCount, CHUNK_SIZE);
+    }
+
+    // for tests, a small chunk size puts many record boundaries to the test
+    ParallelCSVFileReader(CSVDataLoader loader, BulkLoaderErrorHandler errorHandler,
+            CsvPreference preference, int parserCount, int chunkSize) {
+        super(loader, errorHandler);
+        m_chunkSize = chunkSize;
+        m_preference = preference;
+        m_pending = new ArrayBlockingQueue<Future<Chunk>>(parserCount * 2);
+        m_parsers = Executors.newFixedThreadPool(parserCount,
+                CoreUtils.getThreadFactory("CSVParser"));
+    }
+
+    /**
+     * The chunk scanner only understands the separator, quote and escape
+     * characters as single bytes, so the input must be in a charset where
+     * ASCII characters are always encoded as themselves.
+     *
+     * @return true if the configured input can be parsed in parallel.
+     */
+    static boolean canParseInParallel(CSVLoader.CSVConfig config, CsvPreference preference) {
+        Charset charset = Charset.forName(config.charset);
+        if (!StandardCharsets.UTF_8.equals(charset) && charset.newEncoder().maxBytesPerChar() != 1.0f) {
+            return false;
+        }
+        return preference.getDelimiterChar() < 0x80
+                && preference.getQuoteChar() < 0x80
+                && config.escape < 0x80;
+    }
+
+    @Override
+    public void run() {
+        validateHeader();
+
+        Thread scanner = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                scan();
+            }
+        }, "CSVChunkScanner");
+        scanner.setDaemon(true);
+        scanner.start();
+
+        try {
+            consume();
+        } finally {
+            scanner.interrupt();
+            m_parsers.shutdownNow();
+        }
+
+        closeLoader();
+    }
+
+    /**
+     * Hand the parsed rows to the loader in file order.
+     */
+    private void consume() {
+        try {
+            while (true) {
+                Chunk chunk = m_pending.take().get();
+                if (chunk == END_OF_INPUT) {
+                    return;
+                }
+                m_parsingTime += chunk.m_parsingTime;
+                for (ParsedRow row : chunk.m_rows) {
+                    if (m_config.limitrows-- <= 0 || m_errHandler.hasReachedErrorLimit()) {
+                        return;
+                    }
+                    m_totalLineCount.set(row.m_lineBefore);
+                    m_totalRowCount.incrementAndGet();
+                    if (row.m_error != null) {
+                        if (m_errHandler.handleError(row.m_metaData, null, row.m_error)) {
+                            return;
+                        }
+                    }
+                    else if (row.m_values != null) {
+                        m_loader.insertRow(row.m_metaData, row.m_values);
+                    }
+                }
+                m_totalLineCount.set(chunk.m_endLine);
+            }
+        } catch (ExecutionException e) {
+            m_log.error("Failed to read CSV line from file: " + e.getCause());
+        } catch (InterruptedException e) {
+            m_log.error("CSVLoader interrupted: " + e);
+        }
+    }
+
+    /**
+     * Walk the mapped file tracking quote and escape state the same way the
+     * tokenizer does, and submit a chunk for parsing each time the chunk size
+     * in bytes have been passed and a record ends. The first chunk is kept
+     * large enough to hold the skipped lines and the header.
+     */
+    private void scan() {
+        final byte quote = (byte) m_preference.getQuoteChar();
+        final byte escape = (byte) m_config.escape;
+        Future<Chunk> last;
+        try (RandomAccessFile file = new RandomAccessFile(m_config.file, "r")) {
+            FileChannel channel = file.getChannel();
+            long size = channel.size();
+            long chunkStart = 0;
+            long chunkFirstLine = 0;
+            long lines = 0;
+            boolean inQuotes = false;
+            boolean sawQuote = false;
+            boolean sawEscape = false;
+            // the tokenizer skips blank lines, so they belong to the next record
+            boolean recordHasData = false;
+            long minFirstChunkLines = m_config.skip + (m_config.header ? 1 : 0);
+
+            for (long windowStart = 0; windowStart < size; windowStart += SCAN_WINDOW_SIZE) {
+                long windowSize = Math.min(SCAN_WINDOW_SIZE, size - windowStart);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowSize);
+                for (int i = 0; i < windowSize; i++) {
+                    byte b = window.get(i);
+                    if (b == '\n') {
+                        lines++;
+                    }
+                    if (sawQuote) {
+                        // a doubled quote inside quotes is a literal quote
+                        sawQuote = false;
+                        if (b == quote) {
+                            continue;
+                        }
+                        inQuotes = false;
+                    }
+                    if (inQuotes) {
+                        sawQuote = (b == quote);
+                        continue;
+                    }
+                    recordHasData |= (b < 0 || b > ' ');
+                    if (sawEscape) {
+                        sawEscape = false;
+                        // the tokenizer reads an escape before 'N' as part of the \N null marker
+                        if (b != 'N') {
+                            continue;
+                        }
+                    }
+                    if (b == escape) {
+                        sawEscape = true;
+                    }
+                    else if (b == quote) {
+                        inQuotes = true;
+                    }
+                    else if (b == '\n' && recordHasData) {
+                        recordHasData = false;
+                        long recordEnd = windowStart + i + 1;
+                        if (recordEnd - chunkStart >= m_chunkSize
+                                && (chunkStart > 0 || lines > minFirstChunkLines)) {
+                            submit(new Chunk(chunkStart, recordEnd - chunkStart, chunkFirstLine));
+                            chunkStart = recordEnd;
+                            chunkFirstLine = lines;
+                        }
+                    }
+                }
+            }
+            if (chunkStart < size || size == 0) {
+                submit(new Chunk(chunkStart, size - chunkStart, chunkFirstLine));
+            }
+            last = Futures.immediateFuture(END_OF_INPUT);
+        } catch (IOException e) {
+            last = Futures.immediateFailedFuture(e);
+        } catch (InterruptedException e) {
+            // the consumer has stopped early
+            return;
+        }
+        try {
+            m_pending.put(last);
+        } catch (InterruptedException e) {
+        }
+    }
+
+    private void submit(final Chunk chunk) throws InterruptedException {
+        m_pending.put(m_parsers.submit(new Callable<Chunk>() {
+            @Override
+            public Chunk call() throws IOException {
+                parse(chunk);
+                return chunk;
+            }
+        }));
+    }
+
+    /**
+     * Tokenize one chunk with its own reader, then validate and convert each
+     * row. Line numbers are offset by the lines in the preceding chunks.
+     */
+    private void parse(Chunk chunk) throws IOException {
+        final boolean first = (chunk.m_offset == 0);
+        final String text;
+        try (RandomAccessFile file = new RandomAccessFile(m_config.file, "r")) {
+            MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY,
+                    chunk.m_offset, chunk.m_length);
+            text = Charset.forName(m_config.charset).newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                    .decode(buffer).toString();
+        }
+
+        Tokenizer tokenizer = new Tokenizer(new StringReader(text), m_preference,
+                m_config.strictquotes, m_config.escape, m_config.columnsizelimit,
+                first ? m_config.skip : 0, first && m_config.header);
+        ICsvListReader reader = new CsvListReader(tokenizer, m_preference);
+        if (first && m_config.header) {
+            // already validated by validateHeader()
+            reader.getHeader(false);
+        }
+
+        while (true) {
+            long lineBefore;
+            if (first && reader.getLineNumber() == 0) {
+                lineBefore = m_config.skip;
+            } else {
+                lineBefore = chunk.m_firstLine + reader.getLineNumber();
+            }
+            List<String> lineList;
+            try {
+                long st = System.nanoTime();
+                lineList = reader.read();
+                chunk.m_parsingTime += System.nanoTime() - st;
+            } catch (SuperCsvException e) {
+                chunk.m_rows.add(new ParsedRow(lineBefore,
+                        new RowWithMetaData(reader.getUntokenizedRow(), lineBefore + 1), null, e.getMessage()));
+                continue;
+            }
+            if (lineList == null) {
+                chunk.m_endLine = Math.min(lineBefore, chunk.m_firstLine + reader.getLineNumber());
+                return;
+            }
+            if (lineList.isEmpty()) {
+                chunk.m_rows.add(new ParsedRow(lineBefore, null, null, null));
+                continue;
+            }
+
+            String[] lineValues = lineList.toArray(new String[0]);
+            String[] reorderValues = new String[m_columnCount];
+            String lineCheckResult = checkparams_trimspace_reorder(lineValues, reorderValues);
+            if (lineCheckResult != null) {
+                chunk.m_rows.add(new ParsedRow(lineBefore,
+                        new RowWithMetaData(reader.getUntokenizedRow(), lineBefore + 1), null, lineCheckResult));
+                continue;
+            }
+            chunk.m_rows.add(new ParsedRow(lineBefore,
+                    new RowWithMetaData(reader.getUntokenizedRow(), chunk.m_firstLine + reader.getLineNumber()),
+                    convert(reorderValues), null));
+        }
+    }
+
+    /**
+     * Convert the row to the column types here rather than on the loader's
+     * single partitioning thread. A row that does not convert is passed on
+     * as strings so the loader reports the failure exactly as it would have.
+     */
+    private Object[] convert(String[] values) {
+        Object[] converted = new Object[values.length];
+        try {
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] != null) {
+                    VoltType type = m_columnTypes[i];
+                    converted[i] = ParameterConverter.tryToMakeCompatible(type.classFromType(), values[i]);
+                }
+            }
+        } catch (Exception e) {
+            return values;
+        }
+        return converted;
+    }
+}
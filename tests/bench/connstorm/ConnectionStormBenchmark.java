@@ -0,0 +1,178 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+/*
+ * Opens and closes client connections from many threads at once, the way a
+ * fleet of short lived JDBC or HTTP clients does after a failover, and reports
+ * the accepted connections per second together with the time it took each
+ * connection to get its first response. Run it against a server started with
+ * different CLIENT_ACCEPTOR_THREADS values, with and without TLS, to compare
+ * acceptor configurations.
+ */
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.voltdb.CLIConfig;
+import org.voltdb.client.Client;
+import org.voltdb.client.ClientConfig;
+import org.voltdb.client.ClientFactory;
+import org.voltdb.client.ClientResponse;
+
+public class ConnectionStormBenchmark {
+
+    static class StormConfig extends CLIConfig {
+        @Option(desc = "Comma separated list of the form server[:port] to connect to.")
+        String servers = "localhost";
+
+        @Option(desc = "Total number of connections to open.")
+        int connections = 20000;
+
+        @Option(desc = "Number of threads opening connections concurrently.")
+        int threads = 200;
+
+        @Option(desc = "SSL properties file, empty to connect without TLS.")
+        String sslfile = "";
+
+        @Option(desc = "User name.")
+        String user = "";
+
+        @Option(desc = "Password.")
+        String password = "";
+
+        @Override
+        public void validate() {
+            if (connections <= 0) exitWithMessageAndUsage("connections must be > 0");
+            if (threads <= 0) exitWithMessageAndUsage("threads must be > 0");
+        }
+    }
+
+    final StormConfig m_config;
+    final String[] m_servers;
+    final AtomicInteger m_next = new AtomicInteger();
+    final AtomicInteger m_failures = new AtomicInteger();
+    // nanoseconds from the start of a connection attempt, indexed by attempt
+    final long[] m_connectNanos;
+    final long[] m_firstResponseNanos;
+
+    ConnectionStormBenchmark(StormConfig config) {
+        m_config = config;
+        m_servers = config.servers.split(",");
+        m_connectNanos = new long[config.connections];
+        m_firstResponseNanos = new long[config.connections];
+        Arrays.fill(m_connectNanos, -1);
+        Arrays.fill(m_firstResponseNanos, -1);
+    }
+
+    ClientConfig clientConfig() {
+        ClientConfig clientConfig = new ClientConfig(m_config.user, m_config.password);
+        clientConfig.setReconnectOnConnectionLoss(false);
+        if (!m_config.sslfile.trim().isEmpty()) {
+            clientConfig.setTrustStoreConfigFromPropertyFile(m_config.sslfile);
+            clientConfig.enableSSL();
+        }
+        return clientConfig;
+    }
+
+    void connectLoop() {
+        int attempt;
+        while ((attempt = m_next.getAndIncrement()) < m_config.connections) {
+            final long start = System.nanoTime();
+            Client client = ClientFactory.createClient(clientConfig());
+            try {
+                client.createConnection(m_servers[attempt % m_servers.length].trim());
+                m_connectNanos[attempt] = System.nanoTime() - start;
+                ClientResponse response = client.callProcedure("@Ping");
+                if (response.getStatus() == ClientResponse.SUCCESS) {
+                    m_firstResponseNanos[attempt] = System.nanoTime() - start;
+                } else {
+                    m_failures.incrementAndGet();
+                }
+            } catch (Exception e) {
+                m_failures.incrementAndGet();
+            } finally {
+                try {
+                    client.close();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    void run() throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(m_config.threads);
+        final long start = System.nanoTime();
+        for (int i = 0; i < m_config.threads; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    connectLoop();
+                } finally {
+                    done.countDown();
+                }
+            }, "Connection storm " + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+        final double seconds = (System.nanoTime() - start) / 1e9;
+
+        long[] connect = completed(m_connectNanos);
+        long[] firstResponse = completed(m_firstResponseNanos);
+        System.out.printf("Connections:          %d attempted, %d answered, %d failed in %.2f seconds\n",
+                m_config.connections, firstResponse.length, m_failures.get(), seconds);
+        System.out.printf("Connections/sec:      %.1f\n", firstResponse.length / seconds);
+        printLatency("Connect (ms):", connect);
+        printLatency("First response (ms):", firstResponse);
+    }
+
+    static long[] completed(long[] nanos) {
+        long[] completed = Arrays.stream(nanos).filter(n -> n >= 0).toArray();
+        Arrays.sort(completed);
+        return completed;
+    }
+
+    static void printLatency(String name, long[] sorted) {
+        if (sorted.length == 0) {
+            System.out.printf("%-21s no samples\n", name);
+            return;
+        }
+        System.out.printf("%-21s avg %.2f, p50 %.2f, p99 %.2f, p99.9 %.2f, max %.2f\n", name,
+                Arrays.stream(sorted).average().getAsDouble() / 1e6,
+                percentile(sorted, 0.5), percentile(sorted, 0.99), percentile(sorted, 0.999),
+                sorted[sorted.length - 1] / 1e6);
+    }
+
+    static double percentile(long[] sorted, double p) {
+        int idx = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, idx)] / 1e6;
+    }
+
+    public static void main(String[] args) throws Exception {
+        StormConfig config = new StormConfig();
+        config.parse(ConnectionStormBenchmark.class.getName(), args);
+        new ConnectionStormBenchmark(config).run();
+    }
+}
@@ -0,0 +1,160 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltcore.network;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reading length-prefixed messages off a channel into an NIOReadStream and
+ * splitting them apart with VoltProtocolHandler, as VoltPort does for every
+ * client and internal connection. Lives in org.voltcore.network because the
+ * stream's read methods are package private.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NIOReadStreamBenchmark {
+
+    private static final int MESSAGES = 256;
+
+    @Param({"64", "4096"})
+    public int messageSize;
+
+    private byte[] m_framed;
+    private final ArrayChannel m_channel = new ArrayChannel();
+    private NetworkDBBPool m_pool;
+    private NIOReadStream m_stream;
+    private FramingHandler m_handler;
+
+    /** Hands out the same framed bytes every time it is rewound. */
+    private static final class ArrayChannel implements ReadableByteChannel {
+        private ByteBuffer m_data;
+
+        void rewind(byte[] data) {
+            m_data = ByteBuffer.wrap(data);
+        }
+
+        @Override
+        public int read(ByteBuffer dst) {
+            if (! m_data.hasRemaining()) {
+                return 0;
+            }
+            int length = Math.min(dst.remaining(), m_data.remaining());
+            ByteBuffer slice = m_data.slice();
+            slice.limit(length);
+            dst.put(slice);
+            m_data.position(m_data.position() + length);
+            return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static final class FramingHandler extends VoltProtocolHandler {
+        @Override
+        public int getMaxRead() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public void handleMessage(ByteBuffer message, Connection c) {
+        }
+
+        @Override
+        public Runnable onBackPressure() {
+            return null;
+        }
+
+        @Override
+        public Runnable offBackPressure() {
+            return null;
+        }
+
+        @Override
+        public QueueMonitor writestreamMonitor() {
+            return null;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        ByteBuffer framed = ByteBuffer.allocate(MESSAGES * (messageSize + 4));
+        for (int i = 0; i < MESSAGES; ++i) {
+            framed.putInt(messageSize);
+            for (int j = 0; j < messageSize; ++j) {
+                framed.put((byte) j);
+            }
+        }
+        m_framed = framed.array();
+        m_pool = new NetworkDBBPool();
+        m_stream = new NIOReadStream();
+        m_handler = new FramingHandler();
+    }
+
+    @TearDown
+    public void tearDown() {
+        m_stream.shutdown();
+        m_pool.clear();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public int readAndFrame() throws IOException {
+        m_channel.rewind(m_framed);
+        int messages = 0;
+        while (m_stream.read(m_channel, Integer.MAX_VALUE, m_pool) > 0) {
+            while (m_handler.retrieveNextMessage(m_stream) != null) {
+                ++messages;
+            }
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,116 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltcore.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The outstanding transaction bookkeeping done by the iv2 schedulers and
+ * ClientInterfaceHandleManager: a window of in flight ids where every new id
+ * is put, looked up when its response arrives and then removed. Compares
+ * java.util.HashMap with LongObjectHashMap. Run with -prof gc to compare the
+ * allocation rate (gc.alloc.rate.norm is bytes per operation), e.g.
+ * ant jmh -Djmh.args="LongObjectHashMapBenchmark -prof gc"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LongObjectHashMapBenchmark {
+
+    private static final int OPERATIONS = 1024;
+
+    // Ids are spaced like TxnEgo ids, sequence number above the partition id bits
+    private static final int ID_SHIFT = 14;
+
+    @Param({"64", "4096"})
+    public int outstanding;
+
+    private final Object m_value = new Object();
+    private Map<Long, Object> m_hashMap;
+    private LongObjectHashMap<Object> m_longMap;
+    private long m_nextHashMapId;
+    private long m_nextLongMapId;
+
+    @Setup
+    public void setup() {
+        m_hashMap = new HashMap<>();
+        m_longMap = new LongObjectHashMap<>();
+        for (long i = 0; i < outstanding; i++) {
+            m_hashMap.put(i << ID_SHIFT, m_value);
+            m_longMap.put(i << ID_SHIFT, m_value);
+        }
+        m_nextHashMapId = outstanding;
+        m_nextLongMapId = outstanding;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public int hashMap() {
+        int found = 0;
+        for (int i = 0; i < OPERATIONS; i++) {
+            final long id = m_nextHashMapId++;
+            m_hashMap.put(id << ID_SHIFT, m_value);
+            final long completed = (id - outstanding) << ID_SHIFT;
+            if (m_hashMap.get(completed) != null) {
+                found++;
+            }
+            m_hashMap.remove(completed);
+        }
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public int longObjectHashMap() {
+        int found = 0;
+        for (int i = 0; i < OPERATIONS; i++) {
+            final long id = m_nextLongMapId++;
+            m_longMap.put(id << ID_SHIFT, m_value);
+            final long completed = (id - outstanding) << ID_SHIFT;
+            if (m_longMap.get(completed) != null) {
+                found++;
+            }
+            m_longMap.remove(completed);
+        }
+        return found;
+    }
+}
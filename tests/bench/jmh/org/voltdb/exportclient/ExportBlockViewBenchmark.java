@@ -0,0 +1,142 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.exportclient;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.voltdb.VoltTable;
+import org.voltdb.VoltType;
+import org.voltdb.exportclient.decode.CSVStringDecoder;
+import org.voltdb.types.TimestampType;
+
+/**
+ * Rows per second an export client can consume from one block, decoding an
+ * ExportRow per row as GuestProcessor does by default, versus walking the
+ * block with an ExportBlockView. The csv variants add the formatting work
+ * of the Kafka client.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExportBlockViewBenchmark {
+
+    private static final int ROWS = 1000;
+
+    private ByteBuffer m_block;
+    private final ExportBlockView m_view = new ExportBlockView();
+    private final CSVStringDecoder m_csvDecoder = CSVStringDecoder.builder().skipInternalFields(true).build();
+
+    @Setup
+    public void setup() throws Exception {
+        VoltTable table = new VoltTable(
+                new VoltTable.ColumnInfo("VOLT_TRANSACTION_ID", VoltType.BIGINT),
+                new VoltTable.ColumnInfo("VOLT_EXPORT_TIMESTAMP", VoltType.BIGINT),
+                new VoltTable.ColumnInfo("VOLT_EXPORT_SEQUENCE_NUMBER", VoltType.BIGINT),
+                new VoltTable.ColumnInfo("VOLT_PARTITION_ID", VoltType.BIGINT),
+                new VoltTable.ColumnInfo("VOLT_OP", VoltType.BIGINT),
+                new VoltTable.ColumnInfo("VOLT_SITE_ID", VoltType.BIGINT),
+                new VoltTable.ColumnInfo("ID", VoltType.BIGINT),
+                new VoltTable.ColumnInfo("NAME", VoltType.STRING),
+                new VoltTable.ColumnInfo("BALANCE", VoltType.FLOAT),
+                new VoltTable.ColumnInfo("UPDATED", VoltType.TIMESTAMP),
+                new VoltTable.ColumnInfo("FLAGS", VoltType.INTEGER));
+        TimestampType ts = new TimestampType(1500000000000000L);
+        for (int i = 0; i < ROWS; ++i) {
+            table.addRow(i, i, i, 0, 1, 0, i, "customer" + (i % 1000), i * 1.5, ts, (i % 7 == 0) ? null : i & 0xff);
+        }
+        ByteBuffer heap = ExportEncoder.encodeBlock(table, "ACCOUNTS", 6, 1L);
+        // blocks arrive in direct buffers
+        m_block = ByteBuffer.allocateDirect(heap.remaining());
+        m_block.put(heap).flip();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long exportRow() throws Exception {
+        ByteBuffer buf = m_block.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        ExportRow previous = null;
+        long sum = 0;
+        while (buf.hasRemaining()) {
+            byte[] rowData = new byte[buf.getInt()];
+            buf.get(rowData);
+            previous = ExportRow.decodeRow(previous, 0, 0L, rowData);
+            sum += (Long) previous.values[6];
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long blockView() throws Exception {
+        m_view.reset(m_block.duplicate(), 0);
+        long sum = 0;
+        while (m_view.advance()) {
+            sum += m_view.getLong(6);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long exportRowCsv() throws Exception {
+        ByteBuffer buf = m_block.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        ExportRow previous = null;
+        long length = 0;
+        while (buf.hasRemaining()) {
+            byte[] rowData = new byte[buf.getInt()];
+            buf.get(rowData);
+            previous = ExportRow.decodeRow(previous, 0, 0L, rowData);
+            length += m_csvDecoder.decode(previous.generation, previous.tableName, previous.types,
+                    previous.names, null, previous.values).length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long blockViewCsv() throws Exception {
+        m_view.reset(m_block.duplicate(), 0);
+        long length = 0;
+        while (m_view.advance()) {
+            length += m_csvDecoder.decode(m_view, null).length();
+        }
+        return length;
+    }
+}
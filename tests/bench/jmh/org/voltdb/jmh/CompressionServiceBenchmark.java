@@ -0,0 +1,83 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.jmh;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.voltdb.utils.CompressionService;
+
+/**
+ * Snappy compression as used for snapshots, catalogs and large responses,
+ * on a payload that compresses roughly like row data.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompressionServiceBenchmark {
+
+    @Param({"1024", "65536", "1048576"})
+    public int payloadSize;
+
+    private byte[] m_payload;
+    private byte[] m_compressed;
+
+    @Setup
+    public void setup() throws IOException {
+        // Repeated words with random numbers mixed in, so the payload is
+        // neither incompressible nor trivially compressible.
+        Random random = new Random(0);
+        StringBuilder sb = new StringBuilder(payloadSize + 32);
+        while (sb.length() < payloadSize) {
+            sb.append("customer").append(random.nextInt(100000)).append(',');
+        }
+        m_payload = sb.substring(0, payloadSize).getBytes("UTF-8");
+        m_compressed = CompressionService.compressBytes(m_payload);
+    }
+
+    @Benchmark
+    public byte[] compress() throws IOException {
+        return CompressionService.compressBytes(m_payload);
+    }
+
+    @Benchmark
+    public byte[] decompress() throws IOException {
+        return CompressionService.decompressBytes(m_compressed);
+    }
+}
@@ -0,0 +1,121 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.jmh;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.voltdb.VoltTable;
+import org.voltdb.VoltType;
+import org.voltdb.messaging.FastDeserializer;
+import org.voltdb.messaging.FastSerializer;
+
+/**
+ * FastSerializer primitive and string writes into a reused buffer, growth
+ * from a small initial allocation, and the matching FastDeserializer reads.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FastSerializerBenchmark {
+
+    @Param({"16", "1024"})
+    public int stringLength;
+
+    private FastSerializer m_reused;
+    private String m_string;
+    private VoltTable m_table;
+    private byte[] m_serialized;
+
+    @Setup
+    public void setup() throws IOException {
+        StringBuilder sb = new StringBuilder(stringLength);
+        for (int i = 0; i < stringLength; ++i) {
+            sb.append((char) ('a' + (i % 26)));
+        }
+        m_string = sb.toString();
+        m_reused = new FastSerializer();
+
+        m_table = new VoltTable(new VoltTable.ColumnInfo("ID", VoltType.BIGINT),
+                                new VoltTable.ColumnInfo("VAL", VoltType.STRING));
+        for (int i = 0; i < 100; ++i) {
+            m_table.addRow(i, m_string);
+        }
+
+        FastSerializer fs = new FastSerializer();
+        writeRecord(fs);
+        m_serialized = fs.getBytes();
+    }
+
+    private void writeRecord(FastSerializer fs) throws IOException {
+        fs.writeLong(1234567890123L);
+        fs.writeInt(42);
+        fs.writeShort(7);
+        fs.writeByte(1);
+        fs.writeDouble(3.14);
+        fs.writeString(m_string);
+    }
+
+    @Benchmark
+    public int writeIntoReusedBuffer() throws IOException {
+        m_reused.clear();
+        writeRecord(m_reused);
+        return m_reused.size();
+    }
+
+    @Benchmark
+    public int writeTableWithGrowth() throws IOException {
+        FastSerializer fs = new FastSerializer(64);
+        fs.writeTable(m_table);
+        int size = fs.size();
+        fs.discard();
+        return size;
+    }
+
+    @Benchmark
+    public String read() throws IOException {
+        FastDeserializer fds = new FastDeserializer(ByteBuffer.wrap(m_serialized));
+        fds.readLong();
+        fds.readInt();
+        fds.readShort();
+        fds.readByte();
+        fds.readDouble();
+        return fds.readString();
+    }
+}
@@ -0,0 +1,116 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.voltdb.ElasticHashinator;
+import org.voltdb.VoltType;
+import org.voltdb.client.HashinatorLite;
+
+/**
+ * Partition lookups for BIGINT and VARCHAR keys with the server's
+ * ElasticHashinator and the client's HashinatorLite.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashinatorBenchmark {
+
+    private static final int KEYS = 1024;
+
+    @Param({"8", "64"})
+    public int partitionCount;
+
+    private ElasticHashinator m_elastic;
+    private HashinatorLite m_lite;
+    private final long[] m_longKeys = new long[KEYS];
+    private final String[] m_stringKeys = new String[KEYS];
+
+    @Setup
+    public void setup() {
+        m_elastic = new ElasticHashinator(
+                ElasticHashinator.getConfigureBytes(partitionCount, ElasticHashinator.DEFAULT_TOTAL_TOKENS), false);
+        m_lite = new HashinatorLite(partitionCount);
+        for (int i = 0; i < KEYS; ++i) {
+            m_longKeys[i] = i * 0x9E3779B97F4A7C15L;
+            m_stringKeys[i] = "key" + i;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(KEYS)
+    public int elasticLong() {
+        int sum = 0;
+        for (long key : m_longKeys) {
+            sum += m_elastic.getHashedPartitionForParameter(VoltType.BIGINT, key);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(KEYS)
+    public int elasticString() {
+        int sum = 0;
+        for (String key : m_stringKeys) {
+            sum += m_elastic.getHashedPartitionForParameter(VoltType.STRING, key);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(KEYS)
+    public int liteLong() {
+        int sum = 0;
+        for (long key : m_longKeys) {
+            sum += m_lite.getHashedPartitionForParameter(VoltType.BIGINT.getValue(), key);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(KEYS)
+    public int liteString() {
+        int sum = 0;
+        for (String key : m_stringKeys) {
+            sum += m_lite.getHashedPartitionForParameter(VoltType.STRING.getValue(), key);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,100 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.jmh;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.voltdb.ParameterSet;
+import org.voltdb.types.TimestampType;
+
+/**
+ * ParameterSet sizing, serialization and deserialization for a typical
+ * mix of procedure parameters, with and without array parameters.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParameterSetBenchmark {
+
+    @Param({"scalars", "arrays"})
+    public String shape;
+
+    private Object[] m_params;
+    private ParameterSet m_paramSet;
+    private ByteBuffer m_serialized;
+    private ByteBuffer m_output;
+
+    @Setup
+    public void setup() throws IOException {
+        if ("arrays".equals(shape)) {
+            long[] ids = new long[64];
+            String[] names = new String[64];
+            for (int i = 0; i < ids.length; ++i) {
+                ids[i] = i;
+                names[i] = "name" + i;
+            }
+            m_params = new Object[] { 42L, ids, names, new byte[256] };
+        }
+        else {
+            m_params = new Object[] { 42L, 7, "a short string", 3.14,
+                    new TimestampType(1500000000000000L), (short) 3, (byte) 1 };
+        }
+        m_paramSet = ParameterSet.fromArrayNoCopy(m_params);
+        m_serialized = ByteBuffer.allocate(m_paramSet.getSerializedSize());
+        m_paramSet.flattenToBuffer(m_serialized);
+        m_serialized.flip();
+        m_output = ByteBuffer.allocate(m_paramSet.getSerializedSize());
+    }
+
+    @Benchmark
+    public ByteBuffer sizeAndFlatten() throws IOException {
+        // a fresh set so the cached serialized size is not reused
+        ParameterSet params = ParameterSet.fromArrayNoCopy(m_params);
+        m_output.clear();
+        m_output.limit(params.getSerializedSize());
+        params.flattenToBuffer(m_output);
+        return m_output;
+    }
+
+    @Benchmark
+    public ParameterSet deserialize() throws IOException {
+        return ParameterSet.fromByteBuffer(m_serialized.duplicate());
+    }
+}
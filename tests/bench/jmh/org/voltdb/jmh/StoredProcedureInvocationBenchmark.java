@@ -0,0 +1,99 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.jmh;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.voltdb.ParameterSet;
+import org.voltdb.StoredProcedureInvocation;
+
+/**
+ * The server side of a client call: serializing a StoredProcedureInvocation
+ * and rebuilding one, including its parameters, from the wire format.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StoredProcedureInvocationBenchmark {
+
+    @Param({"2", "20"})
+    public int paramCount;
+
+    private Object[] m_params;
+    private ByteBuffer m_serialized;
+    private ByteBuffer m_output;
+
+    @Setup
+    public void setup() throws IOException {
+        m_params = new Object[paramCount];
+        for (int i = 0; i < paramCount; ++i) {
+            m_params[i] = (i % 2 == 0) ? (Object) Long.valueOf(i) : "value" + i;
+        }
+        StoredProcedureInvocation invocation = buildInvocation();
+        m_serialized = ByteBuffer.allocate(invocation.getSerializedSize());
+        invocation.flattenToBuffer(m_serialized);
+        m_serialized.flip();
+        m_output = ByteBuffer.allocate(m_serialized.capacity());
+    }
+
+    private StoredProcedureInvocation buildInvocation() {
+        StoredProcedureInvocation invocation = new StoredProcedureInvocation();
+        invocation.setProcName("Vote");
+        invocation.setClientHandle(1234L);
+        invocation.setParams(m_params);
+        return invocation;
+    }
+
+    @Benchmark
+    public ByteBuffer serialize() throws IOException {
+        StoredProcedureInvocation invocation = buildInvocation();
+        m_output.clear();
+        m_output.limit(invocation.getSerializedSize());
+        invocation.flattenToBuffer(m_output);
+        return m_output;
+    }
+
+    @Benchmark
+    public ParameterSet deserialize() throws IOException {
+        StoredProcedureInvocation invocation = new StoredProcedureInvocation();
+        invocation.initFromBuffer(m_serialized.duplicate());
+        return invocation.getParams();
+    }
+}
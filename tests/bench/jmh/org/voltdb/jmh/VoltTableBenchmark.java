@@ -0,0 +1,111 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.jmh;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.voltdb.PrivateVoltTableFactory;
+import org.voltdb.VoltTable;
+import org.voltdb.VoltType;
+import org.voltdb.types.TimestampType;
+
+/**
+ * Cost of building a VoltTable row by row, flattening it into a buffer as
+ * a procedure response does, and wrapping a flattened table as a client does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VoltTableBenchmark {
+
+    @Param({"1", "100", "10000"})
+    public int rows;
+
+    private static final VoltTable.ColumnInfo[] COLUMNS = new VoltTable.ColumnInfo[] {
+        new VoltTable.ColumnInfo("ID", VoltType.BIGINT),
+        new VoltTable.ColumnInfo("NAME", VoltType.STRING),
+        new VoltTable.ColumnInfo("BALANCE", VoltType.FLOAT),
+        new VoltTable.ColumnInfo("UPDATED", VoltType.TIMESTAMP),
+        new VoltTable.ColumnInfo("FLAGS", VoltType.INTEGER)
+    };
+
+    private VoltTable m_table;
+    private ByteBuffer m_flattened;
+    private ByteBuffer m_output;
+    private final TimestampType m_timestamp = new TimestampType(1500000000000000L);
+
+    @Setup
+    public void setup() {
+        m_table = buildTable();
+        m_flattened = ByteBuffer.allocate(m_table.getSerializedSize());
+        m_table.flattenToBuffer(m_flattened);
+        m_flattened.flip();
+        m_output = ByteBuffer.allocate(m_table.getSerializedSize());
+    }
+
+    private VoltTable buildTable() {
+        VoltTable table = new VoltTable(COLUMNS);
+        for (int i = 0; i < rows; ++i) {
+            table.addRow(i, "customer" + (i % 1000), i * 1.5, m_timestamp, i & 0xff);
+        }
+        return table;
+    }
+
+    @Benchmark
+    public VoltTable construct() {
+        return buildTable();
+    }
+
+    @Benchmark
+    public ByteBuffer flatten() {
+        m_output.clear();
+        m_table.flattenToBuffer(m_output);
+        return m_output;
+    }
+
+    @Benchmark
+    public long wrapAndIterate() {
+        VoltTable table = PrivateVoltTableFactory.createVoltTableFromBuffer(m_flattened.duplicate(), true);
+        long sum = 0;
+        while (table.advanceRow()) {
+            sum += table.getLong(0);
+        }
+        return sum;
+    }
+}
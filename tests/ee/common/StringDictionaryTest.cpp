@@ -0,0 +1,177 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+#include "harness.h"
+
+#include "common/StringDictionary.h"
+#include "common/executorcontext.hpp"
+#include "common/Pool.hpp"
+#include "common/tabletuple.h"
+#include "common/TupleSchemaBuilder.h"
+#include "common/ValueFactory.hpp"
+#include "common/ValuePeeker.hpp"
+
+#include "test_utils/ScopedTupleSchema.hpp"
+#include "test_utils/UniqueEngine.hpp"
+
+#include <boost/scoped_array.hpp>
+
+using namespace voltdb;
+
+class StringDictionaryTest : public Test {
+public:
+    ~StringDictionaryTest() {
+        voltdb::globalDestroyOncePerProcess();
+    }
+
+    static TupleSchema* buildEncodedSchema() {
+        TupleSchemaBuilder builder(3);
+        builder.setColumnAtIndex(0, VALUE_TYPE_BIGINT);
+        builder.setColumnAtIndex(1, VALUE_TYPE_VARCHAR, 8);
+        builder.setColumnAtIndex(2, VALUE_TYPE_VARCHAR, 8);
+        builder.setColumnDictionaryEncoded(1, true);
+        return builder.build();
+    }
+};
+
+TEST_F(StringDictionaryTest, InternSharesEntries)
+{
+    UniqueEngine engine = UniqueEngineBuilder().build();
+    // The dictionary is created with the one reference released below.
+    StringDictionary* dictionary = new StringDictionary();
+
+    StringRef* first = dictionary->intern(5, "hello");
+    StringRef* second = dictionary->intern(5, "hello");
+    StringRef* other = dictionary->intern(5, "world");
+    EXPECT_EQ(first, second);
+    EXPECT_NE(first, other);
+    EXPECT_EQ(dictionary, first->getDictionary());
+    EXPECT_EQ(0, first->getAllocatedSizeInPersistentStorage());
+    EXPECT_EQ(2, dictionary->entryCount());
+    EXPECT_TRUE(dictionary->memorySize() > 0);
+
+    // Adopting a plain string swaps it for the shared entry.
+    StringRef* plain = StringRef::create(5, "world", static_cast<Pool*>(NULL));
+    EXPECT_EQ(NULL, plain->getDictionary());
+    EXPECT_EQ(other, dictionary->adopt(plain));
+
+    // Temp strings are never taken for entries, even unaligned ones.
+    Pool pool;
+    pool.allocate(1);
+    StringRef* temp = StringRef::create(5, "hello", &pool);
+    EXPECT_EQ(NULL, temp->getDictionary());
+    int32_t length;
+    EXPECT_EQ(0, ::memcmp("hello", temp->getObject(&length), 5));
+    EXPECT_EQ(5, length);
+    EXPECT_EQ(0, ::memcmp("hello", first->getObject(&length), 5));
+    EXPECT_EQ(5, length);
+
+    StringRef::destroy(first);
+    EXPECT_EQ(2, dictionary->entryCount());
+    StringRef::destroy(second);
+    EXPECT_EQ(1, dictionary->entryCount());
+    StringRef::destroy(other);
+    EXPECT_EQ(1, dictionary->entryCount());
+    StringRef::destroy(other);
+    EXPECT_EQ(0, dictionary->entryCount());
+    EXPECT_EQ(0, dictionary->memorySize());
+
+    dictionary->decrementRefcount();
+}
+
+TEST_F(StringDictionaryTest, SchemaLayout)
+{
+    UniqueEngine engine = UniqueEngineBuilder().build();
+    ScopedTupleSchema schema(buildEncodedSchema());
+
+    // The short encoded column is forced out-of-line, the other one is not.
+    EXPECT_EQ(1, schema->getUninlinedObjectColumnCount());
+    EXPECT_FALSE(schema->columnIsInlined(1));
+    EXPECT_TRUE(schema->columnIsInlined(2));
+    EXPECT_TRUE(schema->columnIsDictionaryEncoded(1));
+    EXPECT_FALSE(schema->columnIsDictionaryEncoded(2));
+
+    // Copies keep the layout but do not encode.
+    ScopedTupleSchema copy(TupleSchema::createTupleSchema(schema.get()));
+    EXPECT_TRUE(copy->isCompatibleForMemcpy(schema.get()));
+    EXPECT_FALSE(copy->columnIsDictionaryEncoded(1));
+
+    std::vector<uint16_t> columns;
+    columns.push_back(1);
+    columns.push_back(2);
+    ScopedTupleSchema projection(TupleSchema::createTupleSchema(schema.get(), columns));
+    EXPECT_EQ(1, projection->getUninlinedObjectColumnCount());
+    EXPECT_FALSE(projection->columnIsInlined(0));
+    EXPECT_FALSE(projection->columnIsDictionaryEncoded(0));
+}
+
+TEST_F(StringDictionaryTest, TupleValuesShareCodes)
+{
+    UniqueEngine engine = UniqueEngineBuilder().build();
+    ScopedTupleSchema schema(buildEncodedSchema());
+
+    // StandAloneTupleStorage keeps a copy of the schema, which does not
+    // encode, so lay the tuples out over the table's own schema instead.
+    boost::scoped_array<char> firstStorage(new char[schema->tupleLength() + TUPLE_HEADER_SIZE]());
+    boost::scoped_array<char> secondStorage(new char[schema->tupleLength() + TUPLE_HEADER_SIZE]());
+    TableTuple first(firstStorage.get(), schema.get());
+    TableTuple second(secondStorage.get(), schema.get());
+
+    NValue red = ValueFactory::getTempStringValue("red");
+    NValue blue = ValueFactory::getTempStringValue("blue");
+    first.setNValue(0, ValueFactory::getBigIntValue(1));
+    first.setNValueAllocateForObjectCopies(1, red);
+    first.setNValue(2, red);
+    second.setNValue(0, ValueFactory::getBigIntValue(2));
+    second.setNValueAllocateForObjectCopies(1, red);
+    second.setNValue(2, blue);
+    EXPECT_EQ(0, first.getNonInlinedMemorySizeForPersistentTable());
+
+    // Equal values of the encoded column share one code ...
+    NValue firstCode = first.getNValue(1);
+    NValue secondCode = second.getNValue(1);
+    EXPECT_EQ(ValuePeeker::peekObjectValue(firstCode), ValuePeeker::peekObjectValue(secondCode));
+    EXPECT_TRUE(firstCode.op_equals(secondCode).isTrue());
+    EXPECT_TRUE(firstCode.op_notEquals(secondCode).isFalse());
+    EXPECT_EQ(0, firstCode.compare(secondCode));
+
+    // ... and compare to plain strings by value.
+    EXPECT_TRUE(firstCode.op_equals(red).isTrue());
+    EXPECT_EQ(0, firstCode.compare(first.getNValue(2)));
+
+    second.freeObjectColumns();
+    second.setNValueAllocateForObjectCopies(1, blue);
+    secondCode = second.getNValue(1);
+    EXPECT_TRUE(firstCode.op_equals(secondCode).isFalse());
+    EXPECT_TRUE(firstCode.op_notEquals_withoutNull(secondCode).isTrue());
+    EXPECT_TRUE(firstCode.compare(secondCode) > 0);
+    EXPECT_TRUE(schema->getDictionaryMemorySize() > 0);
+
+    first.freeObjectColumns();
+    second.freeObjectColumns();
+    EXPECT_EQ(0, schema->getDictionaryMemorySize());
+}
+
+int main() {
+    return TestSuite::globalInstance()->runAll();
+}
@@ -30,7 +30,10 @@
 #include "test_utils/UniqueEngine.hpp"
 
 #include "common/executorcontext.hpp"
+#include "common/ValuePeeker.hpp"
 #include "executors/abstractexecutor.h"
+#include "storage/AbstractTempTable.hpp"
+#include "storage/tableiterator.h"
 #include "storage/temptable.h"
 
 using namespace voltdb;
@@ -486,6 +489,125 @@ const std::string jsonPlan =
     "}\n";
 
 
+// A large query that hash-aggregates T on VAL:
+//     select min(i), count(*), sum(i) from t group by val
+const std::string hashAggregateJsonPlan =
+    "{\n"
+    "   \"PLAN_NODES\":[\n"
+    "      {\n"
+    "         \"ID\":1,\n"
+    "         \"PLAN_NODE_TYPE\":\"HASHAGGREGATE\",\n"
+    "         \"CHILDREN_IDS\":[\n"
+    "            2\n"
+    "         ],\n"
+    "         \"OUTPUT_SCHEMA\":[\n"
+    "            {\n"
+    "               \"COLUMN_NAME\":\"C1\",\n"
+    "               \"EXPRESSION\":{\n"
+    "                  \"TYPE\":32,\n"
+    "                  \"VALUE_TYPE\":5,\n"
+    "                  \"COLUMN_IDX\":0\n"
+    "               }\n"
+    "            },\n"
+    "            {\n"
+    "               \"COLUMN_NAME\":\"C2\",\n"
+    "               \"EXPRESSION\":{\n"
+    "                  \"TYPE\":32,\n"
+    "                  \"VALUE_TYPE\":6,\n"
+    "                  \"COLUMN_IDX\":1\n"
+    "               }\n"
+    "            },\n"
+    "            {\n"
+    "               \"COLUMN_NAME\":\"C3\",\n"
+    "               \"EXPRESSION\":{\n"
+    "                  \"TYPE\":32,\n"
+    "                  \"VALUE_TYPE\":6,\n"
+    "                  \"COLUMN_IDX\":2\n"
+    "               }\n"
+    "            }\n"
+    "         ],\n"
+    "         \"AGGREGATE_COLUMNS\":[\n"
+    "            {\n"
+    "               \"AGGREGATE_TYPE\":\"AGGREGATE_MIN\",\n"
+    "               \"AGGREGATE_DISTINCT\":0,\n"
+    "               \"AGGREGATE_OUTPUT_COLUMN\":0,\n"
+    "               \"AGGREGATE_EXPRESSION\":{\n"
+    "                  \"TYPE\":32,\n"
+    "                  \"VALUE_TYPE\":5,\n"
+    "                  \"COLUMN_IDX\":0\n"
+    "               }\n"
+    "            },\n"
+    "            {\n"
+    "               \"AGGREGATE_TYPE\":\"AGGREGATE_COUNT_STAR\",\n"
+    "               \"AGGREGATE_DISTINCT\":0,\n"
+    "               \"AGGREGATE_OUTPUT_COLUMN\":1\n"
+    "            },\n"
+    "            {\n"
+    "               \"AGGREGATE_TYPE\":\"AGGREGATE_SUM\",\n"
+    "               \"AGGREGATE_DISTINCT\":0,\n"
+    "               \"AGGREGATE_OUTPUT_COLUMN\":2,\n"
+    "               \"AGGREGATE_EXPRESSION\":{\n"
+    "                  \"TYPE\":32,\n"
+    "                  \"VALUE_TYPE\":5,\n"
+    "                  \"COLUMN_IDX\":0\n"
+    "               }\n"
+    "            }\n"
+    "         ],\n"
+    "         \"GROUPBY_EXPRESSIONS\":[\n"
+    "            {\n"
+    "               \"TYPE\":32,\n"
+    "               \"VALUE_TYPE\":9,\n"
+    "               \"VALUE_SIZE\":500000,\n"
+    "               \"IN_BYTES\":true,\n"
+    "               \"COLUMN_IDX\":2\n"
+    "            }\n"
+    "         ]\n"
+    "      },\n"
+    "      {\n"
+    "         \"ID\":2,\n"
+    "         \"PLAN_NODE_TYPE\":\"SEQSCAN\",\n"
+    "         \"OUTPUT_SCHEMA\":[\n"
+    "            {\n"
+    "               \"COLUMN_NAME\":\"I\",\n"
+    "               \"EXPRESSION\":{\n"
+    "                  \"TYPE\":32,\n"
+    "                  \"VALUE_TYPE\":5,\n"
+    "                  \"COLUMN_IDX\":0\n"
+    "               }\n"
+    "            },\n"
+    "            {\n"
+    "               \"COLUMN_NAME\":\"INLINE_VC00\",\n"
+    "               \"EXPRESSION\":{\n"
+    "                  \"TYPE\":32,\n"
+    "                  \"VALUE_TYPE\":9,\n"
+    "                  \"VALUE_SIZE\":63,\n"
+    "                  \"IN_BYTES\":true,\n"
+    "                  \"COLUMN_IDX\":1\n"
+    "               }\n"
+    "            },\n"
+    "            {\n"
+    "               \"COLUMN_NAME\":\"VAL\",\n"
+    "               \"EXPRESSION\":{\n"
+    "                  \"TYPE\":32,\n"
+    "                  \"VALUE_TYPE\":9,\n"
+    "                  \"VALUE_SIZE\":500000,\n"
+    "                  \"IN_BYTES\":true,\n"
+    "                  \"COLUMN_IDX\":2\n"
+    "               }\n"
+    "            }\n"
+    "         ],\n"
+    "         \"TARGET_TABLE_NAME\":\"T\",\n"
+    "         \"TARGET_TABLE_ALIAS\":\"T\"\n"
+    "      }\n"
+    "   ],\n"
+    "   \"EXECUTE_LIST\":[\n"
+    "      2,\n"
+    "      1\n"
+    "   ],\n"
+    "   \"IS_LARGE_QUERY\":true\n"
+    "}\n";
+
+
 class ExecutorVectorTest : public Test {
 public:
     ~ExecutorVectorTest() {
@@ -556,6 +678,71 @@ TEST_F(ExecutorVectorTest, Large) {
     ASSERT_EQ(0, lttBlockCache->allocatedMemory());
 }
 
+TEST_F(ExecutorVectorTest, LargeHashAggregateSpills) {
+    LargeTempTableTopend* lttTopend = new LargeTempTableTopend();
+    std::unique_ptr<Topend> topend{lttTopend};
+
+    // An LTT block cache of three blocks leaves 12MB for the groups in memory.
+    int64_t tempTableMemoryLimitInBytes = 24 * 1024 * 1024;
+    UniqueEngine engine = UniqueEngineBuilder()
+        .setTopend(std::move(topend))
+        .setTempTableMemoryLimit(tempTableMemoryLimitInBytes)
+        .build();
+
+    bool rc = engine->loadCatalog(0, catalogPayload);
+    ASSERT_TRUE(rc);
+
+    // Two rows in each of 500 groups.  A group keeps its own copies of the
+    // 50KB key and pass-through row, so only about 120 groups fit in memory.
+    // The rest spill to two partitions of about 190 groups each, which are
+    // still too large and have to be partitioned once more.
+    const int numGroups = 500;
+    Table* persTbl = engine->getTableByName("T");
+    StandAloneTupleStorage tupleWrapper(persTbl->schema());
+    TableTuple tuple = tupleWrapper.tuple();
+
+    SynchronizedThreadLock::debugSimulateSingleThreadMode(true);
+    SynchronizedThreadLock::assumeMpMemoryContext();
+    for (int i = 0; i < 2 * numGroups; ++i) {
+        std::ostringstream ossLong;
+        ossLong << (i % numGroups) << std::string(50000, 'v');
+        Tools::setTupleValues(&tuple, i, "short", ossLong.str());
+        persTbl->insertTuple(tuple);
+    }
+    SynchronizedThreadLock::assumeLowestSiteContext();
+    SynchronizedThreadLock::debugSimulateSingleThreadMode(false);
+
+    auto ev = ExecutorVector::fromJsonPlan(engine.get(), hashAggregateJsonPlan, 0);
+    UniqueTempTableResult result = engine->executePlanFragment(ev.get(), NULL);
+    ASSERT_NE(NULL, result.get());
+
+    // The output is small and the input is the persistent table,
+    // so only the spilled partitions could have been written out.
+    ASSERT_TRUE(lttTopend->storeCount() > 0);
+
+    // Group g holds the rows g and g + numGroups.
+    std::vector<bool> seen(numGroups, false);
+    int groupCount = 0;
+    TableTuple resultTuple(result->schema());
+    TableIterator iter = result->iteratorDeletingAsWeGo();
+    while (iter.next(resultTuple)) {
+        int group = ValuePeeker::peekAsInteger(resultTuple.getNValue(0));
+        ASSERT_TRUE(group >= 0 && group < numGroups);
+        ASSERT_FALSE(seen[group]);
+        seen[group] = true;
+        ASSERT_EQ(2, ValuePeeker::peekAsBigInt(resultTuple.getNValue(1)));
+        ASSERT_EQ(2 * group + numGroups, ValuePeeker::peekAsBigInt(resultTuple.getNValue(2)));
+        ++groupCount;
+    }
+    ASSERT_EQ(numGroups, groupCount);
+
+    result.reset();
+    ExecutorContext::getExecutorContext()->cleanupAllExecutors();
+    LargeTempTableBlockCache* lttBlockCache = ExecutorContext::getExecutorContext()->lttBlockCache();
+    ASSERT_EQ(0, lttBlockCache->allocatedMemory());
+    ASSERT_EQ(0, lttTopend->storedBlockCount());
+}
+
 int main() {
     return TestSuite::globalInstance()->runAll();
 }
@@ -0,0 +1,414 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+#include <set>
+#include <sstream>
+#include <string>
+#include <tuple>
+#include <vector>
+
+#include <boost/foreach.hpp>
+#include <boost/optional.hpp>
+
+#include "harness.h"
+
+#include "test_utils/LargeTempTableTopend.hpp"
+#include "test_utils/Tools.hpp"
+#include "test_utils/UniqueEngine.hpp"
+
+#include "common/executorcontext.hpp"
+#include "common/LargeTempTableBlockCache.h"
+#include "common/ValuePeeker.hpp"
+#include "execution/ExecutorVector.h"
+#include "storage/AbstractTempTable.hpp"
+#include "storage/table.h"
+#include "storage/tableiterator.h"
+
+using namespace voltdb;
+
+// Catalog for the following DDL:
+//
+// CREATE TABLE L (
+//     ID INTEGER NOT NULL,
+//     K INTEGER,
+//     S VARCHAR(100000 BYTES)
+// );
+// PARTITION TABLE L ON COLUMN ID;
+// CREATE TABLE R (
+//     ID INTEGER NOT NULL,
+//     K INTEGER,
+//     S VARCHAR(100000 BYTES)
+// );
+// PARTITION TABLE R ON COLUMN ID;
+const std::string catalogPayload =
+    "add / clusters cluster\n"
+    "set /clusters#cluster localepoch 1199145600\n"
+    "set $PREV securityEnabled false\n"
+    "set $PREV httpdportno -1\n"
+    "set $PREV jsonapi true\n"
+    "set $PREV networkpartition false\n"
+    "set $PREV heartbeatTimeout 90\n"
+    "set $PREV useddlschema false\n"
+    "set $PREV drConsumerEnabled false\n"
+    "set $PREV drProducerEnabled true\n"
+    "set $PREV drRole \"master\"\n"
+    "set $PREV drClusterId 0\n"
+    "set $PREV drProducerPort 5555\n"
+    "set $PREV drMasterHost \"\"\n"
+    "set $PREV drFlushInterval 1000\n"
+    "set $PREV preferredSource 0\n"
+    "add /clusters#cluster databases database\n"
+    "set /clusters#cluster/databases#database isActiveActiveDRed false\n"
+    "set $PREV securityprovider \"hash\"\n"
+    "add /clusters#cluster/databases#database tables L\n"
+    "set /clusters#cluster/databases#database/tables#L isreplicated false\n"
+    "set $PREV partitioncolumn /clusters#cluster/databases#database/tables#L/columns#ID\n"
+    "set $PREV estimatedtuplecount 0\n"
+    "set $PREV materializer null\n"
+    "set $PREV signature \"L|iiv\"\n"
+    "set $PREV tuplelimit 2147483647\n"
+    "set $PREV isDRed false\n"
+    "add /clusters#cluster/databases#database/tables#L columns ID\n"
+    "set /clusters#cluster/databases#database/tables#L/columns#ID index 0\n"
+    "set $PREV type 5\n"
+    "set $PREV size 4\n"
+    "set $PREV nullable false\n"
+    "set $PREV name \"ID\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes false\n"
+    "add /clusters#cluster/databases#database/tables#L columns K\n"
+    "set /clusters#cluster/databases#database/tables#L/columns#K index 1\n"
+    "set $PREV type 5\n"
+    "set $PREV size 4\n"
+    "set $PREV nullable true\n"
+    "set $PREV name \"K\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes false\n"
+    "add /clusters#cluster/databases#database/tables#L columns S\n"
+    "set /clusters#cluster/databases#database/tables#L/columns#S index 2\n"
+    "set $PREV type 9\n"
+    "set $PREV size 100000\n"
+    "set $PREV nullable true\n"
+    "set $PREV name \"S\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes true\n"
+    "add /clusters#cluster/databases#database tables R\n"
+    "set /clusters#cluster/databases#database/tables#R isreplicated false\n"
+    "set $PREV partitioncolumn /clusters#cluster/databases#database/tables#R/columns#ID\n"
+    "set $PREV estimatedtuplecount 0\n"
+    "set $PREV materializer null\n"
+    "set $PREV signature \"R|iiv\"\n"
+    "set $PREV tuplelimit 2147483647\n"
+    "set $PREV isDRed false\n"
+    "add /clusters#cluster/databases#database/tables#R columns ID\n"
+    "set /clusters#cluster/databases#database/tables#R/columns#ID index 0\n"
+    "set $PREV type 5\n"
+    "set $PREV size 4\n"
+    "set $PREV nullable false\n"
+    "set $PREV name \"ID\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes false\n"
+    "add /clusters#cluster/databases#database/tables#R columns K\n"
+    "set /clusters#cluster/databases#database/tables#R/columns#K index 1\n"
+    "set $PREV type 5\n"
+    "set $PREV size 4\n"
+    "set $PREV nullable true\n"
+    "set $PREV name \"K\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes false\n"
+    "add /clusters#cluster/databases#database/tables#R columns S\n"
+    "set /clusters#cluster/databases#database/tables#R/columns#S index 2\n"
+    "set $PREV type 9\n"
+    "set $PREV size 100000\n"
+    "set $PREV nullable true\n"
+    "set $PREV name \"S\"\n"
+    "set $PREV defaultvalue null\n"
+    "set $PREV defaulttype 0\n"
+    "set $PREV aggregatetype 0\n"
+    "set $PREV matviewsource null\n"
+    "set $PREV matview null\n"
+    "set $PREV inbytes true\n"
+    "add /clusters#cluster deployment deployment\n"
+    "set /clusters#cluster/deployment#deployment kfactor 0\n"
+    "add /clusters#cluster/deployment#deployment systemsettings systemsettings\n"
+    "set /clusters#cluster/deployment#deployment/systemsettings#systemsettings temptablemaxsize 100\n"
+    "set $PREV snapshotpriority 6\n"
+    "set $PREV elasticduration 50\n"
+    "set $PREV elasticthroughput 2\n"
+    "set $PREV querytimeout 300000\n"
+    "add /clusters#cluster logconfig log\n"
+    "set /clusters#cluster/logconfig#log enabled false\n"
+    "set $PREV synchronous false\n"
+    "set $PREV fsyncInterval 200\n"
+    "set $PREV maxTxns 2147483647\n"
+    "set $PREV logSize 1024\n";
+
+static std::string columnJson(const std::string& name, int index, bool isString) {
+    std::ostringstream oss;
+    oss << "{\"COLUMN_NAME\":\"" << name << "\",\"EXPRESSION\":{\"TYPE\":32,";
+    if (isString) {
+        oss << "\"VALUE_TYPE\":9,\"VALUE_SIZE\":100000,\"IN_BYTES\":true,";
+    }
+    else {
+        oss << "\"VALUE_TYPE\":5,";
+    }
+    oss << "\"COLUMN_IDX\":" << index << "}}";
+    return oss.str();
+}
+
+static std::string scanJson(int id, const std::string& tableName) {
+    std::ostringstream oss;
+    oss << "{\"ID\":" << id << ",\"PLAN_NODE_TYPE\":\"SEQSCAN\","
+        << "\"OUTPUT_SCHEMA\":["
+        << columnJson("ID", 0, false) << ","
+        << columnJson("K", 1, false) << ","
+        << columnJson("S", 2, true) << "],"
+        << "\"TARGET_TABLE_NAME\":\"" << tableName << "\","
+        << "\"TARGET_TABLE_ALIAS\":\"" << tableName << "\"}";
+    return oss.str();
+}
+
+// The plan for
+//     SELECT * FROM L <joinType> JOIN R ON L.K = R.K;
+// with a hash join on the K columns.
+static std::string hashJoinPlan(const std::string& joinType, bool isLargeQuery) {
+    std::ostringstream oss;
+    oss << "{\"PLAN_NODES\":["
+        << "{\"ID\":1,\"PLAN_NODE_TYPE\":\"HASHJOIN\",\"CHILDREN_IDS\":[2,3],"
+        << "\"OUTPUT_SCHEMA\":["
+        << columnJson("ID", 0, false) << ","
+        << columnJson("K", 1, false) << ","
+        << columnJson("S", 2, true) << ","
+        << columnJson("ID", 3, false) << ","
+        << columnJson("K", 4, false) << ","
+        << columnJson("S", 5, true) << "],"
+        << "\"JOIN_TYPE\":\"" << joinType << "\","
+        << "\"OUTER_HASH_EXPRESSIONS\":[{\"TYPE\":32,\"VALUE_TYPE\":5,\"COLUMN_IDX\":1}],"
+        << "\"INNER_HASH_EXPRESSIONS\":[{\"TYPE\":32,\"VALUE_TYPE\":5,\"COLUMN_IDX\":1,\"TABLE_IDX\":1}]},"
+        << scanJson(2, "L") << ","
+        << scanJson(3, "R")
+        << "],\"EXECUTE_LIST\":[2,3,1],"
+        << "\"IS_LARGE_QUERY\":" << (isLargeQuery ? "true" : "false") << "}";
+    return oss.str();
+}
+
+typedef std::tuple<int, boost::optional<int>, std::string> Row;
+// A joined row as the pair of (L.ID, R.ID), with -1 for the null padding.
+typedef std::pair<int, int> JoinedIds;
+
+class HashJoinExecutorTest : public Test {
+public:
+    HashJoinExecutorTest()
+        : m_topend(NULL)
+    {
+    }
+
+    ~HashJoinExecutorTest() {
+        m_engine.reset();
+        voltdb::globalDestroyOncePerProcess();
+    }
+
+protected:
+    void initEngine(int64_t tempTableMemoryLimit) {
+        m_topend = new LargeTempTableTopend();
+        std::unique_ptr<Topend> topend(m_topend);
+        m_engine.reset(new UniqueEngine(UniqueEngineBuilder()
+                                        .setTopend(std::move(topend))
+                                        .setTempTableMemoryLimit(tempTableMemoryLimit)
+                                        .build()));
+        ASSERT_TRUE((*m_engine)->loadCatalog(0, catalogPayload));
+    }
+
+    /**
+     * Fill L and R.  The keys of L and R overlap only partly and every
+     * seventh row of each has a NULL key, so that every kind of outer
+     * and inner tuple, matched or not, shows up in the join.
+     */
+    void loadTables(int outerCount, int innerCount, int innerStringLength) {
+        m_outerRows.clear();
+        m_innerRows.clear();
+        for (int ii = 0; ii < outerCount; ii++) {
+            boost::optional<int> key;
+            if (ii % 7 != 0) {
+                key = 10 + ii % 60;
+            }
+            m_outerRows.push_back(Row{ii, key, "outer"});
+        }
+        for (int ii = 0; ii < innerCount; ii++) {
+            boost::optional<int> key;
+            if (ii % 7 != 0) {
+                key = ii % 50;
+            }
+            std::ostringstream oss;
+            oss << ii << std::string(innerStringLength, 'x');
+            m_innerRows.push_back(Row{ii, key, oss.str()});
+        }
+        insertRows("L", m_outerRows);
+        insertRows("R", m_innerRows);
+    }
+
+    /** What a nested loop join over the loaded rows would produce. */
+    std::multiset<JoinedIds> expectedJoin(JoinType joinType) const {
+        std::multiset<JoinedIds> expected;
+        std::vector<bool> innerMatched(m_innerRows.size(), false);
+        BOOST_FOREACH(const Row& outer, m_outerRows) {
+            bool outerMatched = false;
+            for (size_t ii = 0; ii < m_innerRows.size(); ii++) {
+                const Row& inner = m_innerRows[ii];
+                if (std::get<1>(outer) && std::get<1>(inner) &&
+                        *std::get<1>(outer) == *std::get<1>(inner)) {
+                    expected.insert(JoinedIds(std::get<0>(outer), std::get<0>(inner)));
+                    outerMatched = true;
+                    innerMatched[ii] = true;
+                }
+            }
+            if ( ! outerMatched && joinType != JOIN_TYPE_INNER) {
+                expected.insert(JoinedIds(std::get<0>(outer), -1));
+            }
+        }
+        if (joinType == JOIN_TYPE_FULL) {
+            for (size_t ii = 0; ii < m_innerRows.size(); ii++) {
+                if ( ! innerMatched[ii]) {
+                    expected.insert(JoinedIds(-1, std::get<0>(m_innerRows[ii])));
+                }
+            }
+        }
+        return expected;
+    }
+
+    /**
+     * Run the hash join and return the joined ids, checking on the way
+     * that the inner column values came through intact.
+     */
+    std::multiset<JoinedIds> executeJoin(const std::string& joinType, bool isLargeQuery) {
+        std::multiset<JoinedIds> actual;
+        auto ev = ExecutorVector::fromJsonPlan(m_engine->get(), hashJoinPlan(joinType, isLargeQuery), 0);
+        UniqueTempTableResult result = (*m_engine)->executePlanFragment(ev.get(), NULL);
+        EXPECT_NE(NULL, result.get());
+        if (result.get() == NULL) {
+            return actual;
+        }
+        TableTuple tuple(result->schema());
+        TableIterator iterator = result->iteratorDeletingAsWeGo();
+        while (iterator.next(tuple)) {
+            int outerId = -1;
+            int innerId = -1;
+            if ( ! tuple.getNValue(0).isNull()) {
+                outerId = ValuePeeker::peekAsInteger(tuple.getNValue(0));
+            }
+            if ( ! tuple.getNValue(3).isNull()) {
+                innerId = ValuePeeker::peekAsInteger(tuple.getNValue(3));
+                const Row& inner = m_innerRows[innerId];
+                EXPECT_EQ(std::get<2>(inner), tuple.getNValue(5).toString());
+            }
+            else {
+                EXPECT_TRUE(tuple.getNValue(5).isNull());
+            }
+            actual.insert(JoinedIds(outerId, innerId));
+        }
+        ExecutorContext::getExecutorContext()->cleanupAllExecutors();
+        return actual;
+    }
+
+    LargeTempTableTopend* m_topend;
+
+private:
+    void insertRows(const std::string& tableName, const std::vector<Row>& rows) {
+        Table* table = (*m_engine)->getTableByName(tableName);
+        StandAloneTupleStorage storage(table->schema());
+        TableTuple tuple = storage.tuple();
+        BOOST_FOREACH(const Row& row, rows) {
+            Tools::initTuple(&tuple, row);
+            table->insertTuple(tuple);
+        }
+    }
+
+    std::unique_ptr<UniqueEngine> m_engine;
+    std::vector<Row> m_outerRows;
+    std::vector<Row> m_innerRows;
+};
+
+TEST_F(HashJoinExecutorTest, InMemory) {
+    initEngine(DEFAULT_TEMP_TABLE_MEMORY);
+    loadTables(100, 120, 10);
+
+    ASSERT_TRUE(expectedJoin(JOIN_TYPE_INNER) == executeJoin("INNER", false));
+    ASSERT_TRUE(expectedJoin(JOIN_TYPE_LEFT) == executeJoin("LEFT", false));
+    ASSERT_TRUE(expectedJoin(JOIN_TYPE_FULL) == executeJoin("FULL", false));
+}
+
+TEST_F(HashJoinExecutorTest, LargeQueryFitsInMemory) {
+    // A cache of three blocks, half of which bounds the in-memory join.
+    // Partitioning would need four blocks, so it could not go unnoticed.
+    initEngine(3 * LargeTempTableBlock::BLOCK_SIZE_IN_BYTES);
+    loadTables(100, 120, 10);
+
+    ASSERT_TRUE(expectedJoin(JOIN_TYPE_INNER) == executeJoin("INNER", true));
+    ASSERT_TRUE(expectedJoin(JOIN_TYPE_LEFT) == executeJoin("LEFT", true));
+    ASSERT_TRUE(expectedJoin(JOIN_TYPE_FULL) == executeJoin("FULL", true));
+
+    // Without partitions only the small output lived in the cache, so nothing was stored.
+    ASSERT_EQ(0, m_topend->storeCount());
+    ASSERT_EQ(0, ExecutorContext::getExecutorContext()->lttBlockCache()->allocatedMemory());
+}
+
+TEST_F(HashJoinExecutorTest, LargeQuerySpills) {
+    initEngine(3 * LargeTempTableBlock::BLOCK_SIZE_IN_BYTES);
+    // About 24MB of inner strings, well past the 12MB in-memory limit,
+    // and few enough outer rows that the inner join output fits in one block.
+    loadTables(8, 400, 60000);
+    LargeTempTableBlockCache* lttBlockCache = ExecutorContext::getExecutorContext()->lttBlockCache();
+
+    ASSERT_TRUE(expectedJoin(JOIN_TYPE_INNER) == executeJoin("INNER", true));
+    // Only the partitions could have outgrown the cache.
+    ASSERT_TRUE(m_topend->storeCount() > 0);
+    ASSERT_TRUE(expectedJoin(JOIN_TYPE_LEFT) == executeJoin("LEFT", true));
+    ASSERT_TRUE(expectedJoin(JOIN_TYPE_FULL) == executeJoin("FULL", true));
+
+    ASSERT_EQ(0, m_topend->storedBlockCount());
+    ASSERT_EQ(0, lttBlockCache->allocatedMemory());
+}
+
+int main() {
+    return TestSuite::globalInstance()->runAll();
+}
@@ -123,6 +123,74 @@ TEST_F(CompactingHashIndexTest, ENG1193) {
     delete tuple4;
 }
 
+TEST_F(CompactingHashIndexTest, UniqueBigIntKey) {
+    vector<int> columnIndices;
+    vector<ValueType> columnTypes;
+    vector<int32_t> columnLengths;
+    vector<bool> columnAllowNull;
+
+    columnIndices.push_back(0);
+    columnTypes.push_back(VALUE_TYPE_BIGINT);
+    columnLengths.push_back(NValue::getTupleStorageSize(VALUE_TYPE_BIGINT));
+    columnAllowNull.push_back(false);
+
+    TupleSchema *schema = TupleSchema::createTupleSchemaForTest(columnTypes,
+                                                         columnLengths,
+                                                         columnAllowNull);
+
+    // a unique hash index on one integer column gets the integer keyed table
+    TableIndexScheme scheme("test_index", HASH_TABLE_INDEX,
+                            columnIndices, TableIndex::simplyIndexColumns(),
+                            true, false, schema);
+    TableIndex *index = TableIndexFactory::getInstance(scheme);
+    EXPECT_EQ("IntsHashUniqueIndex", index->getTypeName());
+
+    TableTuple *tuple1 = newTuple(schema, 0, -1);
+    index->addEntry(tuple1, NULL);
+    TableTuple *tuple2 = newTuple(schema, 0, 0);
+    index->addEntry(tuple2, NULL);
+    TableTuple *tuple3 = newTuple(schema, 0, 12);
+    index->addEntry(tuple3, NULL);
+    EXPECT_EQ(3, index->getSize());
+
+    // a duplicate key reports the tuple already in the index
+    TableTuple *tuple4 = newTuple(schema, 0, 0);
+    TableTuple conflict(schema);
+    index->addEntry(tuple4, &conflict);
+    EXPECT_EQ(tuple2->address(), conflict.address());
+    EXPECT_EQ(3, index->getSize());
+
+    // the key stays in the index, but now refers to the replacement tuple
+    EXPECT_TRUE(index->replaceEntryNoKeyChange(*tuple4, *tuple2));
+    EXPECT_TRUE(index->exists(tuple4));
+    EXPECT_EQ(3, index->getSize());
+
+    IndexCursor cursor(index->getTupleSchema());
+    EXPECT_TRUE(index->moveToKeyByTuple(tuple2, cursor));
+    EXPECT_EQ(tuple4->address(), index->nextValueAtKey(cursor).address());
+    EXPECT_TRUE(index->nextValueAtKey(cursor).isNullTuple());
+
+    EXPECT_TRUE(index->moveToKeyByTuple(tuple1, cursor));
+    EXPECT_EQ(tuple1->address(), index->nextValueAtKey(cursor).address());
+    EXPECT_TRUE(index->nextValueAtKey(cursor).isNullTuple());
+
+    EXPECT_TRUE(index->deleteEntry(tuple1));
+    EXPECT_FALSE(index->exists(tuple1));
+    EXPECT_FALSE(index->moveToKeyByTuple(tuple1, cursor));
+    EXPECT_EQ(2, index->getSize());
+
+    delete index;
+    TupleSchema::freeTupleSchema(schema);
+    delete[] tuple1->address();
+    delete tuple1;
+    delete[] tuple2->address();
+    delete tuple2;
+    delete[] tuple3->address();
+    delete tuple3;
+    delete[] tuple4->address();
+    delete tuple4;
+}
+
 int main()
 {
     return TestSuite::globalInstance()->runAll();
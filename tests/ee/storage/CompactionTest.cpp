@@ -164,6 +164,18 @@ public:
                                               TableIndex::simplyIndexColumns(),
                                               false, false, m_tableSchema);
         indexes.push_back(indexScheme3);
+        voltdb::TableIndexScheme indexScheme4("BPlusTreeUniqueIndex",
+                                              voltdb::BTREE_INDEX,
+                                              m_primaryKeyIndexColumns,
+                                              TableIndex::simplyIndexColumns(),
+                                              true, true, m_tableSchema);
+        indexes.push_back(indexScheme4);
+        voltdb::TableIndexScheme indexScheme5("BPlusTreeMultimapIndex",
+                                              voltdb::BTREE_INDEX,
+                                              m_primaryKeyIndexColumns,
+                                              TableIndex::simplyIndexColumns(),
+                                              false, true, m_tableSchema);
+        indexes.push_back(indexScheme5);
 
 
 
@@ -525,6 +537,62 @@ TEST_F(CompactionTest, CompactionWithCopyOnWrite) {
         ASSERT_TRUE(COWTuples.find(ii) != COWTuples.end());
     }
 }
+// Under MEMCHECK every tuple gets its own block, so there is nothing to compact.
+#ifndef MEMCHECK
+TEST_F(CompactionTest, IncrementalCompaction) {
+    initTable();
+    int tupleCount = 645260;
+    addRandomUniqueTuples( m_table, tupleCount);
+    size_t blocksBeforeDelete = m_table->m_data.size();
+
+    voltdb::TableIndex *pkeyIndex = m_table->primaryKeyIndex();
+    TableTuple key(pkeyIndex->getKeySchema());
+    boost::scoped_array<char> backingStore(new char[pkeyIndex->getKeySchema()->tupleLength()]);
+    key.moveNoHeader(backingStore.get());
+
+    IndexCursor indexCursor(pkeyIndex->getTupleSchema());
+
+    for (int ii = 0; ii < tupleCount; ii += 2) {
+        key.setNValue(0, ValueFactory::getIntegerValue(ii));
+        ASSERT_TRUE(pkeyIndex->moveToKey(&key, indexCursor));
+        TableTuple tuple = pkeyIndex->nextValueAtKey(indexCursor);
+        m_table->deleteTuple(tuple, true);
+    }
+    ASSERT_TRUE(m_table->compactionPredicate());
+    int64_t emptyMemoryBefore = m_table->emptyTupleMemory();
+    ASSERT_TRUE(emptyMemoryBefore > 0);
+
+    // an expired budget leaves the work for a later run
+    boost::posix_time::ptime now = boost::posix_time::microsec_clock::universal_time();
+    ASSERT_TRUE(m_table->doIncrementalCompaction(now));
+    ASSERT_EQ(0, m_table->compactedBlockCount());
+    ASSERT_EQ(blocksBeforeDelete, m_table->m_data.size());
+
+    // with enough time it compacts until the predicate is satisfied
+    ASSERT_FALSE(m_table->doIncrementalCompaction(now + boost::posix_time::hours(1)));
+    ASSERT_FALSE(m_table->compactionPredicate());
+    ASSERT_TRUE(m_table->m_data.size() < blocksBeforeDelete);
+    ASSERT_EQ(blocksBeforeDelete - m_table->m_data.size(), m_table->compactedBlockCount());
+    ASSERT_TRUE(m_table->compactedTupleCount() > 0);
+    ASSERT_TRUE(m_table->emptyTupleMemory() < emptyMemoryBefore);
+
+    TableIterator iter = m_table->iterator();
+    TableTuple tuple(m_table->schema());
+    int found = 0;
+    while (iter.next(tuple)) {
+        int32_t pkey = ValuePeeker::peekAsInteger(tuple.getNValue(0));
+        ASSERT_EQ(1, pkey % 2);
+        key.setNValue(0, ValueFactory::getIntegerValue(pkey));
+        for (int ii = 0; ii < 4; ii++) {
+            ASSERT_TRUE(m_table->m_indexes[ii]->moveToKey(&key, indexCursor));
+            TableTuple indexTuple = m_table->m_indexes[ii]->nextValueAtKey(indexCursor);
+            ASSERT_EQ(indexTuple.address(), tuple.address());
+        }
+        found++;
+    }
+    ASSERT_EQ(tupleCount / 2, found);
+}
+#endif
 
 /*
  * The problem I suspect in ENG897 is that the last
@@ -0,0 +1,193 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+/*
+ * Measures the throughput of a table load with and without undo logging,
+ * the two ways @LoadSinglepartitionTable can hand a batch to the EE.
+ * Not part of the regular test run, build and run it by hand:
+ *
+ *   LoadTableBenchmark [rows per load] [loads per mode]
+ */
+
+#include <cstdio>
+#include <cstdlib>
+#include <sys/time.h>
+#include <string>
+#include <vector>
+
+#include "harness.h"
+
+#include "common/serializeio.h"
+#include "common/TupleSchema.h"
+#include "common/types.h"
+#include "common/ValueFactory.hpp"
+#include "execution/VoltDBEngine.h"
+#include "indexes/tableindex.h"
+#include "indexes/tableindexfactory.h"
+#include "storage/persistenttable.h"
+#include "storage/tablefactory.h"
+
+using namespace voltdb;
+
+static int s_rowsPerLoad = 100000;
+static int s_loadsPerMode = 5;
+
+static int64_t getMicrosNow() {
+    timeval tv;
+    gettimeofday(&tv, NULL);
+    return tv.tv_sec * 1000000 + tv.tv_usec;
+}
+
+class LoadTableBenchmark : public Test {
+public:
+    LoadTableBenchmark() : m_undoToken(INT64_MIN) {
+        m_engine = new VoltDBEngine();
+        int partitionCount = 1;
+        m_engine->initialize(1, 1, 0, partitionCount, 0, "", 0, 1024, DEFAULT_TEMP_TABLE_MEMORY, true);
+        partitionCount = htonl(partitionCount);
+        m_engine->updateHashinator((char*)&partitionCount, NULL, 0);
+
+        m_columnNames.push_back("ID");
+        m_columnNames.push_back("QTY");
+        m_columnNames.push_back("PRICE");
+        m_columnNames.push_back("CODE");
+        m_columnNames.push_back("NOTE");
+        std::vector<ValueType> types;
+        types.push_back(VALUE_TYPE_BIGINT);
+        types.push_back(VALUE_TYPE_INTEGER);
+        types.push_back(VALUE_TYPE_DOUBLE);
+        types.push_back(VALUE_TYPE_VARCHAR);
+        types.push_back(VALUE_TYPE_VARCHAR);
+        std::vector<int32_t> sizes;
+        sizes.push_back(NValue::getTupleStorageSize(VALUE_TYPE_BIGINT));
+        sizes.push_back(NValue::getTupleStorageSize(VALUE_TYPE_INTEGER));
+        sizes.push_back(NValue::getTupleStorageSize(VALUE_TYPE_DOUBLE));
+        // one inlined and one out-of-line string
+        sizes.push_back(16);
+        sizes.push_back(300);
+        std::vector<bool> allowNull(types.size(), false);
+        m_types = types;
+        m_sizes = sizes;
+        m_allowNull = allowNull;
+    }
+
+    ~LoadTableBenchmark() {
+        delete m_engine;
+        voltdb::globalDestroyOncePerProcess();
+    }
+
+    PersistentTable* createTable() {
+        TupleSchema* schema = TupleSchema::createTupleSchemaForTest(m_types, m_sizes, m_allowNull);
+        PersistentTable* table = dynamic_cast<PersistentTable*>(
+            TableFactory::getPersistentTable(0, "LOADED", schema, m_columnNames, m_signature));
+        std::vector<int> pkeyColumns(1, 0);
+        TableIndexScheme scheme("pkey", BALANCED_TREE_INDEX, pkeyColumns,
+                                TableIndex::simplyIndexColumns(), true, true, schema);
+        TableIndex* pkeyIndex = TableIndexFactory::getInstance(scheme);
+        table->addIndex(pkeyIndex);
+        table->setPrimaryKeyIndex(pkeyIndex);
+        return table;
+    }
+
+    // Serialize the batch the way the frontend sends it to loadTable.
+    void buildBatch(CopySerializeOutput& out) {
+        PersistentTable* source = createTable();
+        std::string note(200, 'n');
+        for (int i = 0; i < s_rowsPerLoad; ++i) {
+            TableTuple& tuple = source->tempTuple();
+            tuple.setNValue(0, ValueFactory::getBigIntValue(i));
+            tuple.setNValue(1, ValueFactory::getIntegerValue(i % 1000));
+            tuple.setNValue(2, ValueFactory::getDoubleValue(i * 0.5));
+            tuple.setNValue(3, ValueFactory::getTempStringValue("code"));
+            tuple.setNValue(4, ValueFactory::getTempStringValue(note));
+            source->insertTuple(tuple);
+        }
+        source->serializeTo(out);
+        delete source;
+    }
+
+    // @return the microseconds spent loading the batch into an empty table
+    // and, with undo, releasing the undo log at commit.
+    int64_t load(const CopySerializeOutput& batch, bool undo) {
+        PersistentTable* table = createTable();
+        int64_t token = INT64_MAX;
+        if (undo) {
+            token = ++m_undoToken;
+        }
+        ReferenceSerializeInputBE in(batch.data() + sizeof(int32_t), batch.size() - sizeof(int32_t));
+        int64_t start = getMicrosNow();
+        m_engine->setUndoToken(token);
+        // this next line is a testing hack until engine data is
+        // de-duplicated with executorcontext data
+        m_engine->updateExecutorContextUndoQuantumForTest();
+        table->loadTuplesFrom(in, NULL);
+        if (undo) {
+            m_engine->releaseUndoToken(token, false);
+        }
+        int64_t elapsed = getMicrosNow() - start;
+        EXPECT_EQ(s_rowsPerLoad, table->activeTupleCount());
+        delete table;
+        return elapsed;
+    }
+
+    VoltDBEngine* m_engine;
+    int64_t m_undoToken;
+    std::vector<std::string> m_columnNames;
+    std::vector<ValueType> m_types;
+    std::vector<int32_t> m_sizes;
+    std::vector<bool> m_allowNull;
+    char m_signature[20];
+};
+
+TEST_F(LoadTableBenchmark, UndoVersusNoUndo) {
+    CopySerializeOutput batch;
+    buildBatch(batch);
+    double megabytes = batch.size() / (1024.0 * 1024.0);
+
+    // warm up the allocators
+    load(batch, true);
+    load(batch, false);
+
+    int64_t withUndo = 0;
+    int64_t withoutUndo = 0;
+    for (int i = 0; i < s_loadsPerMode; ++i) {
+        withUndo += load(batch, true);
+        withoutUndo += load(batch, false);
+    }
+    double undoRate = megabytes * s_loadsPerMode * 1000000.0 / withUndo;
+    double noUndoRate = megabytes * s_loadsPerMode * 1000000.0 / withoutUndo;
+    printf("%d rows, %.1f MB per load, %d loads per mode\n",
+           s_rowsPerLoad, megabytes, s_loadsPerMode);
+    printf("with undo:    %8.1f MB/s\n", undoRate);
+    printf("without undo: %8.1f MB/s (%+.1f%%)\n", noUndoRate, (noUndoRate / undoRate - 1.0) * 100.0);
+}
+
+int main(int argc, char* argv[]) {
+    if (argc > 1) {
+        s_rowsPerLoad = atoi(argv[1]);
+    }
+    if (argc > 2) {
+        s_loadsPerMode = atoi(argv[2]);
+    }
+    return TestSuite::globalInstance()->runAll();
+}
@@ -290,6 +290,46 @@ TEST_F(PersistentTableLogTest, LoadTableThenReleaseTest) {
     ASSERT_TRUE(m_table->activeTupleCount() == (int64_t)1000);
 }
 
+TEST_F(PersistentTableLogTest, LoadTableWithoutUndoTest) {
+    initTable();
+    tableutil::addRandomTuples(m_table, 1000);
+
+    CopySerializeOutput serialize_out;
+    m_table->serializeTo(serialize_out);
+
+    m_engine->setUndoToken(INT64_MIN + 2);
+    // this next line is a testing hack until engine data is
+    // de-duplicated with executorcontext data
+    m_engine->updateExecutorContextUndoQuantumForTest();
+
+    m_table->deleteAllTuples(true);
+    m_engine->releaseUndoToken(INT64_MIN + 2, false);
+
+    delete m_table;
+
+    initTable();
+
+    ReferenceSerializeInputBE serialize_in(serialize_out.data() + sizeof(int32_t), serialize_out.size() - sizeof(int32_t));
+
+    // INT64_MAX is the token of a load without undo, it opens no undo quantum
+    m_engine->setUndoToken(INT64_MAX);
+    m_engine->updateExecutorContextUndoQuantumForTest();
+    ASSERT_TRUE(m_engine->getCurrentUndoQuantum() == NULL);
+
+    m_table->loadTuplesFrom(serialize_in, NULL);
+    ASSERT_TRUE(m_table->activeTupleCount() == (int64_t)1000);
+
+    // the loaded tuples are not part of the next quantum, undoing it keeps them
+    m_engine->setUndoToken(INT64_MIN + 3);
+    m_engine->updateExecutorContextUndoQuantumForTest();
+    m_engine->undoUndoToken(INT64_MIN + 3);
+
+    voltdb::TableTuple tuple(m_tableSchema);
+    tableutil::getRandomTuple(m_table, tuple);
+    ASSERT_FALSE(m_table->lookupTupleForUndo(tuple).isNullTuple());
+    ASSERT_TRUE(m_table->activeTupleCount() == (int64_t)1000);
+}
+
 TEST_F(PersistentTableLogTest, InsertUpdateThenUndoOneTest) {
     initTable();
     tableutil::addRandomTuples(m_table, 1);
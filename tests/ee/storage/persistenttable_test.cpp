@@ -33,6 +33,8 @@
 #include "common/TupleSchemaBuilder.h"
 #include "common/types.h"
 #include "common/ValueFactory.hpp"
+#include "common/ValuePeeker.hpp"
+#include "common/serializeio.h"
 
 #include "execution/VoltDBEngine.h"
 
@@ -109,6 +111,40 @@ protected:
         m_engine->setUndoToken(m_undoToken);
     }
 
+    // Release the current undo quantum without opening the next one,
+    // which leaves the engine idle as the site is between transactions.
+    void commitAndIdle() {
+        m_engine->releaseUndoToken(m_undoToken, false);
+        ++m_undoToken;
+    }
+
+    void rollbackAndIdle() {
+        m_engine->undoUndoToken(m_undoToken);
+        ++m_undoToken;
+    }
+
+    void resumeWork() {
+        m_engine->setUndoToken(m_undoToken);
+        beginWork();
+    }
+
+    // Run one background compaction task, as the CompactionProducer does.
+    // Returns true if some table still needs compaction.
+    bool compactTables(int64_t timeBudgetMicros) {
+        char params[sizeof(int64_t)];
+        ReferenceSerializeOutput paramOutput(params, sizeof(params));
+        paramOutput.writeLong(timeBudgetMicros);
+        m_engine->setBuffers(NULL, 0, NULL, 0, NULL, 0, NULL, 0,
+                             m_resultBuffer, sizeof(m_resultBuffer),
+                             m_exceptionBuffer, sizeof(m_exceptionBuffer));
+        m_engine->resetReusedResultOutputBuffer();
+        ReferenceSerializeInputBE taskInfo(params, sizeof(params));
+        m_engine->executeTask(TASK_TYPE_COMPACT_TABLES, taskInfo);
+        ReferenceSerializeInputBE result(m_resultBuffer, sizeof(m_resultBuffer));
+        result.readInt();
+        return result.readByte() != 0;
+    }
+
     static const std::string& catalogPayload() {
         static const std::string payload(
             "add / clusters cluster\n"
@@ -235,6 +271,8 @@ protected:
 
 private:
     boost::scoped_ptr<VoltDBEngine> m_engine;
+    char m_resultBuffer[64];
+    char m_exceptionBuffer[4096];
     int64_t m_undoToken;
     int64_t m_uniqueId;
 };
@@ -794,6 +832,77 @@ TEST_F(PersistentTableTest, SwapTablesTest) {
     rollback();
 }
 
+TEST_F(PersistentTableTest, CompactTablesDuringMultiPartitionRollback) {
+    VoltDBEngine* engine = getEngine();
+    engine->loadCatalog(0, catalogPayload());
+    commitAndIdle();
+    PersistentTable* table = engine->getTableDelegate("T")->getPersistentTable();
+    ASSERT_NE(NULL, table);
+
+    // An idle run on the empty table switches it to background compaction,
+    // so releasing the deletes below leaves their holes to the task.
+    ASSERT_FALSE(compactTables(1000));
+
+    const int tupleCount = 1000000;
+    const int survivorCount = tupleCount / 5 * 3;
+    resumeWork();
+    TableTuple& tempTuple = table->tempTuple();
+    for (int ii = 0; ii < tupleCount; ii++) {
+        tempTuple.setNValue(0, ValueFactory::getBigIntValue(ii));
+        tempTuple.setNValue(1, ValueFactory::getNullStringValue());
+        table->insertTuple(tempTuple);
+    }
+    commitAndIdle();
+
+    // Deleting two rows in five empties fewer than half of the slots,
+    // which is when a release would still compact inline.
+    resumeWork();
+    TableTuple tuple(table->schema());
+    TableIterator iter = table->iterator();
+    while (iter.next(tuple)) {
+        if (ValuePeeker::peekBigInt(tuple.getNValue(0)) % 5 < 2) {
+            table->deleteTuple(tuple, true);
+        }
+    }
+    commitAndIdle();
+    validateCounts(table, survivorCount, 1);
+    size_t blockCount = table->allocatedBlockCount();
+    int64_t emptyTupleMemory = table->emptyTupleMemory();
+    ASSERT_EQ(0, table->compactedBlockCount());
+
+    // The task can run between the fragments of a multi-partition
+    // transaction. While that transaction can still roll back, the
+    // task must leave its tables alone.
+    resumeWork();
+    for (int ii = tupleCount; ii < tupleCount + 1000; ii++) {
+        tempTuple.setNValue(0, ValueFactory::getBigIntValue(ii));
+        tempTuple.setNValue(1, ValueFactory::getNullStringValue());
+        table->insertTuple(tempTuple);
+    }
+    ASSERT_FALSE(compactTables(60 * 1000 * 1000));
+    ASSERT_EQ(0, table->compactedBlockCount());
+    ASSERT_EQ(blockCount, table->allocatedBlockCount());
+    rollbackAndIdle();
+    validateCounts(table, survivorCount, 1);
+    ASSERT_EQ(emptyTupleMemory, table->emptyTupleMemory());
+
+    // Once the transaction is gone, the next run compacts.
+    ASSERT_FALSE(compactTables(60 * 1000 * 1000));
+    ASSERT_TRUE(table->compactedBlockCount() > 0);
+    ASSERT_TRUE(table->allocatedBlockCount() < blockCount);
+    validateCounts(table, survivorCount, 1);
+    int found = 0;
+    iter = table->iterator();
+    while (iter.next(tuple)) {
+        int64_t pkey = ValuePeeker::peekBigInt(tuple.getNValue(0));
+        ASSERT_TRUE(pkey % 5 >= 2);
+        ASSERT_TRUE(pkey < tupleCount);
+        ASSERT_EQ(tuple.address(), table->lookupTupleByValues(tuple).address());
+        found++;
+    }
+    ASSERT_EQ(survivorCount, found);
+}
+
 int main() {
     return TestSuite::globalInstance()->runAll();
 }
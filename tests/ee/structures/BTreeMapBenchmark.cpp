@@ -0,0 +1,191 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+/*
+ * Compares the BTreeMap B+tree with the CompactingMap red-black tree on the
+ * operations a countable tree index performs: insert, full scan, point
+ * lookup, lower bound seek, rank lookups and delete.
+ */
+
+#include <iostream>
+#include <algorithm>
+#include <cstdlib>
+#include <cstdio>
+#include <cstring>
+#include <sys/time.h>
+#include <vector>
+
+#include "harness.h"
+#include "structures/CompactingMap.h"
+#include "structures/BTreeMap.h"
+
+using namespace voltdb;
+using namespace std;
+
+class IntComparator {
+public:
+    inline int operator()(const int64_t &lhs, const int64_t &rhs) const {
+        if (lhs > rhs) return 1;
+        else if (lhs < rhs) return -1;
+        else return 0;
+    }
+
+    int compareWithoutPointer(const int64_t &lhs, const int64_t &rhs) const {
+        return operator()(lhs, rhs);
+    }
+};
+
+typedef voltdb::CompactingMap<NormalKeyValuePair<int64_t, const void*>, IntComparator, true> RedBlackMap;
+typedef voltdb::BTreeMap<NormalKeyValuePair<int64_t, const void*>, IntComparator, true> BPlusTreeMap;
+
+static int64_t getMicrosNow() {
+    timeval tv;
+    gettimeofday(&tv, NULL);
+    return tv.tv_sec * 1000000 + tv.tv_usec;
+}
+
+class Stopwatch {
+public:
+    Stopwatch() : m_start(getMicrosNow()) {}
+    int64_t elapsed() const { return getMicrosNow() - m_start; }
+private:
+    int64_t m_start;
+};
+
+static void report(const char *op, const char *map, int64_t operations, int64_t micros) {
+    printf("%-12s %-10s %10ld ops in %9ld us, %8.1f ns/op\n",
+           op, map, (long)operations, (long)micros,
+           operations ? (micros * 1000.0) / operations : 0.0);
+}
+
+// Sink for values read during the benchmark, so the reads are not optimized away.
+static int64_t checksum = 0;
+
+template<typename Map>
+void runBenchmark(const char *name, const std::vector<int64_t> &keys, const std::vector<int64_t> &probes,
+                  int repeat) {
+    Map map(true, IntComparator());
+    int64_t scale = static_cast<int64_t>(keys.size());
+    int64_t probeCount = static_cast<int64_t>(probes.size());
+
+    {
+        Stopwatch sw;
+        for (int64_t i = 0; i < scale; i++) {
+            map.insert(keys[i], reinterpret_cast<const void*>(keys[i]));
+        }
+        report("INSERT", name, scale, sw.elapsed());
+    }
+
+    {
+        Stopwatch sw;
+        for (int r = 0; r < repeat; r++) {
+            for (typename Map::iterator iter = map.begin(); !iter.isEnd(); iter.moveNext()) {
+                checksum += iter.key();
+            }
+        }
+        report("SCAN", name, scale * repeat, sw.elapsed());
+    }
+
+    {
+        Stopwatch sw;
+        for (int r = 0; r < repeat; r++) {
+            for (int64_t i = 0; i < probeCount; i++) {
+                typename Map::iterator iter = map.find(probes[i]);
+                if (!iter.isEnd()) {
+                    checksum += iter.key();
+                }
+            }
+        }
+        report("LOOKUP", name, probeCount * repeat, sw.elapsed());
+    }
+
+    {
+        // Seek and read a short range, as a range scan on an index does.
+        Stopwatch sw;
+        for (int r = 0; r < repeat; r++) {
+            for (int64_t i = 0; i < probeCount; i++) {
+                typename Map::iterator iter = map.lowerBound(probes[i]);
+                for (int j = 0; j < 10 && !iter.isEnd(); j++) {
+                    checksum += iter.key();
+                    iter.moveNext();
+                }
+            }
+        }
+        report("RANGE(10)", name, probeCount * repeat, sw.elapsed());
+    }
+
+    {
+        Stopwatch sw;
+        for (int r = 0; r < repeat; r++) {
+            for (int64_t i = 0; i < probeCount; i++) {
+                checksum += map.rankLower(keys[probes[i] % scale]);
+                typename Map::iterator iter = map.findRank(probes[i] % scale + 1);
+                checksum += iter.key();
+            }
+        }
+        report("RANK", name, probeCount * repeat, sw.elapsed());
+    }
+
+    printf("%-12s %-10s %10ld bytes allocated\n", "MEMORY", name, (long)map.bytesAllocated());
+
+    {
+        Stopwatch sw;
+        for (int64_t i = 0; i < scale; i++) {
+            map.erase(keys[i]);
+        }
+        report("DELETE", name, scale, sw.elapsed());
+    }
+}
+
+int main(int argc, char *argv[]) {
+    if ((argc > 1 && *argv[1] == '-') || argc <= 2) {
+        printf("To run the benchmark, execute %s with command line arguments: "
+               "data_scale<int>, read_ops_repeat<int>\n",
+               argv[0]);
+        return 0;
+    }
+    int64_t scale = std::atol(argv[1]);
+    int repeat = std::atoi(argv[2]);
+    if (scale <= 0 || repeat <= 0) {
+        printf("data_scale and read_ops_repeat must be positive\n");
+        return 0;
+    }
+
+    // Unique keys in random order, and random probes of which about half hit.
+    srand(0);
+    std::vector<int64_t> keys;
+    for (int64_t i = 0; i < scale; i++) {
+        keys.push_back(i * 2);
+    }
+    std::random_shuffle(keys.begin(), keys.end());
+    std::vector<int64_t> probes;
+    for (int64_t i = 0; i < scale; i++) {
+        probes.push_back(rand() % (scale * 2));
+    }
+
+    printf("Benchmark with %ld keys, %d read repeats\n", (long)scale, repeat);
+    runBenchmark<RedBlackMap>("RedBlack", keys, probes, repeat);
+    runBenchmark<BPlusTreeMap>("BPlusTree", keys, probes, repeat);
+    printf("checksum %ld\n", (long)checksum);
+    return 0;
+}
@@ -0,0 +1,282 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+#include <iostream>
+#include <map>
+#include <algorithm>
+#include <cstdlib>
+#include <cstdio>
+#include "harness.h"
+#include "structures/BTreeMap.h"
+#include "common/FixUnusedAssertHack.h"
+
+using namespace voltdb;
+using namespace std;
+
+class StringComparator {
+public:
+    inline int operator()(const std::string &lhs, const std::string &rhs) const {
+        return lhs.compare(rhs);
+    }
+
+    int compareWithoutPointer(const std::string &lhs, const std::string &rhs) const {
+        return operator()(lhs, rhs);
+    }
+};
+
+class IntComparator {
+public:
+    inline int operator()(const int &lhs, const int &rhs) const {
+        if (lhs > rhs) return 1;
+        else if (lhs < rhs) return -1;
+        else return 0;
+    }
+
+    int compareWithoutPointer(const int &lhs, const int &rhs) const {
+        return operator()(lhs, rhs);
+    }
+};
+
+typedef voltdb::BTreeMap<NormalKeyValuePair<int, int>, IntComparator, true> IntRankMap;
+typedef voltdb::BTreeMap<NormalKeyValuePair<std::string, std::string>, StringComparator, true> StringRankMap;
+
+class BTreeMapTest : public Test {
+public:
+    std::string keyFromInt(int i) {
+        char buf[256];
+        snprintf(buf, 256, "%010d", i);
+        std::string val = buf;
+        return val;
+    }
+
+    // Walk both maps in step and check that they hold the same entries in the same order.
+    template<typename STLMap, typename VoltMap>
+    bool sameContents(const STLMap &stl, const VoltMap &volt) {
+        if ((int64_t)stl.size() != volt.size()) {
+            return false;
+        }
+        typename VoltMap::iterator volti = volt.begin();
+        for (typename STLMap::const_iterator stli = stl.begin(); stli != stl.end(); stli++) {
+            if (volti.isEnd() || stli->first != volti.key()) {
+                return false;
+            }
+            volti.moveNext();
+        }
+        return volti.isEnd();
+    }
+};
+
+TEST_F(BTreeMapTest, Trivial) {
+    voltdb::BTreeMap<NormalKeyValuePair<int, int>, IntComparator> m(true, IntComparator());
+    ASSERT_TRUE(m.verify());
+    ASSERT_TRUE(m.begin().isEnd());
+    ASSERT_TRUE(m.lowerBound(1).isEnd());
+
+    ASSERT_TRUE(m.insert(std::pair<int,int>(2,2)));
+    ASSERT_TRUE(m.insert(std::pair<int,int>(1,1)));
+    ASSERT_TRUE(m.insert(std::pair<int,int>(3,3)));
+    ASSERT_FALSE(m.insert(std::pair<int,int>(2,4)));
+    ASSERT_TRUE(m.verify());
+    ASSERT_EQ(3, m.size());
+    ASSERT_EQ(2, m.find(2).value());
+    ASSERT_TRUE(m.find(4).isEnd());
+
+    voltdb::BTreeMap<NormalKeyValuePair<int, int>, IntComparator> m2(false, IntComparator());
+    for (int i = 0; i < 100; i++) {
+        ASSERT_TRUE(m2.insert(std::pair<int,int>(1,i)));
+    }
+    ASSERT_TRUE(m2.verify());
+
+    // duplicates keep their insertion order
+    voltdb::BTreeMap<NormalKeyValuePair<int, int>, IntComparator>::iterator iter = m2.begin();
+    for (int i = 0; i < 100; i++) {
+        ASSERT_FALSE(iter.isEnd());
+        ASSERT_EQ(i, iter.value());
+        iter.moveNext();
+    }
+    ASSERT_TRUE(iter.isEnd());
+
+    for (int i = 0; i < 100; i++) {
+        ASSERT_TRUE(m2.erase(1));
+    }
+    ASSERT_FALSE(m2.erase(1));
+    ASSERT_EQ(0, m2.size());
+    ASSERT_TRUE(m2.verify());
+}
+
+TEST_F(BTreeMapTest, RandomUnique) {
+    const int ITERATIONS = 20000;
+    const int BIGGEST_VAL = 5000;
+
+    std::map<int,int> stl;
+    IntRankMap volt(true, IntComparator());
+
+    srand(0);
+    for (int i = 0; i < ITERATIONS; i++) {
+        int val = rand() % BIGGEST_VAL;
+        int op = rand() % 3;
+        if (op != 0) {
+            bool inserted = stl.insert(std::pair<int,int>(val, val)).second;
+            ASSERT_EQ(inserted, volt.insert(std::pair<int,int>(val, val)));
+        }
+        else {
+            ASSERT_EQ(stl.erase(val) == 1, volt.erase(val));
+        }
+
+        std::map<int,int>::iterator stli = stl.lower_bound(val);
+        IntRankMap::iterator volti = volt.lowerBound(val);
+        ASSERT_EQ(stli == stl.end(), volti.isEnd());
+        if (stli != stl.end()) {
+            ASSERT_EQ(stli->first, volti.key());
+        }
+        stli = stl.upper_bound(val);
+        volti = volt.upperBound(val);
+        ASSERT_EQ(stli == stl.end(), volti.isEnd());
+        if (stli != stl.end()) {
+            ASSERT_EQ(stli->first, volti.key());
+            volti.movePrev();
+            stli--;
+            if (stli == stl.begin() && stli->first > val) {
+                ASSERT_TRUE(volti.isEnd());
+            }
+        }
+
+        if ((i % 1000) == 0) {
+            ASSERT_TRUE(volt.verify());
+            ASSERT_TRUE(volt.verifyRank());
+            ASSERT_TRUE(sameContents(stl, volt));
+        }
+    }
+    ASSERT_TRUE(volt.verify());
+    ASSERT_TRUE(volt.verifyRank());
+    ASSERT_TRUE(sameContents(stl, volt));
+
+    // walk backwards from the last entry
+    std::map<int,int>::reverse_iterator rstli = stl.rbegin();
+    IntRankMap::iterator volti = volt.rbegin();
+    for (; rstli != stl.rend(); rstli++) {
+        ASSERT_FALSE(volti.isEnd());
+        ASSERT_EQ(rstli->first, volti.key());
+        volti.movePrev();
+    }
+    ASSERT_TRUE(volti.isEnd());
+}
+
+TEST_F(BTreeMapTest, RandomMultiRank) {
+    const int ITERATIONS = 20000;
+    const int BIGGEST_VAL = 300;
+
+    std::multimap<std::string, std::string> stl;
+    StringRankMap volt(false, StringComparator());
+
+    srand(0);
+    for (int i = 0; i < ITERATIONS; i++) {
+        std::string val = keyFromInt(rand() % BIGGEST_VAL);
+        int op = rand() % 5;
+        if (op < 3) {
+            stl.insert(std::pair<std::string, std::string>(val, val));
+            ASSERT_TRUE(volt.insert(std::pair<std::string, std::string>(val, val)));
+        }
+        else if (op == 3) {
+            std::multimap<std::string, std::string>::iterator stli = stl.find(val);
+            if (stli != stl.end()) {
+                stl.erase(stli);
+            }
+            ASSERT_EQ(stli != stl.end(), volt.erase(val));
+        }
+        else {
+            StringRankMap::iterator volti = volt.find(val);
+            ASSERT_EQ(stl.count(val) == 0, volti.isEnd());
+            if (!volti.isEnd()) {
+                volt.erase(volti);
+                stl.erase(stl.find(val));
+            }
+        }
+
+        std::multimap<std::string, std::string>::iterator stli = stl.find(val);
+        if (stli != stl.end()) {
+            int64_t below = std::distance(stl.begin(), stl.lower_bound(val));
+            int64_t notAbove = std::distance(stl.begin(), stl.upper_bound(val));
+            ASSERT_EQ(below + 1, volt.rankLower(val));
+            ASSERT_EQ(notAbove, volt.rankUpper(val));
+            ASSERT_EQ(val, volt.findRank(below + 1).key());
+            ASSERT_EQ(val, volt.findRank(notAbove).key());
+        }
+        else {
+            ASSERT_EQ(-1, volt.rankLower(val));
+            ASSERT_EQ(-1, volt.rankUpper(val));
+        }
+
+        if ((i % 1000) == 0) {
+            ASSERT_TRUE(volt.verify());
+            ASSERT_TRUE(volt.verifyRank());
+            ASSERT_TRUE(sameContents(stl, volt));
+        }
+    }
+    ASSERT_TRUE(volt.verify());
+    ASSERT_TRUE(volt.verifyRank());
+    ASSERT_TRUE(sameContents(stl, volt));
+    ASSERT_TRUE(volt.findRank(0).isEnd());
+    ASSERT_TRUE(volt.findRank(volt.size() + 1).isEnd());
+}
+
+TEST_F(BTreeMapTest, Compaction) {
+    const int COUNT = 200000;
+    IntRankMap volt(true, IntComparator());
+
+    for (int i = 0; i < COUNT; i++) {
+        ASSERT_TRUE(volt.insert(std::pair<int,int>(i, i)));
+    }
+    ASSERT_TRUE(volt.verify());
+    size_t fullSize = volt.bytesAllocated();
+
+    // Delete in a scattered order so that nodes get merged all over the
+    // tree and nodes from the end of the allocators get moved around.
+    srand(0);
+    std::vector<int> keys;
+    for (int i = 0; i < COUNT; i++) {
+        keys.push_back(i);
+    }
+    std::random_shuffle(keys.begin(), keys.end());
+    for (int i = 0; i < COUNT - 1000; i++) {
+        ASSERT_TRUE(volt.erase(keys[i]));
+        if ((i % 20000) == 0) {
+            ASSERT_TRUE(volt.verify());
+        }
+    }
+    ASSERT_TRUE(volt.verify());
+    ASSERT_TRUE(volt.verifyRank());
+    ASSERT_EQ(1000, volt.size());
+    ASSERT_TRUE(volt.bytesAllocated() < fullSize / 10);
+
+    for (int i = COUNT - 1000; i < COUNT; i++) {
+        ASSERT_TRUE(volt.erase(keys[i]));
+    }
+    ASSERT_TRUE(volt.verify());
+    ASSERT_EQ(0, volt.bytesAllocated());
+    ASSERT_TRUE(volt.begin().isEnd());
+}
+
+int main() {
+    return TestSuite::globalInstance()->runAll();
+}
@@ -0,0 +1,143 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+#include <map>
+#include <cstdlib>
+#include "harness.h"
+#include "structures/IntHashTable.h"
+#include "common/FixUnusedAssertHack.h"
+
+using namespace voltdb;
+using namespace std;
+
+class IntHashTableTest : public Test {
+public:
+    IntHashTableTest() {
+        srand(0);
+    }
+};
+
+// values are tagged pointers: the table reserves NULL for empty slots
+static const void *valueFor(uint64_t key) {
+    return reinterpret_cast<const void*>(key * 2 + 1);
+}
+
+TEST_F(IntHashTableTest, Basic) {
+    IntHashTable<const void*> table;
+
+    ASSERT_EQ(0, table.size());
+    ASSERT_TRUE(table.find(0).isEnd());
+
+    // zero is a valid key
+    ASSERT_TRUE(table.insert(0, valueFor(0)) == NULL);
+    ASSERT_TRUE(table.insert(1, valueFor(1)) == NULL);
+    ASSERT_TRUE(table.insert(UINT64_MAX, valueFor(UINT64_MAX)) == NULL);
+    ASSERT_EQ(3, table.size());
+
+    // duplicates are refused and the existing value is returned
+    const void * const *conflict = table.insert(1, valueFor(7));
+    ASSERT_TRUE(conflict != NULL);
+    ASSERT_TRUE(*conflict == valueFor(1));
+    ASSERT_EQ(3, table.size());
+
+    IntHashTable<const void*>::iterator iter = table.find(0);
+    ASSERT_FALSE(iter.isEnd());
+    ASSERT_EQ(0, iter.key());
+    ASSERT_TRUE(iter.value() == valueFor(0));
+    iter.setValue(valueFor(5));
+    ASSERT_TRUE(table.find(0).value() == valueFor(5));
+    iter.moveNext();
+    ASSERT_TRUE(iter.isEnd());
+
+    ASSERT_TRUE(table.erase(0));
+    ASSERT_FALSE(table.erase(0));
+    ASSERT_TRUE(table.find(0).isEnd());
+    iter = table.find(UINT64_MAX);
+    ASSERT_TRUE(table.erase(iter));
+    ASSERT_EQ(1, table.size());
+    ASSERT_TRUE(table.verify());
+}
+
+TEST_F(IntHashTableTest, GrowAndShrink) {
+    IntHashTable<const void*> table;
+    const size_t initialBytes = table.bytesAllocated();
+    const uint64_t count = 100000;
+
+    // sequential keys are the common case for generated ids
+    for (uint64_t i = 0; i < count; i++) {
+        ASSERT_TRUE(table.insert(i, valueFor(i)) == NULL);
+    }
+    ASSERT_EQ(count, table.size());
+    ASSERT_TRUE(table.bytesAllocated() > initialBytes);
+    ASSERT_TRUE(table.verify());
+
+    for (uint64_t i = 0; i < count; i++) {
+        IntHashTable<const void*>::iterator iter = table.find(i);
+        ASSERT_FALSE(iter.isEnd());
+        ASSERT_TRUE(iter.value() == valueFor(i));
+    }
+    ASSERT_TRUE(table.find(count).isEnd());
+
+    for (uint64_t i = 0; i < count; i++) {
+        ASSERT_TRUE(table.erase(i));
+    }
+    ASSERT_EQ(0, table.size());
+    ASSERT_EQ(initialBytes, table.bytesAllocated());
+    ASSERT_TRUE(table.verify());
+}
+
+TEST_F(IntHashTableTest, RandomOps) {
+    IntHashTable<const void*> table;
+    map<uint64_t, const void*> stl;
+
+    for (int i = 0; i < 200000; i++) {
+        // a small key range forces duplicates, collisions and long probe runs
+        uint64_t key = static_cast<uint64_t>(rand() % 20000);
+        if (i % 4 == 0) {
+            // high bits must matter to the hash as well
+            key <<= 40;
+        }
+        if (rand() % 3 != 0) {
+            const void * const *conflict = table.insert(key, valueFor(key));
+            bool inserted = stl.insert(make_pair(key, valueFor(key))).second;
+            ASSERT_EQ(inserted, conflict == NULL);
+        } else {
+            ASSERT_EQ(stl.erase(key) == 1, table.erase(key));
+        }
+        if (i % 10000 == 0) {
+            ASSERT_TRUE(table.verify());
+        }
+    }
+    ASSERT_EQ(stl.size(), table.size());
+    ASSERT_TRUE(table.verify());
+
+    for (map<uint64_t, const void*>::const_iterator it = stl.begin(); it != stl.end(); ++it) {
+        IntHashTable<const void*>::iterator iter = table.find(it->first);
+        ASSERT_FALSE(iter.isEnd());
+        ASSERT_TRUE(iter.value() == it->second);
+    }
+}
+
+int main() {
+    return TestSuite::globalInstance()->runAll();
+}
@@ -99,6 +99,7 @@ public:
         std::unique_ptr<char[]> storage = block->releaseData();
         Block *newBlock = new Block{storage.get(), block->schema()};
         m_map[block->id()] = newBlock;
+        ++m_storeCount;
 
         return true;
     }
@@ -135,6 +136,11 @@ public:
         return m_map.size();
     }
 
+    /** The number of blocks written out so far, whether since released or not */
+    size_t storeCount() const {
+        return m_storeCount;
+    }
+
     ~LargeTempTableTopend() {
         assert(m_map.size() == 0);
     }
@@ -152,6 +158,7 @@ public:
 private:
 
     std::map<voltdb::LargeTempTableBlockId, Block*> m_map;
+    size_t m_storeCount = 0;
 };
 
 #endif // LARGE_TEMP_TABLE_TOPEND_HPP
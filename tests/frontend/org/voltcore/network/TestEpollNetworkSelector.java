@@ -0,0 +1,118 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltcore.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestEpollNetworkSelector {
+
+    private EpollNetworkSelector m_selector;
+    private ServerSocketChannel m_server;
+    private SocketChannel m_client;
+    private SocketChannel m_accepted;
+
+    @Before
+    public void setUp() throws Exception {
+        assumeTrue(NetworkTransport.EPOLL.isAvailable());
+        m_selector = new EpollNetworkSelector();
+        m_server = ServerSocketChannel.open();
+        m_server.socket().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        m_client = SocketChannel.open(m_server.socket().getLocalSocketAddress());
+        m_accepted = m_server.accept();
+        m_accepted.configureBlocking(false);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (m_selector != null) {
+            m_selector.close();
+            m_client.close();
+            m_accepted.close();
+            m_server.close();
+        }
+    }
+
+    @Test
+    public void testReadReadiness() throws Exception {
+        SelectionKey key = m_selector.register(m_accepted, SelectionKey.OP_READ);
+        key.attach("port");
+
+        m_client.write(ByteBuffer.wrap(new byte[] { 1, 2, 3 }));
+        assertEquals(1, m_selector.select());
+        assertEquals(1, m_selector.prepareSelectedKeys());
+        assertSame(key, m_selector.selectedKey(0));
+        assertTrue(key.isReadable());
+        assertEquals("port", key.attachment());
+        m_selector.clearSelectedKeys();
+
+        // level triggered, unread bytes are reported again
+        assertEquals(1, m_selector.select());
+        m_selector.prepareSelectedKeys();
+        m_selector.clearSelectedKeys();
+
+        m_accepted.read(ByteBuffer.allocate(16));
+        key.interestOps(SelectionKey.OP_WRITE);
+        assertEquals(1, m_selector.select());
+        m_selector.prepareSelectedKeys();
+        assertTrue(key.isWritable());
+        assertFalse(key.isReadable());
+        m_selector.clearSelectedKeys();
+    }
+
+    @Test
+    public void testWakeup() throws Exception {
+        m_selector.register(m_accepted, SelectionKey.OP_READ);
+        m_selector.wakeup();
+        assertEquals(0, m_selector.select());
+        assertEquals(0, m_selector.prepareSelectedKeys());
+        m_selector.clearSelectedKeys();
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        SelectionKey key = m_selector.register(m_accepted, SelectionKey.OP_READ);
+        assertEquals(1, m_selector.keys().size());
+        key.cancel();
+        assertFalse(key.isValid());
+        m_client.write(ByteBuffer.wrap(new byte[] { 1 }));
+        m_selector.wakeup();
+        assertEquals(0, m_selector.select());
+        assertTrue(m_selector.keys().isEmpty());
+    }
+}
@@ -50,6 +50,7 @@
 
 package org.voltcore.network;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
@@ -57,10 +58,12 @@ import java.net.UnknownHostException;
 import java.nio.ByteBuffer;
 import java.nio.channels.GatheringByteChannel;
 import java.nio.channels.SelectionKey;
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.voltcore.utils.EstTime;
 import org.voltcore.utils.EstTimeUpdater;
+import org.voltcore.utils.GatheringDeferredSerialization;
 import org.voltdb.AdmissionControlGroup;
 
 import junit.framework.TestCase;
@@ -389,6 +392,52 @@ public class TestNIOWriteStream extends TestCase {
         wstream.shutdown();
     }
 
+    public void testGatheredWrite() throws IOException {
+        final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        GatheringByteChannel channel = new MockChannel(MockChannel.SINK, 0) {
+            @Override
+            public int write(ByteBuffer src) throws IOException {
+                final int remaining = src.remaining();
+                while (src.hasRemaining()) {
+                    written.write(src.get());
+                }
+                return remaining;
+            }
+        };
+        MockPort port = new MockPort();
+        VoltNIOWriteStream wstream = new VoltNIOWriteStream(port);
+
+        final ByteBuffer pieces[] = new ByteBuffer[] {
+                ByteBuffer.wrap(new byte[] { 1, 2, 3 }),
+                ByteBuffer.wrap(new byte[] { 4, 5, 6, 7, 8, 9, 10 }).asReadOnlyBuffer(),
+                ByteBuffer.wrap(new byte[] { 11 })
+        };
+        wstream.enqueue(new GatheringDeferredSerialization() {
+            @Override
+            public void serialize(ByteBuffer buf) {
+                fail("Message larger than a pool buffer should be gathered");
+            }
+
+            @Override
+            public ByteBuffer[] serializeToBuffers() {
+                return pieces;
+            }
+
+            @Override
+            public void cancel() {}
+
+            @Override
+            public int getSerializedSize() {
+                return 11;
+            }
+        });
+        wstream.serializeQueuedWrites(pool);
+        assertEquals(11, wstream.drainTo(channel));
+        assertTrue(wstream.isEmpty());
+        assertTrue(Arrays.equals(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11 }, written.toByteArray()));
+        wstream.shutdown();
+    }
+
     public void testLastWriteDelta() throws Exception {
         EstTimeUpdater.pause = true;
         Thread.sleep(10);
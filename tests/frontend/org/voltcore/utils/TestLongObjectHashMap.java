@@ -0,0 +1,140 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltcore.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+public class TestLongObjectHashMap extends TestCase {
+
+    @Test
+    public void testBasicOperations() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        assertTrue(map.isEmpty());
+        assertNull(map.put(1, "one"));
+        assertNull(map.put(0, "zero"));
+        assertNull(map.put(-1, "minus one"));
+        assertEquals(3, map.size());
+        assertEquals("one", map.put(1, "uno"));
+        assertEquals(3, map.size());
+        assertEquals("uno", map.get(1));
+        assertEquals("zero", map.get(0));
+        assertEquals("minus one", map.get(-1));
+        assertNull(map.get(2));
+        assertTrue(map.containsKey(0));
+        assertFalse(map.containsKey(2));
+
+        assertEquals("zero", map.remove(0));
+        assertFalse(map.containsKey(0));
+        assertNull(map.remove(0));
+        assertNull(map.remove(2));
+        assertEquals(2, map.size());
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1));
+    }
+
+    @Test
+    public void testGrowth() {
+        LongObjectHashMap<Long> map = new LongObjectHashMap<>(0);
+        for (long i = 0; i < 100000; i++) {
+            map.put(i << 14, i);
+        }
+        assertEquals(100000, map.size());
+        for (long i = 0; i < 100000; i++) {
+            assertEquals(Long.valueOf(i), map.get(i << 14));
+        }
+        assertEquals(100000, map.keys().length);
+    }
+
+    /*
+     * Compare against java.util.HashMap with a small key space so probe
+     * sequences collide and wrap, which exercises the backward shift on removal
+     */
+    @Test
+    public void testRandomOperationsMatchHashMap() {
+        final Random r = new Random(42);
+        final LongObjectHashMap<Integer> map = new LongObjectHashMap<>();
+        final Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 200000; i++) {
+            final long key = r.nextInt(512) - 256;
+            switch (r.nextInt(3)) {
+            case 0:
+                assertEquals(expected.put(key, i), map.put(key, i));
+                break;
+            case 1:
+                assertEquals(expected.remove(key), map.remove(key));
+                break;
+            default:
+                assertEquals(expected.get(key), map.get(key));
+                assertEquals(expected.containsKey(key), map.containsKey(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (long key : map.keys()) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+    }
+
+    @Test
+    public void testRemoveIf() {
+        final LongObjectHashMap<Long> map = new LongObjectHashMap<>();
+        for (long i = -1000; i < 1000; i++) {
+            map.put(i, i);
+        }
+        final int removed = map.removeIf(new LongObjectHashMap.EntryPredicate<Long>() {
+            @Override
+            public boolean test(long key, Long value) {
+                assertEquals(key, value.longValue());
+                return key % 3 == 0;
+            }
+        });
+        assertEquals(667, removed);
+        assertEquals(2000 - 667, map.size());
+        for (long i = -1000; i < 1000; i++) {
+            assertEquals(i % 3 != 0, map.containsKey(i));
+        }
+
+        final long sum[] = new long[1];
+        map.forEach(new LongObjectHashMap.EntryConsumer<Long>() {
+            @Override
+            public void accept(long key, Long value) {
+                sum[0] += value;
+            }
+        });
+        long expectedSum = 0;
+        for (long i = -1000; i < 1000; i++) {
+            if (i % 3 != 0) {
+                expectedSum += i;
+            }
+        }
+        assertEquals(expectedSum, sum[0]);
+    }
+}
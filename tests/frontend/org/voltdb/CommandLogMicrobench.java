@@ -0,0 +1,103 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.voltcore.utils.InstanceId;
+import org.voltdb.iv2.TxnEgo;
+import org.voltdb.messaging.Iv2InitiateTaskMessage;
+import org.voltdb.utils.VoltFile;
+
+import com.google_voltpatches.common.util.concurrent.ListenableFuture;
+
+/**
+ * Measures how many transactions per second FileCommandLog makes durable, with
+ * synchronous and asynchronous group commit, for a range of fsync intervals.
+ *
+ * Usage: CommandLogMicrobench [directory] [intervals ms, space separated]
+ */
+public class CommandLogMicrobench {
+
+    private static final int DURATION_MS = 5000;
+
+    public static void main(String[] args) throws Exception {
+        File dir = new File(args.length >= 1 ? args[0] : System.getProperty("java.io.tmpdir"),
+                            "commandLogMicrobench");
+        int[] intervals = new int[] { 1, 2, 5, 10 };
+        if (args.length >= 2) {
+            String[] intervalStrings = args[1].split("\\s+");
+            intervals = new int[intervalStrings.length];
+            for (int i = 0; i < intervalStrings.length; i++) {
+                intervals[i] = Integer.parseInt(intervalStrings[i]);
+            }
+        }
+
+        StoredProcedureInvocation invocation = new StoredProcedureInvocation();
+        invocation.setProcName("EmptyProcedure");
+        invocation.setParams(0L, "String c_first", "String c_last", 0.0);
+
+        for (int interval : intervals) {
+            for (boolean synchronous : new boolean[] { true, false }) {
+                VoltFile.recursivelyDelete(dir);
+                FileCommandLog log = new FileCommandLog(synchronous, interval, Integer.MAX_VALUE,
+                                                        dir.getPath(), FileCommandLog.SEGMENT_SIZE);
+                Map<Integer, Long> partitionTxnIds = new HashMap<>();
+                partitionTxnIds.put(0, Long.MIN_VALUE);
+                log.initSegments(4096, Long.MIN_VALUE, 1, partitionTxnIds, new InstanceId(0, 0));
+                TestFileCommandLog.CountingListener listener = new TestFileCommandLog.CountingListener();
+                log.registerDurabilityListener(listener);
+
+                TxnEgo spego = TxnEgo.makeZero(0);
+                int count = 0;
+                final long startTime = System.currentTimeMillis();
+                final long stopTime = startTime + DURATION_MS;
+                while (count % 100 != 0 || System.currentTimeMillis() < stopTime) {
+                    spego = spego.makeNext();
+                    Iv2InitiateTaskMessage task = new Iv2InitiateTaskMessage(1, 2, Long.MIN_VALUE,
+                            spego.getTxnId(), count, false, true, invocation, 4, 5, false);
+                    task.setSpHandle(spego.getTxnId());
+                    ListenableFuture<Object> written =
+                            log.log(task, spego.getTxnId(), new int[] {0}, listener, null);
+                    if (written != null) {
+                        // asynchronous backpressure
+                        written.get();
+                    }
+                    count++;
+                }
+                listener.awaitReleased(count);
+                final double time = System.currentTimeMillis() - startTime;
+                log.shutdown();
+
+                System.out.println((synchronous ? "synchronous" : "asynchronous") + " with " + interval +
+                        "ms interval: " + listener.m_released + " xacts in " + time + " ms => " +
+                        (listener.m_released / time) * 1000 + " tps");
+            }
+        }
+        VoltFile.recursivelyDelete(dir);
+        System.exit(0);
+    }
+}
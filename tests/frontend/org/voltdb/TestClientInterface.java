@@ -24,6 +24,7 @@
 package org.voltdb;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -39,6 +40,7 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -79,6 +81,7 @@ import org.voltdb.VoltDB.Configuration;
 import org.voltdb.VoltTable.ColumnInfo;
 import org.voltdb.catalog.Catalog;
 import org.voltdb.client.ClientResponse;
+import org.voltdb.common.Constants;
 import org.voltdb.compiler.VoltProjectBuilder;
 import org.voltdb.iv2.Cartographer;
 import org.voltdb.messaging.InitiateResponseMessage;
@@ -420,6 +423,103 @@ public class TestClientInterface {
         assertEquals(ClientResponse.UNEXPECTED_FAILURE, resp.getStatus());
     }
 
+    /**
+     * Frame invocations the way the client library's Distributer batches
+     * them: the batch version, a count and the length prefixed invocations.
+     */
+    private static ByteBuffer createBatch(ByteBuffer... invocations) {
+        int size = 5;
+        for (ByteBuffer invocation : invocations) {
+            size += 4 + invocation.remaining();
+        }
+        ByteBuffer batch = ByteBuffer.allocate(size);
+        batch.put(Constants.INVOCATION_BATCH_VERSION);
+        batch.putInt(invocations.length);
+        for (ByteBuffer invocation : invocations) {
+            batch.putInt(invocation.remaining());
+            batch.put(invocation);
+        }
+        batch.flip();
+        return batch;
+    }
+
+    @Test
+    public void testInvocationBatch() throws Exception {
+        // a real input handler, with an adapter bound under its connection id
+        ClientInputHandler handler = m_ci.new ClientInputHandler("", false);
+        SimpleClientResponseAdapter cxn = new SimpleClientResponseAdapter(handler.connectionId(), "batch") {
+            @Override
+            public void enqueue(ByteBuffer buf) {responses.offer(buf);}
+            @Override
+            public void queueTask(Runnable r) {}
+        };
+        m_ci.bindAdapter(cxn, null);
+
+        ByteBuffer batch = createBatch(createMsg("hello", 1), createMsg("hellooooo", 2), createMsg("hellorw", 3));
+        handler.handleMessage(batch, cxn);
+
+        // the valid invocations are each initiated, in order
+        ArgumentCaptor<Long> destinationCaptor = ArgumentCaptor.forClass(Long.class);
+        ArgumentCaptor<Iv2InitiateTaskMessage> messageCaptor = ArgumentCaptor.forClass(Iv2InitiateTaskMessage.class);
+        verify(m_messenger, times(2)).send(destinationCaptor.capture(), messageCaptor.capture());
+        Iv2InitiateTaskMessage first = messageCaptor.getAllValues().get(0);
+        Iv2InitiateTaskMessage second = messageCaptor.getAllValues().get(1);
+        assertEquals("hello", first.getStoredProcedureName());
+        assertEquals(1, first.getStoredProcedureInvocation().getParameterAtIndex(0));
+        assertTrue(first.isReadOnly());
+        assertEquals("hellorw", second.getStoredProcedureName());
+        assertEquals(3, second.getStoredProcedureInvocation().getParameterAtIndex(0));
+        assertFalse(second.isReadOnly());
+
+        // the invalid one in the middle gets its own error response
+        ByteBuffer b = responses.poll(10, TimeUnit.SECONDS);
+        assertNotNull(b);
+        ClientResponseImpl resp = new ClientResponseImpl();
+        b.position(4);
+        resp.initFromBuffer(b);
+        assertEquals(ClientResponse.UNEXPECTED_FAILURE, resp.getStatus());
+        assertTrue(responses.isEmpty());
+        assertFalse(batch.hasRemaining());
+    }
+
+    @Test
+    public void testReplicaReadRouting() throws Exception {
+        // the client interface's mailbox is on host 0, so are the local replicas
+        final long leader = CoreUtils.getHSIdFromHostAndSite(1, 7);
+        final long localReplica = CoreUtils.getHSIdFromHostAndSite(0, 7);
+        when(m_cartographer.getPartitions()).thenReturn(Arrays.asList(0, 1, 2));
+        when(m_cartographer.getReplicasForPartition(anyInt())).thenReturn(Arrays.asList(leader, localReplica));
+        when(m_cartographer.getHSIdForSinglePartitionMaster(anyInt())).thenReturn(leader);
+        m_ci.getDispatcher().asynchronouslyDetermineLocalReplicas().get();
+
+        // only a read the client allowed on replicas goes to the local replica
+        assertNull(m_ci.handleRead(createReplicaReadMsg("hello", 1), m_handler, m_cxn));
+        assertNull(m_ci.handleRead(createMsg("hello", 1), m_handler, m_cxn));
+        assertNull(m_ci.handleRead(createReplicaReadMsg("hellorw", 1), m_handler, m_cxn));
+
+        ArgumentCaptor<Long> destinationCaptor = ArgumentCaptor.forClass(Long.class);
+        ArgumentCaptor<Iv2InitiateTaskMessage> messageCaptor = ArgumentCaptor.forClass(Iv2InitiateTaskMessage.class);
+        verify(m_messenger, times(3)).send(destinationCaptor.capture(), messageCaptor.capture());
+        assertEquals(Arrays.asList(localReplica, leader, leader), destinationCaptor.getAllValues());
+
+        Iv2InitiateTaskMessage replicaRead = messageCaptor.getAllValues().get(0);
+        assertTrue(replicaRead.isReadOnly());
+        assertTrue(replicaRead.getStoredProcedureInvocation().getReplicaRead());
+        assertFalse(messageCaptor.getAllValues().get(2).isReadOnly());
+    }
+
+    private static ByteBuffer createReplicaReadMsg(String name, final Object...params) throws IOException
+    {
+        StoredProcedureInvocation proc = new StoredProcedureInvocation();
+        proc.setProcName(name);
+        proc.setParams(params);
+        proc.setReplicaRead(true);
+        ByteBuffer buf = ByteBuffer.allocate(proc.getSerializedSize());
+        proc.flattenToBuffer(buf);
+        buf.flip();
+        return buf;
+    }
+
     @Test
     public void testAdminProcsOnNonAdminPort() throws IOException {
         ByteBuffer msg = createMsg("@Pause");
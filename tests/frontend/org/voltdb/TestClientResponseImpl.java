@@ -0,0 +1,105 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.voltdb;
+
+import java.nio.ByteBuffer;
+
+import org.voltdb.VoltTable.ColumnInfo;
+import org.voltdb.client.ClientResponse;
+
+import junit.framework.TestCase;
+
+public class TestClientResponseImpl extends TestCase {
+
+    private static byte[] gather(ByteBuffer[] bufs) {
+        int size = 0;
+        for (ByteBuffer buf : bufs) {
+            size += buf.remaining();
+        }
+        ByteBuffer out = ByteBuffer.allocate(size);
+        for (ByteBuffer buf : bufs) {
+            out.put(buf);
+        }
+        return out.array();
+    }
+
+    private static byte[] flatten(ClientResponseImpl response) {
+        ByteBuffer buf = ByteBuffer.allocate(response.getSerializedSize() + 4);
+        buf.putInt(buf.capacity() - 4);
+        response.flattenToBuffer(buf);
+        assertFalse(buf.hasRemaining());
+        return buf.array();
+    }
+
+    private static void checkGathered(ClientResponseImpl response) throws Exception {
+        byte[] expected = flatten(response);
+        byte[] gathered = gather(response.flattenToBuffers(true));
+        assertEquals(expected.length, gathered.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals("mismatch at " + i, expected[i], gathered[i]);
+        }
+
+        // the gathered form must deserialize to the same response
+        ClientResponseImpl copy = new ClientResponseImpl();
+        ByteBuffer buf = ByteBuffer.wrap(gathered);
+        buf.getInt();
+        copy.initFromBuffer(buf);
+        assertEquals(response.getStatus(), copy.getStatus());
+        assertEquals(response.getStatusString(), copy.getStatusString());
+        assertEquals(response.getResults().length, copy.getResults().length);
+        for (int i = 0; i < response.getResults().length; i++) {
+            assertTrue(response.getResults()[i].hasSameContents(copy.getResults()[i]));
+        }
+    }
+
+    public void testGatheredSerializationWithoutTables() throws Exception {
+        ClientResponseImpl response = new ClientResponseImpl(ClientResponse.GRACEFUL_FAILURE,
+                new VoltTable[0], "something went wrong");
+        response.setClientHandle(42);
+        checkGathered(response);
+    }
+
+    public void testGatheredSerializationWithTables() throws Exception {
+        VoltTable first = new VoltTable(new ColumnInfo("ID", VoltType.BIGINT),
+                                        new ColumnInfo("NAME", VoltType.STRING));
+        for (int i = 0; i < 1000; i++) {
+            first.addRow(i, "row " + i);
+        }
+        VoltTable second = new VoltTable(new ColumnInfo("C", VoltType.INTEGER));
+        VoltTable third = new VoltTable(new ColumnInfo("D", VoltType.FLOAT));
+        third.addRow(1.5);
+
+        ClientResponseImpl response = new ClientResponseImpl(ClientResponse.SUCCESS,
+                new VoltTable[] { first, second, third }, null);
+        response.setClientHandle(7);
+        response.setAppStatusString("app status");
+        checkGathered(response);
+
+        // table data is handed over without copying and left untouched
+        ByteBuffer[] bufs = response.flattenToBuffers(false);
+        assertEquals(6, bufs.length);
+        assertTrue(bufs[1].isReadOnly());
+        assertEquals(first.getSerializedSize() - 4, bufs[1].remaining());
+        assertEquals(1000, first.getRowCount());
+    }
+}
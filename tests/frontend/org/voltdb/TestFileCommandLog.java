@@ -0,0 +1,336 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.voltcore.utils.InstanceId;
+import org.voltdb.CommandLog.CompletionChecks;
+import org.voltdb.CommandLog.DurabilityListener;
+import org.voltdb.SnapshotCompletionInterest.SnapshotCompletionEvent;
+import org.voltdb.iv2.SpScheduler.DurableUniqueIdListener;
+import org.voltdb.iv2.TransactionTask;
+import org.voltdb.iv2.TxnEgo;
+import org.voltdb.iv2.UniqueIdGenerator;
+import org.voltdb.messaging.Iv2InitiateTaskMessage;
+import org.voltdb.sysprocs.saverestore.SnapshotPathType;
+import org.voltdb.utils.VoltFile;
+
+public class TestFileCommandLog {
+    private static final long SEGMENT_SIZE = 64 * 1024;
+
+    private File m_tempDir = null;
+    private FileCommandLog m_log = null;
+    private final UniqueIdGenerator m_uniqueIdGenerator = new UniqueIdGenerator(0, 0);
+
+    /**
+     * Counts the transactions released by the command log
+     */
+    static class CountingListener implements DurabilityListener {
+        int m_pending = 0;
+        int m_released = 0;
+
+        class Checks implements CompletionChecks {
+            final int m_taskCount;
+
+            Checks(int taskCount) {
+                m_taskCount = taskCount;
+            }
+
+            @Override
+            public CompletionChecks startNewCheckList(int startSize) {
+                return new Checks(0);
+            }
+
+            @Override
+            public void addTask(TransactionTask task) {}
+
+            @Override
+            public void setLastDurableUniqueId(long uniqueId) {}
+
+            @Override
+            public boolean isChanged() {
+                return m_taskCount > 0;
+            }
+
+            @Override
+            public int getTaskListSize() {
+                return m_taskCount;
+            }
+
+            @Override
+            public void processChecks() {}
+        }
+
+        @Override
+        public void configureUniqueIdListener(DurableUniqueIdListener listener, boolean install) {}
+
+        @Override
+        public void createFirstCompletionCheck(boolean isSyncLogging, boolean commandLoggingEnabled) {}
+
+        @Override
+        public boolean completionCheckInitialized() {
+            return true;
+        }
+
+        @Override
+        public void addTransaction(TransactionTask pendingTask) {
+            m_pending++;
+        }
+
+        @Override
+        public void initializeLastDurableUniqueId(long uniqueId) {}
+
+        @Override
+        public int getNumberOfTasks() {
+            return m_pending;
+        }
+
+        @Override
+        public CompletionChecks startNewTaskList(int nextMaxRowCnt) {
+            Checks checks = new Checks(m_pending);
+            m_pending = 0;
+            return checks;
+        }
+
+        @Override
+        public synchronized void processDurabilityChecks(CompletionChecks completionChecks) {
+            m_released += completionChecks.getTaskListSize();
+            notifyAll();
+        }
+
+        synchronized void awaitReleased(int count) throws InterruptedException {
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (m_released < count && System.nanoTime() < deadline) {
+                wait(100);
+            }
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        m_tempDir = File.createTempFile("test-commandlog", "");
+        m_tempDir.delete();
+        assertTrue(m_tempDir.mkdir());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (m_log != null) {
+            m_log.shutdown();
+        }
+        VoltFile.recursivelyDelete(m_tempDir);
+        m_tempDir = null;
+        m_log = null;
+    }
+
+    private FileCommandLog createLog(boolean synchronous, int maxTxns) {
+        FileCommandLog log = new FileCommandLog(synchronous, 5, maxTxns, m_tempDir.getPath(), SEGMENT_SIZE);
+        Map<Integer, Long> partitionTxnIds = new HashMap<>();
+        partitionTxnIds.put(0, Long.MIN_VALUE);
+        log.initSegments(1024, Long.MIN_VALUE, 1, partitionTxnIds, new InstanceId(0, 0));
+        return log;
+    }
+
+    private Iv2InitiateTaskMessage makeTask(long spHandle, boolean readOnly, int paramBytes) {
+        StoredProcedureInvocation invocation = new StoredProcedureInvocation();
+        invocation.setProcName("hah");
+        invocation.setParams(1l, "haha", 3.3, new byte[paramBytes]);
+        Iv2InitiateTaskMessage task =
+            new Iv2InitiateTaskMessage(1, 2, Long.MIN_VALUE, spHandle, m_uniqueIdGenerator.getNextUniqueId(),
+                    readOnly, true, invocation, 4, 5, false);
+        task.setSpHandle(spHandle);
+        return task;
+    }
+
+    private int logTasks(CountingListener listener, int count, int paramBytes) {
+        TxnEgo spego = TxnEgo.makeZero(0);
+        for (int i = 0; i < count; i++) {
+            spego = spego.makeNext();
+            m_log.log(makeTask(spego.getTxnId(), false, paramBytes), spego.getTxnId(), new int[] {0}, listener, null);
+        }
+        return count;
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        m_log = createLog(true, 1000);
+        CountingListener listener = new CountingListener();
+        m_log.registerDurabilityListener(listener);
+
+        TxnEgo spego = TxnEgo.makeZero(0);
+        for (int i = 0; i < 100; i++) {
+            spego = spego.makeNext();
+            // Reads are released with the batch but never written
+            assertNull(m_log.log(makeTask(spego.getTxnId(), i % 10 == 0, 0), spego.getTxnId(),
+                                 new int[] {0}, listener, null));
+        }
+        listener.awaitReleased(100);
+        assertEquals(100, listener.m_released);
+
+        List<File> segments = CommandLogSegment.listSegments(m_tempDir);
+        assertEquals(1, segments.size());
+        List<CommandLogSegment.Entry> entries = CommandLogSegment.readEntries(segments.get(0));
+        assertEquals(90, entries.size());
+
+        spego = TxnEgo.makeZero(0);
+        int i = 0;
+        for (CommandLogSegment.Entry entry : entries) {
+            do {
+                spego = spego.makeNext();
+            } while (i++ % 10 == 0);
+            assertEquals(CommandLogSegment.INITIATE_ENTRY, entry.type);
+            assertEquals(spego.getTxnId(), entry.spHandle);
+            assertEquals(spego.getTxnId(), entry.message.getSpHandle());
+            assertEquals("hah", entry.message.getStoredProcedureInvocation().getProcName());
+        }
+    }
+
+    @Test
+    public void testAsyncReleasesWithoutWaiting() throws Exception {
+        m_log = createLog(false, 1000);
+        CountingListener listener = new CountingListener();
+        m_log.registerDurabilityListener(listener);
+        assertTrue(m_log.canOfferTask());
+
+        TxnEgo spego = TxnEgo.makeZero(0).makeNext();
+        assertTrue(m_log.log(makeTask(spego.getTxnId(), false, 0), spego.getTxnId(),
+                             new int[] {0}, listener, null).isDone());
+        listener.awaitReleased(1);
+        assertEquals(1, listener.m_released);
+    }
+
+    @Test
+    public void testTornTailIgnored() throws Exception {
+        m_log = createLog(true, 10);
+        CountingListener listener = new CountingListener();
+        m_log.registerDurabilityListener(listener);
+        listener.awaitReleased(logTasks(listener, 10, 0));
+        m_log.shutdown();
+        m_log = null;
+
+        File segment = CommandLogSegment.listSegments(m_tempDir).get(0);
+        List<CommandLogSegment.Entry> entries = CommandLogSegment.readEntries(segment);
+        assertEquals(10, entries.size());
+
+        // Corrupt the last byte of the final entry, as a crash in the middle of a write would
+        long lastEntryEnd = 0;
+        try (RandomAccessFile raf = new RandomAccessFile(segment, "rw")) {
+            long position = raf.readInt();
+            for (int i = 0; i < entries.size(); i++) {
+                raf.seek(position);
+                position += CommandLogSegment.ENTRY_HEADER_SIZE + raf.readInt();
+            }
+            lastEntryEnd = position;
+            raf.seek(lastEntryEnd - 1);
+            byte b = raf.readByte();
+            raf.seek(lastEntryEnd - 1);
+            raf.writeByte(~b);
+        }
+        assertEquals(9, CommandLogSegment.readEntries(segment).size());
+    }
+
+    @Test
+    public void testTruncation() throws Exception {
+        m_log = createLog(true, 10);
+        CountingListener listener = new CountingListener();
+        m_log.registerDurabilityListener(listener);
+
+        // Each task is around 8K, so this spans several segments
+        final int count = logTasks(listener, 40, 8 * 1024);
+        listener.awaitReleased(count);
+        assertEquals(count, listener.m_released);
+        List<File> segments = CommandLogSegment.listSegments(m_tempDir);
+        assertTrue(segments.size() > 2);
+
+        // A snapshot covering everything in the first segment truncates it
+        CommandLogSegment.Entry lastInFirst = null;
+        for (CommandLogSegment.Entry entry : CommandLogSegment.readEntries(segments.get(0))) {
+            lastInFirst = entry;
+        }
+        Map<Integer, Long> partitionTxnIds = new HashMap<>();
+        partitionTxnIds.put(0, lastInFirst.spHandle);
+        m_log.snapshotCompleted(new SnapshotCompletionEvent(m_tempDir.getPath(), SnapshotPathType.SNAP_CL, "nonce",
+                lastInFirst.spHandle, partitionTxnIds, true, true, "", null, null, null, 0, 0));
+
+        List<File> remaining = CommandLogSegment.listSegments(m_tempDir);
+        assertEquals(segments.size() - 1, remaining.size());
+        assertEquals(segments.get(1), remaining.get(0));
+
+        // A snapshot covering everything keeps the active segment
+        partitionTxnIds.put(0, Long.MAX_VALUE);
+        m_log.snapshotCompleted(new SnapshotCompletionEvent(m_tempDir.getPath(), SnapshotPathType.SNAP_CL, "nonce",
+                Long.MAX_VALUE, partitionTxnIds, true, true, "", null, null, null, 0, 0));
+        remaining = CommandLogSegment.listSegments(m_tempDir);
+        assertEquals(1, remaining.size());
+        assertEquals(segments.get(segments.size() - 1), remaining.get(0));
+    }
+
+    @Test
+    public void testReplayedSegmentsKeptUntilTruncation() throws Exception {
+        m_log = createLog(true, 10);
+        CountingListener listener = new CountingListener();
+        m_log.registerDurabilityListener(listener);
+        listener.awaitReleased(logTasks(listener, 10, 0));
+        m_log.shutdown();
+        m_log = null;
+        List<File> replayed = CommandLogSegment.listSegments(m_tempDir);
+        assertEquals(1, replayed.size());
+
+        // A new incarnation must not drop the segments it just replayed
+        m_log = createLog(true, 10);
+        List<File> segments = CommandLogSegment.listSegments(m_tempDir);
+        assertEquals(2, segments.size());
+        assertEquals(replayed.get(0), segments.get(0));
+        assertEquals(10, CommandLogSegment.readEntries(segments.get(0)).size());
+        assertTrue(CommandLogSegment.readHeader(segments.get(1)).segmentId >
+                   CommandLogSegment.readHeader(segments.get(0)).segmentId);
+
+        // Only a completed truncation snapshot releases them
+        Map<Integer, Long> partitionTxnIds = new HashMap<>();
+        partitionTxnIds.put(0, Long.MIN_VALUE);
+        m_log.snapshotCompleted(new SnapshotCompletionEvent(m_tempDir.getPath(), SnapshotPathType.SNAP_AUTO, "nonce",
+                Long.MIN_VALUE, partitionTxnIds, false, true, "", null, null, null, 0, 0));
+        assertEquals(2, CommandLogSegment.listSegments(m_tempDir).size());
+        m_log.snapshotCompleted(new SnapshotCompletionEvent(m_tempDir.getPath(), SnapshotPathType.SNAP_CL, "nonce",
+                Long.MIN_VALUE, partitionTxnIds, true, true, "", null, null, null, 0, 0));
+        segments = CommandLogSegment.listSegments(m_tempDir);
+        assertEquals(1, segments.size());
+        assertFalse(replayed.get(0).exists());
+    }
+}
@@ -0,0 +1,388 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.voltcore.messaging.HostMessenger;
+import org.voltdb.catalog.Catalog;
+import org.voltdb.catalog.Procedure;
+import org.voltdb.client.ClientResponse;
+import org.voltdb.client.ProcedureCallback;
+import org.voltdb.compiler.VoltProjectBuilder;
+import org.voltdb.iv2.MpInitiator;
+import org.voltdb.settings.DbSettings;
+import org.voltdb.sysprocs.LoadSinglepartitionTable;
+import org.voltdb.utils.CatalogUtil;
+import org.voltdb.utils.MiscUtils;
+
+public class TestInternalConnectionHandlerBatch {
+    private static final int PARTITIONS = 3;
+
+    // real context
+    private static CatalogContext m_context = null;
+
+    private VoltDBInterface m_volt;
+    private InternalConnectionHandler m_handler;
+    private Map<Integer, RecordingAdapter> m_adapters;
+    private RecordingCallback m_callback;
+
+    private final InternalConnectionContext m_caller = new InternalConnectionContext() {
+        @Override
+        public String getName() {
+            return "TestImporter";
+        }
+    };
+
+    /**
+     * A transaction submitted to an adapter, completed by the test
+     */
+    private static class Submission {
+        final String m_procName;
+        final int[] m_partitions;
+        final StoredProcedureInvocation m_task;
+        final ProcedureCallback m_cb;
+
+        Submission(String procName, int[] partitions, StoredProcedureInvocation task, ProcedureCallback cb) {
+            m_procName = procName;
+            m_partitions = partitions;
+            m_task = task;
+            m_cb = cb;
+        }
+
+        void respond(byte status, VoltTable... results) throws Exception {
+            m_cb.clientCallback(new ClientResponseImpl(status, results, ""));
+        }
+    }
+
+    /**
+     * Records the transactions instead of initiating them
+     */
+    private static class RecordingAdapter extends InternalClientResponseAdapter {
+        final List<Submission> m_submissions = new ArrayList<>();
+
+        RecordingAdapter(long connectionId) {
+            super(connectionId);
+        }
+
+        @Override
+        public boolean createTransaction(InternalAdapterTaskAttributes kattrs, String procName, Procedure catProc,
+                ProcedureCallback proccb, InternalConnectionStatsCollector statsCollector,
+                StoredProcedureInvocation task, AuthSystem.AuthUser user, int[] partitions, boolean ntPriority,
+                Function<Integer, Boolean> backPressurePredicate) {
+            m_submissions.add(new Submission(procName, partitions, task, proccb));
+            return true;
+        }
+    }
+
+    private static class RecordingCallback implements ProcedureCallback {
+        final List<ClientResponse> m_responses = new ArrayList<>();
+
+        @Override
+        public void clientCallback(ClientResponse response) {
+            m_responses.add(response);
+        }
+    }
+
+    @BeforeClass
+    public static void setUpOnce() throws Exception {
+        File cat = File.createTempFile("internal-batch", "catalog");
+        cat.deleteOnExit();
+
+        VoltProjectBuilder builder = new VoltProjectBuilder();
+        builder.addLiteralSchema("create table A (i integer not null, v varchar(16), primary key (i));\n" +
+                                 "create table R (i integer not null, v varchar(16));");
+        builder.addPartitionInfo("A", "i");
+        builder.addStmtProcedure("InsertA", "insert into A values (?, ?)", new ProcedurePartitionData("A", "i"));
+        if (!builder.compile(cat.getAbsolutePath())) {
+            throw new IOException();
+        }
+
+        byte[] bytes = MiscUtils.fileToBytes(cat);
+        String serializedCat =
+            CatalogUtil.getSerializedCatalogStringFromJar(CatalogUtil.loadAndUpgradeCatalogFromJar(bytes, false).getFirst());
+        assertNotNull(serializedCat);
+        Catalog catalog = new Catalog();
+        catalog.execute(serializedCat);
+
+        String deploymentPath = builder.getPathToDeployment();
+        CatalogUtil.compileDeployment(catalog, deploymentPath, false);
+        DbSettings dbSettings = CatalogUtil.asDbSettings(deploymentPath);
+        m_context = new CatalogContext(catalog, dbSettings, 0, 0, bytes, null, new byte[] {}, mock(HostMessenger.class));
+        TheHashinator.initialize(TheHashinator.getConfiguredHashinatorClass(), TheHashinator.getConfigureBytes(PARTITIONS));
+    }
+
+    @Before
+    public void setUp() {
+        m_volt = mock(VoltDBInterface.class);
+        VoltDB.replaceVoltDBInstanceForTest(m_volt);
+        doReturn(m_context).when(m_volt).getCatalogContext();
+
+        m_handler = new InternalConnectionHandler();
+        m_adapters = new HashMap<>();
+        for (int pid = 0; pid < PARTITIONS; pid++) {
+            addAdapter(pid);
+        }
+        addAdapter(MpInitiator.MP_INIT_PID);
+        m_callback = new RecordingCallback();
+    }
+
+    private void addAdapter(int pid) {
+        RecordingAdapter adapter = new RecordingAdapter(pid + 1);
+        m_adapters.put(pid, adapter);
+        m_handler.addAdapter(pid, adapter);
+    }
+
+    private static List<Object[]> rows(int count) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[] { String.valueOf(i), "row" + i });
+        }
+        return rows;
+    }
+
+    private List<Submission> submissions(int pid) {
+        return m_adapters.get(pid).m_submissions;
+    }
+
+    private static int partitionOf(long key) {
+        return TheHashinator.getPartitionForParameter(VoltType.INTEGER.getValue(), key);
+    }
+
+    @Test
+    public void testGroupsRowsByPartition() throws Exception {
+        assertTrue(m_handler.callProcedureBatch(m_caller, null, null, m_callback, "A.insert", rows(20)));
+
+        int loaded = 0;
+        int groups = 0;
+        for (int pid = 0; pid < PARTITIONS; pid++) {
+            List<Submission> submissions = submissions(pid);
+            if (submissions.isEmpty()) {
+                continue;
+            }
+            // one load per partition, holding exactly the rows that hash to it
+            assertEquals(1, submissions.size());
+            Submission load = submissions.get(0);
+            assertEquals("@LoadSinglepartitionTable", load.m_procName);
+            assertTrue(Arrays.equals(new int[] { pid }, load.m_partitions));
+            Object[] params = load.m_task.getParams().toArray();
+            assertEquals("A", params[1]);
+            assertEquals(LoadSinglepartitionTable.MODE_BULK_INSERT, params[2]);
+            VoltTable table = (VoltTable) params[3];
+            while (table.advanceRow()) {
+                assertEquals(pid, partitionOf(table.getLong(0)));
+                assertEquals("row" + table.getLong(0), table.getString(1));
+            }
+            loaded += table.getRowCount();
+            groups++;
+        }
+        assertEquals(20, loaded);
+        assertTrue(groups > 1);
+        assertTrue(submissions(MpInitiator.MP_INIT_PID).isEmpty());
+
+        // the importer hears back once, after the last group
+        for (int pid = 0; pid < PARTITIONS; pid++) {
+            for (Submission load : submissions(pid)) {
+                assertTrue(m_callback.m_responses.isEmpty());
+                load.respond(ClientResponse.SUCCESS);
+            }
+        }
+        assertEquals(1, m_callback.m_responses.size());
+        assertEquals(ClientResponse.SUCCESS, m_callback.m_responses.get(0).getStatus());
+    }
+
+    @Test
+    public void testReplicatedTableLoadsThroughMp() throws Exception {
+        assertTrue(m_handler.callProcedureBatch(m_caller, null, null, m_callback, "R.insert", rows(5)));
+
+        for (int pid = 0; pid < PARTITIONS; pid++) {
+            assertTrue(submissions(pid).isEmpty());
+        }
+        List<Submission> submissions = submissions(MpInitiator.MP_INIT_PID);
+        assertEquals(1, submissions.size());
+        Submission load = submissions.get(0);
+        assertEquals("@LoadMultipartitionTable", load.m_procName);
+        Object[] params = load.m_task.getParams().toArray();
+        assertEquals("R", params[0]);
+        assertEquals((byte) 0, params[1]);
+        assertEquals(5, ((VoltTable) params[2]).getRowCount());
+
+        load.respond(ClientResponse.SUCCESS);
+        assertEquals(1, m_callback.m_responses.size());
+        assertEquals(ClientResponse.SUCCESS, m_callback.m_responses.get(0).getStatus());
+    }
+
+    @Test
+    public void testConstraintViolationReplaysGroupRowByRow() throws Exception {
+        assertTrue(m_handler.callProcedureBatch(m_caller, null, null, m_callback, "A.insert", rows(20)));
+
+        int failedPid = partitionOf(0);
+        Submission failedLoad = submissions(failedPid).get(0);
+        int groupSize = ((VoltTable) failedLoad.m_task.getParams().toArray()[3]).getRowCount();
+        failedLoad.respond(ClientResponse.USER_ABORT);
+
+        // every row of the failed group is invoked again on its own, the other groups are left alone
+        List<Submission> replays = submissions(failedPid).subList(1, submissions(failedPid).size());
+        assertEquals(groupSize, replays.size());
+        for (Submission replay : replays) {
+            assertEquals("A.insert", replay.m_procName);
+            Object[] params = replay.m_task.getParams().toArray();
+            assertEquals(failedPid, partitionOf(Long.parseLong((String) params[0])));
+            assertEquals("row" + params[0], params[1]);
+        }
+        for (int pid = 0; pid < PARTITIONS; pid++) {
+            if (pid != failedPid) {
+                assertTrue(submissions(pid).size() <= 1);
+            }
+        }
+        assertTrue(m_callback.m_responses.isEmpty());
+
+        // only the offending row fails, the batch reports it
+        replays.get(0).respond(ClientResponse.GRACEFUL_FAILURE);
+        for (Submission replay : replays.subList(1, replays.size())) {
+            replay.respond(ClientResponse.SUCCESS);
+        }
+        for (int pid = 0; pid < PARTITIONS; pid++) {
+            if (pid != failedPid && !submissions(pid).isEmpty()) {
+                assertTrue(m_callback.m_responses.isEmpty());
+                submissions(pid).get(0).respond(ClientResponse.SUCCESS);
+            }
+        }
+        assertEquals(1, m_callback.m_responses.size());
+        assertEquals(ClientResponse.GRACEFUL_FAILURE, m_callback.m_responses.get(0).getStatus());
+    }
+
+    @Test
+    public void testRejectedRowsReplayedAlone() throws Exception {
+        assertTrue(m_handler.callProcedureBatch(m_caller, null, null, m_callback, "A.insert", rows(20)));
+
+        int loadPid = partitionOf(0);
+        Submission load = submissions(loadPid).get(0);
+        VoltTable group = (VoltTable) load.m_task.getParams().toArray()[3];
+        assertTrue(group.getRowCount() > 2);
+        VoltTable count = new VoltTable(new VoltTable.ColumnInfo("", VoltType.BIGINT));
+        count.addRow(group.getRowCount() - 2);
+        VoltTable rejected = new VoltTable(new VoltTable.ColumnInfo("ROW_INDEX", VoltType.INTEGER));
+        rejected.addRow(0);
+        rejected.addRow(group.getRowCount() - 1);
+        load.respond(ClientResponse.SUCCESS, count, rejected);
+
+        // only the rejected rows are invoked again, in their batch order
+        List<Submission> replays = submissions(loadPid).subList(1, submissions(loadPid).size());
+        assertEquals(2, replays.size());
+        group.advanceToRow(0);
+        assertEquals(String.valueOf(group.getLong(0)), replays.get(0).m_task.getParams().toArray()[0]);
+        group.advanceToRow(group.getRowCount() - 1);
+        assertEquals(String.valueOf(group.getLong(0)), replays.get(1).m_task.getParams().toArray()[0]);
+
+        for (int pid = 0; pid < PARTITIONS; pid++) {
+            if (pid != loadPid && !submissions(pid).isEmpty()) {
+                submissions(pid).get(0).respond(ClientResponse.SUCCESS);
+            }
+        }
+        replays.get(0).respond(ClientResponse.SUCCESS);
+        assertTrue(m_callback.m_responses.isEmpty());
+        replays.get(1).respond(ClientResponse.GRACEFUL_FAILURE);
+        assertEquals(1, m_callback.m_responses.size());
+        assertEquals(ClientResponse.GRACEFUL_FAILURE, m_callback.m_responses.get(0).getStatus());
+    }
+
+    @Test
+    public void testBatchStatusAggregation() throws Exception {
+        // a procedure other than the default insert is invoked once per row
+        assertTrue(m_handler.callProcedureBatch(m_caller, null, null, m_callback, "InsertA", rows(2)));
+        List<Submission> submitted = new ArrayList<>();
+        for (int pid = 0; pid < PARTITIONS; pid++) {
+            submitted.addAll(submissions(pid));
+        }
+        assertEquals(2, submitted.size());
+        for (Submission row : submitted) {
+            assertEquals("InsertA", row.m_procName);
+        }
+        // a failure wins over a success
+        submitted.get(0).respond(ClientResponse.GRACEFUL_FAILURE);
+        submitted.get(1).respond(ClientResponse.SUCCESS);
+        assertEquals(1, m_callback.m_responses.size());
+        assertEquals(ClientResponse.GRACEFUL_FAILURE, m_callback.m_responses.get(0).getStatus());
+
+        setUp();
+        assertTrue(m_handler.callProcedureBatch(m_caller, null, null, m_callback, "InsertA", rows(4)));
+        submitted.clear();
+        for (int pid = 0; pid < PARTITIONS; pid++) {
+            submitted.addAll(submissions(pid));
+        }
+        assertEquals(4, submitted.size());
+        submitted.get(0).respond(ClientResponse.SUCCESS);
+        // a resubmitted row has not completed yet
+        submitted.get(1).respond(ClientResponse.RESPONSE_UNKNOWN);
+        submitted.get(2).respond(ClientResponse.SERVER_UNAVAILABLE);
+        submitted.get(3).respond(ClientResponse.GRACEFUL_FAILURE);
+        assertTrue(m_callback.m_responses.isEmpty());
+        // an unavailable server sticks, whatever completes after it
+        submitted.get(1).respond(ClientResponse.USER_ABORT);
+        assertEquals(1, m_callback.m_responses.size());
+        assertEquals(ClientResponse.SERVER_UNAVAILABLE, m_callback.m_responses.get(0).getStatus());
+    }
+
+    @Test
+    public void testMissingAdapterFailsGroup() throws Exception {
+        m_handler = new InternalConnectionHandler();
+        assertTrue(m_handler.callProcedureBatch(m_caller, null, null, m_callback, "A.insert", rows(10)));
+
+        // every group fails without being queued, the importer hears back once
+        assertEquals(1, m_callback.m_responses.size());
+        ClientResponse response = m_callback.m_responses.get(0);
+        assertEquals(ClientResponse.GRACEFUL_FAILURE, response.getStatus());
+        assertEquals("Failed to queue procedure A.insert", response.getStatusString());
+        for (RecordingAdapter adapter : m_adapters.values()) {
+            assertTrue(adapter.m_submissions.isEmpty());
+        }
+    }
+
+    @Test
+    public void testUnknownProcedure() throws Exception {
+        assertFalse(m_handler.callProcedureBatch(m_caller, null, null, m_callback, "B.insert", rows(3)));
+        assertTrue(m_callback.m_responses.isEmpty());
+        for (RecordingAdapter adapter : m_adapters.values()) {
+            assertTrue(adapter.m_submissions.isEmpty());
+        }
+    }
+}
@@ -259,6 +259,36 @@ public class TestStoredProcedureInvocation extends TestCase {
         }
     }
 
+    public void testReplicaReadExtension() throws IOException {
+        StoredProcedureInvocation spi = new StoredProcedureInvocation();
+        spi.setProcName("ReadOnlyProc");
+        spi.setClientHandle(7);
+        spi.setBatchTimeout(100);
+        spi.setParams(new Object[] { 1, 2, 3 });
+        spi.setReplicaRead(true);
+
+        ByteBuffer buf = ByteBuffer.allocate(spi.getSerializedSize());
+        spi.flattenToBuffer(buf);
+        assertFalse(buf.hasRemaining());
+        buf.flip();
+
+        StoredProcedureInvocation copy = new StoredProcedureInvocation();
+        copy.initFromBuffer(buf);
+        assertTrue(copy.getReplicaRead());
+        assertFalse(copy.getAllPartition());
+        assertEquals(100, copy.getBatchTimeout());
+        assertEquals(7, copy.getClientHandle());
+        assertTrue(copy.getShallowCopy().getReplicaRead());
+
+        // a reused invocation must not keep the flag of the previous one
+        spi.setReplicaRead(false);
+        buf = ByteBuffer.allocate(spi.getSerializedSize());
+        spi.flattenToBuffer(buf);
+        buf.flip();
+        copy.initFromBuffer(buf);
+        assertFalse(copy.getReplicaRead());
+    }
+
     public void testTimeoutExtension() throws IOException {
         for (Pair<?,?> procsRaw : procedureNames) {
             String procName = (String) procsRaw.getFirst();
@@ -0,0 +1,95 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb;
+
+import org.voltdb.TTLManager.TTLStats;
+import org.voltdb.TTLManager.TTLTask;
+import org.voltdb.catalog.Catalog;
+import org.voltdb.catalog.TimeToLive;
+
+import junit.framework.TestCase;
+
+public class TestTTLManager extends TestCase {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static TTLTask createTask(int batchSize) {
+        TimeToLive ttl = new Catalog().getClusters().add("cluster").getDatabases().add("database")
+                .getTables().add("T").getTimetolive().add("ttl");
+        ttl.setBatchsize(batchSize);
+        return TTLManager.instance().new TTLTask("T", ttl, new TTLStats("T"));
+    }
+
+    public void testAdaptChunkSize() {
+        assertEquals(5000000, TTLManager.CPU_BUDGET_NANOS);
+        assertEquals(100, TTLManager.MIN_CHUNK_SIZE);
+        TTLTask task = createTask(BATCH_SIZE);
+        assertEquals(BATCH_SIZE, task.chunkSize);
+
+        // Twice over budget halves the chunk size right away
+        task.adaptChunkSize(10000000, 10000);
+        assertEquals(500, task.chunkSize);
+        task.adaptChunkSize(10000000, 10000);
+        assertEquals(250, task.chunkSize);
+
+        // Well under budget grows at most twofold per round while there is a backlog
+        task.adaptChunkSize(100000, 10000);
+        assertEquals(500, task.chunkSize);
+
+        // But not without one
+        task.adaptChunkSize(100000, 0);
+        assertEquals(500, task.chunkSize);
+
+        // Growth stops at the batch size, which guards the DR buffer limit
+        task.adaptChunkSize(100000, 10000);
+        task.adaptChunkSize(100000, 10000);
+        assertEquals(BATCH_SIZE, task.chunkSize);
+
+        // Far over budget shrinks to the minimum chunk size, not below
+        task.adaptChunkSize(1000000000, 10000);
+        assertEquals(TTLManager.MIN_CHUNK_SIZE, task.chunkSize);
+
+        // Without a measurement the batch size is used
+        task.adaptChunkSize(0, 10000);
+        assertEquals(BATCH_SIZE, task.chunkSize);
+    }
+
+    public void testAdaptChunkSizeSmallBatch() {
+        // A batch size below the minimum chunk size is still honored
+        TTLTask task = createTask(10);
+        task.adaptChunkSize(1000000000, 10000);
+        assertEquals(10, task.chunkSize);
+        task.adaptChunkSize(1000, 10000);
+        assertEquals(10, task.chunkSize);
+    }
+
+    public void testUpdateTaskCapsChunkSize() {
+        TTLTask task = createTask(BATCH_SIZE);
+        TimeToLive smaller = new Catalog().getClusters().add("cluster").getDatabases().add("database")
+                .getTables().add("T").getTimetolive().add("ttl");
+        smaller.setBatchsize(200);
+        task.updateTask(smaller);
+        assertEquals(200, task.chunkSize);
+    }
+}
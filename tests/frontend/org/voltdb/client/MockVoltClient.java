@@ -68,6 +68,8 @@ import org.voltdb.client.VoltBulkLoader.BulkLoaderFailureCallBack;
 import org.voltdb.client.VoltBulkLoader.BulkLoaderSuccessCallback;
 import org.voltdb.client.VoltBulkLoader.VoltBulkLoader;
 
+import com.google_voltpatches.common.util.concurrent.ListenableFuture;
+
 /** Hack subclass of VoltClient that fakes callProcedure. */
 public class MockVoltClient implements Client {
     public MockVoltClient() {
@@ -159,6 +161,13 @@ public class MockVoltClient implements Client {
         return false;
     }
 
+    @Override
+    public int callProcedures(ProcedureCallback callback, String procName,
+            List<Object[]> parameterSets) throws NoConnectionsException {
+        // TODO Auto-generated method stub
+        return 0;
+    }
+
     @Override
     public void drain() {
         // TODO Auto-generated method stub
@@ -368,4 +377,24 @@ public class MockVoltClient implements Client {
         // TODO Auto-generated method stub
         return false;
     }
+
+    @Override
+    public ListenableFuture<ClientResponse> callProcedureAsync(String procName, Object... parameters) {
+        // TODO Auto-generated method stub
+        return null;
+    }
+
+    @Override
+    public ListenableFuture<ClientResponse> callProcedureWithTimeoutAsync(int queryTimeout, String procName,
+            Object... parameters) {
+        // TODO Auto-generated method stub
+        return null;
+    }
+
+    @Override
+    public ListenableFuture<ClientResponseWithPartitionKey[]> callAllPartitionProcedureAsync(String procedureName,
+            Object... params) {
+        // TODO Auto-generated method stub
+        return null;
+    }
 }
@@ -29,7 +29,13 @@ import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.After;
 import org.junit.Before;
@@ -186,6 +192,51 @@ public class TestAllPartitionProcedureCalls extends JUnit4LocalClusterTest {
         }
     }
 
+    @Test
+    public void testStreamingCallAllPartitionProcedure() throws Exception {
+        for (Client c : new Client[] { client, clientWithAffinity }) {
+            CountDownLatch latch = new CountDownLatch(1);
+            StreamingCallBack cb = new StreamingCallBack(latch);
+            c.callAllPartitionProcedure(cb, "PartitionIntegerTestProc");
+            assertTrue(latch.await(60, TimeUnit.SECONDS));
+
+            // every partition was streamed once before the aggregate callback
+            assertEquals(8, cb.m_streamed.size());
+            assertEquals(8, cb.m_streamedAtCompletion);
+            Set<Object> keys = new HashSet<>();
+            long total = 0;
+            for (ClientResponseWithPartitionKey resp : cb.m_streamed) {
+                assertTrue(keys.add(resp.partitionKey));
+                total += resp.response.getResults()[0].fetchRow(0).getLong(0);
+            }
+            assertEquals(ROWS, total);
+            validateResults(cb.m_responses, 8);
+        }
+    }
+
+    @Test
+    public void testStreamingCallAllPartitionProcedureFailure() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        StreamingCallBack cb = new StreamingCallBack(latch);
+        client.callAllPartitionProcedure(cb, "PartitionFailureTestProc");
+        assertTrue(latch.await(60, TimeUnit.SECONDS));
+
+        // only the partition owning the inserted row succeeds, the failed partitions
+        // are streamed like the others and the stream still completes
+        assertEquals(8, cb.m_streamed.size());
+        assertEquals(8, cb.m_streamedAtCompletion);
+        int failures = 0;
+        for (ClientResponseWithPartitionKey resp : cb.m_streamed) {
+            if ((int) resp.partitionKey == 7) {
+                assertEquals(ClientResponse.SUCCESS, resp.response.getStatus());
+            } else {
+                assertFalse(resp.response.getStatus() == ClientResponse.SUCCESS);
+                failures++;
+            }
+        }
+        assertEquals(7, failures);
+    }
+
     private void validateResults(ClientResponseWithPartitionKey[]  responses, int partitionCount) {
         assertNotNull("responses are null", responses);
         assertEquals ("response array size is not equal to the number of partitions", partitionCount, responses.length);
@@ -239,4 +290,29 @@ public class TestAllPartitionProcedureCalls extends JUnit4LocalClusterTest {
             }
         }
     }
+
+    public static class StreamingCallBack implements StreamingAllPartitionProcedureCallback {
+
+        final List<ClientResponseWithPartitionKey> m_streamed =
+                Collections.synchronizedList(new ArrayList<ClientResponseWithPartitionKey>());
+        final CountDownLatch m_latch;
+        ClientResponseWithPartitionKey[] m_responses;
+        int m_streamedAtCompletion;
+
+        StreamingCallBack(CountDownLatch latch) {
+            m_latch = latch;
+        }
+
+        @Override
+        public void partitionCallback(ClientResponseWithPartitionKey response) throws Exception {
+            m_streamed.add(response);
+        }
+
+        @Override
+        public void clientCallback(ClientResponseWithPartitionKey[] responses) throws Exception {
+            m_responses = responses;
+            m_streamedAtCompletion = m_streamed.size();
+            m_latch.countDown();
+        }
+    }
 }
@@ -47,6 +47,7 @@ import org.voltdb.ClientResponseImpl;
 import org.voltdb.StoredProcedureInvocation;
 import org.voltdb.VoltTable;
 import org.voltdb.VoltType;
+import org.voltdb.common.Constants;
 
 import junit.framework.TestCase;
 
@@ -68,6 +69,23 @@ public class TestDistributer extends TestCase {
 
         @Override
         public void handleMessage(ByteBuffer message, Connection c) {
+            if (message.get(message.position()) == Constants.INVOCATION_BATCH_VERSION) {
+                message.get();
+                final int count = message.getInt();
+                for (int ii = 0; ii < count; ii++) {
+                    final int length = message.getInt();
+                    final ByteBuffer invocation = message.slice();
+                    invocation.limit(length);
+                    message.position(message.position() + length);
+                    handleInvocation(invocation, c);
+                }
+                batches.incrementAndGet();
+            } else {
+                handleInvocation(message, c);
+            }
+        }
+
+        private void handleInvocation(ByteBuffer message, Connection c) {
             try {
                 StoredProcedureInvocation spi = new StoredProcedureInvocation();
                 spi.initFromBuffer(message);
@@ -140,6 +158,7 @@ public class TestDistributer extends TestCase {
 
         }
         AtomicInteger roundTrips = new AtomicInteger();
+        AtomicInteger batches = new AtomicInteger();
 
         @Override
         public Runnable offBackPressure() {
@@ -528,6 +547,51 @@ public class TestDistributer extends TestCase {
         }
     }
 
+    @Test
+    public void testQueueBatched() throws Exception {
+        // TODO: write a mock server that can grock ssl
+        if (ClientConfig.ENABLE_SSL_FOR_TEST) return;
+
+        MockVolt volt0 = null;
+        try {
+            volt0 = new MockVolt(20000);
+            volt0.start();
+
+            Distributer dist = new Distributer(false,
+                    ClientConfig.DEFAULT_PROCEDURE_TIMOUT_NANOS,
+                    ClientConfig.DEFAULT_CONNECTION_TIMOUT_MS,
+                    false, false, null /* subject */, null);
+            dist.setInvocationBatching(true);
+            dist.createConnection("localhost", "", "", 20000, ClientAuthScheme.HASH_SHA1);
+            assertTrue(volt0.handler != null);
+
+            // invocations queued while the network thread is busy with the first are batched,
+            // every one of them must still get its own response
+            final int invocations = 1000;
+            final AtomicInteger responses = new AtomicInteger();
+            for (int handle = 1; handle <= invocations; handle++) {
+                ProcedureInvocation pi = new ProcedureInvocation(handle, "i1", new Integer(1));
+                dist.queue(pi, new ProcedureCallback() {
+                    @Override
+                    public void clientCallback(ClientResponse clientResponse) throws Exception {
+                        assertEquals(ClientResponse.SUCCESS, clientResponse.getStatus());
+                        responses.incrementAndGet();
+                    }
+                }, true, System.nanoTime(), 0);
+            }
+            dist.drain();
+
+            assertEquals(invocations, responses.get());
+            assertEquals(invocations, volt0.handler.roundTrips.get());
+            assertTrue(volt0.handler.batches.get() > 0);
+        }
+        finally {
+            if (volt0 != null) {
+                volt0.shutdown();
+            }
+        }
+    }
+
     @Test
     public void testQueueMixed() throws Exception {
         // TODO: write a mock server that can grock ssl
@@ -882,6 +946,11 @@ public class TestDistributer extends TestCase {
            clt.callProcedure(new ProcCallback(), "Bar", new Integer(2));
            clt.drain();
            assertEquals(6, volt.handler.roundTrips.get());
+
+           // this call returns a future completed by the response
+           ClientResponse response = clt.callProcedureAsync("Baz", new Integer(3)).get();
+           assertEquals(ClientResponse.SUCCESS, response.getStatus());
+           assertEquals(7, volt.handler.roundTrips.get());
        }
        finally {
            if (volt != null) {
@@ -0,0 +1,133 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.client;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import junit.framework.TestCase;
+
+public class TestRateLimiter extends TestCase {
+
+    /**
+     * Send as many transactions as the limiter admits without blocking, then
+     * receive them all with a round trip that grows once more than
+     * capacity transactions are outstanding, as a saturated server would.
+     * @return the number of transactions sent
+     */
+    private static int runRound(RateLimiter limiter, int capacity) {
+        int sent = 0;
+        while (true) {
+            try {
+                limiter.sendTxnWithOptionalBlockAndReturnCurrentTime(System.nanoTime(), 0, false);
+                sent++;
+            } catch (TimeoutException e) {
+                break;
+            }
+        }
+        final long rttNanos = TimeUnit.MILLISECONDS.toNanos(1) * Math.max(1, sent / capacity);
+        for (int ii = 0; ii < sent; ii++) {
+            limiter.transactionResponseReceived(System.nanoTime(), 1, false, rttNanos);
+        }
+        return sent;
+    }
+
+    public void testAdaptiveLimitGrowsToMax() {
+        RateLimiter limiter = new RateLimiter();
+        limiter.enableAdaptiveLimit(500);
+        assertEquals(RateLimiter.ADAPTIVE_INITIAL_LIMIT, limiter.getLimits()[1]);
+
+        for (int ii = 0; ii < 1000; ii++) {
+            runRound(limiter, Integer.MAX_VALUE);
+        }
+        assertEquals(500, limiter.getLimits()[1]);
+        assertEquals(Integer.MAX_VALUE, limiter.getLimits()[0]);
+    }
+
+    public void testAdaptiveLimitBacksOffFromQueueing() {
+        RateLimiter limiter = new RateLimiter();
+        limiter.enableAdaptiveLimit(5000);
+
+        for (int ii = 0; ii < 1000; ii++) {
+            runRound(limiter, 100);
+        }
+        // latency doubles at 200 outstanding, the limit has to settle well before that
+        final int limit = limiter.getLimits()[1];
+        assertTrue("limit " + limit, limit >= 50 && limit < 300);
+    }
+
+    public void testAdaptiveLimitBacksOffOnBackpressure() {
+        RateLimiter limiter = new RateLimiter();
+        limiter.enableAdaptiveLimit(500);
+        for (int ii = 0; ii < 1000; ii++) {
+            runRound(limiter, Integer.MAX_VALUE);
+        }
+        assertEquals(500, limiter.getLimits()[1]);
+
+        limiter.backpressureObserved();
+        runRound(limiter, Integer.MAX_VALUE);
+        assertTrue(limiter.getLimits()[1] < 500);
+
+        // timed out transactions count as congestion too
+        final int limit = limiter.getLimits()[1];
+        runRound(limiter, Integer.MAX_VALUE);
+        try {
+            limiter.sendTxnWithOptionalBlockAndReturnCurrentTime(System.nanoTime(), 0, false);
+        } catch (TimeoutException e) {
+            fail();
+        }
+        limiter.transactionResponseReceived(System.nanoTime(), -1, false);
+        runRound(limiter, Integer.MAX_VALUE);
+        assertTrue(limiter.getLimits()[1] < limit + Math.sqrt(limit));
+    }
+
+    public void testAdaptiveLimitBlocksUntilResponse() throws Exception {
+        final RateLimiter limiter = new RateLimiter();
+        limiter.enableAdaptiveLimit(RateLimiter.ADAPTIVE_MIN_LIMIT);
+        for (int ii = 0; ii < RateLimiter.ADAPTIVE_MIN_LIMIT; ii++) {
+            limiter.sendTxnWithOptionalBlockAndReturnCurrentTime(System.nanoTime(), 0, false);
+        }
+        try {
+            limiter.sendTxnWithOptionalBlockAndReturnCurrentTime(System.nanoTime(),
+                    TimeUnit.MILLISECONDS.toNanos(10), false);
+            fail();
+        } catch (TimeoutException expected) {}
+
+        // backpressure exempt transactions are never blocked
+        limiter.sendTxnWithOptionalBlockAndReturnCurrentTime(System.nanoTime(), 0, true);
+
+        Thread responder = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {}
+                limiter.transactionResponseReceived(System.nanoTime(), 1, false, TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        };
+        responder.start();
+        limiter.sendTxnWithOptionalBlockAndReturnCurrentTime(System.nanoTime(), TimeUnit.SECONDS.toNanos(10), false);
+        responder.join();
+    }
+}
@@ -0,0 +1,177 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.voltdb.ClientResponseImpl;
+import org.voltdb.VoltTable;
+
+/**
+ * Drives the per-partition callbacks of an all-partition call directly, without a server.
+ */
+public class TestStreamingAllPartitionProcedureCallback {
+
+    private ClientImpl m_client;
+
+    @Before
+    public void setUp() {
+        m_client = (ClientImpl) ClientFactory.createClient();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        m_client.close();
+    }
+
+    private static class Recorder implements StreamingAllPartitionProcedureCallback {
+        final List<ClientResponseWithPartitionKey> m_streamed = new ArrayList<>();
+        final AtomicInteger m_completions = new AtomicInteger();
+        ClientResponseWithPartitionKey[] m_responses;
+        int m_streamedAtCompletion;
+
+        @Override
+        public void partitionCallback(ClientResponseWithPartitionKey response) throws Exception {
+            m_streamed.add(response);
+        }
+
+        @Override
+        public void clientCallback(ClientResponseWithPartitionKey[] responses) throws Exception {
+            m_responses = responses;
+            m_streamedAtCompletion = m_streamed.size();
+            m_completions.incrementAndGet();
+        }
+    }
+
+    private ClientImpl.OnePartitionProcedureCallback[] partitionCallbacks(int partitions,
+            AllPartitionProcedureCallback cb) {
+        AtomicInteger counter = new AtomicInteger(partitions);
+        ClientResponseWithPartitionKey[] responses = new ClientResponseWithPartitionKey[partitions];
+        ClientImpl.OnePartitionProcedureCallback[] callbacks = new ClientImpl.OnePartitionProcedureCallback[partitions];
+        for (int i = 0; i < partitions; i++) {
+            callbacks[i] = m_client.new OnePartitionProcedureCallback(counter, 100 + i, i, responses, cb);
+        }
+        return callbacks;
+    }
+
+    private static ClientResponse response(byte status) {
+        return new ClientResponseImpl(status, new VoltTable[0], null);
+    }
+
+    @Test
+    public void testStreamsInArrivalOrder() throws Exception {
+        Recorder cb = new Recorder();
+        ClientImpl.OnePartitionProcedureCallback[] callbacks = partitionCallbacks(3, cb);
+
+        callbacks[2].clientCallback(response(ClientResponse.SUCCESS));
+        assertEquals(1, cb.m_streamed.size());
+        assertEquals(100 + 2, cb.m_streamed.get(0).partitionKey);
+        assertEquals(0, cb.m_completions.get());
+
+        callbacks[0].clientCallback(response(ClientResponse.SUCCESS));
+        callbacks[1].clientCallback(response(ClientResponse.SUCCESS));
+        assertEquals(3, cb.m_streamed.size());
+        assertEquals(100 + 0, cb.m_streamed.get(1).partitionKey);
+        assertEquals(100 + 1, cb.m_streamed.get(2).partitionKey);
+
+        // the aggregate callback marks the end of the stream and holds responses by partition
+        assertEquals(1, cb.m_completions.get());
+        assertEquals(3, cb.m_streamedAtCompletion);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(100 + i, cb.m_responses[i].partitionKey);
+        }
+    }
+
+    @Test
+    public void testFailuresAreStreamed() throws Exception {
+        Recorder cb = new Recorder();
+        ClientImpl.OnePartitionProcedureCallback[] callbacks = partitionCallbacks(4, cb);
+
+        ClientResponse aborted = response(ClientResponse.USER_ABORT);
+        callbacks[0].exceptionCallback(new ProcCallException(aborted, null, null));
+        callbacks[1].exceptionCallback(new NoConnectionsException("gone"));
+        callbacks[2].exceptionCallback(new IOException("broken"));
+        callbacks[3].clientCallback(response(ClientResponse.GRACEFUL_FAILURE));
+
+        assertEquals(4, cb.m_streamed.size());
+        assertSame(aborted, cb.m_streamed.get(0).response);
+        assertEquals(ClientResponse.CONNECTION_LOST, cb.m_streamed.get(1).response.getStatus());
+        assertEquals(ClientResponse.GRACEFUL_FAILURE, cb.m_streamed.get(2).response.getStatus());
+        assertEquals("broken", cb.m_streamed.get(2).response.getStatusString());
+        assertEquals(ClientResponse.GRACEFUL_FAILURE, cb.m_streamed.get(3).response.getStatus());
+        assertEquals(1, cb.m_completions.get());
+        assertEquals(4, cb.m_streamedAtCompletion);
+    }
+
+    @Test
+    public void testThrowingPartitionCallbackStillCompletes() throws Exception {
+        Recorder cb = new Recorder() {
+            @Override
+            public void partitionCallback(ClientResponseWithPartitionKey response) throws Exception {
+                super.partitionCallback(response);
+                throw new IllegalStateException("consumer failed");
+            }
+        };
+        ClientImpl.OnePartitionProcedureCallback[] callbacks = partitionCallbacks(2, cb);
+
+        for (ClientImpl.OnePartitionProcedureCallback callback : callbacks) {
+            try {
+                callback.clientCallback(response(ClientResponse.SUCCESS));
+                fail();
+            } catch (IllegalStateException expected) {
+            }
+        }
+        // the consumer's exception does not lose the aggregate callback
+        assertEquals(1, cb.m_completions.get());
+        assertNotNull(cb.m_responses[0]);
+        assertNotNull(cb.m_responses[1]);
+    }
+
+    @Test
+    public void testPlainCallbackIsNotStreamed() throws Exception {
+        final AtomicInteger completions = new AtomicInteger();
+        ClientImpl.OnePartitionProcedureCallback[] callbacks = partitionCallbacks(2, new AllPartitionProcedureCallback() {
+            @Override
+            public void clientCallback(ClientResponseWithPartitionKey[] responses) {
+                assertEquals(2, responses.length);
+                completions.incrementAndGet();
+            }
+        });
+        callbacks[1].clientCallback(response(ClientResponse.SUCCESS));
+        assertEquals(0, completions.get());
+        callbacks[0].clientCallback(response(ClientResponse.SUCCESS));
+        assertEquals(1, completions.get());
+    }
+}
@@ -62,7 +62,10 @@ import org.voltdb.catalog.SnapshotSchedule;
 import org.voltdb.catalog.Table;
 import org.voltdb.common.Constants;
 import org.voltdb.compiler.VoltCompiler.Feedback;
+import org.voltdb.planner.CompiledPlan;
 import org.voltdb.planner.PlanningErrorException;
+import org.voltdb.planner.StatementPartitioning;
+import org.voltdb.sysprocs.LowImpactDeleteNT.ComparisonOperation;
 import org.voltdb.types.GeographyValue;
 import org.voltdb.types.IndexType;
 import org.voltdb.utils.BuildDirectoryUtils;
@@ -103,6 +106,28 @@ public class TestVoltCompiler extends TestCase {
         assertTrue(pb.compile(Configuration.getPathToCatalogForTest("testout.jar")));
     }
 
+    public void testNibbleDeleteFrontierSkipsNulls() throws Exception {
+        String ddl = "create table ttl (a integer not null, ts timestamp, PRIMARY KEY(a));\n" +
+                     "partition table ttl on column a;\n" +
+                     "create index ttlindex on ttl (ts);\n";
+        VoltCompiler compiler = new VoltCompiler(false);
+        assertTrue(compileDDL(ddl, compiler));
+        Database db = compiler.getCatalog().getClusters().get("cluster").getDatabases().get("database");
+        Table table = db.getTables().get("TTL");
+        Column ts = table.getColumns().get("TS");
+        PlannerTool planner = new PlannerTool(db, new byte[20]);
+
+        // The frontier is read at an offset in delete order, NULLs sort first and must not count.
+        // The read still has to be a probe of the index.
+        for (ComparisonOperation op : new ComparisonOperation[] { ComparisonOperation.LT, ComparisonOperation.GTE }) {
+            String sql = StatementCompiler.genValueAtOffsetSqlForNibbleDelete(table, ts, op);
+            assertTrue(sql, sql.contains("WHERE TS IS NOT NULL"));
+            CompiledPlan plan = planner.planSqlCore(sql, StatementPartitioning.forceSP());
+            String explained = plan.rootPlanGraph.toExplainPlanString();
+            assertTrue(explained, explained.contains("TTLINDEX"));
+        }
+    }
+
     public void testDDLFiltering() throws Exception {
 
         String ddl = "file -inlinebatch END_OF_DROP_BATCH\n" +
@@ -3702,6 +3727,91 @@ public class TestVoltCompiler extends TestCase {
                 );
     }
 
+    public void testDictionaryTable() throws Exception {
+        String schema = "create table e1 (id integer not null, f1 varchar(16), f2 varbinary(256));\n" +
+                        "partition table e1 on column id;";
+        Database db = goodDDLAgainstSimpleSchema(
+                schema,
+                "dictionary table e1 column f1;",
+                "DICTIONARY TABLE E1 COLUMN F2;"
+                );
+        Table e1 = db.getTables().getIgnoreCase("e1");
+        assertFalse(e1.getColumns().getIgnoreCase("id").getDictionaryencoded());
+        assertTrue(e1.getColumns().getIgnoreCase("f1").getDictionaryencoded());
+        assertTrue(e1.getColumns().getIgnoreCase("f2").getDictionaryencoded());
+
+        // DICTIONARY statement is order sensitive
+        db = goodDDLAgainstSimpleSchema(
+                schema,
+                "dictionary table e1 column f1;",
+                "dictionary table e1 column f1 disable;"
+                );
+        assertFalse(db.getTables().getIgnoreCase("e1").getColumns().getIgnoreCase("f1").getDictionaryencoded());
+
+        // The encoding survives changes to other columns
+        db = goodDDLAgainstSimpleSchema(
+                schema,
+                "dictionary table e1 column f1;",
+                "alter table e1 add column f3 integer;"
+                );
+        assertTrue(db.getTables().getIgnoreCase("e1").getColumns().getIgnoreCase("f1").getDictionaryencoded());
+
+        // and a change of the column's size
+        db = goodDDLAgainstSimpleSchema(
+                schema,
+                "dictionary table e1 column f1;",
+                "alter table e1 alter column f1 varchar(32);"
+                );
+        assertTrue(db.getTables().getIgnoreCase("e1").getColumns().getIgnoreCase("f1").getDictionaryencoded());
+
+        // but is dropped when the column is altered to a type that can't be encoded
+        db = goodDDLAgainstSimpleSchema(
+                schema,
+                "dictionary table e1 column f1;",
+                "alter table e1 alter column f1 integer;"
+                );
+        Column f1 = db.getTables().getIgnoreCase("e1").getColumns().getIgnoreCase("f1");
+        assertEquals(VoltType.INTEGER.getValue(), f1.getType());
+        assertFalse(f1.getDictionaryencoded());
+
+        // and stays off if the column becomes a string again
+        db = goodDDLAgainstSimpleSchema(
+                schema,
+                "dictionary table e1 column f1;",
+                "alter table e1 alter column f1 integer;",
+                "alter table e1 alter column f1 varchar(16);"
+                );
+        assertFalse(db.getTables().getIgnoreCase("e1").getColumns().getIgnoreCase("f1").getDictionaryencoded());
+    }
+
+    public void testBadDictionaryTable() throws Exception {
+        String schema = "create table e1 (id integer not null, f1 varchar(16));\n" +
+                        "create stream s1 (id integer not null, f1 varchar(16));";
+
+        badDDLAgainstSimpleSchema(".+dictionary encoding, table non_existant was not present in the catalog.*",
+                "dictionary table non_existant column f1;"
+                );
+
+        badDDLAgainstSimpleSchema(".+dictionary encoding, column non_existant was not present in table e1.*",
+                schema,
+                "dictionary table e1 column non_existant;"
+                );
+
+        badDDLAgainstSimpleSchema(".+only VARCHAR and VARBINARY columns can be dictionary encoded.*",
+                schema,
+                "dictionary table e1 column id;"
+                );
+
+        badDDLAgainstSimpleSchema(".+Invalid DICTIONARY statement: table s1 is a stream.*",
+                schema,
+                "dictionary table s1 column f1;"
+                );
+
+        badDDLAgainstSimpleSchema(".+Invalid DICTIONARY TABLE statement.*",
+                "dictionary table e1;"
+                );
+    }
+
     public void testCompileFromDDL() throws IOException {
         String schema1 =
                 "create table table1r_el " +
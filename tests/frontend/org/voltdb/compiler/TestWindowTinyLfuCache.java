@@ -0,0 +1,140 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.compiler;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class TestWindowTinyLfuCache extends TestCase {
+
+    private static final WindowTinyLfuCache.Weigher<String> LENGTH_WEIGHER =
+            new WindowTinyLfuCache.Weigher<String>() {
+                @Override
+                public long weigh(String value) {
+                    return value.length();
+                }
+            };
+
+    public void testFrequencySketchCountsAndAges() {
+        FrequencySketch sketch = new FrequencySketch(64);
+        assertEquals(0, sketch.frequency("select * from t;"));
+        for (int i = 0; i < 5; ++i) {
+            sketch.increment("select * from t;");
+        }
+        assertTrue(sketch.frequency("select * from t;") >= 5);
+        // counters saturate at 15
+        for (int i = 0; i < 100; ++i) {
+            sketch.increment("hot");
+        }
+        assertEquals(15, sketch.frequency("hot"));
+        // enough distinct keys to pass the sample period halves everything
+        for (int i = 0; i < 64 * 10; ++i) {
+            sketch.increment("cold" + i);
+        }
+        assertTrue(sketch.frequency("hot") < 15);
+    }
+
+    public void testBurstDoesNotFlushHotEntries() {
+        WindowTinyLfuCache<String> cache = new WindowTinyLfuCache<>(100, Long.MAX_VALUE, LENGTH_WEIGHER);
+        for (int i = 0; i < 90; ++i) {
+            String key = "hot" + i;
+            for (int j = 0; j < 4; ++j) {
+                cache.get(key);
+            }
+            cache.put(key, key);
+        }
+        // a burst of one-off statements, each looked up once and then cached,
+        // while the hot statements keep being used
+        for (int i = 0; i < 10000; ++i) {
+            assertNotNull(cache.get("hot" + (i % 90)));
+            String key = "once" + i;
+            assertNull(cache.get(key));
+            cache.put(key, key);
+        }
+        assertEquals(100, cache.size());
+        int hotSurvivors = 0;
+        for (int i = 0; i < 90; ++i) {
+            if (cache.peek("hot" + i) != null) {
+                ++hotSurvivors;
+            }
+        }
+        assertEquals(90, hotSurvivors);
+        assertTrue(cache.m_rejections > 0);
+        assertEquals(10000 + 90 - 100, cache.m_evictions);
+    }
+
+    public void testRepeatedMissesEarnAdmission() {
+        WindowTinyLfuCache<String> cache = new WindowTinyLfuCache<>(10, Long.MAX_VALUE, LENGTH_WEIGHER);
+        for (int i = 0; i < 10; ++i) {
+            cache.get("k" + i);
+            cache.put("k" + i, "v");
+        }
+        // The newcomer keeps missing until it is more popular than the main region's LRU entry.
+        for (int i = 0; i < 5; ++i) {
+            cache.get("newcomer");
+        }
+        cache.put("newcomer", "v");
+        cache.get("filler");
+        cache.put("filler", "v");
+        assertNotNull(cache.peek("newcomer"));
+        assertEquals(10, cache.size());
+    }
+
+    public void testWeightBound() {
+        WindowTinyLfuCache<String> cache = new WindowTinyLfuCache<>(100, 10, LENGTH_WEIGHER);
+        cache.put("a", "12345");
+        cache.put("b", "12345");
+        assertEquals(10, cache.weight());
+        cache.put("c", "123");
+        assertTrue(cache.weight() <= 10);
+        assertNotNull(cache.peek("c"));
+        assertNull(cache.peek("a"));
+        assertEquals(1, cache.m_evictions);
+        cache.remove("c");
+        assertEquals(5, cache.weight());
+    }
+
+    public void testWarmupListRoundTrip() throws Exception {
+        File file = File.createTempFile("adhoc_plans", ".txt");
+        try {
+            List<AdHocCompilerCache.WarmupStatement> statements = Arrays.asList(
+                    new AdHocCompilerCache.WarmupStatement("select * from t where a = 1;", 0),
+                    new AdHocCompilerCache.WarmupStatement("select b\nfrom t where a = ?;", 1));
+            AdHocCompilerCache.writeWarmupList(file, statements);
+            List<AdHocCompilerCache.WarmupStatement> read = AdHocCompilerCache.readWarmupList(file);
+            assertEquals(2, read.size());
+            assertEquals(statements.get(0).sql, read.get(0).sql);
+            assertEquals(0, read.get(0).userParamCount);
+            assertEquals(statements.get(1).sql, read.get(1).sql);
+            assertEquals(1, read.get(1).userParamCount);
+        }
+        finally {
+            file.delete();
+        }
+        assertTrue(AdHocCompilerCache.readWarmupList(file).isEmpty());
+    }
+}
@@ -0,0 +1,187 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.exportclient;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.voltdb.VoltTable;
+import org.voltdb.VoltType;
+import org.voltdb.exportclient.decode.CSVStringDecoder;
+import org.voltdb.exportclient.decode.StringArrayDecoder;
+import org.voltdb.types.GeographyPointValue;
+import org.voltdb.types.GeographyValue;
+import org.voltdb.types.TimestampType;
+
+public class TestExportBlockView extends TestCase
+{
+    static final GeographyPointValue GEOG_POINT = GeographyPointValue.fromWKT("point(-122 37)");
+    static final GeographyValue GEOG = GeographyValue.fromWKT("polygon((0 0, 1 1, 0 1, 0 0))");
+
+    static VoltTable makeTable() {
+        VoltTable vtable = new VoltTable(
+                new VoltTable.ColumnInfo("VOLT_TRANSACTION_ID", VoltType.BIGINT),
+                new VoltTable.ColumnInfo("VOLT_EXPORT_TIMESTAMP", VoltType.BIGINT),
+                new VoltTable.ColumnInfo("VOLT_EXPORT_SEQUENCE_NUMBER", VoltType.BIGINT),
+                new VoltTable.ColumnInfo("VOLT_PARTITION_ID", VoltType.BIGINT),
+                new VoltTable.ColumnInfo("VOLT_OP", VoltType.BIGINT),
+                new VoltTable.ColumnInfo("VOLT_SITE_ID", VoltType.BIGINT),
+                new VoltTable.ColumnInfo("tinyint", VoltType.TINYINT),
+                new VoltTable.ColumnInfo("smallint", VoltType.SMALLINT),
+                new VoltTable.ColumnInfo("integer", VoltType.INTEGER),
+                new VoltTable.ColumnInfo("bigint", VoltType.BIGINT),
+                new VoltTable.ColumnInfo("float", VoltType.FLOAT),
+                new VoltTable.ColumnInfo("timestamp", VoltType.TIMESTAMP),
+                new VoltTable.ColumnInfo("string", VoltType.STRING),
+                new VoltTable.ColumnInfo("decimal", VoltType.DECIMAL),
+                new VoltTable.ColumnInfo("geog_point", VoltType.GEOGRAPHY_POINT),
+                new VoltTable.ColumnInfo("geog", VoltType.GEOGRAPHY)
+        );
+        vtable.addRow(1L, 2L, 3L, 4L, 5L, 6L, (byte) 1, (short) 2, 3, 4L, 5.5, new TimestampType(6000000L),
+                "seven", new BigDecimal("8.800000000000"), GEOG_POINT, GEOG);
+        vtable.addRow(11L, 12L, 13L, 14L, 15L, 16L, null, (short) -2, null, -4L, null, null,
+                "été", null, null, null);
+        vtable.addRow(21L, 22L, 23L, 24L, 25L, 26L, (byte) -1, null, 33, null, 0.25, new TimestampType(-1000L),
+                null, new BigDecimal("-1.000000000000"), GEOG_POINT, GEOG);
+        return vtable;
+    }
+
+    private static void assertSameRow(ExportRow expected, ExportBlockView view) {
+        assertEquals(expected.generation, view.getGeneration());
+        assertEquals(expected.tableName, view.getTableName());
+        assertEquals(expected.types, view.getColumnTypes());
+        assertEquals(expected.names, view.getColumnNames());
+        assertEquals(expected.partitionColIndex, view.getPartitionColumnIndex());
+        Object[] values = view.getValues();
+        for (int i = 0; i < expected.values.length; i++) {
+            assertEquals(expected.values[i] == null, view.isNull(i));
+            assertEquals(expected.values[i], view.getObject(i));
+            assertEquals(expected.values[i], values[i]);
+        }
+        Object pval = expected.partitionValue == null ? expected.partitionId : expected.partitionValue;
+        assertEquals(pval, view.getPartitionValue());
+    }
+
+    private static void checkBlock(ByteBuffer block) throws Exception {
+        ExportRow previous = null;
+        ExportBlockView view = new ExportBlockView();
+        view.reset(block.duplicate(), 3);
+        ByteBuffer rows = block.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int count = 0;
+        while (rows.hasRemaining()) {
+            final int position = rows.position();
+            byte[] rowData = new byte[rows.getInt()];
+            rows.get(rowData);
+            ExportRow row = ExportRow.decodeRow(previous, 3, 0L, rowData);
+            previous = row;
+
+            assertTrue(view.advance());
+            assertEquals(position, view.getRowPosition());
+            assertSameRow(row, view);
+            count++;
+        }
+        assertFalse(view.advance());
+        assertEquals(3, count);
+    }
+
+    public void testMatchesExportRow() throws Exception
+    {
+        checkBlock(ExportEncoder.encodeBlock(makeTable(), "mytable", 7, 1L));
+    }
+
+    public void testDirectBlock() throws Exception
+    {
+        ByteBuffer heap = ExportEncoder.encodeBlock(makeTable(), "mytable", 7, 1L);
+        ByteBuffer direct = ByteBuffer.allocateDirect(heap.remaining());
+        direct.put(heap).flip();
+        checkBlock(direct);
+    }
+
+    public void testTypedGetters() throws Exception
+    {
+        ExportBlockView view = new ExportBlockView();
+        view.reset(ExportEncoder.encodeBlock(makeTable(), "mytable", 7, 1L), 3);
+
+        assertTrue(view.advance());
+        assertTrue(view.rowHasSchema());
+        assertEquals(1, view.getLong(6));
+        assertEquals(2, view.getLong(7));
+        assertEquals(3, view.getLong(8));
+        assertEquals(4, view.getLong(9));
+        assertEquals(5.5, view.getDouble(10));
+        assertEquals(6000000L, view.getLong(11));
+        assertEquals(new TimestampType(6000000L), view.getTimestamp(11));
+        assertEquals("seven", view.getString(12));
+        assertEquals(GEOG_POINT, view.getGeographyPoint(14));
+        assertEquals(GEOG, view.getGeography(15));
+        try {
+            view.getString(6);
+            fail("Expected a type mismatch");
+        } catch (IllegalArgumentException expected) {
+        }
+
+        assertTrue(view.advance());
+        assertFalse(view.rowHasSchema());
+        assertTrue(view.isNull(6));
+        assertEquals("été", view.getString(12));
+        try {
+            view.getLong(6);
+            fail("Expected a NULL column");
+        } catch (IllegalStateException expected) {
+        }
+
+        // a row seen earlier can still be decoded once the view moved past it
+        int lastRow = view.getRowPosition();
+        assertTrue(view.advance());
+        ExportRow reported = view.toExportRow(lastRow);
+        assertEquals(-4L, reported.values[9]);
+        assertFalse(view.advance());
+    }
+
+    public void testStringDecoders() throws Exception
+    {
+        StringArrayDecoder arrayDecoder = StringArrayDecoder.builder().nullRepresentation("NULL").build();
+        CSVStringDecoder csvDecoder = CSVStringDecoder.builder().build();
+        ExportRow previous = null;
+        ByteBuffer block = ExportEncoder.encodeBlock(makeTable(), "mytable", 7, 1L);
+        ExportBlockView view = new ExportBlockView();
+        view.reset(block.duplicate(), 3);
+        ByteBuffer rows = block.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        while (view.advance()) {
+            byte[] rowData = new byte[rows.getInt()];
+            rows.get(rowData);
+            ExportRow row = ExportRow.decodeRow(previous, 3, 0L, rowData);
+            previous = row;
+
+            String[] expected = arrayDecoder.decode(row.generation, row.tableName, row.types, row.names, null, row.values);
+            assertTrue(Arrays.equals(expected, arrayDecoder.decode(view, null)));
+            assertEquals(csvDecoder.decode(row.generation, row.tableName, row.types, row.names, null, row.values),
+                    csvDecoder.decode(view, null));
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.importclient.socket;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.voltdb.client.ProcedureCallback;
+import org.voltdb.importer.Invocation;
+import org.voltdb.importer.formatter.FormatterBuilder;
+
+public class TestServerSocketImporter {
+    private static final long TIMEOUT_SECONDS = 30;
+
+    private int m_port;
+    private RecordingImporter m_importer;
+    private Thread m_acceptThread;
+
+    /**
+     * Records the invocations of every line instead of queueing them
+     */
+    private static class RecordingImporter extends ServerSocketImporter {
+        final BlockingQueue<List<Object[]>> m_batches = new LinkedBlockingQueue<>();
+        final BlockingQueue<Invocation> m_invocations = new LinkedBlockingQueue<>();
+
+        RecordingImporter(ServerSocketImporterConfig config) {
+            super(config);
+        }
+
+        @Override
+        public boolean callProcedure(Invocation invocation, ProcedureCallback callback) {
+            m_invocations.add(invocation);
+            return true;
+        }
+
+        @Override
+        public boolean callProcedureBatch(String procedure, List<Object[]> batch, ProcedureCallback callback) {
+            assertEquals("A.insert", procedure);
+            m_batches.add(new ArrayList<>(batch));
+            return true;
+        }
+    }
+
+    private void startImporter(String batchSize) throws Exception {
+        try (ServerSocket probe = new ServerSocket(0)) {
+            m_port = probe.getLocalPort();
+        }
+        Properties props = new Properties();
+        props.setProperty("procedure", "A.insert");
+        props.setProperty("port", String.valueOf(m_port));
+        if (batchSize != null) {
+            props.setProperty("batch.size", batchSize);
+        }
+        ServerSocketImporterConfig config =
+                new ServerSocketImporterConfig(props, FormatterBuilder.createFormatterBuilder(new Properties()));
+        m_importer = new RecordingImporter(config);
+        m_acceptThread = new Thread(() -> m_importer.accept());
+        m_acceptThread.start();
+    }
+
+    private static void write(Socket socket, int from, int to) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            lines.append(i).append(",row").append(i).append('\n');
+        }
+        OutputStream out = socket.getOutputStream();
+        out.write(lines.toString().getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private List<Object[]> takeRows(int count) throws InterruptedException {
+        List<Object[]> rows = new ArrayList<>();
+        while (rows.size() < count) {
+            List<Object[]> batch = m_importer.m_batches.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            assertNotNull("Timed out waiting for a batch", batch);
+            assertTrue(batch.size() <= 3);
+            rows.addAll(batch);
+        }
+        return rows;
+    }
+
+    private static void assertRows(List<Object[]> rows, int from) {
+        for (int i = 0; i < rows.size(); i++) {
+            assertEquals(String.valueOf(from + i), rows.get(i)[0]);
+            assertEquals("row" + (from + i), rows.get(i)[1]);
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (m_importer != null) {
+            m_importer.stopImporter();
+            m_acceptThread.join(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS));
+        }
+    }
+
+    @Test
+    public void testLinesInvokedOneByOneByDefault() throws Exception {
+        startImporter(null);
+        try (Socket socket = new Socket("localhost", m_port)) {
+            write(socket, 0, 5);
+            for (int i = 0; i < 5; i++) {
+                Invocation invocation = m_importer.m_invocations.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                assertNotNull("Timed out waiting for an invocation", invocation);
+                assertEquals("A.insert", invocation.getProcedure());
+                assertEquals(String.valueOf(i), invocation.getParams()[0]);
+            }
+        }
+        assertTrue(m_importer.m_batches.isEmpty());
+    }
+
+    @Test
+    public void testBufferedLinesInvokedInBatches() throws Exception {
+        startImporter("3");
+        try (Socket socket = new Socket("localhost", m_port)) {
+            write(socket, 0, 10);
+            // every line arrives exactly once and in order, in batches of at most batch.size
+            List<Object[]> rows = takeRows(10);
+            assertEquals(10, rows.size());
+            assertRows(rows, 0);
+
+            // a partial batch is not held back while the client is idle
+            write(socket, 10, 12);
+            rows = takeRows(2);
+            assertEquals(2, rows.size());
+            assertRows(rows, 10);
+        }
+        assertTrue(m_importer.m_invocations.isEmpty());
+    }
+}
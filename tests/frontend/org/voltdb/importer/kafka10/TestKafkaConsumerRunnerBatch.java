@@ -0,0 +1,242 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.importer.kafka10;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Test;
+import org.voltdb.ClientResponseImpl;
+import org.voltdb.VoltTable;
+import org.voltdb.client.ClientResponse;
+import org.voltdb.client.ProcedureCallback;
+import org.voltdb.importclient.kafka10.KafkaConsumerRunner;
+import org.voltdb.importclient.kafka10.KafkaStreamImporterConfig;
+import org.voltdb.importer.ImporterLifecycle;
+
+/**
+ * Drives the batch invocation path of the Kafka 10 importer with a mock consumer.
+ */
+public class TestKafkaConsumerRunnerBatch {
+
+    private static final String TOPIC = "mytopic";
+    private static final TopicPartition PARTITION = new TopicPartition(TOPIC, 0);
+
+    private static class Lifecycle implements ImporterLifecycle {
+        final AtomicBoolean m_run = new AtomicBoolean(true);
+
+        @Override
+        public boolean shouldRun() {
+            return m_run.get();
+        }
+
+        @Override
+        public void stop() {
+            m_run.set(false);
+        }
+
+        @Override
+        public boolean hasTransaction() {
+            return true;
+        }
+    }
+
+    /**
+     * Records the batches and answers each with the next status, or rejects it when the status is null.
+     */
+    private static class BatchRunner extends KafkaConsumerRunner {
+        final List<List<Object[]>> m_batches = Collections.synchronizedList(new ArrayList<>());
+        final List<long[]> m_offsets = Collections.synchronizedList(new ArrayList<>());
+        final List<Byte> m_statuses;
+        int m_singleInvocations = 0;
+
+        BatchRunner(ImporterLifecycle lifecycle, KafkaStreamImporterConfig config,
+                MockConsumer<ByteBuffer, ByteBuffer> consumer, Byte... statuses) throws Exception {
+            super(lifecycle, config, consumer);
+            m_statuses = new ArrayList<>(Arrays.asList(statuses));
+        }
+
+        @Override
+        protected void subscribe() {
+            // the test assigns the partition to the mock consumer
+        }
+
+        @Override
+        protected int getInvocationBatchSize() {
+            return m_config.getInvocationBatchSize();
+        }
+
+        @Override
+        public boolean invoke(String rawMessage, long offset, String topic, Object[] params,
+                ProcedureCallback procedureCallback) throws Exception {
+            m_singleInvocations++;
+            procedureCallback.clientCallback(new ClientResponseImpl(ClientResponse.SUCCESS, new VoltTable[0], null));
+            return true;
+        }
+
+        @Override
+        public boolean invokeBatch(String topic, List<Object[]> batch, long[] offsets,
+                ProcedureCallback procedureCallback) throws Exception {
+            assertEquals(TOPIC, topic);
+            m_batches.add(new ArrayList<>(batch));
+            m_offsets.add(Arrays.copyOf(offsets, batch.size()));
+            Byte status = m_statuses.isEmpty() ? ClientResponse.SUCCESS : m_statuses.remove(0);
+            if (status == null) {
+                return false;
+            }
+            procedureCallback.clientCallback(new ClientResponseImpl(status, new VoltTable[0], null));
+            return true;
+        }
+    }
+
+    private static KafkaStreamImporterConfig createConfig(String batchSize) {
+        Properties p = new Properties();
+        p.setProperty("topics", TOPIC);
+        p.setProperty("procedure", "myproc");
+        p.setProperty("brokers", "localhost:9092");
+        if (batchSize != null) {
+            p.setProperty("procedure.batch.size", batchSize);
+        }
+        return new KafkaStreamImporterConfig(p);
+    }
+
+    private static MockConsumer<ByteBuffer, ByteBuffer> createConsumer(int messages) {
+        MockConsumer<ByteBuffer, ByteBuffer> consumer = new MockConsumer<ByteBuffer, ByteBuffer>(OffsetResetStrategy.EARLIEST) {
+            @Override
+            public synchronized void close() {
+                // keep the committed offsets readable once the runner is done
+            }
+        };
+        consumer.assign(Collections.singletonList(PARTITION));
+        HashMap<TopicPartition, Long> beginning = new HashMap<>();
+        beginning.put(PARTITION, 0L);
+        consumer.updateBeginningOffsets(beginning);
+        for (int i = 0; i < messages; i++) {
+            byte[] value = (i + ",name_" + i).getBytes(StandardCharsets.UTF_8);
+            consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, i, null, ByteBuffer.wrap(value)));
+        }
+        return consumer;
+    }
+
+    /*
+     * Run the consumer until it has invoked the expected number of batches, then stop it
+     * and return the offset committed for the partition.
+     */
+    private static long runUntil(BatchRunner runner, Lifecycle lifecycle,
+            MockConsumer<ByteBuffer, ByteBuffer> consumer, int batches, long expectedCommit) throws Exception {
+        Thread thread = new Thread(runner);
+        thread.start();
+        long deadline = System.currentTimeMillis() + 30000;
+        while (runner.m_batches.size() < batches && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        // let the runner commit what the callbacks made safe
+        long committed = -1;
+        while (System.currentTimeMillis() < deadline) {
+            OffsetAndMetadata offset = consumer.committed(PARTITION);
+            committed = offset == null ? -1 : offset.offset();
+            if (committed == expectedCommit) {
+                break;
+            }
+            Thread.sleep(10);
+        }
+        lifecycle.stop();
+        thread.join();
+        return committed;
+    }
+
+    @Test
+    public void testDefaultBatchSize() throws Exception {
+        assertEquals(1, createConfig(null).getInvocationBatchSize());
+        assertEquals(1, createConfig("0").getInvocationBatchSize());
+        assertEquals(50, createConfig("50").getInvocationBatchSize());
+    }
+
+    @Test
+    public void testMessagesAreBatched() throws Exception {
+        Lifecycle lifecycle = new Lifecycle();
+        MockConsumer<ByteBuffer, ByteBuffer> consumer = createConsumer(7);
+        BatchRunner runner = new BatchRunner(lifecycle, createConfig("3"), consumer);
+
+        assertEquals(7, runUntil(runner, lifecycle, consumer, 3, 7));
+        assertEquals(0, runner.m_singleInvocations);
+
+        // Full batches followed by the partial batch at the end of the poll
+        assertEquals(3, runner.m_batches.size());
+        assertEquals(3, runner.m_batches.get(0).size());
+        assertEquals(3, runner.m_batches.get(1).size());
+        assertEquals(1, runner.m_batches.get(2).size());
+        int row = 0;
+        for (int i = 0; i < runner.m_batches.size(); i++) {
+            for (int j = 0; j < runner.m_batches.get(i).size(); j++) {
+                Object[] params = runner.m_batches.get(i).get(j);
+                assertEquals(String.valueOf(row), params[0]);
+                assertEquals("name_" + row, params[1]);
+                assertEquals(row, runner.m_offsets.get(i)[j]);
+                row++;
+            }
+        }
+    }
+
+    @Test
+    public void testRejectedBatchIsCommitted() throws Exception {
+        // A batch the server refuses to queue is dropped like a single bad message
+        Lifecycle lifecycle = new Lifecycle();
+        MockConsumer<ByteBuffer, ByteBuffer> consumer = createConsumer(6);
+        BatchRunner runner = new BatchRunner(lifecycle, createConfig("3"), consumer,
+                ClientResponse.SUCCESS, null);
+
+        assertEquals(6, runUntil(runner, lifecycle, consumer, 2, 6));
+        assertEquals(2, runner.m_batches.size());
+    }
+
+    @Test
+    public void testServerUnavailablePausesAtBatchStart() throws Exception {
+        // The second batch could not be processed, resume from its first message
+        Lifecycle lifecycle = new Lifecycle();
+        MockConsumer<ByteBuffer, ByteBuffer> consumer = createConsumer(9);
+        BatchRunner runner = new BatchRunner(lifecycle, createConfig("3"), consumer,
+                ClientResponse.SUCCESS, ClientResponse.SERVER_UNAVAILABLE, ClientResponse.SUCCESS);
+
+        runUntil(runner, lifecycle, consumer, 3, 3);
+        OffsetAndMetadata committed = consumer.committed(PARTITION);
+        assertTrue(committed != null);
+        assertEquals(3, committed.offset());
+    }
+}
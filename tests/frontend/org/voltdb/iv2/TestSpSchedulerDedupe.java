@@ -119,16 +119,23 @@ public class TestSpSchedulerDedupe
 
     private Iv2InitiateTaskMessage createMsg(long txnId, boolean readOnly,
                                              boolean singlePart, long destHSId)
+    {
+        return createMsg(txnId, txnId - 1, readOnly, singlePart, destHSId);
+    }
+
+    private Iv2InitiateTaskMessage createMsg(long txnId, long truncationHandle, boolean readOnly,
+                                             boolean singlePart, long destHSId)
     {
         // Mock an invocation for MockSPName.
         StoredProcedureInvocation spi = mock(StoredProcedureInvocation.class);
         when(spi.getProcName()).thenReturn(MockSPName);
         ParameterSet bleh = mock(ParameterSet.class);
         when(spi.getParams()).thenReturn(bleh);
+        when(spi.getReplicaRead()).thenReturn(readOnly);
         Iv2InitiateTaskMessage task =
             new Iv2InitiateTaskMessage(destHSId, // initHSID
                                        Long.MIN_VALUE, // coordHSID
-                                       txnId - 1, // truncationHandle
+                                       truncationHandle, // truncationHandle
                                        txnId,     // txnId
                                        UniqueIdGenerator.makeIdFromComponents(System.currentTimeMillis(), 0, 0), // uniqueID
                                        readOnly, // readonly
@@ -178,6 +185,67 @@ public class TestSpSchedulerDedupe
         verify(mbox, times(1)).send(eq(dut_hsid), eq(resp));
     }
 
+    @Test
+    public void testReplicaReadHeldUntilLeaderTruncation() throws Exception
+    {
+        TxnEgo ego = TxnEgo.makeZero(0);
+        long txnid0 = ego.getTxnId();
+        long txnid1 = ego.makeNext().getTxnId();
+        long txnid2 = ego.makeNext().makeNext().getTxnId();
+        long primary_hsid = 1111l;
+        long ci_hsid = 3333l;
+
+        createObjs();
+        // the replica completes a write the leader has not yet reported committed everywhere
+        Iv2InitiateTaskMessage write1 = createMsg(txnid1, txnid0, false, true, primary_hsid);
+        dut.deliver(write1);
+        InitiateResponseMessage write1Resp = new InitiateResponseMessage(write1);
+        dut.deliver(write1Resp);
+        verify(mbox, times(1)).send(eq(primary_hsid), eq(write1Resp));
+
+        // a read served here has seen that write, so its response is held
+        Iv2InitiateTaskMessage read1 = createMsg(txnid1, txnid0, true, true, ci_hsid);
+        dut.deliver(read1);
+        InitiateResponseMessage read1Resp = new InitiateResponseMessage(read1);
+        dut.deliver(read1Resp);
+        verify(mbox, times(0)).send(eq(ci_hsid), (VoltMessage)anyObject());
+
+        // the next replicated write carries a leader truncation handle covering the first write
+        Iv2InitiateTaskMessage write2 = createMsg(txnid2, txnid1, false, true, primary_hsid);
+        dut.deliver(write2);
+        verify(mbox, times(1)).send(eq(ci_hsid), eq(read1Resp));
+
+        InitiateResponseMessage write2Resp = new InitiateResponseMessage(write2);
+        dut.deliver(write2Resp);
+        Iv2InitiateTaskMessage read2 = createMsg(txnid2, txnid1, true, true, ci_hsid);
+        dut.deliver(read2);
+        InitiateResponseMessage read2Resp = new InitiateResponseMessage(read2);
+        dut.deliver(read2Resp);
+        verify(mbox, times(0)).send(eq(ci_hsid), eq(read2Resp));
+
+        // a repair log truncation message releases it without further writes,
+        // an older handle does not
+        ((SpScheduler) dut).updateLeaderTruncationHandle(txnid1);
+        verify(mbox, times(0)).send(eq(ci_hsid), eq(read2Resp));
+        ((SpScheduler) dut).updateLeaderTruncationHandle(txnid2);
+        verify(mbox, times(1)).send(eq(ci_hsid), eq(read2Resp));
+    }
+
+    @Test
+    public void testReplicaReadWithNothingPendingIsReleased() throws Exception
+    {
+        long txnid = TxnEgo.makeZero(0).getTxnId();
+        long ci_hsid = 3333l;
+
+        createObjs();
+        // no write has completed on the replica since the leader's last truncation
+        Iv2InitiateTaskMessage read = createMsg(txnid, txnid, true, true, ci_hsid);
+        dut.deliver(read);
+        InitiateResponseMessage resp = new InitiateResponseMessage(read);
+        dut.deliver(resp);
+        verify(mbox, times(1)).send(eq(ci_hsid), eq(resp));
+    }
+
     @Test
     public void testReplicaFragmentTaskResponse() throws Exception
     {
@@ -193,8 +193,10 @@ public class TestMVOptimization extends PlannerTestCase {
                         "  ON foo.distinct_a = bar.distinct_a \n" +
                         "LEFT JOIN (SELECT a1 distinct_a, COUNT(*) count_of FROM t1 WHERE b < 200 GROUP BY a1) baz\n" +
                         "  ON bar.distinct_a = baz.distinct_a",
-                "RETURN RESULTS TO STORED PROCEDURE NEST LOOP LEFT JOIN filter by (BAZ.DISTINCT_A = BAR.DISTINCT_A) " +
-                        "NEST LOOP INNER JOIN filter by (BAR.DISTINCT_A = FOO.DISTINCT_A) SEQUENTIAL SCAN of \"FOO\" " +
+                "RETURN RESULTS TO STORED PROCEDURE HASH LEFT JOIN on BAR.DISTINCT_A = BAZ.DISTINCT_A " +
+                        "filter by (BAZ.DISTINCT_A = BAR.DISTINCT_A) " +
+                        "HASH INNER JOIN on FOO.DISTINCT_A = BAR.DISTINCT_A " +
+                        "filter by (BAR.DISTINCT_A = FOO.DISTINCT_A) SEQUENTIAL SCAN of \"FOO\" " +
                         "INDEX SCAN of \"V2\" using its primary key index (for deterministic order only) " +
                         "SEQUENTIAL SCAN of \"BAR\" INDEX SCAN of \"V5_1\" using its primary key index (for deterministic order only) " +
                         "SEQUENTIAL SCAN of \"BAZ\" INDEX SCAN of \"T1\" using \"VOLTDB_AUTOGEN_IDX_CT_T1_B1\" (for deterministic order only) " +
@@ -26,13 +26,22 @@ package org.voltdb.planner;
 import static org.mockito.Mockito.mock;
 
 import java.io.File;
+import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.voltcore.messaging.HostMessenger;
 import org.voltdb.CatalogContext;
+import org.voltdb.VoltTable;
+import org.voltdb.VoltTable.ColumnInfo;
 import org.voltdb.benchmark.tpcc.TPCCProjectBuilder;
 import org.voltdb.catalog.Catalog;
+import org.voltdb.compiler.AdHocCompilerCache;
 import org.voltdb.compiler.AdHocPlannedStatement;
+import org.voltdb.compiler.PlanCacheStats;
 import org.voltdb.compiler.PlannerTool;
 import org.voltdb.compiler.VoltProjectBuilder;
 import org.voltdb.settings.ClusterSettings;
@@ -139,6 +148,99 @@ public class TestPlannerTool extends TestCase {
         System.out.println(result);
     }
 
+    private PlannerTool makeTPCCPlanner() throws IOException {
+        TPCCProjectBuilder builder = new TPCCProjectBuilder();
+        builder.addAllDefaults();
+        final File jar = new File("tpcc-oop.jar");
+        jar.deleteOnExit();
+        builder.compile("tpcc-oop.jar");
+        byte[] bytes = MiscUtils.fileToBytes(jar);
+        String serializedCatalog = CatalogUtil.getSerializedCatalogStringFromJar(CatalogUtil.loadAndUpgradeCatalogFromJar(bytes, false).getFirst());
+        Catalog catalog = new Catalog();
+        catalog.execute(serializedCatalog);
+        DbSettings settings = new DbSettings(ClusterSettings.create().asSupplier(), NodeSettings.create());
+        CatalogContext context = new CatalogContext(catalog, settings, 0, 0, bytes, null, new byte[] {}, mock(HostMessenger.class));
+        return new PlannerTool(context.database, context.getCatalogHash());
+    }
+
+    private static VoltTable planCacheStats(PlanCacheStats stats, boolean interval) {
+        List<ColumnInfo> columns = stats.getColumnSchema();
+        VoltTable table = new VoltTable(columns.toArray(new ColumnInfo[columns.size()]));
+        for (Object[] row : stats.getStatsRows(interval, System.currentTimeMillis())) {
+            table.addRow(row);
+        }
+        assertEquals(1, table.getRowCount());
+        table.advanceRow();
+        return table;
+    }
+
+    public void testPlanCacheWarmUp() throws IOException {
+        AdHocCompilerCache.clearHashCache();
+        m_pt = makeTPCCPlanner();
+        StatementPartitioning infer = StatementPartitioning.inferPartitioning();
+        for (int i = 0; i < 3; i++) {
+            m_pt.planSqlForTest("select * from warehouse;");
+            m_pt.planSql("select * from district where d_w_id = ?;", infer, false, new Object[] {1}, false, false);
+        }
+        m_pt.planSqlForTest("select * from item where i_id = 5;");
+
+        File file = File.createTempFile("adhoc_plans", ".txt");
+        file.deleteOnExit();
+        m_pt.persistWarmupList(file);
+        List<AdHocCompilerCache.WarmupStatement> saved = AdHocCompilerCache.readWarmupList(file);
+        Map<String, Integer> savedParamCounts = new HashMap<>();
+        for (AdHocCompilerCache.WarmupStatement stmt : saved) {
+            savedParamCounts.put(stmt.sql, stmt.userParamCount);
+        }
+        assertEquals(3, savedParamCounts.size());
+        assertEquals(Integer.valueOf(0), savedParamCounts.get("select * from warehouse;"));
+        assertEquals(Integer.valueOf(1), savedParamCounts.get("select * from district where d_w_id = ?;"));
+        assertEquals(Integer.valueOf(0), savedParamCounts.get("select * from item where i_id = 5;"));
+
+        // A statement that no longer plans and lines that don't parse are skipped
+        List<AdHocCompilerCache.WarmupStatement> edited = new ArrayList<>(saved);
+        edited.add(new AdHocCompilerCache.WarmupStatement("select * from dropped_table;", 0));
+        AdHocCompilerCache.writeWarmupList(file, edited);
+        try (FileWriter writer = new FileWriter(file, true)) {
+            writer.write("\n1\nnot-a-count 73656c656374\n2 not hex\n");
+        }
+        assertEquals(4, AdHocCompilerCache.readWarmupList(file).size());
+
+        // A new catalog starts with a cold cache that warm-up fills
+        AdHocCompilerCache.clearHashCache();
+        m_pt = makeTPCCPlanner();
+        PlanCacheStats stats = new PlanCacheStats();
+        VoltTable row = planCacheStats(stats, false);
+        assertEquals(0, row.getLong("LITERAL_ENTRIES"));
+        assertEquals(0, row.getLong("CORE_ENTRIES"));
+        assertEquals(3, m_pt.warmUp(file));
+
+        row = planCacheStats(stats, true);
+        assertEquals(3, row.getLong("WARMED_STATEMENTS"));
+        assertEquals(3, row.getLong("PLANS_COMPILED"));
+        assertEquals(2, row.getLong("LITERAL_ENTRIES"));
+        assertEquals(3, row.getLong("CORE_ENTRIES"));
+        assertTrue(row.getLong("PLAN_TIME_MAX") > 0);
+        assertTrue(row.getLong("PLAN_TIME_AVG") <= row.getLong("PLAN_TIME_MAX"));
+        assertEquals(0, row.getLong("LITERAL_HITS"));
+
+        // Warmed statements are hits at both levels
+        m_pt.planSqlForTest("select * from warehouse;");
+        m_pt.planSql("select * from district where d_w_id = ?;", infer, false, new Object[] {2}, false, false);
+        row = planCacheStats(stats, true);
+        assertEquals(1, row.getLong("LITERAL_HITS"));
+        assertEquals(1, row.getLong("CORE_HITS"));
+        assertEquals(0, row.getLong("PLANS_COMPILED"));
+        assertEquals(0, row.getLong("WARMED_STATEMENTS"));
+
+        // Interval counters restart after each poll, totals don't
+        row = planCacheStats(stats, true);
+        assertEquals(0, row.getLong("LITERAL_HITS"));
+        row = planCacheStats(stats, false);
+        assertEquals(1, row.getLong("LITERAL_HITS"));
+        assertEquals(3, row.getLong("WARMED_STATEMENTS"));
+    }
+
     public void testBadDDL() throws IOException
     {
         // semicolons in in-lined comments are bad
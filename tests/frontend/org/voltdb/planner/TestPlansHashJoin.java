@@ -0,0 +1,94 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package org.voltdb.planner;
+
+import java.util.List;
+
+import org.voltdb.plannodes.AbstractPlanNode;
+import org.voltdb.plannodes.HashJoinPlanNode;
+import org.voltdb.types.JoinType;
+import org.voltdb.types.PlanNodeType;
+
+public class TestPlansHashJoin extends PlannerTestCase {
+
+    private HashJoinPlanNode getOnlyHashJoin(AbstractPlanNode pn) {
+        List<AbstractPlanNode> hjs = pn.findAllNodesOfType(PlanNodeType.HASHJOIN);
+        assertEquals(1, hjs.size());
+        return (HashJoinPlanNode) hjs.get(0);
+    }
+
+    public void testEquiJoinWithoutIndex() {
+        AbstractPlanNode pn;
+        HashJoinPlanNode hj;
+
+        pn = compileToTopDownTree("SELECT * FROM R1 JOIN R2 ON R1.A = R2.A", 5, true,
+                PlanNodeType.SEND,
+                PlanNodeType.HASHJOIN,
+                PlanNodeType.SEQSCAN,
+                PlanNodeType.SEQSCAN);
+        hj = getOnlyHashJoin(pn);
+        assertEquals(JoinType.INNER, hj.getJoinType());
+        assertEquals(1, hj.getOuterHashExpressions().size());
+        assertEquals(1, hj.getInnerHashExpressions().size());
+        assertNotNull(hj.getJoinPredicate());
+        assertTrue(hj.preservesOuterOrder());
+
+        // Multiple key columns
+        pn = compile("SELECT * FROM R1 JOIN R2 ON R1.A = R2.A AND R2.C = R1.C");
+        hj = getOnlyHashJoin(pn);
+        assertEquals(2, hj.getOuterHashExpressions().size());
+        assertEquals(2, hj.getInnerHashExpressions().size());
+
+        // Outer joins hash the inner side as well
+        pn = compile("SELECT * FROM R1 LEFT JOIN R2 ON R1.A = R2.A");
+        hj = getOnlyHashJoin(pn);
+        assertEquals(JoinType.LEFT, hj.getJoinType());
+
+        pn = compile("SELECT * FROM R1 FULL JOIN R2 ON R1.A = R2.A");
+        hj = getOnlyHashJoin(pn);
+        assertEquals(JoinType.FULL, hj.getJoinType());
+
+        assertTrue(pn.toExplainPlanString().contains("HASH FULL JOIN"));
+    }
+
+    public void testNoHashJoin() {
+        AbstractPlanNode pn;
+
+        // No equality between the two sides
+        pn = compile("SELECT * FROM R1 JOIN R2 ON R1.A > R2.A");
+        assertTrue(pn.findAllNodesOfType(PlanNodeType.HASHJOIN).isEmpty());
+        assertEquals(1, pn.findAllNodesOfType(PlanNodeType.NESTLOOP).size());
+
+        // The inner side can use an index
+        pn = compile("SELECT * FROM R1 JOIN R3 ON R1.A = R3.A");
+        assertTrue(pn.findAllNodesOfType(PlanNodeType.HASHJOIN).isEmpty());
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        setupSchema(TestPlansHashJoin.class.getResource("testplans-join-ddl.sql"),
+                "testplanshashjoin", false);
+    }
+}
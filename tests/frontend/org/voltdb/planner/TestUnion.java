@@ -27,8 +27,8 @@ import org.json_voltpatches.JSONException;
 import org.voltdb.expressions.AbstractExpression;
 import org.voltdb.expressions.TupleValueExpression;
 import org.voltdb.plannodes.AbstractPlanNode;
+import org.voltdb.plannodes.HashJoinPlanNode;
 import org.voltdb.plannodes.LimitPlanNode;
-import org.voltdb.plannodes.NestLoopPlanNode;
 import org.voltdb.plannodes.OrderByPlanNode;
 import org.voltdb.plannodes.ProjectionPlanNode;
 import org.voltdb.plannodes.ReceivePlanNode;
@@ -237,7 +237,7 @@ public class TestUnion extends PlannerTestCase {
         pn = pn.getChild(0);
         assertTrue(pn.getChildCount() == 2);
         assertTrue(pn.getChild(0) instanceof ProjectionPlanNode);
-        assertTrue(pn.getChild(0).getChild(0) instanceof NestLoopPlanNode);
+        assertTrue(pn.getChild(0).getChild(0) instanceof HashJoinPlanNode);
         assertTrue(pn.getChild(1) instanceof SeqScanPlanNode);
 
         // BOTH sides are single-partitioned  for the same partition
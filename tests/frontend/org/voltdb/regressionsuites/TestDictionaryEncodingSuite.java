@@ -0,0 +1,216 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.regressionsuites;
+
+import java.io.IOException;
+
+import org.voltdb.BackendTarget;
+import org.voltdb.VoltTable;
+import org.voltdb.client.Client;
+import org.voltdb.client.ClientResponse;
+import org.voltdb.client.ProcCallException;
+import org.voltdb.compiler.VoltProjectBuilder;
+
+/**
+ * Run DML, rollback, snapshot restore and schema changes against
+ * dictionary encoded columns and check that they read back by value.
+ */
+public class TestDictionaryEncodingSuite extends SaveRestoreBase {
+
+    private static final String[] COLORS = { "blue", "green", "red" };
+    private static final int ROWS_PER_COLOR = 10;
+
+    public TestDictionaryEncodingSuite(String name) {
+        super(name);
+    }
+
+    private static void loadColors(Client client) throws IOException, ProcCallException {
+        int id = 0;
+        for (int i = 0; i < ROWS_PER_COLOR; i++) {
+            for (String color : COLORS) {
+                client.callProcedure("COLORS.insert", id, color, new byte[] { (byte) color.length() });
+                client.callProcedure("REPL_COLORS.insert", id, color);
+                id++;
+            }
+        }
+    }
+
+    private static void validateColorCounts(Client client, String[] colors, long[] counts)
+            throws IOException, ProcCallException {
+        VoltTable vt = client.callProcedure("@AdHoc",
+                "SELECT NAME, COUNT(*) FROM COLORS GROUP BY NAME ORDER BY NAME;").getResults()[0];
+        assertEquals(colors.length, vt.getRowCount());
+        for (int i = 0; i < colors.length; i++) {
+            assertTrue(vt.advanceRow());
+            assertEquals(colors[i], vt.getString(0));
+            assertEquals(counts[i], vt.getLong(1));
+        }
+    }
+
+    public void testInsertAndCompare() throws Exception {
+        Client client = getClient();
+        loadColors(client);
+
+        validateColorCounts(client, COLORS, new long[] { 10, 10, 10 });
+        validateTableOfScalarLongs(client, "SELECT COUNT(*) FROM COLORS WHERE NAME = 'red';",
+                new long[] { 10 });
+        validateTableOfScalarLongs(client, "SELECT COUNT(*) FROM COLORS WHERE NAME > 'green';",
+                new long[] { 10 });
+        validateTableOfScalarLongs(client, "SELECT COUNT(*) FROM COLORS WHERE TAG = x'04';",
+                new long[] { 10 });
+        validateTableOfScalarLongs(client, "SELECT COUNT(DISTINCT NAME) FROM REPL_COLORS;",
+                new long[] { 3 });
+
+        // Codes of different tables' dictionaries still compare by value.
+        validateTableOfScalarLongs(client,
+                "SELECT COUNT(*) FROM COLORS C, REPL_COLORS R WHERE C.NAME = R.NAME AND C.ID = R.ID;",
+                new long[] { 30 });
+        validateTableColumnOfScalarVarchar(client,
+                "SELECT NAME FROM COLORS WHERE ID < 3 ORDER BY ID;", COLORS);
+    }
+
+    public void testUpdateAndDelete() throws Exception {
+        Client client = getClient();
+        loadColors(client);
+
+        assertSuccessfulDML(client, "UPDATE COLORS SET NAME = 'purple' WHERE NAME = 'red' AND ID < 15;", 5);
+        validateColorCounts(client,
+                new String[] { "blue", "green", "purple", "red" }, new long[] { 10, 10, 5, 5 });
+
+        assertSuccessfulDML(client, "DELETE FROM COLORS WHERE NAME = 'green';", 10);
+        validateColorCounts(client,
+                new String[] { "blue", "purple", "red" }, new long[] { 10, 5, 5 });
+
+        // Dropping the last references to a value and using it again.
+        assertSuccessfulDML(client, "DELETE FROM COLORS WHERE NAME = 'purple';", 5);
+        assertSuccessfulDML(client, "UPDATE COLORS SET NAME = 'purple' WHERE NAME = 'red';", 5);
+        validateColorCounts(client, new String[] { "blue", "purple" }, new long[] { 10, 5 });
+    }
+
+    public void testRollback() throws Exception {
+        Client client = getClient();
+        loadColors(client);
+
+        // The duplicate key aborts the whole batch, undoing the update
+        // and the insert of a new value.
+        verifyStmtFails(client,
+                "UPDATE COLORS SET NAME = 'black' WHERE NAME = 'red';" +
+                "INSERT INTO COLORS VALUES (100, 'white', NULL);" +
+                "INSERT INTO COLORS VALUES (0, 'blue', NULL);",
+                "CONSTRAINT VIOLATION");
+        validateColorCounts(client, COLORS, new long[] { 10, 10, 10 });
+
+        // The values rolled back can still be inserted.
+        client.callProcedure("COLORS.insert", 100, "white", null);
+        validateColorCounts(client,
+                new String[] { "blue", "green", "red", "white" }, new long[] { 10, 10, 10, 1 });
+    }
+
+    public void testSnapshotRestore() throws Exception {
+        if (isValgrind()) return; // snapshot doesn't run in valgrind ENG-4034
+
+        Client client = getClient();
+        loadColors(client);
+        TestSaveRestoreSysprocSuite.saveTablesWithDefaultOptions(client, TESTNONCE);
+        TestSaveRestoreSysprocSuite.validateSnapshot(true, TESTNONCE);
+
+        client.callProcedure("@AdHoc", "DELETE FROM COLORS;");
+        client.callProcedure("@AdHoc", "DELETE FROM REPL_COLORS;");
+        VoltTable[] results = client.callProcedure("@SnapshotRestore", TMPDIR, TESTNONCE).getResults();
+        while (results[0].advanceRow()) {
+            if (results[0].getString("RESULT").equals("FAILURE")) {
+                fail(results[0].getString("ERR_MSG"));
+            }
+        }
+
+        validateColorCounts(client, COLORS, new long[] { 10, 10, 10 });
+        validateTableOfScalarLongs(client,
+                "SELECT COUNT(*) FROM COLORS C, REPL_COLORS R WHERE C.NAME = R.NAME AND C.ID = R.ID;",
+                new long[] { 30 });
+        validateTableOfScalarLongs(client, "SELECT COUNT(*) FROM COLORS WHERE TAG = x'05';",
+                new long[] { 10 });
+    }
+
+    public void testAlter() throws Exception {
+        Client client = getClient();
+        loadColors(client);
+
+        // Widening keeps both the rows and the encoding.
+        ClientResponse cr = client.callProcedure("@AdHoc", "ALTER TABLE COLORS ALTER COLUMN NAME VARCHAR(32);");
+        assertEquals(ClientResponse.SUCCESS, cr.getStatus());
+        validateColorCounts(client, COLORS, new long[] { 10, 10, 10 });
+        client.callProcedure("COLORS.insert", 100, "a much longer color name", null);
+        validateTableOfScalarLongs(client,
+                "SELECT COUNT(*) FROM COLORS WHERE NAME = 'a much longer color name';", new long[] { 1 });
+
+        // A column changed to a type that cannot be encoded drops the encoding.
+        client.callProcedure("@AdHoc", "DELETE FROM COLORS;");
+        cr = client.callProcedure("@AdHoc", "ALTER TABLE COLORS ALTER COLUMN NAME INTEGER;");
+        assertEquals(ClientResponse.SUCCESS, cr.getStatus());
+        client.callProcedure("COLORS.insert", 1, 7, null);
+        client.callProcedure("COLORS.insert", 2, 7, null);
+        validateTableOfLongs(client, "SELECT NAME, COUNT(*) FROM COLORS GROUP BY NAME;",
+                new long[][] { { 7, 2 } });
+
+        // Changing it back does not bring the encoding back.
+        client.callProcedure("@AdHoc", "DELETE FROM COLORS;");
+        cr = client.callProcedure("@AdHoc", "ALTER TABLE COLORS ALTER COLUMN NAME VARCHAR(16);");
+        assertEquals(ClientResponse.SUCCESS, cr.getStatus());
+        for (int i = 0; i < COLORS.length; i++) {
+            client.callProcedure("COLORS.insert", i, COLORS[i], null);
+        }
+        validateColorCounts(client, COLORS, new long[] { 1, 1, 1 });
+    }
+
+    static public junit.framework.Test suite() throws IOException {
+        MultiConfigSuiteBuilder builder =
+            new MultiConfigSuiteBuilder(TestDictionaryEncodingSuite.class);
+
+        VoltProjectBuilder project = new VoltProjectBuilder();
+        project.addLiteralSchema(
+                "CREATE TABLE COLORS (" +
+                "  ID INTEGER NOT NULL PRIMARY KEY," +
+                "  NAME VARCHAR(16)," +
+                "  TAG VARBINARY(8)" +
+                ");" +
+                "PARTITION TABLE COLORS ON COLUMN ID;" +
+                "DICTIONARY TABLE COLORS COLUMN NAME;" +
+                "DICTIONARY TABLE COLORS COLUMN TAG;" +
+                "CREATE TABLE REPL_COLORS (" +
+                "  ID INTEGER NOT NULL PRIMARY KEY," +
+                "  NAME VARCHAR(64 BYTES)" +
+                ");" +
+                "DICTIONARY TABLE REPL_COLORS COLUMN NAME;");
+        project.setUseDDLSchema(true);
+
+        // Dictionary encoding lives in the EE, so only the native backend runs.
+        LocalCluster config = new LocalCluster("dictionary-encoding.jar", 2, 1, 0, BackendTarget.NATIVE_EE_JNI);
+        config.setHasLocalServer(false);
+        boolean success = config.compile(project);
+        assert(success);
+        builder.addServerConfig(config);
+
+        return builder;
+    }
+}
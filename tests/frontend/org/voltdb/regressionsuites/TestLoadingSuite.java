@@ -24,17 +24,22 @@
 package org.voltdb.regressionsuites;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import junit.framework.Test;
 
+import org.apache.commons.lang3.StringUtils;
 import org.voltdb.BackendTarget;
 import org.voltdb.VoltTable;
 import org.voltdb.VoltTable.ColumnInfo;
 import org.voltdb.VoltType;
 import org.voltdb.client.Client;
+import org.voltdb.client.ClientImpl;
 import org.voltdb.client.ClientResponse;
 import org.voltdb.client.ProcCallException;
 import org.voltdb.compiler.VoltProjectBuilder;
+import org.voltdb.sysprocs.LoadSinglepartitionTable;
 
 public class TestLoadingSuite extends RegressionSuite {
 
@@ -110,6 +115,137 @@ public class TestLoadingSuite extends RegressionSuite {
         }
     }
 
+    /**
+     * Find pval values hashing to the same partition as, or to a different
+     * partition from, the given key according to the client's hashinator.
+     */
+    private static List<Integer> pvalsForPartition(Client client, int key, boolean samePartition, int count)
+            throws Exception {
+        ClientImpl impl = (ClientImpl) client;
+        while (!impl.isHashinatorInitialized()) {
+            Thread.sleep(100);
+        }
+        long partition = impl.getPartitionForParameter(VoltType.INTEGER.getValue(), key);
+        List<Integer> pvals = new ArrayList<>();
+        for (int pval = 0; pval < 10000 && pvals.size() < count; ++pval) {
+            if ((impl.getPartitionForParameter(VoltType.INTEGER.getValue(), pval) == partition) == samePartition) {
+                pvals.add(pval);
+            }
+        }
+        return pvals;
+    }
+
+    public void testSinglePartitionBulkLoad() throws Exception {
+        Client client = getClient();
+
+        // a multi-row batch with exact column types takes the direct load path
+        List<Integer> pvals = pvalsForPartition(client, 1, true, 50);
+        assertEquals(50, pvals.size());
+        VoltTable table = m_template.clone(1024);
+        for (int i = 0; i < pvals.size(); ++i) {
+            table.addRow(i, pvals.get(i), i, "row" + i, (double) i);
+        }
+        ClientResponse r = client.callProcedure("@LoadSinglepartitionTable", VoltType.valueToBytes(1),
+                "PARTITIONED", upsertMode, table);
+        assertEquals(ClientResponse.SUCCESS, r.getStatus());
+        assertEquals(50, r.getResults()[0].asScalarLong());
+        assertEquals(50, countPartitionedRows(client));
+
+        VoltTable check = client.callProcedure("@AdHoc",
+                "select pval, sval from PARTITIONED where ival = 7").getResults()[0];
+        assertTrue(check.advanceRow());
+        assertEquals(pvals.get(7).longValue(), check.getLong(0));
+        assertEquals("row7", check.getString(1));
+
+        // a duplicate key fails the whole batch
+        table = m_template.clone(100);
+        table.addRow(100, pvals.get(0), 1, "a", 1.0);
+        table.addRow(0, pvals.get(0), 1, "b", 1.0);
+        try {
+            client.callProcedure("@LoadSinglepartitionTable", VoltType.valueToBytes(1),
+                    "PARTITIONED", upsertMode, table);
+            fail();
+        }
+        catch (ProcCallException e) {
+        }
+        if (!isHSQL()) {
+            assertEquals(50, countPartitionedRows(client));
+        }
+    }
+
+    public void testSinglePartitionBulkInsertMode() throws Exception {
+        // the mode relies on the EE returning the rows it skipped
+        if (isHSQL()) {
+            System.out.println("Skip testSinglePartitionBulkInsertMode for HSQL");
+            return;
+        }
+        Client client = getClient();
+
+        List<Integer> pvals = pvalsForPartition(client, 1, true, 10);
+        assertEquals(10, pvals.size());
+        VoltTable table = m_template.clone(1024);
+        for (int i = 0; i < pvals.size(); ++i) {
+            if (i == 3) {
+                // duplicate of the key of row 1
+                table.addRow(1, pvals.get(1), i, "dup", (double) i);
+            }
+            else if (i == 6) {
+                // too wide for VARCHAR(60)
+                table.addRow(i, pvals.get(i), i, StringUtils.repeat("x", 61), (double) i);
+            }
+            else {
+                table.addRow(i, pvals.get(i), i, "row" + i, (double) i);
+            }
+        }
+
+        // the bad rows are skipped and reported, the others are inserted
+        ClientResponse r = client.callProcedure("@LoadSinglepartitionTable", VoltType.valueToBytes(1),
+                "PARTITIONED", LoadSinglepartitionTable.MODE_BULK_INSERT, table);
+        assertEquals(ClientResponse.SUCCESS, r.getStatus());
+        assertEquals(2, r.getResults().length);
+        assertEquals(8, r.getResults()[0].asScalarLong());
+        VoltTable rejected = r.getResults()[1];
+        assertEquals(2, rejected.getRowCount());
+        assertTrue(rejected.advanceRow());
+        assertEquals(3, rejected.getLong(0));
+        assertTrue(rejected.advanceRow());
+        assertEquals(6, rejected.getLong(0));
+        assertEquals(8, countPartitionedRows(client));
+
+        VoltTable check = client.callProcedure("@AdHoc",
+                "select sval from PARTITIONED where ival = 1").getResults()[0];
+        assertTrue(check.advanceRow());
+        assertEquals("row1", check.getString(0));
+    }
+
+    public void testMispartitionedBulkLoadAborts() throws Exception {
+        Client client = getClient();
+
+        List<Integer> others = pvalsForPartition(client, 1, false, 1);
+        if (others.isEmpty()) {
+            System.out.println("Skip testMispartitionedBulkLoadAborts with a single partition");
+            return;
+        }
+
+        VoltTable table = m_template.clone(100);
+        table.addRow(1, 1, 1, "1", 1.0);
+        table.addRow(2, 1, 2, "2", 2.0);
+        table.addRow(3, others.get(0), 3, "3", 3.0);
+        try {
+            client.callProcedure("@LoadSinglepartitionTable", VoltType.valueToBytes(1),
+                    "PARTITIONED", upsertMode, table);
+            fail();
+        }
+        catch (ProcCallException e) {
+            if (!isHSQL()) {
+                assertTrue(e.getMessage().contains("Mispartitioned tuple in single-partition load of table"));
+            }
+        }
+        if (!isHSQL()) {
+            assertEquals(0, countPartitionedRows(client));
+        }
+    }
+
     public void testMultiPartitionLoad() throws Exception {
         // MockExecutionEngine does not implement loadTable
         if (isHSQL()) {
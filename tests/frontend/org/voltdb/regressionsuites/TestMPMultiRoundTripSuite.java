@@ -26,6 +26,7 @@ package org.voltdb.regressionsuites;
 import java.io.IOException;
 
 import org.voltdb.BackendTarget;
+import org.voltdb.VoltTable;
 import org.voltdb.client.Client;
 import org.voltdb.client.ClientResponse;
 import org.voltdb.client.ProcCallException;
@@ -33,6 +34,7 @@ import org.voltdb.client.ProcedureCallback;
 import org.voltdb.compiler.VoltProjectBuilder;
 import org.voltdb_testprocs.regressionsuites.basecase.LoadP1;
 import org.voltdb_testprocs.regressionsuites.basecase.LoadR1;
+import org.voltdb_testprocs.regressionsuites.basecase.MixedBatchReadsAndWrites;
 import org.voltdb_testprocs.regressionsuites.basecase.MultiRoundMixReadsAndWrites;
 import org.voltdb_testprocs.regressionsuites.basecase.MultiRoundMixReplicatedReadsAndWrites;
 import org.voltdb_testprocs.regressionsuites.basecase.MultiRoundMixedReads;
@@ -124,6 +126,26 @@ public class TestMPMultiRoundTripSuite extends RegressionSuite {
         assertEquals("Expect count=55", 55L, resp.getResults()[0].asScalarLong());
     }
 
+    public void testMixedReadsAndWritesInOneBatch() throws Exception
+    {
+        final Client client = this.getClient();
+        ClientResponse resp = client.callProcedure("MixedBatchReadsAndWrites", 5);
+        assertTrue("Successful mixed read/write batch.", resp.getStatus() == ClientResponse.SUCCESS);
+        VoltTable[] results = resp.getResults();
+        assertEquals(22, results.length);
+        for (int i = 0; i < 5; i++) {
+            // each pair of reads sees the two rows inserted by every earlier round
+            assertEquals(2L * i, results[4 * i].asScalarLong());
+            if (i > 0) {
+                assertEquals(2L * i, results[4 * i + 1].asScalarLong());
+            }
+            assertEquals(1L, results[4 * i + 2].asScalarLong());
+            assertEquals(1L, results[4 * i + 3].asScalarLong());
+        }
+        assertEquals(10L, results[20].asScalarLong());
+        assertEquals(10L, results[21].asScalarLong());
+    }
+
     public void testMultiRoundTripMixReadsWritesConstraintViolation() throws Exception
     {
         final Client client = this.getClient();
@@ -217,6 +239,7 @@ public class TestMPMultiRoundTripSuite extends RegressionSuite {
     /** Procedures used by this suite */
     static final Class<?>[] MP_PROCEDURES = { LoadP1.class, LoadR1.class, MultiRoundP1Count.class,
                                            MultiRoundR1Count.class,
+                                           MixedBatchReadsAndWrites.class,
                                            MultiRoundMixedReads.class,
                                            MultiRoundMixReadsAndWrites.class,
                                            MultiRoundMixReplicatedReadsAndWrites.class };
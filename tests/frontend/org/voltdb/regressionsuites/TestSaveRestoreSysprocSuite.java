@@ -44,6 +44,8 @@ import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.zip.GZIPInputStream;
@@ -52,9 +54,11 @@ import org.apache.zookeeper_voltpatches.ZooKeeper;
 import org.json_voltpatches.JSONException;
 import org.json_voltpatches.JSONObject;
 import org.voltcore.logging.VoltLogger;
+import org.voltcore.utils.DBBPool.BBContainer;
 import org.voltcore.zk.ZKUtil;
 import org.voltdb.BackendTarget;
 import org.voltdb.DefaultSnapshotDataTarget;
+import org.voltdb.PrivateVoltTableFactory;
 import org.voltdb.VoltDB;
 import org.voltdb.VoltTable;
 import org.voltdb.VoltTable.ColumnInfo;
@@ -75,6 +79,7 @@ import org.voltdb.iv2.TxnEgo;
 import org.voltdb.sysprocs.SnapshotRestoreResultSet;
 import org.voltdb.sysprocs.SnapshotRestoreResultSet.RestoreResultValue;
 import org.voltdb.sysprocs.saverestore.SnapshotUtil;
+import org.voltdb.sysprocs.saverestore.TableSaveFile;
 import org.voltdb.types.GeographyPointValue;
 import org.voltdb.types.GeographyValue;
 import org.voltdb.utils.MiscUtils;
@@ -2691,6 +2696,84 @@ public class TestSaveRestoreSysprocSuite extends SaveRestoreBase {
     }
 
     // Test that we fail properly when there are no savefiles available
+    /*
+     * Restore a partitioned table that spans several snapshot chunks per partition so the
+     * restore pipeline has chunks in flight while earlier ones are loaded, and check the
+     * in progress RESTORE rows are gone from @SnapshotStatus once it completes.
+     */
+    public void testPipelinedRestoreOfManyChunks()
+    throws Exception
+    {
+        if (isValgrind()) return; // snapshot doesn't run in valgrind ENG-4034
+
+        System.out.println("Starting testPipelinedRestoreOfManyChunks");
+        int num_partitioned_items_per_chunk = 600; // divisible by 3
+        int num_partitioned_chunks = 150;
+        int num_partitioned_items = num_partitioned_items_per_chunk * num_partitioned_chunks;
+        Client client = getClient();
+
+        loadLargePartitionedTable(client, "PARTITION_TESTER",
+                                  num_partitioned_items_per_chunk,
+                                  num_partitioned_chunks);
+
+        VoltTable[] results = saveTablesWithDefaultOptions(client, TESTNONCE);
+        while (results[0].advanceRow()) {
+            assertEquals("SUCCESS", results[0].getString("RESULT"));
+        }
+
+        // Read the partitioned table back through a chunk decoder pool, each partition
+        // must have more than one chunk for the pipeline to overlap reads and loads
+        ExecutorService decoder = Executors.newFixedThreadPool(2);
+        File item_file = new File(TMPDIR, TESTNONCE + "-PARTITION_TESTER-host_0.vpt");
+        TableSaveFile savefile = new TableSaveFile(new FileInputStream(item_file), 3, null);
+        TreeMap<Integer, Integer> chunksPerPartition = new TreeMap<Integer, Integer>();
+        int rowsInFile = 0;
+        try {
+            savefile.setChunkDecoder(decoder);
+            while (savefile.hasMoreChunks()) {
+                BBContainer c = savefile.getNextChunk();
+                if (c == null) {
+                    break;
+                }
+                try {
+                    int partitionId = ((TableSaveFile.Container)c).partitionId;
+                    Integer chunks = chunksPerPartition.get(partitionId);
+                    chunksPerPartition.put(partitionId, chunks == null ? 1 : chunks + 1);
+                    rowsInFile += PrivateVoltTableFactory.createVoltTableFromBuffer(c.b(), true).getRowCount();
+                } finally {
+                    c.discard();
+                }
+            }
+        } finally {
+            decoder.shutdown();
+            savefile.close();
+        }
+        assertEquals(num_partitioned_items, rowsInFile);
+        assertEquals(SITE_COUNT, chunksPerPartition.size());
+        for (int chunks : chunksPerPartition.values()) {
+            assertTrue(chunks > 1);
+        }
+
+        // Kill and restart all the execution sites.
+        m_config.shutDown();
+        m_config.startUp();
+        client = getClient();
+
+        results = client.callProcedure("@SnapshotRestore", TMPDIR, TESTNONCE).getResults();
+        while (results[0].advanceRow()) {
+            if (results[0].getString("RESULT").equals("FAILURE")) {
+                fail(results[0].getString("ERR_MSG"));
+            }
+        }
+
+        checkTable(client, "PARTITION_TESTER", "PT_ID", num_partitioned_items);
+
+        VoltTable status = client.callProcedure("@SnapshotStatus").getResults()[0];
+        while (status.advanceRow()) {
+            assertFalse("RESTORE".equals(status.getString("TYPE")));
+        }
+    }
+
     public void testRestoreMissingFiles()
     throws IOException, InterruptedException
     {
@@ -295,6 +295,61 @@ public class TestSqlAggregateSuite extends RegressionSuite {
         }
     }
 
+    public void testFilteredAggregatesOverManyRows() throws IOException, ProcCallException
+    {
+        // Enough rows to span several batches of a vectorized scan,
+        // with every seventh NUM left NULL.  The filters are on the
+        // unindexed NUM column so that the queries run as sequential scans.
+        int rows = 2500;
+        String[] tables = {"P1", "R1"};
+        for (String table : tables)
+        {
+            Client client = getClient();
+            long count = 0, sum = 0, min = Long.MAX_VALUE, max = Long.MIN_VALUE, countAll = 0;
+            for (int i = 0; i < rows; ++i)
+            {
+                int num = (i % 7 == 0) ? VoltType.NULL_INTEGER : i % 100;
+                client.callProcedure("Insert", table, i, "desc",
+                                     new BigDecimal(10.0), num, 14.5);
+                if (num != VoltType.NULL_INTEGER && num >= 20 && num < 80) {
+                    ++countAll;
+                    if (num != 42) {
+                        ++count;
+                        sum += num;
+                        min = Math.min(min, num);
+                        max = Math.max(max, num);
+                    }
+                }
+            }
+            String query = String.format("select count(*), count(NUM), sum(NUM), min(NUM), max(NUM) from %s " +
+                                         "where NUM >= ? and 80 > NUM and NUM <> 42", table);
+            checkQueryPlan(client, query, "SEQUENTIAL SCAN");
+            VoltTable result = client.callProcedure("@AdHoc", query, 20).getResults()[0];
+            assertTrue(result.advanceRow());
+            assertEquals(count, result.getLong(0));
+            assertEquals(count, result.getLong(1));
+            assertEquals(sum, result.getLong(2));
+            assertEquals(min, result.getLong(3));
+            assertEquals(max, result.getLong(4));
+
+            // NULLs are filtered out by any comparison
+            query = String.format("select count(*) from %s where NUM >= 20 and NUM < 80", table);
+            checkQueryPlan(client, query, "SEQUENTIAL SCAN");
+            assertEquals(countAll, client.callProcedure("@AdHoc", query).getResults()[0].asScalarLong());
+
+            // Nothing qualifies
+            query = String.format("select count(*), sum(NUM), max(NUM) from %s where NUM > 100", table);
+            checkQueryPlan(client, query, "SEQUENTIAL SCAN");
+            result = client.callProcedure("@AdHoc", query).getResults()[0];
+            assertTrue(result.advanceRow());
+            assertEquals(0, result.getLong(0));
+            result.getLong(1);
+            assertTrue(result.wasNull());
+            result.getLong(2);
+            assertTrue(result.wasNull());
+        }
+    }
+
     public void testAggregatesWithOnlyNulls() throws IOException, ProcCallException
     {
         int null_rows = 5;
@@ -143,6 +143,67 @@ public class TestStatisticsSuitePlannerStats extends StatisticsTestSuiteBase {
         assertTrue("Failed total FAILURES == 0, value was: " + failures, failures == 0);
     }
 
+    //
+    // ad hoc plan cache statistics
+    //
+    public void testPlanCacheStatistics() throws Exception {
+        System.out.println("\n\nTESTING PLANCACHE STATS\n\n\n");
+        Client client  = getClient();
+
+        VoltTable[] results = client.callProcedure("@Statistics", "plancache", 0).getResults();
+        assertEquals(1, results.length);
+        for (String column : new String[] {
+                "TIMESTAMP", "HOST_ID", "HOSTNAME", "LITERAL_ENTRIES", "LITERAL_MEMORY", "LITERAL_HITS",
+                "LITERAL_MISSES", "LITERAL_EVICTIONS", "LITERAL_REJECTIONS", "CORE_ENTRIES", "CORE_HITS",
+                "CORE_MISSES", "CORE_EVICTIONS", "CORE_REJECTIONS", "PLANS_COMPILED", "PLAN_TIME_AVG",
+                "PLAN_TIME_MAX", "WARMED_STATEMENTS"}) {
+            assertTrue("Missing column " + column, results[0].getColumnIndex(column) >= 0);
+        }
+        assertEquals(HOSTS, results[0].getRowCount());
+
+        // Clear the interval statistics
+        client.callProcedure("@Statistics", "plancache", 1).getResults();
+
+        // The same literal statement hits the literal level, different
+        // constants in the same statement hit the parameterized level.
+        for (int i = 0; i < 10; i++) {
+            client.callProcedure("@AdHoc", "select * from warehouse").getResults();
+            client.callProcedure("@AdHoc", "select * from item where i_id = " + i).getResults();
+        }
+
+        VoltTable stats = client.callProcedure("@Statistics", "plancache", 1).getResults()[0];
+        System.out.println("Test plancache table: " + stats.toString());
+        long literalEntries = 0, literalHits = 0, literalMisses = 0, coreEntries = 0, coreHits = 0;
+        long plansCompiled = 0, planTimeMax = 0;
+        while (stats.advanceRow()) {
+            literalEntries += stats.getLong("LITERAL_ENTRIES");
+            literalHits += stats.getLong("LITERAL_HITS");
+            literalMisses += stats.getLong("LITERAL_MISSES");
+            coreEntries += stats.getLong("CORE_ENTRIES");
+            coreHits += stats.getLong("CORE_HITS");
+            plansCompiled += stats.getLong("PLANS_COMPILED");
+            planTimeMax = Math.max(planTimeMax, stats.getLong("PLAN_TIME_MAX"));
+            assertTrue(stats.getLong("LITERAL_MEMORY") >= 0);
+            assertTrue(stats.getLong("PLAN_TIME_AVG") <= stats.getLong("PLAN_TIME_MAX"));
+        }
+        // Each host that the client sent a statement to has its own cache
+        assertTrue("Failed LITERAL_ENTRIES >= 2, value was: " + literalEntries, literalEntries >= 2);
+        assertTrue("Failed LITERAL_HITS >= 10 - HOSTS, value was: " + literalHits, literalHits >= 10 - HOSTS);
+        assertTrue("Failed LITERAL_MISSES >= 11, value was: " + literalMisses, literalMisses >= 11);
+        assertTrue("Failed CORE_ENTRIES >= 1, value was: " + coreEntries, coreEntries >= 1);
+        assertTrue("Failed CORE_HITS >= 10 - HOSTS, value was: " + coreHits, coreHits >= 10 - HOSTS);
+        assertTrue("Failed PLANS_COMPILED <= 2 * HOSTS, value was: " + plansCompiled, plansCompiled <= 2 * HOSTS);
+        assertTrue("Failed PLAN_TIME_MAX > 0, value was: " + planTimeMax, planTimeMax > 0);
+
+        // Nothing happened since the last interval
+        stats = client.callProcedure("@Statistics", "plancache", 1).getResults()[0];
+        while (stats.advanceRow()) {
+            assertEquals(0, stats.getLong("LITERAL_HITS"));
+            assertEquals(0, stats.getLong("CORE_HITS"));
+            assertEquals(0, stats.getLong("PLANS_COMPILED"));
+        }
+    }
+
     //
     // Build a list of the tests to be run. Use the regression suite
     // helpers to allow multiple backends.
@@ -239,6 +239,40 @@ public class TestLowImpactDelete extends TestCase {
         assertTrue (deleted == 500);
     }
 
+    @Test
+    public void testFrontierSkipsNulls() throws NoConnectionsException, IOException, ProcCallException {
+        System.out.println("testFrontierSkipsNulls");
+
+        // The first half of the rows have a NULL timestamp, they sort first but are never deleted
+        long numberOfItems = 10000;
+        VoltTable inputTable = createTable(numberOfItems, 0, 0.5, 0, 0);
+        loadTable(m_client, "part", false, inputTable);
+
+        ClientResponse response = m_client.callProcedure("@LowImpactDeleteNT", "part", "ts", "7000", "<", 500, 1000 * 1000, MAX_FREQUENCEY, INTERVAL);
+        VoltTable result = response.getResults()[0];
+        assertEquals(1, result.getRowCount());
+        result.advanceRow();
+        assertEquals(1500, result.getLong("ROWS_DELETED"));
+        long frontier = result.getLong("FRONTIER_VALUE");
+        assertFalse(result.wasNull());
+        assertTrue(frontier >= 5000 && frontier < 7000);
+
+        // Nothing is left below a cutoff ahead of the frontier
+        response = m_client.callProcedure("@LowImpactDeleteNT", "part", "ts", "4000", "<", 500, 1000 * 1000, MAX_FREQUENCEY, INTERVAL);
+        result = response.getResults()[0];
+        result.advanceRow();
+        assertEquals(0, result.getLong("ROWS_DELETED"));
+        assertEquals(0, result.getLong("ROWS_LEFT"));
+        assertTrue(result.getLong("FRONTIER_VALUE") >= 5000);
+
+        // Deleting everything expired leaves the NULL rows alone
+        response = m_client.callProcedure("@LowImpactDeleteNT", "part", "ts", "100000", "<", 5000, 1000 * 1000, 10, INTERVAL);
+        result = response.getResults()[0];
+        result.advanceRow();
+        assertEquals(0, result.getLong("ROWS_LEFT"));
+        assertEquals(numberOfItems / 2, m_client.callProcedure("partcount").getResults()[0].asScalarLong());
+    }
+
     @Test
     public void testLongRunningNibbleDelete() throws InterruptedException {
         System.out.println("testLongRunningNibbleDelete");
@@ -0,0 +1,92 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.sysprocs;
+
+import org.voltdb.VoltTable;
+import org.voltdb.VoltTable.ColumnInfo;
+import org.voltdb.VoltType;
+import org.voltdb.sysprocs.LowImpactDeleteNT.ComparisonOperation;
+import org.voltdb.types.TimestampType;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks how nibble delete uses and merges the first remaining value in delete order.
+ */
+public class TestNibbleDeleteFrontier extends TestCase {
+
+    private static VoltTable frontierResult(Long frontier) {
+        VoltTable result = new VoltTable(new ColumnInfo("DELETED_ROWS", VoltType.BIGINT),
+                                         new ColumnInfo("LEFT_ROWS", VoltType.BIGINT),
+                                         new ColumnInfo("ELAPSED_NANOS", VoltType.BIGINT),
+                                         new ColumnInfo("FRONTIER_VALUE", VoltType.BIGINT));
+        result.addRow(0L, 0L, 0L, frontier);
+        result.advanceRow();
+        return result;
+    }
+
+    public void testIsPastCutoff() {
+        // Deleting rows below the cutoff, the frontier is the smallest remaining value
+        assertFalse(NibbleDeleteBase.isPastCutoff(ComparisonOperation.LT, 99, 100));
+        assertTrue(NibbleDeleteBase.isPastCutoff(ComparisonOperation.LT, 100, 100));
+        assertTrue(NibbleDeleteBase.isPastCutoff(ComparisonOperation.LT, 101, 100));
+        assertFalse(NibbleDeleteBase.isPastCutoff(ComparisonOperation.LTE, 100, 100));
+        assertTrue(NibbleDeleteBase.isPastCutoff(ComparisonOperation.LTE, 101, 100));
+
+        // Deleting rows above the cutoff, the frontier is the largest remaining value
+        assertFalse(NibbleDeleteBase.isPastCutoff(ComparisonOperation.GT, 101, 100));
+        assertTrue(NibbleDeleteBase.isPastCutoff(ComparisonOperation.GT, 100, 100));
+        assertTrue(NibbleDeleteBase.isPastCutoff(ComparisonOperation.GT, 99, 100));
+        assertFalse(NibbleDeleteBase.isPastCutoff(ComparisonOperation.GTE, 100, 100));
+        assertTrue(NibbleDeleteBase.isPastCutoff(ComparisonOperation.GTE, 99, 100));
+
+        // There is no frontier to skip on for equality
+        assertFalse(NibbleDeleteBase.isPastCutoff(ComparisonOperation.EQ, 99, 100));
+        assertFalse(NibbleDeleteBase.isPastCutoff(ComparisonOperation.EQ, 100, 100));
+    }
+
+    public void testFrontierAsLong() {
+        assertEquals(Long.valueOf(12), NibbleDeleteBase.frontierAsLong((byte) 12));
+        assertEquals(Long.valueOf(12), NibbleDeleteBase.frontierAsLong((short) 12));
+        assertEquals(Long.valueOf(12), NibbleDeleteBase.frontierAsLong(12));
+        assertEquals(Long.valueOf(12), NibbleDeleteBase.frontierAsLong(12L));
+        assertEquals(Long.valueOf(12345), NibbleDeleteBase.frontierAsLong(new TimestampType(12345)));
+        assertNull(NibbleDeleteBase.frontierAsLong(1.5d));
+        assertNull(NibbleDeleteBase.frontierAsLong("12"));
+        assertNull(NibbleDeleteBase.frontierAsLong(null));
+    }
+
+    public void testMergeFrontier() {
+        // The partition that is furthest behind in delete order wins
+        assertEquals(Long.valueOf(5), LowImpactDeleteNT.mergeFrontier(ComparisonOperation.LT, null, frontierResult(5L)));
+        assertEquals(Long.valueOf(3), LowImpactDeleteNT.mergeFrontier(ComparisonOperation.LT, 3L, frontierResult(5L)));
+        assertEquals(Long.valueOf(3), LowImpactDeleteNT.mergeFrontier(ComparisonOperation.LTE, 7L, frontierResult(3L)));
+        assertEquals(Long.valueOf(5), LowImpactDeleteNT.mergeFrontier(ComparisonOperation.GT, 3L, frontierResult(5L)));
+        assertEquals(Long.valueOf(7), LowImpactDeleteNT.mergeFrontier(ComparisonOperation.GTE, 7L, frontierResult(3L)));
+
+        // A partition without a frontier, e.g. an empty one, doesn't change it
+        assertEquals(Long.valueOf(3), LowImpactDeleteNT.mergeFrontier(ComparisonOperation.LT, 3L, frontierResult(null)));
+        assertNull(LowImpactDeleteNT.mergeFrontier(ComparisonOperation.GT, null, frontierResult(null)));
+    }
+}
@@ -0,0 +1,99 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.sysprocs;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.voltdb.SnapshotStatus;
+import org.voltdb.VoltTable;
+import org.voltdb.VoltTable.ColumnInfo;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks the RESTORE rows @SnapshotStatus reports for the tables and
+ * partitions loaded by a restore in progress.
+ */
+public class TestSnapshotRestoreProgress extends TestCase {
+
+    @Override
+    public void setUp() {
+        SnapshotRestore.clearRestoreProgress();
+    }
+
+    @Override
+    public void tearDown() {
+        SnapshotRestore.clearRestoreProgress();
+    }
+
+    private static VoltTable restoreStatus() {
+        SnapshotStatus status = new SnapshotStatus();
+        VoltTable table = new VoltTable(status.getColumnSchema().toArray(new ColumnInfo[0]));
+        for (Object[] row : status.getStatsRows(false, System.currentTimeMillis())) {
+            table.addRow(row);
+        }
+        return table;
+    }
+
+    public void testNoRowsWithoutRestore() {
+        assertEquals(0, restoreStatus().getRowCount());
+        assertTrue(SnapshotRestore.getRestoreProgress().isEmpty());
+    }
+
+    public void testProgressRows() {
+        SnapshotRestore.recordLoadProgress("FOO", 0, 10, 1000);
+        SnapshotRestore.recordLoadProgress("FOO", 1, 5, 500);
+        SnapshotRestore.recordLoadProgress("FOO", 0, 20, 2000);
+        SnapshotRestore.recordLoadProgress("BAR", 1, 1, 64);
+
+        Map<String, Long> sizes = new HashMap<String, Long>();
+        VoltTable status = restoreStatus();
+        assertEquals(3, status.getRowCount());
+        while (status.advanceRow()) {
+            assertEquals("RESTORE", status.getString("TYPE"));
+            assertEquals("IN_PROGRESS", status.getString("RESULT"));
+            assertEquals(0, status.getLong("END_TIME"));
+            assertTrue(status.getLong("START_TIME") > 0);
+            assertTrue(status.getLong("DURATION") >= 0);
+            assertTrue(status.getDouble("THROUGHPUT") >= 0);
+            sizes.put(status.getString("TABLE") + "/" + status.getString("FILENAME"),
+                      status.getLong("SIZE"));
+        }
+        assertEquals(Long.valueOf(3000), sizes.get("FOO/PARTITION 0"));
+        assertEquals(Long.valueOf(500), sizes.get("FOO/PARTITION 1"));
+        assertEquals(Long.valueOf(64), sizes.get("BAR/PARTITION 1"));
+
+        // Rows are accumulated per table and partition
+        for (SnapshotRestore.RestoreProgress p : SnapshotRestore.getRestoreProgress()) {
+            if (p.tableName.equals("FOO") && p.partitionId == 0) {
+                assertEquals(30, p.getRows());
+            }
+        }
+
+        // The rows go away once the restore is done
+        SnapshotRestore.clearRestoreProgress();
+        assertEquals(0, restoreStatus().getRowCount());
+    }
+}
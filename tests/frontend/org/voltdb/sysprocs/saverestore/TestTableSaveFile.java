@@ -25,8 +25,17 @@ package org.voltdb.sysprocs.saverestore;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.After;
 import org.voltcore.TransactionIdManager;
@@ -305,4 +314,188 @@ public class TestTableSaveFile extends TestCase {
             savefile.close();
         }
     }
+
+    /**
+     * Holds back the first decode task until two later chunks have been decoded,
+     * so the first chunk of the file is published after chunks that follow it.
+     * The read ahead of 3 chunks leaves room for the held chunk and the two after it.
+     */
+    private static class ReorderingDecoder extends AbstractExecutorService {
+        private final ExecutorService m_pool = Executors.newFixedThreadPool(2);
+        private Runnable m_held = null;
+        private boolean m_first = true;
+        private int m_completedSinceHeld = 0;
+
+        @Override
+        public synchronized void execute(final Runnable task) {
+            if (m_first) {
+                m_first = false;
+                m_held = task;
+                return;
+            }
+            m_pool.execute(new Runnable() {
+                @Override
+                public void run() {
+                    task.run();
+                    releaseHeld();
+                }
+            });
+        }
+
+        private synchronized void releaseHeld() {
+            if (m_held != null && ++m_completedSinceHeld == 2) {
+                m_pool.execute(m_held);
+                m_held = null;
+            }
+        }
+
+        @Override
+        public synchronized void shutdown() {
+            if (m_held != null) {
+                m_pool.execute(m_held);
+                m_held = null;
+            }
+            m_pool.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown();
+            return m_pool.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return m_pool.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return m_pool.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return m_pool.awaitTermination(timeout, unit);
+        }
+    }
+
+    /*
+     * Read every chunk of the file, returning the partition ids in the order the chunks
+     * were returned and appending the rows to reaggregate.
+     */
+    private List<Integer> readAllChunks(TableSaveFile file, VoltTable reaggregate) throws Exception {
+        List<Integer> order = new ArrayList<Integer>();
+        while (file.hasMoreChunks()) {
+            final BBContainer c = file.getNextChunk();
+            if (c == null) {
+                break;
+            }
+            order.add(((TableSaveFile.Container)c).partitionId);
+            try {
+                VoltTable chunk = PrivateVoltTableFactory.createVoltTableFromBuffer(c.b(), false);
+                while (chunk.advanceRow()) {
+                    reaggregate.add(chunk);
+                }
+            } finally {
+                c.discard();
+            }
+        }
+        return order;
+    }
+
+    /*
+     * Chunks come back in the order the file was written, sort the rows by RT_ID to compare
+     */
+    private static List<Integer> sortedIds(VoltTable table) {
+        List<Integer> ids = new ArrayList<Integer>();
+        table.resetRowPosition();
+        while (table.advanceRow()) {
+            assertEquals(table.getLong(0), table.getLong(2));
+            assertEquals("name_" + table.getLong(0), table.getString(1));
+            ids.add((int)table.getLong(0));
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+
+    public void testChunkTableWithDecoderOutOfOrder() throws Exception {
+        System.out.println("Running testChunkTableWithDecoderOutOfOrder");
+        Pair<VoltTable, File> generated = generateTestTable(20000);
+        VoltTable table = generated.getFirst();
+        File f = generated.getSecond();
+
+        ReorderingDecoder decoder = new ReorderingDecoder();
+        TableSaveFile savefile = new TableSaveFile(new FileInputStream(f), 3, null);
+        try {
+            savefile.setChunkDecoder(decoder);
+            VoltTable reaggregate = table.clone(10000);
+            List<Integer> order = readAllChunks(savefile, reaggregate);
+
+            // One chunk per partition id, the first chunk held back behind later ones
+            assertEquals(20, order.size());
+            assertFalse(order.get(0) == 0);
+            assertEquals(20, new TreeSet<Integer>(order).size());
+            assertEquals(0, (int)new TreeSet<Integer>(order).first());
+            assertEquals(19, (int)new TreeSet<Integer>(order).last());
+
+            assertEquals(table.getRowCount(), reaggregate.getRowCount());
+            assertEquals(sortedIds(table), sortedIds(reaggregate));
+            assertTrue(savefile.getCorruptedPartitionIds().isEmpty());
+        } finally {
+            // Release a still held chunk so close() doesn't wait on it
+            decoder.shutdown();
+            savefile.close();
+        }
+    }
+
+    public void testCorruptedChunkWithDecoder() throws Exception {
+        System.out.println("Running testCorruptedChunkWithDecoder");
+        Pair<VoltTable, File> generated = generateTestTable(20000);
+        VoltTable table = generated.getFirst();
+        File f = generated.getSecond();
+
+        // The file ends with the compressed payload of the last chunk, for partition 19
+        RandomAccessFile raf = new RandomAccessFile(f, "rw");
+        try {
+            raf.seek(raf.length() - 1);
+            final int lastByte = raf.read();
+            raf.seek(raf.length() - 1);
+            raf.write(lastByte ^ 0xff);
+        } finally {
+            raf.close();
+        }
+
+        // Continuing past the corrupted chunk returns all of the others
+        ReorderingDecoder decoder = new ReorderingDecoder();
+        TableSaveFile savefile = new TableSaveFile(new FileInputStream(f), 3, null, true);
+        try {
+            savefile.setChunkDecoder(decoder);
+            VoltTable reaggregate = table.clone(10000);
+            List<Integer> order = readAllChunks(savefile, reaggregate);
+            assertEquals(19, order.size());
+            assertFalse(order.contains(19));
+            assertEquals(table.getRowCount() - 1000, reaggregate.getRowCount());
+            assertEquals(Collections.singleton(19), savefile.getCorruptedPartitionIds());
+        } finally {
+            // Release a still held chunk so close() doesn't wait on it
+            decoder.shutdown();
+            savefile.close();
+        }
+
+        // Otherwise the failure on the decoder pool is surfaced to the reader
+        decoder = new ReorderingDecoder();
+        savefile = new TableSaveFile(new FileInputStream(f), 3, null, false);
+        try {
+            savefile.setChunkDecoder(decoder);
+            readAllChunks(savefile, table.clone(10000));
+            fail("Expected the corrupted chunk to fail the read");
+        } catch (IOException expected) {
+            assertTrue(savefile.getCorruptedPartitionIds().contains(19));
+        } finally {
+            // Release a still held chunk so close() doesn't wait on it
+            decoder.shutdown();
+            savefile.close();
+        }
+    }
 }
@@ -1849,6 +1849,84 @@ public class TestCSVLoader {
         }
     }
 
+    @Test
+    public void testParallelParsers() throws Exception
+    {
+        String []myOptions = {
+                "-f" + path_csv,
+                "--reportdir=" + reportDir,
+                "--maxerrors=50",
+                "--user=",
+                "--password=",
+                "--port=",
+                "--separator=,",
+                "--quotechar=\"",
+                "--escape=\\",
+                "--skip=1",
+                "--limitrows=100",
+                "--parsers=4",
+                "BlAh"
+        };
+        String currentTime = new TimestampType().toString();
+        String []myData = {
+                "1 ,1,1,11111111,first,1.10,1.11,"+currentTime+",POINT(1 1),\"POLYGON((0 0, 1 0, 0 1, 0 0))\"",
+                "2,2,2,222222,second,3.30,NULL,"+currentTime+",POINT(2 2),\"POLYGON((0 0, 2 0, 0 2, 0 0))\"",
+                "3,3,3,333333, third ,NULL, 3.33,"+currentTime+",POINT(3 3),\"POLYGON((0 0, 3 0, 0 3, 0 0))\"",
+                "4,4,4,444444, NULL ,4.40 ,4.44,"+currentTime+",POINT(4 4),\"POLYGON((0 0, 4 0, 0 4, 0 0))\"",
+                "5,5,5,5555555,  \"abcde\"g, 5.50, 5.55,"+currentTime+",POINT(5 5),\"POLYGON((0 0, 5 0, 0 5, 0 0))\"",
+                "6,6,NULL,666666, sixth, 6.60, 6.66,"+currentTime+",POINT(6 6),\"POLYGON((0 0, 6 0, 0 6, 0 0))\"",
+                "7,NULL,7,7777777, seventh, 7.70, 7.77,"+currentTime+",POINT(7 7),\"POLYGON((0 0, 7 0, 0 7, 0 0))\"",
+                "11, 1,1,\"1,000\",first,1.10,1.11,"+currentTime+",POINT(1 1),\"POLYGON((0 0, 8 0, 0 8, 0 0))\"",
+                //empty line
+                "",
+                //invalid lines below
+                "8, 8",
+                "9, NLL,9,\"1,000\",nine,1.10,1.11,"+currentTime+",POINT(9 9),\"POLYGON((0 0, 9 0, 0 9, 0 0))\"",
+                "10,10,10,10 101 010,second,2.20,2.22"+currentTime+",POINT(10 10),\"POLYGON((0 0, 10 0, 0 10, 0 0))\"",
+                "12,n ull,12,12121212,twelveth,12.12,12.12"
+        };
+        int invalidLineCnt = 4;
+        int validLineCnt = 7;
+        test_Interface(myOptions, myData, invalidLineCnt, validLineCnt );
+    }
+
+    // Large enough to be cut into several chunks, with quoted newlines and
+    // escaped quotes that must not be taken for record boundaries.
+    @Test
+    public void testParallelParsersMultipleChunks() throws Exception
+    {
+        String []myOptions = {
+                "-f" + path_csv,
+                "--reportdir=" + reportDir,
+                "--maxerrors=50",
+                "--user=",
+                "--password=",
+                "--port=",
+                "--parsers=4",
+                "BlAh"
+        };
+        int rowCount = 100000;
+        int invalidLineCnt = 0;
+        int multiLineCnt = 0;
+        List<String> myData = new ArrayList<String>();
+        for (int i = 0; i < rowCount; i++) {
+            if (i % 10000 == 5000) {
+                myData.add(i + ",1");
+                invalidLineCnt++;
+            } else if (i % 7 == 0) {
+                myData.add(i + ",1,1," + i + ",\"two\nlines\",,,,,");
+                multiLineCnt++;
+            } else if (i % 11 == 0) {
+                myData.add(i + ",1,1," + i + ",\\\"quote,,,,,");
+            } else {
+                myData.add(i + ",1,1," + i + ",row,,,,,");
+            }
+        }
+        test_Interface(myOptions, myData.toArray(new String[0]), invalidLineCnt, rowCount - invalidLineCnt);
+        assertEquals(multiLineCnt, client.callProcedure("@AdHoc",
+                "SELECT COUNT(*) FROM BLAH WHERE clm_string LIKE 'two%lines';").getResults()[0].asScalarLong());
+    }
+
     // read from hard-coded data, no encoding
     public void test_Interface(String[] my_options, String[] my_data, int invalidLineCnt,
             int validLineCnt) throws Exception {
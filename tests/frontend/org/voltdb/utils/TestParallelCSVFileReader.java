@@ -0,0 +1,257 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.supercsv.io.CsvListReader;
+import org.supercsv.prefs.CsvPreference;
+import org.supercsv_voltpatches.tokenizer.Tokenizer;
+import org.voltdb.VoltType;
+import org.voltdb.client.ClientResponse;
+
+/**
+ * Runs the single threaded and the parallel reader over the same file and
+ * checks they hand the loader the same rows, line numbers and errors. Tiny
+ * chunks put a chunk boundary next to every kind of record the scanner has
+ * to recognize.
+ */
+public class TestParallelCSVFileReader {
+
+    private File m_file;
+
+    /**
+     * Records what a reader hands to the loader and the error handler.
+     */
+    private static class RecordingLoader implements CSVDataLoader, BulkLoaderErrorHandler {
+        final List<String> m_events = new ArrayList<String>();
+        boolean m_closed = false;
+
+        @Override
+        public VoltType[] getColumnTypes() {
+            return new VoltType[] { VoltType.INTEGER, VoltType.STRING };
+        }
+
+        @Override
+        public synchronized void insertRow(RowWithMetaData metaData, Object[] values) {
+            String[] strings = new String[values.length];
+            for (int i = 0; i < values.length; i++) {
+                strings[i] = values[i] == null ? null : values[i].toString();
+            }
+            m_events.add("row " + metaData.lineNumber + " " + metaData.rawLine + " " + Arrays.toString(strings));
+        }
+
+        @Override
+        public synchronized boolean handleError(RowWithMetaData metaData, ClientResponse response, String error) {
+            m_events.add("error " + metaData.lineNumber + " " + metaData.rawLine + " " + error);
+            return false;
+        }
+
+        @Override
+        public boolean hasReachedErrorLimit() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+            m_closed = true;
+        }
+
+        @Override
+        public long getProcessedRows() {
+            return m_events.size();
+        }
+
+        @Override
+        public long getFailedRows() {
+            return 0;
+        }
+
+        @Override
+        public void setFlushInterval(int delay, int seconds) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void resumeLoading() {
+        }
+
+        @Override
+        public Map<Integer, String> getColumnNames() {
+            Map<Integer, String> names = new HashMap<Integer, String>();
+            names.put(0, "ID");
+            names.put(1, "NAME");
+            return names;
+        }
+    }
+
+    private static class Result {
+        final List<String> m_events;
+        final long m_rows;
+        final long m_lines;
+
+        Result(RecordingLoader loader) {
+            assertTrue(loader.m_closed);
+            m_events = loader.m_events;
+            m_rows = CSVFileReader.m_totalRowCount.get();
+            m_lines = CSVFileReader.m_totalLineCount.get();
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        m_file = File.createTempFile("parallelcsv", ".csv");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        m_file.delete();
+    }
+
+    private void writeFile(boolean header, int skip, int records) throws Exception {
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(m_file), StandardCharsets.UTF_8)) {
+            // the tokenizer reads the header first and skips the lines after it
+            if (header) {
+                out.write("NAME,ID\n");
+            }
+            for (int i = 0; i < skip; i++) {
+                out.write("skipped line " + i + "\n");
+            }
+            for (int i = 0; i < records; i++) {
+                switch (i % 8) {
+                case 0:
+                    out.write(i + ",plain " + i + "\n");
+                    break;
+                case 1:
+                    out.write(i + ",\"quoted\nnewline\n" + i + "\"\n");
+                    break;
+                case 2:
+                    out.write(i + ",\"doubled \"\"quotes\"\"\n" + i + "\"\n");
+                    break;
+                case 3:
+                    out.write(i + ",escaped \\\" quote " + i + "\n");
+                    break;
+                case 4:
+                    out.write(i + ",\\N\n");
+                    break;
+                case 5:
+                    // blank and whitespace-only lines are skipped by the tokenizer
+                    out.write(i % 16 == 5 ? "\n" : " \t\n");
+                    break;
+                case 6:
+                    out.write(i + ",too,many\n");
+                    break;
+                default:
+                    out.write(i + ",\"\"\n");
+                    break;
+                }
+            }
+        }
+    }
+
+    private static CSVLoader.CSVConfig config(String file, boolean header, int skip) {
+        CSVLoader.CSVConfig config = new CSVLoader.CSVConfig();
+        config.file = file;
+        config.header = header;
+        config.skip = skip;
+        config.table = "T";
+        return config;
+    }
+
+    private Result read(boolean header, int skip, int parsers, int chunkSize) throws Exception {
+        CSVLoader.CSVConfig config = config(m_file.getPath(), header, skip);
+        CsvPreference preference = new CsvPreference.Builder(config.quotechar, config.separator, "\n").build();
+        Tokenizer tokenizer = new Tokenizer(new InputStreamReader(new FileInputStream(m_file), config.charset),
+                preference, config.strictquotes, config.escape, config.columnsizelimit,
+                config.skip, config.header);
+        CsvListReader listReader = new CsvListReader(tokenizer, preference);
+        try {
+            CSVFileReader.initializeReader(config, null, listReader);
+            CSVFileReader.m_totalRowCount.set(0);
+            CSVFileReader.m_totalLineCount.set(0);
+
+            RecordingLoader loader = new RecordingLoader();
+            CSVFileReader reader;
+            if (parsers > 1) {
+                reader = new ParallelCSVFileReader(loader, loader, preference, parsers, chunkSize);
+            } else {
+                reader = new CSVFileReader(loader, loader);
+            }
+            reader.run();
+            return new Result(loader);
+        } finally {
+            listReader.close();
+        }
+    }
+
+    private void assertSameAsSerial(boolean header, int skip, int records) throws Exception {
+        writeFile(header, skip, records);
+        Result serial = read(header, skip, 1, 0);
+        assertTrue(serial.m_events.size() > records / 2);
+        for (int chunkSize : new int[] { 1, 7, 64, 4096 }) {
+            Result parallel = read(header, skip, 3, chunkSize);
+            assertEquals("chunk size " + chunkSize, serial.m_events, parallel.m_events);
+            assertEquals("chunk size " + chunkSize, serial.m_rows, parallel.m_rows);
+            assertEquals("chunk size " + chunkSize, serial.m_lines, parallel.m_lines);
+        }
+    }
+
+    @Test
+    public void testMatchesSerialReader() throws Exception {
+        assertSameAsSerial(false, 0, 400);
+    }
+
+    @Test
+    public void testHeaderAndSkip() throws Exception {
+        assertSameAsSerial(true, 3, 400);
+    }
+
+    @Test
+    public void testEmptyFile() throws Exception {
+        writeFile(false, 0, 0);
+        Result parallel = read(false, 0, 2, 16);
+        assertTrue(parallel.m_events.isEmpty());
+        assertEquals(0, parallel.m_rows);
+    }
+}
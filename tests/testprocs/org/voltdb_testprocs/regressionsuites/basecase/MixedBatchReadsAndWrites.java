@@ -0,0 +1,56 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb_testprocs.regressionsuites.basecase;
+
+import org.voltdb.SQLStmt;
+import org.voltdb.VoltProcedure;
+import org.voltdb.VoltTable;
+
+/**
+ * Queues runs of reads and writes in a single batch. The reads in each
+ * run must see every write queued ahead of them.
+ */
+public class MixedBatchReadsAndWrites extends VoltProcedure
+{
+    public final SQLStmt insertP1 =
+        new SQLStmt("insert into p1 values (?, ?, ?, ?);");
+    public final SQLStmt countP1 =
+        new SQLStmt("select count(*) from p1;");
+    public final SQLStmt sumP1 =
+        new SQLStmt("select sum(b2) from p1;");
+
+    public VoltTable[] run(int reps)
+    {
+        for (int i = 0; i < reps; i++)
+        {
+            voltQueueSQL(countP1);
+            voltQueueSQL(sumP1);
+            voltQueueSQL(insertP1, 2 * i, 2 * i, 1, Integer.toHexString(2 * i));
+            voltQueueSQL(insertP1, 2 * i + 1, 2 * i + 1, 1, Integer.toHexString(2 * i + 1));
+        }
+        voltQueueSQL(countP1);
+        voltQueueSQL(sumP1);
+        return voltExecuteSQL(true);
+    }
+}